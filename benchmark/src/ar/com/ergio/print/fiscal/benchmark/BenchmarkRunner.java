@@ -0,0 +1,76 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ejecuta los benchmarks del stack de impresión fiscal y publica los
+ * resultados en un reporte CSV por versión, para poder comparar las
+ * optimizaciones de los drivers entre versiones.
+ * <br>
+ * Uso: <code>BenchmarkRunner &lt;directorio&gt; &lt;versión&gt; [expresión...]</code>
+ * <ul>
+ * <li> directorio: donde se escribe <code>fiscal-&lt;versión&gt;.csv</code>.
+ * <li> versión: identificador de la versión medida (ej. "1.0.1-f578a12").
+ * <li> expresión: expresiones regulares de los benchmarks a ejecutar; por
+ * defecto se ejecutan todos los de este paquete.
+ * </ul>
+ */
+public class BenchmarkRunner {
+
+	/** Prefijo de los archivos de reporte */
+	public static final String REPORT_PREFIX = "fiscal-";
+
+	public static void main(String[] args) throws RunnerException {
+		if (args.length < 2) {
+			System.err.println("Uso: BenchmarkRunner <directorio> <versión> [expresión...]");
+			System.exit(1);
+		}
+		File dir = new File(args[0]);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			System.err.println("No se puede crear el directorio " + dir);
+			System.exit(1);
+		}
+		File report = getReportFile(dir, args[1]);
+
+		ChainedOptionsBuilder options = new OptionsBuilder()
+			.resultFormat(ResultFormatType.CSV)
+			.result(report.getPath());
+		if (args.length == 2)
+			options.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+		for (int i = 2; i < args.length; i++)
+			options.include(args[i]);
+
+		new Runner(options.build()).run();
+		System.out.println("Reporte: " + report.getAbsolutePath());
+	}
+
+	/**
+	 * @return El archivo de reporte de la versión; los caracteres que no son
+	 * válidos en un nombre de archivo se reemplazan por '_'.
+	 */
+	public static File getReportFile(File dir, String version) {
+		return new File(dir, REPORT_PREFIX + version.trim().replaceAll("[^A-Za-z0-9._-]", "_") + ".csv");
+	}
+}
@@ -0,0 +1,130 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
+import ar.com.ergio.print.fiscal.hasar.HasarCommands;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+import ar.com.ergio.print.fiscal.hasar.HasarStatusDecoder;
+
+/**
+ * Análisis de los estados de impresora y controlador fiscal de una respuesta
+ * (<code>HasarFiscalPrinter.checkStatus</code>). Se mide por separado cada
+ * camino: el estado que no cambió respecto de la respuesta anterior, el
+ * estado que cambió y se obtiene de los ya decodificados, y la decodificación
+ * completa sin caché (el costo de un par de estados nuevo).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckStatusBenchmark {
+
+	/** Estado de impresora (hexadecimal): sin novedades o con tapa abierta y poco papel */
+	@Param({"0080", "C0A1"})
+	public String printerStatus;
+
+	/** Estado fiscal (hexadecimal): sin novedades o con comprobante abierto y memoria casi llena */
+	@Param({"0600", "3E20"})
+	public String fiscalStatus;
+
+	private StatusPrinter printer;
+	private FiscalPacket response;
+	/** Respuesta con otro estado, para alternar con la respuesta medida */
+	private FiscalPacket idleResponse;
+	private boolean idle;
+	private int printerStatusValue;
+	private int fiscalStatusValue;
+
+	@Setup
+	public void setUp() {
+		printer = new StatusPrinter();
+		printerStatusValue = Integer.parseInt(printerStatus, 16);
+		fiscalStatusValue = Integer.parseInt(fiscalStatus, 16);
+		response = createResponse(printerStatusValue, fiscalStatusValue);
+		// Par de estados distinto de todos los medidos
+		idleResponse = createResponse(0x0080, 0x0001);
+	}
+
+	private FiscalPacket createResponse(int printerStatus, int fiscalStatus) {
+		FiscalPacket packet = new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+		packet.setCommandCode(HasarCommands.CMD_STATUS_REQUEST);
+		packet.setPrinterStatus(printerStatus);
+		packet.setFiscalStatus(fiscalStatus);
+		return packet;
+	}
+
+	/**
+	 * Estado igual al de la respuesta anterior: no se decodifica.
+	 */
+	@Benchmark
+	public boolean checkStatus() throws FiscalPrinterIOException {
+		return printer.checkStatus(response);
+	}
+
+	/**
+	 * Estado distinto al de la respuesta anterior: se obtiene de los estados
+	 * ya decodificados.
+	 */
+	@Benchmark
+	public boolean checkStatusChanged() throws FiscalPrinterIOException {
+		idle = !idle;
+		return printer.checkStatus(idle ? idleResponse : response);
+	}
+
+	/**
+	 * Decodificación completa del par de estados, sin caché.
+	 */
+	@Benchmark
+	public Object decodeUncached() {
+		return printer.getStatusDecoder().decodeUncached(printerStatusValue, fiscalStatusValue);
+	}
+
+	/**
+	 * Expone el análisis de estado sin pasar por la interfaz de comunicación.
+	 */
+	private static class StatusPrinter extends HasarPrinterP320F {
+
+		@Override
+		protected boolean checkStatus(FiscalPacket response) throws FiscalPrinterIOException {
+			return super.checkStatus(response);
+		}
+
+		@Override
+		protected HasarStatusDecoder getStatusDecoder() {
+			return super.getStatusDecoder();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.benchmark;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarCommands;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+
+/**
+ * Codificación y decodificación de paquetes Hasar, sin comunicación con
+ * ningún dispositivo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FiscalPacketBenchmark {
+
+	/** Respuesta del Spooler a un subtotal (sin el código de comando) */
+	private static final byte[] SUBTOTAL_RESPONSE = ("0080\u001C0600\u001C00000\u001C12.10\u001C2.10"
+			+ "\u001C0.00\u001C0.00\u001C10.00").getBytes();
+
+	private HasarFiscalPrinter printer;
+	private FiscalPacket lineItem;
+	private FiscalPacket response;
+	private ByteBuffer buffer;
+
+	@Setup
+	public void setUp() {
+		printer = new HasarPrinterP320F();
+		lineItem = printer.cmdPrintLineItem("Producto de prueba con descripción larga",
+				new BigDecimal("2.500"), new BigDecimal("1234.56"), new BigDecimal("21.00"), false,
+				BigDecimal.ZERO, false, null);
+		response = new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+		buffer = ByteBuffer.allocate(512);
+	}
+
+	@Benchmark
+	public byte[] encodeBytes() {
+		return lineItem.encodeBytes();
+	}
+
+	@Benchmark
+	public ByteBuffer encodeBuffer() {
+		buffer.clear();
+		lineItem.encode(buffer);
+		return buffer;
+	}
+
+	@Benchmark
+	public FiscalPacket decodeBytes() {
+		response.decode(HasarCommands.CMD_SUBTOTAL, SUBTOTAL_RESPONSE);
+		return response;
+	}
+
+	@Benchmark
+	public FiscalPacket decodeBuffer() {
+		response.decode(HasarCommands.CMD_SUBTOTAL, ByteBuffer.wrap(SUBTOTAL_RESPONSE));
+		return response;
+	}
+}
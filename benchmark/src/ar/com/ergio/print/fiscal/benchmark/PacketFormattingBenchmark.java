@@ -0,0 +1,79 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ar.com.ergio.print.fiscal.AbstractFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+
+/**
+ * Formateo de importes, cantidades y textos al armar los campos de un
+ * comando, según las reglas del modelo de impresora.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketFormattingBenchmark {
+
+	private static final BigDecimal AMOUNT = new BigDecimal("1234.5678");
+	private static final BigDecimal QUANTITY = new BigDecimal("2.5");
+	private static final String TEXT = "Producto de prueba con una descripción más larga que la permitida por el modelo";
+
+	private AbstractFiscalPacket packet;
+
+	@Setup
+	public void setUp() {
+		HasarFiscalPrinter printer = new HasarPrinterP320F();
+		packet = new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+	}
+
+	@Benchmark
+	public AbstractFiscalPacket setAmount() {
+		packet.setAmount(1, AMOUNT, false);
+		return packet;
+	}
+
+	@Benchmark
+	public AbstractFiscalPacket setQuantity() {
+		packet.setQuantity(2, QUANTITY, false);
+		return packet;
+	}
+
+	@Benchmark
+	public AbstractFiscalPacket setText() {
+		packet.setText(3, TEXT, 50, false);
+		return packet;
+	}
+}
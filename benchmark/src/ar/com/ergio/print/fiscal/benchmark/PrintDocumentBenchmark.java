@@ -0,0 +1,102 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.Payment;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulator;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulatorComm;
+
+/**
+ * Impresión completa de una factura contra el simulador en memoria, sin
+ * latencia: mide el costo del driver (armado de comandos, codificación y
+ * análisis de respuestas) según la cantidad de líneas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrintDocumentBenchmark {
+
+	private static final BigDecimal PRICE = new BigDecimal("12.10");
+
+	/** Cantidad de líneas de la factura */
+	@Param({"10", "100", "1000"})
+	public int lines;
+
+	private HasarFiscalPrinter printer;
+	private Invoice invoice;
+
+	@Setup
+	public void setUp() throws Exception {
+		HasarSimulator simulator = new HasarSimulator();
+		simulator.setDefaultLatency(0);
+		printer = new HasarPrinterP320F(new HasarSimulatorComm(simulator));
+		printer.connect();
+	}
+
+	/**
+	 * El documento guarda el número asignado por la impresora, por lo que se
+	 * arma una factura nueva para cada impresión.
+	 */
+	@Setup(Level.Invocation)
+	public void createInvoice() {
+		invoice = new Invoice();
+		invoice.setLetter("B");
+		invoice.setCustomer(new Customer("Consumidor Final", Customer.DNI, "20111222",
+				Customer.CONSUMIDOR_FINAL, "Neuquen"));
+		for (int i = 1; i <= lines; i++) {
+			invoice.addLine(new DocumentLine(i, "Producto " + i, BigDecimal.ONE, PRICE,
+					new BigDecimal(21), true));
+		}
+		invoice.addPayment(new Payment(PRICE.multiply(new BigDecimal(lines)), "Efectivo"));
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		printer.close();
+	}
+
+	@Benchmark
+	public Invoice printDocument() throws Exception {
+		printer.printDocument(invoice);
+		return invoice;
+	}
+}
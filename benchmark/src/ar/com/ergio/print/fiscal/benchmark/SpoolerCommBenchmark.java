@@ -0,0 +1,99 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.comm.FiscalComm;
+import ar.com.ergio.print.fiscal.comm.SpoolerNIOComm;
+import ar.com.ergio.print.fiscal.comm.SpoolerTCPComm;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulator;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSpoolerSimulator;
+
+/**
+ * Ida y vuelta de un comando por la interfaz de comunicación con el Spooler,
+ * contra el simulador de Spooler escuchando en la interfaz local. El comando
+ * tiene regla de longitud de respuesta, por lo que la medición no incluye
+ * períodos de silencio.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpoolerCommBenchmark {
+
+	public static final String TCP = "TCP";
+	public static final String NIO = "NIO";
+
+	/** Interfaz de comunicación medida */
+	@Param({TCP, NIO})
+	public String comm;
+
+	private HasarSpoolerSimulator spooler;
+	private FiscalComm fiscalComm;
+	private FiscalPacket request;
+	private FiscalPacket response;
+
+	@Setup
+	public void setUp() throws IOException {
+		HasarSimulator simulator = new HasarSimulator();
+		simulator.setDefaultLatency(0);
+		spooler = new HasarSpoolerSimulator(simulator);
+		int port = spooler.start(0);
+		if (TCP.equals(comm))
+			fiscalComm = new SpoolerTCPComm("127.0.0.1", port);
+		else
+			fiscalComm = new SpoolerNIOComm("127.0.0.1", port);
+		fiscalComm.connect();
+
+		HasarFiscalPrinter printer = new HasarPrinterP320F();
+		request = printer.cmdSetCustomerData("Consumidor Final", "20111222", "C", "2", "Neuquen");
+		response = new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		fiscalComm.close();
+		spooler.stop();
+	}
+
+	@Benchmark
+	public FiscalPacket roundTrip() throws IOException {
+		fiscalComm.execute(request, response);
+		return response;
+	}
+}
@@ -30,6 +30,7 @@ import java.util.logging.Level;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import net.miginfocom.swing.MigLayout;
 
@@ -46,6 +47,8 @@ import org.compiere.util.Env;
 import org.compiere.util.Msg;
 
 import ar.com.ergio.model.FiscalDocumentPrint;
+import ar.com.ergio.model.FiscalPrintCallback;
+import ar.com.ergio.model.FiscalPrintQueue;
 import ar.com.ergio.print.fiscal.view.AInfoFiscalPrinter;
 import ar.com.ergio.print.fiscal.view.AInfoFiscalPrinter.DialogActionListener;
 
@@ -116,6 +119,8 @@ public class PosBasePanel extends CPanel
 	private HashMap<Integer, POSKeyboard> keyboards = new HashMap<Integer, POSKeyboard>();
     /** LAR - fiscal printer control window */
 	protected AInfoFiscalPrinter infoFiscalPrinter;
+    /** LAR - invoice of the fiscal ticket being printed */
+    private MInvoice m_fiscalInvoice;
 
 
 	public String getTrxName(){
@@ -256,6 +261,7 @@ public class PosBasePanel extends CPanel
 
 		// LAR - Fiscal printer implementation
 		createInfoFiscalPrinter();
+		restoreFiscalPrintQueues();
 
 		return true;
 	}	//	dynInit
@@ -431,50 +437,111 @@ public class PosBasePanel extends CPanel
         m_frame.setCursor(Cursor.getDefaultCursor());
     }
 
+    /**
+     * Queues the fiscal printing of the ticket and returns without waiting
+     * for it: the status window follows the printing, and
+     * {@link #fiscalTicketPrinted(boolean)} restores the panel when it ends.
+     *
+     * @param invoice invoice of the ticket
+     * @return true if the ticket was queued
+     */
 	protected boolean printFiscalTicket(final MInvoice invoice)
 	{
         log.info("Printing fiscal ticket for " + invoice);
 
-        final SwingWorker worker = new SwingWorker()
+        try {
+            final MDocType docType = new MDocType(m_ctx, invoice.getC_DocType_ID(), null);
+            int lar_Fiscal_Printer_ID = docType.get_ValueAsInt("LAR_Fiscal_Printer_ID");
+            log.info("doc type asociated " + docType);
+
+            final FiscalDocumentPrint fdp = new FiscalDocumentPrint(lar_Fiscal_Printer_ID,
+                    infoFiscalPrinter, infoFiscalPrinter);
+            log.info("fiscal document print created: " + fdp);
+
+            infoFiscalPrinter.setFiscalDocumentPrint(fdp);
+            m_fiscalInvoice = invoice;
+            // POS tickets go ahead of the back-office jobs of the printer
+            fdp.printDocumentAsync(invoice, FiscalPrintQueue.LANE_POS, new FiscalPrintCallback()
+            {
+                @Override
+                public void printFinished(final FiscalDocumentPrint source, final boolean ok)
+                {
+                    SwingUtilities.invokeLater(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            fiscalTicketPrinted(ok);
+                        }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Fiscal printing error", e);
+            stopGlassPane();
+            return false;
+        }
+
+        infoFiscalPrinter.setVisible(true);
+        return true;
+	} // printFiscalTicket
+
+    /**
+     * Restores the panel when the fiscal printing of the ticket ends. On
+     * error the status window stays open, so the user can reprint or void
+     * the ticket.
+     *
+     * @param ok true if the ticket was printed
+     */
+    private void fiscalTicketPrinted(final boolean ok)
+    {
+        log.info("Finish fiscal printing. Printed Ok?: " + ok);
+        if (ok) {
+            m_fiscalInvoice = null;
+            newOrder();
+            stopGlassPane();
+        } else if (!infoFiscalPrinter.isVisible()) {
+            infoFiscalPrinter.setVisible(true);
+        }
+    } // fiscalTicketPrinted
+
+    /**
+     * Queues again the fiscal tickets that were waiting for the printer when
+     * the POS stopped. Nobody waits for them, so their errors are shown here.
+     */
+    private void restoreFiscalPrintQueues()
+    {
+        final int restored = FiscalPrintQueue.getInstance().restoreAll(new FiscalPrintCallback()
         {
             @Override
-            public Object construct()
+            public void printFinished(final FiscalDocumentPrint source, final boolean ok)
             {
-                boolean success = true;
-                int c_DocType_ID = invoice.getC_DocType_ID();
-                try {
-                    final MDocType docType = new MDocType(m_ctx, c_DocType_ID, null);
-                    int lar_Fiscal_Printer_ID = docType.get_ValueAsInt("LAR_Fiscal_Printer_ID");
-                    log.info("doc type asociated " + docType);
-
-                    final FiscalDocumentPrint fdp = new FiscalDocumentPrint(lar_Fiscal_Printer_ID,
-                            infoFiscalPrinter, infoFiscalPrinter);
-                    log.info("fiscal document print created: " + fdp);
-
-                    infoFiscalPrinter.setFiscalDocumentPrint(fdp);
-                    success = fdp.printDocument(invoice);
-                } catch (Exception e) {
-                    log.log(Level.SEVERE, "Fiscal printing error", e);
-                    success = false;
+                if (ok) {
+                    return;
                 }
-                return Boolean.valueOf(success);
-            }
-            @Override
-            public void finished() {
-                boolean result = (Boolean) getValue();
-                log.info("Finish fiscal printing thread. Printed Ok?: " + result);
-                if (result) {
-                    newOrder();
+                final StringBuilder msg = new StringBuilder();
+                if (source != null) {
+                    if (source.getOxpDocument() != null) {
+                        msg.append(source.getOxpDocument().get_ValueAsString("DocumentNo")).append(": ");
+                    }
+                    if (source.getErrorMsg() != null) {
+                        msg.append(Msg.parseTranslation(m_ctx, source.getErrorMsg()));
+                    }
                 }
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        ADialog.error(getWindowNo(), PosBasePanel.this, "PrintingFiscalDocument", msg.toString());
+                    }
+                });
             }
-        };
-
-        worker.start();
-
-        infoFiscalPrinter.setVisible(true); // Thread stops here until fiscal printing finished
-
-        return (Boolean) worker.get();
-	} // printFiscalTicket
+        });
+        if (restored > 0) {
+            log.info("Fiscal print jobs restored: " + restored);
+        }
+    }
 
     private void createInfoFiscalPrinter()
     {
@@ -493,6 +560,7 @@ public class PosBasePanel extends CPanel
             {
                 // Al finalizar una reimpresión de ticket, se
                 // reestablece la interfaz para un nuevo pedido
+                m_fiscalInvoice = null;
                 newOrder();
                 stopGlassPane();
             }
@@ -503,6 +571,8 @@ public class PosBasePanel extends CPanel
                 getWindowNo(), Msg.parseTranslation(Env.getCtx(), "@PrintingFiscalDocument@"));
         log.info("info fiscal printer windows created");
 
+        // The POS is not blocked while the ticket is printed
+        infoFiscalPrinter.setModal(false);
         infoFiscalPrinter.setReprintButtonActive(true);
         infoFiscalPrinter.setVoidButtonActive(true);
         infoFiscalPrinter.setOkButtonActive(false);
@@ -521,7 +591,8 @@ public class PosBasePanel extends CPanel
             @Override
             public Object construct()
             {
-                final MInvoice invoice = m_order.getInvoices()[0];
+                // The order is cleared once the ticket is queued
+                final MInvoice invoice = m_fiscalInvoice;
                 if (!invoice.processIt(MInvoice.DOCACTION_Void)) {
                     errorMsg = Msg.parseTranslation(Env.getCtx(), "@ErrorVoidingInvoice@");
                     return Boolean.FALSE;
@@ -549,6 +620,7 @@ public class PosBasePanel extends CPanel
                         stopGlassPane();
                     }
                 } else {
+                    m_fiscalInvoice = null;
                     newOrder();
                     stopGlassPane();
                 }
@@ -0,0 +1,355 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.afip;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+
+/**
+ * Authorizes many electronic vouchers with as few requests to AFIP as
+ * possible.
+ * <p>
+ * The vouchers are grouped by point of sale and voucher type, ordered by date,
+ * and sent in requests of up to the maximum number of records accepted by the
+ * service. Class A vouchers are sent one per request, as the service only
+ * accepts batches of class B and C vouchers. Every request is numbered after
+ * the last authorized voucher of its group.
+ * <p>
+ * A rejected voucher leaves its number free, so the vouchers after it in the
+ * same request are rejected as not consecutive: they are numbered again and
+ * sent in the next request. When a request fails without response, the
+ * vouchers that AFIP authorized anyway are recovered by number, so no number
+ * is authorized twice nor left without its invoice.
+ * <p>
+ * {@link #completed(List)} is called after every request with the vouchers
+ * that got their final result, so they can be saved before the next request.
+ */
+public class CAEBatchAuthorizer
+{
+    /** AFIP error: the number or date does not follow the last authorized voucher */
+    public static final int ERROR_NOT_CONSECUTIVE = 10016;
+
+    /** Requests of a group sent again after a numbering conflict or a lost response */
+    private static final int DEFAULT_MAX_RETRIES = 3;
+
+    /** Vouchers in request order: point of sale, type, date and record */
+    private static final Comparator<Voucher> ORDER = new Comparator<Voucher>()
+    {
+        public int compare(final Voucher v1, final Voucher v2)
+        {
+            if (v1.getPointOfSale() != v2.getPointOfSale())
+                return v1.getPointOfSale() < v2.getPointOfSale() ? -1 : 1;
+            if (v1.getVoucherType() != v2.getVoucherType())
+                return v1.getVoucherType() < v2.getVoucherType() ? -1 : 1;
+            if (v1.getDate() != null && v2.getDate() != null) {
+                final int cmp = v1.getDate().compareTo(v2.getDate());
+                if (cmp != 0)
+                    return cmp;
+            }
+            return v1.getId() < v2.getId() ? -1 : v1.getId() == v2.getId() ? 0 : 1;
+        }
+    };
+
+    private static CLogger log = CLogger.getCLogger(CAEBatchAuthorizer.class);
+
+    private final CAEService service;
+    /** Records per request, or 0 for the maximum of the service */
+    private int maxRecordsPerRequest = 0;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+
+    private int requestCount;
+    private int approvedCount;
+    private int rejectedCount;
+    private int pendingCount;
+
+    public CAEBatchAuthorizer(final CAEService service)
+    {
+        this.service = service;
+    }
+
+    /**
+     * @param voucherType AFIP voucher type
+     * @return true if the voucher type can be authorized in batches (class B
+     *         and C vouchers)
+     */
+    public static boolean isBatchAllowed(final int voucherType)
+    {
+        // Class A: 1-5, class M: 51-55
+        return !(voucherType >= 1 && voucherType <= 5) && !(voucherType >= 51 && voucherType <= 55);
+    }
+
+    /**
+     * Authorizes the vouchers. After it returns every voucher is approved,
+     * rejected, or pending with the reason why it was not sent.
+     *
+     * @throws CAEServiceException if the limits of the service cannot be
+     *         queried; no voucher was sent
+     */
+    public void authorize(final Collection<Voucher> vouchers) throws CAEServiceException
+    {
+        requestCount = 0;
+        approvedCount = 0;
+        rejectedCount = 0;
+        pendingCount = 0;
+        if (vouchers.isEmpty())
+            return;
+
+        int limit = service.getMaxRecordsPerRequest();
+        if (maxRecordsPerRequest > 0 && maxRecordsPerRequest < limit)
+            limit = maxRecordsPerRequest;
+        limit = Math.max(1, limit);
+
+        final List<Voucher> sorted = new ArrayList<Voucher>(vouchers);
+        Collections.sort(sorted, ORDER);
+        for (int from = 0; from < sorted.size();) {
+            final Voucher first = sorted.get(from);
+            int to = from + 1;
+            while (to < sorted.size() && sorted.get(to).getPointOfSale() == first.getPointOfSale()
+                    && sorted.get(to).getVoucherType() == first.getVoucherType())
+                to++;
+            authorizeGroup(first.getPointOfSale(), first.getVoucherType(), sorted.subList(from, to),
+                    isBatchAllowed(first.getVoucherType()) ? limit : 1);
+            from = to;
+        }
+
+        for (Voucher v : sorted) {
+            if (v.isApproved())
+                approvedCount++;
+            else if (v.isRejected())
+                rejectedCount++;
+            else
+                pendingCount++;
+        }
+        log.info("Requests=" + requestCount + " Approved=" + approvedCount + " Rejected=" + rejectedCount
+                + " Pending=" + pendingCount);
+    }
+
+    /**
+     * Authorizes the vouchers of one point of sale and type.
+     */
+    private void authorizeGroup(final int pointOfSale, final int voucherType, final List<Voucher> group,
+            final int batchSize)
+    {
+        final LinkedList<Voucher> pending = new LinkedList<Voucher>(group);
+        long last;
+        try {
+            last = service.getLastAuthorized(pointOfSale, voucherType);
+        } catch (CAEServiceException e) {
+            log.log(Level.WARNING, "PtoVta=" + pointOfSale + " CbteTipo=" + voucherType, e);
+            setPending(pending, e.getLocalizedMessage());
+            return;
+        }
+
+        int retries = 0;
+        while (!pending.isEmpty()) {
+            final List<Voucher> batch = new ArrayList<Voucher>(Math.min(batchSize, pending.size()));
+            while (batch.size() < batchSize && !pending.isEmpty()) {
+                final Voucher v = pending.removeFirst();
+                v.setPending(null);
+                v.setNumber(last + batch.size() + 1);
+                v.incrementAttempts();
+                batch.add(v);
+            }
+
+            final List<Voucher> retry = new ArrayList<Voucher>();
+            String giveUpMsg = null;
+            requestCount++;
+            try {
+                service.authorize(pointOfSale, voucherType, batch);
+                // After a voucher that is not approved, the next ones are not consecutive
+                boolean broken = false;
+                for (Voucher v : batch) {
+                    if (v.isApproved()) {
+                        last = v.getNumber();
+                    } else if (v.isPending()) {
+                        v.setRejected(0, "@Error@");
+                    } else if (v.getErrorCode() == ERROR_NOT_CONSECUTIVE) {
+                        // The first one means that another system used the number
+                        if (!broken && ++retries > maxRetries)
+                            giveUpMsg = v.getErrorMsg();
+                        retry.add(v);
+                    }
+                    broken = broken || !v.isApproved();
+                }
+            } catch (CAEServiceException e) {
+                log.log(Level.WARNING, "PtoVta=" + pointOfSale + " CbteTipo=" + voucherType, e);
+                try {
+                    last = recover(pointOfSale, voucherType, batch);
+                } catch (CAEServiceException re) {
+                    log.log(Level.WARNING, "PtoVta=" + pointOfSale + " CbteTipo=" + voucherType, re);
+                    giveUpMsg = e.getLocalizedMessage();
+                }
+                for (Voucher v : batch) {
+                    if (!v.isApproved())
+                        retry.add(v);
+                }
+                if (giveUpMsg == null && !retry.isEmpty() && ++retries > maxRetries)
+                    giveUpMsg = e.getLocalizedMessage();
+            }
+
+            for (Voucher v : retry)
+                v.setPending(giveUpMsg != null ? giveUpMsg : v.getErrorMsg());
+            final List<Voucher> done = new ArrayList<Voucher>(batch.size());
+            for (Voucher v : batch) {
+                if (!v.isPending())
+                    done.add(v);
+            }
+            completed(done);
+
+            if (giveUpMsg != null) {
+                setPending(pending, giveUpMsg);
+                return;
+            }
+            if (!retry.isEmpty()) {
+                // The numbers after the last authorized voucher are free again
+                try {
+                    last = service.getLastAuthorized(pointOfSale, voucherType);
+                } catch (CAEServiceException e) {
+                    log.log(Level.WARNING, "PtoVta=" + pointOfSale + " CbteTipo=" + voucherType, e);
+                    setPending(retry, e.getLocalizedMessage());
+                    setPending(pending, e.getLocalizedMessage());
+                    return;
+                }
+                pending.addAll(0, retry);
+            }
+        }
+    }
+
+    /**
+     * Recovers the vouchers of a request whose response was lost: the ones
+     * that AFIP authorized are approved with the CAE it reports for their
+     * number, as long as it reports the same voucher. Another system may
+     * have used the number for a voucher of the same total.
+     *
+     * @return number of the last authorized voucher
+     */
+    private long recover(final int pointOfSale, final int voucherType, final List<Voucher> batch)
+            throws CAEServiceException
+    {
+        final long last = service.getLastAuthorized(pointOfSale, voucherType);
+        for (Voucher v : batch) {
+            if (v.getNumber() > last)
+                break;
+            final Voucher authorized = service.getAuthorized(pointOfSale, voucherType, v.getNumber());
+            if (authorized == null || authorized.getCAE() == null || !isSameVoucher(v, authorized))
+                break;
+            v.setApproved(authorized.getCAE(), authorized.getCAEDueDate());
+            log.info("Recovered " + v);
+        }
+        return last;
+    }
+
+    /**
+     * @return true if the voucher reported by <code>FECompConsultar</code> has
+     *         the customer, date and amounts of the one sent
+     */
+    private static boolean isSameVoucher(final Voucher sent, final Voucher authorized)
+    {
+        final SimpleDateFormat day = new SimpleDateFormat("yyyyMMdd");
+        return sent.getCustomerDocType() == authorized.getCustomerDocType()
+                && sent.getCustomerDocNumber() == authorized.getCustomerDocNumber()
+                && day.format(sent.getDate()).equals(day.format(authorized.getDate()))
+                && isSameAmount(sent.getTotalAmt(), authorized.getTotalAmt())
+                && isSameAmount(sent.getNetAmt(), authorized.getNetAmt())
+                && isSameAmount(sent.getVatAmt(), authorized.getVatAmt());
+    }
+
+    /**
+     * @return true if the amounts are equal as sent to AFIP, with two decimals
+     */
+    private static boolean isSameAmount(final BigDecimal sent, final BigDecimal authorized)
+    {
+        return sent.setScale(2, BigDecimal.ROUND_HALF_UP).compareTo(authorized) == 0;
+    }
+
+    private static void setPending(final List<Voucher> vouchers, final String errorMsg)
+    {
+        for (Voucher v : vouchers)
+            v.setPending(errorMsg);
+    }
+
+    /**
+     * Called after every request with the vouchers that got their final result
+     * (approved or rejected) in it. Does nothing by default.
+     */
+    protected void completed(final List<Voucher> vouchers)
+    {
+    }
+
+    /**
+     * @return records per request, or 0 for the maximum of the service
+     */
+    public int getMaxRecordsPerRequest()
+    {
+        return maxRecordsPerRequest;
+    }
+
+    /**
+     * @param maxRecordsPerRequest records per request, lower than the maximum
+     *        of the service, or 0 to use the maximum of the service
+     */
+    public void setMaxRecordsPerRequest(final int maxRecordsPerRequest)
+    {
+        this.maxRecordsPerRequest = maxRecordsPerRequest;
+    }
+
+    /**
+     * @return requests of a group sent again after a numbering conflict or a
+     *         lost response, before leaving the rest of the group pending
+     */
+    public int getMaxRetries()
+    {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(final int maxRetries)
+    {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @return authorization requests sent by the last {@link #authorize(Collection)}
+     */
+    public int getRequestCount()
+    {
+        return requestCount;
+    }
+
+    public int getApprovedCount()
+    {
+        return approvedCount;
+    }
+
+    public int getRejectedCount()
+    {
+        return rejectedCount;
+    }
+
+    public int getPendingCount()
+    {
+        return pendingCount;
+    }
+}
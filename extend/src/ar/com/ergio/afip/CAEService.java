@@ -0,0 +1,59 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.afip;
+
+import java.util.List;
+
+/**
+ * AFIP electronic invoice authorization service (WSFEv1).
+ *
+ * @see WSFEClient
+ * @see ar.com.ergio.afip.simulator.CAEServiceSimulator
+ */
+public interface CAEService
+{
+    /**
+     * @return maximum number of vouchers accepted in one request
+     *         (<code>FECompTotXRequest</code>)
+     */
+    public int getMaxRecordsPerRequest() throws CAEServiceException;
+
+    /**
+     * @return number of the last authorized voucher of the point of sale and
+     *         type, or 0 if there is none (<code>FECompUltimoAutorizado</code>)
+     */
+    public long getLastAuthorized(int pointOfSale, int voucherType) throws CAEServiceException;
+
+    /**
+     * Requests the CAE of the vouchers (<code>FECAESolicitar</code>). The
+     * vouchers must be of the same point of sale and type, and numbered
+     * consecutively after the last authorized one. The result of every voucher
+     * is set on it; a voucher rejected leaves its number free, so the ones
+     * after it in the same request are rejected as not consecutive.
+     *
+     * @throws CAEServiceException if the request was not processed; the
+     *         vouchers are left without result
+     */
+    public void authorize(int pointOfSale, int voucherType, List<Voucher> vouchers) throws CAEServiceException;
+
+    /**
+     * @return the voucher authorized with the number, with its total, date and
+     *         CAE, or null if the number was not authorized
+     *         (<code>FECompConsultar</code>)
+     */
+    public Voucher getAuthorized(int pointOfSale, int voucherType, long number) throws CAEServiceException;
+}
@@ -0,0 +1,60 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.afip;
+
+/**
+ * The authorization service could not process a request: communication
+ * error, or an error of the whole request reported by AFIP (expired
+ * credentials, too many records, ...). The vouchers of the request have no
+ * result.
+ */
+public class CAEServiceException extends Exception
+{
+    private static final long serialVersionUID = -3825133602815064122L;
+
+    /** Error code reported by AFIP, or 0 */
+    private final int code;
+
+    public CAEServiceException(final String message)
+    {
+        this(0, message, null);
+    }
+
+    public CAEServiceException(final int code, final String message)
+    {
+        this(code, message, null);
+    }
+
+    public CAEServiceException(final String message, final Throwable cause)
+    {
+        this(0, message, cause);
+    }
+
+    public CAEServiceException(final int code, final String message, final Throwable cause)
+    {
+        super(code != 0 ? code + ": " + message : message, cause);
+        this.code = code;
+    }
+
+    /**
+     * @return error code reported by AFIP, or 0 if the request did not reach it
+     */
+    public int getCode()
+    {
+        return code;
+    }
+}
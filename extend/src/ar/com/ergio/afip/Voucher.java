@@ -0,0 +1,464 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.afip;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Electronic voucher (comprobante) to be authorized by AFIP, with the result
+ * of its authorization.
+ * <p>
+ * The amounts follow the WSFEv1 detail: the total must be the sum of the non
+ * taxed, net, exempt, VAT and other taxes amounts, and the VAT and other taxes
+ * amounts must be the sum of their breakdowns. Amounts are always positive,
+ * also for credit notes, and in pesos.
+ * <p>
+ * The number is assigned when the voucher is sent, as AFIP only authorizes
+ * the number that follows the last authorized one of its point of sale and
+ * voucher type.
+ */
+public class Voucher
+{
+    /** Customer identified by CUIT */
+    public static final int DOC_CUIT = 80;
+    /** Customer identified by DNI */
+    public static final int DOC_DNI = 96;
+    /** Customer not identified */
+    public static final int DOC_OTHER = 99;
+
+    /** Concept: products */
+    public static final int CONCEPT_PRODUCTS = 1;
+    /** Concept: services */
+    public static final int CONCEPT_SERVICES = 2;
+    /** Concept: products and services */
+    public static final int CONCEPT_PRODUCTS_SERVICES = 3;
+
+    /** VAT code of the 0% rate */
+    public static final int VAT_0 = 3;
+    /** VAT code of the 10.5% rate */
+    public static final int VAT_10_5 = 4;
+    /** VAT code of the 21% rate */
+    public static final int VAT_21 = 5;
+    /** VAT code of the 27% rate */
+    public static final int VAT_27 = 6;
+    /** VAT code of the 5% rate */
+    public static final int VAT_5 = 8;
+    /** VAT code of the 2.5% rate */
+    public static final int VAT_2_5 = 9;
+
+    /** Other tax code of the gross income (IIBB) perceptions */
+    public static final int TAX_IIBB_PERCEPTION = 7;
+
+    /** Result: authorized */
+    public static final String RESULT_APPROVED = "A";
+    /** Result: rejected */
+    public static final String RESULT_REJECTED = "R";
+
+    /** Record of the document that originates the voucher (C_Invoice_ID) */
+    private final int id;
+    private final int pointOfSale;
+    private final int voucherType;
+    private int concept = CONCEPT_PRODUCTS;
+    private Date date;
+    private int customerDocType = DOC_OTHER;
+    private long customerDocNumber = 0;
+
+    private BigDecimal totalAmt = BigDecimal.ZERO;
+    private BigDecimal nonTaxedAmt = BigDecimal.ZERO;
+    private BigDecimal netAmt = BigDecimal.ZERO;
+    private BigDecimal exemptAmt = BigDecimal.ZERO;
+    private BigDecimal vatAmt = BigDecimal.ZERO;
+    private BigDecimal otherTaxAmt = BigDecimal.ZERO;
+    private final List<Tax> vats = new ArrayList<Tax>(2);
+    private final List<Tax> otherTaxes = new ArrayList<Tax>(1);
+
+    /** Voucher that is credited or debited (credit and debit notes) */
+    private int associatedType = 0;
+    private int associatedPointOfSale = 0;
+    private long associatedNumber = 0;
+
+    private long number = 0;
+    private int attempts = 0;
+    private String result;
+    private String cae;
+    private Date caeDueDate;
+    private int errorCode = 0;
+    private String errorMsg;
+
+    /**
+     * @param id record of the document that originates the voucher
+     * @param pointOfSale AFIP point of sale
+     * @param voucherType AFIP voucher type (see <code>LAR_MDocType.DOCSUBTYPECAE_*</code>)
+     */
+    public Voucher(final int id, final int pointOfSale, final int voucherType)
+    {
+        this.id = id;
+        this.pointOfSale = pointOfSale;
+        this.voucherType = voucherType;
+    }
+
+    /**
+     * Adds the VAT amount of one rate.
+     *
+     * @param code VAT code (see <code>VAT_*</code>)
+     * @param baseAmt taxed amount
+     * @param amt VAT amount
+     */
+    public void addVat(final int code, final BigDecimal baseAmt, final BigDecimal amt)
+    {
+        vats.add(new Tax(code, null, baseAmt, null, amt));
+    }
+
+    /**
+     * Adds an amount of other taxes (perceptions, internal taxes).
+     *
+     * @param code tax code (see <code>TAX_*</code>)
+     * @param description description of the tax
+     * @param baseAmt amount the tax is calculated on
+     * @param rate tax rate
+     * @param amt tax amount
+     */
+    public void addOtherTax(final int code, final String description, final BigDecimal baseAmt,
+            final BigDecimal rate, final BigDecimal amt)
+    {
+        otherTaxes.add(new Tax(code, description, baseAmt, rate, amt));
+    }
+
+    /**
+     * Sets the voucher that is credited or debited.
+     */
+    public void setAssociated(final int voucherType, final int pointOfSale, final long number)
+    {
+        associatedType = voucherType;
+        associatedPointOfSale = pointOfSale;
+        associatedNumber = number;
+    }
+
+    /**
+     * Records the authorization of the voucher.
+     */
+    public void setApproved(final String cae, final Date caeDueDate)
+    {
+        result = RESULT_APPROVED;
+        this.cae = cae;
+        this.caeDueDate = caeDueDate;
+        errorCode = 0;
+        errorMsg = null;
+    }
+
+    /**
+     * Records the rejection of the voucher.
+     *
+     * @param errorCode code of the first observation reported by AFIP
+     * @param errorMsg observations reported by AFIP
+     */
+    public void setRejected(final int errorCode, final String errorMsg)
+    {
+        result = RESULT_REJECTED;
+        cae = null;
+        caeDueDate = null;
+        this.errorCode = errorCode;
+        this.errorMsg = errorMsg;
+    }
+
+    /**
+     * Leaves the voucher without result, to be sent again; the error is kept
+     * as the reason why it is still pending.
+     */
+    public void setPending(final String errorMsg)
+    {
+        result = null;
+        cae = null;
+        caeDueDate = null;
+        errorCode = 0;
+        this.errorMsg = errorMsg;
+    }
+
+    /**
+     * @return true if AFIP authorized the voucher
+     */
+    public boolean isApproved()
+    {
+        return RESULT_APPROVED.equals(result);
+    }
+
+    /**
+     * @return true if AFIP rejected the voucher
+     */
+    public boolean isRejected()
+    {
+        return RESULT_REJECTED.equals(result);
+    }
+
+    /**
+     * @return true if the voucher has no result yet
+     */
+    public boolean isPending()
+    {
+        return result == null;
+    }
+
+    /**
+     * @return the number of the voucher as printed, PPPP-NNNNNNNN
+     */
+    public String getFormattedNumber()
+    {
+        return String.format("%04d-%08d", pointOfSale, number);
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public int getPointOfSale()
+    {
+        return pointOfSale;
+    }
+
+    public int getVoucherType()
+    {
+        return voucherType;
+    }
+
+    public int getConcept()
+    {
+        return concept;
+    }
+
+    public void setConcept(final int concept)
+    {
+        this.concept = concept;
+    }
+
+    public Date getDate()
+    {
+        return date;
+    }
+
+    public void setDate(final Date date)
+    {
+        this.date = date;
+    }
+
+    public int getCustomerDocType()
+    {
+        return customerDocType;
+    }
+
+    public long getCustomerDocNumber()
+    {
+        return customerDocNumber;
+    }
+
+    public void setCustomer(final int docType, final long docNumber)
+    {
+        customerDocType = docType;
+        customerDocNumber = docNumber;
+    }
+
+    public BigDecimal getTotalAmt()
+    {
+        return totalAmt;
+    }
+
+    public void setTotalAmt(final BigDecimal totalAmt)
+    {
+        this.totalAmt = totalAmt;
+    }
+
+    public BigDecimal getNonTaxedAmt()
+    {
+        return nonTaxedAmt;
+    }
+
+    public void setNonTaxedAmt(final BigDecimal nonTaxedAmt)
+    {
+        this.nonTaxedAmt = nonTaxedAmt;
+    }
+
+    public BigDecimal getNetAmt()
+    {
+        return netAmt;
+    }
+
+    public void setNetAmt(final BigDecimal netAmt)
+    {
+        this.netAmt = netAmt;
+    }
+
+    public BigDecimal getExemptAmt()
+    {
+        return exemptAmt;
+    }
+
+    public void setExemptAmt(final BigDecimal exemptAmt)
+    {
+        this.exemptAmt = exemptAmt;
+    }
+
+    public BigDecimal getVatAmt()
+    {
+        return vatAmt;
+    }
+
+    public void setVatAmt(final BigDecimal vatAmt)
+    {
+        this.vatAmt = vatAmt;
+    }
+
+    public BigDecimal getOtherTaxAmt()
+    {
+        return otherTaxAmt;
+    }
+
+    public void setOtherTaxAmt(final BigDecimal otherTaxAmt)
+    {
+        this.otherTaxAmt = otherTaxAmt;
+    }
+
+    public List<Tax> getVats()
+    {
+        return Collections.unmodifiableList(vats);
+    }
+
+    public List<Tax> getOtherTaxes()
+    {
+        return Collections.unmodifiableList(otherTaxes);
+    }
+
+    public int getAssociatedType()
+    {
+        return associatedType;
+    }
+
+    public int getAssociatedPointOfSale()
+    {
+        return associatedPointOfSale;
+    }
+
+    public long getAssociatedNumber()
+    {
+        return associatedNumber;
+    }
+
+    public long getNumber()
+    {
+        return number;
+    }
+
+    public void setNumber(final long number)
+    {
+        this.number = number;
+    }
+
+    /**
+     * @return times the voucher was sent to AFIP
+     */
+    public int getAttempts()
+    {
+        return attempts;
+    }
+
+    void incrementAttempts()
+    {
+        attempts++;
+    }
+
+    public String getResult()
+    {
+        return result;
+    }
+
+    public String getCAE()
+    {
+        return cae;
+    }
+
+    public Date getCAEDueDate()
+    {
+        return caeDueDate;
+    }
+
+    public int getErrorCode()
+    {
+        return errorCode;
+    }
+
+    public String getErrorMsg()
+    {
+        return errorMsg;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Voucher[" + id + ", " + voucherType + " " + getFormattedNumber() + ", " + totalAmt
+                + (result != null ? ", " + result : "") + (cae != null ? ", CAE " + cae : "") + "]";
+    }
+
+    /**
+     * VAT or other tax amount of a voucher.
+     */
+    public static class Tax
+    {
+        private final int code;
+        private final String description;
+        private final BigDecimal baseAmt;
+        private final BigDecimal rate;
+        private final BigDecimal amt;
+
+        Tax(final int code, final String description, final BigDecimal baseAmt, final BigDecimal rate,
+                final BigDecimal amt)
+        {
+            this.code = code;
+            this.description = description;
+            this.baseAmt = baseAmt;
+            this.rate = rate;
+            this.amt = amt;
+        }
+
+        public int getCode()
+        {
+            return code;
+        }
+
+        public String getDescription()
+        {
+            return description;
+        }
+
+        public BigDecimal getBaseAmt()
+        {
+            return baseAmt;
+        }
+
+        public BigDecimal getRate()
+        {
+            return rate;
+        }
+
+        public BigDecimal getAmt()
+        {
+            return amt;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.afip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Client of the AFIP electronic invoice web service (WSFEv1), over SOAP 1.1.
+ * <p>
+ * The service is called with the token and sign of an access ticket granted
+ * by the AFIP authentication service (WSAA) for the <code>wsfe</code>
+ * service; getting the ticket is not done here. Amounts are sent in pesos.
+ */
+public class WSFEClient implements CAEService
+{
+    /** Production endpoint */
+    public static final String URL_PRODUCTION = "https://servicios1.afip.gov.ar/wsfev1/service.asmx";
+    /** Homologation (testing) endpoint */
+    public static final String URL_TESTING = "https://wswhomo.afip.gov.ar/wsfev1/service.asmx";
+
+    private static final String NAMESPACE = "http://ar.gov.afip.dif.FEV1/";
+    private static final String CHARSET = "UTF-8";
+    /** Error of <code>FECompConsultar</code> when the voucher does not exist */
+    private static final int ERROR_NOT_FOUND = 602;
+
+    private final URL url;
+    private final long cuit;
+    private final String token;
+    private final String sign;
+    private int connectTimeout = 10000;
+    private int readTimeout = 120000;
+
+    /**
+     * @param url endpoint (see {@link #URL_PRODUCTION}, {@link #URL_TESTING})
+     * @param cuit CUIT of the issuer
+     * @param token token of the access ticket
+     * @param sign sign of the access ticket
+     */
+    public WSFEClient(final String url, final long cuit, final String token, final String sign)
+            throws IOException
+    {
+        this.url = new URL(url);
+        this.cuit = cuit;
+        this.token = token;
+        this.sign = sign;
+    }
+
+    public int getMaxRecordsPerRequest() throws CAEServiceException
+    {
+        final Element result = call("FECompTotXRequest", "");
+        return Integer.parseInt(text(result, "RegXReq"));
+    }
+
+    public long getLastAuthorized(final int pointOfSale, final int voucherType) throws CAEServiceException
+    {
+        final StringBuilder body = new StringBuilder();
+        append(body, "PtoVta", pointOfSale);
+        append(body, "CbteTipo", voucherType);
+        final Element result = call("FECompUltimoAutorizado", body.toString());
+        return Long.parseLong(text(result, "CbteNro"));
+    }
+
+    public void authorize(final int pointOfSale, final int voucherType, final List<Voucher> vouchers)
+            throws CAEServiceException
+    {
+        final Element result = call("FECAESolicitar", buildAuthorizeRequest(pointOfSale, voucherType, vouchers));
+        parseAuthorizeResult(result, vouchers);
+    }
+
+    public Voucher getAuthorized(final int pointOfSale, final int voucherType, final long number)
+            throws CAEServiceException
+    {
+        final StringBuilder body = new StringBuilder("<ar:FeCompConsReq>");
+        append(body, "CbteTipo", voucherType);
+        append(body, "CbteNro", number);
+        append(body, "PtoVta", pointOfSale);
+        body.append("</ar:FeCompConsReq>");
+        final Element result;
+        try {
+            result = call("FECompConsultar", body.toString());
+        } catch (CAEServiceException e) {
+            if (e.getCode() == ERROR_NOT_FOUND)
+                return null;
+            throw e;
+        }
+        final Element get = child(result, "ResultGet");
+        if (get == null || !Voucher.RESULT_APPROVED.equals(text(get, "Resultado")))
+            return null;
+        final Voucher voucher = new Voucher(0, pointOfSale, voucherType);
+        voucher.setNumber(number);
+        voucher.setDate(parseDate(text(get, "CbteFch")));
+        voucher.setCustomer(Integer.parseInt(text(get, "DocTipo")), Long.parseLong(text(get, "DocNro")));
+        voucher.setTotalAmt(new BigDecimal(text(get, "ImpTotal")));
+        voucher.setNetAmt(new BigDecimal(text(get, "ImpNeto")));
+        voucher.setVatAmt(new BigDecimal(text(get, "ImpIVA")));
+        voucher.setApproved(text(get, "CodAutorizacion"), parseDate(text(get, "FchVto")));
+        return voucher;
+    }
+
+    /**
+     * @return the body of the <code>FECAESolicitar</code> request
+     */
+    String buildAuthorizeRequest(final int pointOfSale, final int voucherType, final List<Voucher> vouchers)
+    {
+        final StringBuilder sb = new StringBuilder(512 * vouchers.size());
+        sb.append("<ar:FeCAEReq><ar:FeCabReq>");
+        append(sb, "CantReg", vouchers.size());
+        append(sb, "PtoVta", pointOfSale);
+        append(sb, "CbteTipo", voucherType);
+        sb.append("</ar:FeCabReq><ar:FeDetReq>");
+        for (Voucher v : vouchers) {
+            sb.append("<ar:FECAEDetRequest>");
+            append(sb, "Concepto", v.getConcept());
+            append(sb, "DocTipo", v.getCustomerDocType());
+            append(sb, "DocNro", v.getCustomerDocNumber());
+            append(sb, "CbteDesde", v.getNumber());
+            append(sb, "CbteHasta", v.getNumber());
+            append(sb, "CbteFch", formatDate(v.getDate()));
+            append(sb, "ImpTotal", formatAmount(v.getTotalAmt()));
+            append(sb, "ImpTotConc", formatAmount(v.getNonTaxedAmt()));
+            append(sb, "ImpNeto", formatAmount(v.getNetAmt()));
+            append(sb, "ImpOpEx", formatAmount(v.getExemptAmt()));
+            append(sb, "ImpTrib", formatAmount(v.getOtherTaxAmt()));
+            append(sb, "ImpIVA", formatAmount(v.getVatAmt()));
+            if (v.getConcept() != Voucher.CONCEPT_PRODUCTS) {
+                // Services are billed on the day they are rendered
+                append(sb, "FchServDesde", formatDate(v.getDate()));
+                append(sb, "FchServHasta", formatDate(v.getDate()));
+                append(sb, "FchVtoPago", formatDate(v.getDate()));
+            }
+            append(sb, "MonId", "PES");
+            append(sb, "MonCotiz", "1");
+            if (v.getAssociatedNumber() > 0) {
+                sb.append("<ar:CbtesAsoc><ar:CbteAsoc>");
+                append(sb, "Tipo", v.getAssociatedType());
+                append(sb, "PtoVta", v.getAssociatedPointOfSale());
+                append(sb, "Nro", v.getAssociatedNumber());
+                sb.append("</ar:CbteAsoc></ar:CbtesAsoc>");
+            }
+            if (!v.getOtherTaxes().isEmpty()) {
+                sb.append("<ar:Tributos>");
+                for (Voucher.Tax tax : v.getOtherTaxes()) {
+                    sb.append("<ar:Tributo>");
+                    append(sb, "Id", tax.getCode());
+                    append(sb, "Desc", tax.getDescription());
+                    append(sb, "BaseImp", formatAmount(tax.getBaseAmt()));
+                    append(sb, "Alic", formatAmount(tax.getRate()));
+                    append(sb, "Importe", formatAmount(tax.getAmt()));
+                    sb.append("</ar:Tributo>");
+                }
+                sb.append("</ar:Tributos>");
+            }
+            if (!v.getVats().isEmpty()) {
+                sb.append("<ar:Iva>");
+                for (Voucher.Tax vat : v.getVats()) {
+                    sb.append("<ar:AlicIva>");
+                    append(sb, "Id", vat.getCode());
+                    append(sb, "BaseImp", formatAmount(vat.getBaseAmt()));
+                    append(sb, "Importe", formatAmount(vat.getAmt()));
+                    sb.append("</ar:AlicIva>");
+                }
+                sb.append("</ar:Iva>");
+            }
+            sb.append("</ar:FECAEDetRequest>");
+        }
+        sb.append("</ar:FeDetReq></ar:FeCAEReq>");
+        return sb.toString();
+    }
+
+    /**
+     * Sets the result of every voucher from the <code>FECAESolicitarResult</code>.
+     */
+    static void parseAuthorizeResult(final Element result, final List<Voucher> vouchers)
+            throws CAEServiceException
+    {
+        final NodeList details = result.getElementsByTagNameNS("*", "FECAEDetResponse");
+        if (details.getLength() == 0)
+            throw error(result, "FECAESolicitar");
+        for (int i = 0; i < details.getLength(); i++) {
+            final Element detail = (Element) details.item(i);
+            final long number = Long.parseLong(text(detail, "CbteDesde"));
+            Voucher voucher = null;
+            for (Voucher v : vouchers) {
+                if (v.getNumber() == number)
+                    voucher = v;
+            }
+            if (voucher == null)
+                continue;
+            if (Voucher.RESULT_APPROVED.equals(text(detail, "Resultado"))) {
+                voucher.setApproved(text(detail, "CAE"), parseDate(text(detail, "CAEFchVto")));
+                continue;
+            }
+            // The observations of the detail, or the errors of the request
+            NodeList observations = detail.getElementsByTagNameNS("*", "Obs");
+            if (observations.getLength() == 0)
+                observations = result.getElementsByTagNameNS("*", "Err");
+            int code = 0;
+            final StringBuilder msg = new StringBuilder();
+            for (int j = 0; j < observations.getLength(); j++) {
+                final Element obs = (Element) observations.item(j);
+                if (code == 0)
+                    code = Integer.parseInt(text(obs, "Code"));
+                if (msg.length() > 0)
+                    msg.append("; ");
+                msg.append(text(obs, "Code")).append(": ").append(text(obs, "Msg"));
+            }
+            voucher.setRejected(code, msg.toString());
+        }
+    }
+
+    /**
+     * Calls an operation of the service.
+     *
+     * @param operation name of the operation
+     * @param body parameters of the operation, after the authentication
+     * @return the result element of the operation
+     * @throws CAEServiceException on communication errors, or if the result
+     *         has errors and no data
+     */
+    private Element call(final String operation, final String body) throws CAEServiceException
+    {
+        final StringBuilder sb = new StringBuilder(512 + body.length());
+        sb.append("<?xml version=\"1.0\" encoding=\"").append(CHARSET).append("\"?>")
+                .append("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:ar=\"")
+                .append(NAMESPACE).append("\"><soap:Body><ar:").append(operation).append("><ar:Auth>");
+        append(sb, "Token", token);
+        append(sb, "Sign", sign);
+        append(sb, "Cuit", cuit);
+        sb.append("</ar:Auth>").append(body).append("</ar:").append(operation)
+                .append("></soap:Body></soap:Envelope>");
+
+        final byte[] response;
+        try {
+            response = post(operation, sb.toString().getBytes(CHARSET));
+        } catch (IOException e) {
+            throw new CAEServiceException(operation + ": " + e.getLocalizedMessage(), e);
+        }
+        final Element result = parseResult(response, operation);
+        if (result.getElementsByTagNameNS("*", "Err").getLength() > 0
+                && !"FECAESolicitar".equals(operation))
+            throw error(result, operation);
+        return result;
+    }
+
+    /**
+     * @return the <code>operationResult</code> element of a SOAP response
+     */
+    static Element parseResult(final byte[] response, final String operation) throws CAEServiceException
+    {
+        final Document document;
+        try {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(response));
+        } catch (Exception e) {
+            throw new CAEServiceException(operation + ": " + e.getLocalizedMessage(), e);
+        }
+        final NodeList results = document.getElementsByTagNameNS("*", operation + "Result");
+        if (results.getLength() == 0) {
+            final NodeList faults = document.getElementsByTagNameNS("*", "faultstring");
+            throw new CAEServiceException(operation + ": "
+                    + (faults.getLength() > 0 ? faults.item(0).getTextContent() : "Respuesta inválida"));
+        }
+        return (Element) results.item(0);
+    }
+
+    /**
+     * @return the exception for the first error of the result
+     */
+    private static CAEServiceException error(final Element result, final String operation)
+    {
+        final NodeList errors = result.getElementsByTagNameNS("*", "Err");
+        if (errors.getLength() == 0)
+            return new CAEServiceException(operation + ": Respuesta sin resultados");
+        final Element err = (Element) errors.item(0);
+        return new CAEServiceException(Integer.parseInt(text(err, "Code")), text(err, "Msg"));
+    }
+
+    private byte[] post(final String operation, final byte[] body) throws IOException
+    {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setUseCaches(false);
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "text/xml; charset=" + CHARSET);
+        connection.setRequestProperty("SOAPAction", "\"" + NAMESPACE + operation + "\"");
+        connection.setFixedLengthStreamingMode(body.length);
+        final OutputStream out = connection.getOutputStream();
+        try {
+            out.write(body);
+        } finally {
+            out.close();
+        }
+        // SOAP faults come with status 500 and are parsed as any response
+        final InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream()
+                : connection.getErrorStream();
+        if (in == null)
+            throw new IOException("HTTP " + connection.getResponseCode() + " " + connection.getResponseMessage());
+        try {
+            final ByteArrayOutputStream result = new ByteArrayOutputStream(4096);
+            final byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+                result.write(buffer, 0, n);
+            return result.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void append(final StringBuilder sb, final String name, final Object value)
+    {
+        sb.append("<ar:").append(name).append('>');
+        final String s = value == null ? "" : value.toString();
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '<')
+                sb.append("&lt;");
+            else if (c == '>')
+                sb.append("&gt;");
+            else if (c == '&')
+                sb.append("&amp;");
+            else
+                sb.append(c);
+        }
+        sb.append("</ar:").append(name).append('>');
+    }
+
+    /**
+     * @return the text of the first descendant with the local name, or null
+     */
+    private static String text(final Element parent, final String name)
+    {
+        final Element e = child(parent, name);
+        return e == null ? null : e.getTextContent().trim();
+    }
+
+    private static Element child(final Element parent, final String name)
+    {
+        final NodeList nodes = parent.getElementsByTagNameNS("*", name);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            final Node node = nodes.item(i);
+            if (node instanceof Element)
+                return (Element) node;
+        }
+        return null;
+    }
+
+    private static String formatAmount(final BigDecimal amount)
+    {
+        return (amount == null ? BigDecimal.ZERO : amount).setScale(2, BigDecimal.ROUND_HALF_UP).toPlainString();
+    }
+
+    private static String formatDate(final Date date)
+    {
+        return new SimpleDateFormat("yyyyMMdd").format(date);
+    }
+
+    private static Date parseDate(final String date) throws CAEServiceException
+    {
+        if (date == null || date.length() == 0)
+            return null;
+        try {
+            return new SimpleDateFormat("yyyyMMdd").parse(date);
+        } catch (ParseException e) {
+            throw new CAEServiceException("Fecha inválida: " + date, e);
+        }
+    }
+
+    public int getConnectTimeout()
+    {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(final int connectTimeout)
+    {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout()
+    {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(final int readTimeout)
+    {
+        this.readTimeout = readTimeout;
+    }
+}
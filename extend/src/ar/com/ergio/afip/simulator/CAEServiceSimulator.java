@@ -0,0 +1,242 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.afip.simulator;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ar.com.ergio.afip.CAEBatchAuthorizer;
+import ar.com.ergio.afip.CAEService;
+import ar.com.ergio.afip.CAEServiceException;
+import ar.com.ergio.afip.Voucher;
+
+/**
+ * In-memory stand-in of the AFIP authorization service, for tests and for
+ * trying the electronic invoicing without AFIP credentials.
+ * <p>
+ * It keeps the last authorized number and date of every point of sale and
+ * voucher type, and applies the rules of WSFEv1 that decide how vouchers are
+ * batched and numbered: maximum records per request, one record per request
+ * for class A, consecutive numbers and dates, and totals that add up. The CAE
+ * are sequential and valid for ten days from the date of the voucher.
+ * <p>
+ * Failures can be injected to test the recovery of the callers: a request
+ * that fails before being processed, or one whose response is lost after
+ * authorizing its vouchers.
+ */
+public class CAEServiceSimulator implements CAEService
+{
+    /** The request has more records than allowed */
+    public static final int ERROR_TOO_MANY_RECORDS = 10001;
+    /** Class A vouchers can not be batched */
+    public static final int ERROR_BATCH_NOT_ALLOWED = 10002;
+    /** Class A vouchers need the CUIT of the customer */
+    public static final int ERROR_CUSTOMER_CUIT = 10013;
+    /** The total is not the sum of the amounts */
+    public static final int ERROR_TOTAL = 10048;
+    /** The VAT amount is not the sum of its rates */
+    public static final int ERROR_VAT = 10051;
+    /** Credit and debit notes need the associated voucher */
+    public static final int ERROR_ASSOCIATED = 10151;
+
+    /** Days the CAE is valid */
+    private static final int CAE_DAYS = 10;
+
+    private int maxRecordsPerRequest = 250;
+    private long nextCAE = 71000000000000L;
+
+    private final Map<String, Long> lastNumbers = new HashMap<String, Long>();
+    private final Map<String, Date> lastDates = new HashMap<String, Date>();
+    private final Map<String, Voucher> authorized = new HashMap<String, Voucher>();
+
+    private int requestCount = 0;
+    private int recordCount = 0;
+    /** Requests to process before the injected failure, or -1 */
+    private int failAfter = -1;
+    /** Whether the injected failure loses the response of a processed request */
+    private boolean failLosingResponse;
+
+    public synchronized int getMaxRecordsPerRequest()
+    {
+        return maxRecordsPerRequest;
+    }
+
+    public synchronized long getLastAuthorized(final int pointOfSale, final int voucherType)
+    {
+        final Long last = lastNumbers.get(key(pointOfSale, voucherType));
+        return last == null ? 0 : last.longValue();
+    }
+
+    public synchronized void authorize(final int pointOfSale, final int voucherType, final List<Voucher> vouchers)
+            throws CAEServiceException
+    {
+        requestCount++;
+        final boolean fail = failAfter == 0;
+        if (failAfter >= 0)
+            failAfter--;
+        if (fail && !failLosingResponse)
+            throw new CAEServiceException("Connection reset");
+
+        if (vouchers.size() > maxRecordsPerRequest)
+            throw new CAEServiceException(ERROR_TOO_MANY_RECORDS,
+                    "CantReg supera el máximo de " + maxRecordsPerRequest + " registros por request");
+        if (vouchers.size() > 1 && !CAEBatchAuthorizer.isBatchAllowed(voucherType))
+            throw new CAEServiceException(ERROR_BATCH_NOT_ALLOWED,
+                    "Solo se pueden informar lotes de comprobantes clase B y C");
+
+        final String key = key(pointOfSale, voucherType);
+        for (Voucher v : vouchers) {
+            recordCount++;
+            if (v.getPointOfSale() != pointOfSale || v.getVoucherType() != voucherType)
+                throw new CAEServiceException("El detalle no corresponde al punto de venta y tipo de la cabecera");
+            final int error = validate(key, voucherType, v);
+            if (error == CAEBatchAuthorizer.ERROR_NOT_CONSECUTIVE) {
+                v.setRejected(error, "El numero o fecha del comprobante no se corresponde con el proximo a autorizar");
+            } else if (error == ERROR_TOTAL) {
+                v.setRejected(error, "ImpTotal debe ser igual a la suma de ImpTotConc, ImpNeto, ImpOpEx, ImpTrib e ImpIVA");
+            } else if (error == ERROR_VAT) {
+                v.setRejected(error, "ImpIVA debe ser igual a la suma de los importes de AlicIva");
+            } else if (error == ERROR_CUSTOMER_CUIT) {
+                v.setRejected(error, "Para comprobantes clase A el receptor debe informarse con CUIT");
+            } else if (error == ERROR_ASSOCIATED) {
+                v.setRejected(error, "Las notas de credito y debito deben informar el comprobante asociado");
+            } else {
+                approve(key, v);
+            }
+        }
+
+        if (fail)
+            throw new CAEServiceException("Read timed out");
+    }
+
+    public synchronized Voucher getAuthorized(final int pointOfSale, final int voucherType, final long number)
+    {
+        return authorized.get(key(pointOfSale, voucherType) + "-" + number);
+    }
+
+    /**
+     * @return the error of the voucher, or 0 if it can be authorized
+     */
+    private int validate(final String key, final int voucherType, final Voucher v)
+    {
+        final Long last = lastNumbers.get(key);
+        if (v.getNumber() != (last == null ? 0 : last.longValue()) + 1)
+            return CAEBatchAuthorizer.ERROR_NOT_CONSECUTIVE;
+        final Date lastDate = lastDates.get(key);
+        if (v.getDate() == null || (lastDate != null && v.getDate().before(lastDate)))
+            return CAEBatchAuthorizer.ERROR_NOT_CONSECUTIVE;
+
+        final BigDecimal total = v.getNonTaxedAmt().add(v.getNetAmt()).add(v.getExemptAmt())
+                .add(v.getVatAmt()).add(v.getOtherTaxAmt());
+        if (total.compareTo(v.getTotalAmt()) != 0)
+            return ERROR_TOTAL;
+        BigDecimal vat = BigDecimal.ZERO;
+        for (Voucher.Tax tax : v.getVats())
+            vat = vat.add(tax.getAmt());
+        if (vat.compareTo(v.getVatAmt()) != 0)
+            return ERROR_VAT;
+
+        if (!CAEBatchAuthorizer.isBatchAllowed(voucherType)
+                && (v.getCustomerDocType() != Voucher.DOC_CUIT || String.valueOf(v.getCustomerDocNumber()).length() != 11))
+            return ERROR_CUSTOMER_CUIT;
+        if (isNote(voucherType) && v.getAssociatedNumber() <= 0)
+            return ERROR_ASSOCIATED;
+        return 0;
+    }
+
+    private void approve(final String key, final Voucher v)
+    {
+        final Calendar due = Calendar.getInstance();
+        due.setTime(v.getDate());
+        due.add(Calendar.DAY_OF_MONTH, CAE_DAYS);
+        v.setApproved(String.valueOf(nextCAE++), due.getTime());
+
+        lastNumbers.put(key, v.getNumber());
+        lastDates.put(key, v.getDate());
+        final Voucher copy = new Voucher(v.getId(), v.getPointOfSale(), v.getVoucherType());
+        copy.setNumber(v.getNumber());
+        copy.setDate(v.getDate());
+        copy.setCustomer(v.getCustomerDocType(), v.getCustomerDocNumber());
+        copy.setTotalAmt(v.getTotalAmt().setScale(2, BigDecimal.ROUND_HALF_UP));
+        copy.setNetAmt(v.getNetAmt().setScale(2, BigDecimal.ROUND_HALF_UP));
+        copy.setVatAmt(v.getVatAmt().setScale(2, BigDecimal.ROUND_HALF_UP));
+        copy.setApproved(v.getCAE(), v.getCAEDueDate());
+        authorized.put(key + "-" + v.getNumber(), copy);
+    }
+
+    /**
+     * @return true for debit and credit notes
+     */
+    private static boolean isNote(final int voucherType)
+    {
+        return voucherType == 2 || voucherType == 3 || voucherType == 7 || voucherType == 8
+                || voucherType == 12 || voucherType == 13;
+    }
+
+    private static String key(final int pointOfSale, final int voucherType)
+    {
+        return pointOfSale + "-" + voucherType;
+    }
+
+    /**
+     * Makes a future request fail.
+     *
+     * @param requests requests processed normally before the failing one
+     * @param losingResponse true if the failing request is processed and only
+     *        its response is lost; false if it fails before being processed
+     */
+    public synchronized void injectFailure(final int requests, final boolean losingResponse)
+    {
+        failAfter = requests;
+        failLosingResponse = losingResponse;
+    }
+
+    /**
+     * Authorizes numbers as another system would, so the next voucher sent
+     * is not consecutive.
+     */
+    public synchronized void useNumbers(final int pointOfSale, final int voucherType, final int count)
+    {
+        final String key = key(pointOfSale, voucherType);
+        lastNumbers.put(key, getLastAuthorized(pointOfSale, voucherType) + count);
+    }
+
+    public synchronized void setMaxRecordsPerRequest(final int maxRecordsPerRequest)
+    {
+        this.maxRecordsPerRequest = maxRecordsPerRequest;
+    }
+
+    /**
+     * @return authorization requests received
+     */
+    public synchronized int getRequestCount()
+    {
+        return requestCount;
+    }
+
+    /**
+     * @return vouchers received in the authorization requests
+     */
+    public synchronized int getRecordCount()
+    {
+        return recordCount;
+    }
+}
@@ -0,0 +1,420 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Msg;
+
+import ar.com.ergio.afip.CAEBatchAuthorizer;
+import ar.com.ergio.afip.CAEService;
+import ar.com.ergio.afip.CAEServiceException;
+import ar.com.ergio.afip.Voucher;
+import ar.com.ergio.afip.WSFEClient;
+import ar.com.ergio.afip.simulator.CAEServiceSimulator;
+import ar.com.ergio.util.LAR_Utils;
+
+/**
+ * Authorizes with AFIP the completed electronic invoices of an organization
+ * that do not have a CAE yet.
+ * <p>
+ * The pending invoices are loaded with two queries (the invoices and their
+ * taxes) and authorized by {@link CAEBatchAuthorizer}, in batch requests per
+ * point of sale and voucher type. The CAE, its due date and the number of
+ * every approved voucher are written to <code>C_Invoice</code> as soon as its
+ * request is answered; the reason of a rejection, or why the invoice is
+ * still pending, is written to <code>CAEErrorMsg</code>.
+ * <p>
+ * The amounts are reported as the fiscal printers print them: the taxes of
+ * the invoice plus the perception taken from its withholding amount.
+ */
+public class ElectronicInvoiceAuthorizer extends CAEBatchAuthorizer
+{
+    /** System configurator: WSFEv1 endpoint, or <code>simulator</code> */
+    public static final String SYSCONFIG_URL = "LAR_AFIP_WSFE_URL";
+    /** System configurator: token of the WSAA access ticket */
+    public static final String SYSCONFIG_TOKEN = "LAR_AFIP_WSFE_Token";
+    /** System configurator: sign of the WSAA access ticket */
+    public static final String SYSCONFIG_SIGN = "LAR_AFIP_WSFE_Sign";
+    /** System configurator: vouchers per request, or 0 for the maximum of AFIP */
+    public static final String SYSCONFIG_RECORDS = "LAR_AFIP_WSFE_RecordsPerRequest";
+
+    /** Endpoint that selects the in-memory stand-in of AFIP */
+    public static final String SIMULATOR_URL = "simulator";
+
+    /** Length of CAEErrorMsg */
+    private static final int ERROR_MSG_LENGTH = 2000;
+
+    /** Pending electronic invoices, from C_Invoice i and C_DocType dt */
+    private static final String SQL_PENDING = " WHERE i.AD_Client_ID=? AND i.IsSOTrx='Y'"
+            + " AND i.DocStatus IN ('CO','CL') AND i.CAE IS NULL"
+            + " AND dt.IsElectronic='Y' AND dt.DocSubtypeCAE IS NOT NULL";
+
+    private static CLogger log = CLogger.getCLogger(ElectronicInvoiceAuthorizer.class);
+
+    /** Stand-ins of AFIP, by organization */
+    private static final Map<Integer, CAEServiceSimulator> simulators = new HashMap<Integer, CAEServiceSimulator>();
+    /** Organizations being authorized, so their numbers are not requested twice */
+    private static final Set<Integer> running = new HashSet<Integer>();
+
+    private final Properties ctx;
+    private final int AD_Client_ID;
+    private final int AD_Org_ID;
+
+    /**
+     * @param ctx context
+     * @param AD_Client_ID client
+     * @param AD_Org_ID organization that issues the invoices
+     * @param service AFIP authorization service of the organization
+     */
+    public ElectronicInvoiceAuthorizer(final Properties ctx, final int AD_Client_ID, final int AD_Org_ID,
+            final CAEService service)
+    {
+        super(service);
+        this.ctx = ctx;
+        this.AD_Client_ID = AD_Client_ID;
+        this.AD_Org_ID = AD_Org_ID;
+        setMaxRecordsPerRequest(Math.max(0, MSysConfig.getIntValue(SYSCONFIG_RECORDS, 0, AD_Client_ID)));
+    }
+
+    /**
+     * @param AD_Client_ID client
+     * @param AD_Org_ID organization that issues the invoices
+     * @return the AFIP authorization service configured for the organization
+     * @throws CAEServiceException if the organization has no valid CUIT or
+     *         there is no access ticket
+     */
+    public static CAEService getService(final int AD_Client_ID, final int AD_Org_ID) throws CAEServiceException
+    {
+        final String url = MSysConfig.getValue(SYSCONFIG_URL, WSFEClient.URL_TESTING, AD_Client_ID, AD_Org_ID);
+        if (SIMULATOR_URL.equalsIgnoreCase(url)) {
+            synchronized (simulators) {
+                CAEServiceSimulator simulator = simulators.get(AD_Org_ID);
+                if (simulator == null) {
+                    simulator = new CAEServiceSimulator();
+                    simulators.put(AD_Org_ID, simulator);
+                }
+                return simulator;
+            }
+        }
+
+        String cuit = DB.getSQLValueString(null, "SELECT TaxID FROM AD_OrgInfo WHERE AD_Org_ID=?", AD_Org_ID);
+        cuit = cuit == null ? "" : cuit.replaceAll("[^0123456789]", "");
+        if (!LAR_Utils.validateCUIT(cuit))
+            throw new CAEServiceException("@Invalid@ @TaxID@ (AD_Org_ID=" + AD_Org_ID + ")");
+        final String token = MSysConfig.getValue(SYSCONFIG_TOKEN, null, AD_Client_ID, AD_Org_ID);
+        final String sign = MSysConfig.getValue(SYSCONFIG_SIGN, null, AD_Client_ID, AD_Org_ID);
+        if (token == null || sign == null)
+            throw new CAEServiceException("@NotFound@ " + SYSCONFIG_TOKEN + " / " + SYSCONFIG_SIGN);
+        try {
+            return new WSFEClient(url, Long.parseLong(cuit), token, sign);
+        } catch (IOException e) {
+            throw new CAEServiceException(url, e);
+        }
+    }
+
+    /**
+     * @param AD_Client_ID client
+     * @param AD_Org_ID organization, or 0 for all the organizations of the client
+     * @return ids of the organizations with electronic invoices to authorize
+     */
+    public static int[] getOrgIDs(final int AD_Client_ID, final int AD_Org_ID)
+    {
+        final List<Integer> ids = new ArrayList<Integer>();
+        String sql = "SELECT DISTINCT i.AD_Org_ID FROM C_Invoice i"
+                + " INNER JOIN C_DocType dt ON (dt.C_DocType_ID=i.C_DocType_ID)"
+                + SQL_PENDING;
+        if (AD_Org_ID > 0) {
+            sql += " AND i.AD_Org_ID=?";
+        }
+        sql += " ORDER BY i.AD_Org_ID";
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = DB.prepareStatement(sql, null);
+            pstmt.setInt(1, AD_Client_ID);
+            if (AD_Org_ID > 0) {
+                pstmt.setInt(2, AD_Org_ID);
+            }
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        } catch (Exception e) {
+            log.log(Level.SEVERE, sql, e);
+        } finally {
+            DB.close(rs, pstmt);
+            rs = null;
+            pstmt = null;
+        }
+        final int[] result = new int[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Authorizes the pending invoices of the organization. Invoices whose
+     * voucher cannot be built (no point of sale, VAT rate unknown by AFIP) are
+     * not sent, and are returned rejected with the reason.
+     *
+     * @return the vouchers of the pending invoices, with their result
+     * @throws CAEServiceException if the organization is already being
+     *         authorized, its pending invoices cannot be read or AFIP cannot
+     *         be queried; no invoice was sent
+     */
+    public List<Voucher> authorizePending() throws CAEServiceException
+    {
+        synchronized (running) {
+            if (!running.add(AD_Org_ID))
+                throw new CAEServiceException("Authorization already running (AD_Org_ID=" + AD_Org_ID + ")");
+        }
+        try {
+            final Map<Integer, Voucher> vouchers = loadPending();
+            final List<Voucher> result = new ArrayList<Voucher>(vouchers.values());
+            final List<Voucher> valid = new ArrayList<Voucher>(result.size());
+            for (Voucher v : result) {
+                if (v.isRejected())
+                    save(v);
+                else
+                    valid.add(v);
+            }
+            authorize(valid);
+            for (Voucher v : valid) {
+                if (v.isPending())
+                    save(v);
+            }
+            return result;
+        } finally {
+            synchronized (running) {
+                running.remove(AD_Org_ID);
+            }
+        }
+    }
+
+    /**
+     * @return the vouchers of the pending invoices, by C_Invoice_ID
+     * @throws CAEServiceException if the invoices or their taxes cannot be
+     *         read; amounts would be wrong, so nothing must be sent
+     */
+    private Map<Integer, Voucher> loadPending() throws CAEServiceException
+    {
+        final Map<Integer, Voucher> vouchers = new LinkedHashMap<Integer, Voucher>();
+        final Map<Integer, BigDecimal> grandTotals = new HashMap<Integer, BigDecimal>();
+        String sql = "SELECT i.C_Invoice_ID, pos.PosNumber, dt.DocSubtypeCAE, i.DateInvoiced, i.GrandTotal,"
+                + " i.WithHoldingAmt, bp.TaxID, si.FiscalReceiptNumber, sdt.DocSubtypeCAE"
+                + " FROM C_Invoice i"
+                + " INNER JOIN C_DocType dt ON (dt.C_DocType_ID=i.C_DocType_ID)"
+                + " INNER JOIN C_BPartner bp ON (bp.C_BPartner_ID=i.C_BPartner_ID)"
+                + " LEFT OUTER JOIN C_POS pos ON (pos.C_POS_ID=i.C_POS_ID)"
+                + " LEFT OUTER JOIN C_Invoice si ON (si.C_Invoice_ID=i.Source_Invoice_ID)"
+                + " LEFT OUTER JOIN C_DocType sdt ON (sdt.C_DocType_ID=si.C_DocType_ID)"
+                + SQL_PENDING + " AND i.AD_Org_ID=?"
+                + " ORDER BY i.DateInvoiced, i.C_Invoice_ID";
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = DB.prepareStatement(sql, null);
+            pstmt.setInt(1, AD_Client_ID);
+            pstmt.setInt(2, AD_Org_ID);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                final int C_Invoice_ID = rs.getInt(1);
+                final Voucher v = new Voucher(C_Invoice_ID, rs.getInt(2), Integer.parseInt(rs.getString(3).trim()));
+                v.setDate(rs.getTimestamp(4));
+                final BigDecimal grandTotal = rs.getBigDecimal(5).abs();
+                grandTotals.put(C_Invoice_ID, grandTotal);
+                final BigDecimal perceptionAmt = rs.getBigDecimal(6) == null ? BigDecimal.ZERO
+                        : rs.getBigDecimal(6).negate(); // LAR perception are negative
+                if (perceptionAmt.signum() > 0) {
+                    v.addOtherTax(Voucher.TAX_IIBB_PERCEPTION, "Percepción", grandTotal, null, perceptionAmt);
+                    v.setOtherTaxAmt(perceptionAmt);
+                }
+                v.setTotalAmt(grandTotal.add(v.getOtherTaxAmt()));
+                setCustomer(v, rs.getString(7));
+                if (rs.getString(8) != null && rs.getString(9) != null)
+                    setAssociated(v, Integer.parseInt(rs.getString(9).trim()), rs.getString(8));
+                if (v.getPointOfSale() <= 0)
+                    v.setRejected(0, Msg.parseTranslation(ctx, "@NotFound@ @C_POS_ID@"));
+                vouchers.put(C_Invoice_ID, v);
+            }
+            DB.close(rs, pstmt);
+
+            sql = "SELECT it.C_Invoice_ID, t.Rate, t.IsTaxExempt, it.TaxBaseAmt, it.TaxAmt"
+                    + " FROM C_InvoiceTax it"
+                    + " INNER JOIN C_Tax t ON (t.C_Tax_ID=it.C_Tax_ID)"
+                    + " INNER JOIN C_Invoice i ON (i.C_Invoice_ID=it.C_Invoice_ID)"
+                    + " INNER JOIN C_DocType dt ON (dt.C_DocType_ID=i.C_DocType_ID)"
+                    + SQL_PENDING + " AND i.AD_Org_ID=?"
+                    + " ORDER BY it.C_Invoice_ID, t.Rate";
+            pstmt = DB.prepareStatement(sql, null);
+            pstmt.setInt(1, AD_Client_ID);
+            pstmt.setInt(2, AD_Org_ID);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                final Voucher v = vouchers.get(rs.getInt(1));
+                if (v == null || v.isRejected())
+                    continue;
+                final BigDecimal baseAmt = rs.getBigDecimal(4).abs();
+                final BigDecimal taxAmt = rs.getBigDecimal(5).abs();
+                if ("Y".equals(rs.getString(3))) {
+                    v.setExemptAmt(v.getExemptAmt().add(baseAmt));
+                } else if (isClassC(v.getVoucherType())) {
+                    // Class C vouchers do not discriminate VAT
+                    v.setNetAmt(v.getNetAmt().add(baseAmt).add(taxAmt));
+                } else {
+                    final int code = getVatCode(rs.getBigDecimal(2));
+                    if (code < 0) {
+                        v.setRejected(0, Msg.parseTranslation(ctx, "@Invalid@ @Rate@ " + rs.getBigDecimal(2)));
+                        continue;
+                    }
+                    v.addVat(code, baseAmt, taxAmt);
+                    v.setNetAmt(v.getNetAmt().add(baseAmt));
+                    v.setVatAmt(v.getVatAmt().add(taxAmt));
+                }
+            }
+        } catch (Exception e) {
+            log.log(Level.SEVERE, sql, e);
+            throw new CAEServiceException(e.getLocalizedMessage(), e);
+        } finally {
+            DB.close(rs, pstmt);
+            rs = null;
+            pstmt = null;
+        }
+
+        // Whatever the taxes do not explain is not taxed (rounding, charges)
+        for (Voucher v : vouchers.values()) {
+            if (v.isRejected())
+                continue;
+            final BigDecimal nonTaxedAmt = grandTotals.get(v.getId()).subtract(v.getNetAmt())
+                    .subtract(v.getExemptAmt()).subtract(v.getVatAmt());
+            if (nonTaxedAmt.signum() < 0)
+                v.setRejected(0, Msg.parseTranslation(ctx, "@Invalid@ @GrandTotal@"));
+            else
+                v.setNonTaxedAmt(nonTaxedAmt);
+        }
+        log.info("AD_Org_ID=" + AD_Org_ID + " Pending=" + vouchers.size());
+        return vouchers;
+    }
+
+    /**
+     * Identifies the customer by CUIT, DNI, or as not identified.
+     */
+    private static void setCustomer(final Voucher v, final String taxID)
+    {
+        final String number = taxID == null ? "" : taxID.replaceAll("[^0123456789]", "");
+        if (number.length() == 11 && LAR_Utils.validateCUIT(number))
+            v.setCustomer(Voucher.DOC_CUIT, Long.parseLong(number));
+        else if (number.length() == 7 || number.length() == 8)
+            v.setCustomer(Voucher.DOC_DNI, Long.parseLong(number));
+        else
+            v.setCustomer(Voucher.DOC_OTHER, 0);
+    }
+
+    /**
+     * Sets the voucher credited or debited, from its number PPPP-NNNNNNNN.
+     */
+    private static void setAssociated(final Voucher v, final int voucherType, final String fiscalReceiptNumber)
+    {
+        final String[] parts = fiscalReceiptNumber.trim().split("-");
+        if (parts.length != 2)
+            return;
+        try {
+            v.setAssociated(voucherType, Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            log.fine("Source invoice number " + fiscalReceiptNumber);
+        }
+    }
+
+    /**
+     * @return the AFIP code of the VAT rate, or -1 if AFIP does not know it
+     */
+    private static int getVatCode(final BigDecimal rate)
+    {
+        final BigDecimal r = rate.stripTrailingZeros();
+        if (r.signum() == 0)
+            return Voucher.VAT_0;
+        if (r.compareTo(new BigDecimal("2.5")) == 0)
+            return Voucher.VAT_2_5;
+        if (r.compareTo(new BigDecimal("5")) == 0)
+            return Voucher.VAT_5;
+        if (r.compareTo(new BigDecimal("10.5")) == 0)
+            return Voucher.VAT_10_5;
+        if (r.compareTo(new BigDecimal("21")) == 0)
+            return Voucher.VAT_21;
+        if (r.compareTo(new BigDecimal("27")) == 0)
+            return Voucher.VAT_27;
+        return -1;
+    }
+
+    /**
+     * @return true for class C vouchers, which do not discriminate VAT
+     */
+    private static boolean isClassC(final int voucherType)
+    {
+        return voucherType >= 11 && voucherType <= 15;
+    }
+
+    @Override
+    protected void completed(final List<Voucher> vouchers)
+    {
+        for (Voucher v : vouchers)
+            save(v);
+    }
+
+    /**
+     * Writes the result of the voucher to its invoice.
+     */
+    private void save(final Voucher v)
+    {
+        try {
+            if (v.isApproved()) {
+                DB.executeUpdateEx("UPDATE C_Invoice SET CAE=?, CAEDueDate=?, FiscalReceiptNumber=?,"
+                        + " CAEErrorMsg=NULL WHERE C_Invoice_ID=?", new Object[] { v.getCAE(),
+                        new Timestamp(v.getCAEDueDate().getTime()), v.getFormattedNumber(), v.getId() }, null);
+            } else {
+                String msg = v.getErrorMsg() != null ? v.getErrorMsg() : "@Error@";
+                if (v.getErrorCode() > 0)
+                    msg = v.getErrorCode() + ": " + msg;
+                if (msg.length() > ERROR_MSG_LENGTH)
+                    msg = msg.substring(0, ERROR_MSG_LENGTH);
+                DB.executeUpdateEx("UPDATE C_Invoice SET CAEErrorMsg=? WHERE C_Invoice_ID=?",
+                        new Object[] { msg, v.getId() }, null);
+            }
+        } catch (Exception e) {
+            // The CAE of an approved voucher is also in the log, to be loaded by hand
+            log.log(Level.SEVERE, "Result not saved: " + v, e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+import org.compiere.util.Msg;
+
+import ar.com.ergio.print.fiscal.FiscalCloseReport;
+
+/**
+ * Runs the daily close (X or Z) of many fiscal printers at once, so the end of
+ * day of a chain does not take the sum of the closes of all its printers.
+ * <p>
+ * Every printer is closed by its own task, and at most
+ * <code>LAR_FiscalPrinter_CloseThreads</code> printers are closed at the same
+ * time. A printer that is in use by another terminal (for example, finishing
+ * the last ticket of the day) is not waited for: its task is scheduled again
+ * after <code>LAR_FiscalPrinter_CloseRetryDelay</code> seconds, without holding
+ * a worker, up to <code>LAR_FiscalPrinter_CloseRetries</code> attempts.
+ * <p>
+ * The result of every printer is saved as a {@link MFiscalClosing}: the
+ * counters reported by the printer, or the error of its last attempt.
+ */
+public class FiscalCloseOrchestrator
+{
+    /** System configurator: printers closed at the same time */
+    public static final String SYSCONFIG_THREADS = "LAR_FiscalPrinter_CloseThreads";
+    /** System configurator: attempts to close a busy printer */
+    public static final String SYSCONFIG_RETRIES = "LAR_FiscalPrinter_CloseRetries";
+    /** System configurator: seconds before closing a busy printer again */
+    public static final String SYSCONFIG_RETRY_DELAY = "LAR_FiscalPrinter_CloseRetryDelay";
+
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_RETRIES = 5;
+    private static final int DEFAULT_RETRY_DELAY = 30;
+
+    private static CLogger log = CLogger.getCLogger(FiscalCloseOrchestrator.class);
+
+    private final Properties ctx;
+    private final String closeType;
+    private final int threads;
+    private final int maxAttempts;
+    private final long retryDelay;
+
+    /** Results of the printers already finished */
+    private final List<MFiscalClosing> closings = new ArrayList<MFiscalClosing>();
+
+    /**
+     * @param ctx context
+     * @param AD_Client_ID client whose configuration is used
+     * @param closeType close type (see {@link X_LAR_Fiscal_Closing#CLOSETYPE_CierreZ})
+     */
+    public FiscalCloseOrchestrator(final Properties ctx, final int AD_Client_ID, final String closeType)
+    {
+        this.ctx = ctx;
+        this.closeType = closeType;
+        threads = Math.max(1, MSysConfig.getIntValue(SYSCONFIG_THREADS, DEFAULT_THREADS, AD_Client_ID));
+        maxAttempts = Math.max(1, MSysConfig.getIntValue(SYSCONFIG_RETRIES, DEFAULT_RETRIES, AD_Client_ID));
+        retryDelay = Math.max(0, MSysConfig.getIntValue(SYSCONFIG_RETRY_DELAY, DEFAULT_RETRY_DELAY,
+                AD_Client_ID)) * 1000L;
+    }
+
+    /**
+     * @param AD_Client_ID client
+     * @param AD_Org_ID organization, or 0 for all the organizations of the client
+     * @return ids of the active fiscal printers
+     */
+    public static int[] getFiscalPrinterIDs(final int AD_Client_ID, final int AD_Org_ID)
+    {
+        final List<Integer> ids = new ArrayList<Integer>();
+        String sql = "SELECT LAR_Fiscal_Printer_ID FROM LAR_Fiscal_Printer"
+                + " WHERE AD_Client_ID=? AND IsActive='Y'";
+        if (AD_Org_ID > 0) {
+            sql += " AND AD_Org_ID=?";
+        }
+        sql += " ORDER BY LAR_Fiscal_Printer_ID";
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = DB.prepareStatement(sql, null);
+            pstmt.setInt(1, AD_Client_ID);
+            if (AD_Org_ID > 0) {
+                pstmt.setInt(2, AD_Org_ID);
+            }
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        } catch (Exception e) {
+            log.log(Level.SEVERE, sql, e);
+        } finally {
+            DB.close(rs, pstmt);
+            rs = null;
+            pstmt = null;
+        }
+        final int[] result = new int[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Closes the printers and waits until all of them finished.
+     *
+     * @param fiscalPrinterIDs ids of the printers to close
+     * @return the saved result of every printer
+     * @throws InterruptedException if the calling thread is interrupted while
+     *         waiting; the closes in progress finish anyway
+     */
+    public List<MFiscalClosing> close(final int[] fiscalPrinterIDs) throws InterruptedException
+    {
+        log.info("CloseType=" + closeType + " Printers=" + fiscalPrinterIDs.length + " Threads=" + threads);
+        synchronized (closings) {
+            closings.clear();
+        }
+        final CountDownLatch pending = new CountDownLatch(fiscalPrinterIDs.length);
+        final ScheduledExecutorService executor = Executors.newScheduledThreadPool(
+                Math.min(threads, Math.max(1, fiscalPrinterIDs.length)), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread t = new Thread(r, "FiscalClose-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        try {
+            for (int id : fiscalPrinterIDs) {
+                executor.execute(new CloseTask(id, executor, pending));
+            }
+            pending.await();
+        } finally {
+            executor.shutdown();
+        }
+        synchronized (closings) {
+            return new ArrayList<MFiscalClosing>(closings);
+        }
+    }
+
+    /**
+     * Close of one printer. It runs once per attempt; while the printer is
+     * busy the task is scheduled again instead of waiting for the printer.
+     */
+    private class CloseTask implements Runnable
+    {
+        private final int LAR_Fiscal_Printer_ID;
+        private final ScheduledExecutorService executor;
+        private final CountDownLatch pending;
+        private FiscalDocumentPrint fdp;
+        private int attempts = 0;
+
+        CloseTask(final int LAR_Fiscal_Printer_ID, final ScheduledExecutorService executor,
+                final CountDownLatch pending)
+        {
+            this.LAR_Fiscal_Printer_ID = LAR_Fiscal_Printer_ID;
+            this.executor = executor;
+            this.pending = pending;
+        }
+
+        public void run()
+        {
+            attempts++;
+            String errorMsg = null;
+            FiscalCloseReport report = null;
+            try {
+                if (fdp == null) {
+                    fdp = new FiscalDocumentPrint(LAR_Fiscal_Printer_ID);
+                    // The task is scheduled again instead of waiting for the printer
+                    fdp.setBusyWaitTimeout(0);
+                }
+                if (fdp.fiscalClose(closeType)) {
+                    report = fdp.getFiscalCloseReport();
+                } else if (fdp.isPrinterBusy() && attempts < maxAttempts) {
+                    log.fine("Fiscal printer " + LAR_Fiscal_Printer_ID + " busy, attempt " + attempts);
+                    executor.schedule(this, retryDelay, TimeUnit.MILLISECONDS);
+                    return;
+                } else {
+                    errorMsg = Msg.parseTranslation(ctx, fdp.getErrorMsg());
+                }
+            } catch (Exception e) {
+                log.log(Level.SEVERE, "Fiscal printer " + LAR_Fiscal_Printer_ID, e);
+                errorMsg = e.getLocalizedMessage() != null ? e.getLocalizedMessage() : e.toString();
+            }
+            try {
+                save(report, errorMsg);
+            } finally {
+                pending.countDown();
+            }
+        }
+
+        private void save(final FiscalCloseReport report, final String errorMsg)
+        {
+            final MFiscalClosing closing = new MFiscalClosing(ctx, 0, null);
+            closing.setAD_Org_ID(DB.getSQLValue(null,
+                    "SELECT AD_Org_ID FROM LAR_Fiscal_Printer WHERE LAR_Fiscal_Printer_ID=?",
+                    LAR_Fiscal_Printer_ID));
+            closing.setLAR_Fiscal_Printer_ID(LAR_Fiscal_Printer_ID);
+            closing.setCloseType(closeType);
+            closing.setDateTrx(new Timestamp(System.currentTimeMillis()));
+            closing.setAttempts(attempts);
+            if (report != null) {
+                closing.setFiscalCloseReport(report);
+            } else {
+                closing.setCloseErrorMsg(errorMsg != null ? errorMsg : "@Error@");
+            }
+            if (!closing.save()) {
+                log.severe("Fiscal close of printer " + LAR_Fiscal_Printer_ID + " not saved: " + report);
+            }
+            synchronized (closings) {
+                closings.add(closing);
+            }
+        }
+    }
+}
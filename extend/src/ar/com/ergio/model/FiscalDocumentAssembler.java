@@ -0,0 +1,440 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.adempiere.exceptions.DBException;
+import org.compiere.model.MInvoice;
+import org.compiere.model.MLocation;
+import org.compiere.util.DB;
+import org.compiere.util.Env;
+import org.compiere.util.Msg;
+
+import ar.com.ergio.print.fiscal.document.CreditNote;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DebitNote;
+import ar.com.ergio.print.fiscal.document.DiscountLine;
+import ar.com.ergio.print.fiscal.document.Document;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.DocumentLineFeed;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.PerceptionLine;
+
+/**
+ * Arma los documentos imprimibles de {@link FiscalDocumentPrint} a partir de
+ * una factura con dos consultas por conjuntos: una para los datos de cabecera
+ * (cliente, categoría de IVA, dirección, pedido, lista de precios, letra y
+ * factura original) y otra para las líneas junto con el descuento de la línea
+ * de pedido, la remisión, el impuesto, el producto y el cargo. Cargar los
+ * mismos datos con las clases del modelo cuesta varias consultas por línea.
+ * <p>
+ * Con {@link #setStreamLines(boolean)} el documento recibe las líneas en un
+ * {@link DocumentLineFeed}, de modo que la impresora comienza a imprimirlas
+ * mientras se arman las siguientes. Las consultas se ejecutan siempre en el
+ * hilo que crea el documento: el proveedor de líneas corre en otro hilo y no
+ * puede usar la conexión de la transacción de la factura, que el hilo de
+ * impresión sigue usando.
+ */
+class FiscalDocumentAssembler
+{
+    private static final String SQL_HEADER = "SELECT bp.Name, bp.TaxID, tpt.Name,"
+            + " (SELECT C_Location_ID FROM C_BPartner_Location WHERE C_BPartner_Location_ID=?),"
+            + " (SELECT DocumentNo FROM C_Order WHERE C_Order_ID=?),"
+            + " (SELECT IsTaxIncluded FROM M_PriceList WHERE M_PriceList_ID=?),"
+            + " (SELECT Letter FROM LAR_DocumentLetter WHERE LAR_DocumentLetter_ID=?),"
+            + " (SELECT DocumentNo FROM C_Invoice WHERE C_Invoice_ID=?)"
+            + " FROM C_BPartner bp"
+            + " LEFT OUTER JOIN LCO_TaxPayerType tpt ON (tpt.LCO_TaxPayerType_ID=bp.LCO_TaxPayerType_ID)"
+            + " WHERE bp.C_BPartner_ID=?";
+
+    private static final String SQL_LINES = "SELECT il.Line, il.QtyEntered, il.PriceActual, il.M_Product_ID,"
+            + " il.C_Charge_ID, il.Description, ol.Discount, t.Rate, io.DocumentNo, p.Value, p.Name, c.Name"
+            + " FROM C_InvoiceLine il"
+            + " INNER JOIN C_Tax t ON (t.C_Tax_ID=il.C_Tax_ID)"
+            + " LEFT OUTER JOIN C_OrderLine ol ON (ol.C_OrderLine_ID=il.C_OrderLine_ID)"
+            + " LEFT OUTER JOIN M_InOutLine iol ON (iol.M_InOutLine_ID=il.M_InOutLine_ID)"
+            + " LEFT OUTER JOIN M_InOut io ON (io.M_InOut_ID=iol.M_InOut_ID)"
+            + " LEFT OUTER JOIN M_Product p ON (p.M_Product_ID=il.M_Product_ID)"
+            + " LEFT OUTER JOIN C_Charge c ON (c.C_Charge_ID=il.C_Charge_ID)"
+            + " WHERE il.C_Invoice_ID=?"
+            + " ORDER BY il.Line, il.C_InvoiceLine_ID";
+
+    private final FiscalDocumentPrint fdp;
+    private final MFiscalPrinter fiscalPrinter;
+    private final Properties ctx;
+    private boolean streamLines = false;
+
+    FiscalDocumentAssembler(final FiscalDocumentPrint fdp, final MFiscalPrinter fiscalPrinter)
+    {
+        this.fdp = fdp;
+        this.fiscalPrinter = fiscalPrinter;
+        this.ctx = fdp.ctx;
+    }
+
+    /**
+     * @param streamLines si es verdadero, las líneas de los documentos creados
+     *            se entregan a la impresora mientras se imprime el documento
+     */
+    void setStreamLines(final boolean streamLines)
+    {
+        this.streamLines = streamLines;
+    }
+
+    Invoice createInvoice(final MInvoice mInvoice)
+    {
+        final Header header = loadHeader(mInvoice, null);
+        final Invoice invoice = new Invoice();
+        invoice.setCustomer(header.customer);
+        invoice.setLetter(header.letter);
+        // Números de pedido y de remisiones
+        if (header.orderNo != null) {
+            invoice.addObservation(Msg.translate(ctx, "C_Order_ID") + ": " + header.orderNo);
+        }
+        final List<Line> lines = loadLines(mInvoice);
+        for (final Line line : lines) {
+            if (line.inOutNo != null) {
+                final String obs = Msg.translate(ctx, "M_InOut_ID") + ": " + line.inOutNo;
+                if (!invoice.getObservations().contains(obs)) {
+                    invoice.addObservation(obs);
+                }
+            }
+        }
+        addLines(mInvoice, invoice, header, lines);
+        return invoice;
+    }
+
+    DebitNote createDebitNote(final MInvoice mInvoice)
+    {
+        final Header header = loadHeader(mInvoice, null);
+        final DebitNote debitNote = new DebitNote();
+        debitNote.setCustomer(header.customer);
+        debitNote.setLetter(header.letter);
+        addLines(mInvoice, debitNote, header);
+        return debitNote;
+    }
+
+    /**
+     * @param originalInvoice factura original; si es null se usa la indicada
+     *            en <code>Source_Invoice_ID</code> de la nota de crédito
+     */
+    CreditNote createCreditNote(final MInvoice mInvoice, final MInvoice originalInvoice)
+    {
+        final Header header = loadHeader(mInvoice, originalInvoice);
+        final CreditNote creditNote = new CreditNote();
+        creditNote.setCustomer(header.customer);
+        creditNote.setLetter(header.letter);
+        String origInvoiceNumber = originalInvoice != null ? originalInvoice.getDocumentNo() : header.sourceInvoiceNo;
+        // Los números de comprobante se envían como PPPP-NNNNNNNN, ej: 0001-00000023
+        if (origInvoiceNumber != null && origInvoiceNumber.length() == 13) {
+            origInvoiceNumber = origInvoiceNumber.substring(1, 5) + "-" + origInvoiceNumber.substring(5, 13);
+        }
+        creditNote.setOriginalDocumentNo(origInvoiceNumber);
+        addLines(mInvoice, creditNote, header);
+        return creditNote;
+    }
+
+    /**
+     * @return El cliente de una entidad comercial, con la dirección de la
+     *         localización indicada.
+     */
+    Customer createCustomer(final int C_BPartner_ID, final int C_BPartner_Location_ID, final String trxName)
+    {
+        return loadHeader(C_BPartner_ID, C_BPartner_Location_ID, 0, 0, 0, 0, trxName).customer;
+    }
+
+    Header loadHeader(final MInvoice mInvoice, final MInvoice originalInvoice)
+    {
+        return loadHeader(mInvoice.getC_BPartner_ID(), mInvoice.getC_BPartner_Location_ID(),
+                mInvoice.getC_Order_ID(), mInvoice.getM_PriceList_ID(),
+                mInvoice.get_ValueAsInt("LAR_DocumentLetter_ID"),
+                originalInvoice == null ? mInvoice.get_ValueAsInt("Source_Invoice_ID") : 0,
+                mInvoice.get_TrxName());
+    }
+
+    /**
+     * @return Los datos de cabecera del documento, leídos de la BD.
+     */
+    Header loadHeader(final int C_BPartner_ID, final int C_BPartner_Location_ID, final int C_Order_ID,
+            final int M_PriceList_ID, final int LAR_DocumentLetter_ID, final int Source_Invoice_ID,
+            final String trxName)
+    {
+        final Header header = new Header();
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = DB.prepareStatement(SQL_HEADER, trxName);
+            pstmt.setInt(1, C_BPartner_Location_ID);
+            pstmt.setInt(2, C_Order_ID);
+            pstmt.setInt(3, M_PriceList_ID);
+            pstmt.setInt(4, LAR_DocumentLetter_ID);
+            pstmt.setInt(5, Source_Invoice_ID);
+            pstmt.setInt(6, C_BPartner_ID);
+            rs = pstmt.executeQuery();
+            if (rs.next()) {
+                setCustomer(header.customer, rs.getString(1), rs.getString(2), rs.getString(3), rs.getInt(4),
+                        trxName);
+                header.orderNo = rs.getString(5);
+                header.taxIncluded = "Y".equals(rs.getString(6));
+                header.letter = rs.getString(7);
+                header.sourceInvoiceNo = rs.getString(8);
+            }
+        } catch (SQLException e) {
+            throw new DBException(e, SQL_HEADER);
+        } finally {
+            DB.close(rs, pstmt);
+        }
+        return header;
+    }
+
+    /**
+     * Asigna al cliente los datos de la entidad comercial. Se identifica con
+     * CUIT sólo si la entidad tiene número de identificación; un consumidor
+     * final sin CUIT queda sin identificar.
+     *
+     * @param taxPayerType nombre de la categoría de IVA (LCO_TaxPayerType)
+     * @param C_Location_ID dirección del cliente, o 0
+     */
+    void setCustomer(final Customer customer, final String name, final String taxID, final String taxPayerType,
+            final int C_Location_ID, final String trxName)
+    {
+        // Categoría de IVA: falla igual que LAR_TaxPayerType.getTaxPayerType(MBPartner)
+        final LAR_TaxPayerType type = LAR_TaxPayerType.getTaxPayerType(taxPayerType);
+        customer.setIvaResponsibility(fdp.traduceTaxPayerType(type.getName()));
+        customer.setName(name);
+        if (C_Location_ID > 0) {
+            customer.setLocation(MLocation.get(ctx, C_Location_ID, trxName).toString());
+        }
+        if (taxID != null && !taxID.trim().equals("")) {
+            customer.setIdentificationType(Customer.CUIT);
+            customer.setIdentificationNumber(taxID);
+        }
+    }
+
+    /**
+     * @return Las líneas de la factura, leídas de la BD.
+     */
+    List<Line> loadLines(final MInvoice mInvoice)
+    {
+        final List<Line> lines = new ArrayList<Line>();
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = DB.prepareStatement(SQL_LINES, mInvoice.get_TrxName());
+            pstmt.setInt(1, mInvoice.getC_Invoice_ID());
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                lines.add(readLine(rs));
+            }
+        } catch (SQLException e) {
+            throw new DBException(e, SQL_LINES);
+        } finally {
+            DB.close(rs, pstmt);
+        }
+        return lines;
+    }
+
+    private Line readLine(final ResultSet rs) throws SQLException
+    {
+        final Line line = new Line();
+        line.line = rs.getInt(1);
+        line.qtyEntered = rs.getBigDecimal(2);
+        line.priceActual = rs.getBigDecimal(3);
+        line.M_Product_ID = rs.getInt(4);
+        line.C_Charge_ID = rs.getInt(5);
+        line.description = rs.getString(6);
+        final BigDecimal discount = rs.getBigDecimal(7);
+        line.discount = discount == null ? Env.ZERO : discount;
+        line.taxRate = rs.getBigDecimal(8);
+        line.inOutNo = rs.getString(9);
+        line.productValue = rs.getString(10);
+        line.productName = rs.getString(11);
+        line.chargeName = rs.getString(12);
+        return line;
+    }
+
+    /**
+     * Agrega al documento las líneas de la factura.
+     */
+    private void addLines(final MInvoice mInvoice, final Document document, final Header header)
+    {
+        addLines(mInvoice, document, header, loadLines(mInvoice));
+    }
+
+    /**
+     * Asigna el proveedor que entrega las líneas ya leídas mientras se
+     * imprime el documento. El proveedor corre en su propio hilo, por lo que
+     * no accede a la BD. La percepción se asigna antes de que termine el
+     * proveedor, ya que depende de las líneas.
+     */
+    private void setLineFeed(final Document document, final Header header, final List<Line> lines,
+            final BigDecimal withholdingAmt)
+    {
+        document.setLineFeed(new DocumentLineFeed() {
+            @Override
+            protected void produce() throws Exception
+            {
+                BigDecimal totalLineAmt = BigDecimal.ZERO;
+                for (final Line line : lines) {
+                    final DocumentLine docLine = createDocumentLine(header, line);
+                    if (docLine == null) {
+                        continue;
+                    }
+                    totalLineAmt = totalLineAmt.add(line.priceActual);
+                    if (!put(docLine)) {
+                        return;
+                    }
+                }
+                setPerceptionLine(document, withholdingAmt, totalLineAmt);
+            }
+        });
+    }
+
+    /**
+     * Agrega al documento las líneas con cantidad, y la percepción de la
+     * factura; o el proveedor que las entrega mientras se imprime el
+     * documento.
+     */
+    private void addLines(final MInvoice mInvoice, final Document document, final Header header,
+            final List<Line> lines)
+    {
+        final BigDecimal withholdingAmt = (BigDecimal) mInvoice.get_Value("WithHoldingAmt");
+        if (streamLines) {
+            setLineFeed(document, header, lines, withholdingAmt);
+            return;
+        }
+        BigDecimal totalLineAmt = BigDecimal.ZERO;
+        for (final Line line : lines) {
+            final DocumentLine docLine = createDocumentLine(header, line);
+            if (docLine == null) {
+                continue;
+            }
+            totalLineAmt = totalLineAmt.add(line.priceActual);
+            document.addLine(docLine);
+        }
+        setPerceptionLine(document, withholdingAmt, totalLineAmt);
+    }
+
+    /**
+     * @return La línea imprimible, o null si la línea no tiene cantidad.
+     */
+    private DocumentLine createDocumentLine(final Header header, final Line line)
+    {
+        // @emmie - avoid "special" invoice lines (as shipments comments lines)
+        if (line.qtyEntered.compareTo(BigDecimal.ZERO) <= 0) {
+            return null;
+        }
+        final DocumentLine docLine = new DocumentLine();
+        docLine.setLineNumber(line.line);
+        docLine.setDescription(getLineDescription(line));
+        BigDecimal unitPrice = line.priceActual;
+        // LAR - Process discount for invoice
+        if (line.discount.compareTo(BigDecimal.ZERO) > 0) {
+            final BigDecimal originalAmt = BigDecimal.valueOf(100).multiply(unitPrice).divide(
+                    BigDecimal.valueOf(100).subtract(line.discount), 2, BigDecimal.ROUND_FLOOR);
+            final DiscountLine discountLine = new DiscountLine("Dto aplicado",
+                    originalAmt.subtract(unitPrice).multiply(line.qtyEntered), true, false, line.discount);
+            docLine.setDiscount(discountLine);
+            unitPrice = originalAmt;
+        }
+        docLine.setUnitPrice(unitPrice);
+        docLine.setQuantity(line.qtyEntered);
+        docLine.setPriceIncludeIva(header.taxIncluded);
+        // Se asume que el impuesto de la línea es IVA
+        docLine.setIvaRate(line.taxRate);
+        return docLine;
+    }
+
+    /**
+     * Asigna la percepción del documento a partir del importe de retención de
+     * la factura.
+     */
+    private static void setPerceptionLine(final Document document, final BigDecimal withholdingAmt,
+            final BigDecimal totalLineAmt)
+    {
+        // TODO - Improve this behavior
+        final BigDecimal amt = withholdingAmt.negate(); // LAR perception are negative
+        if (amt.compareTo(BigDecimal.ZERO) > 0) {
+            final BigDecimal rate = amt.divide(totalLineAmt, 2, BigDecimal.ROUND_HALF_UP).multiply(BigDecimal.valueOf(100));
+            final String desc = String.format("Percepci\u00f3n (%2.2f%%)", rate);
+            document.setPerceptionLine(new PerceptionLine(desc, amt, null));
+        }
+    }
+
+    /**
+     * @return El texto que se imprime para la línea: el producto con el
+     *         formato configurado en la impresora fiscal, el nombre del cargo
+     *         o la descripción de la línea.
+     */
+    private String getLineDescription(final Line line)
+    {
+        if (line.M_Product_ID <= 0) {
+            return line.C_Charge_ID != 0 ? line.chargeName : line.description;
+        }
+        if (fiscalPrinter.isOnPrintUseProductReference()) {
+            return FiscalDocumentPrint.genDescriptionFromIdentifiers(line.productValue, line.productName);
+        }
+        final String value = line.productValue != null && !line.productValue.trim().isEmpty()
+                ? line.productValue.trim() : "";
+        final String name = line.productName != null && !line.productName.trim().isEmpty()
+                ? line.productName.trim() : "";
+        final String format = fiscalPrinter.getOnPrintProductFormat();
+        String description = " ";
+        if (MFiscalPrinter.ONPRINTPRODUCTFORMAT_Name.equals(format))
+            description = name;
+        if (MFiscalPrinter.ONPRINTPRODUCTFORMAT_Value.equals(format))
+            description = value;
+        if (MFiscalPrinter.ONPRINTPRODUCTFORMAT_NameValue.equals(format))
+            description = name + " " + value;
+        if (MFiscalPrinter.ONPRINTPRODUCTFORMAT_ValueName.equals(format))
+            description = value + " " + name;
+        return description;
+    }
+
+    /** Datos de cabecera del documento */
+    static class Header
+    {
+        final Customer customer = new Customer();
+        String letter;
+        String orderNo;
+        String sourceInvoiceNo;
+        boolean taxIncluded;
+    }
+
+    /** Línea de factura con los datos de sus registros relacionados */
+    static class Line
+    {
+        int line;
+        BigDecimal qtyEntered;
+        BigDecimal priceActual;
+        int M_Product_ID;
+        int C_Charge_ID;
+        String description;
+        BigDecimal discount;
+        BigDecimal taxRate;
+        String inOutNo;
+        String productValue;
+        String productName;
+        String chargeName;
+    }
+}
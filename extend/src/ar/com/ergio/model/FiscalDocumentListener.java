@@ -35,6 +35,7 @@ public interface FiscalDocumentListener {
 	public static int AC_PRINT_DOCUMENT = 3;
 	public static int AC_PROCESS_DOCUMENT = 4;
 	public static int AC_EXECUTING_ACTION = 5;
+	public static int AC_QUEUED = 6;
 
 	/**
 	 * Informa el estado actual del controlador fiscal.
@@ -53,6 +54,7 @@ public interface FiscalDocumentListener {
 	 * <code>FiscalDocumentListener.AC_CONNECT_PRINTER</code><br>
 	 * <code>FiscalDocumentListener.AC_PRINT_DOCUMENT</code><br>
 	 * <code>FiscalDocumentListener.AC_EXECUTING_ACTION</code><br>
+	 * <code>FiscalDocumentListener.AC_QUEUED</code> (espera en la cola de impresión)<br>
 	 */
 	public void actionStarted(FiscalDocumentPrint source, int action);
 
@@ -28,23 +28,16 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
-import org.compiere.model.I_C_Order;
-import org.compiere.model.I_C_OrderLine;
-import org.compiere.model.I_M_InOutLine;
-import org.compiere.model.MBPartner;
 import org.compiere.model.MDocType;
 import org.compiere.model.MInvoice;
-import org.compiere.model.MInvoiceLine;
-import org.compiere.model.MLocation;
 import org.compiere.model.MOrder;
 import org.compiere.model.MOrderLine;
 import org.compiere.model.MPayment;
-import org.compiere.model.MPriceList;
 import org.compiere.model.MProduct;
 import org.compiere.model.MRefList;
-import org.compiere.model.MTax;
 import org.compiere.model.PO;
 import org.compiere.util.CLogger;
 import org.compiere.util.DB;
@@ -53,23 +46,22 @@ import org.compiere.util.Msg;
 import org.compiere.util.Trx;
 
 import static ar.com.ergio.model.LAR_TaxPayerType.*;
+import ar.com.ergio.print.fiscal.FiscalCloseReport;
+import ar.com.ergio.print.fiscal.FiscalEventDispatcher;
 import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
+import ar.com.ergio.print.fiscal.FiscalPrinterHealth;
 import ar.com.ergio.print.fiscal.FiscalPrinterListener;
 import ar.com.ergio.print.fiscal.document.CreditNote;
 import ar.com.ergio.print.fiscal.document.Customer;
 import ar.com.ergio.print.fiscal.document.DebitNote;
-import ar.com.ergio.print.fiscal.document.DiscountLine;
 import ar.com.ergio.print.fiscal.document.Document;
-import ar.com.ergio.print.fiscal.document.DocumentLine;
 import ar.com.ergio.print.fiscal.document.Invoice;
 import ar.com.ergio.print.fiscal.document.NonFiscalDocument;
 import ar.com.ergio.print.fiscal.document.Payment;
-import ar.com.ergio.print.fiscal.document.PerceptionLine;
 import ar.com.ergio.print.fiscal.exception.DocumentException;
 import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
 import ar.com.ergio.print.fiscal.exception.FiscalPrinterStatusError;
 import ar.com.ergio.print.fiscal.msg.FiscalMessages;
-import ar.com.ergio.util.LAR_Utils;
 
 /**
  * Impresión fiscal de documentos. Esta clase se encarga de mapear documentos de
@@ -89,21 +81,19 @@ public class FiscalDocumentPrint {
 		ACTION_PRINT_DELIVERY_DOCUMENT
 	}
 
-	/** Cantidad maxima de esperas cuando la impresora se encuentra en estado ocupado */
-	private static int MAX_BSY_SLEEP_COUNT = 12;
-	/** Período en milisegundos mediante el cual se chequea el estado de la impresora fiscal */
-	private static long BSY_SLEEP_TIME = 5000;
+	/** Tiempo máximo en milisegundos de espera cuando la impresora se encuentra en estado ocupado */
+	private static long BSY_WAIT_TIMEOUT = 60000;
 
 	/** Logger del sistema */
 	private static CLogger log = CLogger.getCLogger(FiscalDocumentPrint.class);
 	/** Manejador de eventos de la impresora fiscal */
-	//private FiscalPrinterListener printerEventListener;
+	private FiscalPrinterListener printerEventListener;
 	/** Manejador de eventos del estado del Controlador Fiscal de OXP */
 	private List<FiscalDocumentListener> documentPrintListeners;
 	/** Modelo asociado a la configuración de la impresora fiscal */
 	private final MFiscalPrinter fiscalPrinter;
 	/** Impresora fiscal con la que se imprime el documento */
-    private final FiscalPrinterDevice fiscalPrinterDevice;
+    private FiscalPrinterDevice fiscalPrinterDevice;
 	/** Mapeo entre la categorías de IVA de LAR y las de
 	 *  las clases de documentos para impresoras fiscales */
 	private Map<String, Integer> taxPayerTypes;
@@ -115,6 +105,11 @@ public class FiscalDocumentPrint {
 	/** Indica si se debe cancelar la espera de la impresora fiscal
 	 * cuando se encuentra en estado BUSY */
 	private boolean cancelWaiting = false;
+	/** Hilo que espera que se libere la impresora fiscal, interrumpido al
+	 * cancelar la espera */
+	private Thread waitingThread;
+	/** Concesión de uso exclusivo de la impresora durante la acción en curso */
+	private FiscalPrinterLock.Lease lease;
 	/** Tipo de documento a emitir por la impresora fiscal */
 	private String printerDocType = null;
 	/** Documento de OXP que se va a emitir por la impresora fiscal. */
@@ -126,6 +121,14 @@ public class FiscalDocumentPrint {
 	/** Indica si se debe crear o no la transacción en caso de que
 	 * no se asigne ninguna externamente */
 	private boolean createTrx = false;
+	/** Tiempo máximo (mls) de espera de la impresora cuando está ocupada
+	 * por otro usuario; 0 indica no esperar */
+	private long busyWaitTimeout = BSY_WAIT_TIMEOUT;
+	/** Indica si la última acción no se ejecutó por estar la impresora
+	 * ocupada por otro usuario */
+	private boolean printerBusy = false;
+	/** Contadores informados por la impresora en el último cierre fiscal */
+	private FiscalCloseReport fiscalCloseReport;
 
     /**
      * Creates a fiscal document print
@@ -139,7 +142,8 @@ public class FiscalDocumentPrint {
     public FiscalDocumentPrint(int LAR_Fiscal_Printer_ID) throws Exception
     {
         fiscalPrinter = new MFiscalPrinter(ctx, LAR_Fiscal_Printer_ID, null);
-        fiscalPrinterDevice = fiscalPrinter.getFiscalPrinter();
+        fiscalPrinterDevice = FiscalPrinterPool.getInstance().getDevice(fiscalPrinter);
+        FiscalPrinterMonitor.getInstance().watch(fiscalPrinter);
         documentPrintListeners = new ArrayList<FiscalDocumentListener>();
     }
 
@@ -157,7 +161,6 @@ public class FiscalDocumentPrint {
             final FiscalPrinterListener fiscalPrinterListener) throws Exception
     {
         this(LAR_Fiscal_Printer_ID);
-        // this.printerEventListener = fpl;
         setPrinterEventListener(fiscalPrinterListener);
     }
 
@@ -196,10 +199,13 @@ public class FiscalDocumentPrint {
         String newPrinterStatus = MFiscalPrinter.STATUS_IDLE;
         String errorTitle = "";
         String errorDesc = "";
+        boolean acquired = false;
+        boolean discardConnection = false;
 
         // Se inicializa el indicador de fin de espera para el casos en que
         // la impresora se encuentre en estado BUSY.
         setCancelWaiting(false);
+        printerBusy = false;
 
         try {
             // Se informa al manejador que se esta chequeando el status de
@@ -215,9 +221,32 @@ public class FiscalDocumentPrint {
             // la impresora fiscal.
             fireActionStarted(FiscalDocumentListener.AC_CONNECT_PRINTER);
 
-            // Se intenta conectar la impresora.
-            log.info("connecting to fiscal device");
-            getFiscalPrinter().connect();
+            // Se obtiene la impresora del pool, conectada. La conexión se
+            // mantiene abierta entre acciones.
+            fiscalPrinterDevice = FiscalPrinterPool.getInstance().acquire(fiscalPrinter);
+            acquired = true;
+            // El dispositivo es compartido: el manejador de eventos de esta
+            // impresión se asigna sólo mientras se tiene el dispositivo.
+            fiscalPrinterDevice.setEventListener(printerEventListener);
+
+            // La concesión de la impresora pudo expirar durante la conexión.
+            if (!lease.isValid()) {
+                throw new IOException(Msg.translate(ctx, "FiscalPrinterLeaseLost"));
+            }
+            // Si otro cliente usó la impresora desde la última concesión de
+            // esta terminal, el estado que conserva el controlador no vale.
+            if (lease.isHandedOver()) {
+                fiscalPrinterDevice.discardSharedState();
+            }
+
+            // Si el monitor informó un estado que impide imprimir (sin papel,
+            // tapa abierta) y éste persiste, se falla antes de abrir el
+            // comprobante.
+            final FiscalPrinterHealth health = FiscalPrinterMonitor.getInstance().verify(fiscalPrinter,
+                    fiscalPrinterDevice);
+            if (health != null && health.isBlocking()) {
+                throw new FiscalPrinterStatusError(null, null, health.getMessages());
+            }
 
             // Ejecutar la acción correspondiente
             doAction(action, args);
@@ -239,6 +268,7 @@ public class FiscalDocumentPrint {
             errorTitle = "FiscalPrinterIOError";
             errorDesc = e.getMessage();
             error = true;
+            discardConnection = true;
             log.log(Level.SEVERE, e.getFullMessage(), e);
 
         } catch (DocumentException e) {
@@ -253,6 +283,7 @@ public class FiscalDocumentPrint {
             errorTitle = "UnexpectedIOError";
             errorDesc = e.getMessage();
             error = true;
+            discardConnection = true;
             log.log(Level.SEVERE, e.getMessage(), e);
 
         } catch (Exception e) {
@@ -260,6 +291,7 @@ public class FiscalDocumentPrint {
             errorTitle = "PrintFiscalDocumentError";
             errorDesc = e.getMessage();
             error = true;
+            discardConnection = true;
             log.log(Level.SEVERE, e.getMessage(), e);
 
         } finally {
@@ -274,12 +306,20 @@ public class FiscalDocumentPrint {
                     setErrorMsg("@" + errorTitle + "@ - @" + errorDesc + "@");
                 }
 
-                // Se desconecta la impresora en caso de que este conectada aún.
-                if (fiscalPrinterDevice != null && fiscalPrinterDevice.isConnected())
-                    fiscalPrinterDevice.close();
-
-            } catch (IOException e) {
-                log.log(Level.SEVERE, e.getMessage(), e);
+            } finally {
+                // Se devuelve la impresora al pool; ante errores de comunicación
+                // se cierra la conexión para que la próxima acción reconecte.
+                if (acquired) {
+                    // Los eventos de la próxima acción no son de esta impresión.
+                    fiscalPrinterDevice.setEventListener(null);
+                    FiscalPrinterPool.getInstance().release(fiscalPrinter, discardConnection);
+                }
+                // La impresora nunca queda tomada al terminar la acción.
+                if (lease != null)
+                    setFiscalPrinterStatus(fiscalPrinter, newPrinterStatus);
+                // Los eventos se entregan fuera de este hilo; la acción
+                // termina cuando se entregaron todos.
+                flushEvents();
             }
         }
         return !error;
@@ -360,6 +400,59 @@ public class FiscalDocumentPrint {
         return ok;
     }
 
+    /**
+     * Prints a document in the back-office lane of the printer queue, so the
+     * caller (usually the UI) is not blocked while the fiscal printer works.
+     *
+     * @param document
+     *            <code>PO</code> that represents the document to print.
+     * @return a future whose value is the result of {@link #printDocument(PO)}
+     * @see #printDocumentAsync(PO, int)
+     */
+    public Future<Boolean> printDocumentAsync(final PO document)
+    {
+        return printDocumentAsync(document, FiscalPrintQueue.LANE_BACK_OFFICE);
+    }
+
+    /**
+     * Prints a document from the print queue of the printer (see
+     * {@link FiscalPrintQueue}), so the caller is not blocked while the fiscal
+     * printer works and waits in memory for the jobs of other terminals.
+     * Progress and errors are reported to the printer and document listeners
+     * as in {@link #printDocument(PO)}.
+     *
+     * @param document
+     *            <code>PO</code> that represents the document to print.
+     * @param lane
+     *            <code>FiscalPrintQueue.LANE_POS</code> or
+     *            <code>FiscalPrintQueue.LANE_BACK_OFFICE</code>
+     * @return a future whose value is the result of {@link #printDocument(PO)}
+     */
+    public Future<Boolean> printDocumentAsync(final PO document, final int lane)
+    {
+        return FiscalPrintQueue.getInstance().printDocument(this, document, lane);
+    }
+
+    /**
+     * Prints a document from the print queue of the printer, reporting the
+     * result to a callback when it ends instead of making the caller wait on
+     * the returned future.
+     *
+     * @param document
+     *            <code>PO</code> that represents the document to print.
+     * @param lane
+     *            <code>FiscalPrintQueue.LANE_POS</code> or
+     *            <code>FiscalPrintQueue.LANE_BACK_OFFICE</code>
+     * @param callback
+     *            receives the result in the thread of the print queue
+     * @return a future whose value is the result of {@link #printDocument(PO)}
+     */
+    public Future<Boolean> printDocumentAsync(final PO document, final int lane,
+            final FiscalPrintCallback callback)
+    {
+        return FiscalPrintQueue.getInstance().printDocument(this, document, lane, callback);
+    }
+
 //	// TODO - Review the parameters
 //	public boolean printDocument(final PO document, final Document documentPrintable, final MDocType docType, final MInvoice originalInvoice) {
 //		// Se valida que el tipo de documento exista
@@ -446,6 +539,7 @@ public class FiscalDocumentPrint {
 	 * @return verdadero en caso de exito, falso si hubo algún problema
 	 */
 	public boolean fiscalClose(final String closeType) {
+		fiscalCloseReport = null;
 		// Ejecutar la acción
 		return execute(Actions.ACTION_FISCAL_CLOSE, new Object[]{closeType});
 	}
@@ -462,7 +556,7 @@ public class FiscalDocumentPrint {
 		fireActionStarted(FiscalDocumentListener.AC_EXECUTING_ACTION);
 
 		// Cerrar la impresora fiscal
-		getFiscalPrinter().fiscalClose(closeType);
+		fiscalCloseReport = getFiscalPrinter().fiscalClose(closeType);
 
 		// Se dispara el evento de impresión finalizada.
 		fireActionEndedOk(Actions.ACTION_FISCAL_CLOSE);
@@ -529,6 +623,13 @@ public class FiscalDocumentPrint {
 	    return fiscalPrinterDevice;
 	}
 
+	/**
+	 * @return Id de la configuración del controlador fiscal.
+	 */
+	public int getLAR_Fiscal_Printer_ID() {
+		return fiscalPrinter.getLAR_Fiscal_Printer_ID();
+	}
+
 	/**
 	 * Crea un documento imprimible mediante un controlador fiscal a partir de
 	 * la factura parámetro y del tipo de documento fiscal configurado.
@@ -567,22 +668,18 @@ public class FiscalDocumentPrint {
 	 * @return la factura imprimible creada
 	 */
 	public Invoice createInvoice(final MInvoice mInvoice){
-		Invoice invoice = new Invoice();
-		// Se asigna el cliente.
-		invoice.setCustomer(getCustomer(mInvoice.getC_BPartner_ID()));
-		// Se asigna la letra de la factura.
-		invoice.setLetter(LAR_Utils.getLetter(mInvoice));
-
-		// Se asigna el número de remito en caso de existir.
-		loadShipmentOrderNumbers(mInvoice, invoice); // @emmie
+		return createInvoice(mInvoice, false);
+	}
 
-		// Se agregan las líneas de la factura al documento.
-		loadDocumentLines(mInvoice, invoice);
+	/**
+	 * @param streamLines
+	 *            si es verdadero, las líneas se entregan a la impresora
+	 *            mientras se imprime la factura
+	 */
+	private Invoice createInvoice(final MInvoice mInvoice, final boolean streamLines){
+		Invoice invoice = getAssembler(streamLines).createInvoice(mInvoice);
 		// Agrega los pagos correspondientes de la factura partir de las imputaciones
 		loadInvoicePayments(invoice, mInvoice);
-
-		// Se asignan los descuentos de la factura
-		//loadDocumentDiscounts(invoice, mInvoice.getDiscounts());
 		return invoice;
 	}
 
@@ -595,17 +692,7 @@ public class FiscalDocumentPrint {
 	 * @return nota de débito creada
 	 */
 	public DebitNote createDebitNote(final MInvoice mInvoice){
-		DebitNote debitNote = new DebitNote();
-		// Se asigna el cliente.
-		debitNote.setCustomer(getCustomer(mInvoice.getC_BPartner_ID()));
-		// Se asigna la letra de la nota de débito.
-		debitNote.setLetter(LAR_Utils.getLetter(mInvoice));
-
-		// TODO: Se asigna el número de remito en caso de existir.
-
-		// Se agregan las líneas de la nota de débito al documento.
-		loadDocumentLines(mInvoice, debitNote);
-		return debitNote;
+		return getAssembler(false).createDebitNote(mInvoice);
 	}
 
 	/**
@@ -622,36 +709,7 @@ public class FiscalDocumentPrint {
 	 * @return nota de crédito imprimible por un controlador fiscal
 	 */
 	public CreditNote createCreditNote(final MInvoice mInvoice, final MInvoice originalInvoice){
-		CreditNote creditNote = new CreditNote();
-		// Se asigna el cliente.
-		creditNote.setCustomer(getCustomer(mInvoice.getC_BPartner_ID()));
-		// Se asigna la letra de la nota de crédito.
-		creditNote.setLetter(LAR_Utils.getLetter(mInvoice));
-
-		// Se asigna el número de factura original.
-		String origInvoiceNumber = null;
-		MInvoice mOriginalInvoice = originalInvoice;
-		// Si la factura parámetro es null y la factura oxp parámetro contiene
-		// una factura original seteada entonces la busco
-		if (mOriginalInvoice == null && mInvoice.get_ValueAsInt("Source_Invoice_ID") != 0) {
-			mOriginalInvoice = new MInvoice(ctx, mInvoice.get_ValueAsInt("Source_Invoice_ID"), getTrxName());
-		}
-		// Si existe una factura original entonces obtengo el nro de factura
-		// original
-		if(mOriginalInvoice != null) {
-			origInvoiceNumber = mOriginalInvoice.getDocumentNo();
-			// Si no cumple con el formato de comprobantes fiscales se envia
-			// el documentNo como número de factura original.
-			if(origInvoiceNumber.length() == 13) {
-				// El formato es: PPPP-NNNNNNNN, Ej: 0001-00000023
-				origInvoiceNumber = origInvoiceNumber.substring(1,5) + "-" + origInvoiceNumber.substring(5,13);
-			}
-		}
-		creditNote.setOriginalDocumentNo(origInvoiceNumber);
-
-		// Se agregan las líneas de la nota de crédito al documento.
-		loadDocumentLines(mInvoice, creditNote);
-		return creditNote;
+		return getAssembler(false).createCreditNote(mInvoice, originalInvoice);
 	}
 
 	/**
@@ -676,7 +734,7 @@ public class FiscalDocumentPrint {
 		if (document != null) {
 		    printeableInvoice = (Invoice) document;
 		} else {
-			printeableInvoice = createInvoice(mInvoice);
+			printeableInvoice = createInvoice(mInvoice, fiscalPrinter.isStreamLines());
 		}
 		// Se manda a imprimir la factura a la impresora fiscal.
 		getFiscalPrinter().printDocument(printeableInvoice);
@@ -700,7 +758,7 @@ public class FiscalDocumentPrint {
 		validateOxpDocument(mInvoice);
 		// Se crea la nota de débito imprimible
 		DebitNote debitNote = document != null ? (DebitNote) document
-				: createDebitNote(mInvoice);
+				: getAssembler(fiscalPrinter.isStreamLines()).createDebitNote(mInvoice);
 		// Se manda a imprimir la nota de débito a la impresora fiscal.
 		getFiscalPrinter().printDocument(debitNote);
 		// Se actualizan los datos de la nota de debito de oxp.
@@ -727,7 +785,7 @@ public class FiscalDocumentPrint {
 		// Se valida el documento OXP.
 		validateOxpDocument(mInvoice);
 		CreditNote creditNote = document != null ? (CreditNote) document
-				: createCreditNote(mInvoice, originalInvoice);
+				: getAssembler(fiscalPrinter.isStreamLines()).createCreditNote(mInvoice, originalInvoice);
 		// Se manda a imprimir la nota de crédito a la impresora fiscal.
 		getFiscalPrinter().printDocument(creditNote);
 		// Se actualizan los datos de la nota de crédito de oxp.
@@ -740,148 +798,21 @@ public class FiscalDocumentPrint {
 	 * @return el cliente correspondiente.
 	 */
 	public Customer getCustomer(int bPartnerID) {
-	    //TODO - Review this implementation
-        MBPartner bPartner = new MBPartner(Env.getCtx(), bPartnerID, getTrxName());
-        Customer customer = new Customer();
-
-        if (bPartner != null) {
-
-            // Se asigna la categoría de iva del cliente.
-            LAR_TaxPayerType taxPayerType = LAR_TaxPayerType.getTaxPayerType(bPartner);
-            customer.setIvaResponsibility(traduceTaxPayerType(taxPayerType.getName()));
-            MInvoice mInvoice = (MInvoice) getOxpDocument();// TODO - Parametrize this method
-
-            // Se asigna el nombre del cliente a partir del BPartner.
-            customer.setName(bPartner.getName());
-
-            // Se asigna el domicilio.
-            MLocation location = MLocation.getBPLocation(Env.getCtx(), mInvoice.getC_BPartner_Location_ID(),
-                    getTrxName());
-            customer.setLocation(location.toString());
-
-            // Se identifica al cliente con el C.U.I.T. configurado en el
-            // Bpartner.
-            if (bPartner.getTaxID() != null && !bPartner.getTaxID().trim().equals("")) {
-                customer.setIdentificationType(Customer.CUIT);
-                customer.setIdentificationNumber(bPartner.getTaxID());
-            }
-        }
-        return customer;
+		MInvoice mInvoice = (MInvoice) getOxpDocument();// TODO - Parametrize this method
+		return getAssembler(false).createCustomer(bPartnerID, mInvoice.getC_BPartner_Location_ID(), getTrxName());
 	}
 
 	/**
-	 * Retrieve shipment and sales order numbers, if they exists.
-	 *
-	 * @param mInvoice ADempiere invoice document
-	 * @param document fiscal printer document
+	 * @param streamLines
+	 *            si es verdadero, las líneas de los documentos creados se
+	 *            entregan a la impresora mientras se imprimen
+	 * @return Ensamblador de los documentos imprimibles a partir de los
+	 *         documentos de ADempiere.
 	 */
-	private void loadShipmentOrderNumbers(final MInvoice mInvoice, final Invoice document)
-	{
-	    final I_C_Order order = mInvoice.getC_Order();
-	    if (order.getC_Order_ID() > 0)
-	        document.addObservation(Msg.translate(ctx, "C_Order_ID") + ": " + order.getDocumentNo());
-	    final MInvoiceLine[] iLines = mInvoice.getLines();
-	    for (final MInvoiceLine line : iLines)
-	    {
-	        final I_M_InOutLine ioline = line.getM_InOutLine();
-	        if (ioline.getM_InOutLine_ID() > 0)
-	        {
-	            String obs = Msg.translate(ctx, "M_InOut_ID") + ": " + ioline.getM_InOut().getDocumentNo();
-	            if (!document.getObservations().contains(obs))
-	                document.addObservation(obs);
-	        }
-	    }
-	}
-
-	/**
-	 * Carga las líneas que se encuentran en el documento de ADempiere hacia
-	 * el documento de impresoras fiscales.
-	 * @param mInvoice Documento de ADempiere.
-	 * @param document Documento de impresoras fiscales.
-	 */
-	private void loadDocumentLines(final MInvoice mInvoice, final Document document) {
-		// Se obtiene el indicador de si los precios contienen los impuestos incluido
-		boolean taxIncluded = MPriceList.get(ctx, mInvoice.getM_PriceList_ID(), getTrxName()).isTaxIncluded();
-		// Se obtiene el redondeo para precios de la moneda de la factura
-		//int scale = MCurrency.get(oxpDocument.getCtx(), oxpDocument.getC_Currency_ID()).getCostingPrecision();
-
-		MInvoiceLine[] lines = mInvoice.getLines();
-		BigDecimal totalLineAmt = BigDecimal.ZERO;
-		//String description = "";
-		for (int i = 0; i < lines.length; i++)
-		{
-			MInvoiceLine mLine = lines[i];
-            BigDecimal qtyEntered = mLine.getQtyEntered();
-            // @emmie - avoid "special" invoice lines (as shipments comments lines)
-            if (qtyEntered.compareTo(BigDecimal.ZERO) > 0)
-            {
-                DocumentLine docLine = new DocumentLine();
-                docLine.setLineNumber(mLine.getLine());
-                docLine.setDescription(manageLineDescription(docLine, mLine));
-                // TODO - Review discounts at invoice behavior
-                // Calcula el precio unitario de la línea.
-                // Aquí tenemos dos casos de línea: Con Bonificaciones o Sin
-                // Bonificaciones
-                // 1. Sin Bonificaciones
-                // El precio unitario es entonces simplemente el precio actual
-                // de la
-                // línea, es decir el PriceActual.
-                // if (!mLine.hasBonus()) {
-                BigDecimal unitPrice = mLine.getPriceActual();
-                totalLineAmt = totalLineAmt.add(unitPrice);
-                // } else {
-                // 2. Con Bonificaciones
-                // Aquí NO se puede utilizar el mLine.getPriceActual() ya que el
-                // mismo tiene contemplado las bonificaciones mientras que en la
-                // impresión del ticket, las bonificaciones se restan al final
-                // del mismo. De esta forma, el precio unitario para el ticket
-                // va a ser mayor que el PriceActual de la línea en caso de que
-                // la misma contenga bonificaciones.
-                // El cálculo a realizar es:
-                // (PriceList * Qty - LineDiscountAmt) / Qty
-                //
-                // unitPrice =
-                // (mLine.getPriceList().multiply(mLine.getQtyEntered())
-                // .subtract(mLine.getLineDiscountAmt())).divide(
-                // mLine.getQtyEntered(), scale, RoundingMode.HALF_UP);
-                // }
-
-                // LAR - Process discount for invoice
-                final I_C_OrderLine ol = mLine.getC_OrderLine();
-                final BigDecimal discountRate = ol.getDiscount();
-                if (discountRate.compareTo(BigDecimal.ZERO) > 0)
-                {
-                    final BigDecimal originalAmt = BigDecimal.valueOf(100).multiply(unitPrice).divide(
-                            BigDecimal.valueOf(100).subtract(discountRate), 2, BigDecimal.ROUND_FLOOR);
-                    final DiscountLine discountLine = new DiscountLine("Dto aplicado",
-                            originalAmt.subtract(unitPrice).multiply(mLine.getQtyEntered()), true, false, discountRate);
-                    // Add discount to document line
-                    docLine.setDiscount(discountLine);
-                    unitPrice = originalAmt; // Set proper unitPrice
-                }
-                // LAR - Process discount for invoice
-
-                docLine.setUnitPrice(unitPrice);
-                docLine.setQuantity(mLine.getQtyEntered());
-                docLine.setPriceIncludeIva(taxIncluded);
-                // Se obtiene la tasa del IVA de la línea
-                // Se asume que el impuesto es siempre IVA, a futuro se verá
-                // que hacer si el producto tiene otro impuesto que no sea IVA.
-                MTax mTax = MTax.get(Env.getCtx(), mLine.getC_Tax_ID());
-                docLine.setIvaRate(mTax.getRate());
-                // Se agrega la línea al documento.
-                document.addLine(docLine);
-            }
-		}
-		// TODO - Improve this behavior
-		BigDecimal amt = ((BigDecimal) mInvoice.get_Value("WithHoldingAmt")).negate(); // LAR perception are negative
-		if (amt.compareTo(BigDecimal.ZERO) > 0)
-		{
-		    BigDecimal rate = amt.divide(totalLineAmt, 2, BigDecimal.ROUND_HALF_UP).multiply(BigDecimal.valueOf(100));
-		    String desc = String.format("Percepci\u00f3n (%2.2f%%)", rate);
-		    PerceptionLine perceptionLine = new PerceptionLine(desc, amt, null);
-		    document.setPerceptionLine(perceptionLine);
-		}
+	private FiscalDocumentAssembler getAssembler(final boolean streamLines) {
+		FiscalDocumentAssembler assembler = new FiscalDocumentAssembler(this, fiscalPrinter);
+		assembler.setStreamLines(streamLines);
+		return assembler;
 	}
 
 	/**
@@ -1248,15 +1179,31 @@ public class FiscalDocumentPrint {
 	 * @param printerEventListener The printerEventListener to set.
 	 */
 	public void setPrinterEventListener(final FiscalPrinterListener printerEventListener) {
-		//this.printerEventListener = printerEventListener;
-	    log.info("Set printer event listener. Fiscal device: " + getFiscalPrinter());
-		if(getFiscalPrinter() != null)
-			getFiscalPrinter().setEventListener(printerEventListener);
+		// El dispositivo es compartido por todas las impresiones de la
+		// impresora: el manejador se le asigna al obtenerlo del pool (ver execute)
+		this.printerEventListener = printerEventListener;
 	}
 
+	/**
+	 * Informa el estado del controlador fiscal. El estado de error se entrega
+	 * en este hilo, luego de los eventos pendientes, dado que la respuesta de
+	 * los manejadores (ignorar o no el error) determina si se continúa con la
+	 * impresión.
+	 */
 	private void fireStatusReported(final MFiscalPrinter cFiscal, final String status) {
-		for (FiscalDocumentListener fdpl : getDocumentPrintListeners()) {
-			fdpl.statusReported(this, cFiscal, status);
+		final List<FiscalDocumentListener> listeners = copyDocumentPrintListeners();
+		Runnable event = new Runnable() {
+			public void run() {
+				for (FiscalDocumentListener fdpl : listeners) {
+					fdpl.statusReported(FiscalDocumentPrint.this, cFiscal, status);
+				}
+			}
+		};
+		if (MFiscalPrinter.STATUS_Error.equals(status)) {
+			flushEvents();
+			event.run();
+		} else {
+			FiscalEventDispatcher.getInstance().post(this, event);
 		}
 	}
 
@@ -1264,31 +1211,72 @@ public class FiscalDocumentPrint {
 		fireStatusReported(cFiscal, cFiscal.getStatus());
 	}
 
-	private void fireActionStarted(int action) {
-		for (FiscalDocumentListener fdpl : getDocumentPrintListeners()) {
-			fdpl.actionStarted(this, action);
-		}
+	private void fireActionStarted(final int action) {
+		final List<FiscalDocumentListener> listeners = copyDocumentPrintListeners();
+		FiscalEventDispatcher.getInstance().post(this, new Runnable() {
+			public void run() {
+				for (FiscalDocumentListener fdpl : listeners) {
+					fdpl.actionStarted(FiscalDocumentPrint.this, action);
+				}
+			}
+		});
 	}
 
 	protected void fireErrorOcurred(final String errorTitle, final String errorDesc) {
-		for (FiscalDocumentListener fdpl : getDocumentPrintListeners()) {
-			fdpl.errorOcurred(
-                    this,
-                    Msg.parseTranslation(ctx,errorTitle),
-					Msg.parseTranslation(ctx,errorDesc));
-		}
+		final List<FiscalDocumentListener> listeners = copyDocumentPrintListeners();
+		final String title = Msg.parseTranslation(ctx,errorTitle);
+		final String desc = Msg.parseTranslation(ctx,errorDesc);
+		FiscalEventDispatcher.getInstance().post(this, new Runnable() {
+			public void run() {
+				for (FiscalDocumentListener fdpl : listeners) {
+					fdpl.errorOcurred(FiscalDocumentPrint.this, title, desc);
+				}
+			}
+		});
 	}
 
 	protected void fireDocumentPrintEndedOk() {
-		for (FiscalDocumentListener fdpl : getDocumentPrintListeners()) {
-			fdpl.documentPrintEndedOk(this);
-		}
+		final List<FiscalDocumentListener> listeners = copyDocumentPrintListeners();
+		FiscalEventDispatcher.getInstance().post(this, new Runnable() {
+			public void run() {
+				for (FiscalDocumentListener fdpl : listeners) {
+					fdpl.documentPrintEndedOk(FiscalDocumentPrint.this);
+				}
+			}
+		});
 	}
 
 
 	private void fireActionEndedOk(final Actions action){
-		for (FiscalDocumentListener fdpl : getDocumentPrintListeners()) {
-			fdpl.actionEnded(true, action);
+		final List<FiscalDocumentListener> listeners = copyDocumentPrintListeners();
+		FiscalEventDispatcher.getInstance().post(this, new Runnable() {
+			public void run() {
+				for (FiscalDocumentListener fdpl : listeners) {
+					fdpl.actionEnded(true, action);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return Copia de los manejadores, para entregarles eventos desde el
+	 *         despachador de eventos.
+	 */
+	private List<FiscalDocumentListener> copyDocumentPrintListeners() {
+		return new ArrayList<FiscalDocumentListener>(getDocumentPrintListeners());
+	}
+
+	/**
+	 * Espera a que se entreguen los eventos pendientes del dispositivo y de
+	 * este impresor, de modo que ninguno llegue luego de terminar la acción.
+	 */
+	private void flushEvents() {
+		try {
+			if (fiscalPrinterDevice != null)
+				FiscalEventDispatcher.getInstance().flush(fiscalPrinterDevice);
+			FiscalEventDispatcher.getInstance().flush(this);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -1300,7 +1288,9 @@ public class FiscalDocumentPrint {
 	}
 
 	private boolean checkPrinterStatus(final MFiscalPrinter cFiscal) throws Exception {
-		int bsyCount = 0;
+		// Se recarga el estado: la acción pudo haber esperado en la cola de
+		// impresión mientras otra terminal usaba el controlador.
+		cFiscal.load((String)null);
 		// Si la impresora se encuentra en estado de error se dispara el evento
 		// que informa dicha situación.
 		if(cFiscal.getStatus().equals(MFiscalPrinter.STATUS_Error)) {
@@ -1309,48 +1299,78 @@ public class FiscalDocumentPrint {
 			// se continua con la impresión. (Esto se utiliza para evitar
 			// los casos en que la impresora quede marcada como error en
 			// la BD pero el dispositivo ya no contenga mas este error.
-			if(isIgnoreErrorStatus())
+			if(isIgnoreErrorStatus()) {
 				// Por ello se setea la impresora como Lista y se intenta
 				// continuar con la impresión.
-				setFiscalPrinterStatus(cFiscal, MFiscalPrinter.STATUS_IDLE);
-			else
+				cFiscal.setStatus(MFiscalPrinter.STATUS_IDLE);
+				cFiscal.save();
+			} else
 				// Si no se pueden ignorar estados de error, entonces
 				// no es posible continuar con la impresión.
 				return false;
 		}
 
-		// Mientras el status sea BUSY, espera 5 segundos y vuelve a chequear.
-		while(cFiscal.getStatus().equals(MFiscalPrinter.STATUS_Busy) && !isCancelWaiting()) {
-			fireStatusReported(cFiscal);
-			Thread.sleep(BSY_SLEEP_TIME);
-			bsyCount++;
-			cFiscal.load((String)null);
-			if(bsyCount == MAX_BSY_SLEEP_COUNT)
+		// Se toma la impresora. Si está ocupada se espera a que quien la usa
+		// la libere (sin consultar periódicamente la BD) o a que expire su
+		// concesión, en caso de que haya terminado de manera anormal.
+		final FiscalPrinterLock printerLock = FiscalPrinterLock.getInstance();
+		lease = printerLock.tryAcquire(cFiscal);
+		if(lease == null) {
+			fireStatusReported(cFiscal, MFiscalPrinter.STATUS_Busy);
+			// Sin tiempo de espera se informa la impresora como ocupada, para
+			// que quien ejecuta la acción decida cuándo reintentarla.
+			if(busyWaitTimeout <= 0) {
+				printerBusy = true;
 				throw new IOException(Msg.translate(ctx,"FiscalPrinterBusyTimeoutError"));
-		}
-		// Si fue cancelada la operacion de espera entonces se retorna, indicando
-		// que el estado no es correcto.
-		if(isCancelWaiting()) {
-			log.fine("Fiscal printer wait canceled");
-			return false;
+			}
+			synchronized (this) {
+				if(isCancelWaiting()) {
+					log.fine("Fiscal printer wait canceled");
+					return false;
+				}
+				waitingThread = Thread.currentThread();
+			}
+			try {
+				lease = printerLock.acquire(cFiscal, busyWaitTimeout);
+			} catch (InterruptedException e) {
+				// Si fue cancelada la operacion de espera entonces se retorna,
+				// indicando que el estado no es correcto.
+				log.fine("Fiscal printer wait canceled");
+				return false;
+			} finally {
+				synchronized (this) {
+					waitingThread = null;
+					Thread.interrupted();
+				}
+			}
+			if(lease == null) {
+				printerBusy = true;
+				throw new IOException(Msg.translate(ctx,"FiscalPrinterBusyTimeoutError"));
+			}
 		}
 
 		fireStatusReported(cFiscal, MFiscalPrinter.STATUS_IDLE);
-		// Se asigna el status de la impresora, el usuario que realiza la operación
-		// y la fecha de operación.
-		cFiscal.setStatus(MFiscalPrinter.STATUS_Busy);
+		// El status BUSY y la fecha de operación se asignaron al tomar la
+		// impresora (sin trx, visibles inmediatamente por otros usuarios).
 		//cFiscal.setUsedBy_ID(Env.getAD_User_ID(ctx)); TODO - Revisar
-		cFiscal.setOperation_Date(new Timestamp(System.currentTimeMillis()));
-		// No se usa trx dado que los cambios deben ser visibles
-		// inmediatamente por otros usuarios.
-		cFiscal.save();
+		cFiscal.load((String)null);
 		return true;
 	}
 
+	/**
+	 * Libera la impresora tomada por {@link #checkPrinterStatus(MFiscalPrinter)}
+	 * dejándola con el estado parámetro. Si la concesión se perdió, el registro
+	 * pertenece a otro usuario y no se modifica.
+	 */
 	private void setFiscalPrinterStatus(final MFiscalPrinter cFiscal, String status) {
-		if(cFiscal != null) {
-			cFiscal.setStatus(status);
-			cFiscal.save();
+		if(cFiscal != null && lease != null) {
+			// Se persisten los tiempos de respuesta aprendidos por la interfaz.
+			if(lease.isValid()) {
+				cFiscal.updateResponseTimeProfile(fiscalPrinterDevice);
+				cFiscal.save();
+			}
+			FiscalPrinterLock.getInstance().release(lease, status);
+			lease = null;
 		}
 	}
 
@@ -1378,8 +1398,43 @@ public class FiscalDocumentPrint {
 	/**
 	 * @param cancelWaiting The cancelWaiting to set.
 	 */
-	public void setCancelWaiting(boolean cancelWaiting) {
+	public synchronized void setCancelWaiting(boolean cancelWaiting) {
 		this.cancelWaiting = cancelWaiting;
+		// Se interrumpe la espera de la impresora en curso.
+		if(cancelWaiting && waitingThread != null)
+			waitingThread.interrupt();
+	}
+
+	/**
+	 * @return Tiempo máximo (mls) de espera de la impresora cuando está
+	 * ocupada por otro usuario.
+	 */
+	public long getBusyWaitTimeout() {
+		return busyWaitTimeout;
+	}
+
+	/**
+	 * @param busyWaitTimeout Tiempo máximo (mls) de espera de la impresora
+	 * cuando está ocupada por otro usuario; 0 para no esperar.
+	 */
+	public void setBusyWaitTimeout(long busyWaitTimeout) {
+		this.busyWaitTimeout = busyWaitTimeout;
+	}
+
+	/**
+	 * @return Verdadero si la última acción falló porque la impresora estaba
+	 * ocupada por otro usuario (por ejemplo, terminando un ticket).
+	 */
+	public boolean isPrinterBusy() {
+		return printerBusy;
+	}
+
+	/**
+	 * @return Contadores informados por la impresora en el último cierre
+	 * fiscal ejecutado, o <code>null</code> si no se realizó o falló.
+	 */
+	public FiscalCloseReport getFiscalCloseReport() {
+		return fiscalCloseReport;
 	}
 
 	private void validateOxpDocument(final MInvoice mInvoice) throws Exception {
@@ -1566,64 +1621,17 @@ public class FiscalDocumentPrint {
 		return true;
 	}
 
-	/**
-	 * @return el String a imprimir en cada linea del ticket
-	 */
-	private String manageLineDescription(DocumentLine docLine, MInvoiceLine mLine)
-	{
-		MProduct aProduct = null;
-		String value = "";
-		String name = "";
-
-		// Cargar la descripcion con la información de la línea
-		String description =
-				(mLine.getM_Product_ID() != 0 || mLine.getC_Charge_ID() != 0?
-					mLine.getName():mLine.getDescription());
-
-		// Si es un artículo se setea según la configuración indicada en la impresora fiscal
-		if (mLine.getM_Product_ID() > 0)
-		{
-			// recuperar el articulo
-			aProduct = MProduct.get(ctx, mLine.getM_Product_ID());
-
-			// vacio la descripcion, ya que no utilizaré la de la linea, sino la info del artículo
-			description = " ";
-
-			/* Usar los campos Identificador para definir el contenido de la linea */
-			if (fiscalPrinter.isOnPrintUseProductReference())
-			{
-				return genDescriptionFromIdentifiers(aProduct);
-			}
-			/* Usar alguna de las combinaciones CLAVE NOMBRE - NOMBRE CLAVE - NOMBRE - CLAVE */
-			else
-			{
-				// recuperar clave y nombre del articulo
-				if (aProduct.getValue() != null && !aProduct.getValue().trim().isEmpty())
-					value = aProduct.getValue().trim();
-				if (aProduct.getName() != null && !aProduct.getName().trim().isEmpty())
-					name = aProduct.getName().trim();
-
-				// armar la descripción según la selección
-				if (MFiscalPrinter.ONPRINTPRODUCTFORMAT_Name.equals(fiscalPrinter.getOnPrintProductFormat()))
-					description = name;
-				if (MFiscalPrinter.ONPRINTPRODUCTFORMAT_Value.equals(fiscalPrinter.getOnPrintProductFormat()))
-					description = value;
-				if (MFiscalPrinter.ONPRINTPRODUCTFORMAT_NameValue.equals(fiscalPrinter.getOnPrintProductFormat()))
-					description = name + " " + value;
-				if (MFiscalPrinter.ONPRINTPRODUCTFORMAT_ValueName.equals(fiscalPrinter.getOnPrintProductFormat()))
-					description = value + " " + name;
-			}
-		}
-
-		return description;
-	}
-
 	public static String genDescriptionFromIdentifiers(final MProduct mProduct)
 	{
 	    // By default, indenfiers columns of product are search key (value) and name.
 	    // Use this as description
 	    // TODO - improve this behavior (if needed)
-	    return mProduct.getValue() + " " + mProduct.getName();
+	    return genDescriptionFromIdentifiers(mProduct.getValue(), mProduct.getName());
+	}
+
+	public static String genDescriptionFromIdentifiers(final String value, final String name)
+	{
+	    return value + " " + name;
 	}
 
 	@Override
@@ -0,0 +1,38 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+/**
+ * Recibe el resultado de una impresión encolada con
+ * {@link FiscalDocumentPrint#printDocumentAsync(org.compiere.model.PO, int, FiscalPrintCallback)},
+ * de modo que quien la solicita (usualmente la interfaz) no espera a que
+ * termine.
+ * <p>
+ * Se invoca desde el hilo de la cola de impresión de la impresora: no debe
+ * bloquearse, y las actualizaciones de la interfaz se deben delegar al hilo
+ * de eventos (<code>SwingUtilities.invokeLater</code>).
+ */
+public interface FiscalPrintCallback {
+
+	/**
+	 * Informa que la impresión terminó.
+	 * @param source Impresor de documentos que realizó la impresión.
+	 * @param ok true si el documento se imprimió correctamente; false si
+	 * hubo error o la impresión fue cancelada antes de comenzar.
+	 */
+	public void printFinished(FiscalDocumentPrint source, boolean ok);
+}
@@ -0,0 +1,608 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.compiere.model.MInvoice;
+import org.compiere.model.MOrder;
+import org.compiere.model.MTable;
+import org.compiere.model.PO;
+import org.compiere.process.DocAction;
+import org.compiere.util.CLogger;
+import org.compiere.util.Env;
+
+import ar.com.ergio.model.FiscalDocumentPrint.Actions;
+
+/**
+ * Print queue of the fiscal printers. Every <code>LAR_Fiscal_Printer_ID</code>
+ * has one worker thread that runs the actions of {@link FiscalDocumentPrint}
+ * one at a time, so terminals of the same JVM sharing a printer wait in memory
+ * for their turn instead of polling the <code>Busy</code> status of the printer
+ * in the database (that status still serializes printing between JVMs).
+ * <p>
+ * Jobs are ordered by lane and then by arrival: {@link #LANE_POS} tickets are
+ * printed before any pending {@link #LANE_BACK_OFFICE} job. Queued jobs are
+ * reported to the {@link FiscalDocumentListener}s of the document print with
+ * {@link FiscalDocumentListener#AC_QUEUED}; from then on the usual callbacks of
+ * the action follow.
+ * <p>
+ * Document printing jobs are durable: they are written to the queue file of the
+ * printer (see {@link MFiscalPrinter#getQueueFile()}) and the jobs that were
+ * still waiting when the application stopped are queued again when the
+ * application calls {@link #restore(int, FiscalPrintCallback)} on startup;
+ * until then they are kept in the file. A restored job reads its document
+ * again and skips it if it was fiscally printed or voided in the meantime.
+ * Jobs that had already started are not printed again, since the printer
+ * journal resolves the document they may have left open; fiscal closes are
+ * never restored.
+ */
+public class FiscalPrintQueue
+{
+    /** Lane of the point of sale tickets */
+    public static final int LANE_POS = 0;
+    /** Lane of the back-office jobs (process printing, reprints, closes) */
+    public static final int LANE_BACK_OFFICE = 1;
+
+    private static CLogger log = CLogger.getCLogger(FiscalPrintQueue.class);
+
+    private static FiscalPrintQueue instance;
+
+    /** Name of the queue files; see {@link MFiscalPrinter#getQueueFile()} */
+    private static final Pattern QUEUE_FILE = Pattern.compile("printer-(\\d+)\\.queue");
+
+    /** Workers by LAR_Fiscal_Printer_ID */
+    private final Map<Integer, Worker> workers = new HashMap<Integer, Worker>();
+    /** Job ids; unique between runs, since they are kept in the queue files */
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+
+    public static synchronized FiscalPrintQueue getInstance()
+    {
+        if (instance == null) {
+            instance = new FiscalPrintQueue();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues the printing of a document.
+     *
+     * @param fdp document print whose listeners follow the job
+     * @param document <code>PO</code> that represents the document to print
+     * @param lane {@link #LANE_POS} or {@link #LANE_BACK_OFFICE}
+     * @return a future whose value is the result of
+     *         {@link FiscalDocumentPrint#printDocument(PO)}
+     */
+    public Future<Boolean> printDocument(final FiscalDocumentPrint fdp, final PO document, final int lane)
+    {
+        return printDocument(fdp, document, lane, null);
+    }
+
+    /**
+     * Queues the printing of a document, reporting its result to a callback
+     * when it ends, so the caller does not have to wait on the future.
+     *
+     * @param fdp document print whose listeners follow the job
+     * @param document <code>PO</code> that represents the document to print
+     * @param lane {@link #LANE_POS} or {@link #LANE_BACK_OFFICE}
+     * @param callback receives the result in the worker thread of the
+     *            printer, or null
+     * @return a future whose value is the result of
+     *         {@link FiscalDocumentPrint#printDocument(PO)}
+     */
+    public Future<Boolean> printDocument(final FiscalDocumentPrint fdp, final PO document, final int lane,
+            final FiscalPrintCallback callback)
+    {
+        if (document == null) {
+            throw new IllegalArgumentException("Error: the document is null");
+        }
+        final Request request = new Request(fdp.getLAR_Fiscal_Printer_ID(), Actions.ACTION_PRINT_DOCUMENT,
+                document.get_Table_ID(), document.get_ID(), null);
+        request.fdp = fdp;
+        request.document = document;
+        request.callback = callback;
+        return submit(request, lane);
+    }
+
+    /**
+     * Queues a fiscal close. Fiscal closes are not restored after a restart.
+     *
+     * @param fdp document print whose listeners follow the job
+     * @param closeType close type
+     * @param lane {@link #LANE_POS} or {@link #LANE_BACK_OFFICE}
+     * @return a future whose value is the result of
+     *         {@link FiscalDocumentPrint#fiscalClose(String)}
+     */
+    public Future<Boolean> fiscalClose(final FiscalDocumentPrint fdp, final String closeType, final int lane)
+    {
+        final Request request = new Request(fdp.getLAR_Fiscal_Printer_ID(), Actions.ACTION_FISCAL_CLOSE, 0, 0,
+                closeType);
+        request.fdp = fdp;
+        return submit(request, lane);
+    }
+
+    /**
+     * Queues the printing of the items pending delivery of an order.
+     *
+     * @param fdp document print whose listeners follow the job
+     * @param order order
+     * @param lane {@link #LANE_POS} or {@link #LANE_BACK_OFFICE}
+     * @return a future whose value is the result of
+     *         {@link FiscalDocumentPrint#printDeliveryDocument(MOrder)}
+     */
+    public Future<Boolean> printDeliveryDocument(final FiscalDocumentPrint fdp, final MOrder order, final int lane)
+    {
+        final Request request = new Request(fdp.getLAR_Fiscal_Printer_ID(),
+                Actions.ACTION_PRINT_DELIVERY_DOCUMENT, order.get_Table_ID(), order.get_ID(), null);
+        request.fdp = fdp;
+        request.document = order;
+        return submit(request, lane);
+    }
+
+    /**
+     * Queues again the jobs left in the queue file of the printer by a
+     * previous run. Each one reads its document again before printing and is
+     * skipped, ending ok, if the document was fiscally printed or voided.
+     *
+     * @param LAR_Fiscal_Printer_ID fiscal printer id
+     * @param callback receives the result of each restored job, or null
+     * @return number of jobs restored
+     */
+    public int restore(final int LAR_Fiscal_Printer_ID, final FiscalPrintCallback callback)
+    {
+        final Worker worker = getWorker(LAR_Fiscal_Printer_ID);
+        synchronized (worker.store) {
+            final int count = worker.pending.size();
+            for (final Request request : worker.pending) {
+                log.info("Restoring queued fiscal print job: " + request);
+                request.callback = callback;
+                worker.queue.add(new Job(worker, request, request.lane, request.id));
+            }
+            worker.pending.clear();
+            return count;
+        }
+    }
+
+    /**
+     * Restores the jobs of every printer with a queue file left by a
+     * previous run of this terminal.
+     *
+     * @param callback receives the result of each restored job, or null
+     * @return number of jobs restored
+     * @see #restore(int, FiscalPrintCallback)
+     */
+    public int restoreAll(final FiscalPrintCallback callback)
+    {
+        int count = 0;
+        final File[] files = MFiscalPrinter.getQueueDirectory().listFiles();
+        if (files == null) {
+            return count;
+        }
+        for (final File file : files) {
+            final Matcher matcher = QUEUE_FILE.matcher(file.getName());
+            if (matcher.matches() && file.length() > 0) {
+                count += restore(Integer.parseInt(matcher.group(1)), callback);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param LAR_Fiscal_Printer_ID fiscal printer id
+     * @return number of jobs waiting for the printer, without the running one
+     */
+    public int getQueueLength(final int LAR_Fiscal_Printer_ID)
+    {
+        final Worker worker;
+        synchronized (this) {
+            worker = workers.get(LAR_Fiscal_Printer_ID);
+        }
+        return worker == null ? 0 : worker.queue.size();
+    }
+
+    private Future<Boolean> submit(final Request request, final int lane)
+    {
+        final Worker worker = getWorker(request.LAR_Fiscal_Printer_ID);
+        final Job job = new Job(worker, request, lane, sequence.incrementAndGet());
+        // The listeners learn that the job waits before the worker may start it
+        if (request.fdp != null) {
+            for (final FiscalDocumentListener fdpl : request.fdp.getDocumentPrintListeners()) {
+                fdpl.actionStarted(request.fdp, FiscalDocumentListener.AC_QUEUED);
+            }
+        }
+        worker.enqueue(job);
+        return job;
+    }
+
+    private synchronized Worker getWorker(final int LAR_Fiscal_Printer_ID)
+    {
+        Worker worker = workers.get(LAR_Fiscal_Printer_ID);
+        if (worker == null) {
+            final File file = new MFiscalPrinter(Env.getCtx(), LAR_Fiscal_Printer_ID, null).getQueueFile();
+            worker = new Worker(LAR_Fiscal_Printer_ID, new JobStore(LAR_Fiscal_Printer_ID, file));
+            // Kept until restore() is called
+            worker.pending.addAll(worker.store.load());
+            workers.put(LAR_Fiscal_Printer_ID, worker);
+            final Thread thread = new Thread(worker, "FiscalPrintQueue-" + LAR_Fiscal_Printer_ID);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return worker;
+    }
+
+    /**
+     * Action of a job, with what is needed to run it again after a restart.
+     */
+    static class Request implements Callable<Boolean>
+    {
+        final int LAR_Fiscal_Printer_ID;
+        final Actions action;
+        final int AD_Table_ID;
+        final int Record_ID;
+        final String closeType;
+        /** Job id and lane; assigned when the job is queued or restored */
+        long id;
+        int lane;
+        /** Document print of the caller; null for restored jobs */
+        FiscalDocumentPrint fdp;
+        /** Document loaded by the caller; null for restored jobs */
+        PO document;
+        /** Receives the result of the job */
+        FiscalPrintCallback callback;
+        /** True if the job was queued by a previous run */
+        boolean restored;
+
+        Request(final int LAR_Fiscal_Printer_ID, final Actions action, final int AD_Table_ID,
+                final int Record_ID, final String closeType)
+        {
+            this.LAR_Fiscal_Printer_ID = LAR_Fiscal_Printer_ID;
+            this.action = action;
+            this.AD_Table_ID = AD_Table_ID;
+            this.Record_ID = Record_ID;
+            this.closeType = closeType;
+        }
+
+        public Boolean call() throws Exception
+        {
+            if (restored && !isPrintPending(getDocument())) {
+                log.info("Restored fiscal print job skipped, document printed or voided: " + this);
+                return Boolean.TRUE;
+            }
+            if (fdp == null) {
+                fdp = new FiscalDocumentPrint(LAR_Fiscal_Printer_ID);
+            }
+            switch (action) {
+            case ACTION_PRINT_DOCUMENT:
+                return Boolean.valueOf(fdp.printDocument(getDocument()));
+            case ACTION_FISCAL_CLOSE:
+                return Boolean.valueOf(fdp.fiscalClose(closeType));
+            case ACTION_PRINT_DELIVERY_DOCUMENT:
+                return Boolean.valueOf(fdp.printDeliveryDocument((MOrder) getDocument()));
+            default:
+                throw new IllegalStateException("Invalid action: " + action);
+            }
+        }
+
+        private PO getDocument()
+        {
+            if (document == null) {
+                document = MTable.get(Env.getCtx(), AD_Table_ID).getPO(Record_ID, null);
+            }
+            return document;
+        }
+
+        /**
+         * @param document document of the job, read again from the database
+         * @return false if the document was deleted, voided or, for invoices,
+         *         fiscally printed, so printing it again would duplicate it
+         */
+        static boolean isPrintPending(final PO document)
+        {
+            if (document == null || document.get_ID() <= 0) {
+                return false;
+            }
+            final String docStatus = document.get_ValueAsString("DocStatus");
+            if (DocAction.STATUS_Voided.equals(docStatus) || DocAction.STATUS_Reversed.equals(docStatus)) {
+                return false;
+            }
+            return !(document instanceof MInvoice && document.get_ValueAsBoolean("IsFiscalPrinted"));
+        }
+
+        /**
+         * @return true if the job can be run again after a restart
+         */
+        boolean isDurable()
+        {
+            return action != Actions.ACTION_FISCAL_CLOSE && AD_Table_ID > 0 && Record_ID > 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return action + " " + AD_Table_ID + "/" + Record_ID + " (job " + id + ", lane " + lane + ")";
+        }
+    }
+
+    /**
+     * Queued job: lower lanes first, then by arrival.
+     */
+    private static class Job extends FutureTask<Boolean> implements Comparable<Job>
+    {
+        final Worker worker;
+        final Request request;
+
+        Job(final Worker worker, final Request request, final int lane, final long id)
+        {
+            super(request);
+            this.worker = worker;
+            this.request = request;
+            request.lane = lane;
+            request.id = id;
+        }
+
+        public int compareTo(final Job other)
+        {
+            if (request.lane != other.request.lane) {
+                return request.lane < other.request.lane ? -1 : 1;
+            }
+            return request.id < other.request.id ? -1 : (request.id == other.request.id ? 0 : 1);
+        }
+
+        /**
+         * A running job is never interrupted: the printer would be left in the
+         * middle of a document.
+         */
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning)
+        {
+            return super.cancel(false);
+        }
+
+        @Override
+        protected void done()
+        {
+            if (isCancelled()) {
+                worker.cancelled(this);
+            }
+            if (request.callback == null) {
+                return;
+            }
+            boolean ok = false;
+            try {
+                ok = !isCancelled() && get().booleanValue();
+            } catch (Exception e) {
+                log.log(Level.SEVERE, "Fiscal print job failed: " + request, e);
+            }
+            // A failing callback must not stop the worker of the printer
+            try {
+                request.callback.printFinished(request.fdp, ok);
+            } catch (RuntimeException e) {
+                log.log(Level.SEVERE, "Fiscal print callback failed: " + request, e);
+            }
+        }
+    }
+
+    /**
+     * Worker of one printer: runs its jobs one at a time.
+     */
+    private static class Worker implements Runnable
+    {
+        final int LAR_Fiscal_Printer_ID;
+        final JobStore store;
+        final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<Job>();
+        /** Jobs of a previous run waiting for restore(); guarded by the store */
+        final List<Request> pending = new ArrayList<Request>();
+
+        Worker(final int LAR_Fiscal_Printer_ID, final JobStore store)
+        {
+            this.LAR_Fiscal_Printer_ID = LAR_Fiscal_Printer_ID;
+            this.store = store;
+        }
+
+        void enqueue(final Job job)
+        {
+            synchronized (store) {
+                store.queued(job.request);
+                queue.add(job);
+            }
+        }
+
+        void cancelled(final Job job)
+        {
+            synchronized (store) {
+                if (queue.remove(job)) {
+                    store.finished(job.request);
+                }
+            }
+        }
+
+        public void run()
+        {
+            while (true) {
+                final Job job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    log.warning("Fiscal print queue stopped: " + LAR_Fiscal_Printer_ID);
+                    return;
+                }
+                if (job.isDone()) {
+                    continue;
+                }
+                store.started(job.request);
+                job.run();
+                synchronized (store) {
+                    store.finished(job.request);
+                    if (queue.isEmpty() && pending.isEmpty()) {
+                        store.clear();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue file of a printer. Each line records an event of a job:
+     * <code>Q id lane action AD_Table_ID Record_ID</code> when it is queued,
+     * <code>S id</code> when it starts and <code>D id</code> when it ends or is
+     * cancelled. The file is truncated whenever the queue becomes empty. Write
+     * errors are logged and the queue keeps working in memory.
+     */
+    static class JobStore
+    {
+        private final int LAR_Fiscal_Printer_ID;
+        private final File file;
+
+        JobStore(final int LAR_Fiscal_Printer_ID, final File file)
+        {
+            this.LAR_Fiscal_Printer_ID = LAR_Fiscal_Printer_ID;
+            this.file = file;
+        }
+
+        /**
+         * @return the durable jobs that were queued and never started
+         */
+        synchronized List<Request> load()
+        {
+            final List<Request> pending = new ArrayList<Request>();
+            if (!file.exists()) {
+                return pending;
+            }
+            final Map<Long, Request> queued = new LinkedHashMap<Long, Request>();
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new FileReader(file));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final String[] fields = line.trim().split(" ");
+                    try {
+                        final Long id = Long.valueOf(fields[1]);
+                        if ("Q".equals(fields[0])) {
+                            final Request request = new Request(LAR_Fiscal_Printer_ID, Actions.valueOf(fields[3]),
+                                    Integer.parseInt(fields[4]), Integer.parseInt(fields[5]), null);
+                            request.id = id.longValue();
+                            request.lane = Integer.parseInt(fields[2]);
+                            request.restored = true;
+                            queued.put(id, request);
+                        } else if ("S".equals(fields[0])) {
+                            final Request request = queued.remove(id);
+                            if (request != null) {
+                                log.warning("Fiscal print job interrupted, not printed again: " + request);
+                            }
+                        } else if ("D".equals(fields[0])) {
+                            queued.remove(id);
+                        }
+                    } catch (RuntimeException e) {
+                        // Truncated or invalid line: ignored
+                        log.fine("Invalid fiscal print queue entry: " + line);
+                    }
+                }
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Cannot read fiscal print queue: " + file, e);
+            } finally {
+                if (reader != null) {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }
+            }
+            pending.addAll(queued.values());
+            clear();
+            for (final Request request : pending) {
+                queued(request);
+            }
+            return pending;
+        }
+
+        synchronized void queued(final Request request)
+        {
+            if (request.isDurable()) {
+                write("Q " + request.id + " " + request.lane + " " + request.action + " "
+                        + request.AD_Table_ID + " " + request.Record_ID, true);
+            }
+        }
+
+        synchronized void started(final Request request)
+        {
+            // Synced before printing: a started job is never printed twice
+            if (request.isDurable()) {
+                write("S " + request.id, true);
+            }
+        }
+
+        synchronized void finished(final Request request)
+        {
+            if (request.isDurable()) {
+                write("D " + request.id, false);
+            }
+        }
+
+        synchronized void clear()
+        {
+            if (file.exists() && file.length() > 0) {
+                write(null, false);
+            }
+        }
+
+        /**
+         * Appends a line to the file, or truncates it when the line is null.
+         */
+        private void write(final String line, final boolean sync)
+        {
+            FileOutputStream out = null;
+            try {
+                file.getParentFile().mkdirs();
+                out = new FileOutputStream(file, line != null);
+                if (line != null) {
+                    out.write((line + "\n").getBytes("US-ASCII"));
+                }
+                if (sync) {
+                    out.getFD().sync();
+                }
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Cannot write fiscal print queue: " + file, e);
+            } finally {
+                if (out != null) {
+                    try {
+                        out.close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+    }
+}
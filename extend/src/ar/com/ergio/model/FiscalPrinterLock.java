@@ -0,0 +1,560 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+
+/**
+ * Exclusive use of a fiscal printer between threads and between JVMs, replacing
+ * the polling of the <code>Busy</code> status of <code>LAR_Fiscal_Printer</code>.
+ * <p>
+ * The holder of the printer owns a <em>lease</em> recorded in the printer row:
+ * the status is set to <code>Busy</code> by a conditional update that only
+ * succeeds when the printer is not busy or the lease of the previous holder
+ * expired (<code>LeaseExpires</code>), and the <code>LockToken</code> column is
+ * incremented. The new token is the fencing token of the lease: renewals and
+ * the release only apply to the row while it keeps that token, so a client that
+ * stalled past its lease cannot overwrite the status of the next holder. The
+ * lease is renewed in background while it is held, and the lease of a crashed
+ * client expires on its own after <code>LAR_FiscalPrinter_LockLease</code>
+ * seconds.
+ * <p>
+ * Waiters do not poll. Threads of the same JVM queue in a fair lock, and
+ * between JVMs the holder also takes a database advisory lock
+ * (<code>pg_advisory_lock</code> on PostgreSQL, <code>DBMS_LOCK</code> on
+ * Oracle) on a dedicated connection, so waiters blocked in the database wake up
+ * as soon as it is released, or when the session of a crashed holder ends.
+ * Without advisory locks (no grants on <code>DBMS_LOCK</code>, other databases)
+ * waiters sleep until the lease of the holder expires.
+ * <p>
+ * The lease timestamps are taken from the clock of each client, so terminals
+ * are expected to keep their clocks in sync well below the lease time.
+ */
+public class FiscalPrinterLock
+{
+    /** System configurator: seconds of a lease not renewed before it expires */
+    public static final String SYSCONFIG_LEASE_TIME = "LAR_FiscalPrinter_LockLease";
+    /** Default lease time (seconds) */
+    private static final int DEFAULT_LEASE_TIME = 120;
+    /** Longest single wait (mls) in the database, so interrupts are noticed */
+    private static final long WAIT_SLICE = 5000;
+    /** Shortest wait (mls) for a lease to expire, so an expired one does not spin */
+    static final long MIN_WAIT_SLICE = 200;
+    /** First key of the PostgreSQL advisory lock: AD_Table_ID of LAR_Fiscal_Printer */
+    private static final int ADVISORY_CLASS_ID = 3000001;
+    /** Base of the Oracle DBMS_LOCK ids */
+    private static final int ADVISORY_ORACLE_BASE = 1000000000;
+
+    private static final String SQL_ACQUIRE = "UPDATE LAR_Fiscal_Printer"
+            + " SET Status=?, LockToken=COALESCE(LockToken,0)+1, LeaseExpires=?, Operation_Date=?, Updated=?"
+            + " WHERE LAR_Fiscal_Printer_ID=? AND (Status<>? OR LeaseExpires<?"
+            // Busy status set without lease by earlier versions
+            + " OR (LeaseExpires IS NULL AND (Operation_Date IS NULL OR Operation_Date<?)))";
+    private static final String SQL_RENEW = "UPDATE LAR_Fiscal_Printer SET LeaseExpires=?"
+            + " WHERE LAR_Fiscal_Printer_ID=? AND LockToken=?";
+    private static final String SQL_RELEASE = "UPDATE LAR_Fiscal_Printer SET Status=?, LeaseExpires=NULL, Updated=?"
+            + " WHERE LAR_Fiscal_Printer_ID=? AND LockToken=?";
+
+    private static CLogger log = CLogger.getCLogger(FiscalPrinterLock.class);
+
+    private static FiscalPrinterLock instance;
+
+    /** Locks by LAR_Fiscal_Printer_ID */
+    private final Map<Integer, PrinterLock> locks = new HashMap<Integer, PrinterLock>();
+    /** Lease renewer, started on first use */
+    private ScheduledExecutorService renewer;
+    /** Whether the database supports the advisory locks; cleared on the first failure */
+    private volatile boolean advisorySupported = DB.isPostgreSQL() || DB.isOracle();
+
+    public static synchronized FiscalPrinterLock getInstance()
+    {
+        if (instance == null) {
+            instance = new FiscalPrinterLock();
+        }
+        return instance;
+    }
+
+    /**
+     * Takes the printer if it is free, without waiting.
+     *
+     * @param fiscalPrinter fiscal printer configuration
+     * @return the lease, or null if the printer is in use
+     */
+    public Lease tryAcquire(final MFiscalPrinter fiscalPrinter)
+    {
+        try {
+            return acquire(fiscalPrinter, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Takes the printer, waiting up to the timeout for the current holder to
+     * release it or for its lease to expire. Every lease must be released with
+     * {@link #release(Lease, String)} from the same thread.
+     *
+     * @param fiscalPrinter fiscal printer configuration
+     * @param timeout longest wait (mls)
+     * @return the lease, or null if the timeout elapsed
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public Lease acquire(final MFiscalPrinter fiscalPrinter, final long timeout) throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + timeout;
+        final PrinterLock printerLock = getPrinterLock(fiscalPrinter.getLAR_Fiscal_Printer_ID());
+        if (!printerLock.lock.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        boolean acquired = false;
+        try {
+            final long leaseTime = getLeaseTime(fiscalPrinter);
+            while (true) {
+                final boolean advisory = lockAdvisory(printerLock,
+                        Math.min(Math.max(deadline - System.currentTimeMillis(), 0), WAIT_SLICE));
+                final Lease lease = tryLease(printerLock, leaseTime);
+                if (lease != null) {
+                    lease.advisory = advisory;
+                    acquired = true;
+                    return lease;
+                }
+                long wait = Math.min(deadline - System.currentTimeMillis(), WAIT_SLICE);
+                if (advisory) {
+                    // The holder left the lease without the advisory lock (it crashed):
+                    // the lease expires on its own
+                    unlockAdvisory(printerLock);
+                    wait = getExpiryWait(wait, getLeaseExpiry(printerLock, leaseTime), System.currentTimeMillis());
+                } else if (advisorySupported) {
+                    // The advisory lock wait already took its time
+                    wait = 0;
+                }
+                if (deadline - System.currentTimeMillis() <= 0) {
+                    return null;
+                }
+                if (wait > 0) {
+                    Thread.sleep(wait);
+                } else if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            if (!acquired) {
+                printerLock.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Releases the printer leaving it with the given status. If the lease was
+     * lost the row is not modified.
+     *
+     * @param lease lease returned by {@link #acquire(MFiscalPrinter, long)}
+     * @param status new status of the printer
+     */
+    public void release(final Lease lease, final String status)
+    {
+        final PrinterLock printerLock = getPrinterLock(lease.LAR_Fiscal_Printer_ID);
+        try {
+            if (lease.renewal != null) {
+                lease.renewal.cancel(false);
+            }
+            final Timestamp now = new Timestamp(System.currentTimeMillis());
+            final int updated = DB.executeUpdateEx(SQL_RELEASE,
+                    new Object[] { status, now, lease.LAR_Fiscal_Printer_ID, lease.token }, null);
+            if (updated == 0) {
+                log.warning("Fiscal printer lease lost before release: " + lease);
+            }
+        } catch (RuntimeException e) {
+            log.log(Level.SEVERE, "Cannot release fiscal printer lease: " + lease, e);
+        } finally {
+            lease.released = true;
+            if (lease.advisory) {
+                unlockAdvisory(printerLock);
+            }
+            if (printerLock.lock.isHeldByCurrentThread()) {
+                printerLock.lock.unlock();
+            }
+        }
+    }
+
+    private synchronized PrinterLock getPrinterLock(final int LAR_Fiscal_Printer_ID)
+    {
+        PrinterLock printerLock = locks.get(LAR_Fiscal_Printer_ID);
+        if (printerLock == null) {
+            printerLock = new PrinterLock(LAR_Fiscal_Printer_ID);
+            locks.put(LAR_Fiscal_Printer_ID, printerLock);
+        }
+        return printerLock;
+    }
+
+    private long getLeaseTime(final MFiscalPrinter fiscalPrinter)
+    {
+        return MSysConfig.getIntValue(SYSCONFIG_LEASE_TIME, DEFAULT_LEASE_TIME,
+                fiscalPrinter.getAD_Client_ID()) * 1000L;
+    }
+
+    /**
+     * Sets the lease in the printer row if the printer is free.
+     *
+     * @return the lease, or null if another client holds the printer
+     */
+    private Lease tryLease(final PrinterLock printerLock, final long leaseTime)
+    {
+        final long now = System.currentTimeMillis();
+        final Timestamp ts = new Timestamp(now);
+        final int id = printerLock.LAR_Fiscal_Printer_ID;
+        final int updated = DB.executeUpdateEx(SQL_ACQUIRE, new Object[] { MFiscalPrinter.STATUS_Busy,
+                new Timestamp(now + leaseTime), ts, ts, id, MFiscalPrinter.STATUS_Busy, ts,
+                new Timestamp(now - leaseTime) }, null);
+        if (updated == 0) {
+            return null;
+        }
+        final int token = DB.getSQLValueEx(null,
+                "SELECT LockToken FROM LAR_Fiscal_Printer WHERE LAR_Fiscal_Printer_ID=?", id);
+        final Lease lease = new Lease(id, token, now + leaseTime);
+        // Every lease increments the token: a gap means another holder
+        lease.handedOver = token != printerLock.lastToken + 1;
+        printerLock.lastToken = token;
+        startRenewal(lease, leaseTime);
+        return lease;
+    }
+
+    /**
+     * @return expiry of the lease currently set in the printer row
+     */
+    private long getLeaseExpiry(final PrinterLock printerLock, final long leaseTime)
+    {
+        final String sql = "SELECT LeaseExpires, Operation_Date FROM LAR_Fiscal_Printer"
+                + " WHERE LAR_Fiscal_Printer_ID=?";
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = DB.prepareStatement(sql, null);
+            pstmt.setInt(1, printerLock.LAR_Fiscal_Printer_ID);
+            rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return getLeaseExpiry(rs.getTimestamp(1), rs.getTimestamp(2), leaseTime);
+            }
+        } catch (SQLException e) {
+            log.log(Level.WARNING, sql, e);
+        } finally {
+            DB.close(rs, pstmt);
+        }
+        return 0;
+    }
+
+    /**
+     * Expiry of the lease of a printer row. A <code>Busy</code> status without
+     * lease, set by earlier versions, expires a lease time after it was set,
+     * as {@link #SQL_ACQUIRE} considers it.
+     *
+     * @param leaseExpires <code>LeaseExpires</code> of the row
+     * @param operationDate <code>Operation_Date</code> of the row
+     * @param leaseTime lease time (mls)
+     * @return expiry (mls), or 0 if the row has no date
+     */
+    static long getLeaseExpiry(final Timestamp leaseExpires, final Timestamp operationDate, final long leaseTime)
+    {
+        if (leaseExpires != null) {
+            return leaseExpires.getTime();
+        }
+        return operationDate == null ? 0 : operationDate.getTime() + leaseTime;
+    }
+
+    /**
+     * Wait for the lease of a holder that left without the advisory lock. At
+     * least {@link #MIN_WAIT_SLICE}, since a lease that looks expired (clock
+     * skew, row changed meanwhile) would otherwise make the caller spin.
+     *
+     * @param wait longest wait allowed (mls)
+     * @param expiry expiry of the lease (mls)
+     * @param now current time (mls)
+     * @return wait (mls)
+     */
+    static long getExpiryWait(final long wait, final long expiry, final long now)
+    {
+        return Math.min(wait, Math.max(expiry - now, MIN_WAIT_SLICE));
+    }
+
+    private synchronized void startRenewal(final Lease lease, final long leaseTime)
+    {
+        if (renewer == null) {
+            renewer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(final Runnable r)
+                {
+                    final Thread t = new Thread(r, "FiscalPrinterLock-Renewer");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        final long period = Math.max(leaseTime / 3, 1000);
+        lease.renewal = renewer.scheduleWithFixedDelay(new Runnable() {
+            public void run()
+            {
+                renew(lease, leaseTime);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew(final Lease lease, final long leaseTime)
+    {
+        if (lease.released || lease.lost) {
+            return;
+        }
+        final long expires = System.currentTimeMillis() + leaseTime;
+        try {
+            final int updated = DB.executeUpdateEx(SQL_RENEW,
+                    new Object[] { new Timestamp(expires), lease.LAR_Fiscal_Printer_ID, lease.token }, null);
+            if (updated == 0) {
+                lease.lost = true;
+                log.warning("Fiscal printer lease lost: " + lease);
+            } else {
+                lease.expires = expires;
+            }
+        } catch (RuntimeException e) {
+            // The lease keeps its current expiry; the next renewal retries
+            log.log(Level.WARNING, "Cannot renew fiscal printer lease: " + lease, e);
+        }
+    }
+
+    /**
+     * Takes the database advisory lock of the printer, waiting up to the timeout.
+     *
+     * @return true if the lock was taken; false on timeout or if advisory
+     *         locks are not available
+     */
+    private boolean lockAdvisory(final PrinterLock printerLock, final long timeout)
+    {
+        if (!advisorySupported) {
+            return false;
+        }
+        try {
+            final Connection conn = printerLock.getConnection();
+            if (DB.isPostgreSQL()) {
+                return lockPostgreSQL(conn, printerLock.LAR_Fiscal_Printer_ID, timeout);
+            }
+            return lockOracle(conn, printerLock.LAR_Fiscal_Printer_ID, timeout);
+        } catch (SQLException e) {
+            // Lock wait cancelled by the statement timeout
+            if ("57014".equals(e.getSQLState())) {
+                return false;
+            }
+            log.log(Level.WARNING, "Database advisory locks not available, waiting on leases", e);
+            advisorySupported = false;
+            printerLock.closeConnection();
+            return false;
+        }
+    }
+
+    private boolean lockPostgreSQL(final Connection conn, final int id, final long timeout) throws SQLException
+    {
+        final PreparedStatement pstmt;
+        if (timeout <= 0) {
+            pstmt = conn.prepareStatement("SELECT pg_try_advisory_lock(?,?)");
+        } else {
+            setStatementTimeout(conn, timeout);
+            pstmt = conn.prepareStatement("SELECT pg_advisory_lock(?,?)");
+        }
+        try {
+            pstmt.setInt(1, ADVISORY_CLASS_ID);
+            pstmt.setInt(2, id);
+            final ResultSet rs = pstmt.executeQuery();
+            // pg_advisory_lock returns once the lock is granted
+            return rs.next() && (timeout > 0 || rs.getBoolean(1));
+        } finally {
+            pstmt.close();
+            if (timeout > 0) {
+                setStatementTimeout(conn, 0);
+            }
+        }
+    }
+
+    private void setStatementTimeout(final Connection conn, final long timeout) throws SQLException
+    {
+        final Statement stmt = conn.createStatement();
+        try {
+            stmt.execute("SET statement_timeout = " + timeout);
+        } finally {
+            stmt.close();
+        }
+    }
+
+    private boolean lockOracle(final Connection conn, final int id, final long timeout) throws SQLException
+    {
+        final CallableStatement cstmt = conn.prepareCall("DECLARE r INTEGER; BEGIN"
+                + " r := DBMS_LOCK.REQUEST(?, DBMS_LOCK.X_MODE, ?, FALSE); ? := r; END;");
+        try {
+            cstmt.setInt(1, ADVISORY_ORACLE_BASE + id);
+            cstmt.setInt(2, (int) ((timeout + 999) / 1000));
+            cstmt.registerOutParameter(3, Types.INTEGER);
+            cstmt.execute();
+            final int result = cstmt.getInt(3);
+            // 0: granted, 4: already owned by the session
+            return result == 0 || result == 4;
+        } finally {
+            cstmt.close();
+        }
+    }
+
+    private void unlockAdvisory(final PrinterLock printerLock)
+    {
+        try {
+            final Connection conn = printerLock.getConnection();
+            final PreparedStatement pstmt;
+            if (DB.isPostgreSQL()) {
+                pstmt = conn.prepareStatement("SELECT pg_advisory_unlock(?,?)");
+                pstmt.setInt(1, ADVISORY_CLASS_ID);
+                pstmt.setInt(2, printerLock.LAR_Fiscal_Printer_ID);
+            } else {
+                pstmt = conn.prepareCall("DECLARE r INTEGER; BEGIN r := DBMS_LOCK.RELEASE(?); END;");
+                pstmt.setInt(1, ADVISORY_ORACLE_BASE + printerLock.LAR_Fiscal_Printer_ID);
+            }
+            try {
+                pstmt.execute();
+            } finally {
+                pstmt.close();
+            }
+        } catch (SQLException e) {
+            // Closing the session releases the lock
+            log.log(Level.WARNING, "Cannot release advisory lock, closing its connection", e);
+            printerLock.closeConnection();
+        }
+    }
+
+    /**
+     * Lease of a fiscal printer.
+     */
+    public static class Lease
+    {
+        private final int LAR_Fiscal_Printer_ID;
+        private final int token;
+        private volatile long expires;
+        private volatile boolean lost = false;
+        private volatile boolean released = false;
+        /** Whether the holder also took the advisory lock */
+        private boolean advisory;
+        /** Whether another client held the printer since the previous lease of this JVM */
+        private boolean handedOver;
+        private ScheduledFuture<?> renewal;
+
+        Lease(final int LAR_Fiscal_Printer_ID, final int token, final long expires)
+        {
+            this.LAR_Fiscal_Printer_ID = LAR_Fiscal_Printer_ID;
+            this.token = token;
+            this.expires = expires;
+        }
+
+        /**
+         * @return fencing token; greater than the token of every previous lease
+         *         of the printer
+         */
+        public int getToken()
+        {
+            return token;
+        }
+
+        /**
+         * @return true if another client (another JVM, or a lease that this
+         *         JVM did not see) held the printer since the previous lease
+         *         taken by this JVM, so the state the driver keeps of the
+         *         printer may be stale
+         */
+        public boolean isHandedOver()
+        {
+            return handedOver;
+        }
+
+        /**
+         * @return true if the lease is still held: not released, not taken
+         *         over by another client and not expired
+         */
+        public boolean isValid()
+        {
+            return !released && !lost && System.currentTimeMillis() < expires;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Lease[" + LAR_Fiscal_Printer_ID + ", token=" + token + ", expires=" + new Timestamp(expires)
+                    + (lost ? ", lost" : "") + "]";
+        }
+    }
+
+    /**
+     * In-JVM lock of a printer and the connection that holds its advisory lock.
+     * The connection is only used by the thread holding the in-JVM lock.
+     */
+    private static class PrinterLock
+    {
+        final int LAR_Fiscal_Printer_ID;
+        final ReentrantLock lock = new ReentrantLock(true);
+        /** Token of the last lease taken by this JVM; only used by the holder */
+        int lastToken;
+        private Connection conn;
+
+        PrinterLock(final int LAR_Fiscal_Printer_ID)
+        {
+            this.LAR_Fiscal_Printer_ID = LAR_Fiscal_Printer_ID;
+        }
+
+        Connection getConnection() throws SQLException
+        {
+            if (conn == null || conn.isClosed()) {
+                conn = DB.createConnection(true, Connection.TRANSACTION_READ_COMMITTED);
+                if (conn == null) {
+                    throw new SQLException("No database connection");
+                }
+            }
+            return conn;
+        }
+
+        void closeConnection()
+        {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    // ignore
+                }
+                conn = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+import org.compiere.util.DB;
+
+import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
+import ar.com.ergio.print.fiscal.FiscalPrinterHealth;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
+
+/**
+ * Keeps an in-memory snapshot of the device status (paper, cover, open
+ * document, fiscal memory) of the fiscal printers used by this client, so a
+ * print can fail fast, or the caller route it to another printer, before the
+ * customer's ticket is opened.
+ * <p>
+ * A background daemon sends a status request every
+ * <code>LAR_FiscalPrinter_MonitorInterval</code> seconds to each watched
+ * printer, over its idle pooled connection (see {@link FiscalPrinterPool}).
+ * The monitor never opens connections of its own, and it only queries a
+ * printer that is idle: it skips the printer while its row is
+ * <code>Busy</code> (another terminal holds the lease) or its pooled device is
+ * in use in this JVM. The probe is read-only: it neither takes the lease nor
+ * writes the status of the printer, so it costs no database writes. A value
+ * of 0 disables the heartbeats.
+ * <p>
+ * Snapshots older than {@value #MAX_AGE_INTERVALS} intervals are discarded, so
+ * a stale snapshot never blocks a print: it falls back to the usual flow, where
+ * the printer reports its status on the first command.
+ */
+public class FiscalPrinterMonitor
+{
+    /** System configurator: seconds between status requests to an idle printer */
+    public static final String SYSCONFIG_INTERVAL = "LAR_FiscalPrinter_MonitorInterval";
+    /** Default interval (seconds) */
+    private static final int DEFAULT_INTERVAL = 60;
+    /** Intervals after which a snapshot is no longer trusted */
+    private static final int MAX_AGE_INTERVALS = 3;
+    /** Scheduler period (seconds) */
+    private static final int TICK = 10;
+
+    private static CLogger log = CLogger.getCLogger(FiscalPrinterMonitor.class);
+
+    private static FiscalPrinterMonitor instance;
+
+    /** Watched printers by LAR_Fiscal_Printer_ID */
+    private final Map<Integer, WatchedPrinter> printers = new HashMap<Integer, WatchedPrinter>();
+    /** Heartbeat scheduler, started on the first watched printer */
+    private ScheduledExecutorService scheduler;
+
+    public static synchronized FiscalPrinterMonitor getInstance()
+    {
+        if (instance == null) {
+            instance = new FiscalPrinterMonitor();
+        }
+        return instance;
+    }
+
+    /**
+     * Adds the printer to the monitored printers. The monitor keeps its own
+     * copy of the configuration, so the instance parameter can be used by
+     * the caller meanwhile.
+     *
+     * @param fiscalPrinter fiscal printer configuration
+     */
+    public void watch(final MFiscalPrinter fiscalPrinter)
+    {
+        final int id = fiscalPrinter.getLAR_Fiscal_Printer_ID();
+        synchronized (this) {
+            if (printers.containsKey(id)) {
+                return;
+            }
+        }
+        final WatchedPrinter watched = new WatchedPrinter(new MFiscalPrinter(fiscalPrinter.getCtx(), id, null));
+        synchronized (this) {
+            if (!printers.containsKey(id)) {
+                printers.put(id, watched);
+            }
+            startScheduler();
+        }
+    }
+
+    /**
+     * Stops monitoring the printer and forgets its snapshot.
+     *
+     * @param LAR_Fiscal_Printer_ID fiscal printer id
+     */
+    public synchronized void unwatch(final int LAR_Fiscal_Printer_ID)
+    {
+        printers.remove(LAR_Fiscal_Printer_ID);
+    }
+
+    /**
+     * @param LAR_Fiscal_Printer_ID fiscal printer id
+     * @return the last status of the printer, or null if it is unknown or too old
+     */
+    public FiscalPrinterHealth getHealth(final int LAR_Fiscal_Printer_ID)
+    {
+        final WatchedPrinter watched;
+        synchronized (this) {
+            watched = printers.get(LAR_Fiscal_Printer_ID);
+        }
+        if (watched == null) {
+            return null;
+        }
+        final FiscalPrinterHealth health = watched.health;
+        if (health == null
+                || System.currentTimeMillis() - health.getTime() > MAX_AGE_INTERVALS * watched.interval) {
+            return null;
+        }
+        return health;
+    }
+
+    /**
+     * Whether the printer can take a print, according to its last status. An
+     * unknown status counts as available.
+     *
+     * @param LAR_Fiscal_Printer_ID fiscal printer id
+     * @return false if the last status shows a condition that prevents printing
+     */
+    public boolean isAvailable(final int LAR_Fiscal_Printer_ID)
+    {
+        final FiscalPrinterHealth health = getHealth(LAR_Fiscal_Printer_ID);
+        return health == null || !health.isBlocking();
+    }
+
+    /**
+     * Confirms the last status of a printer about to print. When the snapshot
+     * shows a condition that prevents printing the device is queried again,
+     * since the condition may have been fixed since the last heartbeat;
+     * otherwise the device is not queried.
+     *
+     * @param fiscalPrinter fiscal printer configuration
+     * @param device connected device, held by the caller
+     * @return the current status, or null if it is unknown
+     * @throws FiscalPrinterIOException if the status query fails
+     */
+    public FiscalPrinterHealth verify(final MFiscalPrinter fiscalPrinter, final FiscalPrinterDevice device)
+            throws FiscalPrinterIOException
+    {
+        final int id = fiscalPrinter.getLAR_Fiscal_Printer_ID();
+        final FiscalPrinterHealth health = getHealth(id);
+        if (health == null || !health.isBlocking()) {
+            return health;
+        }
+        final FiscalPrinterHealth current = device.checkHealth();
+        record(id, current);
+        return current;
+    }
+
+    private synchronized void record(final int LAR_Fiscal_Printer_ID, final FiscalPrinterHealth health)
+    {
+        final WatchedPrinter watched = printers.get(LAR_Fiscal_Printer_ID);
+        if (watched != null) {
+            watched.health = health;
+        }
+    }
+
+    private synchronized void startScheduler()
+    {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(final Runnable r)
+            {
+                final Thread t = new Thread(r, "FiscalPrinterMonitor");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run()
+            {
+                heartbeat();
+            }
+        }, TICK, TICK, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queries the printers whose interval elapsed since their last heartbeat.
+     */
+    private void heartbeat()
+    {
+        final WatchedPrinter[] watchedPrinters;
+        synchronized (this) {
+            watchedPrinters = printers.values().toArray(new WatchedPrinter[printers.size()]);
+        }
+        for (final WatchedPrinter watched : watchedPrinters) {
+            // An exception would cancel the scheduled heartbeats
+            try {
+                heartbeat(watched);
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Fiscal printer heartbeat failed: " + watched.fiscalPrinter.getName(), e);
+            }
+        }
+    }
+
+    private void heartbeat(final WatchedPrinter watched)
+    {
+        final MFiscalPrinter fiscalPrinter = watched.fiscalPrinter;
+        final long now = System.currentTimeMillis();
+        final int interval = MSysConfig.getIntValue(SYSCONFIG_INTERVAL, DEFAULT_INTERVAL,
+                fiscalPrinter.getAD_Client_ID());
+        if (interval <= 0) {
+            watched.health = null;
+            return;
+        }
+        watched.interval = interval * 1000L;
+        if (now - watched.lastHeartbeat < watched.interval) {
+            return;
+        }
+        watched.lastHeartbeat = now;
+
+        final FiscalPrinterPool pool = FiscalPrinterPool.getInstance();
+        if (!pool.hasIdleConnection(fiscalPrinter)) {
+            return;
+        }
+        // Another terminal is printing: its status request would wait for it
+        final String status = DB.getSQLValueString(null,
+                "SELECT Status FROM LAR_Fiscal_Printer WHERE LAR_Fiscal_Printer_ID=?",
+                fiscalPrinter.getLAR_Fiscal_Printer_ID());
+        if (MFiscalPrinter.STATUS_Busy.equals(status)) {
+            return;
+        }
+        try {
+            // Skipped if a print of this JVM took the device meanwhile
+            final FiscalPrinterHealth health = pool.checkIdleHealth(fiscalPrinter);
+            if (health != null) {
+                if (health.isBlocking()) {
+                    log.warning("Fiscal printer cannot print: " + fiscalPrinter.getName() + " " + health);
+                }
+                watched.health = health;
+            }
+        } catch (FiscalPrinterIOException e) {
+            log.log(Level.WARNING, "Fiscal printer status request failed: " + fiscalPrinter.getName(), e);
+            watched.health = null;
+        }
+    }
+
+    /**
+     * Monitored printer: own copy of the configuration and last snapshot.
+     */
+    private static class WatchedPrinter
+    {
+        final MFiscalPrinter fiscalPrinter;
+        volatile FiscalPrinterHealth health;
+        volatile long interval = DEFAULT_INTERVAL * 1000L;
+        long lastHeartbeat = 0;
+
+        WatchedPrinter(final MFiscalPrinter fiscalPrinter)
+        {
+            this.fiscalPrinter = fiscalPrinter;
+        }
+    }
+}
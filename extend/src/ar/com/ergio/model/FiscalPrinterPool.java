@@ -0,0 +1,425 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import org.compiere.model.MSysConfig;
+import org.compiere.util.CLogger;
+
+import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
+import ar.com.ergio.print.fiscal.FiscalPrinterHealth;
+import ar.com.ergio.print.fiscal.FiscalPrinterListener;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
+import ar.com.ergio.print.fiscal.journal.DocumentRecovery;
+
+/**
+ * Keeps one warm fiscal printer device (driver instance plus open spooler
+ * connection) per <code>LAR_Fiscal_Printer_ID</code>, so consecutive actions
+ * of {@link FiscalDocumentPrint} neither reinstantiate the driver nor reopen
+ * the TCP session.
+ * <p>
+ * A device is used by one action at a time: {@link #acquire(MFiscalPrinter)}
+ * locks it, checks the connection health and reconnects when needed, and
+ * {@link #release(MFiscalPrinter, boolean)} unlocks it leaving the connection
+ * open. Connections idle for more than <code>LAR_FiscalPrinter_PoolIdleTimeout</code>
+ * seconds are closed by a background evictor; a value of 0 disables pooling and
+ * the connection is closed after every action, as before.
+ * <p>
+ * The first time a device connects, the document that a previous crash may
+ * have left open in the printer is resolved from the printer journal (see
+ * {@link FiscalPrinterDevice#recoverDocument()}).
+ */
+public class FiscalPrinterPool
+{
+    /** System configurator: idle seconds before closing a pooled connection */
+    public static final String SYSCONFIG_IDLE_TIMEOUT = "LAR_FiscalPrinter_PoolIdleTimeout";
+    /** Default idle timeout (seconds) */
+    private static final int DEFAULT_IDLE_TIMEOUT = 300;
+    /** Evictor period (seconds) */
+    private static final int EVICTION_PERIOD = 30;
+
+    private static CLogger log = CLogger.getCLogger(FiscalPrinterPool.class);
+
+    private static FiscalPrinterPool instance;
+
+    /** Pooled devices by LAR_Fiscal_Printer_ID */
+    private final Map<Integer, PooledDevice> devices = new HashMap<Integer, PooledDevice>();
+    /**
+     * Devices locked by the current thread, by LAR_Fiscal_Printer_ID. The
+     * entry in {@link #devices} may be replaced while it is held, so release
+     * unlocks the exact instance acquired.
+     */
+    private final ThreadLocal<Map<Integer, PooledDevice>> held = new ThreadLocal<Map<Integer, PooledDevice>>() {
+        @Override
+        protected Map<Integer, PooledDevice> initialValue()
+        {
+            return new HashMap<Integer, PooledDevice>();
+        }
+    };
+    /** Idle connection evictor, started on first use */
+    private ScheduledExecutorService evictor;
+
+    public static synchronized FiscalPrinterPool getInstance()
+    {
+        if (instance == null) {
+            instance = new FiscalPrinterPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the pooled device of the fiscal printer, creating it if it does
+     * not exist or if the printer configuration changed (see
+     * {@link MFiscalPrinter#getDeviceConfigKey()}). The device is not
+     * connected nor locked.
+     *
+     * @param fiscalPrinter fiscal printer configuration
+     * @return driver instance for the printer
+     * @throws Exception if the driver cannot be instantiated
+     */
+    public FiscalPrinterDevice getDevice(final MFiscalPrinter fiscalPrinter) throws Exception
+    {
+        return getPooledDevice(fiscalPrinter).device;
+    }
+
+    /**
+     * Locks the printer device for the caller and makes sure it has a live
+     * connection, reconnecting it when the spooler closed the previous one.
+     * Every successful call must be paired with a call to
+     * {@link #release(MFiscalPrinter, boolean)} from the same thread.
+     *
+     * @param fiscalPrinter fiscal printer configuration
+     * @return connected device
+     * @throws Exception if the driver cannot be instantiated or the connection fails
+     */
+    public FiscalPrinterDevice acquire(final MFiscalPrinter fiscalPrinter) throws Exception
+    {
+        PooledDevice pooled = getPooledDevice(fiscalPrinter);
+        pooled.lock.lock();
+        // The configuration may have changed while waiting for the lock: the
+        // replaced device is closed, as its previous holder left it
+        while (!isCurrent(fiscalPrinter, pooled)) {
+            try {
+                closeQuietly(pooled.device);
+            } finally {
+                pooled.lock.unlock();
+            }
+            pooled = getPooledDevice(fiscalPrinter);
+            pooled.lock.lock();
+        }
+        try {
+            final FiscalPrinterDevice device = pooled.device;
+            if (device.isConnected() && !device.getFiscalComm().isAlive()) {
+                log.info("Pooled connection is not alive, reconnecting: " + fiscalPrinter.getName());
+                closeQuietly(device);
+            }
+            if (!device.isConnected()) {
+                log.info("connecting to fiscal device");
+                device.connect();
+            }
+            if (!pooled.recovered) {
+                pooled.recovered = recoverDocument(fiscalPrinter, device);
+            }
+            held.get().put(fiscalPrinter.getLAR_Fiscal_Printer_ID(), pooled);
+            return device;
+        } catch (Exception e) {
+            pooled.lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the printer device locked by {@link #acquire(MFiscalPrinter)}.
+     * If the configuration of the printer changed while it was held, the
+     * device is no longer pooled and its connection is closed.
+     *
+     * @param fiscalPrinter fiscal printer configuration
+     * @param discard true when the action failed with a communication error;
+     *            the connection is closed so the next action reconnects
+     */
+    public void release(final MFiscalPrinter fiscalPrinter, final boolean discard)
+    {
+        final Integer id = fiscalPrinter.getLAR_Fiscal_Printer_ID();
+        final PooledDevice pooled = held.get().get(id);
+        if (pooled == null || !pooled.lock.isHeldByCurrentThread()) {
+            return;
+        }
+        try {
+            final boolean stale;
+            synchronized (this) {
+                stale = devices.get(id) != pooled;
+            }
+            final int idleTimeout = getIdleTimeout(fiscalPrinter);
+            if (discard || stale || idleTimeout <= 0) {
+                closeQuietly(pooled.device);
+            } else {
+                startEvictor();
+            }
+            pooled.idleTimeout = idleTimeout * 1000L;
+            pooled.lastUsed = System.currentTimeMillis();
+        } finally {
+            pooled.lock.unlock();
+            if (!pooled.lock.isHeldByCurrentThread()) {
+                held.get().remove(id);
+            }
+        }
+    }
+
+    /**
+     * Whether the printer has a pooled connection open and not in use.
+     *
+     * @param fiscalPrinter fiscal printer configuration
+     * @return true if {@link #checkIdleHealth(MFiscalPrinter)} would query the device
+     */
+    public boolean hasIdleConnection(final MFiscalPrinter fiscalPrinter)
+    {
+        final PooledDevice pooled = getCurrentPooledDevice(fiscalPrinter);
+        return pooled != null && !pooled.lock.isLocked() && pooled.device.isConnected();
+    }
+
+    /**
+     * Queries the status of the printer over its pooled connection, only if
+     * the connection is open and not in use. The query does not count as use
+     * of the connection, so it does not delay its eviction.
+     *
+     * @param fiscalPrinter fiscal printer configuration
+     * @return the device health, or null if the printer has no idle connection
+     * @throws FiscalPrinterIOException if the query fails; the connection is closed
+     */
+    public FiscalPrinterHealth checkIdleHealth(final MFiscalPrinter fiscalPrinter) throws FiscalPrinterIOException
+    {
+        final PooledDevice pooled = getCurrentPooledDevice(fiscalPrinter);
+        if (pooled == null || !pooled.lock.tryLock()) {
+            return null;
+        }
+        try {
+            final FiscalPrinterDevice device = pooled.device;
+            if (!device.isConnected()) {
+                return null;
+            }
+            // The listener of the last action must not receive the events of the query
+            final FiscalPrinterListener listener = device.getEventListener();
+            device.setEventListener(null);
+            try {
+                return device.checkHealth();
+            } catch (FiscalPrinterIOException e) {
+                closeQuietly(device);
+                throw e;
+            } finally {
+                device.setEventListener(listener);
+            }
+        } finally {
+            pooled.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes and forgets the pooled device of the printer, if it is not in use.
+     *
+     * @param LAR_Fiscal_Printer_ID fiscal printer id
+     */
+    public void invalidate(final int LAR_Fiscal_Printer_ID)
+    {
+        final PooledDevice pooled;
+        synchronized (this) {
+            pooled = devices.get(LAR_Fiscal_Printer_ID);
+            if (pooled == null || !pooled.lock.tryLock()) {
+                return;
+            }
+            devices.remove(LAR_Fiscal_Printer_ID);
+        }
+        try {
+            closeQuietly(pooled.device);
+        } finally {
+            pooled.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes every idle pooled connection.
+     */
+    public void closeAll()
+    {
+        evictIdle(0);
+    }
+
+    private synchronized PooledDevice getPooledDevice(final MFiscalPrinter fiscalPrinter) throws Exception
+    {
+        final Integer id = fiscalPrinter.getLAR_Fiscal_Printer_ID();
+        final String key = getConfigKey(fiscalPrinter);
+        PooledDevice pooled = devices.get(id);
+        if (pooled != null && pooled.configKey.equals(key)) {
+            return pooled;
+        }
+        if (pooled != null) {
+            // Configuration changed: the old device is closed when it is not in use,
+            // otherwise its current holder closes it on release
+            if (pooled.lock.tryLock()) {
+                try {
+                    closeQuietly(pooled.device);
+                } finally {
+                    pooled.lock.unlock();
+                }
+            }
+        }
+        pooled = new PooledDevice(key, fiscalPrinter.getFiscalPrinter());
+        devices.put(id, pooled);
+        return pooled;
+    }
+
+    /**
+     * @return true if the device is the one pooled for the printer and
+     *         matches its current configuration
+     */
+    private synchronized boolean isCurrent(final MFiscalPrinter fiscalPrinter, final PooledDevice pooled)
+    {
+        return devices.get(fiscalPrinter.getLAR_Fiscal_Printer_ID()) == pooled
+                && pooled.configKey.equals(getConfigKey(fiscalPrinter));
+    }
+
+    /**
+     * @return the pooled device of the printer if it matches its current
+     *         configuration, or null
+     */
+    private synchronized PooledDevice getCurrentPooledDevice(final MFiscalPrinter fiscalPrinter)
+    {
+        final PooledDevice pooled = devices.get(fiscalPrinter.getLAR_Fiscal_Printer_ID());
+        if (pooled == null || !pooled.configKey.equals(getConfigKey(fiscalPrinter))) {
+            return null;
+        }
+        return pooled;
+    }
+
+    private String getConfigKey(final MFiscalPrinter fiscalPrinter)
+    {
+        return fiscalPrinter.getDeviceConfigKey();
+    }
+
+    private int getIdleTimeout(final MFiscalPrinter fiscalPrinter)
+    {
+        return MSysConfig.getIntValue(SYSCONFIG_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT,
+                fiscalPrinter.getAD_Client_ID());
+    }
+
+    private synchronized void startEvictor()
+    {
+        if (evictor != null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(final Runnable r)
+            {
+                final Thread t = new Thread(r, "FiscalPrinterPool-Evictor");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            public void run()
+            {
+                evictIdle(System.currentTimeMillis());
+            }
+        }, EVICTION_PERIOD, EVICTION_PERIOD, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Closes the connections idle since before their idle timeout.
+     *
+     * @param now current time, or 0 to close every idle connection
+     */
+    private void evictIdle(final long now)
+    {
+        final PooledDevice[] pooledDevices;
+        synchronized (this) {
+            pooledDevices = devices.values().toArray(new PooledDevice[devices.size()]);
+        }
+        for (final PooledDevice pooled : pooledDevices) {
+            // Devices in use are skipped
+            if (!pooled.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (pooled.device.isConnected() && (now == 0 || now - pooled.lastUsed > pooled.idleTimeout)) {
+                    log.fine("Closing idle fiscal printer connection: " + pooled.configKey);
+                    closeQuietly(pooled.device);
+                }
+            } finally {
+                pooled.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Resolves the document left open by a previous crash. A failure is only
+     * logged: the action goes on and the recovery is retried on the next acquire.
+     *
+     * @return true if the recovery finished
+     */
+    private boolean recoverDocument(final MFiscalPrinter fiscalPrinter, final FiscalPrinterDevice device)
+    {
+        try {
+            final DocumentRecovery recovery = device.recoverDocument();
+            if (recovery.getAction() != DocumentRecovery.NONE) {
+                log.warning("Recovered open fiscal document on " + fiscalPrinter.getName() + ": " + recovery);
+            }
+            return true;
+        } catch (FiscalPrinterIOException e) {
+            log.log(Level.WARNING, "Fiscal document recovery failed: " + fiscalPrinter.getName(), e);
+            return false;
+        }
+    }
+
+    private void closeQuietly(final FiscalPrinterDevice device)
+    {
+        try {
+            if (device.isConnected()) {
+                device.close();
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pool entry: driver instance and the lock that grants exclusive use.
+     */
+    private static class PooledDevice
+    {
+        final String configKey;
+        final FiscalPrinterDevice device;
+        final ReentrantLock lock = new ReentrantLock(true);
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT * 1000L;
+        /** Whether the journal recovery already ran for this device */
+        boolean recovered = false;
+
+        PooledDevice(final String configKey, final FiscalPrinterDevice device)
+        {
+            this.configKey = configKey;
+            this.device = device;
+        }
+    }
+}
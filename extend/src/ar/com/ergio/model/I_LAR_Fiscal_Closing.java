@@ -0,0 +1,377 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import org.compiere.model.*;
+import org.compiere.util.KeyNamePair;
+
+/** Generated Interface for LAR_Fiscal_Closing
+ *  @author Adempiere (generated)
+ *  @version 360LTS.015
+ */
+public interface I_LAR_Fiscal_Closing
+{
+
+    /** TableName=LAR_Fiscal_Closing */
+    public static final String Table_Name = "LAR_Fiscal_Closing";
+
+    /** AD_Table_ID=3000011 */
+    public static final int Table_ID = MTable.getTable_ID(Table_Name);
+
+    KeyNamePair Model = new KeyNamePair(Table_ID, Table_Name);
+
+    /** AccessLevel = 3 - Client - Org
+     */
+    BigDecimal accessLevel = BigDecimal.valueOf(3);
+
+    /** Load Meta Data */
+
+    /** Column name AD_Client_ID */
+    public static final String COLUMNNAME_AD_Client_ID = "AD_Client_ID";
+
+	/** Get Client.
+	  * Client/Tenant for this installation.
+	  */
+	public int getAD_Client_ID();
+
+    /** Column name AD_Org_ID */
+    public static final String COLUMNNAME_AD_Org_ID = "AD_Org_ID";
+
+	/** Set Organization.
+	  * Organizational entity within client
+	  */
+	public void setAD_Org_ID (int AD_Org_ID);
+
+	/** Get Organization.
+	  * Organizational entity within client
+	  */
+	public int getAD_Org_ID();
+
+    /** Column name Attempts */
+    public static final String COLUMNNAME_Attempts = "Attempts";
+
+	/** Set Attempts.
+	  * Close attempts sent to the fiscal printer
+	  */
+	public void setAttempts (int Attempts);
+
+	/** Get Attempts.
+	  * Close attempts sent to the fiscal printer
+	  */
+	public int getAttempts();
+
+    /** Column name CancelledDocuments */
+    public static final String COLUMNNAME_CancelledDocuments = "CancelledDocuments";
+
+	/** Set Cancelled Documents.
+	  * Fiscal documents cancelled during the day
+	  */
+	public void setCancelledDocuments (int CancelledDocuments);
+
+	/** Get Cancelled Documents.
+	  * Fiscal documents cancelled during the day
+	  */
+	public int getCancelledDocuments();
+
+    /** Column name CloseErrorMsg */
+    public static final String COLUMNNAME_CloseErrorMsg = "CloseErrorMsg";
+
+	/** Set Close Error Message.
+	  * Error of the last close attempt
+	  */
+	public void setCloseErrorMsg (String CloseErrorMsg);
+
+	/** Get Close Error Message.
+	  * Error of the last close attempt
+	  */
+	public String getCloseErrorMsg();
+
+    /** Column name CloseType */
+    public static final String COLUMNNAME_CloseType = "CloseType";
+
+	/** Set Close Type.
+	  * Type of the fiscal close (X or Z)
+	  */
+	public void setCloseType (String CloseType);
+
+	/** Get Close Type.
+	  * Type of the fiscal close (X or Z)
+	  */
+	public String getCloseType();
+
+    /** Column name Created */
+    public static final String COLUMNNAME_Created = "Created";
+
+	/** Get Created.
+	  * Date this record was created
+	  */
+	public Timestamp getCreated();
+
+    /** Column name CreatedBy */
+    public static final String COLUMNNAME_CreatedBy = "CreatedBy";
+
+	/** Get Created By.
+	  * User who created this records
+	  */
+	public int getCreatedBy();
+
+    /** Column name CreditNoteAmt */
+    public static final String COLUMNNAME_CreditNoteAmt = "CreditNoteAmt";
+
+	/** Set Credit Note Amount.
+	  * Total of the credit notes issued during the day
+	  */
+	public void setCreditNoteAmt (BigDecimal CreditNoteAmt);
+
+	/** Get Credit Note Amount.
+	  * Total of the credit notes issued during the day
+	  */
+	public BigDecimal getCreditNoteAmt();
+
+    /** Column name DailySalesAmt */
+    public static final String COLUMNNAME_DailySalesAmt = "DailySalesAmt";
+
+	/** Set Daily Sales Amount.
+	  * Total sold during the day
+	  */
+	public void setDailySalesAmt (BigDecimal DailySalesAmt);
+
+	/** Get Daily Sales Amount.
+	  * Total sold during the day
+	  */
+	public BigDecimal getDailySalesAmt();
+
+    /** Column name DateTrx */
+    public static final String COLUMNNAME_DateTrx = "DateTrx";
+
+	/** Set Transaction Date.
+	  * Transaction Date
+	  */
+	public void setDateTrx (Timestamp DateTrx);
+
+	/** Get Transaction Date.
+	  * Transaction Date
+	  */
+	public Timestamp getDateTrx();
+
+    /** Column name FiscalDocuments */
+    public static final String COLUMNNAME_FiscalDocuments = "FiscalDocuments";
+
+	/** Set Fiscal Documents.
+	  * Fiscal documents issued during the day
+	  */
+	public void setFiscalDocuments (int FiscalDocuments);
+
+	/** Get Fiscal Documents.
+	  * Fiscal documents issued during the day
+	  */
+	public int getFiscalDocuments();
+
+    /** Column name HomologatedDocuments */
+    public static final String COLUMNNAME_HomologatedDocuments = "HomologatedDocuments";
+
+	/** Set Homologated Documents.
+	  * Homologated non fiscal documents issued during the day
+	  */
+	public void setHomologatedDocuments (int HomologatedDocuments);
+
+	/** Get Homologated Documents.
+	  * Homologated non fiscal documents issued during the day
+	  */
+	public int getHomologatedDocuments();
+
+    /** Column name InternalTaxAmt */
+    public static final String COLUMNNAME_InternalTaxAmt = "InternalTaxAmt";
+
+	/** Set Internal Tax Amount.
+	  * Total of the internal taxes of the day
+	  */
+	public void setInternalTaxAmt (BigDecimal InternalTaxAmt);
+
+	/** Get Internal Tax Amount.
+	  * Total of the internal taxes of the day
+	  */
+	public BigDecimal getInternalTaxAmt();
+
+    /** Column name IsActive */
+    public static final String COLUMNNAME_IsActive = "IsActive";
+
+	/** Set Active.
+	  * The record is active in the system
+	  */
+	public void setIsActive (boolean IsActive);
+
+	/** Get Active.
+	  * The record is active in the system
+	  */
+	public boolean isActive();
+
+    /** Column name LAR_Fiscal_Closing_ID */
+    public static final String COLUMNNAME_LAR_Fiscal_Closing_ID = "LAR_Fiscal_Closing_ID";
+
+	/** Set Fiscal Closing	  */
+	public void setLAR_Fiscal_Closing_ID (int LAR_Fiscal_Closing_ID);
+
+	/** Get Fiscal Closing	  */
+	public int getLAR_Fiscal_Closing_ID();
+
+    /** Column name LAR_Fiscal_Printer_ID */
+    public static final String COLUMNNAME_LAR_Fiscal_Printer_ID = "LAR_Fiscal_Printer_ID";
+
+	/** Set LAR_Fiscal_Printer	  */
+	public void setLAR_Fiscal_Printer_ID (int LAR_Fiscal_Printer_ID);
+
+	/** Get LAR_Fiscal_Printer	  */
+	public int getLAR_Fiscal_Printer_ID();
+
+	public ar.com.ergio.model.I_LAR_Fiscal_Printer getLAR_Fiscal_Printer() throws RuntimeException;
+
+    /** Column name LastCreditNoteNoA */
+    public static final String COLUMNNAME_LastCreditNoteNoA = "LastCreditNoteNoA";
+
+	/** Set Last Credit Note No A.
+	  * Last A credit note number
+	  */
+	public void setLastCreditNoteNoA (int LastCreditNoteNoA);
+
+	/** Get Last Credit Note No A.
+	  * Last A credit note number
+	  */
+	public int getLastCreditNoteNoA();
+
+    /** Column name LastCreditNoteNoBC */
+    public static final String COLUMNNAME_LastCreditNoteNoBC = "LastCreditNoteNoBC";
+
+	/** Set Last Credit Note No B/C.
+	  * Last B or C credit note number
+	  */
+	public void setLastCreditNoteNoBC (int LastCreditNoteNoBC);
+
+	/** Get Last Credit Note No B/C.
+	  * Last B or C credit note number
+	  */
+	public int getLastCreditNoteNoBC();
+
+    /** Column name LastInvoiceNoA */
+    public static final String COLUMNNAME_LastInvoiceNoA = "LastInvoiceNoA";
+
+	/** Set Last Invoice No A.
+	  * Last A invoice or ticket number
+	  */
+	public void setLastInvoiceNoA (int LastInvoiceNoA);
+
+	/** Get Last Invoice No A.
+	  * Last A invoice or ticket number
+	  */
+	public int getLastInvoiceNoA();
+
+    /** Column name LastInvoiceNoBC */
+    public static final String COLUMNNAME_LastInvoiceNoBC = "LastInvoiceNoBC";
+
+	/** Set Last Invoice No B/C.
+	  * Last B or C invoice or ticket number
+	  */
+	public void setLastInvoiceNoBC (int LastInvoiceNoBC);
+
+	/** Get Last Invoice No B/C.
+	  * Last B or C invoice or ticket number
+	  */
+	public int getLastInvoiceNoBC();
+
+    /** Column name NonFiscalDocuments */
+    public static final String COLUMNNAME_NonFiscalDocuments = "NonFiscalDocuments";
+
+	/** Set Non Fiscal Documents.
+	  * Non fiscal documents issued during the day
+	  */
+	public void setNonFiscalDocuments (int NonFiscalDocuments);
+
+	/** Get Non Fiscal Documents.
+	  * Non fiscal documents issued during the day
+	  */
+	public int getNonFiscalDocuments();
+
+    /** Column name NonInscriptTaxAmt */
+    public static final String COLUMNNAME_NonInscriptTaxAmt = "NonInscriptTaxAmt";
+
+	/** Set Non Inscript Tax Amount.
+	  * Total of the non inscript VAT of the day
+	  */
+	public void setNonInscriptTaxAmt (BigDecimal NonInscriptTaxAmt);
+
+	/** Get Non Inscript Tax Amount.
+	  * Total of the non inscript VAT of the day
+	  */
+	public BigDecimal getNonInscriptTaxAmt();
+
+    /** Column name PerceptionAmt */
+    public static final String COLUMNNAME_PerceptionAmt = "PerceptionAmt";
+
+	/** Set Perception Amount.
+	  * Total of the perceptions of the day
+	  */
+	public void setPerceptionAmt (BigDecimal PerceptionAmt);
+
+	/** Get Perception Amount.
+	  * Total of the perceptions of the day
+	  */
+	public BigDecimal getPerceptionAmt();
+
+    /** Column name TaxAmt */
+    public static final String COLUMNNAME_TaxAmt = "TaxAmt";
+
+	/** Set Tax Amount.
+	  * Tax Amount for a document
+	  */
+	public void setTaxAmt (BigDecimal TaxAmt);
+
+	/** Get Tax Amount.
+	  * Tax Amount for a document
+	  */
+	public BigDecimal getTaxAmt();
+
+    /** Column name Updated */
+    public static final String COLUMNNAME_Updated = "Updated";
+
+	/** Get Updated.
+	  * Date this record was updated
+	  */
+	public Timestamp getUpdated();
+
+    /** Column name UpdatedBy */
+    public static final String COLUMNNAME_UpdatedBy = "UpdatedBy";
+
+	/** Get Updated By.
+	  * User who updated this records
+	  */
+	public int getUpdatedBy();
+
+    /** Column name ZNumber */
+    public static final String COLUMNNAME_ZNumber = "ZNumber";
+
+	/** Set Z Number.
+	  * Number of the daily close reported by the fiscal printer
+	  */
+	public void setZNumber (int ZNumber);
+
+	/** Get Z Number.
+	  * Number of the daily close reported by the fiscal printer
+	  */
+	public int getZNumber();
+}
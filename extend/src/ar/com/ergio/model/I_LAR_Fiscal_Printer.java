@@ -143,6 +143,32 @@ public interface I_LAR_Fiscal_Printer
 
 	public ar.com.ergio.model.I_LAR_Fiscal_Printer_Type getLAR_Fiscal_Printer_Type() throws RuntimeException;
 
+    /** Column name LeaseExpires */
+    public static final String COLUMNNAME_LeaseExpires = "LeaseExpires";
+
+	/** Set LeaseExpires.
+	  * Expiry of the lease of the client using the fiscal printer
+	  */
+	public void setLeaseExpires (Timestamp LeaseExpires);
+
+	/** Get LeaseExpires.
+	  * Expiry of the lease of the client using the fiscal printer
+	  */
+	public Timestamp getLeaseExpires();
+
+    /** Column name LockToken */
+    public static final String COLUMNNAME_LockToken = "LockToken";
+
+	/** Set LockToken.
+	  * Fencing token of the last lease of the fiscal printer
+	  */
+	public void setLockToken (int LockToken);
+
+	/** Get LockToken.
+	  * Fencing token of the last lease of the fiscal printer
+	  */
+	public int getLockToken();
+
     /** Column name Name */
     public static final String COLUMNNAME_Name = "Name";
 
@@ -192,6 +218,19 @@ public interface I_LAR_Fiscal_Printer
 	/** Get Port	  */
 	public int getPort();
 
+    /** Column name ResponseTimeProfile */
+    public static final String COLUMNNAME_ResponseTimeProfile = "ResponseTimeProfile";
+
+	/** Set ResponseTimeProfile.
+	  * Response times learned from the fiscal printer, per command
+	  */
+	public void setResponseTimeProfile (String ResponseTimeProfile);
+
+	/** Get ResponseTimeProfile.
+	  * Response times learned from the fiscal printer, per command
+	  */
+	public String getResponseTimeProfile();
+
     /** Column name Status */
     public static final String COLUMNNAME_Status = "Status";
 
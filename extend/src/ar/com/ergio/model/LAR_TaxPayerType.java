@@ -48,7 +48,16 @@ public enum LAR_TaxPayerType {
     {
         int taxPayerType_ID = bp.get_ValueAsInt("LCO_TaxPayerType_ID");
         X_LCO_TaxPayerType type = new X_LCO_TaxPayerType(bp.getCtx(), taxPayerType_ID, bp.get_TrxName());
-        String typeName = type.getName();
+        return getTaxPayerType(type.getName());
+    }
+
+    /**
+     * Returns the tax payer type with a given name
+     * @param typeName name of the LCO tax payer type
+     * @return tax payer type enum
+     */
+    public static LAR_TaxPayerType getTaxPayerType(final String typeName)
+    {
         for (LAR_TaxPayerType e : values()) {
             if (e.name.equals(typeName)) {
                 return e;
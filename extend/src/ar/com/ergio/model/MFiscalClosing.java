@@ -0,0 +1,88 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.sql.ResultSet;
+import java.util.Properties;
+
+import ar.com.ergio.print.fiscal.FiscalCloseReport;
+
+/**
+ * Result of the daily close of a fiscal printer: the counters reported by the
+ * printer, or the error of the last attempt when it could not be closed.
+ */
+public class MFiscalClosing extends X_LAR_Fiscal_Closing
+{
+
+    private static final long serialVersionUID = 4391271828730913702L;
+
+    /**
+     * Standard Constructor
+     *
+     * @param ctx context
+     * @param LAR_Fiscal_Closing_ID id for fiscal closing record
+     * @param trxName transaction
+     */
+    public MFiscalClosing(Properties ctx, int LAR_Fiscal_Closing_ID, String trxName)
+    {
+        super(ctx, LAR_Fiscal_Closing_ID, trxName);
+    }
+
+    /**
+     * Load Constructor
+     *
+     * @param ctx context
+     * @param rs result set
+     * @param trxName transaction
+     */
+    public MFiscalClosing(Properties ctx, ResultSet rs, String trxName)
+    {
+        super(ctx, rs, trxName);
+    }
+
+    /**
+     * Copies the counters reported by the printer.
+     *
+     * @param report counters of the close
+     */
+    public void setFiscalCloseReport(final FiscalCloseReport report)
+    {
+        setZNumber(report.getNumber());
+        setCancelledDocuments(report.getCancelledDocuments());
+        setHomologatedDocuments(report.getHomologatedDocuments());
+        setNonFiscalDocuments(report.getNonFiscalDocuments());
+        setFiscalDocuments(report.getFiscalDocuments());
+        setLastInvoiceNoA(report.getLastInvoiceNoA());
+        setLastInvoiceNoBC(report.getLastInvoiceNoBC());
+        setLastCreditNoteNoA(report.getLastCreditNoteNoA());
+        setLastCreditNoteNoBC(report.getLastCreditNoteNoBC());
+        setDailySalesAmt(report.getSalesAmt());
+        setTaxAmt(report.getTaxAmt());
+        setInternalTaxAmt(report.getInternalTaxAmt());
+        setPerceptionAmt(report.getPerceptionAmt());
+        setNonInscriptTaxAmt(report.getNonInscriptTaxAmt());
+        setCreditNoteAmt(report.getCreditAmt());
+    }
+
+    /**
+     * @return true if the printer was closed
+     */
+    public boolean isClosed()
+    {
+        return getCloseErrorMsg() == null;
+    }
+}
@@ -16,22 +16,50 @@
  *****************************************************************************/
 package ar.com.ergio.model;
 
+import java.io.File;
 import java.sql.ResultSet;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.Properties;
 import java.util.logging.Level;
 
+import org.compiere.model.MSysConfig;
 import org.compiere.util.CLogger;
 import org.compiere.util.Env;
+import org.compiere.util.Ini;
 import org.compiere.util.Msg;
 
+import ar.com.ergio.print.fiscal.BasicFiscalPrinter;
 import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
+import ar.com.ergio.print.fiscal.comm.AbstractFiscalComm;
 import ar.com.ergio.print.fiscal.comm.FiscalComm;
+import ar.com.ergio.print.fiscal.comm.HasarProtocolComm;
+import ar.com.ergio.print.fiscal.comm.ResponseTimeProfile;
+import ar.com.ergio.print.fiscal.comm.SpoolerNIOComm;
 import ar.com.ergio.print.fiscal.comm.SpoolerTCPComm;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterProfile;
+import ar.com.ergio.print.fiscal.hasar2g.Hasar2GFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar2g.Hasar2GHttpComm;
+import ar.com.ergio.print.fiscal.journal.FiscalJournal;
+import ar.com.ergio.print.fiscal.replay.RecordingFiscalComm;
+import ar.edu.ifes.print.fiscal.epson.EpsonFiscalPrinter;
 
 public class MFiscalPrinter extends X_LAR_Fiscal_Printer {
 
     private static final long serialVersionUID = -3842337830339209086L;
 
+    /** Configuración: utilizar la comunicación NIO con el spooler (Y por defecto) */
+    public static final String SYSCONFIG_USE_NIO_COMM = "LAR_FiscalPrinter_UseNIOComm";
+    /** Configuración: comandos de ítems enviados sin esperar respuesta (1 por defecto = sin pipelining) */
+    public static final String SYSCONFIG_PIPELINE_WINDOW = "LAR_FiscalPrinter_PipelineWindow";
+    /** Configuración: registrar los comandos en el diario para recuperar documentos abiertos (Y por defecto) */
+    public static final String SYSCONFIG_JOURNAL = "LAR_FiscalPrinter_Journal";
+    /** Configuración: capturar el tráfico con el spooler para reproducirlo (N por defecto) */
+    public static final String SYSCONFIG_CAPTURE = "LAR_FiscalPrinter_Capture";
+    /** Configuración: entregar las líneas a la impresora mientras se arman (Y por defecto) */
+    public static final String SYSCONFIG_STREAM_LINES = "LAR_FiscalPrinter_StreamLines";
+
     /** Logger de la aplicación */
 	protected static CLogger log = CLogger.getCLogger(MFiscalPrinter.class);
 
@@ -112,10 +140,183 @@ public class MFiscalPrinter extends X_LAR_Fiscal_Printer {
 	}
 	String host = getHost();
 	int port = getPort();
-	FiscalComm fiscalComm = new SpoolerTCPComm(host, port);
+	FiscalComm fiscalComm;
+	if (fiscalPrinter instanceof EpsonFiscalPrinter)
+	    fiscalComm = createEpsonComm(host, port);
+	else if (fiscalPrinter instanceof Hasar2GFiscalPrinter)
+	    fiscalComm = new Hasar2GHttpComm(host, port);
+	else
+	    fiscalComm = createFiscalComm(host, port);
+	if (fiscalComm instanceof AbstractFiscalComm)
+	    ((AbstractFiscalComm) fiscalComm).setResponseTimeProfile(
+	            ResponseTimeProfile.parse(getResponseTimeProfile()));
+	if (MSysConfig.getBooleanValue(SYSCONFIG_CAPTURE, false, getAD_Client_ID()))
+	    fiscalComm = new RecordingFiscalComm(fiscalComm, getCaptureFile());
 	fiscalPrinter.setFiscalComm(fiscalComm);
+	if (fiscalPrinter instanceof HasarFiscalPrinter) {
+	    // Perfil del modelo, con los cambios indicados en el tipo de controlador.
+	    // Si los parámetros no describen un perfil válido se usa el del modelo.
+	    HasarFiscalPrinter hasar = (HasarFiscalPrinter) fiscalPrinter;
+	    try {
+	        hasar.setProfile(HasarPrinterProfile.parse(hasar.getProfile(), cType.getParameters()));
+	    } catch (IllegalArgumentException e) {
+	        log.log(Level.SEVERE, cType.getName() + ": " + e.getMessage());
+	    }
+	}
+	if (fiscalPrinter instanceof BasicFiscalPrinter)
+	    ((BasicFiscalPrinter) fiscalPrinter).setPipelineWindow(
+	            MSysConfig.getIntValue(SYSCONFIG_PIPELINE_WINDOW, 1, getAD_Client_ID()));
+	if (fiscalPrinter instanceof BasicFiscalPrinter
+	        && MSysConfig.getBooleanValue(SYSCONFIG_JOURNAL, true, getAD_Client_ID()))
+	    ((BasicFiscalPrinter) fiscalPrinter).setJournal(FiscalJournal.getInstance(getJournalFile()));
 
 	return fiscalPrinter;
 
     }
+
+    /**
+     * Retorna la clave de la configuración con la que
+     * {@link #getFiscalPrinter()} crea el dispositivo: tipo, host y puerto, y
+     * las opciones de comunicación de <code>AD_SysConfig</code> (NIO, ventana
+     * de pipelining, captura y diario). Si la clave cambia, el pool de
+     * dispositivos crea uno nuevo. Los parámetros del tipo de controlador no
+     * forman parte de la clave: al modificarlos hay que reiniciar la
+     * aplicación o invalidar el dispositivo
+     * (<code>FiscalPrinterPool.invalidate</code>).
+     *
+     * @return clave de la configuración del dispositivo
+     */
+    public String getDeviceConfigKey()
+    {
+        int AD_Client_ID = getAD_Client_ID();
+        return getLAR_Fiscal_Printer_Type_ID() + "@" + getHost() + ":" + getPort()
+                + ";nio=" + MSysConfig.getBooleanValue(SYSCONFIG_USE_NIO_COMM, true, AD_Client_ID)
+                + ";pipeline=" + MSysConfig.getIntValue(SYSCONFIG_PIPELINE_WINDOW, 1, AD_Client_ID)
+                + ";capture=" + MSysConfig.getBooleanValue(SYSCONFIG_CAPTURE, false, AD_Client_ID)
+                + ";journal=" + MSysConfig.getBooleanValue(SYSCONFIG_JOURNAL, true, AD_Client_ID);
+    }
+
+    /**
+     * @return verdadero si las líneas de los documentos se envían a la
+     *         impresora mientras se arman
+     */
+    public boolean isStreamLines()
+    {
+        return MSysConfig.getBooleanValue(SYSCONFIG_STREAM_LINES, true, getAD_Client_ID());
+    }
+
+    /**
+     * Copia en el registro los tiempos de respuesta aprendidos por la interfaz
+     * de comunicación del dispositivo, si hay muestras nuevas. El registro no
+     * se guarda; se persiste con el siguiente <code>save()</code>.
+     *
+     * @param device dispositivo creado a partir de esta configuración
+     */
+    public void updateResponseTimeProfile(FiscalPrinterDevice device)
+    {
+        if (device == null || !(device.getFiscalComm() instanceof AbstractFiscalComm))
+            return;
+        ResponseTimeProfile profile = ((AbstractFiscalComm) device.getFiscalComm()).getResponseTimeProfile();
+        if (profile != null && profile.isModified()) {
+            setResponseTimeProfile(profile.toString());
+            profile.clearModified();
+        }
+    }
+
+    /**
+     * Retorna el archivo del diario de comandos del controlador, dentro de
+     * <code>$ADEMPIERE_HOME/fiscal-journal</code>. El diario es local a la
+     * terminal, ya que registra los comandos que ésta envió.
+     *
+     * @return archivo del diario
+     */
+    public File getJournalFile()
+    {
+        return new File(new File(Ini.getAdempiereHome(), "fiscal-journal"),
+                "printer-" + getLAR_Fiscal_Printer_ID() + ".journal");
+    }
+
+    /**
+     * Retorna el archivo de la cola de impresión del controlador, dentro de
+     * <code>$ADEMPIERE_HOME/fiscal-queue</code>. Allí se registran los trabajos
+     * encolados en esta terminal que aún no se imprimieron.
+     *
+     * @return archivo de la cola de impresión
+     */
+    public File getQueueFile()
+    {
+        return new File(getQueueDirectory(), "printer-" + getLAR_Fiscal_Printer_ID() + ".queue");
+    }
+
+    /**
+     * Retorna el directorio de las colas de impresión de esta terminal.
+     *
+     * @return <code>$ADEMPIERE_HOME/fiscal-queue</code>
+     */
+    public static File getQueueDirectory()
+    {
+        return new File(Ini.getAdempiereHome(), "fiscal-queue");
+    }
+
+    /**
+     * Retorna un nuevo archivo de captura del tráfico con el spooler, dentro
+     * de <code>$ADEMPIERE_HOME/fiscal-capture</code>.
+     *
+     * @return archivo de captura
+     */
+    public File getCaptureFile()
+    {
+        return new File(new File(Ini.getAdempiereHome(), "fiscal-capture"), "printer-"
+                + getLAR_Fiscal_Printer_ID() + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+                + ".capture");
+    }
+
+    /**
+     * Crea la interfaz de comunicación con el spooler. Por defecto se utiliza
+     * <code>SpoolerNIOComm</code>, que termina de leer apenas la respuesta está
+     * completa; con <code>LAR_FiscalPrinter_UseNIOComm = N</code> se vuelve a
+     * <code>SpoolerTCPComm</code>.
+     * <br>
+     * Si el host es un dispositivo local (<code>/dev/...</code> o <code>COMn</code>)
+     * se habla el protocolo nativo directamente con el impresor, sin spooler.
+     *
+     * @param host host del spooler o dispositivo del impresor
+     * @param port puerto del spooler
+     * @return interfaz de comunicación sin conectar
+     */
+    protected FiscalComm createFiscalComm(String host, int port)
+    {
+        if (isLocalDevice(host))
+            return new HasarProtocolComm(host);
+        if (MSysConfig.getBooleanValue(SYSCONFIG_USE_NIO_COMM, true, getAD_Client_ID()))
+            return new SpoolerNIOComm(host, port);
+        return new SpoolerTCPComm(host, port);
+    }
+
+    /**
+     * Crea la interfaz de comunicación con una impresora Epson. Las Epson no
+     * tienen spooler: siempre se habla el protocolo de tramas, por un
+     * dispositivo local o por TCP con un conversor serie-ethernet. Las pruebas
+     * redefinen este método para usar el simulador en memoria
+     * (<code>EpsonSimulatorDevice.createComm()</code>).
+     *
+     * @param host dispositivo del impresor o host del conversor
+     * @param port puerto del conversor
+     * @return interfaz de comunicación sin conectar
+     */
+    protected FiscalComm createEpsonComm(String host, int port)
+    {
+        if (isLocalDevice(host))
+            return new HasarProtocolComm(host);
+        return new HasarProtocolComm(host, port);
+    }
+
+    /**
+     * @return true si el host configurado es un puerto serie o pseudo-terminal local
+     */
+    protected boolean isLocalDevice(String host)
+    {
+        return host != null && (host.startsWith("/dev/") || host.matches("(?i)COM\\d+")
+                || host.startsWith("\\\\.\\"));
+    }
 }
@@ -0,0 +1,501 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+/** Generated Model - DO NOT CHANGE */
+package ar.com.ergio.model;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Properties;
+import org.compiere.model.*;
+import org.compiere.util.Env;
+
+/** Generated Model for LAR_Fiscal_Closing
+ *  @author Adempiere (generated)
+ *  @version 360LTS.015 - $Id$ */
+public class X_LAR_Fiscal_Closing extends PO implements I_LAR_Fiscal_Closing, I_Persistent
+{
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 20261017L;
+
+    /** Standard Constructor */
+    public X_LAR_Fiscal_Closing (Properties ctx, int LAR_Fiscal_Closing_ID, String trxName)
+    {
+      super (ctx, LAR_Fiscal_Closing_ID, trxName);
+      /** if (LAR_Fiscal_Closing_ID == 0)
+        {
+			setCloseType (null);
+			setDateTrx (new Timestamp( System.currentTimeMillis() ));
+			setLAR_Fiscal_Closing_ID (0);
+			setLAR_Fiscal_Printer_ID (0);
+        } */
+    }
+
+    /** Load Constructor */
+    public X_LAR_Fiscal_Closing (Properties ctx, ResultSet rs, String trxName)
+    {
+      super (ctx, rs, trxName);
+    }
+
+    /** AccessLevel
+      * @return 3 - Client - Org
+      */
+    protected int get_AccessLevel()
+    {
+      return accessLevel.intValue();
+    }
+
+    /** Load Meta Data */
+    protected POInfo initPO (Properties ctx)
+    {
+      POInfo poi = POInfo.getPOInfo (ctx, Table_ID, get_TrxName());
+      return poi;
+    }
+
+    public String toString()
+    {
+      StringBuffer sb = new StringBuffer ("X_LAR_Fiscal_Closing[")
+        .append(get_ID()).append("]");
+      return sb.toString();
+    }
+
+	/** Set Attempts.
+		@param Attempts
+		Close attempts sent to the fiscal printer
+	  */
+	public void setAttempts (int Attempts)
+	{
+		set_Value (COLUMNNAME_Attempts, Integer.valueOf(Attempts));
+	}
+
+	/** Get Attempts.
+		@return Close attempts sent to the fiscal printer
+	  */
+	public int getAttempts ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_Attempts);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Cancelled Documents.
+		@param CancelledDocuments
+		Fiscal documents cancelled during the day
+	  */
+	public void setCancelledDocuments (int CancelledDocuments)
+	{
+		set_Value (COLUMNNAME_CancelledDocuments, Integer.valueOf(CancelledDocuments));
+	}
+
+	/** Get Cancelled Documents.
+		@return Fiscal documents cancelled during the day
+	  */
+	public int getCancelledDocuments ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_CancelledDocuments);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Close Error Message.
+		@param CloseErrorMsg
+		Error of the last close attempt
+	  */
+	public void setCloseErrorMsg (String CloseErrorMsg)
+	{
+		set_Value (COLUMNNAME_CloseErrorMsg, CloseErrorMsg);
+	}
+
+	/** Get Close Error Message.
+		@return Error of the last close attempt
+	  */
+	public String getCloseErrorMsg ()
+	{
+		return (String)get_Value(COLUMNNAME_CloseErrorMsg);
+	}
+
+	/** CloseType AD_Reference_ID=3000011 */
+	public static final int CLOSETYPE_AD_Reference_ID=3000011;
+	/** Cierre X = X */
+	public static final String CLOSETYPE_CierreX = "X";
+	/** Cierre Z = Z */
+	public static final String CLOSETYPE_CierreZ = "Z";
+	/** Set Close Type.
+		@param CloseType
+		Type of the fiscal close (X or Z)
+	  */
+	public void setCloseType (String CloseType)
+	{
+
+		set_Value (COLUMNNAME_CloseType, CloseType);
+	}
+
+	/** Get Close Type.
+		@return Type of the fiscal close (X or Z)
+	  */
+	public String getCloseType ()
+	{
+		return (String)get_Value(COLUMNNAME_CloseType);
+	}
+
+	/** Set Credit Note Amount.
+		@param CreditNoteAmt
+		Total of the credit notes issued during the day
+	  */
+	public void setCreditNoteAmt (BigDecimal CreditNoteAmt)
+	{
+		set_Value (COLUMNNAME_CreditNoteAmt, CreditNoteAmt);
+	}
+
+	/** Get Credit Note Amount.
+		@return Total of the credit notes issued during the day
+	  */
+	public BigDecimal getCreditNoteAmt ()
+	{
+		BigDecimal bd = (BigDecimal)get_Value(COLUMNNAME_CreditNoteAmt);
+		if (bd == null)
+			 return Env.ZERO;
+		return bd;
+	}
+
+	/** Set Daily Sales Amount.
+		@param DailySalesAmt
+		Total sold during the day
+	  */
+	public void setDailySalesAmt (BigDecimal DailySalesAmt)
+	{
+		set_Value (COLUMNNAME_DailySalesAmt, DailySalesAmt);
+	}
+
+	/** Get Daily Sales Amount.
+		@return Total sold during the day
+	  */
+	public BigDecimal getDailySalesAmt ()
+	{
+		BigDecimal bd = (BigDecimal)get_Value(COLUMNNAME_DailySalesAmt);
+		if (bd == null)
+			 return Env.ZERO;
+		return bd;
+	}
+
+	/** Set Transaction Date.
+		@param DateTrx
+		Transaction Date
+	  */
+	public void setDateTrx (Timestamp DateTrx)
+	{
+		set_Value (COLUMNNAME_DateTrx, DateTrx);
+	}
+
+	/** Get Transaction Date.
+		@return Transaction Date
+	  */
+	public Timestamp getDateTrx ()
+	{
+		return (Timestamp)get_Value(COLUMNNAME_DateTrx);
+	}
+
+	/** Set Fiscal Documents.
+		@param FiscalDocuments
+		Fiscal documents issued during the day
+	  */
+	public void setFiscalDocuments (int FiscalDocuments)
+	{
+		set_Value (COLUMNNAME_FiscalDocuments, Integer.valueOf(FiscalDocuments));
+	}
+
+	/** Get Fiscal Documents.
+		@return Fiscal documents issued during the day
+	  */
+	public int getFiscalDocuments ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_FiscalDocuments);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Homologated Documents.
+		@param HomologatedDocuments
+		Homologated non fiscal documents issued during the day
+	  */
+	public void setHomologatedDocuments (int HomologatedDocuments)
+	{
+		set_Value (COLUMNNAME_HomologatedDocuments, Integer.valueOf(HomologatedDocuments));
+	}
+
+	/** Get Homologated Documents.
+		@return Homologated non fiscal documents issued during the day
+	  */
+	public int getHomologatedDocuments ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_HomologatedDocuments);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Internal Tax Amount.
+		@param InternalTaxAmt
+		Total of the internal taxes of the day
+	  */
+	public void setInternalTaxAmt (BigDecimal InternalTaxAmt)
+	{
+		set_Value (COLUMNNAME_InternalTaxAmt, InternalTaxAmt);
+	}
+
+	/** Get Internal Tax Amount.
+		@return Total of the internal taxes of the day
+	  */
+	public BigDecimal getInternalTaxAmt ()
+	{
+		BigDecimal bd = (BigDecimal)get_Value(COLUMNNAME_InternalTaxAmt);
+		if (bd == null)
+			 return Env.ZERO;
+		return bd;
+	}
+
+	/** Set Fiscal Closing.
+		@param LAR_Fiscal_Closing_ID Fiscal Closing	  */
+	public void setLAR_Fiscal_Closing_ID (int LAR_Fiscal_Closing_ID)
+	{
+		if (LAR_Fiscal_Closing_ID < 1)
+			set_ValueNoCheck (COLUMNNAME_LAR_Fiscal_Closing_ID, null);
+		else
+			set_ValueNoCheck (COLUMNNAME_LAR_Fiscal_Closing_ID, Integer.valueOf(LAR_Fiscal_Closing_ID));
+	}
+
+	/** Get Fiscal Closing.
+		@return Fiscal Closing	  */
+	public int getLAR_Fiscal_Closing_ID ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_LAR_Fiscal_Closing_ID);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	public ar.com.ergio.model.I_LAR_Fiscal_Printer getLAR_Fiscal_Printer() throws RuntimeException
+    {
+		return (ar.com.ergio.model.I_LAR_Fiscal_Printer)MTable.get(getCtx(), ar.com.ergio.model.I_LAR_Fiscal_Printer.Table_Name)
+			.getPO(getLAR_Fiscal_Printer_ID(), get_TrxName());	}
+
+	/** Set LAR_Fiscal_Printer.
+		@param LAR_Fiscal_Printer_ID LAR_Fiscal_Printer	  */
+	public void setLAR_Fiscal_Printer_ID (int LAR_Fiscal_Printer_ID)
+	{
+		if (LAR_Fiscal_Printer_ID < 1)
+			set_Value (COLUMNNAME_LAR_Fiscal_Printer_ID, null);
+		else
+			set_Value (COLUMNNAME_LAR_Fiscal_Printer_ID, Integer.valueOf(LAR_Fiscal_Printer_ID));
+	}
+
+	/** Get LAR_Fiscal_Printer.
+		@return LAR_Fiscal_Printer	  */
+	public int getLAR_Fiscal_Printer_ID ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_LAR_Fiscal_Printer_ID);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Last Credit Note No A.
+		@param LastCreditNoteNoA
+		Last A credit note number
+	  */
+	public void setLastCreditNoteNoA (int LastCreditNoteNoA)
+	{
+		set_Value (COLUMNNAME_LastCreditNoteNoA, Integer.valueOf(LastCreditNoteNoA));
+	}
+
+	/** Get Last Credit Note No A.
+		@return Last A credit note number
+	  */
+	public int getLastCreditNoteNoA ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_LastCreditNoteNoA);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Last Credit Note No B/C.
+		@param LastCreditNoteNoBC
+		Last B or C credit note number
+	  */
+	public void setLastCreditNoteNoBC (int LastCreditNoteNoBC)
+	{
+		set_Value (COLUMNNAME_LastCreditNoteNoBC, Integer.valueOf(LastCreditNoteNoBC));
+	}
+
+	/** Get Last Credit Note No B/C.
+		@return Last B or C credit note number
+	  */
+	public int getLastCreditNoteNoBC ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_LastCreditNoteNoBC);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Last Invoice No A.
+		@param LastInvoiceNoA
+		Last A invoice or ticket number
+	  */
+	public void setLastInvoiceNoA (int LastInvoiceNoA)
+	{
+		set_Value (COLUMNNAME_LastInvoiceNoA, Integer.valueOf(LastInvoiceNoA));
+	}
+
+	/** Get Last Invoice No A.
+		@return Last A invoice or ticket number
+	  */
+	public int getLastInvoiceNoA ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_LastInvoiceNoA);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Last Invoice No B/C.
+		@param LastInvoiceNoBC
+		Last B or C invoice or ticket number
+	  */
+	public void setLastInvoiceNoBC (int LastInvoiceNoBC)
+	{
+		set_Value (COLUMNNAME_LastInvoiceNoBC, Integer.valueOf(LastInvoiceNoBC));
+	}
+
+	/** Get Last Invoice No B/C.
+		@return Last B or C invoice or ticket number
+	  */
+	public int getLastInvoiceNoBC ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_LastInvoiceNoBC);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Non Fiscal Documents.
+		@param NonFiscalDocuments
+		Non fiscal documents issued during the day
+	  */
+	public void setNonFiscalDocuments (int NonFiscalDocuments)
+	{
+		set_Value (COLUMNNAME_NonFiscalDocuments, Integer.valueOf(NonFiscalDocuments));
+	}
+
+	/** Get Non Fiscal Documents.
+		@return Non fiscal documents issued during the day
+	  */
+	public int getNonFiscalDocuments ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_NonFiscalDocuments);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
+	/** Set Non Inscript Tax Amount.
+		@param NonInscriptTaxAmt
+		Total of the non inscript VAT of the day
+	  */
+	public void setNonInscriptTaxAmt (BigDecimal NonInscriptTaxAmt)
+	{
+		set_Value (COLUMNNAME_NonInscriptTaxAmt, NonInscriptTaxAmt);
+	}
+
+	/** Get Non Inscript Tax Amount.
+		@return Total of the non inscript VAT of the day
+	  */
+	public BigDecimal getNonInscriptTaxAmt ()
+	{
+		BigDecimal bd = (BigDecimal)get_Value(COLUMNNAME_NonInscriptTaxAmt);
+		if (bd == null)
+			 return Env.ZERO;
+		return bd;
+	}
+
+	/** Set Perception Amount.
+		@param PerceptionAmt
+		Total of the perceptions of the day
+	  */
+	public void setPerceptionAmt (BigDecimal PerceptionAmt)
+	{
+		set_Value (COLUMNNAME_PerceptionAmt, PerceptionAmt);
+	}
+
+	/** Get Perception Amount.
+		@return Total of the perceptions of the day
+	  */
+	public BigDecimal getPerceptionAmt ()
+	{
+		BigDecimal bd = (BigDecimal)get_Value(COLUMNNAME_PerceptionAmt);
+		if (bd == null)
+			 return Env.ZERO;
+		return bd;
+	}
+
+	/** Set Tax Amount.
+		@param TaxAmt
+		Tax Amount for a document
+	  */
+	public void setTaxAmt (BigDecimal TaxAmt)
+	{
+		set_Value (COLUMNNAME_TaxAmt, TaxAmt);
+	}
+
+	/** Get Tax Amount.
+		@return Tax Amount for a document
+	  */
+	public BigDecimal getTaxAmt ()
+	{
+		BigDecimal bd = (BigDecimal)get_Value(COLUMNNAME_TaxAmt);
+		if (bd == null)
+			 return Env.ZERO;
+		return bd;
+	}
+
+	/** Set Z Number.
+		@param ZNumber
+		Number of the daily close reported by the fiscal printer
+	  */
+	public void setZNumber (int ZNumber)
+	{
+		set_Value (COLUMNNAME_ZNumber, Integer.valueOf(ZNumber));
+	}
+
+	/** Get Z Number.
+		@return Number of the daily close reported by the fiscal printer
+	  */
+	public int getZNumber ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_ZNumber);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+}
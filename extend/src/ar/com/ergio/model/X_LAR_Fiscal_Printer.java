@@ -175,6 +175,43 @@ public class X_LAR_Fiscal_Printer extends PO implements I_LAR_Fiscal_Printer, I_
 		return ii.intValue();
 	}
 
+	/** Set LeaseExpires.
+		@param LeaseExpires
+		Expiry of the lease of the client using the fiscal printer
+	  */
+	public void setLeaseExpires (Timestamp LeaseExpires)
+	{
+		set_Value (COLUMNNAME_LeaseExpires, LeaseExpires);
+	}
+
+	/** Get LeaseExpires.
+		@return Expiry of the lease of the client using the fiscal printer
+	  */
+	public Timestamp getLeaseExpires ()
+	{
+		return (Timestamp)get_Value(COLUMNNAME_LeaseExpires);
+	}
+
+	/** Set LockToken.
+		@param LockToken
+		Fencing token of the last lease of the fiscal printer
+	  */
+	public void setLockToken (int LockToken)
+	{
+		set_Value (COLUMNNAME_LockToken, Integer.valueOf(LockToken));
+	}
+
+	/** Get LockToken.
+		@return Fencing token of the last lease of the fiscal printer
+	  */
+	public int getLockToken ()
+	{
+		Integer ii = (Integer)get_Value(COLUMNNAME_LockToken);
+		if (ii == null)
+			 return 0;
+		return ii.intValue();
+	}
+
 	/** Set Name.
 		@param Name
 		Alphanumeric identifier of the entity
@@ -277,6 +314,23 @@ public class X_LAR_Fiscal_Printer extends PO implements I_LAR_Fiscal_Printer, I_
 		return ii.intValue();
 	}
 
+	/** Set ResponseTimeProfile.
+		@param ResponseTimeProfile
+		Response times learned from the fiscal printer, per command
+	  */
+	public void setResponseTimeProfile (String ResponseTimeProfile)
+	{
+		set_Value (COLUMNNAME_ResponseTimeProfile, ResponseTimeProfile);
+	}
+
+	/** Get ResponseTimeProfile.
+		@return Response times learned from the fiscal printer, per command
+	  */
+	public String getResponseTimeProfile ()
+	{
+		return (String)get_Value(COLUMNNAME_ResponseTimeProfile);
+	}
+
 	/** Status AD_Reference_ID=3000007 */
 	public static final int STATUS_AD_Reference_ID=3000007;
 	/** Busy = BSY */
@@ -18,12 +18,9 @@ package ar.com.ergio.print.fiscal;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.Iterator;
-import java.util.List;
 
 import ar.com.ergio.print.fiscal.util.ByteFormatter;
 
@@ -32,7 +29,7 @@ import ar.com.ergio.print.fiscal.util.ByteFormatter;
 
  * @contributor Emiliano Pereyra - http://www.ergio.com.ar
  */
-public abstract class AbstractFiscalPacket implements FiscalPacket
+public abstract class AbstractFiscalPacket implements FiscalPacket, Cloneable
 {
 
     private static final long serialVersionUID = 558117040031879527L;
@@ -41,7 +38,24 @@ public abstract class AbstractFiscalPacket implements FiscalPacket
 
 	private static final byte[] EMPTY_FIELD = new byte[0];
 
-	private List fields = new ArrayList();
+	private static final int INITIAL_DATA_CAPACITY = 128;
+
+	private static final int INITIAL_FIELD_CAPACITY = 16;
+
+	/** Bytes of every field, stored one after another. */
+	private byte[] data = new byte[INITIAL_DATA_CAPACITY];
+
+	/** Number of bytes of data in use, including space no longer referenced by any field. */
+	private int dataLength;
+
+	private int[] offsets = new int[INITIAL_FIELD_CAPACITY];
+
+	private int[] lengths = new int[INITIAL_FIELD_CAPACITY];
+
+	/** Bytes reserved for each field; a field is rewritten in place while its value fits. */
+	private int[] capacities = new int[INITIAL_FIELD_CAPACITY];
+
+	private int size;
 
 	private FiscalPrinterDevice fiscalPrinter;
 
@@ -65,6 +79,18 @@ public abstract class AbstractFiscalPacket implements FiscalPacket
 		FiscalPacket p = (FiscalPacket) o;
 		int s = getSize();
 		if (s != p.getSize()) return false;
+		if (p instanceof AbstractFiscalPacket)
+		{
+			AbstractFiscalPacket a = (AbstractFiscalPacket) p;
+			for (int i = 0; i < s; i++)
+			{
+				int l = lengths[i];
+				if (l != a.lengths[i]) return false;
+				for (int j = 0, x = offsets[i], y = a.offsets[i]; j < l; j++)
+					if (data[x + j] != a.data[y + j]) return false;
+			}
+			return true;
+		}
 		for (int i = 0; i < s; i++) if (!Arrays.equals(get(i), p.get(i))) return false;
 		return true;
 	}
@@ -74,17 +100,10 @@ public abstract class AbstractFiscalPacket implements FiscalPacket
 		AbstractFiscalPacket p;
 		try { p = (AbstractFiscalPacket) super.clone(); }
 		catch (CloneNotSupportedException e) { throw new Error(e.toString()); }
-		List f = new ArrayList(fields.size());
-		Iterator i = fields.iterator();
-		while (i.hasNext())
-		{
-			byte[] x = (byte[]) i.next();
-			int l = x.length;
-			byte[] y = new byte[l];
-			System.arraycopy(x, 0, y, 0, l);
-			f.add(y);
-		}
-		p.fields = f;
+		p.data = data.clone();
+		p.offsets = offsets.clone();
+		p.lengths = lengths.clone();
+		p.capacities = capacities.clone();
 		p.setFiscalPrinter(getFiscalPrinter());
 		return p;
 	}
@@ -98,7 +117,7 @@ public abstract class AbstractFiscalPacket implements FiscalPacket
 		for (int i = 0, s = getSize(); i < s; i++)
 		{
 			b.append(' ');
-			ByteFormatter.toHexString(b, get(i));
+			ByteFormatter.toHexString(b, data, offsets[i], lengths[i]);
 		}
 		b.append(' ').append('}');
 		return b.toString();
@@ -111,7 +130,7 @@ public abstract class AbstractFiscalPacket implements FiscalPacket
 		for (int i = 0, s = getSize(); i < s; i++)
 		{
 			b.append(' ');
-			ByteFormatter.toASCIIString(b, get(i));
+			ByteFormatter.toASCIIString(b, data, offsets[i], lengths[i]);
 		}
 		b.append(' ').append('}');
 		return b.toString();
@@ -119,78 +138,149 @@ public abstract class AbstractFiscalPacket implements FiscalPacket
 
 	// Size
 
-	public void clear() { fields.clear(); }
+	public void clear()
+	{
+		size = 0;
+		dataLength = 0;
+	}
 
 	public void setSize(int size)
 	{
-		int s = fields.size();
-		if (s < size)
+		if (size < 0) throw new IndexOutOfBoundsException();
+		if (size > offsets.length)
 		{
-			do { fields.add(EMPTY_FIELD); s++; }
-			while (s < size);
+			int c = Math.max(size, offsets.length * 2);
+			offsets = Arrays.copyOf(offsets, c);
+			lengths = Arrays.copyOf(lengths, c);
+			capacities = Arrays.copyOf(capacities, c);
 		}
-		else if (s > size)
+		for (int i = this.size; i < size; i++)
 		{
-			if (size > 0)
-			{
-				do { s--; fields.remove(s); }
-				while (s > size);
-			}
+			offsets[i] = dataLength;
+			lengths[i] = 0;
+			capacities[i] = 0;
+		}
+		this.size = size;
+		if (size == 0) dataLength = 0;
+	}
+
+	public int getSize() { return size; }
+
+	// Buffer
+
+	/**
+	 * Reserve <code>length</code> bytes for the value of a field and set the
+	 * field length. The previous value of the field is lost. Grows the packet
+	 * as needed.
+	 * @return the offset in {@link #getData()} where the value must be written.
+	 */
+	protected int allocate(int field, int length)
+	{
+		if (field < 0 || length < 0) throw new IndexOutOfBoundsException();
+		if (field >= size) setSize(field + 1);
+		if (length > capacities[field])
+		{
+			reserveData(length);
+			if (offsets[field] + capacities[field] == dataLength)
+				dataLength = offsets[field] + length;
 			else
 			{
-				if (size == 0) fields.clear();
-				else throw new IndexOutOfBoundsException();
+				offsets[field] = dataLength;
+				dataLength += length;
 			}
+			capacities[field] = length;
 		}
+		lengths[field] = length;
+		return offsets[field];
 	}
 
-	public int getSize() { return fields.size(); }
+	/**
+	 * Make sure that at least <code>length</code> bytes are free after the data
+	 * in use, compacting the fields (and changing their offsets) if needed.
+	 * @return the offset of the first free byte in {@link #getData()}.
+	 */
+	protected int reserveData(int length)
+	{
+		if (dataLength + length <= data.length) return dataLength;
+		int used = 0;
+		for (int i = 0; i < size; i++) used += lengths[i];
+		int c = data.length;
+		while (c < used + length) c *= 2;
+		byte[] d = new byte[c];
+		int p = 0;
+		for (int i = 0; i < size; i++)
+		{
+			System.arraycopy(data, offsets[i], d, p, lengths[i]);
+			offsets[i] = p;
+			capacities[i] = lengths[i];
+			p += lengths[i];
+		}
+		data = d;
+		dataLength = p;
+		return dataLength;
+	}
 
-	// Fields
+	/**
+	 * Add a field at the end of the packet whose value was already written at
+	 * the first free byte of {@link #getData()} (see {@link #reserveData(int)}).
+	 */
+	protected void addField(int offset, int length)
+	{
+		if (offset != dataLength || offset + length > data.length) throw new IndexOutOfBoundsException();
+		int field = size;
+		setSize(field + 1);
+		offsets[field] = offset;
+		lengths[field] = length;
+		capacities[field] = length;
+		dataLength += length;
+	}
 
-	public void clear(int field) { set(field, EMPTY_FIELD); }
+	/** Buffer that holds the values of all fields. Invalidated by any operation that sets fields. */
+	protected byte[] getData() { return data; }
 
-	public void set(int field, byte[] value)
+	/** Offset in {@link #getData()} of the value of a field. */
+	protected int getOffset(int field)
 	{
-		if (value == null) throw new NullPointerException();
-		int s = fields.size();
-		if (field < s) fields.set(field, value);
-		else
-		{
-			while (field > s) { fields.add(EMPTY_FIELD); s++; }
-			fields.add(value);
-		}
+		if (field < 0 || field >= size) throw new IndexOutOfBoundsException();
+		return offsets[field];
 	}
 
-	public byte[] get(int field) { return (byte[]) fields.get(field); }
+	// Fields
+
+	public void clear(int field) { allocate(field, 0); }
+
+	public void set(int field, byte[] value) { setCopy(field, value, 0, value.length); }
 
-	public int getLength(int field) { return get(field).length; }
+	public byte[] get(int field) { return getCopy(field); }
+
+	public int getLength(int field)
+	{
+		if (field < 0 || field >= size) throw new IndexOutOfBoundsException();
+		return lengths[field];
+	}
 
 	// Field Copies
 
 	public void setCopy(int field, byte[] value) { setCopy(field, value, 0, value.length); }
 	public void setCopy(int field, byte[] value, int offset, int length)
 	{
-		byte[] x = new byte[length];
-		System.arraycopy(value, offset, x, 0, length);
-		set(field, x);
+		if (value == null) throw new NullPointerException();
+		int p = allocate(field, length);
+		System.arraycopy(value, offset, data, p, length);
 	}
 
 	public byte[] getCopy(int field)
 	{
-		byte[] x = get(field);
-		int l = x.length;
-		byte[] y = new byte[l];
-		System.arraycopy(x, 0, y, 0, l);
-		return y;
+		int o = getOffset(field);
+		return Arrays.copyOfRange(data, o, o + lengths[field]);
 	}
 
 	public int getCopy(int field, byte[] value) { return getCopy(field, value, 0, value.length); }
 	public int getCopy(int field, byte[] value, int offset, int length)
 	{
-		byte[] x = get(field);
-		int xl = x.length;
-		System.arraycopy(x, 0, value, offset, length >= xl ? xl : length);
+		int o = getOffset(field);
+		int xl = lengths[field];
+		System.arraycopy(data, o, value, offset, length >= xl ? xl : length);
 		return xl;
 	}
 
@@ -199,34 +289,32 @@ public abstract class AbstractFiscalPacket implements FiscalPacket
 	public void setByte(int field, int value)
 	{
 		if (value < 0 || value > 0xFF) throw new IllegalArgumentException();
-		set(field, new byte[] { (byte) value });
+		int p = allocate(field, 1);
+		data[p] = (byte) value;
 	}
 
 	public int getByte(int field)
 	{
-		byte[] v = get(field);
-		if (v.length != 1) throw new NumberFormatException();
-		return v[0] & 0xFF;
+		int o = getOffset(field);
+		if (lengths[field] != 1) throw new NumberFormatException();
+		return data[o] & 0xFF;
 	}
 
 	public void setHex16(int field, int value)	// NOTE: Does not use setString().
 	{
 		if (value < 0 || value > 0xFFFF) throw new IllegalArgumentException();
-		byte[] v = new byte[4];
-		int p = 0;
-		for (int k = 12; k >= 0; k -= 4) v[p++] = (byte) Character.toUpperCase(Character.forDigit((value >> k) & 0xF, 0x10));
-		set(field, v);
+		int p = allocate(field, 4);
+		for (int k = 12; k >= 0; k -= 4) data[p++] = (byte) Character.toUpperCase(Character.forDigit((value >> k) & 0xF, 0x10));
 	}
 
 	public int getHex16(int field)	// NOTE: Does not use getString().
 	{
-		byte[] v = get(field);
-		if (v.length != 4) throw new NumberFormatException();
+		int p = getOffset(field);
+		if (lengths[field] != 4) throw new NumberFormatException();
 		int value = 0;
-		int p = 0;
 		for (int k = 12; k >= 0; k -= 4)
 		{
-			int d = Character.digit((char) (v[p++] & 0xFF), 0x10);
+			int d = Character.digit((char) (data[p++] & 0xFF), 0x10);
 			if (d < 0) throw new NumberFormatException();
 			value |= (d << k);
 		}
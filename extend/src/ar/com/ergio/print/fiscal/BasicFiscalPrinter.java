@@ -20,6 +20,10 @@ import java.io.IOException;
 import java.math.BigDecimal;
 
 import ar.com.ergio.print.fiscal.comm.FiscalComm;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterStatusError;
+import ar.com.ergio.print.fiscal.journal.DocumentRecovery;
+import ar.com.ergio.print.fiscal.journal.FiscalJournal;
 import ar.com.ergio.print.fiscal.msg.FiscalMessages;
 
 /**
@@ -37,6 +41,8 @@ public abstract class BasicFiscalPrinter implements FiscalPrinterDevice {
 	private FiscalMessages messages;
 	/** Manejador de eventos generados por la impresora fiscal */
 	private FiscalPrinterListener eventListener;
+	/** Entrega de los eventos fuera del hilo de comunicación (null = en el mismo hilo) */
+	private FiscalEventDispatcher eventDispatcher = FiscalEventDispatcher.getInstance();
 	/** Número de comprobante ultimamente creado por la impresora */
 	private String lastDocumentNo;
 	/** Indica si se encuentra un documento abierto actualmente */
@@ -51,6 +57,10 @@ public abstract class BasicFiscalPrinter implements FiscalPrinterDevice {
 	private FiscalPacket lastRequest;
 	/** Ultima respuesta recibida desde la impresora fiscal */
 	private FiscalPacket lastResponse;
+	/** Cantidad máxima de comandos de ítems enviados sin respuesta (1 = sin pipelining) */
+	private int pipelineWindow = 1;
+	/** Diario de comandos y respuestas, para recuperar documentos abiertos */
+	private FiscalJournal journal;
 
 	public BasicFiscalPrinter() {
 		super();
@@ -139,15 +149,51 @@ public abstract class BasicFiscalPrinter implements FiscalPrinterDevice {
 		this.eventListener = eventListener;
 	}
 
+	/**
+	 * @return Returns the eventDispatcher.
+	 */
+	public FiscalEventDispatcher getEventDispatcher() {
+		return eventDispatcher;
+	}
+
+	/**
+	 * @param eventDispatcher Despachador de los eventos; si es
+	 * <code>null</code> los eventos se entregan en el hilo que se comunica
+	 * con la impresora.
+	 */
+	public void setEventDispatcher(FiscalEventDispatcher eventDispatcher) {
+		this.eventDispatcher = eventDispatcher;
+	}
+
+	/**
+	 * Entrega un evento al manejador, mediante el despachador si existe.
+	 * @param progress Indica si es un evento de progreso, que puede
+	 * reemplazarse por uno posterior.
+	 */
+	private void fireEvent(Runnable event, boolean progress) {
+		if (getEventDispatcher() == null)
+			event.run();
+		else if (progress)
+			getEventDispatcher().postProgress(this, event);
+		else
+			getEventDispatcher().post(this, event);
+	}
+
 	/**
 	 * Se ha ejecutado un comando. Se informa al EventListener (en caso de que
-	 * exista) del comando ejecutado.
+	 * exista) del comando ejecutado. Con despachador, los comandos ejecutados
+	 * en ráfaga se informan periódicamente con el último de ellos.
 	 * @param command Comando ejecutado.
 	 * @param response Respuesta recibida.
 	 */
-	protected void fireCommandExecuted(FiscalPacket command, FiscalPacket response) {
-        if (getEventListener() != null) {
-            getEventListener().commandExecuted(this, command, response);
+	protected void fireCommandExecuted(final FiscalPacket command, final FiscalPacket response) {
+		final FiscalPrinterListener listener = getEventListener();
+        if (listener != null) {
+            fireEvent(new Runnable() {
+				public void run() {
+					listener.commandExecuted(BasicFiscalPrinter.this, command, response);
+				}
+			}, true);
         }
 	}
 
@@ -159,9 +205,14 @@ public abstract class BasicFiscalPrinter implements FiscalPrinterDevice {
 	 * @param msgs Mensajes de la impresora (contiene los errores en caso de
 	 * que se haya producido alguno).
 	 */
-	protected void fireStatusChanged(FiscalPacket command, FiscalPacket response, FiscalMessages msgs) {
-        if (getEventListener() != null) {
-            getEventListener().statusChanged(this, command, response, msgs);
+	protected void fireStatusChanged(final FiscalPacket command, final FiscalPacket response, final FiscalMessages msgs) {
+		final FiscalPrinterListener listener = getEventListener();
+        if (listener != null) {
+            fireEvent(new Runnable() {
+				public void run() {
+					listener.statusChanged(BasicFiscalPrinter.this, command, response, msgs);
+				}
+			}, false);
         }
 	}
 
@@ -180,9 +231,14 @@ public abstract class BasicFiscalPrinter implements FiscalPrinterDevice {
 	 * al EventListener (en caso de que exista).
 	 * @param msgs Mensajes de estado de la impresora.
 	 */
-	protected void firePrintEnded(FiscalMessages msgs) {
-        if (getEventListener() != null) {
-            getEventListener().printEnded(this, msgs);
+	protected void firePrintEnded(final FiscalMessages msgs) {
+		final FiscalPrinterListener listener = getEventListener();
+        if (listener != null) {
+            fireEvent(new Runnable() {
+				public void run() {
+					listener.printEnded(BasicFiscalPrinter.this, msgs);
+				}
+			}, false);
         }
 	}
 
@@ -216,6 +272,10 @@ public abstract class BasicFiscalPrinter implements FiscalPrinterDevice {
 		setConnected(false);
 	}
 
+	public void discardSharedState() {
+		// Sin estado compartido por defecto.
+	}
+
 	/**
 	 * @return Returns the documentOpened.
 	 */
@@ -299,4 +359,52 @@ public abstract class BasicFiscalPrinter implements FiscalPrinterDevice {
 	protected void setLastResponse(FiscalPacket lastResponse) {
 		this.lastResponse = lastResponse;
 	}
+
+	/**
+	 * @return Returns the pipelineWindow.
+	 */
+	public int getPipelineWindow() {
+		return pipelineWindow;
+	}
+
+	/**
+	 * Asigna la cantidad máxima de comandos de ítems que se envían sin esperar
+	 * su respuesta. Solo tiene efecto si la interfaz de comunicación lo soporta
+	 * (<code>PipelinedFiscalComm</code>).
+	 * @param pipelineWindow The pipelineWindow to set; 1 o menos desactiva el pipelining.
+	 */
+	public void setPipelineWindow(int pipelineWindow) {
+		this.pipelineWindow = Math.max(1, pipelineWindow);
+	}
+
+	/**
+	 * @return Returns the journal.
+	 */
+	public FiscalJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * @param journal The journal to set; <code>null</code> desactiva el registro
+	 * de comandos.
+	 */
+	public void setJournal(FiscalJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Por defecto no se registran comandos, por lo que no hay documentos
+	 * a recuperar.
+	 */
+	public DocumentRecovery recoverDocument() throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		return DocumentRecovery.NOTHING;
+	}
+
+	/**
+	 * Por defecto no se consulta el dispositivo: se retorna el último estado
+	 * conocido a partir de los comandos ya ejecutados.
+	 */
+	public FiscalPrinterHealth checkHealth() throws FiscalPrinterIOException {
+		return new FiscalPrinterHealth(isWithoutPaper(), false, hasDocumentOpened(), false, getMessages());
+	}
 }
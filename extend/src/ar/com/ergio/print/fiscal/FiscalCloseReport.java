@@ -0,0 +1,292 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal;
+
+import java.math.BigDecimal;
+
+/**
+ * Contadores informados por la impresora fiscal al realizar un cierre de
+ * jornada (X o Z): número de cierre, cantidad de documentos emitidos, últimos
+ * números de comprobante y totales acumulados de la jornada.
+ * <br>
+ * Los importes que la impresora no informa quedan en cero.
+ */
+public class FiscalCloseReport {
+
+	/** Tipo de cierre realizado (X o Z) */
+	private final String closeType;
+	/** Número de cierre (Z) informado por la impresora */
+	private int number;
+	/** Cantidad de documentos fiscales cancelados */
+	private int cancelledDocuments;
+	/** Cantidad de documentos no fiscales homologados emitidos */
+	private int homologatedDocuments;
+	/** Cantidad de documentos no fiscales emitidos */
+	private int nonFiscalDocuments;
+	/** Cantidad de documentos fiscales emitidos */
+	private int fiscalDocuments;
+	/** Último número de factura/ticket B o C */
+	private int lastInvoiceNoBC;
+	/** Último número de factura/ticket A */
+	private int lastInvoiceNoA;
+	/** Total vendido */
+	private BigDecimal salesAmt = BigDecimal.ZERO;
+	/** Total de IVA */
+	private BigDecimal taxAmt = BigDecimal.ZERO;
+	/** Total de impuestos internos */
+	private BigDecimal internalTaxAmt = BigDecimal.ZERO;
+	/** Total de percepciones */
+	private BigDecimal perceptionAmt = BigDecimal.ZERO;
+	/** Total de IVA no inscripto */
+	private BigDecimal nonInscriptTaxAmt = BigDecimal.ZERO;
+	/** Último número de nota de crédito B o C */
+	private int lastCreditNoteNoBC;
+	/** Último número de nota de crédito A */
+	private int lastCreditNoteNoA;
+	/** Total de notas de crédito */
+	private BigDecimal creditAmt = BigDecimal.ZERO;
+
+	/**
+	 * @param closeType Tipo de cierre realizado (X o Z).
+	 */
+	public FiscalCloseReport(String closeType) {
+		this.closeType = closeType;
+	}
+
+	/**
+	 * @return Tipo de cierre realizado (X o Z).
+	 */
+	public String getCloseType() {
+		return closeType;
+	}
+
+	/**
+	 * @return Número de cierre.
+	 */
+	public int getNumber() {
+		return number;
+	}
+
+	/**
+	 * @param number Número de cierre.
+	 */
+	public void setNumber(int number) {
+		this.number = number;
+	}
+
+	/**
+	 * @return Documentos fiscales cancelados.
+	 */
+	public int getCancelledDocuments() {
+		return cancelledDocuments;
+	}
+
+	/**
+	 * @param cancelledDocuments Documentos fiscales cancelados.
+	 */
+	public void setCancelledDocuments(int cancelledDocuments) {
+		this.cancelledDocuments = cancelledDocuments;
+	}
+
+	/**
+	 * @return Documentos no fiscales homologados.
+	 */
+	public int getHomologatedDocuments() {
+		return homologatedDocuments;
+	}
+
+	/**
+	 * @param homologatedDocuments Documentos no fiscales homologados.
+	 */
+	public void setHomologatedDocuments(int homologatedDocuments) {
+		this.homologatedDocuments = homologatedDocuments;
+	}
+
+	/**
+	 * @return Documentos no fiscales.
+	 */
+	public int getNonFiscalDocuments() {
+		return nonFiscalDocuments;
+	}
+
+	/**
+	 * @param nonFiscalDocuments Documentos no fiscales.
+	 */
+	public void setNonFiscalDocuments(int nonFiscalDocuments) {
+		this.nonFiscalDocuments = nonFiscalDocuments;
+	}
+
+	/**
+	 * @return Documentos fiscales.
+	 */
+	public int getFiscalDocuments() {
+		return fiscalDocuments;
+	}
+
+	/**
+	 * @param fiscalDocuments Documentos fiscales.
+	 */
+	public void setFiscalDocuments(int fiscalDocuments) {
+		this.fiscalDocuments = fiscalDocuments;
+	}
+
+	/**
+	 * @return Último número B/C.
+	 */
+	public int getLastInvoiceNoBC() {
+		return lastInvoiceNoBC;
+	}
+
+	/**
+	 * @param lastInvoiceNoBC Último número B/C.
+	 */
+	public void setLastInvoiceNoBC(int lastInvoiceNoBC) {
+		this.lastInvoiceNoBC = lastInvoiceNoBC;
+	}
+
+	/**
+	 * @return Último número A.
+	 */
+	public int getLastInvoiceNoA() {
+		return lastInvoiceNoA;
+	}
+
+	/**
+	 * @param lastInvoiceNoA Último número A.
+	 */
+	public void setLastInvoiceNoA(int lastInvoiceNoA) {
+		this.lastInvoiceNoA = lastInvoiceNoA;
+	}
+
+	/**
+	 * @return Total vendido.
+	 */
+	public BigDecimal getSalesAmt() {
+		return salesAmt;
+	}
+
+	/**
+	 * @param salesAmt Total vendido.
+	 */
+	public void setSalesAmt(BigDecimal salesAmt) {
+		this.salesAmt = salesAmt != null ? salesAmt : BigDecimal.ZERO;
+	}
+
+	/**
+	 * @return Total de IVA.
+	 */
+	public BigDecimal getTaxAmt() {
+		return taxAmt;
+	}
+
+	/**
+	 * @param taxAmt Total de IVA.
+	 */
+	public void setTaxAmt(BigDecimal taxAmt) {
+		this.taxAmt = taxAmt != null ? taxAmt : BigDecimal.ZERO;
+	}
+
+	/**
+	 * @return Total de impuestos internos.
+	 */
+	public BigDecimal getInternalTaxAmt() {
+		return internalTaxAmt;
+	}
+
+	/**
+	 * @param internalTaxAmt Total de impuestos internos.
+	 */
+	public void setInternalTaxAmt(BigDecimal internalTaxAmt) {
+		this.internalTaxAmt = internalTaxAmt != null ? internalTaxAmt : BigDecimal.ZERO;
+	}
+
+	/**
+	 * @return Total de percepciones.
+	 */
+	public BigDecimal getPerceptionAmt() {
+		return perceptionAmt;
+	}
+
+	/**
+	 * @param perceptionAmt Total de percepciones.
+	 */
+	public void setPerceptionAmt(BigDecimal perceptionAmt) {
+		this.perceptionAmt = perceptionAmt != null ? perceptionAmt : BigDecimal.ZERO;
+	}
+
+	/**
+	 * @return Total de IVA no inscripto.
+	 */
+	public BigDecimal getNonInscriptTaxAmt() {
+		return nonInscriptTaxAmt;
+	}
+
+	/**
+	 * @param nonInscriptTaxAmt Total de IVA no inscripto.
+	 */
+	public void setNonInscriptTaxAmt(BigDecimal nonInscriptTaxAmt) {
+		this.nonInscriptTaxAmt = nonInscriptTaxAmt != null ? nonInscriptTaxAmt : BigDecimal.ZERO;
+	}
+
+	/**
+	 * @return Último número de nota de crédito B/C.
+	 */
+	public int getLastCreditNoteNoBC() {
+		return lastCreditNoteNoBC;
+	}
+
+	/**
+	 * @param lastCreditNoteNoBC Último número de nota de crédito B/C.
+	 */
+	public void setLastCreditNoteNoBC(int lastCreditNoteNoBC) {
+		this.lastCreditNoteNoBC = lastCreditNoteNoBC;
+	}
+
+	/**
+	 * @return Último número de nota de crédito A.
+	 */
+	public int getLastCreditNoteNoA() {
+		return lastCreditNoteNoA;
+	}
+
+	/**
+	 * @param lastCreditNoteNoA Último número de nota de crédito A.
+	 */
+	public void setLastCreditNoteNoA(int lastCreditNoteNoA) {
+		this.lastCreditNoteNoA = lastCreditNoteNoA;
+	}
+
+	/**
+	 * @return Total de notas de crédito.
+	 */
+	public BigDecimal getCreditAmt() {
+		return creditAmt;
+	}
+
+	/**
+	 * @param creditAmt Total de notas de crédito.
+	 */
+	public void setCreditAmt(BigDecimal creditAmt) {
+		this.creditAmt = creditAmt != null ? creditAmt : BigDecimal.ZERO;
+	}
+
+	@Override
+	public String toString() {
+		return "FiscalCloseReport[" + closeType + " " + number + ", documents=" + fiscalDocuments
+				+ ", sales=" + salesAmt + ", tax=" + taxAmt + "]";
+	}
+}
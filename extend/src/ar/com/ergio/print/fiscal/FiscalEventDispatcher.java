@@ -0,0 +1,260 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+
+/**
+ * Entrega de los eventos de las impresoras fiscales a sus manejadores fuera
+ * del hilo que se comunica con la impresora.
+ * <br>
+ * Los eventos se ejecutan en orden en un único hilo. Los eventos de progreso
+ * ({@link #postProgress(Object, Runnable)}) se agrupan por origen: mientras
+ * un evento de progreso espera ser entregado, los siguientes del mismo origen
+ * lo reemplazan, y se entrega a lo sumo uno cada {@link #getProgressInterval()}
+ * mls. Un evento ordinario del mismo origen adelanta la entrega del progreso
+ * pendiente, de modo que el orden entre ambos se conserva.
+ * <br>
+ * Un manejador lento demora solo la entrega de los eventos, no los comandos
+ * enviados a la impresora.
+ */
+public class FiscalEventDispatcher {
+
+	/** Intervalo (mls) por defecto entre eventos de progreso de un mismo origen */
+	public static final long DEFAULT_PROGRESS_INTERVAL = 250;
+
+	/** Instancia única */
+	private static FiscalEventDispatcher instance;
+
+	private static CLogger log = CLogger.getCLogger(FiscalEventDispatcher.class);
+
+	/** Eventos pendientes de entrega */
+	private final LinkedList<Event> queue = new LinkedList<Event>();
+	/** Momento de la última entrega de progreso por origen */
+	private final Map<Object, Long> lastProgress = new WeakHashMap<Object, Long>();
+	/** Intervalo (mls) entre eventos de progreso de un mismo origen */
+	private long progressInterval = DEFAULT_PROGRESS_INTERVAL;
+	/** Hilo de entrega */
+	private Thread thread;
+
+	protected FiscalEventDispatcher() {
+		super();
+	}
+
+	/**
+	 * @return La instancia única del despachador.
+	 */
+	public static synchronized FiscalEventDispatcher getInstance() {
+		if (instance == null)
+			instance = new FiscalEventDispatcher();
+		return instance;
+	}
+
+	/**
+	 * Encola un evento para su entrega en orden.
+	 * @param source Origen del evento.
+	 * @param event Entrega del evento a los manejadores.
+	 */
+	public synchronized void post(Object source, Runnable event) {
+		// El progreso pendiente del origen se entrega antes que este evento.
+		for (Event pending : queue) {
+			if (pending.progress && pending.source == source)
+				pending.due = 0;
+		}
+		enqueue(new Event(source, event, false, 0));
+	}
+
+	/**
+	 * Encola un evento de progreso, que reemplaza al progreso pendiente del
+	 * mismo origen si no hay eventos posteriores a este.
+	 * @param source Origen del evento.
+	 * @param snapshot Entrega del estado de progreso a los manejadores.
+	 */
+	public synchronized void postProgress(Object source, Runnable snapshot) {
+		// Solo se reemplaza el progreso si es el último evento pendiente del
+		// origen; si no, el nuevo estado se adelantaría a eventos anteriores.
+		for (Iterator<Event> it = queue.descendingIterator(); it.hasNext();) {
+			Event pending = it.next();
+			if (pending.source != source)
+				continue;
+			if (pending.progress) {
+				pending.action = snapshot;
+				return;
+			}
+			break;
+		}
+		Long last = lastProgress.get(source);
+		long due = last == null ? 0 : last.longValue() + progressInterval;
+		enqueue(new Event(source, snapshot, true, due));
+	}
+
+	/**
+	 * Entrega un evento y espera a que los manejadores terminen de procesarlo,
+	 * luego de los eventos encolados previamente. Se utiliza para los eventos
+	 * cuya respuesta determina cómo continúa la acción en curso.
+	 */
+	public void dispatchAndWait(Object source, Runnable event) throws InterruptedException {
+		if (Thread.currentThread() == getThread()) {
+			run(event);
+			return;
+		}
+		final CountDownLatch done = new CountDownLatch(1);
+		final Runnable action = event;
+		post(source, new Runnable() {
+			public void run() {
+				try {
+					action.run();
+				} finally {
+					done.countDown();
+				}
+			}
+		});
+		done.await();
+	}
+
+	/**
+	 * Espera a que se entreguen los eventos del origen encolados hasta el
+	 * momento, incluido el progreso pendiente.
+	 */
+	public void flush(Object source) throws InterruptedException {
+		dispatchAndWait(source, new Runnable() {
+			public void run() {
+				// Marca de fin
+			}
+		});
+	}
+
+	private void enqueue(Event event) {
+		queue.addLast(event);
+		if (thread == null) {
+			thread = new Thread("FiscalEventDispatcher") {
+				@Override
+				public void run() {
+					dispatch();
+				}
+			};
+			thread.setDaemon(true);
+			thread.start();
+		}
+		notifyAll();
+	}
+
+	private synchronized Thread getThread() {
+		return thread;
+	}
+
+	private void dispatch() {
+		while (true) {
+			Event event;
+			synchronized (this) {
+				event = next();
+				if (event == null)
+					continue;
+				if (event.progress)
+					lastProgress.put(event.source, System.currentTimeMillis());
+			}
+			run(event.action);
+		}
+	}
+
+	/**
+	 * @return El primer evento en condiciones de ser entregado, o null si se
+	 * esperó sin que haya ninguno.
+	 */
+	private Event next() {
+		try {
+			if (queue.isEmpty()) {
+				wait();
+				return null;
+			}
+			long now = System.currentTimeMillis();
+			long wakeUp = Long.MAX_VALUE;
+			// Los eventos de un origen no se adelantan a un progreso pendiente
+			// del mismo origen.
+			for (Iterator<Event> it = queue.iterator(); it.hasNext();) {
+				Event event = it.next();
+				if (!event.progress || event.due <= now) {
+					if (!event.progress && isBlocked(event))
+						continue;
+					it.remove();
+					return event;
+				}
+				wakeUp = Math.min(wakeUp, event.due);
+			}
+			wait(Math.max(1, wakeUp - now));
+		} catch (InterruptedException e) {
+			// Se continúa entregando eventos
+		}
+		return null;
+	}
+
+	private boolean isBlocked(Event event) {
+		for (Event pending : queue) {
+			if (pending == event)
+				return false;
+			if (pending.source == event.source)
+				return true;
+		}
+		return false;
+	}
+
+	private static void run(Runnable action) {
+		try {
+			action.run();
+		} catch (RuntimeException e) {
+			log.log(Level.SEVERE, "Fiscal event listener error: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return Intervalo (mls) entre eventos de progreso de un mismo origen.
+	 */
+	public long getProgressInterval() {
+		return progressInterval;
+	}
+
+	/**
+	 * @param progressInterval Intervalo (mls) entre eventos de progreso de un
+	 * mismo origen.
+	 */
+	public synchronized void setProgressInterval(long progressInterval) {
+		this.progressInterval = progressInterval;
+	}
+
+	/** Evento pendiente de entrega */
+	private static class Event {
+		private final Object source;
+		private Runnable action;
+		private final boolean progress;
+		/** Momento (mls) a partir del cual puede entregarse un progreso */
+		private long due;
+
+		private Event(Object source, Runnable action, boolean progress, long due) {
+			this.source = source;
+			this.action = action;
+			this.progress = progress;
+			this.due = due;
+		}
+	}
+}
@@ -18,6 +18,7 @@ package ar.com.ergio.print.fiscal;
 
 import java.io.*;
 import java.math.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -55,6 +56,11 @@ public interface FiscalPacket extends Serializable
 	public String toASCIIString();
 	/** Return a bytes representation of the packet that the printer needs to process */
 	public byte[] encodeBytes();
+	/** Return the number of bytes written by <code>encode(ByteBuffer)</code> */
+	public int getEncodedLength();
+	/** Write the representation of the packet that the printer needs to process
+	 * at the current position of <code>dst</code> */
+	public void encode(ByteBuffer dst);
 	/** Return a string representation of the packet that the printer needs to process */
 	public String encodeString();
 	/** Loads the packet from a byte array that represent a printer command/response */
@@ -64,6 +70,11 @@ public interface FiscalPacket extends Serializable
 	/** Loads the packet from a byte array that represent a printer command/response 
 	 * and set de packet command code to <code>cmd</code> */
 	public void decode(int cmd, byte[] packetBytes);
+	/** Loads the packet from the remaining bytes of <code>src</code>, which are consumed */
+	public void decode(ByteBuffer src);
+	/** Loads the packet from the remaining bytes of <code>src</code>, which are consumed,
+	 * and set de packet command code to <code>cmd</code> */
+	public void decode(int cmd, ByteBuffer src);
 	
 	// Size
 
@@ -80,9 +91,9 @@ public interface FiscalPacket extends Serializable
 	/** Replace field with empty byte array. */
 	public void clear(int field);
 
-	/** Set the value of a field. A reference to the passed value is kept (value is not copied). */
+	/** Set the value of a field. The passed value is copied into the packet buffer. */
 	public void set(int field, byte[] value);
-	/** Get the value of a field. A reference to the value is returned (the value is not copied). */
+	/** Get the value of a field. A copy of the value is returned. */
 	public byte[] get(int field);
 
 	/** Get the length of the specified byte array. */
@@ -27,6 +27,7 @@ import ar.com.ergio.print.fiscal.document.NonFiscalDocument;
 import ar.com.ergio.print.fiscal.exception.DocumentException;
 import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
 import ar.com.ergio.print.fiscal.exception.FiscalPrinterStatusError;
+import ar.com.ergio.print.fiscal.journal.DocumentRecovery;
 import ar.com.ergio.print.fiscal.msg.FiscalMessages;
 
 /**
@@ -150,10 +151,11 @@ public interface FiscalPrinterDevice {
 	/**
 	 * Realiza el cierre fiscal.
 	 * @param type tipo de cierre
+	 * @return Contadores de la jornada informados por la impresora.
 	 * @throws FiscalPrinterStatusError
 	 * @throws FiscalPrinterIOException
 	 */
-	public void fiscalClose(String type) throws FiscalPrinterStatusError, FiscalPrinterIOException;
+	public FiscalCloseReport fiscalClose(String type) throws FiscalPrinterStatusError, FiscalPrinterIOException;
 
 	/**
 	 * @return Retorna el número del comprobante creado ultimamente por la
@@ -187,6 +189,37 @@ public interface FiscalPrinterDevice {
 	 */
 	public boolean hasDocumentOpened();
 
+	/**
+	 * Resuelve el documento que pudo quedar abierto en el impresor luego de
+	 * una caída del sistema, a partir del diario de comandos de la impresora:
+	 * lo cierra si sólo restaba cerrarlo o en caso contrario lo cancela.
+	 * Se debe invocar luego de conectar la impresora y antes de imprimir.
+	 * @return El resultado de la recuperación.
+	 * @throws FiscalPrinterIOException cuando se producce algún error de
+	 * comunicación con el dispositivo.
+	 * @throws FiscalPrinterStatusError cuando la impresora responde con un
+	 * código de estado de error.
+	 */
+	public DocumentRecovery recoverDocument() throws FiscalPrinterStatusError, FiscalPrinterIOException;
+
+	/**
+	 * Indica que otro cliente pudo usar la impresora desde la última acción
+	 * de este dispositivo (por ejemplo, la tuvo otra terminal entre dos
+	 * concesiones). Se descarta el estado que el controlador supone que
+	 * conserva la impresora, como los datos del comprador ya cargados.
+	 */
+	public void discardSharedState();
+
+	/**
+	 * Consulta el estado de la impresora sin modificar el documento que
+	 * pudiera estar abierto. Un estado de error no se informa mediante
+	 * excepciones sino en el estado retornado.
+	 * @return El estado actual del dispositivo.
+	 * @throws FiscalPrinterIOException cuando se producce algún error de
+	 * comunicación con el dispositivo.
+	 */
+	public FiscalPrinterHealth checkHealth() throws FiscalPrinterIOException;
+
 	/**
 	 * @return Retorna el manejador de eventos de la impresora fiscal.
 	 */
@@ -0,0 +1,116 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal;
+
+import ar.com.ergio.print.fiscal.msg.FiscalMessages;
+
+/**
+ * Estado del dispositivo fiscal en un momento dado: papel, tapa, documento
+ * abierto y memoria fiscal, junto con los mensajes de estado reportados.
+ * <br>
+ * Es inmutable, por lo que puede compartirse entre hilos (ver
+ * <code>FiscalPrinterMonitor</code>).
+ */
+public class FiscalPrinterHealth {
+
+	/** Indica si la impresora se encuentra sin papel */
+	private final boolean withoutPaper;
+	/** Indica si la tapa de la impresora se encuentra abierta */
+	private final boolean coverOpen;
+	/** Indica si hay un documento abierto en la impresora */
+	private final boolean documentOpen;
+	/** Indica si la memoria fiscal está casi llena */
+	private final boolean fiscalMemoryAlmostFull;
+	/** Mensajes de estado reportados por la impresora */
+	private final FiscalMessages messages;
+	/** Momento (mls) en que se obtuvo el estado */
+	private final long time;
+
+	/**
+	 * @param withoutPaper Impresora sin papel.
+	 * @param coverOpen Tapa abierta.
+	 * @param documentOpen Documento abierto en la impresora.
+	 * @param fiscalMemoryAlmostFull Memoria fiscal casi llena.
+	 * @param messages Mensajes de estado reportados por la impresora.
+	 */
+	public FiscalPrinterHealth(boolean withoutPaper, boolean coverOpen, boolean documentOpen,
+			boolean fiscalMemoryAlmostFull, FiscalMessages messages) {
+		this.withoutPaper = withoutPaper;
+		this.coverOpen = coverOpen;
+		this.documentOpen = documentOpen;
+		this.fiscalMemoryAlmostFull = fiscalMemoryAlmostFull;
+		this.messages = messages != null ? messages : new FiscalMessages();
+		this.time = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return Verdadero si el estado impide imprimir: falta de papel, tapa
+	 * abierta o cualquier mensaje de error de la impresora.
+	 */
+	public boolean isBlocking() {
+		return withoutPaper || coverOpen || messages.hasErrors();
+	}
+
+	/**
+	 * @return Returns the withoutPaper.
+	 */
+	public boolean isWithoutPaper() {
+		return withoutPaper;
+	}
+
+	/**
+	 * @return Returns the coverOpen.
+	 */
+	public boolean isCoverOpen() {
+		return coverOpen;
+	}
+
+	/**
+	 * @return Returns the documentOpen.
+	 */
+	public boolean isDocumentOpen() {
+		return documentOpen;
+	}
+
+	/**
+	 * @return Returns the fiscalMemoryAlmostFull.
+	 */
+	public boolean isFiscalMemoryAlmostFull() {
+		return fiscalMemoryAlmostFull;
+	}
+
+	/**
+	 * @return Los mensajes de estado reportados por la impresora.
+	 */
+	public FiscalMessages getMessages() {
+		return messages;
+	}
+
+	/**
+	 * @return Momento (mls) en que se obtuvo el estado.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	@Override
+	public String toString() {
+		return "FiscalPrinterHealth[withoutPaper=" + withoutPaper + ", coverOpen=" + coverOpen
+				+ ", documentOpen=" + documentOpen + ", fiscalMemoryAlmostFull=" + fiscalMemoryAlmostFull
+				+ ", errors=" + messages.getErrorsAsString(" ") + "]";
+	}
+}
@@ -22,6 +22,14 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
 
 import ar.com.ergio.print.fiscal.msg.MsgRepository;
 
@@ -32,6 +40,14 @@ public abstract class AbstractFiscalComm implements FiscalComm {
 	private OutputStream outputStream;
 	private BufferedReader reader;
 	private PrintWriter writer;  
+	/** Thread de E/S de los comandos asincrónicos; se crea con el primer comando */
+	private ThreadPoolExecutor ioExecutor;
+	/** Tiempo (segundos) que el thread de E/S sobrevive sin comandos */
+	private static final int IO_THREAD_KEEP_ALIVE = 60;
+	/** Tiempos de respuesta aprendidos; null si la interfaz usa tiempos fijos */
+	private ResponseTimeProfile responseTimeProfile;
+	/** Observador de los bytes intercambiados; null si no se registran */
+	private CommTraceListener traceListener;
 	
 	public void close() throws IOException {
 		if(getInputStream() != null)
@@ -43,6 +59,38 @@ public abstract class AbstractFiscalComm implements FiscalComm {
 		setConnected(false);
 	}
 	
+	/**
+	 * Encola el comando en el thread de E/S de la interfaz, que lo ejecuta
+	 * mediante {@link #execute(FiscalPacket, FiscalPacket)}. El thread termina
+	 * luego de {@link #IO_THREAD_KEEP_ALIVE} segundos sin comandos, por lo que
+	 * no es necesario liberarlo al cerrar la interfaz.
+	 */
+	public Future<FiscalPacket> executeAsync(final FiscalPacket request, final FiscalPacket response) {
+		if(request == response) throw new IllegalArgumentException();
+		return getIOExecutor().submit(new Callable<FiscalPacket>() {
+			public FiscalPacket call() throws Exception {
+				execute(request, response);
+				return response;
+			}
+		});
+	}
+
+	private synchronized ThreadPoolExecutor getIOExecutor() {
+		if(ioExecutor == null) {
+			final String name = "FiscalComm-IO-" + getClass().getSimpleName();
+			ioExecutor = new ThreadPoolExecutor(1, 1, IO_THREAD_KEEP_ALIVE, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, name);
+							t.setDaemon(true);
+							return t;
+						}
+					});
+			ioExecutor.allowCoreThreadTimeOut(true);
+		}
+		return ioExecutor;
+	}
+
 	/**
 	 * @throws <code>IllegalStateException</code> si la interfaz de comunicación
 	 * no se encuentra conectada al dispositivo.
@@ -52,6 +100,15 @@ public abstract class AbstractFiscalComm implements FiscalComm {
 			throw new IllegalStateException(MsgRepository.get("DeviceNotConnectedError"));
 	}
 
+	/**
+	 * Por defecto solo se puede saber si la interfaz está conectada; las
+	 * implementaciones que pueden detectar el cierre del otro extremo lo
+	 * redefinen.
+	 */
+	public boolean isAlive() {
+		return isConnected();
+	}
+
 	/**
 	 * @return Returns the connected.
 	 */
@@ -110,6 +167,58 @@ public abstract class AbstractFiscalComm implements FiscalComm {
 		this.reader = reader;
 	}
 
+	/**
+	 * @return El perfil de tiempos de respuesta, o null si la interfaz no
+	 * adapta sus tiempos de espera.
+	 */
+	public ResponseTimeProfile getResponseTimeProfile() {
+		return responseTimeProfile;
+	}
+
+	/**
+	 * Asigna el perfil de tiempos de respuesta con el que la interfaz deriva
+	 * sus tiempos de espera por comando y en el que registra los tiempos
+	 * observados. Las interfaces que no esperan por tiempo lo ignoran.
+	 * @param responseTimeProfile The responseTimeProfile to set; null desactiva la adaptación.
+	 */
+	public void setResponseTimeProfile(ResponseTimeProfile responseTimeProfile) {
+		this.responseTimeProfile = responseTimeProfile;
+	}
+
+	/**
+	 * @return El observador de los bytes intercambiados, o null.
+	 */
+	public CommTraceListener getTraceListener() {
+		return traceListener;
+	}
+
+	/**
+	 * Asigna el observador de los bytes intercambiados con el dispositivo.
+	 * Sólo las interfaces que hablan con el spooler informan los bytes.
+	 * @param traceListener The traceListener to set; null desactiva el registro.
+	 */
+	public void setTraceListener(CommTraceListener traceListener) {
+		this.traceListener = traceListener;
+	}
+
+	/**
+	 * Informa al observador los bytes escritos hacia el dispositivo.
+	 */
+	protected void fireBytesSent(byte[] data, int offset, int length) {
+		CommTraceListener listener = traceListener;
+		if (listener != null)
+			listener.bytesSent(data, offset, length);
+	}
+
+	/**
+	 * Informa al observador los bytes leídos desde el dispositivo.
+	 */
+	protected void fireBytesReceived(byte[] data, int offset, int length) {
+		CommTraceListener listener = traceListener;
+		if (listener != null)
+			listener.bytesReceived(data, offset, length);
+	}
+
 	/**
 	 * @return Returns the writer.
 	 */
@@ -17,6 +17,7 @@
 package ar.com.ergio.print.fiscal.comm;
 
 import java.io.IOException;
+import java.util.concurrent.Future;
 
 import ar.com.ergio.print.fiscal.FiscalPacket;
 
@@ -39,6 +40,14 @@ public interface FiscalComm {
 	 * con el dispositivo.
 	 */
 	public boolean isConnected();
+
+	/**
+	 * Chequea que una conexión abierta siga siendo utilizable (por ej, que el
+	 * otro extremo no la haya cerrado). Se utiliza para validar conexiones que
+	 * se mantienen abiertas entre impresiones.
+	 * @return Verdadero si la interfaz está conectada y la conexión sigue viva.
+	 */
+	public boolean isAlive();
 	
 	
 	/**
@@ -52,4 +61,16 @@ public interface FiscalComm {
 	 * @throws IllegalArgumentException si request == response. 
 	 */
 	public void execute(FiscalPacket request, FiscalPacket response) throws IOException;
+
+	/**
+	 * Ejecuta un comando fiscal sin bloquear al thread que lo solicita.
+	 * Los comandos se envían al dispositivo de a uno, en el orden en que
+	 * fueron solicitados, desde un único thread de E/S por interfaz.
+	 * @return Un <code>Future</code> que retorna <code>response</code> una vez
+	 * decodificada la respuesta. Si ocurre un error de comunicación,
+	 * <code>get()</code> lanza una <code>ExecutionException</code> cuya causa es la
+	 * <code>IOException</code>.
+	 * @throws IllegalArgumentException si request == response.
+	 */
+	public Future<FiscalPacket> executeAsync(FiscalPacket request, FiscalPacket response);
 }
@@ -0,0 +1,352 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.comm;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Random;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.msg.MsgRepository;
+
+/**
+ * Interfaz de comunicación que habla directamente el protocolo nativo de los
+ * impresores Hasar (ver <code>HasarProtocolFrame</code>), sin pasar por el Spooler.
+ * <br>
+ * Cada comando se envía en una trama con número de secuencia y BCC. La respuesta
+ * termina en ETX + BCC, por lo que no hace falta adivinar su fin con timeouts:
+ * <ul>
+ * <li> DC2/DC4 del impresor extienden la espera (<code>keepAliveTimeout</code>).
+ * <li> Ante NAK, BCC incorrecto o falta de respuesta (<code>responseTimeout</code>)
+ * se reenvía la misma trama, con la misma secuencia, hasta <code>maxRetries</code>
+ * veces. El impresor no vuelve a ejecutar un comando cuya secuencia ya procesó:
+ * solo reenvía su respuesta.
+ * <li> Las respuestas con otra secuencia (respuestas tardías de un comando anterior)
+ * se descartan.
+ * <li> Recibida una respuesta válida se confirma con ACK.
+ * </ul>
+ * El canal de bytes puede ser un dispositivo (puerto serie o pseudo-terminal ya
+ * configurado en velocidad y paridad, por ej <code>/dev/ttyS0</code>), una conexión
+ * TCP con un conversor serie-ethernet que reenvía los bytes sin modificarlos, o un
+ * par de streams cualesquiera, lo que permite probarla contra un dispositivo en memoria.
+ */
+public class HasarProtocolComm extends AbstractFiscalComm {
+
+	private static final byte NL = 0x0D;
+
+	/** Ruta del dispositivo, o null si los streams se asignan externamente */
+	private String devicePath;
+	/** Host y puerto del conversor serie-ethernet, o null */
+	private String host;
+	private int port;
+	/** Streams asignados externamente */
+	private InputStream channelIn;
+	private OutputStream channelOut;
+	/** Lector del canal */
+	private Receiver receiver;
+	/** Decodificador de tramas */
+	private final HasarProtocolFrame decoder = new HasarProtocolFrame();
+	/** Secuencia del próximo comando */
+	private int sequence;
+
+	/** Tiempo máximo (mls) de espera de la respuesta sin recibir nada */
+	private int responseTimeout = 2000;
+	/** Tiempo máximo (mls) de espera luego de un DC2/DC4 */
+	private int keepAliveTimeout = 6000;
+	/** Cantidad de reenvíos de un comando */
+	private int maxRetries = 3;
+
+	/**
+	 * @param devicePath Dispositivo del impresor (puerto serie o pseudo-terminal).
+	 */
+	public HasarProtocolComm(String devicePath) {
+		super();
+		this.devicePath = devicePath;
+	}
+
+	/**
+	 * @param host Host del conversor serie-ethernet al que está conectado el impresor.
+	 * @param port Puerto TCP del conversor.
+	 */
+	public HasarProtocolComm(String host, int port) {
+		super();
+		this.host = host;
+		this.port = port;
+	}
+
+	/**
+	 * @param in Stream de lectura del canal con el impresor.
+	 * @param out Stream de escritura del canal con el impresor.
+	 */
+	public HasarProtocolComm(InputStream in, OutputStream out) {
+		super();
+		this.channelIn = in;
+		this.channelOut = out;
+	}
+
+	public void connect() throws IOException {
+		if (devicePath != null) {
+			setInputStream(new FileInputStream(devicePath));
+			setOutputStream(new FileOutputStream(devicePath));
+		} else if (host != null) {
+			Socket socket = new Socket(host, port);
+			setInputStream(socket.getInputStream());
+			setOutputStream(socket.getOutputStream());
+		} else {
+			setInputStream(channelIn);
+			setOutputStream(channelOut);
+		}
+		// La secuencia inicial es aleatoria: si coincidiera con la última que procesó
+		// el impresor antes de una reconexión, este devolvería esa respuesta vieja.
+		sequence = HasarProtocolFrame.FIRST_SEQUENCE
+				+ new Random().nextInt(HasarProtocolFrame.LAST_SEQUENCE - HasarProtocolFrame.FIRST_SEQUENCE + 1);
+		receiver = new Receiver(getInputStream());
+		receiver.start();
+		setConnected(true);
+	}
+
+	public void close() throws IOException {
+		if (receiver != null)
+			receiver.interrupt();
+		receiver = null;
+		super.close();
+	}
+
+	public boolean isAlive() {
+		return isConnected() && receiver != null && receiver.isAlive();
+	}
+
+	public synchronized void execute(FiscalPacket request, FiscalPacket response) throws IOException {
+		if(request == response) throw new IllegalArgumentException();
+		if(request == null) throw new NullPointerException(MsgRepository.get("NullRequestError"));
+		if(response == null) throw new NullPointerException(MsgRepository.get("NullResponseError"));
+		validateConnection();
+
+		// La codificación del paquete termina en NL para el Spooler; el protocolo
+		// nativo delimita con ETX.
+		byte[] cmd = request.encodeBytes();
+		int len = cmd.length;
+		if (len > 0 && cmd[len - 1] == NL)
+			len--;
+		byte[] frame = HasarProtocolFrame.encode(sequence, cmd, 0, len);
+		debug("REQ: " + request.toString());
+
+		for (int attempt = 0; attempt <= getMaxRetries(); attempt++) {
+			if (attempt > 0)
+				debug("WARNING: reenviando comando, intento " + attempt);
+			receiver.clear();
+			decoder.reset();
+			getOutputStream().write(frame);
+			getOutputStream().flush();
+
+			byte[] payload = awaitResponse();
+			if (payload != null) {
+				getOutputStream().write(HasarProtocolFrame.ACK);
+				getOutputStream().flush();
+				sequence = HasarProtocolFrame.nextSequence(sequence);
+				response.decode(payload);
+				debug("RES: " + response.toString());
+				return;
+			}
+		}
+		throw new IOException(MsgRepository.get("ProtocolRetriesExceededError"));
+	}
+
+	/**
+	 * @return El contenido de la respuesta al comando actual, o null si hay
+	 * que reenviar el comando.
+	 */
+	private byte[] awaitResponse() throws IOException {
+		long deadline = System.currentTimeMillis() + getResponseTimeout();
+		while (true) {
+			long wait = deadline - System.currentTimeMillis();
+			if (wait <= 0) {
+				debug("WARNING: " + MsgRepository.get("ProtocolTimeoutError"));
+				return null;
+			}
+			int b = receiver.read(wait);
+			if (b < 0)
+				continue;
+			switch (decoder.feed((byte) b)) {
+			case HasarProtocolFrame.EVENT_DC2:
+			case HasarProtocolFrame.EVENT_DC4:
+				deadline = System.currentTimeMillis() + getKeepAliveTimeout();
+				break;
+			case HasarProtocolFrame.EVENT_NAK:
+				debug("WARNING: NAK recibido");
+				return null;
+			case HasarProtocolFrame.EVENT_BAD_FRAME:
+				debug("WARNING: respuesta con BCC incorrecto");
+				return null;
+			case HasarProtocolFrame.EVENT_FRAME:
+				if (decoder.getSequence() == sequence)
+					return decoder.getPayload();
+				debug("WARNING: se descarta respuesta con secuencia " + decoder.getSequence());
+				break;
+			default:
+				deadline = Math.max(deadline, System.currentTimeMillis() + getResponseTimeout());
+			}
+		}
+	}
+
+	/**
+	 * Hilo lector del canal. Permite esperar bytes con timeout sobre streams
+	 * que no lo soportan (dispositivos, pipes).
+	 */
+	private static class Receiver extends Thread {
+
+		private final InputStream in;
+		private byte[] buffer = new byte[1024];
+		private int head;
+		private int count;
+		private IOException error;
+
+		Receiver(InputStream in) {
+			super("HasarProtocolComm-Receiver");
+			this.in = in;
+			setDaemon(true);
+		}
+
+		public void run() {
+			byte[] chunk = new byte[256];
+			try {
+				while (!isInterrupted()) {
+					int n = in.read(chunk);
+					if (n == -1)
+						throw new IOException(MsgRepository.get("DeviceNotConnectedError"));
+					append(chunk, n);
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					error = e;
+					notifyAll();
+				}
+			}
+		}
+
+		private synchronized void append(byte[] chunk, int n) {
+			if (count + n > buffer.length) {
+				byte[] newBuffer = new byte[Math.max(buffer.length * 2, count + n)];
+				for (int i = 0; i < count; i++)
+					newBuffer[i] = buffer[(head + i) % buffer.length];
+				buffer = newBuffer;
+				head = 0;
+			}
+			for (int i = 0; i < n; i++)
+				buffer[(head + count + i) % buffer.length] = chunk[i];
+			count += n;
+			notifyAll();
+		}
+
+		/**
+		 * @return El siguiente byte (0-255) o -1 si venció el timeout.
+		 */
+		synchronized int read(long timeout) throws IOException {
+			if (count == 0 && error == null) {
+				try {
+					wait(timeout);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e.getMessage());
+				}
+			}
+			if (count == 0) {
+				if (error != null)
+					throw error;
+				return -1;
+			}
+			int b = buffer[head] & 0xFF;
+			head = (head + 1) % buffer.length;
+			count--;
+			return b;
+		}
+
+		synchronized void clear() {
+			head = 0;
+			count = 0;
+		}
+	}
+
+	//cambiar acordemente; este es solo para debugguear
+	protected static boolean debugInStdOut = false;
+	protected static boolean debugInLogger = true;
+	protected static CLogger log = CLogger.getCLogger(HasarProtocolComm.class);
+
+	private static void debug(String text) {
+		String textDebug = "==> DEBUG = " + text;
+		if (debugInStdOut)
+			System.out.println(textDebug);
+		if (debugInLogger)
+			log.log(Level.INFO,textDebug);
+	}
+
+	/**
+	 * @return Returns the devicePath.
+	 */
+	public String getDevicePath() {
+		return devicePath;
+	}
+
+	/**
+	 * @return Returns the responseTimeout.
+	 */
+	public int getResponseTimeout() {
+		return responseTimeout;
+	}
+
+	/**
+	 * @param responseTimeout The responseTimeout to set.
+	 */
+	public void setResponseTimeout(int responseTimeout) {
+		this.responseTimeout = responseTimeout;
+	}
+
+	/**
+	 * @return Returns the keepAliveTimeout.
+	 */
+	public int getKeepAliveTimeout() {
+		return keepAliveTimeout;
+	}
+
+	/**
+	 * @param keepAliveTimeout The keepAliveTimeout to set.
+	 */
+	public void setKeepAliveTimeout(int keepAliveTimeout) {
+		this.keepAliveTimeout = keepAliveTimeout;
+	}
+
+	/**
+	 * @return Returns the maxRetries.
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * @param maxRetries The maxRetries to set.
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+}
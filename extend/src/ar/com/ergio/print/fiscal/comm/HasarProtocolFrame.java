@@ -0,0 +1,194 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.comm;
+
+/**
+ * Codificación y decodificación de tramas del protocolo nativo de los
+ * impresores fiscales Hasar (el que habla el puerto serie del impresor, antes
+ * de que el Spooler lo elimine):
+ * <pre>
+ * STX SEQ CMD [FS campo]... ETX BCC
+ * </pre>
+ * <ul>
+ * <li> SEQ: número de secuencia entre 0x20 y 0x7F; el impresor lo repite en la
+ * respuesta y, si recibe dos veces la misma secuencia, reenvía la última
+ * respuesta sin volver a ejecutar el comando.
+ * <li> BCC: suma de todos los bytes desde STX hasta ETX inclusive, expresada
+ * con 4 dígitos hexadecimales en ASCII.
+ * </ul>
+ * Fuera de las tramas el impresor puede enviar DC2 (procesando), DC4 (tapa abierta
+ * o falta de papel), ACK y NAK (trama recibida con error). El decodificador es
+ * una máquina de estados que se alimenta de a un byte e informa cada evento; el
+ * fin de una respuesta queda determinado por ETX + BCC, sin timeouts.
+ */
+public class HasarProtocolFrame {
+
+	public static final byte STX = 0x02;
+	public static final byte ETX = 0x03;
+	public static final byte ACK = 0x06;
+	public static final byte DC2 = 0x12;
+	public static final byte DC4 = 0x14;
+	public static final byte NAK = 0x15;
+
+	public static final int FIRST_SEQUENCE = 0x20;
+	public static final int LAST_SEQUENCE = 0x7F;
+
+	/** Eventos del decodificador */
+	public static final int EVENT_NONE = 0;
+	public static final int EVENT_DC2 = 1;
+	public static final int EVENT_DC4 = 2;
+	public static final int EVENT_ACK = 3;
+	public static final int EVENT_NAK = 4;
+	/** Se recibió una trama completa con BCC correcto */
+	public static final int EVENT_FRAME = 5;
+	/** Se recibió una trama completa con BCC incorrecto */
+	public static final int EVENT_BAD_FRAME = 6;
+
+	private static final int STATE_HUNT = 0;
+	private static final int STATE_BODY = 1;
+	private static final int STATE_BCC = 2;
+
+	private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+	private int state = STATE_HUNT;
+	private byte[] buffer = new byte[128];
+	private int length;
+	private int sum;
+	private int bccLength;
+	private int bcc;
+	private boolean bccValid;
+
+	/**
+	 * Arma una trama con el contenido indicado (comando y campos separados por FS).
+	 */
+	public static byte[] encode(int sequence, byte[] payload, int offset, int len) {
+		byte[] frame = new byte[len + 7];
+		frame[0] = STX;
+		frame[1] = (byte) sequence;
+		System.arraycopy(payload, offset, frame, 2, len);
+		frame[len + 2] = ETX;
+		int sum = checksum(frame, 0, len + 3);
+		frame[len + 3] = HEX[(sum >> 12) & 0xF];
+		frame[len + 4] = HEX[(sum >> 8) & 0xF];
+		frame[len + 5] = HEX[(sum >> 4) & 0xF];
+		frame[len + 6] = HEX[sum & 0xF];
+		return frame;
+	}
+
+	/**
+	 * @return La suma de los bytes (sin signo) en 16 bits.
+	 */
+	public static int checksum(byte[] bytes, int offset, int len) {
+		int sum = 0;
+		for (int i = offset; i < offset + len; i++)
+			sum += bytes[i] & 0xFF;
+		return sum & 0xFFFF;
+	}
+
+	/**
+	 * @return El número de secuencia siguiente a <code>sequence</code>.
+	 */
+	public static int nextSequence(int sequence) {
+		return sequence >= LAST_SEQUENCE || sequence < FIRST_SEQUENCE ? FIRST_SEQUENCE : sequence + 1;
+	}
+
+	/**
+	 * Descarta cualquier trama parcial.
+	 */
+	public void reset() {
+		state = STATE_HUNT;
+		length = 0;
+	}
+
+	/**
+	 * Consume un byte recibido.
+	 * @return El evento que produjo el byte (<code>EVENT_*</code>).
+	 */
+	public int feed(byte b) {
+		switch (state) {
+		case STATE_HUNT:
+			if (b == STX) {
+				length = 0;
+				sum = STX;
+				state = STATE_BODY;
+				return EVENT_NONE;
+			}
+			if (b == DC2)
+				return EVENT_DC2;
+			if (b == DC4)
+				return EVENT_DC4;
+			if (b == ACK)
+				return EVENT_ACK;
+			if (b == NAK)
+				return EVENT_NAK;
+			return EVENT_NONE; // Basura fuera de trama
+		case STATE_BODY:
+			if (b == STX) {
+				// Trama anterior incompleta: empieza una nueva
+				length = 0;
+				sum = STX;
+				return EVENT_NONE;
+			}
+			if (b == DC2 || b == DC4)
+				return b == DC2 ? EVENT_DC2 : EVENT_DC4;
+			sum += b & 0xFF;
+			if (b == ETX) {
+				state = STATE_BCC;
+				bccLength = 0;
+				bcc = 0;
+				bccValid = true;
+				return EVENT_NONE;
+			}
+			append(b);
+			return EVENT_NONE;
+		default: // STATE_BCC
+			int digit = Character.digit((char) (b & 0xFF), 16);
+			if (digit < 0)
+				bccValid = false;
+			bcc = (bcc << 4) | (digit & 0xF);
+			if (++bccLength < 4)
+				return EVENT_NONE;
+			state = STATE_HUNT;
+			return bccValid && bcc == (sum & 0xFFFF) && length > 0 ? EVENT_FRAME : EVENT_BAD_FRAME;
+		}
+	}
+
+	private void append(byte b) {
+		if (length == buffer.length) {
+			byte[] newBuffer = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, newBuffer, 0, length);
+			buffer = newBuffer;
+		}
+		buffer[length++] = b;
+	}
+
+	/**
+	 * @return La secuencia de la última trama recibida.
+	 */
+	public int getSequence() {
+		return length > 0 ? buffer[0] & 0xFF : -1;
+	}
+
+	/**
+	 * @return El contenido (comando y campos) de la última trama recibida.
+	 */
+	public byte[] getPayload() {
+		byte[] payload = new byte[Math.max(length - 1, 0)];
+		System.arraycopy(buffer, 1, payload, 0, payload.length);
+		return payload;
+	}
+}
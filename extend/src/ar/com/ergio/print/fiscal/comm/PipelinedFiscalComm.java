@@ -0,0 +1,65 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.comm;
+
+import java.io.IOException;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+
+/**
+ * Interfaz de comunicación que puede enviar varios comandos sin esperar la
+ * respuesta de cada uno (pipelining). Las respuestas se reciben y se entregan
+ * en el mismo orden en que se enviaron los comandos.
+ */
+public interface PipelinedFiscalComm extends FiscalComm {
+
+	/**
+	 * Receptor de las respuestas de un lote de comandos.
+	 */
+	public interface ResponseHandler {
+
+		/**
+		 * Se invoca por cada respuesta, en orden. Si lanza una excepción no se
+		 * envían más comandos del lote; se leen las respuestas de los comandos
+		 * que ya estaban en curso (sin entregarlas) y la excepción se relanza
+		 * desde <code>executePipelined</code>.
+		 * @param index Posición del comando en el lote.
+		 */
+		public void responseReceived(int index, FiscalPacket request, FiscalPacket response) throws IOException;
+	}
+
+	/**
+	 * @return Verdadero si el fin de la respuesta del comando se puede
+	 * determinar por su contenido, condición necesaria para enviar el
+	 * siguiente comando antes de recibirla.
+	 */
+	public boolean canPipeline(FiscalPacket request);
+
+	/**
+	 * Ejecuta un lote de comandos manteniendo a lo sumo <code>window</code>
+	 * comandos enviados sin respuesta. Los comandos que no se pueden
+	 * encadenar (ver {@link #canPipeline(FiscalPacket)}) se envían solos.
+	 * @param requests Comandos a ejecutar.
+	 * @param responses Paquetes donde se decodifican las respuestas; misma
+	 * longitud que <code>requests</code>.
+	 * @param window Cantidad máxima de comandos sin respuesta (1 = sin pipelining).
+	 * @param handler Receptor de las respuestas.
+	 * @throws IOException si ocurre un error de comunicación, o la excepción
+	 * lanzada por <code>handler</code>.
+	 */
+	public void executePipelined(FiscalPacket[] requests, FiscalPacket[] responses, int window, ResponseHandler handler) throws IOException;
+}
@@ -0,0 +1,125 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.comm;
+
+/**
+ * Forma conocida de antemano de la respuesta a un comando, tal como la entrega
+ * el Spooler (sin el código de operación ni el primer separador).
+ * <br>
+ * La respuesta se describe como una secuencia de campos separados por FS. Cada
+ * campo puede ser:
+ * <ul>
+ * <li> <code>STATUS</code>: palabra de estado de 4 caracteres hexadecimales.
+ * <li> <code>FIXED</code>: campo de longitud fija (por ej, número de comprobante).
+ * <li> <code>AMOUNT</code>: importe con 2 decimales ("nnn.nn"); se considera
+ * completo al recibir el segundo decimal.
+ * <li> <code>VARIABLE</code>: campo de longitud desconocida; solo puede aparecer
+ * antes de otro campo, ya que su fin lo marca el FS siguiente.
+ * </ul>
+ * El último campo determina el fin de la respuesta, por lo que nunca puede ser
+ * <code>VARIABLE</code>.
+ */
+public class ResponseShape {
+
+	public static final int STATUS   = -1;
+	public static final int AMOUNT   = -2;
+	public static final int VARIABLE = -3;
+
+	private static final byte FS = 0x1C;
+
+	/** Respuesta sin datos: status impresora + FS + status fiscal */
+	public static final ResponseShape STATUS_ONLY = new ResponseShape(new int[] { STATUS, STATUS });
+
+	/** Tipo (o longitud, si es positiva) de cada campo */
+	private final int[] fields;
+
+	/**
+	 * @param fields Tipo de cada campo: <code>STATUS</code>, <code>AMOUNT</code>,
+	 * <code>VARIABLE</code> o una longitud fija mayor a cero.
+	 */
+	public ResponseShape(int[] fields) {
+		if (fields == null || fields.length == 0)
+			throw new IllegalArgumentException("fields");
+		if (fields[fields.length - 1] == VARIABLE || fields[fields.length - 1] == 0)
+			throw new IllegalArgumentException("Last field must have a known end");
+		this.fields = fields.clone();
+	}
+
+	/**
+	 * Crea la forma de una respuesta con los dos status más los campos de datos indicados.
+	 */
+	public static ResponseShape withData(int[] dataFields) {
+		int[] fields = new int[dataFields.length + 2];
+		fields[0] = STATUS;
+		fields[1] = STATUS;
+		System.arraycopy(dataFields, 0, fields, 2, dataFields.length);
+		return new ResponseShape(fields);
+	}
+
+	/**
+	 * @return Cantidad de campos de la respuesta.
+	 */
+	public int getFieldCount() {
+		return fields.length;
+	}
+
+	/**
+	 * Determina si los primeros <code>length</code> bytes de <code>rsp</code> forman
+	 * una respuesta completa con esta forma. No interpreta los bits de los status
+	 * (ver <code>SpoolerManagerResponse</code>), solo su longitud y los separadores.
+	 */
+	public boolean isComplete(byte[] rsp, int length) {
+		int field = 0;
+		int start = 0;
+		for (int i = 0; i <= length; i++) {
+			if (i < length && rsp[i] != FS)
+				continue;
+			if (i == length && field != fields.length - 1)
+				return false; // Faltan campos
+			if (field >= fields.length)
+				return false; // Sobran campos
+			if (!isFieldComplete(fields[field], rsp, start, i))
+				return false;
+			field++;
+			start = i + 1;
+		}
+		return field == fields.length;
+	}
+
+	private boolean isFieldComplete(int type, byte[] rsp, int start, int end) {
+		int len = end - start;
+		if (type == VARIABLE)
+			return true;
+		if (type == STATUS)
+			return len == 4;
+		if (type == AMOUNT)
+			return isAmount(rsp, start, end);
+		return len == type;
+	}
+
+	private boolean isAmount(byte[] rsp, int start, int end) {
+		if (end - start < 4 || rsp[end - 3] != '.')
+			return false;
+		for (int i = start; i < end; i++) {
+			if (i == end - 3 || (i == start && rsp[i] == '-'))
+				continue;
+			if (rsp[i] < '0' || rsp[i] > '9')
+				return false;
+		}
+		return true;
+	}
+}
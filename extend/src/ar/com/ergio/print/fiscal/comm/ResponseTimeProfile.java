@@ -0,0 +1,307 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.comm;
+
+/**
+ * Perfil de tiempos de respuesta de un impresor fiscal, por código de comando.
+ * <br>
+ * Por cada comando se registran dos distribuciones en histogramas de escala
+ * geométrica: la demora hasta el primer byte real de la respuesta (sin contar
+ * los avisos DC2/DC4) y el mayor silencio entre bytes dentro de la respuesta.
+ * A partir de sus percentiles se derivan los tiempos de espera:
+ * <ul>
+ * <li> <b>Período de silencio</b>: el silencio que marca el fin de una respuesta
+ * sin regla de longitud. Se reduce para los comandos que responden de un solo
+ * tirón y se extiende para los que responden en tramos.
+ * <li> <b>Espera del primer byte</b>: nunca menor al valor por defecto; se extiende
+ * para los comandos lentos (por ej, el cierre Z).
+ * </ul>
+ * Mientras un comando no tenga suficientes muestras se utilizan los valores por
+ * defecto de la interfaz de comunicación. Los histogramas se reducen a la mitad
+ * cuando acumulan {@link #DECAY_THRESHOLD} muestras, de modo que el perfil sigue
+ * los cambios del equipo.
+ * <br>
+ * El perfil se serializa en una cadena (ver {@link #toString()} y
+ * {@link #parse(String)}) para persistirlo junto con la configuración del impresor.
+ */
+public class ResponseTimeProfile {
+
+	/** Versión del formato serializado */
+	private static final String FORMAT_VERSION = "1";
+	/** Límites superiores (mls) de cada intervalo de los histogramas */
+	private static final int[] BOUNDS = {
+		1, 2, 3, 5, 8, 12, 18, 27, 40, 60, 90, 135, 200, 300, 450, 675,
+		1000, 1500, 2250, 3400, 5000, 7500, 11000, 17000, 25000, 40000, 60000
+	};
+	/** Cantidad mínima de muestras de un comando para usar sus tiempos aprendidos */
+	public static final int MIN_SAMPLES = 20;
+	/** Cantidad de muestras a partir de la cual se reducen los histogramas */
+	public static final int DECAY_THRESHOLD = 500;
+
+	/** Percentil de los tiempos observados que se toma como referencia */
+	private double percentile = 0.99;
+	/** Factor de seguridad aplicado sobre el percentil */
+	private double safetyFactor = 2.0;
+	/** Período de silencio mínimo (mls) */
+	private int minQuietPeriod = 60;
+	/** Espera máxima (mls) del primer byte derivada del perfil */
+	private int maxFirstByteTimeout = 60000;
+
+	/** Histogramas por código de comando: [cmd][0] = primer byte, [cmd][1] = silencio */
+	private final int[][][] histograms = new int[256][][];
+	/** Muestras por código de comando */
+	private final int[] samples = new int[256];
+	/** Indica si hay muestras que no fueron persistidas */
+	private boolean modified = false;
+
+	public ResponseTimeProfile() {
+		super();
+	}
+
+	/**
+	 * Registra los tiempos de una respuesta.
+	 * @param commandCode Código del comando.
+	 * @param firstByteTime Demora (mls) desde el envío hasta el primer byte real.
+	 * @param maxGap Mayor silencio (mls) entre bytes recibidos de la respuesta.
+	 */
+	public synchronized void record(int commandCode, long firstByteTime, long maxGap) {
+		int cmd = commandCode & 0xFF;
+		if (histograms[cmd] == null)
+			histograms[cmd] = new int[2][BOUNDS.length];
+		histograms[cmd][0][bucket(firstByteTime)]++;
+		histograms[cmd][1][bucket(maxGap)]++;
+		if (++samples[cmd] >= DECAY_THRESHOLD)
+			decay(cmd);
+		modified = true;
+	}
+
+	/**
+	 * @param defaultValue Período de silencio (mls) configurado en la interfaz.
+	 * @return El silencio (mls) que marca el fin de la respuesta del comando.
+	 */
+	public synchronized int getQuietPeriod(int commandCode, int defaultValue) {
+		int cmd = commandCode & 0xFF;
+		if (samples[cmd] < MIN_SAMPLES)
+			return defaultValue;
+		long value = Math.round(percentile(histograms[cmd][1]) * safetyFactor);
+		return (int) Math.max(minQuietPeriod, Math.min(value, 4L * defaultValue));
+	}
+
+	/**
+	 * @param defaultValue Espera (mls) del primer byte configurada en la interfaz.
+	 * @return La espera (mls) del primer byte real de la respuesta del comando.
+	 */
+	public synchronized int getFirstByteTimeout(int commandCode, int defaultValue) {
+		int cmd = commandCode & 0xFF;
+		if (samples[cmd] < MIN_SAMPLES)
+			return defaultValue;
+		long value = Math.round(percentile(histograms[cmd][0]) * safetyFactor);
+		return (int) Math.max(defaultValue, Math.min(value, maxFirstByteTimeout));
+	}
+
+	/**
+	 * @return Cantidad de muestras del comando.
+	 */
+	public synchronized int getSamples(int commandCode) {
+		return samples[commandCode & 0xFF];
+	}
+
+	/**
+	 * @return Verdadero si se registraron muestras desde la creación del perfil
+	 * o desde la última invocación a {@link #clearModified()}.
+	 */
+	public synchronized boolean isModified() {
+		return modified;
+	}
+
+	/**
+	 * Indica que el estado actual del perfil fue persistido.
+	 */
+	public synchronized void clearModified() {
+		modified = false;
+	}
+
+	/**
+	 * @return El límite superior del intervalo que contiene el percentil.
+	 */
+	private int percentile(int[] histogram) {
+		int total = 0;
+		for (int count : histogram)
+			total += count;
+		long target = (long) Math.ceil(total * percentile);
+		long acc = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			acc += histogram[i];
+			if (acc >= target)
+				return BOUNDS[i];
+		}
+		return BOUNDS[BOUNDS.length - 1];
+	}
+
+	private static int bucket(long millis) {
+		for (int i = 0; i < BOUNDS.length; i++) {
+			if (millis <= BOUNDS[i])
+				return i;
+		}
+		return BOUNDS.length - 1;
+	}
+
+	private void decay(int cmd) {
+		int total = 0;
+		for (int[] histogram : histograms[cmd]) {
+			int sum = 0;
+			for (int i = 0; i < histogram.length; i++) {
+				histogram[i] /= 2;
+				sum += histogram[i];
+			}
+			total = Math.max(total, sum);
+		}
+		samples[cmd] = total;
+	}
+
+	/**
+	 * Serializa el perfil. Formato: <code>1;cmd:f=i*n,i*n/g=i*n;...</code> con
+	 * el código de comando y los intervalos en hexadecimal; solo se incluyen los
+	 * intervalos con muestras.
+	 */
+	@Override
+	public synchronized String toString() {
+		StringBuffer sb = new StringBuffer(FORMAT_VERSION);
+		for (int cmd = 0; cmd < histograms.length; cmd++) {
+			if (histograms[cmd] == null || samples[cmd] == 0)
+				continue;
+			sb.append(';').append(Integer.toHexString(cmd)).append(":f=");
+			append(sb, histograms[cmd][0]);
+			sb.append("/g=");
+			append(sb, histograms[cmd][1]);
+		}
+		return sb.toString();
+	}
+
+	private static void append(StringBuffer sb, int[] histogram) {
+		boolean first = true;
+		for (int i = 0; i < histogram.length; i++) {
+			if (histogram[i] == 0)
+				continue;
+			if (!first)
+				sb.append(',');
+			sb.append(Integer.toHexString(i)).append('*').append(histogram[i]);
+			first = false;
+		}
+	}
+
+	/**
+	 * Reconstruye un perfil serializado con {@link #toString()}. Las entradas
+	 * mal formadas o de otra versión se ignoran.
+	 * @param profile Perfil serializado; puede ser null.
+	 * @return El perfil (vacío si no hay datos válidos).
+	 */
+	public static ResponseTimeProfile parse(String profile) {
+		ResponseTimeProfile result = new ResponseTimeProfile();
+		if (profile == null || !profile.startsWith(FORMAT_VERSION + ";"))
+			return result;
+		for (String entry : profile.substring(FORMAT_VERSION.length() + 1).split(";")) {
+			try {
+				int colon = entry.indexOf(':');
+				int slash = entry.indexOf("/g=");
+				if (colon < 0 || slash < 0 || !entry.startsWith("f=", colon + 1))
+					continue;
+				int cmd = Integer.parseInt(entry.substring(0, colon), 16) & 0xFF;
+				int[][] histogram = new int[2][BOUNDS.length];
+				int firstSamples = parse(entry.substring(colon + 3, slash), histogram[0]);
+				int gapSamples = parse(entry.substring(slash + 3), histogram[1]);
+				result.histograms[cmd] = histogram;
+				result.samples[cmd] = Math.max(firstSamples, gapSamples);
+			} catch (RuntimeException e) {
+				// Entrada inválida: se ignora
+			}
+		}
+		return result;
+	}
+
+	private static int parse(String values, int[] histogram) {
+		int total = 0;
+		if (values.length() == 0)
+			return total;
+		for (String value : values.split(",")) {
+			int star = value.indexOf('*');
+			int index = Integer.parseInt(value.substring(0, star), 16);
+			int count = Integer.parseInt(value.substring(star + 1));
+			if (index < 0 || index >= histogram.length || count < 0)
+				throw new IllegalArgumentException(value);
+			histogram[index] = count;
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * @return Returns the percentile.
+	 */
+	public double getPercentile() {
+		return percentile;
+	}
+
+	/**
+	 * @param percentile The percentile to set (0 a 1).
+	 */
+	public void setPercentile(double percentile) {
+		this.percentile = percentile;
+	}
+
+	/**
+	 * @return Returns the safetyFactor.
+	 */
+	public double getSafetyFactor() {
+		return safetyFactor;
+	}
+
+	/**
+	 * @param safetyFactor The safetyFactor to set.
+	 */
+	public void setSafetyFactor(double safetyFactor) {
+		this.safetyFactor = safetyFactor;
+	}
+
+	/**
+	 * @return Returns the minQuietPeriod.
+	 */
+	public int getMinQuietPeriod() {
+		return minQuietPeriod;
+	}
+
+	/**
+	 * @param minQuietPeriod The minQuietPeriod to set.
+	 */
+	public void setMinQuietPeriod(int minQuietPeriod) {
+		this.minQuietPeriod = minQuietPeriod;
+	}
+
+	/**
+	 * @return Returns the maxFirstByteTimeout.
+	 */
+	public int getMaxFirstByteTimeout() {
+		return maxFirstByteTimeout;
+	}
+
+	/**
+	 * @param maxFirstByteTimeout The maxFirstByteTimeout to set.
+	 */
+	public void setMaxFirstByteTimeout(int maxFirstByteTimeout) {
+		this.maxFirstByteTimeout = maxFirstByteTimeout;
+	}
+}
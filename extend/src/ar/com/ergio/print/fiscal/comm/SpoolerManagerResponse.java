@@ -16,27 +16,39 @@
  *****************************************************************************/
 package ar.com.ergio.print.fiscal.comm;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import ar.com.ergio.print.fiscal.AbstractFiscalPacket;
 import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
+import ar.com.ergio.print.fiscal.hasar.HasarCommands;
 import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
 
 /**
- * Clase helper, utilizada por SpoolerTCPComm, que sirve para saber conservativamente cuando una 
- * secuencia deteminada de bytes enviadas por el Spooler de Hasar es una respuesta completa a un 
+ * Clase helper, utilizada por SpoolerTCPComm y SpoolerNIOComm, que sirve para saber conservativamente
+ * cuando una secuencia deteminada de bytes enviadas por el Spooler de Hasar es una respuesta completa a un 
  * determinado comando Hasar que la genero.
  * <br>
- * NOTA: esta clase no tiene actualmente en cuenta el modelo de la impresora a la cual se esta conectando
- * por lo tanto, a futuro o se debe parametrizar para que tenga esto en cuenta (ya que las longitudes
- * de las respuestas puede variar dependiendo del modelo de impresor), o dejarlo tal como esta hecho
- * actualmente: solo se consideran completas aquellas respuestas que :
- * <ul>
- * <li> Tienen longitud fija en todos los modelos, teniendo ciertos patrones 
- * <li> El comando inicial que genero la respuesta es muy usado (no tiene mucho sentido
- * optimizar comandos usados muy de vez en cuando, arriesgando la correctitud)
- * </ul> 
+ * Las reglas se registran en una tabla indexada por clase de impresora y código de comando
+ * (ver <code>ResponseShape</code>). Para un comando enviado se busca la regla de la clase
+ * de la impresora del paquete y, si no hay, la de sus superclases; las reglas registradas
+ * para <code>HasarFiscalPrinter</code> valen entonces para todos los modelos salvo que un
+ * modelo registre la suya. Si no se encuentra regla la respuesta nunca se considera
+ * completa y la comunicación corta por timeout, tal como antes.
  * <br>
- * Version actual soporta chequeos para los sig. comandos:
+ * Solo se registran comandos cuya respuesta tiene forma conocida:
  * <ul>
- * <li> PrintLineItem
+ * <li> Sin datos (9 bytes, FS en el 5to): PrintLineItem, PrintFiscalText, LastItemDiscount,
+ * SetCustomerData, PrintNonFiscalText, ReturnRecharge.
+ * <li> Subtotal: cantidad de items, ventas, IVA, pagado, IVA no inscripto e impuestos internos;
+ * se completa al recibir el segundo decimal del último importe.
+ * <li> TotalTender: vuelto o monto faltante.
+ * <li> CloseFiscalReceipt: número de comprobante de 8 dígitos; si el perfil de la impresora
+ * indica que retorna el CAI (ver <code>HasarPrinterProfile</code>) se espera además el CAI de
+ * 14 dígitos. Si el firmware no lo retorna la respuesta no coincide con la regla y se corta
+ * por timeout, por lo que nunca se pierde el CAI.
  * </ul>
  */
 public class SpoolerManagerResponse {
@@ -44,6 +56,12 @@ public class SpoolerManagerResponse {
 	
 	protected static final int OP_CMD_PRINT_LINE_ITEM	 = 0x42;
 	protected static final byte FS_HASAR = 0x1C;
+
+	/** Longitud del número de comprobante en la respuesta de CloseFiscalReceipt */
+	private static final int DOCUMENT_NUMBER_LENGTH = 8;
+	/** Longitud del CAI en la respuesta de CloseFiscalReceipt */
+	private static final int CAI_LENGTH = 14;
+
 	private static SpoolerManagerResponse defInst= null;
 	public static SpoolerManagerResponse getDefInst()
 	{
@@ -53,8 +71,80 @@ public class SpoolerManagerResponse {
 		}
 		return defInst;
 	}
-	
-	
+
+	/** Respuesta de CloseFiscalReceipt de los modelos que retornan el CAI */
+	private final ResponseShape closeWithCAI = ResponseShape.withData(new int[] {
+			DOCUMENT_NUMBER_LENGTH, ResponseShape.VARIABLE, CAI_LENGTH });
+
+	/** Reglas por clase de impresora y código de comando */
+	private final Map<Class<?>, Map<Integer, ResponseShape>> shapes = new HashMap<Class<?>, Map<Integer, ResponseShape>>();
+
+	public SpoolerManagerResponse()
+	{
+		registerHasarShapes();
+	}
+
+	private void registerHasarShapes()
+	{
+		Class<?> hasar = HasarFiscalPrinter.class;
+		register(hasar, HasarCommands.CMD_PRINT_LINE_ITEM, ResponseShape.STATUS_ONLY);
+		register(hasar, HasarCommands.CMD_PRINT_FISCAL_TEXT, ResponseShape.STATUS_ONLY);
+		register(hasar, HasarCommands.CMD_LAST_ITEM_DISCOUNT, ResponseShape.STATUS_ONLY);
+		register(hasar, HasarCommands.CMD_SET_CUSTOMER_DATA, ResponseShape.STATUS_ONLY);
+		register(hasar, HasarCommands.CMD_PRINT_NON_FISCAL_TEXT, ResponseShape.STATUS_ONLY);
+		register(hasar, HasarCommands.CMD_RETURN_RECHARGE, ResponseShape.STATUS_ONLY);
+		register(hasar, HasarCommands.CMD_SUBTOTAL, ResponseShape.withData(new int[] {
+				ResponseShape.VARIABLE, ResponseShape.VARIABLE, ResponseShape.VARIABLE,
+				ResponseShape.VARIABLE, ResponseShape.VARIABLE, ResponseShape.AMOUNT }));
+		register(hasar, HasarCommands.CMD_TOTAL_TENDER, ResponseShape.withData(new int[] {
+				ResponseShape.AMOUNT }));
+		register(hasar, HasarCommands.CMD_CLOSE_FISCAL_RECEIPT, ResponseShape.withData(new int[] {
+				DOCUMENT_NUMBER_LENGTH }));
+	}
+
+	/**
+	 * Registra la forma de la respuesta de un comando para una clase de impresora (y
+	 * sus subclases que no registren una propia).
+	 * @param printerClass Clase de la impresora.
+	 * @param commandCode Código del comando.
+	 * @param shape Forma de la respuesta, o <code>null</code> para indicar que para esta
+	 * clase la respuesta no tiene forma conocida aunque la tenga para la superclase.
+	 */
+	public synchronized void register(Class<?> printerClass, int commandCode, ResponseShape shape)
+	{
+		Map<Integer, ResponseShape> byCommand = shapes.get(printerClass);
+		if (byCommand == null)
+		{
+			byCommand = new HashMap<Integer, ResponseShape>();
+			shapes.put(printerClass, byCommand);
+		}
+		byCommand.put(commandCode, shape);
+	}
+
+	/**
+	 * @return La forma de la respuesta al comando, según el perfil y el modelo de la
+	 * impresora del paquete, o <code>null</code> si no se conoce.
+	 */
+	public synchronized ResponseShape getShape(FiscalPacket request)
+	{
+		if (!(request instanceof HasarFiscalPacket))
+			return null;
+		Integer commandCode = request.getCommandCode();
+		FiscalPrinterDevice printer = ((AbstractFiscalPacket) request).getFiscalPrinter();
+		if (commandCode.intValue() == HasarCommands.CMD_CLOSE_FISCAL_RECEIPT
+				&& printer instanceof HasarFiscalPrinter
+				&& ((HasarFiscalPrinter) printer).getProfile().isCAIReturned())
+			return closeWithCAI;
+		Class<?> clazz = printer != null ? printer.getClass() : HasarFiscalPrinter.class;
+		for (; clazz != null; clazz = clazz.getSuperclass())
+		{
+			Map<Integer, ResponseShape> byCommand = shapes.get(clazz);
+			if (byCommand != null && byCommand.containsKey(commandCode))
+				return byCommand.get(commandCode);
+		}
+		return null;
+	}
+
 	public boolean isResponseCompleted(FiscalPacket request, byte[] rspBytes)
 	{
 		//casos comunes
@@ -62,59 +152,30 @@ public class SpoolerManagerResponse {
 			return false;
 		if (rspBytes == null)
 			return false;
-		if (rspBytes.length == 0)
-			return false;
-		if (!(request instanceof HasarFiscalPacket))
-			return false;
-		HasarFiscalPacket reqHasar = (HasarFiscalPacket) request;
-		
-		//chequeos por tipo de comandos
-		if (checkPrintLineItem(reqHasar, rspBytes))
-			return true;
-		//agregar otros aca o en subclases; por ej, LastItemDiscount, etc
-		
-		return false;
+		return isResponseCompleted(getShape(request), rspBytes, rspBytes.length);
 	}
-	
-	private boolean checkPrintLineItem(HasarFiscalPacket request,byte[] rspBytes)
+
+	/**
+	 * Igual que <code>isResponseCompleted(FiscalPacket, byte[])</code> pero con la regla ya
+	 * resuelta y sin copiar el buffer; es la variante que usa el framer en cada byte recibido.
+	 */
+	public boolean isResponseCompleted(ResponseShape shape, byte[] rspBytes, int length)
 	{
-		//si el comanod no era PrintLineItem este check no se puede aplicar
-		if (!isPrintLineItem(request))
-		{
-			return false;
-		}
-		
 		//NOTA: las respuestas de Hasar que no contienen datos tienen longitud real
 		//de 11 bytes: Op (1 byte) + FS (1 byte) + Status Impresora (4 bytes) + FS (1 byte) + Status Fiscal (4 bytes)
 		//Pero el spooler de Hasar elimina OP y el siguiente FS, por lo que le llega a SpoolerTCPComm
 		//los últimos nueve bytes (los dos Status y el FS que los separa).
-		//Por lo tanto se considera que una respuesta completa a PrintLineItem tiene que 
-		//tener 9 bytes, con FS en el 5to. NO SE INTERPRETAN los bits de respuesta de manera exhaustiva, 
-		//ya que se asumen que
+		//NO SE INTERPRETAN los bits de respuesta de manera exhaustiva, ya que se asumen que
 		//1) En caso de que haya un error marcado en los mismos, de todas maneras la logica
-		//de los drivers va a fallar; aún cuando en el futuro no falle (por ej, se reintenta un comando)
-		//la respuesta de error sigue (a falta de mejor documentacion de Hasar....) siendo de longitud
-		//fija (despues de estos bits no se envia por ej, una string de descricion del error, al menos
-		//bajo modelos actuales)
+		//de los drivers va a fallar; la respuesta de error sigue (a falta de mejor documentacion
+		//de Hasar....) siendo de la misma forma
 		//2) En caso de que en estos status no haya ningun error, los bits activados pueden ser distintos
 		//dependiendo del modelo o de estados no necesariente relacionados a errores (por ej, 
 		//"C080"+FS+"3600" o "0080"+FS+"3600" son posibles).
-		//De todas maneras, no hay tatans variantes posibles, se podria hacer un mejor chequeo
-		//a futuro. Por lo pronto por simplicidad solo se va a verifcar la longitud y el FS
-		
-		if ( rspBytes.length == 9 && rspBytes[4]== FS_HASAR)
-		{
-			return true;
-		}
-		
-		return false;
+		if (shape == null || length == 0)
+			return false;
+		return shape.isComplete(rspBytes, length);
 	}
 
-	private boolean isPrintLineItem(HasarFiscalPacket request)
-	{
-		return request.getCommandCode() == OP_CMD_PRINT_LINE_ITEM;
-		
-	}
-	
 	
 }
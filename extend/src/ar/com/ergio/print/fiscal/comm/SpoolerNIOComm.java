@@ -0,0 +1,472 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.comm;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.msg.MsgRepository;
+
+/**
+ * Interfaz de comunicación con el Spooler por TCP basada en
+ * <code>SocketChannel</code> y <code>Selector</code>.
+ * <br>
+ * A diferencia de <code>SpoolerTCPComm</code>, que lee de a un byte con timeouts
+ * de 200 mls y determina el fin de la respuesta contando timeouts, esta
+ * implementación lee todo lo disponible en cada evento del selector y se lo pasa
+ * a un <code>SpoolerResponseFramer</code>:
+ * <ul>
+ * <li> Si la regla de longitud del comando (ver <code>SpoolerManagerResponse</code>)
+ * indica que la respuesta está completa, se retorna inmediatamente, sin esperar
+ * ningún timeout.
+ * <li> Si el comando no tiene regla, se corta luego de un período de silencio
+ * (<code>quietPeriod</code>) medido desde el último byte recibido, y no en
+ * múltiplos fijos de 200 mls.
+ * <li> Los avisos DC2/DC4 extienden la espera hasta <code>keepAliveTimeout</code>
+ * desde el último aviso.
+ * </ul>
+ * Los tiempos por defecto son equivalentes a los de <code>SpoolerTCPComm</code>
+ * (2 segundos para el primer byte, 6 segundos luego de un DC2, 400 mls de silencio
+ * con al menos 9 bytes de respuesta).
+ * <br>
+ * Permite además enviar lotes de comandos sin esperar cada respuesta (ver
+ * <code>PipelinedFiscalComm</code>) siempre que el fin de la respuesta de cada
+ * comando se pueda determinar por su regla de longitud.
+ */
+public class SpoolerNIOComm extends AbstractFiscalComm implements PipelinedFiscalComm {
+
+	/** HOST en donde se encuentra el Spooler */
+	private String host;
+	/** Puerto TCP donde se encuentra escuchando el Spooler */
+	private int tcpPort;
+	/** Canal de conexión al Spooler */
+	private SocketChannel channel;
+	/** Selector donde está registrado el canal */
+	private Selector selector;
+	/** Clave de registro del canal en el selector */
+	private SelectionKey selectionKey;
+	/** Buffer de lectura reutilizado entre comandos. Queda en modo lectura con los
+	 * bytes recibidos luego de la última respuesta (respuestas encadenadas). */
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(512);
+	/** Buffer de escritura reutilizado entre comandos; crece si un comando no entra */
+	private ByteBuffer writeBuffer = ByteBuffer.allocate(512);
+	/** Armado de la respuesta */
+	private final SpoolerResponseFramer framer = new SpoolerResponseFramer();
+
+	/** Tiempo máximo (mls) para establecer la conexión */
+	private int connectTimeout = 5000;
+	/** Tiempo máximo (mls) de espera del primer byte de la respuesta */
+	private int firstByteTimeout = 2000;
+	/** Tiempo máximo (mls) de espera luego de un aviso DC2/DC4 */
+	private int keepAliveTimeout = 6000;
+	/** Silencio (mls) que marca el fin de una respuesta sin regla de longitud */
+	private int quietPeriod = 400;
+	/** Tiempo máximo (mls) de espera cuando la respuesta parcial tiene menos de 9 bytes */
+	private int partialTimeout = 1000;
+
+	/**
+	 * @param host Host donde se encuentra el Spooler.
+	 * @param tcpPort Puerto TCP donde se encuentra abierto el Spooler.
+	 */
+	public SpoolerNIOComm(String host, int tcpPort) {
+		super();
+		this.host = host;
+		this.tcpPort = tcpPort;
+		readBuffer.limit(0);
+	}
+
+	public void connect() throws IOException {
+		InetSocketAddress address = new InetSocketAddress(getHost(), getTcpPort());
+		if (address.isUnresolved()) {
+			setConnected(false);
+			throw new IOException(MsgRepository.get("UnknownHostError") + " (" + getHost() + ")");
+		}
+		SocketChannel ch = SocketChannel.open();
+		try {
+			ch.socket().connect(address, getConnectTimeout());
+			ch.socket().setTcpNoDelay(true);
+			ch.configureBlocking(false);
+			selector = Selector.open();
+			selectionKey = ch.register(selector, SelectionKey.OP_READ);
+		} catch (IOException e) {
+			ch.close();
+			if (selector != null)
+				selector.close();
+			selector = null;
+			setConnected(false);
+			if (e instanceof ConnectException || e instanceof SocketTimeoutException)
+				throw new ConnectException(MsgRepository.get("SpoolerConnectError") + " (Host: " + getHost() + ":" + getTcpPort() + ").");
+			throw e;
+		}
+		channel = ch;
+		setConnected(true);
+	}
+
+	public void close() throws IOException {
+		super.close();
+		try {
+			if (selector != null)
+				selector.close();
+		} finally {
+			selector = null;
+			selectionKey = null;
+			if (channel != null)
+				channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Además de verificar el estado del canal, lee sin bloquear lo que haya pendiente:
+	 * si el Spooler cerró la conexión se detecta el fin de stream.
+	 */
+	public synchronized boolean isAlive() {
+		if (!isConnected() || channel == null || !channel.isOpen())
+			return false;
+		try {
+			discardPendingBytes();
+			return true;
+		} catch (IOException e) {
+			debug("WARNING: conexión con el spooler cerrada: " + e.getMessage());
+			return false;
+		}
+	}
+
+	public synchronized void execute(FiscalPacket request, FiscalPacket response) throws IOException {
+		if(request == response) throw new IllegalArgumentException();
+		if(request == null) throw new NullPointerException(MsgRepository.get("NullRequestError"));
+		if(response == null) throw new NullPointerException(MsgRepository.get("NullResponseError"));
+		// Se valida el estado de la conexión con el spooler.
+		validateConnection();
+
+		// Bytes de una respuesta anterior que llegaron tarde no deben
+		// mezclarse con la respuesta de este comando.
+		discardPendingBytes();
+
+		write(encode(request));
+		fireBytesSent(writeBuffer.array(), 0, writeBuffer.limit());
+		debug("REQ: " + request.toString());
+
+		response.decode(request.getCommandCode(), readResponse(request));
+		debug("RES: " + response.toString());
+	}
+
+	/**
+	 * @return El buffer de escritura con el comando codificado, listo para enviar.
+	 */
+	private ByteBuffer encode(FiscalPacket request) {
+		int length = request.getEncodedLength();
+		if (writeBuffer.capacity() < length)
+			writeBuffer = ByteBuffer.allocate(Math.max(length, writeBuffer.capacity() * 2));
+		writeBuffer.clear();
+		request.encode(writeBuffer);
+		writeBuffer.flip();
+		return writeBuffer;
+	}
+
+	private void write(ByteBuffer src) throws IOException {
+		while (src.hasRemaining()) {
+			if (channel.write(src) > 0)
+				continue;
+			// Buffer de envío del SO lleno: se espera a que se pueda escribir
+			selectionKey.interestOps(SelectionKey.OP_WRITE);
+			try {
+				if (selector.select(getFirstByteTimeout()) == 0)
+					throw new IOException(MsgRepository.get("SpoolerConnectError") + " (Host: " + getHost() + ":" + getTcpPort() + ").");
+				selector.selectedKeys().clear();
+			} finally {
+				selectionKey.interestOps(SelectionKey.OP_READ);
+			}
+		}
+	}
+
+	/**
+	 * Se encadenan los comandos cuya respuesta tiene regla de longitud; sin
+	 * ella el fin de la respuesta es un período de silencio, que no existe
+	 * si el siguiente comando ya está en curso.
+	 */
+	public boolean canPipeline(FiscalPacket request) {
+		return SpoolerManagerResponse.getDefInst().getShape(request) != null;
+	}
+
+	public synchronized void executePipelined(FiscalPacket[] requests, FiscalPacket[] responses, int window, ResponseHandler handler) throws IOException {
+		if(requests.length != responses.length) throw new IllegalArgumentException();
+		validateConnection();
+		discardPendingBytes();
+
+		int sent = 0;
+		int received = 0;
+		IOException handlerError = null;
+		while (received < requests.length) {
+			// Se envían comandos mientras haya lugar en la ventana. Un comando que
+			// no se puede encadenar solo se envía (y se espera) de a uno.
+			while (handlerError == null && sent < requests.length
+					&& (sent == received || (sent - received < window
+							&& canPipeline(requests[sent - 1]) && canPipeline(requests[sent])))) {
+				if(requests[sent] == responses[sent]) throw new IllegalArgumentException();
+				write(encode(requests[sent]));
+				fireBytesSent(writeBuffer.array(), 0, writeBuffer.limit());
+				debug("REQ: " + requests[sent].toString());
+				sent++;
+			}
+			if (sent == received)
+				break;
+
+			FiscalPacket request = requests[received];
+			FiscalPacket response = responses[received];
+			response.decode(request.getCommandCode(), readResponse(request));
+			debug("RES: " + response.toString());
+			int index = received++;
+			if (handlerError != null)
+				continue;
+			try {
+				handler.responseReceived(index, request, response);
+			} catch (IOException e) {
+				// Se dejan de enviar comandos; se leen los que están en curso
+				handlerError = e;
+			}
+		}
+		if (handlerError != null)
+			throw handlerError;
+	}
+
+	private void discardPendingBytes() throws IOException {
+		int pending = readBuffer.remaining();
+		readBuffer.limit(0);
+		if (selector.selectNow() > 0) {
+			selector.selectedKeys().clear();
+			readBuffer.clear();
+			int n = channel.read(readBuffer);
+			readBuffer.limit(0);
+			if (n == -1)
+				throw new IOException(MsgRepository.get("DeviceNotConnectedError"));
+			pending += n;
+		}
+		if (pending > 0)
+			debug("WARNING: se descartan " + pending + " bytes pendientes de una respuesta anterior");
+	}
+
+	/**
+	 * Lee la respuesta del Spooler. Termina cuando el framer determina que la respuesta
+	 * está completa, cuando se cierra el socket, o cuando vence el tiempo de espera
+	 * correspondiente al estado del framer.
+	 */
+	private ByteBuffer readResponse(FiscalPacket request) throws IOException {
+		framer.reset(request);
+		long start = System.currentTimeMillis();
+		long lastByte = start;
+		// Bytes que llegaron junto con la respuesta anterior
+		if (readBuffer.hasRemaining() && framer.feed(readBuffer) == SpoolerResponseFramer.STATE_COMPLETE)
+			return framer.getResponseBuffer();
+		int commandCode = request.getCommandCode();
+		// Tiempos observados para el perfil de tiempos de respuesta
+		long firstByte = 0;
+		long maxGap = 0;
+
+		while (true) {
+			long now = System.currentTimeMillis();
+			long wait = getDeadline(commandCode, start, lastByte) - now;
+			if (wait <= 0) {
+				logTimeout();
+				break;
+			}
+			if (selector.select(wait) == 0)
+				continue;
+			selector.selectedKeys().clear();
+
+			readBuffer.clear();
+			int n = channel.read(readBuffer);
+			readBuffer.flip();
+			if (n == -1) {
+				// endOfStream! No necesariamene un error aunque es muy probable...
+				debug("WARNING: socket cerrado a la espera de respuesta. Long. Resp. parcial: " + framer.getLength());
+				break;
+			}
+			if (n == 0)
+				continue;
+			fireBytesReceived(readBuffer.array(), 0, n);
+			now = System.currentTimeMillis();
+			if (firstByte > 0)
+				maxGap = Math.max(maxGap, now - lastByte);
+			lastByte = now;
+			// Lo que sobre queda en el buffer para la siguiente respuesta
+			int state = framer.feed(readBuffer);
+			if (firstByte == 0 && (state == SpoolerResponseFramer.STATE_RESPONSE || state == SpoolerResponseFramer.STATE_COMPLETE))
+				firstByte = now;
+			if (state == SpoolerResponseFramer.STATE_COMPLETE)
+				break;
+		}
+		if (framer.getDC2Count() > 0 || framer.getDC4Count() > 0)
+			debug("DC2: " + framer.getDC2Count() + " DC4: " + framer.getDC4Count());
+		if (getResponseTimeProfile() != null && firstByte > 0
+				&& framer.getLength() >= SpoolerResponseFramer.MIN_RESPONSE_LENGTH)
+			getResponseTimeProfile().record(commandCode, firstByte - start, maxGap);
+		return framer.getResponseBuffer();
+	}
+
+	/**
+	 * @return El instante (mls) en el que se deja de esperar, según el estado del framer.
+	 */
+	private long getDeadline(int commandCode, long start, long lastByte) {
+		ResponseTimeProfile profile = getResponseTimeProfile();
+		if (framer.getState() == SpoolerResponseFramer.STATE_WAITING) {
+			if (framer.isLastWasKeepAlive())
+				return lastByte + getKeepAliveTimeout();
+			if (profile != null)
+				return start + profile.getFirstByteTimeout(commandCode, getFirstByteTimeout());
+			return start + getFirstByteTimeout();
+		}
+		if (framer.getLength() >= SpoolerResponseFramer.MIN_RESPONSE_LENGTH) {
+			if (profile != null)
+				return lastByte + profile.getQuietPeriod(commandCode, getQuietPeriod());
+			return lastByte + getQuietPeriod();
+		}
+		return lastByte + getPartialTimeout();
+	}
+
+	private void logTimeout() {
+		if (framer.getLength() >= SpoolerResponseFramer.MIN_RESPONSE_LENGTH)
+			debug("Fin de respuesta por período de silencio");
+		else if (framer.getLength() > 0)
+			debug("WARNING: Dejando de esperar repuesta antes de recibir al menos 9 bytes");
+		else if (framer.isLastWasKeepAlive())
+			debug("ERROR: cancelando espera de repuesta en DC2; demasiada espera");
+		else
+			debug("ERROR: expiró el tiempo de espera y no se recibio ni un solo byte de respuesta");
+	}
+
+	//cambiar acordemente; este es solo para debugguear
+	protected static boolean debugInStdOut = false;
+	protected static boolean debugInLogger = true;
+	protected static CLogger log = CLogger.getCLogger(SpoolerNIOComm.class);
+
+	private static void debug(String text) {
+		String textDebug = "==> DEBUG = " + text;
+		if (debugInStdOut)
+			System.out.println(textDebug);
+		if (debugInLogger)
+			log.log(Level.INFO,textDebug);
+	}
+
+	/**
+	 * @return Returns the host.
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @param host The host to set.
+	 */
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	/**
+	 * @return Returns the tcpPort.
+	 */
+	public int getTcpPort() {
+		return tcpPort;
+	}
+
+	/**
+	 * @param tcpPort The tcpPort to set.
+	 */
+	public void setTcpPort(int tcpPort) {
+		this.tcpPort = tcpPort;
+	}
+
+	/**
+	 * @return Returns the connectTimeout.
+	 */
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * @param connectTimeout The connectTimeout to set.
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * @return Returns the firstByteTimeout.
+	 */
+	public int getFirstByteTimeout() {
+		return firstByteTimeout;
+	}
+
+	/**
+	 * @param firstByteTimeout The firstByteTimeout to set.
+	 */
+	public void setFirstByteTimeout(int firstByteTimeout) {
+		this.firstByteTimeout = firstByteTimeout;
+	}
+
+	/**
+	 * @return Returns the keepAliveTimeout.
+	 */
+	public int getKeepAliveTimeout() {
+		return keepAliveTimeout;
+	}
+
+	/**
+	 * @param keepAliveTimeout The keepAliveTimeout to set.
+	 */
+	public void setKeepAliveTimeout(int keepAliveTimeout) {
+		this.keepAliveTimeout = keepAliveTimeout;
+	}
+
+	/**
+	 * @return Returns the quietPeriod.
+	 */
+	public int getQuietPeriod() {
+		return quietPeriod;
+	}
+
+	/**
+	 * @param quietPeriod The quietPeriod to set.
+	 */
+	public void setQuietPeriod(int quietPeriod) {
+		this.quietPeriod = quietPeriod;
+	}
+
+	/**
+	 * @return Returns the partialTimeout.
+	 */
+	public int getPartialTimeout() {
+		return partialTimeout;
+	}
+
+	/**
+	 * @param partialTimeout The partialTimeout to set.
+	 */
+	public void setPartialTimeout(int partialTimeout) {
+		this.partialTimeout = partialTimeout;
+	}
+}
@@ -0,0 +1,216 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.comm;
+
+import java.nio.ByteBuffer;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+
+/**
+ * Máquina de estados que arma la respuesta del Spooler a partir de los bytes
+ * que se van recibiendo, sin depender de la cantidad de bytes entregados en cada
+ * lectura.
+ * <br>
+ * El Spooler antepone a la respuesta real una sucesión de avisos en ASCII:
+ * <ul>
+ * <li> "DC2": el impresor sigue procesando el comando.
+ * <li> "DC4": el impresor informa tapa/cajón abierto; se trata igual que DC2
+ * (se sigue esperando) pero se lleva la cuenta para poder informarlo.
+ * </ul>
+ * Los avisos se consumen y nunca forman parte de la respuesta. Una vez que llega
+ * el primer byte real, el fin de la respuesta se determina mediante las reglas
+ * de longitud por comando de <code>SpoolerManagerResponse</code>. Si para el
+ * comando no hay regla, el framer no puede saber cuándo terminó la respuesta y
+ * queda en estado <code>RESPONSE</code>: es responsabilidad de la interfaz de
+ * comunicación cortar por período de silencio.
+ */
+public class SpoolerResponseFramer {
+
+	/** No se recibió ningún byte, o solo avisos DC2/DC4 completos */
+	public static final int STATE_WAITING  = 0;
+	/** Se recibió un prefijo ("D" o "DC") que todavía puede ser un aviso */
+	public static final int STATE_CONTROL  = 1;
+	/** Se recibió al menos un byte de la respuesta real */
+	public static final int STATE_RESPONSE = 2;
+	/** La respuesta está completa según la regla del comando */
+	public static final int STATE_COMPLETE = 3;
+
+	/** Longitud mínima de una respuesta real del Spooler: status(4) + FS + status(4) */
+	public static final int MIN_RESPONSE_LENGTH = 9;
+
+	private static final byte BYTE_D = 0x44;
+	private static final byte BYTE_C = 0x43;
+	private static final byte BYTE_2 = 0x32;
+	private static final byte BYTE_4 = 0x34;
+
+	private final SpoolerManagerResponse responseManager;
+	private ResponseShape shape;
+	private byte[] buffer = new byte[64];
+	/** Vista de solo lectura sobre <code>buffer</code> */
+	private ByteBuffer view = ByteBuffer.wrap(buffer).asReadOnlyBuffer();
+	private int length;
+	private int state;
+	private int dc2Count;
+	private int dc4Count;
+	private boolean lastWasKeepAlive;
+
+	public SpoolerResponseFramer() {
+		this(SpoolerManagerResponse.getDefInst());
+	}
+
+	public SpoolerResponseFramer(SpoolerManagerResponse responseManager) {
+		this.responseManager = responseManager;
+	}
+
+	/**
+	 * Prepara el framer para la respuesta de un nuevo comando.
+	 * @param request Comando enviado (se usa para las reglas de longitud).
+	 */
+	public void reset(FiscalPacket request) {
+		shape = responseManager.getShape(request);
+		length = 0;
+		state = STATE_WAITING;
+		dc2Count = 0;
+		dc4Count = 0;
+		lastWasKeepAlive = false;
+	}
+
+	/**
+	 * Consume los bytes disponibles del buffer. Si la respuesta se completa,
+	 * los bytes restantes quedan sin consumir en <code>src</code>.
+	 * @return El estado luego de consumir los bytes.
+	 */
+	public int feed(ByteBuffer src) {
+		while (src.hasRemaining() && state != STATE_COMPLETE) {
+			feed(src.get());
+		}
+		return state;
+	}
+
+	/**
+	 * Consume <code>len</code> bytes del arreglo a partir de <code>off</code>.
+	 * @return El estado luego de consumir los bytes.
+	 */
+	public int feed(byte[] src, int off, int len) {
+		for (int i = off; i < off + len && state != STATE_COMPLETE; i++) {
+			feed(src[i]);
+		}
+		return state;
+	}
+
+	private void feed(byte b) {
+		append(b);
+		if (state == STATE_WAITING || state == STATE_CONTROL) {
+			// Todavía no llegó nada de la respuesta real; se buscan avisos
+			if (length == 1) {
+				state = (b == BYTE_D) ? STATE_CONTROL : STATE_RESPONSE;
+			} else if (length == 2) {
+				state = (b == BYTE_C) ? STATE_CONTROL : STATE_RESPONSE;
+			} else if (b == BYTE_2 || b == BYTE_4) {
+				if (b == BYTE_2)
+					dc2Count++;
+				else
+					dc4Count++;
+				length = 0;
+				lastWasKeepAlive = true;
+				state = STATE_WAITING;
+				return;
+			} else {
+				state = STATE_RESPONSE;
+			}
+			if (state == STATE_CONTROL)
+				return;
+			lastWasKeepAlive = false;
+		}
+		if (length >= MIN_RESPONSE_LENGTH
+				&& responseManager.isResponseCompleted(shape, buffer, length)) {
+			state = STATE_COMPLETE;
+		}
+	}
+
+	private void append(byte b) {
+		if (length == buffer.length) {
+			byte[] newBuffer = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, newBuffer, 0, length);
+			buffer = newBuffer;
+			view = ByteBuffer.wrap(buffer).asReadOnlyBuffer();
+		}
+		buffer[length++] = b;
+	}
+
+	/**
+	 * @return Los bytes de la respuesta real recibidos hasta el momento, sin
+	 * los avisos DC2/DC4. Si el framer quedó a mitad de un prefijo ("D", "DC")
+	 * esos bytes se devuelven tal cual, igual que lo hacía <code>SpoolerTCPComm</code>.
+	 */
+	public byte[] getResponse() {
+		byte[] res = new byte[length];
+		System.arraycopy(buffer, 0, res, 0, length);
+		return res;
+	}
+
+	/**
+	 * @return Los mismos bytes que {@link #getResponse()}, sin copiarlos: la vista
+	 * es válida hasta el próximo <code>reset</code> o <code>feed</code>.
+	 */
+	public ByteBuffer getResponseBuffer() {
+		view.limit(length).position(0);
+		return view;
+	}
+
+	/**
+	 * @return La cantidad de bytes de respuesta acumulados.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return El estado actual de la máquina de estados.
+	 */
+	public int getState() {
+		return state;
+	}
+
+	/**
+	 * @return Verdadero si la regla del comando determinó que la respuesta llegó completa.
+	 */
+	public boolean isComplete() {
+		return state == STATE_COMPLETE;
+	}
+
+	/**
+	 * @return Verdadero si lo último que se recibió fue un aviso DC2/DC4.
+	 */
+	public boolean isLastWasKeepAlive() {
+		return lastWasKeepAlive;
+	}
+
+	/**
+	 * @return Cantidad de avisos DC2 recibidos para el comando actual.
+	 */
+	public int getDC2Count() {
+		return dc2Count;
+	}
+
+	/**
+	 * @return Cantidad de avisos DC4 recibidos para el comando actual.
+	 */
+	public int getDC4Count() {
+		return dc4Count;
+	}
+}
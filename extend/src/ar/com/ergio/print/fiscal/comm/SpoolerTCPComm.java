@@ -21,13 +21,13 @@ import java.net.ConnectException;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.logging.Level;
 
 import org.compiere.util.CLogger;
 
 import ar.com.ergio.print.fiscal.FiscalPacket;
 import ar.com.ergio.print.fiscal.msg.MsgRepository;
-import ar.com.ergio.print.fiscal.util.ArrayUtils;
 
 /**
  * Interfaz de comunicación mediante un Spooler conectado por TCP.
@@ -121,6 +121,18 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 	private Socket spoolerSocket;
 	/** Cantidad de timeOuts a esperar para leer un byte del stream */
 	private int readTimeOutCount = 5;
+	/** Tiempo (mls) de cada timeOut de lectura */
+	private static final int READ_TIMEOUT = 200;
+	/** Rondas adicionales de timeOuts a la espera del primer byte */
+	private int retriesWaitFirstByte = 1;
+	/** Rondas adicionales de timeOuts a la espera del primer byte real luego de DC2's */
+	private int retriesWaitFirstRealByteAfterTimeoutInDC2s = 5;
+	/** TimeOuts sin recibir nada que marcan el fin de una respuesta de al menos 9 bytes */
+	private int readTimeOutCountAfterFirstRealByte = 2;
+	/** Buffer de escritura reutilizado entre comandos; crece si un comando no entra */
+	private ByteBuffer requestBuffer = ByteBuffer.allocate(512);
+	/** Buffer de la respuesta reutilizado entre comandos; crece si una respuesta no entra */
+	private byte[] rspBuffer = new byte[512];
 		
 	/**
 	 * @param host Host donde se encuentra el Spooler.
@@ -135,7 +147,7 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 	public void connect() throws IOException {
 		try {
 			Socket soc = new Socket(getHost(), getTcpPort());
-			soc.setSoTimeout(200);
+			soc.setSoTimeout(READ_TIMEOUT);
 			setSpoolerSocket(soc);
 			setInputStream(soc.getInputStream());
 			setOutputStream(soc.getOutputStream());
@@ -155,6 +167,11 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 		}
 	}
 
+	public boolean isAlive() {
+		return isConnected() && getSpoolerSocket() != null && !getSpoolerSocket().isClosed()
+				&& !getSpoolerSocket().isInputShutdown();
+	}
+
 	public synchronized void execute(FiscalPacket request, FiscalPacket response) throws IOException {
 		if(request == response) throw new IllegalArgumentException();
 		if(request == null) throw new NullPointerException(MsgRepository.get("NullRequestError"));
@@ -164,8 +181,13 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 		
 		// Se obtiene la representación en bytes del comando y se escribe
 		// sobre stream de salida.
-		byte[] cmdBytes = request.encodeBytes();
-		getOutputStream().write(cmdBytes);
+		int cmdLength = request.getEncodedLength();
+		if (requestBuffer.capacity() < cmdLength)
+			requestBuffer = ByteBuffer.allocate(Math.max(cmdLength, requestBuffer.capacity() * 2));
+		requestBuffer.clear();
+		request.encode(requestBuffer);
+		getOutputStream().write(requestBuffer.array(), 0, requestBuffer.position());
+		fireBytesSent(requestBuffer.array(), 0, requestBuffer.position());
 		//Ader Javier: 10 oct 2010 se debe poner el flush luego de
 		//escribir; si no puede que despues fallen los timeouts de lectura
 		getOutputStream().flush();
@@ -174,16 +196,14 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 		
 		// Se obtiene la respuesta de la impresora a partir del stream de entrada
 		// del socket y se decodifican los bytes para crear el paquete de respuesta.
-		byte[] resBytes = new byte[512];
-		resBytes = getResponse(request);
-		response.decode(request.getCommandCode(), resBytes);
+		response.decode(request.getCommandCode(), getResponse(request));
 		
 		debug("RES: " + response.toString());
 	}
 	//Ader Javier, feb 2011; se agrego el parametro request para que se puedan aplicar
 	//optimizaciones de salteo completos de timeouts para ciertos comandos y ante ciertas
 	//respuesta.
-	private byte[] getResponse(FiscalPacket request) throws IOException {
+	private ByteBuffer getResponse(FiscalPacket request) throws IOException {
 		// Se obtienen los bytes a partir del stream de entrada.
 		// NOTA: El WSpooler tiene una particularidad muy desagradable 
 		// de realizar respuestas de comandos sin indicar el fin de la 
@@ -192,27 +212,27 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 		// determinar la cantidad de bytes que componen a la misma, por 
 		// lo tanto, se optó por implementar un contador de timeOuts para  
 		// determinar este fin.
-		byte[] rspBytes = new byte[0];
+		// La respuesta se acumula en rspBuffer (los primeros rspLength bytes)
+		int rspLength = 0;
+		ResponseShape shape = SpoolerManagerResponse.getDefInst().getShape(request);
 		byte b;
 		// boolean end = false; SE USA while(true) y breaks
 		int timeOutCount = 0;
 		int DC2Counter = 0;
 		boolean lastReadWasDC2 = false;
 		
-		// TODO: que sea parametrizable y documetado
 		// si expiran todos los timeous y aun no se recibio ni un solo byte
 		// se reintenta "volver a esperar" esta cantidad de veces
-		int retriesWaitFirstByte = 1;
-		// TODO: que sea parametrizable y documentado
+		int retriesWaitFirstByte = getRetriesWaitFirstByte();
 		// Depues de una succion de DC2DC2DC2...DC2 puede que expiren todos los timeouts
 		// en la espera del primer byte de la respueta o del primer byte de otro DC2...
 		// Bajo esta circunstancia se vuelve a esperar una vez la siguiente cantidad de
 		// veces
-		int retriesWaitFirstRealByteAfterTimeoutInDC2s = 5; //serian 
+		int retriesWaitFirstRealByteAfterTimeoutInDC2s = getRetriesWaitFirstRealByteAfterTimeoutInDC2s(); //serian 
 		boolean alwaysWaitFirstRealByteAfterDC2 = false; //si esto es true SIEMPRE
 		// se espera luego de haber consumido un almeno un DC2, y el contadora anterior no tiene
 		// efecto 
-		int readTimeOutCountAfterFirstRealByte = 2; //despues de que ya se lleyo parte
+		int readTimeOutCountAfterFirstRealByte = getReadTimeOutCountAfterFirstRealByte(); //despues de que ya se lleyo parte
 		// de la respuesta real, cuanto tiempo hay que esperar? Cuantos timeouts pueden expirar 
 		// sin haber recibido nuevamente nada? (por defecto 2 de 200mls; lo cual da 400mls). 
 		// Esto es para acelerar las cosas; una vez que uno recibe parte de la repuseta real (esto es NO "DC2"),
@@ -220,6 +240,22 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 		// solo se usa cuando la repusta actual tieen una longitud mayor o igaul a 9 (el spooler
 		// retonrna en respuesta reales al menos 9 bytes (dos conjuntos de 4 bytes de status
 		// y un byte seperardor)
+		int readTimeOutCount = getReadTimeOutCount();
+		
+		// Con un perfil de tiempos de respuesta las esperas se derivan de los
+		// tiempos observados para el comando (en cantidad de timeOuts).
+		ResponseTimeProfile profile = getResponseTimeProfile();
+		int commandCode = request.getCommandCode();
+		if (profile != null) {
+			readTimeOutCount = toTimeOutCount(profile.getFirstByteTimeout(commandCode,
+					readTimeOutCount * READ_TIMEOUT));
+			readTimeOutCountAfterFirstRealByte = toTimeOutCount(profile.getQuietPeriod(commandCode,
+					readTimeOutCountAfterFirstRealByte * READ_TIMEOUT));
+		}
+		long start = System.currentTimeMillis();
+		long firstByte = 0;
+		long lastByte = 0;
+		long maxGap = 0;
 		
 		// El proceso de lectura termina cuando... documentar: acutalmente no es tan simple
 		// como simplemente terminar hasta que cuando todos los timeoust expiran...
@@ -229,26 +265,40 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 				if (res == -1) {
 					// endOfStream! No necesariamene un error aunque es muy probable...
 					debug("WARNING: sokcet cerrado a la espera de respuesta. Long. Resp. parcial: " +
-							rspBytes.length);
+							rspLength);
 					break;
 				}
 				b = (byte)res;
-				rspBytes = ArrayUtils.append(rspBytes, b);
+				if (rspLength == rspBuffer.length) {
+					byte[] newBuffer = new byte[rspBuffer.length * 2];
+					System.arraycopy(rspBuffer, 0, newBuffer, 0, rspLength);
+					rspBuffer = newBuffer;
+				}
+				rspBuffer[rspLength++] = b;
+				fireBytesReceived(rspBuffer, rspLength - 1, 1);
 				timeOutCount = 0;
+				long now = System.currentTimeMillis();
+				if (rspLength == 1)
+					firstByte = now;
+				else
+					maxGap = Math.max(maxGap, now - lastByte);
+				lastByte = now;
 				// Ader Javier : 10 oct 2010 , manejo de DC2
-				if (startWithDC2(rspBytes)) {   
+				if (startWithDC2(rspBuffer, rspLength)) {   
 					//DC2 : se debe consumir y setear lastReadWasDC2
-					rspBytes = ArrayUtils.removePrefix(rspBytes, 3);
+					System.arraycopy(rspBuffer, 3, rspBuffer, 0, rspLength - 3);
+					rspLength -= 3;
+					maxGap = 0;
 					DC2Counter++;
 					debug("DC2 : " + DC2Counter);
 					lastReadWasDC2 = true;
 					continue;
 				// Optimizacion II: solo se agrego este "else if"	
-				} else if (isResponseCompleted(request,rspBytes)) { 
+				} else if (isResponseCompleted(shape, rspLength)) { 
 					debug("Dejando de esperar respuesta por optimización II: Salteo completo de timeots");
 					break; // Se sale pero no porque por que haya ocurrido un timeout
 				}
-				// Si se llega a aca se tiene en rspBytes secuncioa "D", "DC", 
+				// Si se llega a aca se tiene en rspBuffer secuncioa "D", "DC", 
 				// o otra secuencia de mas de un byte la cual no se puede saber por isResponseCompleted
 				// que represente una respuesta completa; se tiene que volver para leer los siguientes
 				// bytes o para que ImputStream.read() corte por timeout de 200 mls (si esto
@@ -260,10 +310,10 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 				
 				timeOutCount++;
 				// No se recibio ni un solo byte de la respueta, ni siquiera un DC2 
-				if (rspBytes.length == 0 && !lastReadWasDC2) {
+				if (rspLength == 0 && !lastReadWasDC2) {
 					// la unica forma de que esto pase es que se haya enviado la solicitud
 					// y no se haya respondido ni un solo byte
-					if (timeOutCount < getReadTimeOutCount())
+					if (timeOutCount < readTimeOutCount)
 						continue; //caso comun a la espera del primer byte
 					// else; expiraron todos los timeouts y no se recibio ni un solo byte!
 					if (retriesWaitFirstByte >0) {
@@ -275,12 +325,12 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 					} else {
 						// NECESARIAMENTE UN ERROR!
 						debug("ERROR: expiraron todos los timeouts y no se recibio ni un solo byte de respeusta");
-						break; //se sale y rspBytes necesariamente vacio....
+						break; //se sale y rspLength necesariamente 0....
 					}
-				} else if (rspBytes.length == 0 ) {
+				} else if (rspLength == 0 ) {
 					// En este punto lastReadWasDC2 = true; esto es se han leido
 					// una sucesión de DC2DC2DC2...DC2 y se expiro el timeout
-					if (timeOutCount < getReadTimeOutCount()) {
+					if (timeOutCount < readTimeOutCount) {
 						continue; // Se sigue esperando
 					}
 					// Si se llega aca todos los timeouts expiraron pero lo ulmito
@@ -301,10 +351,10 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 					break;
 				}
 				
-				// OK Si se llega a ca rspBytes.length > 0; y casi necesariamete contiene
+				// OK Si se llega a ca rspLength > 0; y casi necesariamete contiene
 				// toda la repuesta. Es poco probable que "se corte la repuesta" si 
 				// se hace en este punto una optimizacion....
-				if (rspBytes.length >= 9 
+				if (rspLength >= 9 
 						&& timeOutCount >= readTimeOutCountAfterFirstRealByte) {
 					// OTPIMIZACION I en tiempo de procesamiento. En realidad este es el caso
 					// común. ESTE ES EL PUNTO DE SALIDA MAS COMUN para todos los comandos
@@ -313,13 +363,13 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 					break;
 				}
 				
-				if (timeOutCount >= getReadTimeOutCount()) {
+				if (timeOutCount >= readTimeOutCount) {
 					debug("WARNING: Dejando de esperar repuesta antes de recibir al menos 9 bytes");
 					break;
 				} // else {continue}
 				
 				// end = timeOutCount == getReadTimeOutCount();
-				debug("Timeout! = " + timeOutCount + " partial. length:" + rspBytes.length +
+				debug("Timeout! = " + timeOutCount + " partial. length:" + rspLength +
 						" CT(mls):" + System.currentTimeMillis());
 			}
 
@@ -329,7 +379,16 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 		// a string muy dudusa. Los bytes DC2 se eleminan en el bucle de lectura; SIEMPRE (ver 
 		// codido del Spooler Hasar) en sucesión antes de que la respuesta.
 		// rspBytes = cleanResponseBytes(rspBytes);
-		return rspBytes;
+		if (profile != null && rspLength >= 9)
+			profile.record(commandCode, firstByte - start, maxGap);
+		return ByteBuffer.wrap(rspBuffer, 0, rspLength);
+	}
+	
+	/**
+	 * @return La cantidad de timeOuts de lectura equivalente al tiempo (mls), al menos 1.
+	 */
+	private static int toTimeOutCount(int millis) {
+		return Math.max(1, (millis + READ_TIMEOUT - 1) / READ_TIMEOUT);
 	}
 	
 	private static final byte byteD = 0x44;
@@ -339,9 +398,9 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 	
 	// Ader Javier: 10 Oct 2010 : esta es la forma correcta de 
 	// chequear los bytes DC2
-	private boolean startWithDC2(byte[] res)
+	private boolean startWithDC2(byte[] res, int length)
 	{
-		if (res.length < 3)
+		if (length < 3)
 			return false;
 		if (res[0]== byteD && res[1] == byteC && res[2]==byte2)
 			return true;
@@ -349,10 +408,10 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 	}
 	
 	
-	private boolean isResponseCompleted(FiscalPacket request, byte[] rspBytes)
+	private boolean isResponseCompleted(ResponseShape shape, int rspLength)
 	{
 		// se delega a SpoolerManagerResponse
-		return 	SpoolerManagerResponse.getDefInst().isResponseCompleted(request, rspBytes);
+		return 	SpoolerManagerResponse.getDefInst().isResponseCompleted(shape, rspBuffer, rspLength);
 		//return false; descomentar esta linea, y comaentar la anterior para comparar
 		//la performance con y sin Optimizacion II.
 	}
@@ -430,4 +489,46 @@ public class SpoolerTCPComm extends AbstractFiscalComm {
 	public void setReadTimeOutCount(int readTimeOutCount) {
 		this.readTimeOutCount = readTimeOutCount;
 	}
+
+	/**
+	 * @return Returns the retriesWaitFirstByte.
+	 */
+	public int getRetriesWaitFirstByte() {
+		return retriesWaitFirstByte;
+	}
+
+	/**
+	 * @param retriesWaitFirstByte The retriesWaitFirstByte to set.
+	 */
+	public void setRetriesWaitFirstByte(int retriesWaitFirstByte) {
+		this.retriesWaitFirstByte = retriesWaitFirstByte;
+	}
+
+	/**
+	 * @return Returns the retriesWaitFirstRealByteAfterTimeoutInDC2s.
+	 */
+	public int getRetriesWaitFirstRealByteAfterTimeoutInDC2s() {
+		return retriesWaitFirstRealByteAfterTimeoutInDC2s;
+	}
+
+	/**
+	 * @param retriesWaitFirstRealByteAfterTimeoutInDC2s The retriesWaitFirstRealByteAfterTimeoutInDC2s to set.
+	 */
+	public void setRetriesWaitFirstRealByteAfterTimeoutInDC2s(int retriesWaitFirstRealByteAfterTimeoutInDC2s) {
+		this.retriesWaitFirstRealByteAfterTimeoutInDC2s = retriesWaitFirstRealByteAfterTimeoutInDC2s;
+	}
+
+	/**
+	 * @return Returns the readTimeOutCountAfterFirstRealByte.
+	 */
+	public int getReadTimeOutCountAfterFirstRealByte() {
+		return readTimeOutCountAfterFirstRealByte;
+	}
+
+	/**
+	 * @param readTimeOutCountAfterFirstRealByte The readTimeOutCountAfterFirstRealByte to set.
+	 */
+	public void setReadTimeOutCountAfterFirstRealByte(int readTimeOutCountAfterFirstRealByte) {
+		this.readTimeOutCountAfterFirstRealByte = readTimeOutCountAfterFirstRealByte;
+	}
 }
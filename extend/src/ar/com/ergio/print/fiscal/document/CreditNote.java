@@ -48,11 +48,16 @@ public class CreditNote extends Document {
 	}
 
 	@Override
-	public void validate() throws DocumentException {
-		super.validate();
+	public void validateHeader() throws DocumentException {
+		super.validateHeader();
 		
 		// Validar que exista el número de documento original.
 		Document.validateText(getOriginalDocumentNo(),"InvalidOriginalDocNumber");
+	}
+
+	@Override
+	public void validateLines() throws DocumentException {
+		super.validateLines();
 		
 		// Validar cantidad de líneas mayor que 0.
 		if(getLines().isEmpty()) 
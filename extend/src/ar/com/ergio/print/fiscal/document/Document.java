@@ -70,6 +70,8 @@ public abstract class Document implements Serializable{
 	private String letter;
 	/** Descuentos a nivel documento */
 	private List<DiscountLine> documentDiscounts = null;
+	/** Fuente de las líneas que se obtienen durante la impresión */
+	private transient DocumentLineFeed lineFeed;
 		
 	public Document() {
 		super();
@@ -124,12 +126,60 @@ public abstract class Document implements Serializable{
 	}
 
 	/**
-	 * @return Returns the lines.
+	 * @return Returns the lines. Si el documento se imprime a medida que se
+	 * obtienen sus líneas, contiene solo las líneas ya impresas.
 	 */
 	public List<DocumentLine> getLines() {
 		return lines;
 	}
 
+	/**
+	 * @param lineFeed Fuente de las líneas que se obtienen durante la
+	 * impresión. El productor también puede asignar la percepción antes de
+	 * entregar la última línea.
+	 */
+	public void setLineFeed(DocumentLineFeed lineFeed) {
+		this.lineFeed = lineFeed;
+	}
+
+	/**
+	 * @return Fuente de las líneas pendientes, o <code>null</code>.
+	 */
+	public DocumentLineFeed getLineFeed() {
+		return lineFeed;
+	}
+
+	/**
+	 * @return Verdadero si las líneas del documento se obtienen a medida que
+	 * se imprime.
+	 */
+	public boolean isStreamed() {
+		return lineFeed != null;
+	}
+
+	/**
+	 * Espera a que se obtengan todas las líneas pendientes, las agrega al
+	 * documento y valida las líneas. Permite imprimir el documento sin
+	 * superponer la obtención de las líneas con la impresión.
+	 * @throws DocumentException cuando no es posible obtener las líneas o
+	 * estas no son válidas.
+	 */
+	public void completeLines() throws DocumentException {
+		if (!isStreamed())
+			return;
+		try {
+			for (DocumentLine line = lineFeed.take(); line != null; line = lineFeed.take()) {
+				addLine(line);
+			}
+		} catch (DocumentException e) {
+			lineFeed.abort();
+			e.setDocument(this);
+			throw e;
+		}
+		lineFeed = null;
+		validateLines();
+	}
+
     public void setPerceptionLine(PerceptionLine perceptionLine)
     {
         this.perceptionLine = perceptionLine;
@@ -215,12 +265,24 @@ public abstract class Document implements Serializable{
 	public abstract String getDocumentType();
 	
 	/**
-	 * Validación del documento.
+	 * Validación del documento. Si las líneas se obtienen durante la
+	 * impresión, solo se validan los datos del encabezado; las líneas se
+	 * validan con {@link #validateLines()} al terminar de obtenerlas.
 	 * @throws DocumentException cuando el documento no puede enviarse 
 	 * a imprimir dado que esta acción produciría un estado de error en la
 	 * impresora fiscal.
 	 */
 	public void validate() throws DocumentException {
+		validateHeader();
+		if (!isStreamed())
+			validateLines();
+	}
+
+	/**
+	 * Validación de los datos del documento que no dependen de sus líneas.
+	 * @throws DocumentException cuando los datos no son válidos.
+	 */
+	public void validateHeader() throws DocumentException {
 		try {
 			// Se validan los datos del cliente.
 			getCustomer().validate();
@@ -231,14 +293,6 @@ public abstract class Document implements Serializable{
 			throw e;
 		}
 		
-		// Validar total del documento distinto de 0.
-		validateNumber(getTotal(), "!=", BigDecimal.ZERO, "InvalidDocumentTotalAmount");
-		
-		// Validar las líneas del documento.
-		for (DocumentLine docLine : getLines()) {
-			docLine.validate();
-		}
-		
 		// Validar el descuento general.
 		if(hasGeneralDiscount())
 			getGeneralDiscount().validate();
@@ -248,6 +302,20 @@ public abstract class Document implements Serializable{
 			discount.validate();
 		}
 	}
+
+	/**
+	 * Validación de las líneas y del total del documento.
+	 * @throws DocumentException cuando las líneas no son válidas.
+	 */
+	public void validateLines() throws DocumentException {
+		// Validar total del documento distinto de 0.
+		validateNumber(getTotal(), "!=", BigDecimal.ZERO, "InvalidDocumentTotalAmount");
+		
+		// Validar las líneas del documento.
+		for (DocumentLine docLine : getLines()) {
+			docLine.validate();
+		}
+	}
 	
 	/**
 	 * @return Retorna el monto total del documento.
@@ -0,0 +1,211 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.document;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import ar.com.ergio.print.fiscal.exception.DocumentException;
+
+/**
+ * Fuente de líneas de un documento que se obtienen mientras el documento se
+ * imprime.
+ * <br>
+ * El productor ({@link #produce()}) se ejecuta en un hilo propio a partir de
+ * {@link #start()} y entrega las líneas con {@link #put(DocumentLine)} a una
+ * cola acotada; la impresora las consume con {@link #take()} y
+ * {@link #drainTo(List, int)} a medida que envía los comandos. De este modo la
+ * lectura de las líneas se superpone con la apertura del comprobante y con la
+ * impresión de las líneas anteriores.
+ * <br>
+ * Si el productor falla, el consumidor recibe una {@link DocumentException}
+ * al llegar a ese punto de la cola. Si el consumidor abandona la impresión
+ * ({@link #abort()}), el productor deja de entregar líneas.
+ * <br>
+ * Admite un único consumidor.
+ */
+public abstract class DocumentLineFeed {
+
+	/** Capacidad por defecto de la cola de líneas */
+	public static final int DEFAULT_CAPACITY = 16;
+	/** Intervalo (mls) en que el productor verifica si la impresión fue abandonada */
+	private static final long PUT_SLICE = 500;
+	/** Marca de fin de las líneas */
+	private static final Object END = new Object();
+
+	/** Líneas pendientes de impresión y marcas de fin o de error */
+	private final BlockingQueue<Object> queue;
+	/** Marca leída por drainTo que aún no fue entregada al consumidor */
+	private Object pending;
+	/** Indica si el productor fue iniciado */
+	private boolean started = false;
+	/** Indica si el consumidor abandonó la impresión */
+	private volatile boolean aborted = false;
+
+	public DocumentLineFeed() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity Cantidad máxima de líneas leídas y aún no impresas.
+	 */
+	public DocumentLineFeed(int capacity) {
+		super();
+		queue = new LinkedBlockingQueue<Object>(capacity);
+	}
+
+	/**
+	 * Obtiene las líneas del documento y las entrega mediante
+	 * {@link #put(DocumentLine)}. Se invoca en el hilo del productor.
+	 * @throws Exception cuando no es posible obtener las líneas; el consumidor
+	 * recibe el error luego de las líneas ya entregadas.
+	 */
+	protected abstract void produce() throws Exception;
+
+	/**
+	 * Inicia el productor en un hilo propio. Las invocaciones siguientes no
+	 * tienen efecto.
+	 */
+	public synchronized void start() {
+		if (started)
+			return;
+		started = true;
+		Thread thread = new Thread("DocumentLineFeed") {
+			@Override
+			public void run() {
+				Object last = END;
+				try {
+					produce();
+				} catch (Throwable e) {
+					last = new Failure(e);
+				}
+				offer(last);
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Entrega una línea al consumidor; se bloquea mientras la cola está llena.
+	 * @return <code>false</code> si la impresión fue abandonada, en cuyo caso
+	 * el productor debe terminar.
+	 */
+	public boolean put(DocumentLine line) throws InterruptedException {
+		return offer(line);
+	}
+
+	private boolean offer(Object item) {
+		try {
+			while (!aborted) {
+				if (queue.offer(item, PUT_SLICE, TimeUnit.MILLISECONDS))
+					return true;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	/**
+	 * Obtiene la siguiente línea; se bloquea hasta que el productor la entrega.
+	 * @return La línea, o <code>null</code> cuando no hay más líneas.
+	 * @throws DocumentException cuando el productor no pudo obtener las líneas
+	 * o el hilo fue interrumpido durante la espera.
+	 */
+	public DocumentLine take() throws DocumentException {
+		start();
+		Object item = pending;
+		pending = null;
+		try {
+			if (item == null)
+				item = queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw assemblyFailed(e);
+		}
+		return toLine(item);
+	}
+
+	/**
+	 * Agrega a la lista las líneas ya disponibles, sin esperar al productor.
+	 * @param lines Lista destino.
+	 * @param max Cantidad máxima de líneas a agregar.
+	 * @return Cantidad de líneas agregadas.
+	 */
+	public int drainTo(List<DocumentLine> lines, int max) {
+		int count = 0;
+		while (count < max && pending == null) {
+			Object item = queue.poll();
+			if (item == null)
+				break;
+			if (item instanceof DocumentLine) {
+				lines.add((DocumentLine) item);
+				count++;
+			} else {
+				// Fin o error: se entrega en el próximo take().
+				pending = item;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Indica que el consumidor abandona la impresión: el productor deja de
+	 * entregar líneas y las pendientes se descartan.
+	 */
+	public void abort() {
+		aborted = true;
+		queue.clear();
+	}
+
+	/**
+	 * @return Verdadero si el consumidor abandonó la impresión.
+	 */
+	public boolean isAborted() {
+		return aborted;
+	}
+
+	private DocumentLine toLine(Object item) throws DocumentException {
+		if (item == END) {
+			pending = END;
+			return null;
+		}
+		if (item instanceof Failure) {
+			pending = item;
+			throw assemblyFailed(((Failure) item).cause);
+		}
+		return (DocumentLine) item;
+	}
+
+	private static DocumentException assemblyFailed(Throwable cause) {
+		DocumentException e = new DocumentException("DocumentAssemblyFailed");
+		e.initCause(cause);
+		return e;
+	}
+
+	/** Error del productor */
+	private static class Failure {
+		private final Throwable cause;
+
+		private Failure(Throwable cause) {
+			this.cause = cause;
+		}
+	}
+}
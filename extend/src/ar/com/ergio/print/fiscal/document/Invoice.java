@@ -96,8 +96,18 @@ public class Invoice extends Document {
 	}
 
 	@Override
-	public void validate() throws DocumentException {
-		super.validate();
+	public void validateHeader() throws DocumentException {
+		super.validateHeader();
+
+		// Se validan los pagos.
+		for (Payment payment : getPayments()) {
+			payment.validate();
+		}
+	}
+
+	@Override
+	public void validateLines() throws DocumentException {
+		super.validateLines();
 
 		// Validar cantidad de líneas mayor que 0.
         if (getLines().isEmpty()) {
@@ -108,11 +118,6 @@ public class Invoice extends Document {
 		// de las lineas no supere el límite definido. Si lo supera, se deben
 		// ingresar los datos del comprador.
 		validateInvoiceCFLimit();
-
-		// Se validan los pagos.
-		for (Payment payment : getPayments()) {
-			payment.validate();
-		}
 	}
 
 	private void validateInvoiceCFLimit() throws DocumentException {
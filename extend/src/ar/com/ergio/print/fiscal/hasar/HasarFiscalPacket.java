@@ -16,12 +16,11 @@
  *****************************************************************************/
 package ar.com.ergio.print.fiscal.hasar;
 
-import java.io.ByteArrayOutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 
 import ar.com.ergio.print.fiscal.AbstractFiscalPacket;
 import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
-import ar.com.ergio.print.fiscal.util.ArrayUtils;
 import ar.com.ergio.print.fiscal.util.ByteFormatter;
 
 /** The FiscalPacket implementation used by HasarFiscalDevice and BasicFiscalDevice. */
@@ -61,11 +60,10 @@ public class HasarFiscalPacket extends AbstractFiscalPacket
 			b.append(' ');
 			if (i == 0)
 			{
-				byte[] f = get(i);
-				if (f.length == 1) ByteFormatter.toHex(b, f[0]);
-				else ByteFormatter.toHexString(b, f);
+				if (getLength(i) == 1) ByteFormatter.toHex(b, getData()[getOffset(i)]);
+				else ByteFormatter.toHexString(b, getData(), getOffset(i), getLength(i));
 			}
-			else ByteFormatter.toASCIIString(b, get(i));
+			else ByteFormatter.toASCIIString(b, getData(), getOffset(i), getLength(i));
 		}
 		b.append(' ').append('}');
 		return b.toString();
@@ -96,25 +94,26 @@ public class HasarFiscalPacket extends AbstractFiscalPacket
 		{
 			if (style < 0 || style > 15) throw new IllegalArgumentException();
 			int l = f.length;
-			byte[] x = new byte[l + 1];
-			x[0] = (byte) (0xF0 | style);
-			System.arraycopy(f, 0, x, 1, l);
-			f = x;
+			int p = allocate(field, l + 1);
+			getData()[p] = (byte) (0xF0 | style);
+			System.arraycopy(f, 0, getData(), p + 1, l);
 		}
-		set(field, f);
+		else set(field, f);
 	}
 
 	public String getString(int field)
 	{
-		byte[] f = get(field);
-		try { return f.length == 0 || (f[0] & 0xF0) != 0xF0 ? new String(f, encoding) : new String(f, 1, f.length - 1, encoding); }
+		byte[] f = getData();
+		int p = getOffset(field);
+		int l = getLength(field);
+		try { return l == 0 || (f[p] & 0xF0) != 0xF0 ? new String(f, p, l, encoding) : new String(f, p + 1, l - 1, encoding); }
 		catch (UnsupportedEncodingException e) { throw new RuntimeException("Unsupported encoding (" + encoding + ")"); }
 	}
 
 	public int getStringStyle(int field)
 	{
-		byte[] f = get(field);
-		return f.length == 0 || (f[0] & 0xF0) != 0xF0 ? STYLE_NORMAL : f[0] & 0xF;
+		int p = getOffset(field);
+		return getLength(field) == 0 || (getData()[p] & 0xF0) != 0xF0 ? STYLE_NORMAL : getData()[p] & 0xF;
 	}
 
 	// Date And Time Fields
@@ -196,17 +195,27 @@ public class HasarFiscalPacket extends AbstractFiscalPacket
 	public void setFiscalStatus(int value) { setHex16(2, value); }
 	public int getFiscalStatus() { return getHex16(2); }
 
-	public byte[] encodeBytes() {
-		byte[] result = new byte[0];
+	public int getEncodedLength() {
+		int s = getSize();
+		int length = s > 0 ? s - 1 : 0;
+		for (int i = 0; i < s; i++)
+			length += getLength(i);
+		return length + 1;
+	}
 
+	public void encode(ByteBuffer dst) {
+		byte[] data = getData();
 		for (int i = 0, s = getSize(); i < s; i++) {
-			byte[] bytes = get(i);
-			if(bytes.length > 0)
-				result = ArrayUtils.append(result, bytes);
+			dst.put(data, getOffset(i), getLength(i));
 			if(i != s - 1)
-				result = ArrayUtils.append(result, FS);
+				dst.put(FS);
 		}
-		result = ArrayUtils.append(result, NL);
+		dst.put(NL);
+	}
+
+	public byte[] encodeBytes() {
+		byte[] result = new byte[getEncodedLength()];
+		encode(ByteBuffer.wrap(result));
 		return result;
 	}
 
@@ -220,27 +229,52 @@ public class HasarFiscalPacket extends AbstractFiscalPacket
 	}
 
 	public void decode(byte[] packetBytes) {
-		ByteArrayOutputStream bstr = new ByteArrayOutputStream();
-		int f = 0;
+		decode(ByteBuffer.wrap(packetBytes));
+	}
+
+	public void decode(int cmd, byte[] packetBytes) {
+		decode(cmd, ByteBuffer.wrap(packetBytes));
+	}
+
+	public void decode(ByteBuffer src) {
 		clear();
-		bstr.reset();
-		for(int i = 0; i < packetBytes.length; i++) {
-			int b = packetBytes[i];
-			if(!(0x00 <= b && b < 0x20)) {
-				bstr.write(b);
-			}
-			if (b == FS || i == (packetBytes.length - 1)) {
-				set(f++, bstr.toByteArray());
-				bstr.reset();
+		decodeFields(src);
+	}
+
+	public void decode(int cmd, ByteBuffer src) {
+		clear();
+		// El código de comando es el primer campo, igual que si la
+		// respuesta se hubiera recibido con el prefijo {cmd, FS}
+		if (isControl((byte) cmd))
+			clear(0);
+		else
+			setByte(0, cmd & 0xFF);
+		decodeFields(src);
+	}
+
+	/**
+	 * Agrega al paquete los campos de los bytes restantes de <code>src</code>,
+	 * copiándolos directamente al buffer del paquete. Se descartan los bytes de
+	 * control; el FS y el último byte cierran cada campo.
+	 */
+	private void decodeFields(ByteBuffer src) {
+		int remaining = src.remaining();
+		int start = reserveData(remaining);
+		byte[] data = getData();
+		int p = start;
+		for (int i = 0; i < remaining; i++) {
+			byte b = src.get();
+			if (!isControl(b))
+				data[p++] = b;
+			if (b == FS || i == remaining - 1) {
+				addField(start, p - start);
+				start = p;
 			}
 		}
 	}
 
-	public void decode(int cmd, byte[] packetBytes) {
-		byte[] cmdBytes = {(byte) cmd, FS};
-		byte[] newPacketBytes = ArrayUtils.append(cmdBytes,packetBytes);
-		decode(newPacketBytes);
+	private static boolean isControl(byte b) {
+		return 0x00 <= b && b < 0x20;
 	}
 
-
 }
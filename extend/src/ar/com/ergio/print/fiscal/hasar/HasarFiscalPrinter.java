@@ -18,19 +18,31 @@ package ar.com.ergio.print.fiscal.hasar;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import ar.com.ergio.print.fiscal.BasicFiscalPrinter;
+import ar.com.ergio.print.fiscal.FiscalCloseReport;
 import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.FiscalPrinterHealth;
 import ar.com.ergio.print.fiscal.comm.FiscalComm;
+import ar.com.ergio.print.fiscal.comm.PipelinedFiscalComm;
 import ar.com.ergio.print.fiscal.document.CreditNote;
 import ar.com.ergio.print.fiscal.document.Customer;
 import ar.com.ergio.print.fiscal.document.DebitNote;
 import ar.com.ergio.print.fiscal.document.DiscountLine;
 import ar.com.ergio.print.fiscal.document.Document;
 import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.DocumentLineFeed;
 import ar.com.ergio.print.fiscal.document.Invoice;
 import ar.com.ergio.print.fiscal.document.NonFiscalDocument;
 import ar.com.ergio.print.fiscal.document.Payment;
@@ -38,16 +50,22 @@ import ar.com.ergio.print.fiscal.document.PerceptionLine;
 import ar.com.ergio.print.fiscal.exception.DocumentException;
 import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
 import ar.com.ergio.print.fiscal.exception.FiscalPrinterStatusError;
+import ar.com.ergio.print.fiscal.journal.DocumentRecovery;
+import ar.com.ergio.print.fiscal.journal.FiscalJournal;
 import ar.com.ergio.print.fiscal.msg.FiscalMessage;
-import ar.com.ergio.print.fiscal.msg.FiscalMessages;
 import ar.com.ergio.print.fiscal.msg.MsgRepository;
 
 /**
  * Impresora Fiscal Hasar. Funcionalidad común a todos los modelos de Hasar.
- * Implementa la interfaz <code>HasarCommands</code>. Cualquier modelo nuevo
- * de Hasar a implementar deberá ser una especialización de esta clase,
- * permitiendo sobreescribir algunos o todos los comandos implementados
- * por defecto en esta clase.
+ * Implementa la interfaz <code>HasarCommands</code>.
+ * <br>
+ * Las diferencias entre modelos (longitudes de los textos, parámetros
+ * opcionales, CAI, etc.) se describen en un {@link HasarPrinterProfile}; los
+ * comandos se arman siempre con el mismo código a partir del perfil de la
+ * impresora. Cada modelo conocido tiene su clase sólo para indicar su perfil
+ * por defecto, y un modelo nuevo puede configurarse sin código con
+ * {@link HasarPrinterGeneric} y un perfil en los parámetros del tipo de
+ * controlador fiscal.
  * @author Franco Bonafine
  * @date 24/01/2008
  * @contributor Emiliano Pereyra - http://www.ergio.com.ar
@@ -116,6 +134,8 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	protected static final String CONTAINER_RETURN = "e";
 	/** ReturnRecharge: Operación Descuento / Recargo */
 	protected static final String DISCOUNT_RECHARGE = "B";
+	/** Separador de los textos agrupados en una línea de texto fiscal */
+	protected static final String FISCAL_TEXT_SEPARATOR = " - ";
 
 	/** Conjunto de caracteres para realizar la conversión a string de los paquetes fiscales */
 	private String encoding = "ISO8859_1";	// ISO 8859-1, Latin alphabet No. 1.
@@ -125,6 +145,21 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	private int printerStatus;
 	/** Estado actual del controlador fiscal */
 	private int fiscalStatus;
+	/** Perfil de capacidades del modelo */
+	private HasarPrinterProfile profile;
+	/** Decodificadores de estados compartidos por modelo de impresora */
+	private static final Map<Class<?>, HasarStatusDecoder> statusDecoders = new HashMap<Class<?>, HasarStatusDecoder>();
+	/** Decodificador de estados de este modelo */
+	private HasarStatusDecoder statusDecoder;
+	/** Último estado decodificado */
+	private HasarStatusDecoder.Status decodedStatus;
+	/** Indica si la impresora puede conservar datos del comprador asignados
+	 * para un documento que no se llegó a abrir. La impresora es compartida,
+	 * por lo que se vuelve a suponer que sí al conectar, al cancelar un
+	 * documento y cuando otro cliente pudo usarla (ver discardSharedState) */
+	private boolean customerDataPending = true;
+	/** Indica si se consulta el detalle de IVA al cerrar una factura */
+	private boolean checkTaxes = false;
 	/** Posibles mensajes de estado de la impresora */
 	private Map<Integer,FiscalMessage> printerStatusMsgs;
 	/** Posibles mensajes de estado del controlador fiscal */
@@ -189,21 +224,24 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	public FiscalPacket cmdCloseDNFH(Integer copies) {
 		FiscalPacket cmd = createFiscalPacket(CMD_CLOSE_DNFH);
 		int i = 1;
-		cmd.setNumber(i++, copies, true);
+		if (getProfile().isCloseCopiesSupported())
+			cmd.setNumber(i++, copies, true);
 		return cmd;
 	}
 
 	public FiscalPacket cmdCloseFiscalReceipt(Integer copies) {
 		FiscalPacket cmd = createFiscalPacket(CMD_CLOSE_FISCAL_RECEIPT);
 		int i = 1;
-		cmd.setNumber(i++, copies, true);
+		if (getProfile().isCloseCopiesSupported())
+			cmd.setNumber(i++, copies, true);
 		return cmd;
 	}
 
 	public FiscalPacket cmdCloseNonFiscalReceipt(Integer copies) {
 		FiscalPacket cmd = createFiscalPacket(CMD_CLOSE_NON_FISCAL_RECEIPT);
 		int i = 1;
-		cmd.setNumber(i++, copies, true);
+		if (getProfile().isNonFiscalCloseCopiesSupported())
+			cmd.setNumber(i++, copies, true);
 		return cmd;
 	}
 
@@ -220,6 +258,19 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	}
 
 	public FiscalPacket cmdSetGeneralConfiguration(boolean printConfigReport, boolean loadDefaultData, BigDecimal finalConsumerLimit, BigDecimal ticketInvoiceLimit, BigDecimal ivaNonInscript, Integer copies, Boolean printChange, Boolean printLabels, String ticketCutType, Boolean printFramework, Boolean reprintDocuments, String balanceText, Boolean paperSound, String paperSize) {
+		HasarPrinterProfile profile = getProfile();
+		if (!profile.isTicketInvoiceLimitSupported())
+			ticketInvoiceLimit = BigDecimal.ZERO;
+		if (!profile.isIvaNonInscriptSupported())
+			ivaNonInscript = BigDecimal.ZERO;
+		if (!profile.isPrintChangeSupported())
+			printChange = false;
+		if (!profile.isPrintLabelsSupported())
+			printLabels = false;
+		if (!profile.isTicketCutSupported())
+			ticketCutType = null;
+		if (!profile.isPaperSizeSupported())
+			paperSize = null;
 		FiscalPacket cmd = createFiscalPacket(CMD_SET_GENERAL_CONFIGURATION);
 		int i = 1;
 		cmd.setBoolean(i++, printConfigReport, "P", "x", false);
@@ -245,7 +296,7 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		cmd.setText(i++, description, 50, false);
 		cmd.setNumber(i++, amount, 9, 2, false);
 		cmd.setBoolean(i++, substract, "m", "M", false);
-		cmd.setNumber(i++, display, true);
+		cmd.setNumber(i++, getDisplay(display), true);
 		cmd.setBoolean(i++, baseAmount, "x", "T", false);
 		return cmd;
 	}
@@ -292,7 +343,7 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		cmd.setText(i++, description, 50, false);
 		cmd.setPerceptionAmount(i++, amount, false);
 		cmd.setBoolean(i++, substract, "m", "M", false);
-		cmd.setNumber(i++, display, true);
+		cmd.setNumber(i++, getDisplay(display), true);
 		cmd.setBoolean(i++, baseAmount, "x", "T", false);
 		return cmd;
 	}
@@ -355,18 +406,17 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	public FiscalPacket cmdPrintFiscalText(String text, Integer display) {
 		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_FISCAL_TEXT);
 		int i = 1;
-		cmd.setText(i++, text, 50, false);
-		cmd.setNumber(i++, display, true);
+		cmd.setText(i++, text, getFiscalTextLength(), false);
+		cmd.setNumber(i++, getDisplay(display), true);
 		return cmd;
 	}
 
 	public FiscalPacket cmdPrintLineItem(String description, BigDecimal quantity, BigDecimal price, BigDecimal ivaPercent, boolean substract, BigDecimal internalTaxes, boolean basePrice, Integer display) {
-		//Most models' description max length is 50
-		int maxLength = 50;
-		return cmdPrintLineItem(description, quantity, price, ivaPercent, substract, internalTaxes, basePrice, display, maxLength);
+		return cmdPrintLineItem(description, quantity, price, ivaPercent, substract, internalTaxes, basePrice, display,
+				getProfile().getLineItemLength());
 	}
 
-	//Cuspide Computacion: metodo que permite especificar la longitud máxima de la descripcion, para los modelos que lo requieran.
+	//Cuspide Computacion: metodo que permite especificar la longitud máxima de la descripcion.
 	protected FiscalPacket cmdPrintLineItem(String description, BigDecimal quantity, BigDecimal price, BigDecimal ivaPercent, boolean substract, BigDecimal internalTaxes, boolean basePrice, Integer display, int descMaxLength) {
 		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_LINE_ITEM);
 		int i = 1;
@@ -379,7 +429,7 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			cmd.setNumber(i++, ivaPercent, 2, 2, false);
 		cmd.setBoolean(i++, substract, "m", "M", false);
 		cmd.setNumber(i++, internalTaxes, 6, 8, false);
-		cmd.setNumber(i++, display, true);
+		cmd.setNumber(i++, getDisplay(display), true);
 		cmd.setBoolean(i++, basePrice, "x", "T", false);
 		return cmd;
 	}
@@ -426,11 +476,11 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	public FiscalPacket cmdSetCustomerData(String name, String customerDocNumber, String ivaResponsibility, String docType, String location) {
 		FiscalPacket cmd = createFiscalPacket(CMD_SET_CUSTOMER_DATA);
 		int i = 1;
-		cmd.setText(i++, name, 50, true);
+		cmd.setText(i++, name, getProfile().getCustomerNameLength(), true);
 		cmd.setText(i++, formatDocNumber(docType,customerDocNumber), true);
 		cmd.setText(i++, ivaResponsibility, false);
 		cmd.setText(i++, docType, true);
-		cmd.setText(i++, location, 50, true);
+		cmd.setText(i++, location, getProfile().getCustomerLocationLength(), true);
 		return cmd;
 	}
 
@@ -479,7 +529,7 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		int i = 1;
 		cmd.setBoolean(i++, print, "P", "x", false);
 		cmd.setString(i++, "x");
-		cmd.setNumber(i++, display, true);
+		cmd.setNumber(i++, getDisplay(display), true);
 		return cmd;
 	}
 
@@ -489,7 +539,7 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		cmd.setText(i++, description, 80, false);
 		cmd.setNumber(i++, amount, 9, 2, false);
 		cmd.setBoolean(i++, cancel, "C", "T");
-		cmd.setNumber(i++, display, true);
+		cmd.setNumber(i++, getDisplay(display), true);
 		return cmd;
 	}
 
@@ -497,9 +547,8 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	public FiscalPacket cmdReturnRecharge(String description,
 			BigDecimal amount, BigDecimal ivaPercent, boolean subtract,
 			BigDecimal internalTaxes, boolean baseAmount, Integer display, String operation) {
-		int descMaxLength = 50;
 		return cmdReturnRecharge(description, amount, ivaPercent, subtract,
-				internalTaxes, baseAmount, display, operation, descMaxLength);
+				internalTaxes, baseAmount, display, operation, getProfile().getReturnRechargeLength());
 	}
 
 
@@ -517,7 +566,7 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		cmd.setNumber(i++, ivaPercent, 2, 2, false);
 		cmd.setBoolean(i++, subtract, "m", "M", false);
 		cmd.setNumber(i++, internalTaxes, 6, 8, false);
-		cmd.setNumber(i++, display, true);
+		cmd.setNumber(i++, getDisplay(display), true);
 		cmd.setBoolean(i++, baseAmount, "x", "T", false);
 		cmd.setText(i++, operation, false);
 		return cmd;
@@ -527,6 +576,60 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		return new HasarFiscalPacket(getEncoding(),getBaseRolloverYear(), this);
 	}
 
+	public String formatAmount(BigDecimal amount) {
+		amount = amount.setScale(getProfile().getAmountScale(), BigDecimal.ROUND_HALF_UP);
+		return amount.toString();
+	}
+
+	public String formatQuantity(BigDecimal quantity) {
+		return quantity.toString();
+	}
+
+	/**
+	 * @return El valor del parámetro display a enviar: el indicado, o 0 si
+	 * el modelo no usa este parámetro.
+	 */
+	private Integer getDisplay(Integer display) {
+		return getProfile().isDisplaySupported() ? display : Integer.valueOf(0);
+	}
+
+	/**
+	 * @return El perfil de capacidades de la impresora. Si no se asignó uno,
+	 * el perfil por defecto del modelo.
+	 */
+	public HasarPrinterProfile getProfile() {
+		if (profile == null)
+			profile = getDefaultProfile();
+		return profile;
+	}
+
+	/**
+	 * Asigna el perfil de capacidades de la impresora, por ejemplo el
+	 * configurado en el tipo de controlador fiscal. Debe asignarse antes de
+	 * imprimir documentos.
+	 * @param profile Perfil a usar; null vuelve al perfil por defecto del modelo.
+	 */
+	public void setProfile(HasarPrinterProfile profile) {
+		this.profile = profile;
+	}
+
+	/**
+	 * @return El perfil del modelo cuando no se configura uno. Los modelos
+	 * conocidos retornan su perfil predefinido.
+	 */
+	protected HasarPrinterProfile getDefaultProfile() {
+		return HasarPrinterProfile.DEFAULT;
+	}
+
+	/**
+	 * Los modelos que no admiten comandos en curso simultáneos trabajan
+	 * siempre con una ventana de 1, sin importar la configurada.
+	 */
+	@Override
+	public int getPipelineWindow() {
+		return getProfile().isPipelineSafe() ? super.getPipelineWindow() : 1;
+	}
+
 	public String getEncoding() {
 		return encoding;
 	}
@@ -543,6 +646,23 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		this.baseRolloverYear = baseRolloverYear;
 	}
 
+	/**
+	 * @return Verdadero si se consulta el detalle de IVA de las facturas
+	 * al cerrarlas.
+	 */
+	public boolean isCheckTaxes() {
+		return checkTaxes;
+	}
+
+	/**
+	 * @param checkTaxes Verdadero para consultar (y registrar) el detalle de
+	 * IVA de las facturas al cerrarlas. Cada alícuota requiere un comando
+	 * adicional, por lo que por defecto no se consulta.
+	 */
+	public void setCheckTaxes(boolean checkTaxes) {
+		this.checkTaxes = checkTaxes;
+	}
+
 	/**
 	 * Ejecuta un comando fiscal en la impresora y analiza la existencia
 	 * de errores en la respuesta. En caso de que se produzca algún error
@@ -556,22 +676,59 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	 * código de estado de error.
 	 */
 	protected FiscalPacket execute(FiscalPacket command) throws FiscalPrinterIOException, FiscalPrinterStatusError {
+		// Se ejecuta en el thread de E/S de la interfaz para respetar el orden
+		// de los comandos asincrónicos que pudieran estar pendientes.
+		return executeAsync(command).complete();
+	}
+
+	/**
+	 * Envía un comando fiscal a la impresora sin esperar la respuesta. El
+	 * thread que lo solicita puede armar el próximo comando mientras éste se
+	 * ejecuta en el dispositivo.
+	 * <br>
+	 * El análisis del estado de la respuesta y el disparo de eventos se
+	 * realizan en el thread que invoca {@link PendingCommand#complete()} (o
+	 * <code>get()</code>), por lo que los comandos pendientes deben completarse
+	 * en el mismo orden en que fueron enviados.
+	 * @param command Comando a ejecutar.
+	 * @return El comando pendiente de completar.
+	 */
+	public PendingCommand executeAsync(FiscalPacket command) {
 		FiscalPacket response = createFiscalPacket();
 
 		// Se guarda el comando como el último ejecutado.
 		setLastRequest(command);
 		setLastResponse(null);
 
+		// El comando se registra en el diario antes de enviarlo. Si no es
+		// posible registrarlo no se envía.
 		try {
-			// Se envía el comando a la interfaz de comunicación para
-			// ser ejecutado.
-			getFiscalComm().execute(command, response);
-			setLastResponse(response);
-
-		} catch (IOException e) {
-			throw new FiscalPrinterIOException(e.getMessage(), command, response);
+			journalRequest(command);
+		} catch (final IOException e) {
+			FutureTask<FiscalPacket> failed = new FutureTask<FiscalPacket>(new Callable<FiscalPacket>() {
+				public FiscalPacket call() throws IOException {
+					throw e;
+				}
+			});
+			failed.run();
+			return new PendingCommand(command, response, failed);
 		}
 
+		// Se envía el comando a la interfaz de comunicación para
+		// ser ejecutado.
+		return new PendingCommand(command, response, getFiscalComm().executeAsync(command, response));
+	}
+
+	/**
+	 * Analiza la respuesta de un comando ya ejecutado por la interfaz de
+	 * comunicación: chequea el estado y dispara los eventos.
+	 */
+	private FiscalPacket handleResponse(FiscalPacket command, FiscalPacket response) throws FiscalPrinterIOException, FiscalPrinterStatusError {
+		setLastRequest(command);
+		setLastResponse(response);
+
+		journalResponse(command, response);
+
 		// Se chequea el status devuelto por la impresora.
 		boolean statusChanged = checkStatus(response);
 
@@ -593,7 +750,104 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		return response;
 	}
 
-	private boolean checkStatus(FiscalPacket response) throws FiscalPrinterIOException {
+	/**
+	 * Comando enviado a la impresora cuya respuesta aún no fue analizada.
+	 * <code>get()</code> retorna la respuesta una vez chequeado el estado; los
+	 * errores de comunicación y de estado se informan como causa de la
+	 * <code>ExecutionException</code>.
+	 */
+	public class PendingCommand implements Future<FiscalPacket> {
+
+		private final FiscalPacket command;
+		private final FiscalPacket response;
+		private final Future<FiscalPacket> io;
+		private boolean completed = false;
+		/** Error de comunicación o de estado (FiscalPrinterStatusError) */
+		private FiscalPrinterIOException error;
+
+		private PendingCommand(FiscalPacket command, FiscalPacket response, Future<FiscalPacket> io) {
+			this.command = command;
+			this.response = response;
+			this.io = io;
+		}
+
+		/**
+		 * Espera la respuesta del comando y la analiza. Las invocaciones
+		 * posteriores retornan el mismo resultado sin volver a analizarla.
+		 * @return La respuesta de la impresora.
+		 * @throws FiscalPrinterIOException cuando se producce algún error de
+		 * comunicación con el dispositivo.
+		 * @throws FiscalPrinterStatusError cuando la impresora responde con un
+		 * código de estado de error.
+		 */
+		public synchronized FiscalPacket complete() throws FiscalPrinterIOException, FiscalPrinterStatusError {
+			if (!completed) {
+				completed = true;
+				try {
+					io.get();
+					handleResponse(command, response);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					error = new FiscalPrinterIOException(e.getMessage(), command, response);
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause() != null ? e.getCause() : e;
+					if (cause instanceof RuntimeException)
+						throw (RuntimeException) cause;
+					error = new FiscalPrinterIOException(cause.getMessage(), command, response);
+				} catch (FiscalPrinterIOException e) {
+					error = e;
+				}
+			}
+			if (error != null)
+				throw error;
+			return response;
+		}
+
+		public FiscalPacket get() throws InterruptedException, ExecutionException {
+			try {
+				return complete();
+			} catch (FiscalPrinterIOException e) {
+				throw new ExecutionException(e);
+			}
+		}
+
+		public FiscalPacket get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			// Se espera la E/S con límite; el análisis de la respuesta no bloquea.
+			try {
+				io.get(timeout, unit);
+			} catch (ExecutionException e) {
+				// Se informa mediante complete()
+			}
+			return get();
+		}
+
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			// Un comando que ya se envió al dispositivo no puede cancelarse.
+			return io.cancel(false);
+		}
+
+		public boolean isCancelled() {
+			return io.isCancelled();
+		}
+
+		public boolean isDone() {
+			return io.isDone();
+		}
+
+		/**
+		 * @return El comando enviado.
+		 */
+		public FiscalPacket getCommand() {
+			return command;
+		}
+	}
+
+	/**
+	 * Actualiza los estados de la impresora y los mensajes a partir de la
+	 * respuesta de un comando.
+	 * @return Verdadero si cambió alguno de los estados.
+	 */
+	protected boolean checkStatus(FiscalPacket response) throws FiscalPrinterIOException {
 		int newPrinterStatus;
 		int newFiscalStatus;
 
@@ -612,37 +866,40 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		boolean stsChanged = getPrinterStatus() != newPrinterStatus ||
 							 getFiscalStatus() != newFiscalStatus;
 
+		// Si los estados no cambiaron, los mensajes actuales siguen siendo
+		// válidos.
+		if (!stsChanged && decodedStatus != null && getMessages() == decodedStatus.getMessages())
+			return false;
+
 		// Se asignan los estados de impresora y controlador fiscal.
 		setPrinterStatus(newPrinterStatus);
 		setFiscalStatus(newFiscalStatus);
 
-		FiscalMessages msgs = new FiscalMessages();
-		// Se chequea el estado del controlador fiscal.
-		for(int i = 0; i < getFiscalStatusCodes().length; i++) {
-			int statusCode = getFiscalStatusCodes()[i];
-			if((getFiscalStatus() & statusCode) != 0) {
-				FiscalMessage msg = getFiscalStatusMsgs().get(statusCode);
-				msgs.add(msg);
-			}
-		}
+		// Se obtienen los mensajes (compartidos e inmodificables) y el estado
+		// del papel a partir de los estados.
+		decodedStatus = getStatusDecoder().decode(newPrinterStatus, newFiscalStatus);
+		setWithoutPaper(decodedStatus.isWithoutPaper());
+		setMessages(decodedStatus.getMessages());
 
-		// Se chequea el estado de la impresora.
-		for(int i = 0; i < getPrinterStatusCodes().length; i++) {
-			int statusCode = getPrinterStatusCodes()[i];
-			if((getPrinterStatus() & statusCode) != 0) {
-				FiscalMessage msg = getPrinterStatusMsgs().get(statusCode);
-				msgs.add(msg);
+		return stsChanged;
+	}
+
+	/**
+	 * @return El decodificador de estados del modelo de impresora, creado a
+	 * partir de los códigos y mensajes de estado de la primera instancia.
+	 */
+	protected HasarStatusDecoder getStatusDecoder() {
+		if (statusDecoder == null) {
+			synchronized (statusDecoders) {
+				statusDecoder = statusDecoders.get(getClass());
+				if (statusDecoder == null) {
+					statusDecoder = new HasarStatusDecoder(getPrinterStatusCodes(), getPrinterStatusMsgs(),
+							getFiscalStatusCodes(), getFiscalStatusMsgs());
+					statusDecoders.put(getClass(), statusDecoder);
+				}
 			}
-			// Se chequea el estado del papel de la impresora y se
-			// setea el mismo.
-			if(statusCode == PST_JOURNAL_PAPER_OUT || statusCode == PST_TICKET_PAPER_OUT)
-				setWithoutPaper((getPrinterStatus() & statusCode) != 0);
 		}
-
-		// Se setean los mensajes de la impresora.
-		setMessages(msgs);
-
-		return stsChanged;
+		return statusDecoder;
 	}
 
 	/**
@@ -737,16 +994,18 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	}
 
 	public void printDocument(Invoice invoice) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
-		Customer customer = invoice.getCustomer();
 		FiscalPacket response;
 		// Se valida la factura.
 		invoice.validate();
+		// Se comienzan a obtener las líneas pendientes mientras se abre el
+		// comprobante.
+		startLineFeed(invoice);
 		try {
 			setCancelAllowed(false);
 			//////////////////////////////////////////////////////////////
 			// Se setean los datos del comprador.
 			// Comando: @SetCustomerData
-			loadCustomerData(customer);
+			loadDocumentCustomer(invoice);
 
 			//////////////////////////////////////////////////////////////
 			// Se carga el número de remito asignado a la factura
@@ -763,13 +1022,12 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			setLastDocumentNo("");
 			setCancelAllowed(true);
 			setDocumentOpened(true);
+			customerDataPending = false;
 
 			//////////////////////////////////////////////////////////////
 			// Se cargan las observaciones de la factura como texto fiscal.
 			// Comando: @PrintFiscalText
-			for (String observation : invoice.getObservations()) {
-				execute(cmdPrintFiscalText(observation,null));
-			}
+			loadObservations(invoice);
 
 			//////////////////////////////////////////////////////////////
 			// Se cargan los ítems de la factura.
@@ -785,9 +1043,11 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
             loadDocumentPerception(invoice);
 
 			//////////////////////////////////////////////////////////////
-			// Se calcula el subtotal.
+			// Se calcula el subtotal, si el modelo lo requiere.
 			// Comando: @Subtotal
-			execute(cmdSubtotal(true, null));
+			if (isSubtotalRequired(invoice)) {
+				execute(cmdSubtotal(true, null));
+			}
 
 			//////////////////////////////////////////////////////////////
 			// Se ingresan los pagos realizados por el comprador.
@@ -803,7 +1063,9 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			response = execute(cmdCloseFiscalReceipt(null));
 			setDocumentOpened(false);
 			// Chequeo de impuestos
-			checkTaxes(invoice);
+			if (isCheckTaxes()) {
+				checkTaxes(invoice);
+			}
 
 			// Se obtiene el número de comprobante emitido.
 			setLastDocumentNo(response.getString(3));
@@ -820,18 +1082,62 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			// actual y se relanza la excepción.
 			cancelCurrentDocument();
 			throw e;
+		} finally {
+			// Si no se imprimieron todas las líneas se detiene su obtención.
+			abortLineFeed(invoice);
 		}
 	}
 
-	public void fiscalClose(String closeType) throws FiscalPrinterStatusError, FiscalPrinterIOException {
-		execute(cmdDailyClose(closeType));
+	public FiscalCloseReport fiscalClose(String closeType) throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		FiscalPacket response = execute(cmdDailyClose(closeType));
+		// Los modelos más antiguos informan menos campos; los ausentes quedan
+		// en cero.
+		FiscalCloseReport report = new FiscalCloseReport(closeType);
+		report.setNumber(getCloseInt(response, 3));
+		report.setCancelledDocuments(getCloseInt(response, 4));
+		report.setHomologatedDocuments(getCloseInt(response, 5));
+		report.setNonFiscalDocuments(getCloseInt(response, 6));
+		report.setFiscalDocuments(getCloseInt(response, 7));
+		report.setLastInvoiceNoBC(getCloseInt(response, 9));
+		report.setLastInvoiceNoA(getCloseInt(response, 10));
+		report.setSalesAmt(getCloseAmount(response, 11));
+		report.setTaxAmt(getCloseAmount(response, 12));
+		report.setInternalTaxAmt(getCloseAmount(response, 13));
+		report.setPerceptionAmt(getCloseAmount(response, 14));
+		report.setNonInscriptTaxAmt(getCloseAmount(response, 15));
+		report.setLastCreditNoteNoBC(getCloseInt(response, 16));
+		report.setLastCreditNoteNoA(getCloseInt(response, 17));
+		report.setCreditAmt(getCloseAmount(response, 18));
+		return report;
+	}
+
+	/**
+	 * @return Valor entero del campo de la respuesta de cierre, o cero si la
+	 * impresora no lo informó.
+	 */
+	private int getCloseInt(FiscalPacket response, int field) {
+		if (field >= response.getSize() || response.getLength(field) == 0)
+			return 0;
+		return response.getInt(field);
+	}
+
+	/**
+	 * @return Importe del campo de la respuesta de cierre, o cero si la
+	 * impresora no lo informó.
+	 */
+	private BigDecimal getCloseAmount(FiscalPacket response, int field) {
+		if (field >= response.getSize() || response.getLength(field) == 0)
+			return BigDecimal.ZERO;
+		return response.getBigDecimal(field);
 	}
 
 	public void printDocument(CreditNote creditNote) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
-		Customer customer = creditNote.getCustomer();
 		FiscalPacket response;
 		// Se valida la nota de crédito.
 		creditNote.validate();
+		// Se comienzan a obtener las líneas pendientes mientras se abre el
+		// comprobante.
+		startLineFeed(creditNote);
 		try {
 			setCancelAllowed(false);
 			//////////////////////////////////////////////////////////////
@@ -844,7 +1150,7 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			//////////////////////////////////////////////////////////////
 			// Se setean los datos del comprador.
 			// Comando: @SetCustomerData
-			loadCustomerData(customer);
+			loadDocumentCustomer(creditNote);
 
 			//////////////////////////////////////////////////////////////
 			// Se abre un documento no fiscal homologado.
@@ -856,14 +1162,13 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			setLastDocumentNo("");
 			setCancelAllowed(true);
 			setDocumentOpened(true);
+			customerDataPending = false;
 
 			//////////////////////////////////////////////////////////////
 			// Se cargan las observaciones de la nota de crédito
 			// como texto fiscal.
 			// Comando: @PrintFiscalText
-			for (String observation : creditNote.getObservations()) {
-				execute(cmdPrintFiscalText(observation,null));
-			}
+			loadObservations(creditNote);
 
 			//////////////////////////////////////////////////////////////
 			// Se cargan los ítems de la nota de crédito.
@@ -888,20 +1193,25 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			// actual y se relanza la excepción.
 			cancelCurrentDocument();
 			throw e;
+		} finally {
+			// Si no se imprimieron todas las líneas se detiene su obtención.
+			abortLineFeed(creditNote);
 		}
 	}
 
 	public void printDocument(DebitNote debitNote) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
-		Customer customer = debitNote.getCustomer();
 		FiscalPacket response;
 		// Se valida la nota de débito.
 		debitNote.validate();
+		// Se comienzan a obtener las líneas pendientes mientras se abre el
+		// comprobante.
+		startLineFeed(debitNote);
 		try {
 			setCancelAllowed(false);
 			//////////////////////////////////////////////////////////////
 			// Se setean los datos del comprador.
 			// Comando: @SetCustomerData
-			loadCustomerData(customer);
+			loadDocumentCustomer(debitNote);
 
 			//////////////////////////////////////////////////////////////
 			// Se carga el número de remito asignado a la nota de débito
@@ -919,14 +1229,13 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			setLastDocumentNo("");
 			setCancelAllowed(true);
 			setDocumentOpened(true);
+			customerDataPending = false;
 
 			//////////////////////////////////////////////////////////////
 			// Se cargan las observaciones de la nota de débito
 			// como texto fiscal.
 			// Comando: @PrintFiscalText
-			for (String observation : debitNote.getObservations()) {
-				execute(cmdPrintFiscalText(observation,null));
-			}
+			loadObservations(debitNote);
 
 			//////////////////////////////////////////////////////////////
 			// Se cargan los ítems de la nota de débito.
@@ -953,6 +1262,9 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			// actual y se relanza la excepción.
 			cancelCurrentDocument();
 			throw e;
+		} finally {
+			// Si no se imprimieron todas las líneas se detiene su obtención.
+			abortLineFeed(debitNote);
 		}
 	}
 	@Override
@@ -1120,6 +1432,7 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	 * documento abierto.
 	 */
 	protected void cancelCurrentDocument() {
+		customerDataPending = true;
 		if(isCancelAllowed())
 			try {
 				execute(cmdCancelDocument());
@@ -1129,6 +1442,188 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 			}
 	}
 
+	/**
+	 * Busca en el diario el último documento abierto que no se cerró. Si el
+	 * impresor aún lo tiene abierto, lo cierra cuando ya se habían ingresado
+	 * pagos (a partir de ese momento no se permite cancelarlo) o cuando es un
+	 * documento no fiscal; en caso contrario lo cancela.
+	 */
+	public DocumentRecovery recoverDocument() throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		FiscalJournal journal = getJournal();
+		if (journal == null)
+			return DocumentRecovery.NOTHING;
+
+		int openCommand = -1;
+		boolean tendered = false;
+		FiscalPacket response = createFiscalPacket();
+		for (FiscalJournal.Record record : journal.read()) {
+			int cmd = record.getCommandCode();
+			switch (record.getType()) {
+			case FiscalJournal.REQUEST:
+				if (getCloseCommand(cmd) != -1) {
+					openCommand = cmd;
+					tendered = false;
+				} else if (cmd == CMD_TOTAL_TENDER && openCommand != -1) {
+					tendered = true;
+				}
+				break;
+			case FiscalJournal.RESPONSE:
+				// La apertura rechazada o el cierre/cancelación exitosos
+				// terminan el documento.
+				if (openCommand != -1 && (cmd == openCommand || isDocumentEndCommand(cmd))
+						&& !isDocumentOpen(record.decode(response)))
+					openCommand = -1;
+				break;
+			case FiscalJournal.RECOVERED:
+				openCommand = -1;
+				break;
+			}
+		}
+		if (openCommand == -1)
+			return DocumentRecovery.NOTHING;
+
+		// El estado del impresor indica si el documento llegó a abrirse y
+		// si aún no se cerró.
+		DocumentRecovery recovery;
+		if (!isDocumentOpen(execute(cmdStatusRequest()))) {
+			recovery = new DocumentRecovery(DocumentRecovery.NONE, openCommand, null);
+		} else if ((openCommand == CMD_OPEN_FISCAL_RECEIPT && tendered) || getCloseCommand(openCommand) == CMD_CLOSE_NON_FISCAL_RECEIPT) {
+			setDocumentOpened(true);
+			FiscalPacket closeResponse = execute(createFiscalPacket(getCloseCommand(openCommand)));
+			setDocumentOpened(false);
+			String documentNo = openCommand == CMD_OPEN_FISCAL_RECEIPT ? closeResponse.getString(3) : null;
+			if (documentNo != null)
+				setLastDocumentNo(documentNo);
+			recovery = new DocumentRecovery(DocumentRecovery.COMPLETED, openCommand, documentNo);
+		} else {
+			setDocumentOpened(true);
+			execute(cmdCancelDocument());
+			setDocumentOpened(false);
+			recovery = new DocumentRecovery(DocumentRecovery.CANCELLED, openCommand, null);
+		}
+
+		try {
+			journal.append(FiscalJournal.RECOVERED, null);
+			journal.checkpoint();
+		} catch (IOException e) {
+			throw new FiscalPrinterIOException(e.getMessage(), getLastRequest(), getLastResponse());
+		}
+		return recovery;
+	}
+
+	@Override
+	public void connect() throws IOException {
+		super.connect();
+		// Otro cliente pudo usar la impresora mientras estaba desconectada.
+		customerDataPending = true;
+	}
+
+	@Override
+	public void discardSharedState() {
+		customerDataPending = true;
+	}
+
+	/**
+	 * Consulta el estado mediante un <code>StatusRequest</code>, o un
+	 * <code>STATPRN</code> si la impresora sólo acepta ese comando.
+	 */
+	public FiscalPrinterHealth checkHealth() throws FiscalPrinterIOException {
+		boolean statprn = hasStatus(getFiscalStatusCodes(), getFiscalStatus(), FST_STATPRN_ACTIVE);
+		try {
+			execute(statprn ? cmdSTATPRN() : cmdStatusRequest());
+		} catch (FiscalPrinterStatusError e) {
+			// El error forma parte del estado consultado.
+		}
+		int fiscalStatus = getFiscalStatus();
+		return new FiscalPrinterHealth(isWithoutPaper(),
+				hasStatus(getPrinterStatusCodes(), getPrinterStatus(), PST_PRINTER_COVER_OPEN),
+				hasStatus(getFiscalStatusCodes(), fiscalStatus, FST_FISCAL_DOCUMENT_OPEN)
+						|| hasStatus(getFiscalStatusCodes(), fiscalStatus, FST_DOCUMENT_OPEN),
+				hasStatus(getFiscalStatusCodes(), fiscalStatus, FST_FISCAL_MEMORY_ALMOST_FULL),
+				getMessages());
+	}
+
+	/**
+	 * @return Verdadero si el modelo informa el código de estado y éste se
+	 * encuentra activo en el estado parámetro.
+	 */
+	private boolean hasStatus(int[] codes, int status, int code) {
+		if ((status & code) == 0)
+			return false;
+		for (int c : codes)
+			if (c == code)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Registra el comando en el diario, si la impresora tiene uno asignado.
+	 * La apertura de un documento se fuerza a disco antes de enviarla.
+	 */
+	private void journalRequest(FiscalPacket command) throws IOException {
+		FiscalJournal journal = getJournal();
+		if (journal == null)
+			return;
+		journal.append(FiscalJournal.REQUEST, command);
+		if (getCloseCommand(command.getCommandCode()) != -1)
+			journal.sync();
+	}
+
+	/**
+	 * Registra la respuesta en el diario, si la impresora tiene uno asignado.
+	 * Los pagos se fuerzan a disco y el fin de un documento es un checkpoint
+	 * del diario.
+	 */
+	private void journalResponse(FiscalPacket command, FiscalPacket response) throws FiscalPrinterIOException {
+		FiscalJournal journal = getJournal();
+		if (journal == null)
+			return;
+		try {
+			journal.append(FiscalJournal.RESPONSE, response);
+		} catch (IOException e) {
+			throw new FiscalPrinterIOException(e.getMessage(), command, response);
+		}
+		int cmd = command.getCommandCode();
+		if (cmd == CMD_TOTAL_TENDER)
+			journal.sync();
+		else if (isDocumentEndCommand(cmd) && !isDocumentOpen(response))
+			journal.checkpoint();
+	}
+
+	/**
+	 * @return El código del comando que cierra el documento abierto por el
+	 * comando <code>openCommand</code>, o -1 si no es un comando de apertura.
+	 */
+	private int getCloseCommand(int openCommand) {
+		if (openCommand == CMD_OPEN_FISCAL_RECEIPT)
+			return CMD_CLOSE_FISCAL_RECEIPT;
+		if (openCommand == CMD_OPEN_DNFH)
+			return CMD_CLOSE_DNFH;
+		if (openCommand == CMD_OPEN_NON_FISCAL_RECEIPT || openCommand == CMD_OPEN_NFD_SLIP)
+			return CMD_CLOSE_NON_FISCAL_RECEIPT;
+		return -1;
+	}
+
+	/**
+	 * @return Verdadero si el comando cierra o cancela un documento.
+	 */
+	private boolean isDocumentEndCommand(int cmd) {
+		return cmd == CMD_CLOSE_FISCAL_RECEIPT || cmd == CMD_CLOSE_DNFH
+				|| cmd == CMD_CLOSE_NON_FISCAL_RECEIPT || cmd == CMD_CANCEL_DOCUMENT;
+	}
+
+	/**
+	 * @return Verdadero si el estado fiscal de la respuesta indica un
+	 * documento abierto. Una respuesta sin estado se considera abierta.
+	 */
+	private boolean isDocumentOpen(FiscalPacket response) {
+		try {
+			return (response.getFiscalStatus() & (FST_FISCAL_DOCUMENT_OPEN | FST_DOCUMENT_OPEN | FST_DOCUMENT_OPEN_SLIP)) != 0;
+		} catch (Exception e) {
+			return true;
+		}
+	}
+
 	/**
 	 * Obtiene el número del CAI de la respuesta al comando CloseFiscalReceipt.
 	 * @param response Respuesta obtenida de la impresora
@@ -1136,7 +1631,13 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	 * no soporte esta opción.
 	 */
 	protected String getCAINumber(FiscalPacket response) {
-		return null;
+		if (!getProfile().isCAIReturned())
+			return null;
+		try {
+			return response.getString(getProfile().getCAIField());
+		} catch(Exception e) {
+			return null;
+		}
 	}
 
 	/**
@@ -1145,6 +1646,17 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 	 */
 	protected FiscalPacket loadCustomerData(final Customer customer) throws FiscalPrinterStatusError, FiscalPrinterIOException {
 		FiscalPacket response = null;
+		if(customer != null && getProfile().isCustomerIdRequired()) {
+			// El modelo no soporta el tipo de identificacion SIN_CALIFICADOR
+			// ni el nº de identificacion nulo: se asume DNI 0
+			if (traduceIdentificationType(customer.getIdentificationType()).equals(SIN_CALIFICADOR)) {
+				customer.setIdentificationType(Customer.DNI);
+			}
+			String idNumber = customer.getIdentificationNumber();
+			if (idNumber == null || idNumber.length() < 1) {
+				customer.setIdentificationNumber("0");
+			}
+		}
 		if(customer != null) {
 			// Según el manual de las impresoras HASAR, en este comando, si
 			// el cliente es Consumidor Final y le monto no supera el máximo
@@ -1170,38 +1682,239 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 		return response;
 	}
 
+	/**
+	 * Carga los datos del comprador del documento, salvo que el modelo no
+	 * los requiera y la impresora no pueda conservar los datos de un
+	 * comprador anterior.
+	 */
+	private void loadDocumentCustomer(Document document) throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		if (!customerDataPending && !isCustomerDataRequired(document))
+			return;
+		// Hasta abrir el documento la impresora conserva los datos.
+		customerDataPending = true;
+		loadCustomerData(document.getCustomer());
+	}
+
+	/**
+	 * Indica si el documento requiere el comando <code>SetCustomerData</code>.
+	 * Para las facturas a Consumidor Final anónimo los datos del comprador son
+	 * opcionales: si el monto supera el límite la factura no es válida de
+	 * todos modos (ver <code>Invoice.validateLines()</code>). Los modelos que
+	 * requieran siempre los datos deben sobreescribir este método.
+	 * @param document Documento a imprimir.
+	 * @return Verdadero si se deben cargar los datos del comprador.
+	 */
+	protected boolean isCustomerDataRequired(Document document) {
+		Customer customer = document.getCustomer();
+		if (customer == null)
+			return false;
+		if (!(document instanceof Invoice) || customer.getIvaResponsibility() != Customer.CONSUMIDOR_FINAL)
+			return true;
+		return !isBlank(customer.getName()) || !isBlank(customer.getIdentificationNumber())
+				|| !isBlank(customer.getLocation());
+	}
+
+	private boolean isBlank(String value) {
+		return value == null || value.trim().length() == 0;
+	}
+
+	/**
+	 * Indica si se debe calcular el subtotal antes de ingresar los pagos.
+	 * El comando es opcional en esta marca; por defecto sólo se envía
+	 * cuando el documento tiene percepciones.
+	 * @param document Documento a imprimir.
+	 * @return Verdadero si se debe enviar el comando <code>Subtotal</code>.
+	 */
+	protected boolean isSubtotalRequired(Document document) {
+		return document.getPerceptionLine() != null;
+	}
+
+	/**
+	 * @return Cantidad máxima de caracteres de un texto fiscal en este modelo.
+	 */
+	protected int getFiscalTextLength() {
+		return getProfile().getFiscalTextLength();
+	}
+
+	/**
+	 * Carga las observaciones del documento como texto fiscal, con la menor
+	 * cantidad de comandos posible (ver {@link #packFiscalTexts(List)}).
+	 */
+	private void loadObservations(Document document) throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		List<FiscalPacket> commands = new ArrayList<FiscalPacket>();
+		for (String text : packFiscalTexts(document.getObservations())) {
+			commands.add(cmdPrintFiscalText(text, null));
+		}
+		executeBatch(commands);
+	}
+
+	/**
+	 * Agrupa los textos en la menor cantidad de líneas de texto fiscal que
+	 * permite el modelo, conservando su orden. Un texto que no entra en una
+	 * línea ocupa una propia y se trunca, como al imprimirlo solo.
+	 * @param texts Textos a imprimir.
+	 * @return Las líneas de texto fiscal.
+	 */
+	protected List<String> packFiscalTexts(List<String> texts) {
+		int maxLength = getFiscalTextLength();
+		List<String> lines = new ArrayList<String>();
+		StringBuffer line = null;
+		for (String text : texts) {
+			if (isBlank(text))
+				continue;
+			text = text.trim();
+			if (line != null && line.length() + FISCAL_TEXT_SEPARATOR.length() + text.length() <= maxLength) {
+				line.append(FISCAL_TEXT_SEPARATOR).append(text);
+			} else {
+				if (line != null)
+					lines.add(line.toString());
+				line = new StringBuffer(text);
+			}
+		}
+		if (line != null)
+			lines.add(line.toString());
+		return lines;
+	}
+
 	/**
 	 * Ejecuta los comandos necesarios para cargar las líneas de item
 	 * del documento en la impresora fiscal.
 	 */
-	private void loadDocumentLineItems(Document document) throws FiscalPrinterStatusError, FiscalPrinterIOException {
+	private void loadDocumentLineItems(Document document) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		if (document.isStreamed()) {
+			loadStreamedLineItems(document);
+			return;
+		}
 		// Se cargan los ítems del documento.
 		// Comando: @PrintLineItem
+		List<FiscalPacket> commands = new ArrayList<FiscalPacket>();
 		for (DocumentLine item : document.getLines()) {
-			execute(cmdPrintLineItem(
-				item.getDescription(),
-				item.getQuantity(),
-				item.getAbsUnitPrice(),
-				item.getIvaRate(),
-				item.isSubstract(),
-				BigDecimal.ZERO, // Impuestos internos
-				!item.isPriceIncludeIva(),
-				null)
-			);
-			// Se carga el descuento del ítem si es que posee.
-			// Comando: @LastItemDiscount
-			if (item.hasDiscount()) {
-				DiscountLine discount = item.getDiscount();
-				execute(cmdLastItemDiscount(
-					discount.getDescription(),
-					discount.getAbsAmount(),
-					discount.isDiscount(),
-					!discount.isAmountIncludeIva(),
-					null));
+			addLineItemCommands(commands, item);
+		}
+		executeBatch(commands);
+	}
+
+	/**
+	 * Carga las líneas de item a medida que se obtienen: cada vez se envían
+	 * las líneas ya disponibles (a lo sumo una ventana de pipelining) mientras
+	 * se leen las siguientes. Ante un error al obtener las líneas o una línea
+	 * inválida se cancela el documento abierto.
+	 */
+	private void loadStreamedLineItems(Document document) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		DocumentLineFeed feed = document.getLineFeed();
+		List<DocumentLine> items = new ArrayList<DocumentLine>();
+		List<FiscalPacket> commands = new ArrayList<FiscalPacket>();
+		try {
+			for (DocumentLine item = feed.take(); item != null; item = feed.take()) {
+				items.clear();
+				commands.clear();
+				items.add(item);
+				feed.drainTo(items, Math.max(getPipelineWindow(), 1) - 1);
+				for (DocumentLine line : items) {
+					line.validate();
+					document.addLine(line);
+					addLineItemCommands(commands, line);
+				}
+				executeBatch(commands);
+			}
+			document.setLineFeed(null);
+			document.validateLines();
+		} catch (DocumentException e) {
+			e.setDocument(document);
+			cancelCurrentDocument();
+			throw e;
+		}
+	}
+
+	/**
+	 * Inicia la obtención de las líneas del documento, si se obtienen durante
+	 * la impresión.
+	 */
+	private void startLineFeed(Document document) {
+		if (document.isStreamed())
+			document.getLineFeed().start();
+	}
+
+	/**
+	 * Detiene la obtención de las líneas del documento si la impresión terminó
+	 * antes de consumirlas todas.
+	 */
+	private void abortLineFeed(Document document) {
+		if (document.isStreamed())
+			document.getLineFeed().abort();
+	}
+
+	/**
+	 * Agrega los comandos que cargan una línea de item y su descuento.
+	 */
+	private void addLineItemCommands(List<FiscalPacket> commands, DocumentLine item) {
+		commands.add(cmdPrintLineItem(
+			item.getDescription(),
+			item.getQuantity(),
+			item.getAbsUnitPrice(),
+			item.getIvaRate(),
+			item.isSubstract(),
+			BigDecimal.ZERO, // Impuestos internos
+			!item.isPriceIncludeIva(),
+			null)
+		);
+		// Se carga el descuento del ítem si es que posee.
+		// Comando: @LastItemDiscount
+		if (item.hasDiscount()) {
+			DiscountLine discount = item.getDiscount();
+			commands.add(cmdLastItemDiscount(
+				discount.getDescription(),
+				discount.getAbsAmount(),
+				discount.isDiscount(),
+				!discount.isAmountIncludeIva(),
+				null));
+		}
+	}
+
+	/**
+	 * Ejecuta comandos cuyas respuestas sólo se analizan por su estado (líneas
+	 * de item, textos fiscales), con pipelining si la comunicación lo permite.
+	 */
+	private void executeBatch(List<FiscalPacket> commands) throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		if (getPipelineWindow() > 1 && getFiscalComm() instanceof PipelinedFiscalComm) {
+			executePipelined(commands);
+		} else {
+			for (FiscalPacket command : commands) {
+				execute(command);
 			}
 		}
 	}
 
+	/**
+	 * Ejecuta los comandos sin esperar la respuesta de cada uno, con a lo
+	 * sumo <code>getPipelineWindow()</code> comandos en curso. Las respuestas
+	 * se analizan en orden; ante el primer error no se envían más comandos y
+	 * se lanza la excepción correspondiente a ese comando (quien invoca es
+	 * responsable de cancelar el documento abierto).
+	 */
+	protected void executePipelined(List<FiscalPacket> commands) throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		FiscalPacket[] requests = commands.toArray(new FiscalPacket[commands.size()]);
+		FiscalPacket[] responses = new FiscalPacket[requests.length];
+		for (int i = 0; i < responses.length; i++) {
+			responses[i] = createFiscalPacket();
+		}
+		PipelinedFiscalComm comm = (PipelinedFiscalComm) getFiscalComm();
+		try {
+			for (FiscalPacket request : requests) {
+				journalRequest(request);
+			}
+			comm.executePipelined(requests, responses, getPipelineWindow(), new PipelinedFiscalComm.ResponseHandler() {
+				public void responseReceived(int index, FiscalPacket request, FiscalPacket response) throws IOException {
+					handleResponse(request, response);
+				}
+			});
+		} catch (FiscalPrinterIOException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new FiscalPrinterIOException(e.getMessage(), getLastRequest(), getLastResponse());
+		}
+	}
+
     private void loadDocumentPerception(final Document document) throws FiscalPrinterStatusError,
             FiscalPrinterIOException
     {
@@ -1312,10 +2025,7 @@ public abstract class HasarFiscalPrinter extends BasicFiscalPrinter implements H
 
 	@Override
 	public int getAllowedPaymentQty() {
-		// Por defecto todos los modelos Hasar permiten 4 pagos. Cada modelo
-		// deberá sobreescribir este método para indicar un número de pagos
-		// diferentes.
-		return 4;
+		return getProfile().getAllowedPaymentQty();
 	}
 
 
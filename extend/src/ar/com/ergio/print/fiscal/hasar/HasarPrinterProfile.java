@@ -0,0 +1,421 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Perfil de capacidades de un modelo de impresora Hasar: longitudes máximas
+ * de los textos, cantidad de pagos, campos opcionales que acepta, forma de
+ * la respuesta al cierre del comprobante y si admite comandos en curso
+ * simultáneos.
+ * <br>
+ * <code>HasarFiscalPrinter</code> arma todos los comandos a partir del perfil
+ * de la impresora, de modo que las diferencias entre modelos son datos y no
+ * subclases. Un perfil se describe como una lista de pares
+ * <code>clave=valor</code> separados por <code>;</code> (ver {@link #parse}),
+ * el mismo formato que acepta el campo <code>Parameters</code> del tipo de
+ * controlador fiscal; la clave <code>profile</code> indica el perfil
+ * predefinido del que se parte. Los valores lógicos son <code>Y</code> o
+ * <code>N</code>.
+ * <br>
+ * Los perfiles son inmutables.
+ */
+public class HasarPrinterProfile {
+
+	/** Perfil base del que parte la descripción */
+	public static final String KEY_PROFILE = "profile";
+	/** Decimales de los importes */
+	public static final String KEY_AMOUNT_SCALE = "amountScale";
+	/** Acepta el parámetro display (si no, se envía siempre 0) */
+	public static final String KEY_DISPLAY = "display";
+	/** Acepta la cantidad de copias al cerrar comprobantes fiscales y DNFH */
+	public static final String KEY_CLOSE_COPIES = "closeCopies";
+	/** Acepta la cantidad de copias al cerrar comprobantes no fiscales */
+	public static final String KEY_NON_FISCAL_CLOSE_COPIES = "nonFiscalCloseCopies";
+	/** Campo de la respuesta de CloseFiscalReceipt con el CAI (0 si no lo retorna) */
+	public static final String KEY_CAI_FIELD = "caiField";
+	/** Longitud máxima de la descripción de un ítem */
+	public static final String KEY_LINE_ITEM_LENGTH = "lineItemLength";
+	/** Longitud máxima de un texto fiscal */
+	public static final String KEY_FISCAL_TEXT_LENGTH = "fiscalTextLength";
+	/** Longitud máxima de la descripción de una devolución o recargo */
+	public static final String KEY_RETURN_RECHARGE_LENGTH = "returnRechargeLength";
+	/** Longitud máxima del nombre del comprador */
+	public static final String KEY_CUSTOMER_NAME_LENGTH = "customerNameLength";
+	/** Longitud máxima del domicilio del comprador */
+	public static final String KEY_CUSTOMER_LOCATION_LENGTH = "customerLocationLength";
+	/** Cantidad de pagos permitidos por comprobante */
+	public static final String KEY_PAYMENTS = "payments";
+	/** Campos opcionales del comando SetGeneralConfiguration */
+	public static final String KEY_TICKET_INVOICE_LIMIT = "ticketInvoiceLimit";
+	public static final String KEY_IVA_NON_INSCRIPT = "ivaNonInscript";
+	public static final String KEY_PRINT_CHANGE = "printChange";
+	public static final String KEY_PRINT_LABELS = "printLabels";
+	public static final String KEY_TICKET_CUT = "ticketCut";
+	public static final String KEY_PAPER_SIZE = "paperSize";
+	/** Exige tipo y número de identificación del comprador */
+	public static final String KEY_CUSTOMER_ID = "customerId";
+	/** Admite más de un comando en curso */
+	public static final String KEY_PIPELINE = "pipeline";
+
+	/** Comportamiento común de los modelos Hasar */
+	public static final HasarPrinterProfile DEFAULT = new HasarPrinterProfile("DEFAULT",
+			KEY_AMOUNT_SCALE + "=4;" + KEY_DISPLAY + "=Y;" + KEY_CLOSE_COPIES + "=Y;"
+			+ KEY_NON_FISCAL_CLOSE_COPIES + "=Y;" + KEY_CAI_FIELD + "=0;"
+			+ KEY_LINE_ITEM_LENGTH + "=50;" + KEY_FISCAL_TEXT_LENGTH + "=50;"
+			+ KEY_RETURN_RECHARGE_LENGTH + "=50;" + KEY_CUSTOMER_NAME_LENGTH + "=50;"
+			+ KEY_CUSTOMER_LOCATION_LENGTH + "=50;" + KEY_PAYMENTS + "=4;"
+			+ KEY_TICKET_INVOICE_LIMIT + "=Y;" + KEY_IVA_NON_INSCRIPT + "=Y;"
+			+ KEY_PRINT_CHANGE + "=Y;" + KEY_PRINT_LABELS + "=Y;" + KEY_TICKET_CUT + "=Y;"
+			+ KEY_PAPER_SIZE + "=Y;" + KEY_CUSTOMER_ID + "=N;" + KEY_PIPELINE + "=Y",
+			null);
+
+	/** Perfiles predefinidos por nombre */
+	private static final Map<String, HasarPrinterProfile> profiles = new HashMap<String, HasarPrinterProfile>();
+
+	public static final HasarPrinterProfile P320F = define("P320F",
+			"display=N;closeCopies=N;nonFiscalCloseCopies=N;"
+			+ "ticketInvoiceLimit=N;printChange=N;printLabels=N;ticketCut=N;paperSize=N");
+	public static final HasarPrinterProfile P321F = define("P321F",
+			"display=N;closeCopies=N;"
+			+ "ticketInvoiceLimit=N;printChange=N;printLabels=N;ticketCut=N");
+	public static final HasarPrinterProfile P322F = define("P322F",
+			"display=N;closeCopies=N;caiField=5;"
+			+ "ticketInvoiceLimit=N;printChange=N;printLabels=N;ticketCut=N");
+	public static final HasarPrinterProfile P330F = define("P330F",
+			"display=N;caiField=5;"
+			+ "ticketInvoiceLimit=N;ivaNonInscript=N;printChange=N;printLabels=N;ticketCut=N");
+	public static final HasarPrinterProfile P715F = define("P715F",
+			"amountScale=2;display=N;closeCopies=N;"
+			+ "lineItemLength=15;customerLocationLength=40;customerId=Y");
+	public static final HasarPrinterProfile PL8F = define("PL8F",
+			"display=N;closeCopies=N;caiField=5;"
+			+ "ticketInvoiceLimit=N;printChange=N;printLabels=N;ticketCut=N;paperSize=N");
+	public static final HasarPrinterProfile PL9F = define("PL9F",
+			"display=N;caiField=5;"
+			+ "ticketInvoiceLimit=N;ivaNonInscript=N;printChange=N;printLabels=N;ticketCut=N;paperSize=N");
+
+	private final String name;
+	/** Valores de todas las claves, en el orden en que se definieron */
+	private final Map<String, String> values;
+
+	private final int amountScale;
+	private final boolean displaySupported;
+	private final boolean closeCopiesSupported;
+	private final boolean nonFiscalCloseCopiesSupported;
+	private final int caiField;
+	private final int lineItemLength;
+	private final int fiscalTextLength;
+	private final int returnRechargeLength;
+	private final int customerNameLength;
+	private final int customerLocationLength;
+	private final int allowedPaymentQty;
+	private final boolean ticketInvoiceLimitSupported;
+	private final boolean ivaNonInscriptSupported;
+	private final boolean printChangeSupported;
+	private final boolean printLabelsSupported;
+	private final boolean ticketCutSupported;
+	private final boolean paperSizeSupported;
+	private final boolean customerIdRequired;
+	private final boolean pipelineSafe;
+
+	/**
+	 * @param name Nombre del perfil.
+	 * @param description Pares <code>clave=valor</code> que modifican el perfil base.
+	 * @param base Perfil base, o <code>null</code> si la descripción es completa.
+	 * @throws IllegalArgumentException si una clave no existe o un valor no es válido.
+	 */
+	private HasarPrinterProfile(String name, String description, HasarPrinterProfile base) {
+		this.name = name;
+		Map<String, String> v = new LinkedHashMap<String, String>();
+		if (base != null)
+			v.putAll(base.values);
+		for (String entry : description.split(";")) {
+			entry = entry.trim();
+			if (entry.length() == 0)
+				continue;
+			int eq = entry.indexOf('=');
+			if (eq < 0)
+				throw new IllegalArgumentException("Invalid printer profile entry: " + entry);
+			String key = entry.substring(0, eq).trim();
+			if (base != null && !v.containsKey(key))
+				throw new IllegalArgumentException("Unknown printer profile key: " + key);
+			v.put(key, entry.substring(eq + 1).trim());
+		}
+		values = Collections.unmodifiableMap(v);
+
+		amountScale = getInt(KEY_AMOUNT_SCALE);
+		displaySupported = getBoolean(KEY_DISPLAY);
+		closeCopiesSupported = getBoolean(KEY_CLOSE_COPIES);
+		nonFiscalCloseCopiesSupported = getBoolean(KEY_NON_FISCAL_CLOSE_COPIES);
+		caiField = getInt(KEY_CAI_FIELD);
+		lineItemLength = getInt(KEY_LINE_ITEM_LENGTH);
+		fiscalTextLength = getInt(KEY_FISCAL_TEXT_LENGTH);
+		returnRechargeLength = getInt(KEY_RETURN_RECHARGE_LENGTH);
+		customerNameLength = getInt(KEY_CUSTOMER_NAME_LENGTH);
+		customerLocationLength = getInt(KEY_CUSTOMER_LOCATION_LENGTH);
+		allowedPaymentQty = getInt(KEY_PAYMENTS);
+		ticketInvoiceLimitSupported = getBoolean(KEY_TICKET_INVOICE_LIMIT);
+		ivaNonInscriptSupported = getBoolean(KEY_IVA_NON_INSCRIPT);
+		printChangeSupported = getBoolean(KEY_PRINT_CHANGE);
+		printLabelsSupported = getBoolean(KEY_PRINT_LABELS);
+		ticketCutSupported = getBoolean(KEY_TICKET_CUT);
+		paperSizeSupported = getBoolean(KEY_PAPER_SIZE);
+		customerIdRequired = getBoolean(KEY_CUSTOMER_ID);
+		pipelineSafe = getBoolean(KEY_PIPELINE);
+	}
+
+	private static HasarPrinterProfile define(String name, String description) {
+		HasarPrinterProfile profile = new HasarPrinterProfile(name, description, DEFAULT);
+		profiles.put(name, profile);
+		return profile;
+	}
+
+	/**
+	 * @param name Nombre de un perfil predefinido (por ejemplo <code>P320F</code>).
+	 * @return El perfil, o <code>null</code> si no existe.
+	 */
+	public static HasarPrinterProfile get(String name) {
+		if ("DEFAULT".equals(name))
+			return DEFAULT;
+		return profiles.get(name);
+	}
+
+	/**
+	 * Crea un perfil a partir de su descripción. Si la descripción incluye la
+	 * clave <code>profile</code>, se parte del perfil predefinido indicado en
+	 * lugar de <code>base</code>.
+	 * @param base Perfil del que se parte; si es <code>null</code> se usa
+	 * {@link #DEFAULT}.
+	 * @param description Pares <code>clave=valor</code> separados por
+	 * <code>;</code>. Si es <code>null</code> o vacía se retorna el perfil base.
+	 * @return El perfil resultante.
+	 * @throws IllegalArgumentException si el perfil base indicado no existe,
+	 * si una clave no existe o si un valor no es válido.
+	 */
+	public static HasarPrinterProfile parse(HasarPrinterProfile base, String description) {
+		if (base == null)
+			base = DEFAULT;
+		if (description == null || description.trim().length() == 0)
+			return base;
+		StringBuffer overrides = new StringBuffer();
+		for (String entry : description.split(";")) {
+			int eq = entry.indexOf('=');
+			if (eq >= 0 && entry.substring(0, eq).trim().equals(KEY_PROFILE)) {
+				String baseName = entry.substring(eq + 1).trim();
+				base = get(baseName);
+				if (base == null)
+					throw new IllegalArgumentException("Unknown printer profile: " + baseName);
+			} else {
+				overrides.append(entry).append(';');
+			}
+		}
+		return new HasarPrinterProfile(base.getName(), overrides.toString(), base);
+	}
+
+	private int getInt(String key) {
+		String value = values.get(key);
+		try {
+			int result = Integer.parseInt(value);
+			if (result >= 0)
+				return result;
+		} catch (NumberFormatException e) {
+			// Se informa abajo
+		}
+		throw new IllegalArgumentException("Invalid value for printer profile key " + key + ": " + value);
+	}
+
+	private boolean getBoolean(String key) {
+		String value = values.get(key);
+		if ("Y".equals(value))
+			return true;
+		if ("N".equals(value))
+			return false;
+		throw new IllegalArgumentException("Invalid value for printer profile key " + key + ": " + value);
+	}
+
+	/**
+	 * @return Nombre del perfil predefinido del que proviene este perfil.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return Cantidad de decimales de los importes.
+	 */
+	public int getAmountScale() {
+		return amountScale;
+	}
+
+	/**
+	 * @return Indica si el modelo usa el parámetro display de los comandos.
+	 * Si no lo usa se envía siempre 0.
+	 */
+	public boolean isDisplaySupported() {
+		return displaySupported;
+	}
+
+	/**
+	 * @return Indica si el modelo acepta la cantidad de copias al cerrar
+	 * comprobantes fiscales y documentos no fiscales homologados.
+	 */
+	public boolean isCloseCopiesSupported() {
+		return closeCopiesSupported;
+	}
+
+	/**
+	 * @return Indica si el modelo acepta la cantidad de copias al cerrar
+	 * comprobantes no fiscales.
+	 */
+	public boolean isNonFiscalCloseCopiesSupported() {
+		return nonFiscalCloseCopiesSupported;
+	}
+
+	/**
+	 * @return Indica si el modelo retorna el CAI al cerrar un comprobante.
+	 */
+	public boolean isCAIReturned() {
+		return caiField > 0;
+	}
+
+	/**
+	 * @return Campo de la respuesta de CloseFiscalReceipt que contiene el
+	 * CAI, o 0 si el modelo no lo retorna.
+	 */
+	public int getCAIField() {
+		return caiField;
+	}
+
+	/**
+	 * @return Longitud máxima de la descripción de un ítem.
+	 */
+	public int getLineItemLength() {
+		return lineItemLength;
+	}
+
+	/**
+	 * @return Longitud máxima de un texto fiscal.
+	 */
+	public int getFiscalTextLength() {
+		return fiscalTextLength;
+	}
+
+	/**
+	 * @return Longitud máxima de la descripción de una devolución o recargo.
+	 */
+	public int getReturnRechargeLength() {
+		return returnRechargeLength;
+	}
+
+	/**
+	 * @return Longitud máxima del nombre del comprador.
+	 */
+	public int getCustomerNameLength() {
+		return customerNameLength;
+	}
+
+	/**
+	 * @return Longitud máxima del domicilio del comprador.
+	 */
+	public int getCustomerLocationLength() {
+		return customerLocationLength;
+	}
+
+	/**
+	 * @return Cantidad de pagos permitidos por comprobante.
+	 */
+	public int getAllowedPaymentQty() {
+		return allowedPaymentQty;
+	}
+
+	/**
+	 * @return Indica si el modelo acepta el monto máximo de ticket factura
+	 * en la configuración general. Si no, se envía 0.
+	 */
+	public boolean isTicketInvoiceLimitSupported() {
+		return ticketInvoiceLimitSupported;
+	}
+
+	/**
+	 * @return Indica si el modelo acepta el porcentaje de IVA no inscripto
+	 * en la configuración general. Si no, se envía 0.
+	 */
+	public boolean isIvaNonInscriptSupported() {
+		return ivaNonInscriptSupported;
+	}
+
+	/**
+	 * @return Indica si el modelo acepta la impresión del vuelto en la
+	 * configuración general.
+	 */
+	public boolean isPrintChangeSupported() {
+		return printChangeSupported;
+	}
+
+	/**
+	 * @return Indica si el modelo acepta la impresión de leyendas en la
+	 * configuración general.
+	 */
+	public boolean isPrintLabelsSupported() {
+		return printLabelsSupported;
+	}
+
+	/**
+	 * @return Indica si el modelo acepta el tipo de corte de papel en la
+	 * configuración general.
+	 */
+	public boolean isTicketCutSupported() {
+		return ticketCutSupported;
+	}
+
+	/**
+	 * @return Indica si el modelo acepta el tamaño de papel en la
+	 * configuración general.
+	 */
+	public boolean isPaperSizeSupported() {
+		return paperSizeSupported;
+	}
+
+	/**
+	 * @return Indica si el modelo exige tipo y número de identificación del
+	 * comprador aún para consumidores finales.
+	 */
+	public boolean isCustomerIdRequired() {
+		return customerIdRequired;
+	}
+
+	/**
+	 * @return Indica si el modelo admite más de un comando en curso.
+	 */
+	public boolean isPipelineSafe() {
+		return pipelineSafe;
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		sb.append(KEY_PROFILE).append('=').append(name);
+		for (Map.Entry<String, String> entry : values.entrySet())
+			sb.append(';').append(entry.getKey()).append('=').append(entry.getValue());
+		return sb.toString();
+	}
+}
@@ -0,0 +1,209 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import ar.com.ergio.print.fiscal.msg.FiscalMessage;
+import ar.com.ergio.print.fiscal.msg.FiscalMessages;
+
+/**
+ * Decodificador de los estados de impresora y controlador fiscal de un modelo
+ * de impresora Hasar.
+ * <br>
+ * Cada par de estados se decodifica una única vez: el resultado
+ * ({@link Status}) es inmutable y se comparte entre todas las impresoras del
+ * modelo. Los estados se reducen a los bits que tienen mensaje asociado antes
+ * de buscarlos, de modo que los bits sin significado no generan entradas
+ * nuevas. La búsqueda no crea objetos.
+ */
+public class HasarStatusDecoder {
+
+	/** Cantidad máxima de pares de estados memorizados */
+	private static final int MAX_ENTRIES = 1024;
+
+	/** Códigos de estado de la impresora, en orden de decodificación */
+	private final int[] printerStatusCodes;
+	/** Mensajes de estado de la impresora por código */
+	private final FiscalMessage[] printerStatusMsgs;
+	/** Códigos de estado del controlador fiscal, en orden de decodificación */
+	private final int[] fiscalStatusCodes;
+	/** Mensajes de estado del controlador fiscal por código */
+	private final FiscalMessage[] fiscalStatusMsgs;
+	/** Bits con mensaje asociado */
+	private final int printerStatusMask;
+	private final int fiscalStatusMask;
+
+	/** Tabla de dispersión abierta: claves (estados reducidos) y resultados */
+	private int[] keys = new int[64];
+	private Status[] values = new Status[64];
+	private int size = 0;
+
+	/**
+	 * @param printerStatusCodes Códigos de estado de la impresora.
+	 * @param printerStatusMsgs Mensajes de estado de la impresora.
+	 * @param fiscalStatusCodes Códigos de estado del controlador fiscal.
+	 * @param fiscalStatusMsgs Mensajes de estado del controlador fiscal.
+	 */
+	public HasarStatusDecoder(int[] printerStatusCodes, Map<Integer, FiscalMessage> printerStatusMsgs,
+			int[] fiscalStatusCodes, Map<Integer, FiscalMessage> fiscalStatusMsgs) {
+		super();
+		this.printerStatusCodes = printerStatusCodes.clone();
+		this.printerStatusMsgs = toArray(this.printerStatusCodes, printerStatusMsgs);
+		this.fiscalStatusCodes = fiscalStatusCodes.clone();
+		this.fiscalStatusMsgs = toArray(this.fiscalStatusCodes, fiscalStatusMsgs);
+		this.printerStatusMask = mask(this.printerStatusCodes);
+		this.fiscalStatusMask = mask(this.fiscalStatusCodes);
+	}
+
+	/**
+	 * @return El estado decodificado del par de estados.
+	 */
+	public Status decode(int printerStatus, int fiscalStatus) {
+		int printerBits = printerStatus & printerStatusMask & 0xFFFF;
+		int fiscalBits = fiscalStatus & fiscalStatusMask & 0xFFFF;
+		int key = (printerBits << 16) | fiscalBits;
+		Status status;
+		synchronized (this) {
+			status = find(key);
+		}
+		if (status == null) {
+			status = create(printerBits, fiscalBits);
+			synchronized (this) {
+				if (size < MAX_ENTRIES && find(key) == null)
+					put(key, status);
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Decodifica el par de estados sin consultar ni actualizar los estados
+	 * ya decodificados. Permite medir el costo de la decodificación.
+	 * @return El estado decodificado del par de estados.
+	 */
+	public Status decodeUncached(int printerStatus, int fiscalStatus) {
+		return create(printerStatus & printerStatusMask & 0xFFFF, fiscalStatus & fiscalStatusMask & 0xFFFF);
+	}
+
+	private Status find(int key) {
+		int mask = keys.length - 1;
+		for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key)
+				return values[i];
+		}
+		return null;
+	}
+
+	private void put(int key, Status status) {
+		if ((size + 1) * 2 > keys.length) {
+			int[] oldKeys = keys;
+			Status[] oldValues = values;
+			keys = new int[oldKeys.length * 2];
+			values = new Status[oldValues.length * 2];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldValues[i] != null)
+					insert(oldKeys[i], oldValues[i]);
+			}
+		}
+		insert(key, status);
+		size++;
+	}
+
+	private void insert(int key, Status status) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (values[i] != null)
+			i = (i + 1) & mask;
+		keys[i] = key;
+		values[i] = status;
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Decodifica los estados de la misma forma que lo hacía el chequeo de
+	 * estado de la impresora: primero los mensajes del controlador fiscal y
+	 * luego los de la impresora, en el orden de los códigos. La falta de papel
+	 * queda determinada por el último código de papel de la lista.
+	 */
+	private Status create(int printerBits, int fiscalBits) {
+		List<FiscalMessage> msgs = new ArrayList<FiscalMessage>();
+		for (int i = 0; i < fiscalStatusCodes.length; i++) {
+			if ((fiscalBits & fiscalStatusCodes[i]) != 0)
+				msgs.add(fiscalStatusMsgs[i]);
+		}
+		boolean withoutPaper = false;
+		for (int i = 0; i < printerStatusCodes.length; i++) {
+			int statusCode = printerStatusCodes[i];
+			if ((printerBits & statusCode) != 0)
+				msgs.add(printerStatusMsgs[i]);
+			if (statusCode == HasarConstants.PST_JOURNAL_PAPER_OUT || statusCode == HasarConstants.PST_TICKET_PAPER_OUT)
+				withoutPaper = (printerBits & statusCode) != 0;
+		}
+		return new Status(FiscalMessages.unmodifiable(msgs), withoutPaper);
+	}
+
+	private static FiscalMessage[] toArray(int[] codes, Map<Integer, FiscalMessage> msgs) {
+		FiscalMessage[] result = new FiscalMessage[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			result[i] = msgs.get(codes[i]);
+		}
+		return result;
+	}
+
+	private static int mask(int[] codes) {
+		int mask = 0;
+		for (int code : codes) {
+			mask |= code;
+		}
+		return mask;
+	}
+
+	/**
+	 * Resultado inmutable de la decodificación de un par de estados.
+	 */
+	public static class Status {
+
+		private final FiscalMessages messages;
+		private final boolean withoutPaper;
+
+		private Status(FiscalMessages messages, boolean withoutPaper) {
+			this.messages = messages;
+			this.withoutPaper = withoutPaper;
+		}
+
+		/**
+		 * @return Mensajes de estado (colección inmodificable).
+		 */
+		public FiscalMessages getMessages() {
+			return messages;
+		}
+
+		/**
+		 * @return Verdadero si la impresora indica falta de papel.
+		 */
+		public boolean isWithoutPaper() {
+			return withoutPaper;
+		}
+	}
+}
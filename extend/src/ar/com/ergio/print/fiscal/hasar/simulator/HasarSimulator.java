@@ -0,0 +1,611 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static ar.com.ergio.print.fiscal.hasar.HasarCommands.*;
+
+import ar.com.ergio.print.fiscal.hasar.HasarConstants;
+
+/**
+ * Simulador del comportamiento lógico de un controlador fiscal Hasar de primera
+ * generación: palabras de estado, apertura y cierre de comprobantes, numeración,
+ * acumuladores del comprobante y de la jornada fiscal, y cierre diario.
+ * <br>
+ * No sabe nada del medio de transporte: recibe el contenido de un comando
+ * (código + campos separados por FS) y retorna el contenido de la respuesta
+ * (código + FS + status impresora + FS + status fiscal [+ FS campo]...). Los
+ * transportes (<code>HasarSimulatorComm</code> en memoria, <code>HasarSpoolerSimulator</code>
+ * por TCP) agregan el formato de cable, la latencia y la fragmentación.
+ * <br>
+ * Los comandos en un estado inválido (por ej, PrintLineItem sin comprobante abierto)
+ * responden con FST_INVALID_COMMAND, los campos mal formados con FST_INVALID_DATA_FIELD
+ * y los códigos desconocidos con FST_UNKNOWN_COMMAND, igual que el equipo real.
+ */
+public class HasarSimulator implements HasarConstants {
+
+	private static final byte FS = 0x1C;
+	private static final String ENCODING = "ISO8859_1";
+	private static final BigDecimal HUNDRED = new BigDecimal(100);
+
+	/** Errores de la impresora que activan PST_BITWISE_OR */
+	private static final int PST_ERRORS = PST_PRINTER_ERROR | PST_PRINTER_OFFLINE
+			| PST_JOURNAL_PAPER_OUT | PST_TICKET_PAPER_OUT | PST_PRINTER_COVER_OPEN;
+	/** Errores fiscales que activan FST_BITWISE_OR */
+	private static final int FST_ERRORS = FST_FISCAL_MEMORY_CRC_ERROR | FST_WORKING_MEMORY_CRC_ERROR
+			| FST_UNKNOWN_COMMAND | FST_INVALID_DATA_FIELD | FST_INVALID_COMMAND
+			| FST_ACCUMULATOR_OVERFLOW | FST_FISCAL_MEMORY_FULL;
+
+	/** Comandos sin datos en la respuesta que solo se aceptan (configuración, cajón, etc.) */
+	private static final int[] ACCEPTED_COMMANDS = {
+		CMD_SET_COM_SPEED, CMD_SET_DATE_TIME, CMD_SET_GENERAL_CONFIGURATION,
+		CMD_SET_CONFIGURATION_BY_BLOCK, CMD_SET_CONFIGURATION_BY_ONE,
+		CMD_CHANGE_IVA_RESPONSIBILITY, CMD_CHANGE_IB_NUMBER, CMD_SET_FANTASY_NAME,
+		CMD_SET_HEADER_TRAILER, CMD_STORE_LOGO_DATA, CMD_RESET_LOGO_DATA,
+		CMD_SET_BAR_CODE, CMD_FEED_TICKET, CMD_FEED_JOURNAL, CMD_FEED_TICKET_AND_JOURNAL,
+		CMD_OPEN_DRAWER, CMD_WRITE_DISPLAY, CMD_DOUBLE_WIDTH, CMD_REPRINT_DOCUMENT,
+		CMD_SET_VOUCHER_DATA_1, CMD_SET_VOUCHER_DATA_2, CMD_PRINT_VOUCHER, CMD_CUT_NFD
+	};
+
+	private final Set<Integer> acceptedCommands = new HashSet<Integer>();
+
+	// Estado de la impresora (configurable para simular fallas)
+	private boolean paperOut;
+	private boolean coverOpen;
+	private boolean fiscalMemoryAlmostFull;
+	private boolean returnCAI;
+
+	// Comprobante actual
+	/** Tipo del comprobante abierto ("A", "B", "R", ...) o null */
+	private String openDocType;
+	/** El comprobante abierto es fiscal (OpenFiscalReceipt) */
+	private boolean fiscalDocumentOpen;
+	/** Hay un comprobante no fiscal abierto */
+	private boolean nonFiscalOpen;
+	private int items;
+	private BigDecimal total = BigDecimal.ZERO;
+	private BigDecimal tax = BigDecimal.ZERO;
+	private BigDecimal perceptions = BigDecimal.ZERO;
+	private BigDecimal paid = BigDecimal.ZERO;
+	/** IVA por alícuota del comprobante actual: alícuota -> {base, impuesto} */
+	private Map<String, BigDecimal[]> taxesByRate = new TreeMap<String, BigDecimal[]>();
+	/** IVA por alícuota del último comprobante cerrado, para SendFirstIVA */
+	private List<String[]> lastDocumentTaxes = new ArrayList<String[]>();
+	private Iterator<String[]> taxTransmission;
+
+	// Jornada fiscal
+	private final Map<String, Integer> lastNumbers = new HashMap<String, Integer>();
+	private int zNumber;
+	private int fiscalDocuments;
+	private int cancelledDocuments;
+	private int nonFiscalDocuments;
+	private int homologatedDocuments;
+	private BigDecimal dailySales = BigDecimal.ZERO;
+	private BigDecimal dailyTax = BigDecimal.ZERO;
+	private BigDecimal dailyPerceptions = BigDecimal.ZERO;
+	private BigDecimal dailyCredits = BigDecimal.ZERO;
+
+	/** Latencia (mls) por código de comando */
+	private final Map<Integer, Integer> latencies = new HashMap<Integer, Integer>();
+	private int defaultLatency = 0;
+
+	/** Cantidad de comandos procesados */
+	private long commandCount;
+	/** Fallas inyectadas: código de comando -> ocurrencia que falla */
+	private final Map<Integer, Integer> failures = new HashMap<Integer, Integer>();
+	/** Ocurrencias de cada código de comando */
+	private final Map<Integer, Integer> occurrences = new HashMap<Integer, Integer>();
+
+	public HasarSimulator() {
+		for (int cmd : ACCEPTED_COMMANDS)
+			acceptedCommands.add(cmd);
+	}
+
+	/**
+	 * Procesa un comando.
+	 * @param command Código del comando seguido de sus campos separados por FS
+	 * (sin delimitadores de transporte).
+	 * @return La respuesta: código, status y campos de datos separados por FS.
+	 */
+	public synchronized byte[] process(byte[] command) {
+		commandCount++;
+		List<String> fields = split(command);
+		int cmd = command.length > 0 ? command[0] & 0xFF : 0;
+		Response rsp = new Response();
+		Integer occurrence = occurrences.get(cmd);
+		occurrence = occurrence == null ? 1 : occurrence + 1;
+		occurrences.put(cmd, occurrence);
+		try {
+			if (occurrence.equals(failures.get(cmd)))
+				rsp.fiscalError = FST_INVALID_DATA_FIELD;
+			else
+				execute(cmd, fields, rsp);
+		} catch (NumberFormatException e) {
+			rsp.fiscalError = FST_INVALID_DATA_FIELD;
+		} catch (IndexOutOfBoundsException e) {
+			rsp.fiscalError = FST_INVALID_DATA_FIELD;
+		}
+		if (rsp.fiscalError != 0)
+			rsp.data.clear();
+		return encode(cmd, rsp);
+	}
+
+	private void execute(int cmd, List<String> f, Response rsp) {
+		switch (cmd) {
+		case CMD_STATUS_REQUEST:
+			rsp.add(format(lastNumber("B"))).add(format(lastNumber("A"))).add("0");
+			break;
+		case CMD_STATPRN:
+			break;
+		case CMD_GET_DATE_TIME:
+			Date now = new Date();
+			rsp.add(new SimpleDateFormat("yyMMdd").format(now)).add(new SimpleDateFormat("HHmmss").format(now));
+			break;
+		case CMD_SET_CUSTOMER_DATA:
+		case CMD_SET_EMBARK_NUMBER:
+			if (openDocType != null)
+				rsp.fiscalError = FST_INVALID_COMMAND;
+			break;
+		case CMD_OPEN_FISCAL_RECEIPT:
+		case CMD_OPEN_DNFH:
+			if (openDocType != null || nonFiscalOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			openDocument(f.get(1), cmd == CMD_OPEN_FISCAL_RECEIPT);
+			break;
+		case CMD_PRINT_FISCAL_TEXT:
+			if (openDocType == null)
+				rsp.fiscalError = FST_INVALID_COMMAND;
+			break;
+		case CMD_PRINT_LINE_ITEM:
+			// Descripción, cantidad, precio, IVA, M/m, imp. internos, display, x/T
+			if (openDocType == null) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			items++;
+			addAmount(amount(f.get(2)).multiply(amount(f.get(3))), f.get(4), "m".equals(f.get(5)), "x".equals(field(f, 8)));
+			break;
+		case CMD_LAST_ITEM_DISCOUNT:
+		case CMD_GENERAL_DISCOUNT:
+			// Descripción, monto, m/M, display, x/T
+			if (openDocType == null || items == 0) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			addAmount(amount(f.get(2)), lastRate(), "m".equals(f.get(3)), "x".equals(field(f, 5)));
+			break;
+		case CMD_RETURN_RECHARGE:
+			// Descripción, monto, IVA, m/M, imp. internos, display, x/T, operación
+			if (openDocType == null) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			addAmount(amount(f.get(2)), f.get(3), "m".equals(f.get(4)), "x".equals(field(f, 7)));
+			break;
+		case CMD_PERCEPTIONS:
+			// IVA, descripción, monto
+			if (openDocType == null) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			BigDecimal perception = amount(f.get(3));
+			perceptions = perceptions.add(perception);
+			total = total.add(perception);
+			break;
+		case CMD_SUBTOTAL:
+			if (openDocType == null) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			rsp.add(String.valueOf(items)).add(money(total)).add(money(tax)).add(money(paid))
+					.add(money(BigDecimal.ZERO)).add(money(BigDecimal.ZERO));
+			break;
+		case CMD_TOTAL_TENDER:
+			// Descripción, monto, C/T, display
+			if (!fiscalDocumentOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			if (!"C".equals(field(f, 3)))
+				paid = paid.add(amount(f.get(2)));
+			rsp.add(money(total.subtract(paid).abs()));
+			break;
+		case CMD_CLOSE_FISCAL_RECEIPT:
+		case CMD_CLOSE_DNFH:
+			if (openDocType == null || fiscalDocumentOpen != (cmd == CMD_CLOSE_FISCAL_RECEIPT)) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			int number = closeDocument();
+			rsp.add(format(number));
+			if (returnCAI && cmd == CMD_CLOSE_FISCAL_RECEIPT)
+				rsp.add("0").add("12345678901234");
+			break;
+		case CMD_CANCEL_DOCUMENT:
+			if (openDocType == null && !nonFiscalOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			cancelledDocuments++;
+			resetDocument();
+			nonFiscalOpen = false;
+			break;
+		case CMD_OPEN_NON_FISCAL_RECEIPT:
+		case CMD_OPEN_NFD_SLIP:
+			if (openDocType != null || nonFiscalOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			nonFiscalOpen = true;
+			break;
+		case CMD_PRINT_NON_FISCAL_TEXT:
+			if (!nonFiscalOpen)
+				rsp.fiscalError = FST_INVALID_COMMAND;
+			break;
+		case CMD_CLOSE_NON_FISCAL_RECEIPT:
+			if (!nonFiscalOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			nonFiscalOpen = false;
+			nonFiscalDocuments++;
+			break;
+		case CMD_PRINT_EMBARK_ITEM:
+		case CMD_PRINT_ACCOUNT_ITEM:
+		case CMD_PRINT_QUOTATION_ITEM:
+			if (openDocType == null)
+				rsp.fiscalError = FST_INVALID_COMMAND;
+			break;
+		case CMD_SEND_FIRST_IVA:
+			taxTransmission = lastDocumentTaxes.iterator();
+			nextTax(rsp);
+			break;
+		case CMD_NEXT_TRANSMISSION:
+			nextTax(rsp);
+			break;
+		case CMD_DAILY_CLOSE:
+			if (openDocType != null || nonFiscalOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			dailyClose("Z".equals(field(f, 1)), rsp);
+			break;
+		default:
+			if (!acceptedCommands.contains(cmd))
+				rsp.fiscalError = FST_UNKNOWN_COMMAND;
+		}
+	}
+
+	private void openDocument(String docType, boolean fiscal) {
+		resetDocument();
+		openDocType = docType;
+		fiscalDocumentOpen = fiscal;
+	}
+
+	private int closeDocument() {
+		int number = lastNumber(openDocType) + 1;
+		lastNumbers.put(openDocType, number);
+		if (fiscalDocumentOpen) {
+			fiscalDocuments++;
+			dailySales = dailySales.add(total);
+			dailyTax = dailyTax.add(tax);
+			dailyPerceptions = dailyPerceptions.add(perceptions);
+		} else {
+			homologatedDocuments++;
+			dailyCredits = dailyCredits.add(total);
+		}
+		lastDocumentTaxes = new ArrayList<String[]>();
+		for (Map.Entry<String, BigDecimal[]> e : taxesByRate.entrySet()) {
+			BigDecimal[] v = e.getValue();
+			lastDocumentTaxes.add(new String[] { e.getKey(), money(v[1]), money(v[0]) });
+		}
+		resetDocument();
+		return number;
+	}
+
+	private void resetDocument() {
+		openDocType = null;
+		fiscalDocumentOpen = false;
+		items = 0;
+		total = BigDecimal.ZERO;
+		tax = BigDecimal.ZERO;
+		perceptions = BigDecimal.ZERO;
+		paid = BigDecimal.ZERO;
+		taxesByRate = new TreeMap<String, BigDecimal[]>();
+	}
+
+	/**
+	 * Acumula un importe en el comprobante.
+	 * @param amount Importe (precio x cantidad, descuento, etc.)
+	 * @param rate Alícuota de IVA ("21.00") o "**.**" si no corresponde.
+	 * @param subtract Si el importe resta.
+	 * @param baseAmount Si el importe no incluye el IVA.
+	 */
+	private void addAmount(BigDecimal amount, String rate, boolean subtract, boolean baseAmount) {
+		BigDecimal r = rate == null || rate.startsWith("*") ? BigDecimal.ZERO : amount(rate);
+		BigDecimal base;
+		BigDecimal iva;
+		if (baseAmount) {
+			base = amount;
+			iva = amount.multiply(r).divide(HUNDRED, 2, BigDecimal.ROUND_HALF_UP);
+		} else {
+			base = amount.multiply(HUNDRED).divide(HUNDRED.add(r), 2, BigDecimal.ROUND_HALF_UP);
+			iva = amount.subtract(base);
+		}
+		if (subtract) {
+			base = base.negate();
+			iva = iva.negate();
+		}
+		total = total.add(base).add(iva);
+		tax = tax.add(iva);
+		String key = money(r);
+		BigDecimal[] acc = taxesByRate.get(key);
+		if (acc == null)
+			taxesByRate.put(key, new BigDecimal[] { base, iva });
+		else {
+			acc[0] = acc[0].add(base);
+			acc[1] = acc[1].add(iva);
+		}
+	}
+
+	private String lastRate() {
+		return taxesByRate.isEmpty() ? null : ((TreeMap<String, BigDecimal[]>) taxesByRate).lastKey();
+	}
+
+	private void nextTax(Response rsp) {
+		if (taxTransmission != null && taxTransmission.hasNext()) {
+			String[] t = taxTransmission.next();
+			// Tipo, alícuota, IVA, imp. internos, IVA no inscripto, base
+			rsp.add("1").add(t[0]).add(t[1]).add("0.00").add("0.00").add(t[2]);
+		} else {
+			rsp.add("0");
+		}
+	}
+
+	private void dailyClose(boolean z, Response rsp) {
+		int number = z ? zNumber + 1 : zNumber;
+		// Nro Z, DF cancelados, DNFH, DNF, DF, reservado, último B/C, último A,
+		// ventas, IVA, imp. internos, percepciones, IVA no inscripto,
+		// última NC B/C, última NC A, créditos NC
+		rsp.add(format(number)).add(String.valueOf(cancelledDocuments))
+				.add(String.valueOf(homologatedDocuments)).add(String.valueOf(nonFiscalDocuments))
+				.add(String.valueOf(fiscalDocuments)).add("0")
+				.add(format(lastNumber("B"))).add(format(lastNumber("A")))
+				.add(money(dailySales)).add(money(dailyTax)).add(money(BigDecimal.ZERO))
+				.add(money(dailyPerceptions)).add(money(BigDecimal.ZERO))
+				.add(format(lastNumber("S"))).add(format(lastNumber("R")))
+				.add(money(dailyCredits));
+		if (z) {
+			zNumber = number;
+			fiscalDocuments = 0;
+			cancelledDocuments = 0;
+			nonFiscalDocuments = 0;
+			homologatedDocuments = 0;
+			dailySales = BigDecimal.ZERO;
+			dailyTax = BigDecimal.ZERO;
+			dailyPerceptions = BigDecimal.ZERO;
+			dailyCredits = BigDecimal.ZERO;
+		}
+	}
+
+	private int lastNumber(String docType) {
+		Integer n = lastNumbers.get(docType);
+		return n == null ? 0 : n;
+	}
+
+	/**
+	 * @return La palabra de estado de la impresora.
+	 */
+	public synchronized int getPrinterStatus() {
+		int status = PST_PRINT_BUFFER_EMPTY;
+		if (paperOut)
+			status |= PST_TICKET_PAPER_OUT;
+		if (coverOpen)
+			status |= PST_PRINTER_COVER_OPEN;
+		if ((status & PST_ERRORS) != 0)
+			status |= PST_BITWISE_OR;
+		return status;
+	}
+
+	/**
+	 * @return La palabra de estado fiscal, sin errores del último comando.
+	 */
+	public synchronized int getFiscalStatus() {
+		int status = FST_DEVICE_CERTIFIED | FST_DEVICE_FISCALIZED;
+		if (fiscalMemoryAlmostFull)
+			status |= FST_FISCAL_MEMORY_ALMOST_FULL;
+		if (fiscalDocumentOpen)
+			status |= FST_FISCAL_DOCUMENT_OPEN;
+		else if (openDocType != null || nonFiscalOpen)
+			status |= FST_DOCUMENT_OPEN;
+		return status;
+	}
+
+	private byte[] encode(int cmd, Response rsp) {
+		int fiscalStatus = getFiscalStatus() | rsp.fiscalError;
+		if ((fiscalStatus & FST_ERRORS) != 0)
+			fiscalStatus |= FST_BITWISE_OR;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+		out.write(cmd);
+		out.write(FS);
+		write(out, hex16(getPrinterStatus()));
+		out.write(FS);
+		write(out, hex16(fiscalStatus));
+		for (String data : rsp.data) {
+			out.write(FS);
+			write(out, data);
+		}
+		return out.toByteArray();
+	}
+
+	private static void write(ByteArrayOutputStream out, String s) {
+		try {
+			byte[] b = s.getBytes(ENCODING);
+			out.write(b, 0, b.length);
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static List<String> split(byte[] command) {
+		List<String> fields = new ArrayList<String>();
+		int start = 0;
+		for (int i = 0; i <= command.length; i++) {
+			if (i == command.length || command[i] == FS) {
+				try {
+					fields.add(new String(command, start, i - start, ENCODING));
+				} catch (UnsupportedEncodingException e) {
+					throw new RuntimeException(e);
+				}
+				start = i + 1;
+			}
+		}
+		return fields;
+	}
+
+	private static String field(List<String> fields, int index) {
+		return index < fields.size() ? fields.get(index) : null;
+	}
+
+	private static BigDecimal amount(String value) {
+		return new BigDecimal(value.trim().replace(',', '.'));
+	}
+
+	private static String money(BigDecimal amount) {
+		return amount.setScale(2, BigDecimal.ROUND_HALF_UP).toPlainString();
+	}
+
+	private static String format(int number) {
+		String s = "0000000" + number;
+		return s.substring(s.length() - 8);
+	}
+
+	private static String hex16(int value) {
+		String s = "000" + Integer.toHexString(value & 0xFFFF).toUpperCase();
+		return s.substring(s.length() - 4);
+	}
+
+	/**
+	 * Respuesta en construcción: error del comando y campos de datos.
+	 */
+	private static class Response {
+		int fiscalError;
+		final List<String> data = new ArrayList<String>();
+
+		Response add(String value) {
+			data.add(value);
+			return this;
+		}
+	}
+
+	// Latencia
+
+	/**
+	 * @return La latencia simulada (mls) del comando.
+	 */
+	public synchronized int getLatency(int commandCode) {
+		Integer latency = latencies.get(commandCode);
+		return latency == null ? defaultLatency : latency;
+	}
+
+	/**
+	 * Asigna la latencia simulada de un comando (por ej, el cierre diario es lento).
+	 */
+	public synchronized void setLatency(int commandCode, int millis) {
+		latencies.put(commandCode, millis);
+	}
+
+	/**
+	 * Asigna la latencia de los comandos sin latencia específica.
+	 */
+	public synchronized void setDefaultLatency(int millis) {
+		this.defaultLatency = millis;
+	}
+
+	// Fallas simuladas y consultas
+
+	/**
+	 * Hace que la ocurrencia número <code>occurrence</code> (contando desde 1 y
+	 * desde ahora) del comando responda con FST_INVALID_DATA_FIELD sin ejecutarse.
+	 */
+	public synchronized void injectFailure(int commandCode, int occurrence) {
+		Integer current = occurrences.get(commandCode);
+		failures.put(commandCode, (current == null ? 0 : current) + occurrence);
+	}
+
+	public synchronized void setPaperOut(boolean paperOut) {
+		this.paperOut = paperOut;
+	}
+
+	public synchronized void setCoverOpen(boolean coverOpen) {
+		this.coverOpen = coverOpen;
+	}
+
+	public synchronized void setFiscalMemoryAlmostFull(boolean fiscalMemoryAlmostFull) {
+		this.fiscalMemoryAlmostFull = fiscalMemoryAlmostFull;
+	}
+
+	/**
+	 * @param returnCAI Si CloseFiscalReceipt retorna el CAI (modelos P322F, P330F, PL8F, PL9F).
+	 */
+	public synchronized void setReturnCAI(boolean returnCAI) {
+		this.returnCAI = returnCAI;
+	}
+
+	/**
+	 * @return Verdadero si hay un comprobante abierto.
+	 */
+	public synchronized boolean isDocumentOpen() {
+		return openDocType != null || nonFiscalOpen;
+	}
+
+	/**
+	 * @return El último número emitido para el tipo de comprobante ("A", "B", "R", ...).
+	 */
+	public synchronized int getLastNumber(String docType) {
+		return lastNumber(docType);
+	}
+
+	/**
+	 * @return El número del último cierre Z.
+	 */
+	public synchronized int getZNumber() {
+		return zNumber;
+	}
+
+	/**
+	 * @return Cantidad de comandos procesados.
+	 */
+	public synchronized long getCommandCount() {
+		return commandCount;
+	}
+}
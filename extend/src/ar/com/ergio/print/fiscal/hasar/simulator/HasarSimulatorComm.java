@@ -0,0 +1,107 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar.simulator;
+
+import java.io.IOException;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.comm.AbstractFiscalComm;
+import ar.com.ergio.print.fiscal.msg.MsgRepository;
+
+/**
+ * Interfaz de comunicación en memoria contra un <code>HasarSimulator</code>.
+ * Entrega la respuesta con el mismo formato que el spooler (sin el código de
+ * comando ni el primer FS) para que el paquete se decodifique por el mismo
+ * camino que en producción. Permite probar los drivers Hasar sin un controlador
+ * ni un spooler.
+ */
+public class HasarSimulatorComm extends AbstractFiscalComm {
+
+	/** Simulador que atiende los comandos */
+	private final HasarSimulator simulator;
+	/** Si se aplica la latencia configurada en el simulador */
+	private boolean simulateLatency = false;
+
+	public HasarSimulatorComm(HasarSimulator simulator) {
+		super();
+		this.simulator = simulator;
+	}
+
+	public void connect() throws IOException {
+		setConnected(true);
+	}
+
+	public void close() throws IOException {
+		setConnected(false);
+	}
+
+	public void execute(FiscalPacket request, FiscalPacket response) throws IOException {
+		if(request == response) throw new IllegalArgumentException();
+		if(request == null) throw new NullPointerException(MsgRepository.get("NullRequestError"));
+		if(response == null) throw new NullPointerException(MsgRepository.get("NullResponseError"));
+		validateConnection();
+
+		byte[] reqBytes = request.encodeBytes();
+		// Se quita el fin de línea que el spooler no entrega al controlador
+		int len = reqBytes.length;
+		while (len > 0 && reqBytes[len - 1] == 0x0D)
+			len--;
+		byte[] command = new byte[len];
+		System.arraycopy(reqBytes, 0, command, 0, len);
+
+		if (isSimulateLatency())
+			sleep(simulator.getLatency(request.getCommandCode()));
+		byte[] payload = simulator.process(command);
+
+		// El spooler elimina el código de comando y el primer separador
+		byte[] resBytes = new byte[Math.max(0, payload.length - 2)];
+		System.arraycopy(payload, payload.length - resBytes.length, resBytes, 0, resBytes.length);
+		response.decode(request.getCommandCode(), resBytes);
+	}
+
+	private static void sleep(int millis) throws IOException {
+		if (millis <= 0)
+			return;
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	/**
+	 * @return Returns the simulator.
+	 */
+	public HasarSimulator getSimulator() {
+		return simulator;
+	}
+
+	/**
+	 * @return Returns the simulateLatency.
+	 */
+	public boolean isSimulateLatency() {
+		return simulateLatency;
+	}
+
+	/**
+	 * @param simulateLatency The simulateLatency to set.
+	 */
+	public void setSimulateLatency(boolean simulateLatency) {
+		this.simulateLatency = simulateLatency;
+	}
+}
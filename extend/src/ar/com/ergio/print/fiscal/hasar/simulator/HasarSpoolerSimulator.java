@@ -0,0 +1,274 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+
+/**
+ * Simulador del spooler TCP de Hasar. Atiende por un puerto TCP local los
+ * comandos terminados en fin de línea, los ejecuta en un <code>HasarSimulator</code>
+ * y responde como lo hace el spooler: mientras el controlador trabaja envía
+ * "DC2" cada <code>keepAliveInterval</code> mls, y luego la respuesta sin el
+ * código de comando ni el primer FS, opcionalmente partida en fragmentos
+ * para ejercitar el armado de respuestas de las interfaces de comunicación.
+ * <br>
+ * Cada conexión se atiende en su propio thread; el simulador serializa los
+ * comandos como lo haría el único controlador detrás del spooler.
+ */
+public class HasarSpoolerSimulator {
+
+	private static final byte NL = 0x0D;
+	private static final byte[] DC2 = { 'D', 'C', '2' };
+
+	private static CLogger log = CLogger.getCLogger(HasarSpoolerSimulator.class);
+
+	private final HasarSimulator simulator;
+	private ServerSocket serverSocket;
+	private Thread acceptThread;
+	private final List<Socket> clients = new ArrayList<Socket>();
+	private volatile boolean running;
+
+	/** Intervalo (mls) entre "DC2" mientras se simula la latencia del comando */
+	private int keepAliveInterval = 500;
+	/** Tamaño máximo (bytes) de cada fragmento de la respuesta; 0 = sin fragmentar */
+	private int fragmentSize = 0;
+	/** Pausa (mls) entre fragmentos */
+	private int fragmentDelay = 0;
+
+	public HasarSpoolerSimulator(HasarSimulator simulator) {
+		super();
+		this.simulator = simulator;
+	}
+
+	/**
+	 * Abre el puerto y comienza a aceptar conexiones.
+	 * @param port Puerto TCP; 0 para que el sistema asigne uno libre.
+	 * @return El puerto en el que se atienden las conexiones.
+	 */
+	public synchronized int start(int port) throws IOException {
+		if (running)
+			return getPort();
+		serverSocket = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+		running = true;
+		acceptThread = new Thread("HasarSpoolerSimulator-" + serverSocket.getLocalPort()) {
+			@Override
+			public void run() {
+				acceptLoop();
+			}
+		};
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+		return getPort();
+	}
+
+	/**
+	 * Cierra el puerto y todas las conexiones abiertas.
+	 */
+	public synchronized void stop() {
+		running = false;
+		try {
+			if (serverSocket != null)
+				serverSocket.close();
+		} catch (IOException e) {
+			log.log(Level.WARNING, "Error cerrando el simulador del spooler", e);
+		}
+		synchronized (clients) {
+			for (Socket client : clients) {
+				try {
+					client.close();
+				} catch (IOException e) {
+					// Se cierra de todos modos
+				}
+			}
+			clients.clear();
+		}
+	}
+
+	private void acceptLoop() {
+		while (running) {
+			final Socket client;
+			try {
+				client = serverSocket.accept();
+				client.setTcpNoDelay(true);
+			} catch (IOException e) {
+				if (running)
+					log.log(Level.WARNING, "Error aceptando conexión", e);
+				return;
+			}
+			synchronized (clients) {
+				clients.add(client);
+			}
+			Thread t = new Thread("HasarSpoolerSimulator-client-" + client.getPort()) {
+				@Override
+				public void run() {
+					serve(client);
+				}
+			};
+			t.setDaemon(true);
+			t.start();
+		}
+	}
+
+	private void serve(Socket client) {
+		try {
+			InputStream in = client.getInputStream();
+			OutputStream out = client.getOutputStream();
+			ByteArrayOutputStream command = new ByteArrayOutputStream(128);
+			int b;
+			while ((b = in.read()) != -1) {
+				if (b != NL) {
+					command.write(b);
+					continue;
+				}
+				if (command.size() > 0)
+					respond(command.toByteArray(), out);
+				command.reset();
+			}
+		} catch (SocketException e) {
+			// Conexión cerrada por el cliente o por stop()
+		} catch (IOException e) {
+			log.log(Level.WARNING, "Error atendiendo conexión", e);
+		} finally {
+			synchronized (clients) {
+				clients.remove(client);
+			}
+			try {
+				client.close();
+			} catch (IOException e) {
+				// Se ignora
+			}
+		}
+	}
+
+	private void respond(byte[] command, OutputStream out) throws IOException {
+		byte[] payload;
+		// Un único controlador detrás del spooler: los comandos se ejecutan de a uno
+		synchronized (simulator) {
+			simulateLatency(simulator.getLatency(command[0] & 0xFF), out);
+			payload = simulator.process(command);
+		}
+		int offset = Math.min(2, payload.length);
+		int chunk = fragmentSize > 0 ? fragmentSize : payload.length;
+		while (offset < payload.length) {
+			int len = Math.min(chunk, payload.length - offset);
+			out.write(payload, offset, len);
+			out.flush();
+			offset += len;
+			if (offset < payload.length)
+				pause(fragmentDelay);
+		}
+	}
+
+	private void simulateLatency(int latency, OutputStream out) throws IOException {
+		long end = System.currentTimeMillis() + latency;
+		long remaining;
+		while ((remaining = end - System.currentTimeMillis()) > 0) {
+			if (keepAliveInterval > 0 && remaining > keepAliveInterval) {
+				pause(keepAliveInterval);
+				out.write(DC2);
+				out.flush();
+			} else {
+				pause((int) remaining);
+			}
+		}
+	}
+
+	private static void pause(int millis) {
+		if (millis <= 0)
+			return;
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return El puerto en el que se atienden las conexiones, o -1 si no está iniciado.
+	 */
+	public int getPort() {
+		return serverSocket == null ? -1 : serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return Verdadero si el simulador acepta conexiones.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return Returns the simulator.
+	 */
+	public HasarSimulator getSimulator() {
+		return simulator;
+	}
+
+	/**
+	 * @return Returns the keepAliveInterval.
+	 */
+	public int getKeepAliveInterval() {
+		return keepAliveInterval;
+	}
+
+	/**
+	 * @param keepAliveInterval The keepAliveInterval to set.
+	 */
+	public void setKeepAliveInterval(int keepAliveInterval) {
+		this.keepAliveInterval = keepAliveInterval;
+	}
+
+	/**
+	 * @return Returns the fragmentSize.
+	 */
+	public int getFragmentSize() {
+		return fragmentSize;
+	}
+
+	/**
+	 * @param fragmentSize The fragmentSize to set.
+	 */
+	public void setFragmentSize(int fragmentSize) {
+		this.fragmentSize = fragmentSize;
+	}
+
+	/**
+	 * @return Returns the fragmentDelay.
+	 */
+	public int getFragmentDelay() {
+		return fragmentDelay;
+	}
+
+	/**
+	 * @param fragmentDelay The fragmentDelay to set.
+	 */
+	public void setFragmentDelay(int fragmentDelay) {
+		this.fragmentDelay = fragmentDelay;
+	}
+}
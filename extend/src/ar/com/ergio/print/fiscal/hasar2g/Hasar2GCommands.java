@@ -0,0 +1,91 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar2g;
+
+import java.math.BigDecimal;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+
+/**
+ * Comandos que interpretan las impresoras fiscales Hasar de segunda
+ * generación. El protocolo JSON identifica cada comando por su nombre
+ * (ver <code>Hasar2GFiscalPacket</code>); los códigos son internos y solo
+ * identifican al comando dentro de los paquetes.
+ */
+public interface Hasar2GCommands {
+
+	///////////////////////////////////////////////////////////////////////
+	// Códigos de los comandos
+	///////////////////////////////////////////////////////////////////////
+
+	/** Consultar estado. (ConsultarEstado) */
+	public int CMD_STATUS_REQUEST             = 0x2A;
+	/** Cargar datos del comprador. (CargarDatosCliente) */
+	public int CMD_SET_CUSTOMER_DATA          = 0x62;
+	/** Cargar comprobante asociado. (CargarDocumentoAsociado) */
+	public int CMD_SET_ASSOCIATED_DOCUMENT    = 0x93;
+	/** Abrir comprobante fiscal o genérico. (AbrirDocumento) */
+	public int CMD_OPEN_DOCUMENT              = 0x40;
+	/** Imprimir texto fiscal. (ImprimirTextoFiscal) */
+	public int CMD_PRINT_FISCAL_TEXT          = 0x41;
+	/** Imprimir ítem. (ImprimirItem) */
+	public int CMD_PRINT_ITEM                 = 0x42;
+	/** Imprimir bonificación o recargo. (ImprimirAjuste) */
+	public int CMD_PRINT_ADJUSTMENT           = 0x54;
+	/** Imprimir percepción u otro tributo. (ImprimirOtrosTributos) */
+	public int CMD_PRINT_OTHER_TAX            = 0x60;
+	/** Imprimir pago. (ImprimirPago) */
+	public int CMD_PRINT_PAYMENT              = 0x44;
+	/** Cerrar comprobante. (CerrarDocumento) */
+	public int CMD_CLOSE_DOCUMENT             = 0x45;
+	/** Cancelar el comprobante abierto. (Cancelar) */
+	public int CMD_CANCEL_DOCUMENT            = 0x98;
+	/** Imprimir texto en comprobante genérico. (ImprimirTextoGenerico) */
+	public int CMD_PRINT_NON_FISCAL_TEXT      = 0x49;
+	/** Cierre de jornada fiscal o informe X. (CerrarJornadaFiscal) */
+	public int CMD_DAILY_CLOSE                = 0x39;
+
+	///////////////////////////////////////////////////////////////////////
+	// Comandos
+	///////////////////////////////////////////////////////////////////////
+
+	public FiscalPacket cmdStatusRequest();
+
+	public FiscalPacket cmdSetCustomerData(String name, String customerDocNumber, String ivaResponsibility, String docType, String location);
+
+	public FiscalPacket cmdSetAssociatedDocument(int line, String documentNo);
+
+	public FiscalPacket cmdOpenDocument(String documentCode);
+
+	public FiscalPacket cmdPrintFiscalText(String text);
+
+	public FiscalPacket cmdPrintItem(String description, BigDecimal quantity, BigDecimal price, BigDecimal ivaPercent, boolean substract, boolean basePrice);
+
+	public FiscalPacket cmdPrintAdjustment(String description, BigDecimal amount, BigDecimal ivaPercent, boolean discount, boolean baseAmount);
+
+	public FiscalPacket cmdPrintOtherTax(String description, BigDecimal amount, BigDecimal rate);
+
+	public FiscalPacket cmdPrintPayment(String description, BigDecimal amount);
+
+	public FiscalPacket cmdCloseDocument();
+
+	public FiscalPacket cmdCancelDocument();
+
+	public FiscalPacket cmdPrintNonFiscalText(String text);
+
+	public FiscalPacket cmdDailyClose(String reportType);
+}
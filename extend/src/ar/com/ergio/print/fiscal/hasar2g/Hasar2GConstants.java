@@ -0,0 +1,76 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar2g;
+
+import ar.com.ergio.print.fiscal.hasar.HasarConstants;
+
+/**
+ * Conjunto de constantes utilizadas para comunicarse con impresoras fiscales
+ * Hasar de segunda generación. Los estados de impresora y fiscal se informan
+ * con nombres, que se traducen a los mismos bits de la primera generación
+ * (<code>HasarConstants</code>).
+ */
+public interface Hasar2GConstants extends HasarConstants {
+
+	///////////////////////////////////////////////////////////////////////
+	// VALORES DE CAMPOS
+	///////////////////////////////////////////////////////////////////////
+
+	/** Código de comprobante: tique-factura (seguido de la letra) */
+	public String DOC_TICKET_INVOICE          = "TiqueFactura";
+	/** Código de comprobante: tique-nota de débito (seguido de la letra) */
+	public String DOC_TICKET_DEBIT_NOTE       = "TiqueNotaDebito";
+	/** Código de comprobante: tique-nota de crédito (seguido de la letra) */
+	public String DOC_TICKET_CREDIT_NOTE      = "TiqueNotaCredito";
+	/** Código de comprobante: documento genérico (no fiscal) */
+	public String DOC_GENERIC                 = "Generico";
+
+	/** Operación de ítem: suma */
+	public String ITEM_ADD                    = "ModoSumaMonto";
+	/** Operación de ítem: resta (anulación de un ítem) */
+	public String ITEM_SUBSTRACT              = "ModoRestaMonto";
+
+	/** Precio con IVA incluido */
+	public String PRICE_TOTAL                 = "ModoPrecioTotal";
+	/** Precio sin IVA (base imponible) */
+	public String PRICE_BASE                  = "ModoPrecioBase";
+
+	/** Operación de ajuste: bonificación */
+	public String ADJUSTMENT_DISCOUNT         = "AjusteNeg";
+	/** Operación de ajuste: recargo */
+	public String ADJUSTMENT_RECHARGE         = "AjustePos";
+
+	/** Operación de pago */
+	public String PAYMENT_TENDER              = "Pagar";
+
+	/** Tipo de cierre de <code>fiscalClose</code>: cierre diario Z */
+	public String CLOSE_Z                     = "Z";
+	/** Tipo de cierre de <code>fiscalClose</code>: informe diario X */
+	public String CLOSE_X                     = "X";
+
+	/** Cierre diario Z */
+	public String REPORT_Z                    = "ReporteZ";
+	/** Informe diario X */
+	public String REPORT_X                    = "ReporteX";
+
+	/** Longitud de la descripción de un ítem o ajuste */
+	public int ITEM_DESCRIPTION_LENGTH        = 40;
+	/** Longitud de un texto fiscal, no fiscal o de la descripción de un pago */
+	public int TEXT_LENGTH                    = 40;
+	/** Longitud del nombre y del domicilio del comprador */
+	public int CUSTOMER_TEXT_LENGTH           = 50;
+}
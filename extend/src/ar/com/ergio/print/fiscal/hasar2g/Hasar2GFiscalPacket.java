@@ -0,0 +1,258 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar2g;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ar.com.ergio.print.fiscal.hasar2g.Hasar2GCommands.*;
+
+import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.util.JsonCodec;
+
+/**
+ * Paquete de las impresoras fiscales Hasar de segunda generación. Los campos
+ * se organizan igual que en la primera generación (código de comando; en la
+ * respuesta, estado de impresora y estado fiscal y luego los datos), pero el
+ * paquete viaja como un objeto JSON con el nombre del comando:
+ * <pre>
+ * {"ImprimirItem":{"Descripcion":"...","Cantidad":"1.0000",...}}
+ * {"CerrarDocumento":{"Estado":{"Impresora":[],"Fiscal":["TerminalFiscalizada"]},"NumeroComprobante":"12"}}
+ * </pre>
+ * Los parámetros se nombran según su posición; los vacíos no se envían. Los
+ * estados se informan como listas de nombres que se traducen a los bits de
+ * <code>HasarConstants</code>; los nombres desconocidos se ignoran.
+ */
+public class Hasar2GFiscalPacket extends HasarFiscalPacket implements Hasar2GConstants {
+
+	private static final long serialVersionUID = 7126004398219557013L;
+
+	/** Primer campo de datos de una respuesta */
+	private static final int FIRST_RESULT_FIELD = 3;
+
+	/** Nombre, parámetros y datos de respuesta de cada comando */
+	private static final Map<Integer, Command> commands = new HashMap<Integer, Command>();
+	private static final Map<String, Command> commandsByName = new HashMap<String, Command>();
+
+	static {
+		addCommand(CMD_STATUS_REQUEST, "ConsultarEstado", new String[0], new String[0]);
+		addCommand(CMD_SET_CUSTOMER_DATA, "CargarDatosCliente",
+				new String[] { "RazonSocial", "NumeroDocumento", "ResponsabilidadIVA", "TipoDocumento", "Domicilio" },
+				new String[0]);
+		addCommand(CMD_SET_ASSOCIATED_DOCUMENT, "CargarDocumentoAsociado",
+				new String[] { "NumeroLinea", "NumeroComprobante" }, new String[0]);
+		addCommand(CMD_OPEN_DOCUMENT, "AbrirDocumento",
+				new String[] { "CodigoComprobante" }, new String[] { "NumeroComprobante" });
+		addCommand(CMD_PRINT_FISCAL_TEXT, "ImprimirTextoFiscal", new String[] { "Texto" }, new String[0]);
+		addCommand(CMD_PRINT_ITEM, "ImprimirItem",
+				new String[] { "Descripcion", "Cantidad", "PrecioUnitario", "AlicuotaIVA", "OperacionMonto", "ModoBaseTotal" },
+				new String[0]);
+		addCommand(CMD_PRINT_ADJUSTMENT, "ImprimirAjuste",
+				new String[] { "Descripcion", "Monto", "AlicuotaIVA", "Operacion", "ModoBaseTotal" }, new String[0]);
+		addCommand(CMD_PRINT_OTHER_TAX, "ImprimirOtrosTributos",
+				new String[] { "Descripcion", "Importe", "Alicuota" }, new String[0]);
+		addCommand(CMD_PRINT_PAYMENT, "ImprimirPago",
+				new String[] { "Descripcion", "Monto", "Operacion" }, new String[0]);
+		addCommand(CMD_CLOSE_DOCUMENT, "CerrarDocumento", new String[0], new String[] { "NumeroComprobante" });
+		addCommand(CMD_CANCEL_DOCUMENT, "Cancelar", new String[0], new String[0]);
+		addCommand(CMD_PRINT_NON_FISCAL_TEXT, "ImprimirTextoGenerico", new String[] { "Texto" }, new String[0]);
+		addCommand(CMD_DAILY_CLOSE, "CerrarJornadaFiscal", new String[] { "Reporte" },
+				new String[] { "Numero", "DocumentosCancelados", "DocumentosNoFiscalesHomologados",
+					"DocumentosNoFiscales", "DocumentosFiscales", "UltimoTiqueBC", "UltimoTiqueA",
+					"TotalVentas", "TotalIVA", "UltimaNotaCreditoBC", "UltimaNotaCreditoA", "TotalNotasCredito" });
+	}
+
+	/** Nombres de los bits del estado de impresora */
+	private static final int[] printerStatusBits = { PST_PRINTER_ERROR, PST_PRINTER_OFFLINE,
+		PST_JOURNAL_PAPER_OUT, PST_TICKET_PAPER_OUT, PST_PRINT_BUFFER_FULL, PST_PRINTER_COVER_OPEN,
+		PST_MONEY_DRAWER_CLOSED };
+	private static final String[] printerStatusNames = { "ErrorImpresora", "ImpresoraFueraDeLinea",
+		"FaltaPapelJournal", "FaltaPapelReceipt", "BufferLleno", "TapaAbierta",
+		"CajonCerrado" };
+
+	/** Nombres de los bits del estado fiscal */
+	private static final int[] fiscalStatusBits = { FST_FISCAL_MEMORY_CRC_ERROR, FST_WORKING_MEMORY_CRC_ERROR,
+		FST_UNKNOWN_COMMAND, FST_INVALID_DATA_FIELD, FST_INVALID_COMMAND, FST_ACCUMULATOR_OVERFLOW,
+		FST_FISCAL_MEMORY_FULL, FST_FISCAL_MEMORY_ALMOST_FULL, FST_DEVICE_CERTIFIED, FST_DEVICE_FISCALIZED,
+		FST_DATE_ERROR, FST_FISCAL_DOCUMENT_OPEN, FST_DOCUMENT_OPEN };
+	private static final String[] fiscalStatusNames = { "ErrorMemoriaFiscal", "ErrorMemoriaTrabajo",
+		"ComandoDesconocido", "DatosInvalidos", "ComandoInvalidoParaEstadoActual", "DesbordeTotales",
+		"MemoriaFiscalLlena", "MemoriaFiscalCasiLlena", "TerminalCertificada", "TerminalFiscalizada",
+		"ErrorFecha", "DocumentoFiscalAbierto", "DocumentoAbierto" };
+
+	public Hasar2GFiscalPacket(String encoding, int baseRolloverYear, FiscalPrinterDevice fiscalPrinter) {
+		super(encoding, baseRolloverYear, fiscalPrinter);
+	}
+
+	private static void addCommand(int code, String name, String[] parameters, String[] results) {
+		Command command = new Command(code, name, parameters, results);
+		commands.put(code, command);
+		commandsByName.put(name, command);
+	}
+
+	/**
+	 * @return El nombre del comando en el protocolo JSON.
+	 * @throws IllegalArgumentException si el comando no es de la segunda
+	 * generación.
+	 */
+	public static String getCommandName(int commandCode) {
+		return getCommand(commandCode).name;
+	}
+
+	private static Command getCommand(int commandCode) {
+		Command command = commands.get(commandCode);
+		if (command == null)
+			throw new IllegalArgumentException("Comando desconocido: " + commandCode);
+		return command;
+	}
+
+	/**
+	 * Agrega el comando como objeto JSON.
+	 */
+	public void appendRequest(StringBuilder sb) {
+		Command command = getCommand(getCommandCode());
+		JsonCodec.appendString(sb.append('{'), command.name).append(":{");
+		boolean first = true;
+		for (int i = 0; i < command.parameters.length && i + 1 < getSize(); i++) {
+			if (getLength(i + 1) == 0)
+				continue;
+			if (!first)
+				sb.append(',');
+			first = false;
+			JsonCodec.appendString(sb, command.parameters[i]).append(':');
+			JsonCodec.appendString(sb, getString(i + 1));
+		}
+		sb.append("}}");
+	}
+
+	/**
+	 * Carga el paquete con un comando recibido como objeto JSON.
+	 * @throws IllegalArgumentException si el comando es desconocido.
+	 */
+	public void decodeRequest(Object json) {
+		Map<String, Object> parameters = decodeEnvelope(json);
+		Command command = commandsByName.get(getCommandName(json));
+		clear();
+		setCommandCode(command.code);
+		decodeValues(parameters, command.parameters, 1);
+	}
+
+	/**
+	 * Agrega la respuesta como objeto JSON, con los estados y los datos.
+	 */
+	public void appendResponse(StringBuilder sb) {
+		Command command = getCommand(getCommandCode());
+		JsonCodec.appendString(sb.append('{'), command.name).append(":{\"Estado\":{\"Impresora\":");
+		JsonCodec.append(sb, toNames(getPrinterStatus(), printerStatusBits, printerStatusNames));
+		sb.append(",\"Fiscal\":");
+		JsonCodec.append(sb, toNames(getFiscalStatus(), fiscalStatusBits, fiscalStatusNames));
+		sb.append('}');
+		for (int i = 0; i < command.results.length && i + FIRST_RESULT_FIELD < getSize(); i++) {
+			if (getLength(i + FIRST_RESULT_FIELD) == 0)
+				continue;
+			sb.append(',');
+			JsonCodec.appendString(sb, command.results[i]).append(':');
+			JsonCodec.appendString(sb, getString(i + FIRST_RESULT_FIELD));
+		}
+		sb.append("}}");
+	}
+
+	/**
+	 * Carga el paquete con una respuesta recibida como objeto JSON.
+	 * @throws IllegalArgumentException si la respuesta no tiene el formato
+	 * esperado.
+	 */
+	public void decodeResponse(Object json) {
+		Map<String, Object> values = decodeEnvelope(json);
+		Command command = commandsByName.get(getCommandName(json));
+		Object status = values.get("Estado");
+		if (!(status instanceof Map<?, ?>))
+			throw new IllegalArgumentException("Respuesta sin estado: " + command.name);
+		clear();
+		setCommandCode(command.code);
+		setPrinterStatus(toBits(((Map<?, ?>) status).get("Impresora"), printerStatusBits, printerStatusNames));
+		setFiscalStatus(toBits(((Map<?, ?>) status).get("Fiscal"), fiscalStatusBits, fiscalStatusNames));
+		decodeValues(values, command.results, FIRST_RESULT_FIELD);
+	}
+
+	/**
+	 * @return Los parámetros del único comando del objeto.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> decodeEnvelope(Object json) {
+		if (json instanceof Map<?, ?> && ((Map<?, ?>) json).size() == 1) {
+			Object values = ((Map<?, ?>) json).values().iterator().next();
+			if (values instanceof Map<?, ?> && commandsByName.containsKey(getCommandName(json)))
+				return (Map<String, Object>) values;
+		}
+		throw new IllegalArgumentException("Comando desconocido: " + json);
+	}
+
+	private static String getCommandName(Object json) {
+		return (String) ((Map<?, ?>) json).keySet().iterator().next();
+	}
+
+	private void decodeValues(Map<String, Object> values, String[] names, int firstField) {
+		for (int i = 0; i < names.length; i++) {
+			Object value = values.get(names[i]);
+			if (value != null)
+				setString(firstField + i, value instanceof BigDecimal
+						? ((BigDecimal) value).toPlainString() : value.toString());
+		}
+	}
+
+	private static List<String> toNames(int status, int[] bits, String[] names) {
+		List<String> result = new ArrayList<String>();
+		for (int i = 0; i < bits.length; i++) {
+			if ((status & bits[i]) != 0)
+				result.add(names[i]);
+		}
+		return result;
+	}
+
+	private static int toBits(Object names, int[] bits, String[] bitNames) {
+		if (!(names instanceof List<?>))
+			throw new IllegalArgumentException("Estado inválido: " + names);
+		int status = 0;
+		for (Object name : (List<?>) names) {
+			for (int i = 0; i < bitNames.length; i++) {
+				if (bitNames[i].equals(name))
+					status |= bits[i];
+			}
+		}
+		return status;
+	}
+
+	private static class Command {
+
+		private final int code;
+		private final String name;
+		private final String[] parameters;
+		private final String[] results;
+
+		Command(int code, String name, String[] parameters, String[] results) {
+			this.code = code;
+			this.name = name;
+			this.parameters = parameters;
+			this.results = results;
+		}
+	}
+}
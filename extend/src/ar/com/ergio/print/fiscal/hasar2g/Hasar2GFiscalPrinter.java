@@ -0,0 +1,733 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar2g;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ar.com.ergio.print.fiscal.BasicFiscalPrinter;
+import ar.com.ergio.print.fiscal.FiscalCloseReport;
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.FiscalPrinterHealth;
+import ar.com.ergio.print.fiscal.comm.FiscalComm;
+import ar.com.ergio.print.fiscal.document.CreditNote;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DebitNote;
+import ar.com.ergio.print.fiscal.document.DiscountLine;
+import ar.com.ergio.print.fiscal.document.Document;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.NonFiscalDocument;
+import ar.com.ergio.print.fiscal.document.Payment;
+import ar.com.ergio.print.fiscal.document.PerceptionLine;
+import ar.com.ergio.print.fiscal.exception.DocumentException;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterStatusError;
+import ar.com.ergio.print.fiscal.hasar.HasarStatusDecoder;
+import ar.com.ergio.print.fiscal.journal.DocumentRecovery;
+import ar.com.ergio.print.fiscal.msg.FiscalMessage;
+import ar.com.ergio.print.fiscal.msg.MsgRepository;
+
+/**
+ * Impresora Fiscal Hasar de segunda generación (protocolo HTTP/JSON).
+ * Implementa la interfaz <code>Hasar2GCommands</code>.
+ * <br>
+ * A diferencia de la primera generación, cada comprobante se envía completo:
+ * datos del comprador, apertura, textos, ítems, ajustes, tributos, pagos y
+ * cierre viajan en un único lote (ver <code>Hasar2GHttpComm</code>), de modo
+ * que imprimir un tique demanda un solo viaje de ida y vuelta, más uno para
+ * cancelarlo si la impresora rechaza alguno de sus comandos. Las líneas que
+ * se obtienen durante la impresión se completan antes de armar el lote.
+ * <br>
+ * Con otras interfaces de comunicación los comandos del lote se ejecutan de
+ * a uno.
+ */
+public class Hasar2GFiscalPrinter extends BasicFiscalPrinter implements Hasar2GCommands, Hasar2GConstants {
+
+	// Responsabilidades frente al IVA
+	protected static final String RESPONSABLE_INSCRIPTO = "ResponsableInscripto";
+	protected static final String RESPONSABLE_NO_INSCRIPTO = "ResponsableNoInscripto";
+	protected static final String EXENTO = "ResponsableExento";
+	protected static final String NO_RESPONSABLE = "NoResponsable";
+	protected static final String CONSUMIDOR_FINAL = "ConsumidorFinal";
+	protected static final String RESPONSABLE_NO_INSCRIPTO_BIENES_DE_USO = "ResponsableNoInscriptoBienesDeUso";
+	protected static final String RESPONSABLE_MONOTRIBUTO = "Monotributo";
+	protected static final String MONOTRIBUTISTA_SOCIAL = "MonotributistaSocial";
+	protected static final String NO_CATEGORIZADO = "NoCategorizado";
+
+	// Tipos de identificación
+	protected static final String CUIT = "TipoCUIT";
+	protected static final String CUIL = "TipoCUIL";
+	protected static final String LIBRETA_DE_ENROLAMIENTO = "TipoLE";
+	protected static final String LIBRETA_CIVICA = "TipoLC";
+	protected static final String DNI = "TipoDNI";
+	protected static final String PASAPORTE = "TipoPasaporte";
+	protected static final String CEDULA = "TipoCI";
+	protected static final String SIN_CALIFICADOR = "TipoNinguno";
+
+	/** Cantidad máxima de pagos de un comprobante */
+	private static final int ALLOWED_PAYMENTS = 5;
+
+	/** Codificación de caracteres de los campos */
+	private String encoding = "ISO8859_1";	// ISO 8859-1, Latin alphabet No. 1.
+	/** Año base para las fechas de los comandos */
+	private int baseRolloverYear = 1997;
+	/** Último estado de impresora informado */
+	private int printerStatus;
+	/** Último estado fiscal informado */
+	private int fiscalStatus;
+	/** Decodificador de estados, compartido por todas las impresoras 2G */
+	private static HasarStatusDecoder statusDecoder;
+	/** Último estado decodificado */
+	private HasarStatusDecoder.Status decodedStatus;
+	/** Código del comprobante abierto, o null */
+	private String openDocumentCode;
+
+	private static final int[] printerStatusCodes = { PST_PRINTER_ERROR, PST_PRINTER_OFFLINE,
+		PST_JOURNAL_PAPER_OUT, PST_TICKET_PAPER_OUT, PST_PRINT_BUFFER_FULL, PST_PRINTER_COVER_OPEN,
+		PST_MONEY_DRAWER_CLOSED };
+
+	private static final int[] fiscalStatusCodes = { FST_FISCAL_MEMORY_CRC_ERROR, FST_WORKING_MEMORY_CRC_ERROR,
+		FST_UNKNOWN_COMMAND, FST_INVALID_DATA_FIELD, FST_INVALID_COMMAND, FST_ACCUMULATOR_OVERFLOW,
+		FST_FISCAL_MEMORY_FULL, FST_FISCAL_MEMORY_ALMOST_FULL, FST_DEVICE_CERTIFIED, FST_DEVICE_FISCALIZED,
+		FST_DATE_ERROR, FST_FISCAL_DOCUMENT_OPEN, FST_DOCUMENT_OPEN };
+
+	/** Mapeo de las responsabilidades frente al IVA */
+	private Map<Integer, String> ivaResponsabilities;
+	/** Mapeo de los tipos de identificación */
+	private Map<Integer, String> identificationTypes;
+
+	public Hasar2GFiscalPrinter() {
+		super();
+	}
+
+	public Hasar2GFiscalPrinter(FiscalComm fiscalComm) {
+		super(fiscalComm);
+	}
+
+	public FiscalPacket cmdStatusRequest() {
+		return createFiscalPacket(CMD_STATUS_REQUEST);
+	}
+
+	public FiscalPacket cmdSetCustomerData(String name, String customerDocNumber, String ivaResponsibility, String docType, String location) {
+		FiscalPacket cmd = createFiscalPacket(CMD_SET_CUSTOMER_DATA);
+		cmd.setText(1, name, CUSTOMER_TEXT_LENGTH, true);
+		cmd.setText(2, customerDocNumber, true);
+		cmd.setText(3, ivaResponsibility, false);
+		cmd.setText(4, docType, false);
+		cmd.setText(5, location, CUSTOMER_TEXT_LENGTH, true);
+		return cmd;
+	}
+
+	public FiscalPacket cmdSetAssociatedDocument(int line, String documentNo) {
+		FiscalPacket cmd = createFiscalPacket(CMD_SET_ASSOCIATED_DOCUMENT);
+		cmd.setInt(1, line);
+		cmd.setText(2, documentNo, false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdOpenDocument(String documentCode) {
+		FiscalPacket cmd = createFiscalPacket(CMD_OPEN_DOCUMENT);
+		cmd.setText(1, documentCode, false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdPrintFiscalText(String text) {
+		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_FISCAL_TEXT);
+		cmd.setText(1, text, TEXT_LENGTH, false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdPrintItem(String description, BigDecimal quantity, BigDecimal price, BigDecimal ivaPercent, boolean substract, boolean basePrice) {
+		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_ITEM);
+		cmd.setText(1, description, ITEM_DESCRIPTION_LENGTH, false);
+		cmd.setQuantity(2, quantity, false);
+		cmd.setAmount(3, price, false);
+		cmd.setAmount(4, ivaPercent, false);
+		cmd.setBoolean(5, substract, ITEM_SUBSTRACT, ITEM_ADD);
+		cmd.setBoolean(6, basePrice, PRICE_BASE, PRICE_TOTAL);
+		return cmd;
+	}
+
+	/**
+	 * @param ivaPercent Alícuota a la que se imputa el ajuste; null para que
+	 * la impresora lo prorratee entre las alícuotas del comprobante.
+	 */
+	public FiscalPacket cmdPrintAdjustment(String description, BigDecimal amount, BigDecimal ivaPercent, boolean discount, boolean baseAmount) {
+		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_ADJUSTMENT);
+		cmd.setText(1, description, ITEM_DESCRIPTION_LENGTH, false);
+		cmd.setAmount(2, amount, false);
+		if (ivaPercent != null)
+			cmd.setAmount(3, ivaPercent, false);
+		else
+			cmd.setOptionalField(3, null);
+		cmd.setBoolean(4, discount, ADJUSTMENT_DISCOUNT, ADJUSTMENT_RECHARGE);
+		cmd.setBoolean(5, baseAmount, PRICE_BASE, PRICE_TOTAL);
+		return cmd;
+	}
+
+	public FiscalPacket cmdPrintOtherTax(String description, BigDecimal amount, BigDecimal rate) {
+		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_OTHER_TAX);
+		cmd.setText(1, description, ITEM_DESCRIPTION_LENGTH, false);
+		cmd.setAmount(2, amount, false);
+		if (rate != null)
+			cmd.setAmount(3, rate, false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdPrintPayment(String description, BigDecimal amount) {
+		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_PAYMENT);
+		cmd.setText(1, description, TEXT_LENGTH, false);
+		cmd.setAmount(2, amount, false);
+		cmd.setText(3, PAYMENT_TENDER, false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdCloseDocument() {
+		return createFiscalPacket(CMD_CLOSE_DOCUMENT);
+	}
+
+	public FiscalPacket cmdCancelDocument() {
+		return createFiscalPacket(CMD_CANCEL_DOCUMENT);
+	}
+
+	public FiscalPacket cmdPrintNonFiscalText(String text) {
+		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_NON_FISCAL_TEXT);
+		cmd.setText(1, text, TEXT_LENGTH, false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdDailyClose(String reportType) {
+		FiscalPacket cmd = createFiscalPacket(CMD_DAILY_CLOSE);
+		cmd.setText(1, CLOSE_X.equals(reportType) ? REPORT_X : REPORT_Z, false);
+		return cmd;
+	}
+
+	protected FiscalPacket createFiscalPacket() {
+		return new Hasar2GFiscalPacket(getEncoding(), getBaseRolloverYear(), this);
+	}
+
+	public String formatAmount(BigDecimal amount) {
+		return amount.setScale(2, BigDecimal.ROUND_HALF_UP).toPlainString();
+	}
+
+	public String formatQuantity(BigDecimal quantity) {
+		return quantity.setScale(4, BigDecimal.ROUND_HALF_UP).toPlainString();
+	}
+
+	public String formatPerceptionAmount(BigDecimal amount) {
+		return formatAmount(amount);
+	}
+
+	public int getAllowedPaymentQty() {
+		return ALLOWED_PAYMENTS;
+	}
+
+	public String getEncoding() {
+		return encoding;
+	}
+
+	public void setEncoding(String encoding) {
+		this.encoding = encoding;
+	}
+
+	public int getBaseRolloverYear() {
+		return baseRolloverYear;
+	}
+
+	public void setBaseRolloverYear(int baseRolloverYear) {
+		this.baseRolloverYear = baseRolloverYear;
+	}
+
+	/**
+	 * Ejecuta un comando fiscal en la impresora y analiza la existencia
+	 * de errores en la respuesta. En caso de que se produzca algún error
+	 * se propagan mediante excepciones.
+	 * @param command Comando a ejecutar.
+	 * @return La respuesta de la impresora.
+	 * @throws FiscalPrinterIOException cuando se produce algún error de
+	 * comunicación con el dispositivo.
+	 * @throws FiscalPrinterStatusError cuando la impresora responde con un
+	 * código de estado de error.
+	 */
+	protected FiscalPacket execute(FiscalPacket command) throws FiscalPrinterIOException, FiscalPrinterStatusError {
+		return executeBatch(Collections.singletonList(command))[0];
+	}
+
+	/**
+	 * Ejecuta un lote de comandos en un único envío. Las respuestas se
+	 * analizan en orden, como si cada comando se hubiera ejecutado por
+	 * separado; la impresora no ejecuta los comandos posteriores al primero
+	 * que falla.
+	 * @return Las respuestas de la impresora, en el orden de los comandos.
+	 * @throws FiscalPrinterIOException cuando se produce algún error de
+	 * comunicación o faltan respuestas sin que la impresora informe un error.
+	 * @throws FiscalPrinterStatusError cuando alguna de las respuestas tiene
+	 * un código de estado de error.
+	 */
+	protected FiscalPacket[] executeBatch(List<FiscalPacket> commands) throws FiscalPrinterIOException, FiscalPrinterStatusError {
+		FiscalPacket[] requests = commands.toArray(new FiscalPacket[commands.size()]);
+		FiscalPacket[] responses = new FiscalPacket[requests.length];
+		for (int i = 0; i < responses.length; i++)
+			responses[i] = createFiscalPacket();
+
+		if (!(getFiscalComm() instanceof Hasar2GHttpComm)) {
+			for (int i = 0; i < requests.length; i++) {
+				send(requests[i], responses[i]);
+				handleResponse(requests[i], responses[i]);
+			}
+			return responses;
+		}
+
+		setLastRequest(requests[0]);
+		setLastResponse(null);
+		int received;
+		try {
+			received = ((Hasar2GHttpComm) getFiscalComm()).executeBatch(requests, responses);
+		} catch (IOException e) {
+			throw new FiscalPrinterIOException(e.getMessage(), requests[0], null);
+		}
+		for (int i = 0; i < received; i++) {
+			setLastRequest(requests[i]);
+			handleResponse(requests[i], responses[i]);
+		}
+		if (received < requests.length)
+			throw new FiscalPrinterIOException(MsgRepository.get("ResponseFormatError"), requests[received], null);
+		return responses;
+	}
+
+	private void send(FiscalPacket command, FiscalPacket response) throws FiscalPrinterIOException {
+		setLastRequest(command);
+		setLastResponse(null);
+		try {
+			getFiscalComm().execute(command, response);
+		} catch (IOException e) {
+			throw new FiscalPrinterIOException(e.getMessage(), command, response);
+		}
+	}
+
+	private void handleResponse(FiscalPacket command, FiscalPacket response) throws FiscalPrinterIOException, FiscalPrinterStatusError {
+		setLastResponse(response);
+
+		// Se chequea el status devuelto por la impresora.
+		if (checkStatus(command, response))
+			fireStatusChanged(command, response);
+
+		// Si la impresora quedó en estado de error entonces se lanza una
+		// excepción.
+		if (getMessages().hasErrors())
+			throw new FiscalPrinterStatusError(command, response, getMessages());
+
+		commandCompleted(command);
+		fireCommandExecuted(command, response);
+	}
+
+	/**
+	 * Actualiza el estado del comprobante en curso a partir de un comando
+	 * ejecutado sin errores. A partir del primer pago ya no es posible
+	 * cancelar el comprobante.
+	 */
+	private void commandCompleted(FiscalPacket command) {
+		switch (command.getCommandCode()) {
+		case CMD_OPEN_DOCUMENT:
+			openDocumentCode = command.getString(1);
+			setLastDocumentNo("");
+			setDocumentOpened(true);
+			setCancelAllowed(true);
+			break;
+		case CMD_PRINT_PAYMENT:
+			setCancelAllowed(false);
+			break;
+		case CMD_CLOSE_DOCUMENT:
+		case CMD_CANCEL_DOCUMENT:
+			openDocumentCode = null;
+			setDocumentOpened(false);
+			setCancelAllowed(false);
+			break;
+		}
+	}
+
+	/**
+	 * Actualiza los estados de la impresora y los mensajes a partir de la
+	 * respuesta de un comando.
+	 * @return Verdadero si cambió alguno de los estados.
+	 * @throws FiscalPrinterIOException si la respuesta no corresponde al
+	 * comando.
+	 */
+	protected boolean checkStatus(FiscalPacket command, FiscalPacket response) throws FiscalPrinterIOException {
+		int newPrinterStatus;
+		int newFiscalStatus;
+		try {
+			if (response.getCommandCode() != command.getCommandCode())
+				throw new IllegalStateException();
+			newPrinterStatus = response.getPrinterStatus();
+			newFiscalStatus = response.getFiscalStatus();
+		} catch (Exception e) {
+			throw new FiscalPrinterIOException(MsgRepository.get("ResponseFormatError"), command, response);
+		}
+
+		boolean stsChanged = printerStatus != newPrinterStatus || fiscalStatus != newFiscalStatus;
+		if (!stsChanged && decodedStatus != null)
+			return false;
+
+		printerStatus = newPrinterStatus;
+		fiscalStatus = newFiscalStatus;
+		decodedStatus = getStatusDecoder().decode(newPrinterStatus, newFiscalStatus);
+		setWithoutPaper(decodedStatus.isWithoutPaper());
+		setMessages(decodedStatus.getMessages());
+		return stsChanged;
+	}
+
+	/**
+	 * @return El decodificador de estados de las impresoras 2G.
+	 */
+	protected HasarStatusDecoder getStatusDecoder() {
+		synchronized (Hasar2GFiscalPrinter.class) {
+			if (statusDecoder == null)
+				statusDecoder = new HasarStatusDecoder(printerStatusCodes, getPrinterStatusMsgs(),
+						fiscalStatusCodes, getFiscalStatusMsgs());
+			return statusDecoder;
+		}
+	}
+
+	/**
+	 * @return Returns the printerStatus.
+	 */
+	public int getPrinterStatus() {
+		return printerStatus;
+	}
+
+	/**
+	 * @return Returns the fiscalStatus.
+	 */
+	public int getFiscalStatus() {
+		return fiscalStatus;
+	}
+
+	private static Map<Integer, FiscalMessage> getPrinterStatusMsgs() {
+		Map<Integer, FiscalMessage> st = new HashMap<Integer, FiscalMessage>();
+		st.put(PST_PRINTER_ERROR,       MsgRepository.getFiscalMsg(PST_PRINTER_ERROR, "PstPrinterErrorTitle", "PstPrinterErrorDesc", true));
+		st.put(PST_PRINTER_OFFLINE,     MsgRepository.getFiscalMsg(PST_PRINTER_OFFLINE, "PstPrinterOfflineTitle", "PstPrinterOfflineDesc", true));
+		st.put(PST_JOURNAL_PAPER_OUT,   MsgRepository.getFiscalMsg(PST_JOURNAL_PAPER_OUT, "PstJournalPaperOutTitle", "PstJournalPaperOutDesc", true));
+		st.put(PST_TICKET_PAPER_OUT,    MsgRepository.getFiscalMsg(PST_TICKET_PAPER_OUT, "PstTicketPaperOutTitle", "PstTicketPaperOutDesc", true));
+		st.put(PST_PRINT_BUFFER_FULL,   MsgRepository.getFiscalMsg(PST_PRINT_BUFFER_FULL, "PstPrintBufferFullTitle", "PstPrintBufferFullDesc", false));
+		st.put(PST_PRINTER_COVER_OPEN,  MsgRepository.getFiscalMsg(PST_PRINTER_COVER_OPEN, "PstPrinterCoverOpenTitle", "PstPrinterCoverOpenDesc", true));
+		st.put(PST_MONEY_DRAWER_CLOSED, MsgRepository.getFiscalMsg(PST_MONEY_DRAWER_CLOSED, "PstMoneyDrawerClosedTitle", "PstMoneyDrawerClosedDesc", false));
+		return st;
+	}
+
+	private static Map<Integer, FiscalMessage> getFiscalStatusMsgs() {
+		Map<Integer, FiscalMessage> st = new HashMap<Integer, FiscalMessage>();
+		st.put(FST_FISCAL_MEMORY_CRC_ERROR,   MsgRepository.getFiscalMsg(FST_FISCAL_MEMORY_CRC_ERROR, "FstFiscalMemoryCrcErrorTitle", "FstFiscalMemoryCrcErrorDesc", true));
+		st.put(FST_WORKING_MEMORY_CRC_ERROR,  MsgRepository.getFiscalMsg(FST_WORKING_MEMORY_CRC_ERROR, "FstWorkingMemoryCrcErrorTitle", "FstWorkingMemoryCrcErrorDesc", true));
+		st.put(FST_UNKNOWN_COMMAND,           MsgRepository.getFiscalMsg(FST_UNKNOWN_COMMAND, "FstUnknownCommandTitle", "FstUnknownCommandDesc", true));
+		st.put(FST_INVALID_DATA_FIELD,        MsgRepository.getFiscalMsg(FST_INVALID_DATA_FIELD, "FstInvalidDataFieldTitle", "FstInvalidDataFieldDesc", true));
+		st.put(FST_INVALID_COMMAND,           MsgRepository.getFiscalMsg(FST_INVALID_COMMAND, "FstInvalidCommandTitle", "FstInvalidCommandDesc", true));
+		st.put(FST_ACCUMULATOR_OVERFLOW,      MsgRepository.getFiscalMsg(FST_ACCUMULATOR_OVERFLOW, "FstAccumulatorOverflowTitle", "FstAccumulatorOverflowDesc", true));
+		st.put(FST_FISCAL_MEMORY_FULL,        MsgRepository.getFiscalMsg(FST_FISCAL_MEMORY_FULL, "FstFiscalMemoryFullTitle", "FstFiscalMemoryFullDesc", true));
+		st.put(FST_FISCAL_MEMORY_ALMOST_FULL, MsgRepository.getFiscalMsg(FST_FISCAL_MEMORY_ALMOST_FULL, "FstFiscalMemoryAlmostFullTitle", "FstFiscalMemoryAlmostFullDesc", false));
+		st.put(FST_DEVICE_CERTIFIED,          MsgRepository.getFiscalMsg(FST_DEVICE_CERTIFIED, "FstDeviceCertifiedTitle", "FstDeviceCertifiedDesc", false));
+		st.put(FST_DEVICE_FISCALIZED,         MsgRepository.getFiscalMsg(FST_DEVICE_FISCALIZED, "FstDeviceFiscalizedTitle", "FstDeviceFiscalizedDesc", false));
+		st.put(FST_DATE_ERROR,                MsgRepository.getFiscalMsg(FST_DATE_ERROR, "FstDateErrorTitle", "FstDateErrorDesc", true));
+		st.put(FST_FISCAL_DOCUMENT_OPEN,      MsgRepository.getFiscalMsg(FST_FISCAL_DOCUMENT_OPEN, "FstFiscalDocumentOpenTitle", "FstFiscalDocumentOpenDesc", false));
+		st.put(FST_DOCUMENT_OPEN,             MsgRepository.getFiscalMsg(FST_DOCUMENT_OPEN, "FstDocumentOpenTitle", "FstDocumentOpenDesc", false));
+		return st;
+	}
+
+	public void printDocument(Invoice invoice) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		invoice.validate();
+		invoice.setDocumentNo(printFiscalDocument(invoice, DOC_TICKET_INVOICE, null, invoice.getPayments()));
+		firePrintEnded();
+	}
+
+	public void printDocument(DebitNote debitNote) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		debitNote.validate();
+		debitNote.setDocumentNo(printFiscalDocument(debitNote, DOC_TICKET_DEBIT_NOTE, null, debitNote.getPayments()));
+		firePrintEnded();
+	}
+
+	public void printDocument(CreditNote creditNote) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		creditNote.validate();
+		creditNote.setDocumentNo(printFiscalDocument(creditNote, DOC_TICKET_CREDIT_NOTE,
+				creditNote.getOriginalDocumentNo(), Collections.<Payment>emptyList()));
+		firePrintEnded();
+	}
+
+	/**
+	 * Emite un comprobante fiscal en un único lote: datos del comprador,
+	 * comprobante asociado, apertura, textos fiscales, ítems y sus
+	 * bonificaciones, ajustes, percepción, pagos y cierre.
+	 * @param associatedDocumentNo Comprobante original (notas de crédito), o null.
+	 * @return El número del comprobante emitido.
+	 */
+	private String printFiscalDocument(Document document, String documentCode, String associatedDocumentNo,
+			List<Payment> payments) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		document.completeLines();
+		List<FiscalPacket> commands = new ArrayList<FiscalPacket>();
+
+		Customer customer = document.getCustomer();
+		if (isCustomerDataRequired(customer)) {
+			String identificationType = traduceIdentificationType(customer.getIdentificationType());
+			commands.add(cmdSetCustomerData(customer.getName(),
+					formatDocNumber(identificationType, customer.getIdentificationNumber()),
+					traduceIvaResponsibility(customer.getIvaResponsibility()), identificationType,
+					customer.getLocation()));
+		}
+		if (associatedDocumentNo != null)
+			commands.add(cmdSetAssociatedDocument(1, associatedDocumentNo));
+		commands.add(cmdOpenDocument(documentCode + document.getLetter()));
+
+		for (String observation : document.getObservations())
+			commands.add(cmdPrintFiscalText(observation));
+
+		for (DocumentLine item : document.getLines()) {
+			commands.add(cmdPrintItem(item.getDescription(), item.getQuantity(), item.getAbsUnitPrice(),
+					item.getIvaRate(), item.isSubstract(), !item.isPriceIncludeIva()));
+			if (item.hasDiscount())
+				commands.add(cmdAdjustment(item.getDiscount(), item.getIvaRate()));
+		}
+		for (DiscountLine discount : document.getDocumentDiscounts())
+			commands.add(cmdAdjustment(discount, discount.getTaxRate()));
+		if (document.hasGeneralDiscount())
+			commands.add(cmdAdjustment(document.getGeneralDiscount(), null));
+
+		PerceptionLine perception = document.getPerceptionLine();
+		if (perception != null)
+			commands.add(cmdPrintOtherTax(perception.getDescription(), perception.getAmt(), perception.getTaxRate()));
+
+		for (Payment payment : payments)
+			commands.add(cmdPrintPayment(payment.getDescription(), payment.getAmount()));
+		commands.add(cmdCloseDocument());
+
+		try {
+			setCancelAllowed(false);
+			FiscalPacket[] responses = executeBatch(commands);
+			setLastDocumentNo(responses[responses.length - 1].getString(3));
+			return getLastDocumentNo();
+		} catch (FiscalPrinterIOException e) {
+			// Si ocurrió algún error se intenta cancelar el documento
+			// actual y se relanza la excepción.
+			cancelCurrentDocument();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return El comando que carga una bonificación (o recargo).
+	 */
+	private FiscalPacket cmdAdjustment(DiscountLine discount, BigDecimal ivaPercent) {
+		return cmdPrintAdjustment(discount.getDescription(), discount.getAbsAmount(), ivaPercent,
+				discount.isDiscount(), !discount.isAmountIncludeIva());
+	}
+
+	/**
+	 * @return Verdadero si el comprobante debe llevar los datos del
+	 * comprador: se omiten para el consumidor final anónimo.
+	 */
+	protected boolean isCustomerDataRequired(Customer customer) {
+		if (customer == null)
+			return false;
+		String number = customer.getIdentificationNumber();
+		String name = customer.getName();
+		return (number != null && number.trim().length() > 0) || (name != null && name.trim().length() > 0);
+	}
+
+	public void printDocument(NonFiscalDocument nonFiscalDocument) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		nonFiscalDocument.validate();
+		List<FiscalPacket> commands = new ArrayList<FiscalPacket>();
+		commands.add(cmdOpenDocument(DOC_GENERIC));
+		for (String line : nonFiscalDocument.getLines())
+			commands.add(cmdPrintNonFiscalText(line));
+		commands.add(cmdCloseDocument());
+		try {
+			setCancelAllowed(false);
+			executeBatch(commands);
+			firePrintEnded();
+		} catch (FiscalPrinterIOException e) {
+			cancelCurrentDocument();
+			throw e;
+		}
+	}
+
+	public FiscalCloseReport fiscalClose(String closeType) throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		FiscalPacket response = execute(cmdDailyClose(closeType));
+		FiscalCloseReport report = new FiscalCloseReport(closeType);
+		report.setNumber(getCloseInt(response, 3));
+		report.setCancelledDocuments(getCloseInt(response, 4));
+		report.setHomologatedDocuments(getCloseInt(response, 5));
+		report.setNonFiscalDocuments(getCloseInt(response, 6));
+		report.setFiscalDocuments(getCloseInt(response, 7));
+		report.setLastInvoiceNoBC(getCloseInt(response, 8));
+		report.setLastInvoiceNoA(getCloseInt(response, 9));
+		report.setSalesAmt(getCloseAmount(response, 10));
+		report.setTaxAmt(getCloseAmount(response, 11));
+		report.setLastCreditNoteNoBC(getCloseInt(response, 12));
+		report.setLastCreditNoteNoA(getCloseInt(response, 13));
+		report.setCreditAmt(getCloseAmount(response, 14));
+		return report;
+	}
+
+	/**
+	 * @return Valor entero del campo de la respuesta de cierre, o cero si la
+	 * impresora no lo informó.
+	 */
+	private int getCloseInt(FiscalPacket response, int field) {
+		if (field >= response.getSize() || response.getLength(field) == 0)
+			return 0;
+		return response.getInt(field);
+	}
+
+	/**
+	 * @return Importe del campo de la respuesta de cierre, o cero si la
+	 * impresora no lo informó.
+	 */
+	private BigDecimal getCloseAmount(FiscalPacket response, int field) {
+		if (field >= response.getSize() || response.getLength(field) == 0)
+			return BigDecimal.ZERO;
+		return response.getBigDecimal(field);
+	}
+
+	/**
+	 * Cancela el documento actualmente abierto en la impresora. Los
+	 * documentos genéricos no se pueden cancelar: se cierran.
+	 */
+	protected void cancelCurrentDocument() {
+		if (!isCancelAllowed())
+			return;
+		try {
+			if (DOC_GENERIC.equals(openDocumentCode))
+				execute(cmdCloseDocument());
+			else
+				execute(cmdCancelDocument());
+		} catch (FiscalPrinterIOException e) {
+			// Do nothing
+		}
+	}
+
+	/**
+	 * El estado fiscal indica si quedó un documento abierto: un comprobante
+	 * fiscal se cancela y un documento genérico se cierra.
+	 */
+	public DocumentRecovery recoverDocument() throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		execute(cmdStatusRequest());
+		if ((fiscalStatus & FST_FISCAL_DOCUMENT_OPEN) != 0) {
+			setDocumentOpened(true);
+			execute(cmdCancelDocument());
+			return new DocumentRecovery(DocumentRecovery.CANCELLED, CMD_OPEN_DOCUMENT, null);
+		}
+		if ((fiscalStatus & FST_DOCUMENT_OPEN) != 0) {
+			setDocumentOpened(true);
+			execute(cmdCloseDocument());
+			return new DocumentRecovery(DocumentRecovery.COMPLETED, CMD_OPEN_DOCUMENT, null);
+		}
+		return DocumentRecovery.NOTHING;
+	}
+
+	/**
+	 * Consulta el estado mediante <code>ConsultarEstado</code>.
+	 */
+	public FiscalPrinterHealth checkHealth() throws FiscalPrinterIOException {
+		try {
+			execute(cmdStatusRequest());
+		} catch (FiscalPrinterStatusError e) {
+			// El error forma parte del estado consultado.
+		}
+		return new FiscalPrinterHealth(isWithoutPaper(),
+				(printerStatus & PST_PRINTER_COVER_OPEN) != 0,
+				(fiscalStatus & (FST_FISCAL_DOCUMENT_OPEN | FST_DOCUMENT_OPEN)) != 0,
+				(fiscalStatus & FST_FISCAL_MEMORY_ALMOST_FULL) != 0,
+				getMessages());
+	}
+
+	/**
+	 * @return La responsabilidad frente al IVA que espera la impresora.
+	 */
+	protected String traduceIvaResponsibility(Integer ivaResponsibility) {
+		String result = getIvaResponsabilities().get(ivaResponsibility);
+		if (result == null)
+			result = NO_CATEGORIZADO;
+		return result;
+	}
+
+	/**
+	 * @return El tipo de identificación que espera la impresora.
+	 */
+	protected String traduceIdentificationType(Integer identificationType) {
+		String result = getIdentificationTypes().get(identificationType);
+		if (result == null)
+			result = SIN_CALIFICADOR;
+		return result;
+	}
+
+	/**
+	 * @return Returns the ivaResponsabilities.
+	 */
+	protected Map<Integer, String> getIvaResponsabilities() {
+		if (ivaResponsabilities == null) {
+			ivaResponsabilities = new HashMap<Integer, String>();
+			ivaResponsabilities.put(Customer.CONSUMIDOR_FINAL, CONSUMIDOR_FINAL);
+			ivaResponsabilities.put(Customer.EXENTO, EXENTO);
+			ivaResponsabilities.put(Customer.MONOTRIBUTISTA_SOCIAL, MONOTRIBUTISTA_SOCIAL);
+			ivaResponsabilities.put(Customer.NO_CATEGORIZADO, NO_CATEGORIZADO);
+			ivaResponsabilities.put(Customer.NO_RESPONSABLE, NO_RESPONSABLE);
+			ivaResponsabilities.put(Customer.PEQUENO_CONTRIBUYENTE_EVENTUAL, MONOTRIBUTISTA_SOCIAL);
+			ivaResponsabilities.put(Customer.PEQUENO_CONTRIBUYENTE_EVENTUAL_SOCIAL, MONOTRIBUTISTA_SOCIAL);
+			ivaResponsabilities.put(Customer.RESPONSABLE_INSCRIPTO, RESPONSABLE_INSCRIPTO);
+			ivaResponsabilities.put(Customer.RESPONSABLE_MONOTRIBUTO, RESPONSABLE_MONOTRIBUTO);
+			ivaResponsabilities.put(Customer.RESPONSABLE_NO_INSCRIPTO, RESPONSABLE_NO_INSCRIPTO);
+			ivaResponsabilities.put(Customer.RESPONSABLE_NO_INSCRIPTO_BIENES_DE_USO, RESPONSABLE_NO_INSCRIPTO_BIENES_DE_USO);
+		}
+		return ivaResponsabilities;
+	}
+
+	/**
+	 * @return Returns the identificationTypes.
+	 */
+	protected Map<Integer, String> getIdentificationTypes() {
+		if (identificationTypes == null) {
+			identificationTypes = new HashMap<Integer, String>();
+			identificationTypes.put(Customer.CEDULA, CEDULA);
+			identificationTypes.put(Customer.CUIL, CUIL);
+			identificationTypes.put(Customer.CUIT, CUIT);
+			identificationTypes.put(Customer.DNI, DNI);
+			identificationTypes.put(Customer.LIBRETA_CIVICA, LIBRETA_CIVICA);
+			identificationTypes.put(Customer.LIBRETA_DE_ENROLAMIENTO, LIBRETA_DE_ENROLAMIENTO);
+			identificationTypes.put(Customer.PASAPORTE, PASAPORTE);
+			identificationTypes.put(Customer.SIN_CALIFICADOR, SIN_CALIFICADOR);
+		}
+		return identificationTypes;
+	}
+
+	/**
+	 * Formatea un número de identificación para que sea aceptado por la
+	 * impresora: sin puntos los documentos y sin guiones los CUIT/CUIL.
+	 */
+	protected String formatDocNumber(String docType, String docNumber) {
+		if (docNumber == null)
+			return null;
+		if (docType.equals(DNI))
+			return docNumber.replace(".", "").trim();
+		if (docType.equals(CUIT) || docType.equals(CUIL))
+			return docNumber.replace("-", "").trim();
+		return docNumber.trim();
+	}
+}
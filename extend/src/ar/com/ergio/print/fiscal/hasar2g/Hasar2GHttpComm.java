@@ -0,0 +1,218 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar2g;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.comm.AbstractFiscalComm;
+import ar.com.ergio.print.fiscal.util.JsonCodec;
+
+/**
+ * Interfaz de comunicación con las impresoras Hasar de segunda generación
+ * mediante HTTP/JSON. Cada envío es un POST con un lote de comandos:
+ * <pre>
+ * {"Comandos":[{"AbrirDocumento":{...}},{"ImprimirItem":{...}},...]}
+ * {"Respuestas":[{"AbrirDocumento":{"Estado":{...},...}},...]}
+ * </pre>
+ * La impresora ejecuta los comandos en orden y deja de hacerlo en el primero
+ * que informa un error, por lo que puede haber menos respuestas que comandos.
+ * <br>
+ * Las conexiones son persistentes (HTTP/1.1 keep-alive): cada respuesta se
+ * lee completa para que la conexión vuelva al pool de la JVM y la reutilice
+ * el siguiente envío.
+ */
+public class Hasar2GHttpComm extends AbstractFiscalComm {
+
+	/** Codificación de los mensajes JSON */
+	private static final String CHARSET = "UTF-8";
+
+	/** Host de la impresora */
+	private final String host;
+	/** Puerto HTTP de la impresora */
+	private final int port;
+	/** Recurso al que se envían los comandos */
+	private String path = "/fiscal.json";
+	/** Tiempo máximo (mls) para establecer la conexión */
+	private int connectTimeout = 5000;
+	/** Tiempo máximo (mls) de espera de la respuesta de un lote */
+	private int readTimeout = 60000;
+	/** URL del recurso; se arma al conectar */
+	private URL url;
+
+	/**
+	 * @param host Host de la impresora.
+	 * @param port Puerto HTTP de la impresora.
+	 */
+	public Hasar2GHttpComm(String host, int port) {
+		super();
+		this.host = host;
+		this.port = port;
+	}
+
+	/**
+	 * HTTP no requiere una conexión previa: solo se arma la URL. La conexión
+	 * TCP se abre con el primer envío y se mantiene entre envíos.
+	 */
+	public void connect() throws IOException {
+		url = new URL("http", host, port, path);
+		setConnected(true);
+	}
+
+	public void close() throws IOException {
+		setConnected(false);
+	}
+
+	public void execute(FiscalPacket request, FiscalPacket response) throws IOException {
+		if (executeBatch(new FiscalPacket[] { request }, new FiscalPacket[] { response }) != 1)
+			throw new IOException("Respuesta vacía de la impresora: " + request);
+	}
+
+	/**
+	 * Envía un lote de comandos en un único POST.
+	 * @param requests Comandos a ejecutar, en orden.
+	 * @param responses Paquetes donde se decodifican las respuestas; misma
+	 * longitud que <code>requests</code>.
+	 * @return Cantidad de respuestas recibidas: los comandos posteriores al
+	 * último respondido no se ejecutaron.
+	 * @throws IOException si ocurre un error de comunicación o la respuesta no
+	 * tiene el formato esperado.
+	 */
+	public int executeBatch(FiscalPacket[] requests, FiscalPacket[] responses) throws IOException {
+		validateConnection();
+		if (requests.length != responses.length)
+			throw new IllegalArgumentException();
+		StringBuilder sb = new StringBuilder(128 * requests.length);
+		sb.append("{\"Comandos\":[");
+		for (int i = 0; i < requests.length; i++) {
+			if (i > 0)
+				sb.append(',');
+			((Hasar2GFiscalPacket) requests[i]).appendRequest(sb);
+		}
+		sb.append("]}");
+
+		byte[] body = post(sb.toString().getBytes(CHARSET));
+		List<?> results;
+		try {
+			Object json = JsonCodec.parse(new String(body, CHARSET));
+			results = (List<?>) ((Map<?, ?>) json).get("Respuestas");
+			if (results == null || results.size() > requests.length)
+				throw new IllegalArgumentException("Cantidad de respuestas inválida");
+			for (int i = 0; i < results.size(); i++)
+				((Hasar2GFiscalPacket) responses[i]).decodeResponse(results.get(i));
+		} catch (RuntimeException e) {
+			throw new IOException("Respuesta inválida de la impresora: " + e.getMessage());
+		}
+		return results.size();
+	}
+
+	/**
+	 * @return El cuerpo de la respuesta al POST.
+	 */
+	private byte[] post(byte[] body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+		connection.setUseCaches(false);
+		connection.setDoOutput(true);
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Content-Type", "application/json; charset=" + CHARSET);
+		connection.setFixedLengthStreamingMode(body.length);
+
+		fireBytesSent(body, 0, body.length);
+		OutputStream out = connection.getOutputStream();
+		try {
+			out.write(body);
+		} finally {
+			out.close();
+		}
+
+		int status = connection.getResponseCode();
+		if (status != HttpURLConnection.HTTP_OK) {
+			// Se consume el cuerpo del error para poder reutilizar la conexión
+			InputStream error = connection.getErrorStream();
+			if (error != null)
+				readFully(error);
+			throw new IOException("HTTP " + status + " " + connection.getResponseMessage());
+		}
+		byte[] response = readFully(connection.getInputStream());
+		fireBytesReceived(response, 0, response.length);
+		return response;
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream result = new ByteArrayOutputStream(1024);
+			byte[] buffer = new byte[1024];
+			int n;
+			while ((n = in.read(buffer)) != -1)
+				result.write(buffer, 0, n);
+			return result.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return Returns the path.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * @param path Recurso al que se envían los comandos; se aplica al conectar.
+	 */
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	/**
+	 * @return Returns the connectTimeout.
+	 */
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * @param connectTimeout The connectTimeout to set.
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * @return Returns the readTimeout.
+	 */
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * @param readTimeout The readTimeout to set.
+	 */
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+}
@@ -0,0 +1,325 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar2g.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+
+import ar.com.ergio.print.fiscal.hasar2g.Hasar2GFiscalPacket;
+import ar.com.ergio.print.fiscal.util.JsonCodec;
+
+/**
+ * Servidor HTTP local que atiende el protocolo JSON de las impresoras Hasar
+ * de segunda generación con un <code>Hasar2GSimulator</code>. Cada POST trae
+ * un lote de comandos que se ejecutan en orden hasta el primero que informa
+ * un error; se responde con las respuestas de los comandos ejecutados.
+ * <br>
+ * Las conexiones son persistentes (HTTP/1.1) salvo que el cliente pida
+ * cerrarlas; cada conexión se atiende en su propio thread. Se cuentan las
+ * conexiones aceptadas y los lotes recibidos para verificar la reutilización
+ * de conexiones y la cantidad de viajes por comprobante.
+ */
+public class Hasar2GHttpSimulator {
+
+	private static final String CHARSET = "UTF-8";
+	private static final String ENCODING = "ISO8859_1";
+
+	private static CLogger log = CLogger.getCLogger(Hasar2GHttpSimulator.class);
+
+	private final Hasar2GSimulator simulator;
+	private ServerSocket serverSocket;
+	private Thread acceptThread;
+	private final List<Socket> clients = new ArrayList<Socket>();
+	private volatile boolean running;
+
+	/** Cantidad de conexiones aceptadas */
+	private int connectionCount;
+	/** Cantidad de lotes (POST) atendidos */
+	private int requestCount;
+	/** Demora (mls) de cada lote, para simular el tiempo de impresión */
+	private int latency = 0;
+
+	public Hasar2GHttpSimulator(Hasar2GSimulator simulator) {
+		super();
+		this.simulator = simulator;
+	}
+
+	/**
+	 * Abre el puerto y comienza a aceptar conexiones.
+	 * @param port Puerto TCP; 0 para que el sistema asigne uno libre.
+	 * @return El puerto en el que se atienden las conexiones.
+	 */
+	public synchronized int start(int port) throws IOException {
+		if (running)
+			return getPort();
+		serverSocket = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+		running = true;
+		acceptThread = new Thread("Hasar2GHttpSimulator-" + serverSocket.getLocalPort()) {
+			@Override
+			public void run() {
+				acceptLoop();
+			}
+		};
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+		return getPort();
+	}
+
+	/**
+	 * Cierra el puerto y todas las conexiones abiertas.
+	 */
+	public synchronized void stop() {
+		running = false;
+		try {
+			if (serverSocket != null)
+				serverSocket.close();
+		} catch (IOException e) {
+			log.log(Level.WARNING, "Error cerrando el simulador HTTP", e);
+		}
+		synchronized (clients) {
+			for (Socket client : clients) {
+				try {
+					client.close();
+				} catch (IOException e) {
+					// Se cierra de todos modos
+				}
+			}
+			clients.clear();
+		}
+	}
+
+	private void acceptLoop() {
+		while (running) {
+			final Socket client;
+			try {
+				client = serverSocket.accept();
+				client.setTcpNoDelay(true);
+			} catch (IOException e) {
+				if (running)
+					log.log(Level.WARNING, "Error aceptando conexión", e);
+				return;
+			}
+			synchronized (clients) {
+				clients.add(client);
+				connectionCount++;
+			}
+			Thread t = new Thread("Hasar2GHttpSimulator-client-" + client.getPort()) {
+				@Override
+				public void run() {
+					serve(client);
+				}
+			};
+			t.setDaemon(true);
+			t.start();
+		}
+	}
+
+	private void serve(Socket client) {
+		try {
+			InputStream in = new BufferedInputStream(client.getInputStream());
+			OutputStream out = client.getOutputStream();
+			boolean keepAlive = true;
+			while (keepAlive) {
+				List<String> header = readHeader(in);
+				if (header == null)
+					break;
+				int contentLength = 0;
+				for (String line : header) {
+					String lower = line.toLowerCase();
+					if (lower.startsWith("content-length:"))
+						contentLength = Integer.parseInt(line.substring(15).trim());
+					else if (lower.startsWith("connection:") && lower.contains("close"))
+						keepAlive = false;
+				}
+				byte[] body = new byte[contentLength];
+				for (int n = 0; n < contentLength; ) {
+					int r = in.read(body, n, contentLength - n);
+					if (r == -1)
+						return;
+					n += r;
+				}
+				if (!header.get(0).startsWith("POST ")) {
+					respond(out, 405, "Method Not Allowed", "");
+					continue;
+				}
+				String response;
+				try {
+					response = process(new String(body, CHARSET));
+				} catch (RuntimeException e) {
+					respond(out, 400, "Bad Request", e.getMessage() == null ? "" : e.getMessage());
+					continue;
+				}
+				respond(out, 200, "OK", response);
+			}
+		} catch (SocketException e) {
+			// Conexión cerrada por el cliente o por stop()
+		} catch (IOException e) {
+			log.log(Level.WARNING, "Error atendiendo conexión", e);
+		} finally {
+			synchronized (clients) {
+				clients.remove(client);
+			}
+			try {
+				client.close();
+			} catch (IOException e) {
+				// Se ignora
+			}
+		}
+	}
+
+	/**
+	 * @return Las líneas de la cabecera (la primera es la línea del pedido),
+	 * o null si el cliente cerró la conexión.
+	 */
+	private static List<String> readHeader(InputStream in) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+		int b;
+		while ((b = in.read()) != -1) {
+			if (b == '\r')
+				continue;
+			if (b != '\n') {
+				line.write(b);
+				continue;
+			}
+			if (line.size() == 0)
+				return lines.isEmpty() ? readHeader(in) : lines;
+			lines.add(line.toString(ENCODING));
+			line.reset();
+		}
+		return null;
+	}
+
+	/**
+	 * Ejecuta el lote hasta el primer comando que informa un error.
+	 * @return El cuerpo de la respuesta.
+	 */
+	private String process(String body) {
+		Object commands = ((Map<?, ?>) JsonCodec.parse(body)).get("Comandos");
+		if (!(commands instanceof List<?>))
+			throw new IllegalArgumentException("Falta la lista de comandos");
+		List<Hasar2GFiscalPacket> requests = new ArrayList<Hasar2GFiscalPacket>();
+		for (Object command : (List<?>) commands) {
+			Hasar2GFiscalPacket request = new Hasar2GFiscalPacket(ENCODING, 1997, null);
+			request.decodeRequest(command);
+			requests.add(request);
+		}
+		synchronized (this) {
+			requestCount++;
+		}
+		pause(latency);
+
+		StringBuilder sb = new StringBuilder(64 * requests.size());
+		sb.append("{\"Respuestas\":[");
+		// Un único controlador: los lotes se ejecutan de a uno
+		synchronized (simulator) {
+			for (int i = 0; i < requests.size(); i++) {
+				Hasar2GFiscalPacket response = simulator.process(requests.get(i));
+				if (i > 0)
+					sb.append(',');
+				response.appendResponse(sb);
+				if (Hasar2GSimulator.isError(response))
+					break;
+			}
+		}
+		return sb.append("]}").toString();
+	}
+
+	private static void respond(OutputStream out, int status, String reason, String body) throws IOException {
+		byte[] content = body.getBytes(CHARSET);
+		String header = "HTTP/1.1 " + status + " " + reason + "\r\n"
+				+ "Content-Type: application/json; charset=" + CHARSET + "\r\n"
+				+ "Content-Length: " + content.length + "\r\n\r\n";
+		out.write(header.getBytes(ENCODING));
+		out.write(content);
+		out.flush();
+	}
+
+	private static void pause(int millis) {
+		if (millis <= 0)
+			return;
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return El puerto en el que se atienden las conexiones, o -1 si no está iniciado.
+	 */
+	public int getPort() {
+		return serverSocket == null ? -1 : serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return Verdadero si el simulador acepta conexiones.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return Returns the simulator.
+	 */
+	public Hasar2GSimulator getSimulator() {
+		return simulator;
+	}
+
+	/**
+	 * @return Cantidad de conexiones aceptadas.
+	 */
+	public int getConnectionCount() {
+		synchronized (clients) {
+			return connectionCount;
+		}
+	}
+
+	/**
+	 * @return Cantidad de lotes atendidos.
+	 */
+	public synchronized int getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * @return Returns the latency.
+	 */
+	public int getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @param latency Demora (mls) de cada lote.
+	 */
+	public void setLatency(int latency) {
+		this.latency = latency;
+	}
+}
@@ -0,0 +1,421 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.hasar2g.simulator;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ar.com.ergio.print.fiscal.hasar2g.Hasar2GCommands.*;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.hasar2g.Hasar2GConstants;
+import ar.com.ergio.print.fiscal.hasar2g.Hasar2GFiscalPacket;
+
+/**
+ * Simulador lógico de una impresora fiscal Hasar de segunda generación.
+ * Mantiene el estado del comprobante y de la jornada fiscal, valida la
+ * secuencia de comandos y responde con los estados que informaría el
+ * controlador. No simula tiempos ni transporte (ver
+ * <code>Hasar2GHttpSimulator</code>).
+ */
+public class Hasar2GSimulator implements Hasar2GConstants {
+
+	private static final String ENCODING = "ISO8859_1";
+	private static final BigDecimal HUNDRED = new BigDecimal(100);
+
+	/** Errores de la impresora */
+	private static final int PST_ERRORS = PST_PRINTER_ERROR | PST_PRINTER_OFFLINE
+			| PST_JOURNAL_PAPER_OUT | PST_TICKET_PAPER_OUT | PST_PRINTER_COVER_OPEN;
+	/** Errores fiscales */
+	private static final int FST_ERRORS = FST_FISCAL_MEMORY_CRC_ERROR | FST_WORKING_MEMORY_CRC_ERROR
+			| FST_UNKNOWN_COMMAND | FST_INVALID_DATA_FIELD | FST_INVALID_COMMAND
+			| FST_ACCUMULATOR_OVERFLOW | FST_FISCAL_MEMORY_FULL;
+
+	/** Cantidad máxima de pagos de un comprobante */
+	private static final int MAX_PAYMENTS = 5;
+
+	// Estado de la impresora (configurable para simular fallas)
+	private boolean paperOut;
+	private boolean coverOpen;
+
+	// Comprobante actual
+	/** Código del comprobante abierto ("TiqueFacturaB", "Generico", ...) o null */
+	private String openDocument;
+	/** Datos del comprador cargados: tipo y número de documento, o null */
+	private String[] customer;
+	/** Comprobante asociado cargado, o null */
+	private String associatedDocument;
+	private int items;
+	private int payments;
+	private BigDecimal total = BigDecimal.ZERO;
+	private BigDecimal tax = BigDecimal.ZERO;
+
+	// Jornada fiscal
+	/** Último número emitido por tipo de comprobante y letra ("TiqueFacturaB", ...) */
+	private final Map<String, Integer> lastNumbers = new HashMap<String, Integer>();
+	private int zNumber;
+	private int fiscalDocuments;
+	private int cancelledDocuments;
+	private int nonFiscalDocuments;
+	private BigDecimal dailySales = BigDecimal.ZERO;
+	private BigDecimal dailyTax = BigDecimal.ZERO;
+	private BigDecimal dailyCredits = BigDecimal.ZERO;
+
+	/** Cantidad de comandos procesados */
+	private long commandCount;
+	/** Fallas inyectadas: código de comando -> ocurrencia que falla */
+	private final Map<Integer, Integer> failures = new HashMap<Integer, Integer>();
+	/** Ocurrencias de cada código de comando */
+	private final Map<Integer, Integer> occurrences = new HashMap<Integer, Integer>();
+
+	/**
+	 * Procesa un comando.
+	 * @return La respuesta, con los estados y los datos del comando.
+	 */
+	public synchronized Hasar2GFiscalPacket process(FiscalPacket request) {
+		commandCount++;
+		int cmd = request.getCommandCode();
+		Hasar2GFiscalPacket response = new Hasar2GFiscalPacket(ENCODING, 1997, null);
+		response.setCommandCode(cmd);
+		response.setPrinterStatus(0);
+		response.setFiscalStatus(0);
+		Integer occurrence = occurrences.get(cmd);
+		occurrence = occurrence == null ? 1 : occurrence + 1;
+		occurrences.put(cmd, occurrence);
+		int fiscalError;
+		try {
+			if (occurrence.equals(failures.get(cmd)))
+				fiscalError = FST_INVALID_DATA_FIELD;
+			else
+				fiscalError = execute(cmd, request, response);
+		} catch (NumberFormatException e) {
+			fiscalError = FST_INVALID_DATA_FIELD;
+		} catch (IndexOutOfBoundsException e) {
+			fiscalError = FST_INVALID_DATA_FIELD;
+		}
+		if (fiscalError != 0)
+			response.setSize(3);
+		response.setPrinterStatus(getPrinterStatus());
+		response.setFiscalStatus(getFiscalStatus() | fiscalError);
+		return response;
+	}
+
+	/**
+	 * @return Verdadero si la respuesta informa un error, caso en el que la
+	 * impresora no ejecuta los comandos siguientes del lote.
+	 */
+	public static boolean isError(FiscalPacket response) {
+		return (response.getPrinterStatus() & PST_ERRORS) != 0
+				|| (response.getFiscalStatus() & FST_ERRORS) != 0;
+	}
+
+	/**
+	 * @return El error fiscal del comando, o cero.
+	 */
+	private int execute(int cmd, FiscalPacket f, FiscalPacket rsp) {
+		if ((getPrinterStatus() & PST_ERRORS) != 0 && cmd != CMD_STATUS_REQUEST)
+			return 0;
+		boolean fiscalOpen = openDocument != null && !DOC_GENERIC.equals(openDocument);
+		switch (cmd) {
+		case CMD_STATUS_REQUEST:
+			return 0;
+		case CMD_SET_CUSTOMER_DATA:
+			// Razón social, número, responsabilidad IVA, tipo de documento, domicilio
+			if (openDocument != null)
+				return FST_INVALID_COMMAND;
+			if (isEmpty(f, 3) || isEmpty(f, 4))
+				return FST_INVALID_DATA_FIELD;
+			customer = new String[] { f.getString(4), isEmpty(f, 2) ? "" : f.getString(2) };
+			return 0;
+		case CMD_SET_ASSOCIATED_DOCUMENT:
+			if (openDocument != null)
+				return FST_INVALID_COMMAND;
+			if (isEmpty(f, 2))
+				return FST_INVALID_DATA_FIELD;
+			associatedDocument = f.getString(2);
+			return 0;
+		case CMD_OPEN_DOCUMENT:
+			if (openDocument != null)
+				return FST_INVALID_COMMAND;
+			return openDocument(f.getString(1), rsp);
+		case CMD_PRINT_FISCAL_TEXT:
+			if (!fiscalOpen || payments > 0)
+				return FST_INVALID_COMMAND;
+			return isEmpty(f, 1) ? FST_INVALID_DATA_FIELD : 0;
+		case CMD_PRINT_ITEM:
+			// Descripción, cantidad, precio, IVA, operación, modo base/total
+			if (!fiscalOpen || payments > 0)
+				return FST_INVALID_COMMAND;
+			if (!ITEM_ADD.equals(f.getString(5)) && !ITEM_SUBSTRACT.equals(f.getString(5)))
+				return FST_INVALID_DATA_FIELD;
+			items++;
+			addAmount(f.getBigDecimal(2).multiply(f.getBigDecimal(3)), f.getBigDecimal(4),
+					ITEM_SUBSTRACT.equals(f.getString(5)), PRICE_BASE.equals(f.getString(6)));
+			return 0;
+		case CMD_PRINT_ADJUSTMENT:
+			// Descripción, monto, IVA (vacío = prorrateo), operación, modo base/total
+			if (!fiscalOpen || payments > 0 || items == 0)
+				return FST_INVALID_COMMAND;
+			if (!ADJUSTMENT_DISCOUNT.equals(f.getString(4)) && !ADJUSTMENT_RECHARGE.equals(f.getString(4)))
+				return FST_INVALID_DATA_FIELD;
+			BigDecimal rate = isEmpty(f, 3) ? averageRate() : f.getBigDecimal(3);
+			addAmount(f.getBigDecimal(2), rate, ADJUSTMENT_DISCOUNT.equals(f.getString(4)),
+					PRICE_BASE.equals(f.getString(5)));
+			return 0;
+		case CMD_PRINT_OTHER_TAX:
+			if (!fiscalOpen || payments > 0 || items == 0)
+				return FST_INVALID_COMMAND;
+			total = total.add(f.getBigDecimal(2));
+			return 0;
+		case CMD_PRINT_PAYMENT:
+			if (!fiscalOpen || items == 0 || payments >= MAX_PAYMENTS)
+				return FST_INVALID_COMMAND;
+			if (!PAYMENT_TENDER.equals(f.getString(3)) || f.getBigDecimal(2).signum() < 0)
+				return FST_INVALID_DATA_FIELD;
+			payments++;
+			return 0;
+		case CMD_CLOSE_DOCUMENT:
+			if (openDocument == null || (fiscalOpen && items == 0))
+				return FST_INVALID_COMMAND;
+			closeDocument(rsp);
+			return 0;
+		case CMD_CANCEL_DOCUMENT:
+			if (!fiscalOpen)
+				return FST_INVALID_COMMAND;
+			cancelledDocuments++;
+			resetDocument();
+			return 0;
+		case CMD_PRINT_NON_FISCAL_TEXT:
+			if (!DOC_GENERIC.equals(openDocument))
+				return FST_INVALID_COMMAND;
+			return 0;
+		case CMD_DAILY_CLOSE:
+			if (openDocument != null)
+				return FST_INVALID_COMMAND;
+			if (!REPORT_Z.equals(f.getString(1)) && !REPORT_X.equals(f.getString(1)))
+				return FST_INVALID_DATA_FIELD;
+			dailyClose(REPORT_Z.equals(f.getString(1)), rsp);
+			return 0;
+		default:
+			return FST_UNKNOWN_COMMAND;
+		}
+	}
+
+	private int openDocument(String code, FiscalPacket rsp) {
+		if (DOC_GENERIC.equals(code)) {
+			resetDocument();
+			openDocument = code;
+			return 0;
+		}
+		String letter = code.substring(code.length() - 1);
+		String type = code.substring(0, code.length() - 1);
+		if (!"ABC".contains(letter) || !(DOC_TICKET_INVOICE.equals(type)
+				|| DOC_TICKET_DEBIT_NOTE.equals(type) || DOC_TICKET_CREDIT_NOTE.equals(type)))
+			return FST_INVALID_DATA_FIELD;
+		// Los comprobantes A requieren el CUIT del comprador
+		if ("A".equals(letter) && (customer == null || !"TipoCUIT".equals(customer[0])
+				|| !customer[1].matches("\\d{11}")))
+			return FST_INVALID_COMMAND;
+		if (DOC_TICKET_CREDIT_NOTE.equals(type) && associatedDocument == null)
+			return FST_INVALID_COMMAND;
+		resetDocument();
+		openDocument = code;
+		rsp.setString(3, format(lastNumber(code) + 1));
+		return 0;
+	}
+
+	private void closeDocument(FiscalPacket rsp) {
+		if (DOC_GENERIC.equals(openDocument)) {
+			nonFiscalDocuments++;
+		} else {
+			String key = numberKey(openDocument);
+			int number = lastNumber(openDocument) + 1;
+			lastNumbers.put(key, number);
+			fiscalDocuments++;
+			if (openDocument.startsWith(DOC_TICKET_CREDIT_NOTE)) {
+				dailyCredits = dailyCredits.add(total);
+			} else {
+				dailySales = dailySales.add(total);
+				dailyTax = dailyTax.add(tax);
+			}
+			rsp.setString(3, format(number));
+		}
+		resetDocument();
+	}
+
+	private void resetDocument() {
+		openDocument = null;
+		customer = null;
+		associatedDocument = null;
+		items = 0;
+		payments = 0;
+		total = BigDecimal.ZERO;
+		tax = BigDecimal.ZERO;
+	}
+
+	/**
+	 * Acumula un importe en el comprobante.
+	 * @param subtract Si el importe resta.
+	 * @param baseAmount Si el importe no incluye el IVA.
+	 */
+	private void addAmount(BigDecimal amount, BigDecimal rate, boolean subtract, boolean baseAmount) {
+		BigDecimal base;
+		BigDecimal iva;
+		if (baseAmount) {
+			base = amount;
+			iva = amount.multiply(rate).divide(HUNDRED, 2, BigDecimal.ROUND_HALF_UP);
+		} else {
+			base = amount.multiply(HUNDRED).divide(HUNDRED.add(rate), 2, BigDecimal.ROUND_HALF_UP);
+			iva = amount.subtract(base);
+		}
+		if (subtract) {
+			base = base.negate();
+			iva = iva.negate();
+		}
+		total = total.add(base).add(iva);
+		tax = tax.add(iva);
+	}
+
+	/**
+	 * @return Alícuota con la que se prorratea un ajuste general.
+	 */
+	private BigDecimal averageRate() {
+		BigDecimal base = total.subtract(tax);
+		if (base.signum() == 0)
+			return BigDecimal.ZERO;
+		return tax.multiply(HUNDRED).divide(base, 2, BigDecimal.ROUND_HALF_UP);
+	}
+
+	private void dailyClose(boolean z, FiscalPacket rsp) {
+		int number = z ? zNumber + 1 : zNumber;
+		// Nro Z, cancelados, DNFH, DNF, DF, último tique B/C, último tique A,
+		// ventas, IVA, última NC B/C, última NC A, créditos NC
+		String[] data = { String.valueOf(number), String.valueOf(cancelledDocuments), "0",
+				String.valueOf(nonFiscalDocuments), String.valueOf(fiscalDocuments),
+				String.valueOf(lastNumber(DOC_TICKET_INVOICE + "B")), String.valueOf(lastNumber(DOC_TICKET_INVOICE + "A")),
+				money(dailySales), money(dailyTax),
+				String.valueOf(lastNumber(DOC_TICKET_CREDIT_NOTE + "B")), String.valueOf(lastNumber(DOC_TICKET_CREDIT_NOTE + "A")),
+				money(dailyCredits) };
+		for (int i = 0; i < data.length; i++)
+			rsp.setString(3 + i, data[i]);
+		if (z) {
+			zNumber = number;
+			fiscalDocuments = 0;
+			cancelledDocuments = 0;
+			nonFiscalDocuments = 0;
+			dailySales = BigDecimal.ZERO;
+			dailyTax = BigDecimal.ZERO;
+			dailyCredits = BigDecimal.ZERO;
+		}
+	}
+
+	/**
+	 * @return Clave de numeración: los comprobantes B y C comparten numeración.
+	 */
+	private static String numberKey(String code) {
+		return code.endsWith("C") ? code.substring(0, code.length() - 1) + "B" : code;
+	}
+
+	private int lastNumber(String code) {
+		Integer n = lastNumbers.get(numberKey(code));
+		return n == null ? 0 : n;
+	}
+
+	private static boolean isEmpty(FiscalPacket packet, int field) {
+		return field >= packet.getSize() || packet.getLength(field) == 0;
+	}
+
+	private static String money(BigDecimal amount) {
+		return amount.setScale(2, BigDecimal.ROUND_HALF_UP).toPlainString();
+	}
+
+	private static String format(int number) {
+		String s = "0000000" + number;
+		return s.substring(s.length() - 8);
+	}
+
+	/**
+	 * @return La palabra de estado de la impresora.
+	 */
+	public synchronized int getPrinterStatus() {
+		int status = 0;
+		if (paperOut)
+			status |= PST_TICKET_PAPER_OUT;
+		if (coverOpen)
+			status |= PST_PRINTER_COVER_OPEN;
+		return status;
+	}
+
+	/**
+	 * @return La palabra de estado fiscal, sin errores del último comando.
+	 */
+	public synchronized int getFiscalStatus() {
+		int status = FST_DEVICE_CERTIFIED | FST_DEVICE_FISCALIZED;
+		if (openDocument != null)
+			status |= DOC_GENERIC.equals(openDocument) ? FST_DOCUMENT_OPEN : FST_FISCAL_DOCUMENT_OPEN;
+		return status;
+	}
+
+	// Fallas simuladas y consultas
+
+	/**
+	 * Hace que la ocurrencia número <code>occurrence</code> (contando desde 1 y
+	 * desde ahora) del comando responda con FST_INVALID_DATA_FIELD sin ejecutarse.
+	 */
+	public synchronized void injectFailure(int commandCode, int occurrence) {
+		Integer current = occurrences.get(commandCode);
+		failures.put(commandCode, (current == null ? 0 : current) + occurrence);
+	}
+
+	public synchronized void setPaperOut(boolean paperOut) {
+		this.paperOut = paperOut;
+	}
+
+	public synchronized void setCoverOpen(boolean coverOpen) {
+		this.coverOpen = coverOpen;
+	}
+
+	/**
+	 * @return Verdadero si hay un comprobante abierto.
+	 */
+	public synchronized boolean isDocumentOpen() {
+		return openDocument != null;
+	}
+
+	/**
+	 * @return El último número emitido para el tipo de comprobante y letra
+	 * ("TiqueFacturaB", "TiqueNotaCreditoA", ...).
+	 */
+	public synchronized int getLastNumber(String code) {
+		return lastNumber(code);
+	}
+
+	/**
+	 * @return El número del último cierre Z.
+	 */
+	public synchronized int getZNumber() {
+		return zNumber;
+	}
+
+	/**
+	 * @return Cantidad de comandos procesados.
+	 */
+	public synchronized long getCommandCount() {
+		return commandCount;
+	}
+}
@@ -0,0 +1,80 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.journal;
+
+/**
+ * Resultado de la recuperación de un documento que quedó abierto en el
+ * impresor fiscal luego de una caída del sistema.
+ */
+public class DocumentRecovery {
+
+	/** No había un documento pendiente */
+	public static final int NONE = 0;
+	/** El documento pendiente se canceló */
+	public static final int CANCELLED = 1;
+	/** El documento pendiente se cerró */
+	public static final int COMPLETED = 2;
+
+	/** Resultado sin documento pendiente */
+	public static final DocumentRecovery NOTHING = new DocumentRecovery(NONE, -1, null);
+
+	/** Acción realizada */
+	private final int action;
+	/** Código del comando que abrió el documento */
+	private final int openCommand;
+	/** Número del documento cerrado */
+	private final String documentNo;
+
+	public DocumentRecovery(int action, int openCommand, String documentNo) {
+		this.action = action;
+		this.openCommand = openCommand;
+		this.documentNo = documentNo;
+	}
+
+	/**
+	 * @return La acción realizada: {@link #NONE}, {@link #CANCELLED} o
+	 * {@link #COMPLETED}.
+	 */
+	public int getAction() {
+		return action;
+	}
+
+	/**
+	 * @return El código del comando que abrió el documento pendiente, o -1.
+	 */
+	public int getOpenCommand() {
+		return openCommand;
+	}
+
+	/**
+	 * @return El número del documento cerrado por la recuperación, o
+	 * <code>null</code>.
+	 */
+	public String getDocumentNo() {
+		return documentNo;
+	}
+
+	public String toString() {
+		String[] names = { "NONE", "CANCELLED", "COMPLETED" };
+		StringBuffer sb = new StringBuffer(names[action]);
+		if (openCommand >= 0)
+			sb.append(" 0x").append(Integer.toHexString(openCommand).toUpperCase());
+		if (documentNo != null)
+			sb.append(" #").append(documentNo);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,342 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.msg.MsgRepository;
+
+/**
+ * Diario de comandos de un impresor fiscal. Registra, en un archivo de sólo
+ * agregado mapeado en memoria, cada comando enviado (antes de enviarlo) y cada
+ * respuesta recibida, de modo que luego de una caída del sistema se pueda
+ * determinar si quedó un documento abierto en el impresor y en qué etapa.
+ * <br>
+ * Las escrituras sobre el mapeo sobreviven a la caída del proceso; para que
+ * sobrevivan también a la caída del sistema operativo se fuerzan a disco con
+ * {@link #sync()}, que el driver invoca en los límites de cada documento.
+ * <br>
+ * Formato del archivo: encabezado ({@link #MAGIC}, versión) seguido de los
+ * registros. Cada registro es la longitud del cuerpo, el cuerpo (tipo, fecha y
+ * el paquete codificado) y el CRC32 del cuerpo. La longitud se escribe al
+ * final, por lo que un registro a medio escribir se lee como fin del diario.
+ * <br>
+ * Cuando no hay documentos abiertos y el diario supera el tamaño
+ * {@link #getCompactSize()}, {@link #checkpoint()} lo vacía.
+ */
+public class FiscalJournal {
+
+	/** Identificador del formato: "LARJ" */
+	public static final int MAGIC = 0x4C41524A;
+	/** Versión del formato */
+	public static final int VERSION = 1;
+
+	/** Registro de un comando enviado al impresor */
+	public static final byte REQUEST = 1;
+	/** Registro de una respuesta recibida del impresor */
+	public static final byte RESPONSE = 2;
+	/** Marca de documento resuelto por la rutina de recuperación */
+	public static final byte RECOVERED = 3;
+
+	/** Longitud del encabezado del archivo */
+	private static final int HEADER_LENGTH = 8;
+	/** Longitud fija del cuerpo: tipo y fecha */
+	private static final int BODY_HEADER_LENGTH = 1 + 8;
+	/** Tamaño inicial del mapeo */
+	private static final int INITIAL_CAPACITY = 64 * 1024;
+	/** Tamaño a partir del cual el diario se vacía en un checkpoint */
+	private static final int DEFAULT_COMPACT_SIZE = 1024 * 1024;
+
+	/** Diarios abiertos por archivo: un único escritor por archivo en la JVM */
+	private static final Map<File, FiscalJournal> journals = new HashMap<File, FiscalJournal>();
+
+	/** Archivo del diario */
+	private final File file;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	/** Mapeo del archivo; la posición es el próximo registro a escribir */
+	private MappedByteBuffer buffer;
+	/** Buffer donde se arma el cuerpo de cada registro */
+	private ByteBuffer record = ByteBuffer.allocate(512);
+	private final CRC32 crc = new CRC32();
+	/** Tamaño a partir del cual se vacía el diario */
+	private int compactSize = DEFAULT_COMPACT_SIZE;
+	/** Registros leídos al abrir el diario */
+	private int recordCount;
+
+	/**
+	 * Retorna el diario del archivo indicado, abriéndolo (o creándolo) si aún
+	 * no fue abierto en esta JVM.
+	 * @param file Archivo del diario.
+	 * @return El diario.
+	 * @throws IOException si no es posible abrir el archivo o su formato no
+	 * es válido.
+	 */
+	public static FiscalJournal getInstance(File file) throws IOException {
+		File key = file.getCanonicalFile();
+		synchronized (journals) {
+			FiscalJournal journal = journals.get(key);
+			if (journal == null) {
+				journal = new FiscalJournal(key);
+				journals.put(key, journal);
+			}
+			return journal;
+		}
+	}
+
+	private FiscalJournal(File file) throws IOException {
+		this.file = file;
+		if (file.getParentFile() != null)
+			file.getParentFile().mkdirs();
+		raf = new RandomAccessFile(file, "rw");
+		channel = raf.getChannel();
+		try {
+			boolean created = channel.size() == 0;
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_CAPACITY, channel.size()));
+			if (created) {
+				buffer.putInt(0, MAGIC);
+				buffer.putInt(4, VERSION);
+			} else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+				throw new IOException(MsgRepository.get("JournalFormatError") + " " + file);
+			}
+			buffer.position(HEADER_LENGTH);
+			while (nextRecord(buffer) != null)
+				recordCount++;
+			// Se descarta un posible registro incompleto al final.
+			clearNextLength();
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Agrega un registro al diario. El registro no se fuerza a disco.
+	 * @param type Tipo de registro ({@link #REQUEST}, {@link #RESPONSE} o
+	 * {@link #RECOVERED}).
+	 * @param packet Paquete a registrar, puede ser <code>null</code>.
+	 * @throws IOException si no es posible ampliar el archivo.
+	 */
+	public synchronized void append(byte type, FiscalPacket packet) throws IOException {
+		int bodyLength = BODY_HEADER_LENGTH + (packet == null ? 0 : packet.getEncodedLength());
+		if (record.capacity() < bodyLength)
+			record = ByteBuffer.allocate(Math.max(bodyLength, record.capacity() * 2));
+		record.clear();
+		record.put(type);
+		record.putLong(System.currentTimeMillis());
+		if (packet != null)
+			packet.encode(record);
+		bodyLength = record.position();
+		crc.reset();
+		crc.update(record.array(), 0, bodyLength);
+		record.flip();
+
+		ensureCapacity(4 + bodyLength + 4 + 4);
+		int start = buffer.position();
+		buffer.putInt(0);
+		buffer.put(record);
+		buffer.putInt((int) crc.getValue());
+		// El registro queda visible recién cuando se escribe su longitud.
+		clearNextLength();
+		buffer.putInt(start, bodyLength);
+		recordCount++;
+	}
+
+	/**
+	 * Fuerza a disco los registros agregados.
+	 */
+	public synchronized void sync() {
+		buffer.force();
+	}
+
+	/**
+	 * Marca un límite de documento: fuerza los registros a disco y, si el
+	 * diario supera el tamaño de compactación, lo vacía. Sólo debe invocarse
+	 * cuando no hay un documento abierto en el impresor.
+	 */
+	public synchronized void checkpoint() {
+		if (buffer.position() > compactSize) {
+			for (int i = HEADER_LENGTH; i < buffer.position(); i++)
+				buffer.put(i, (byte) 0);
+			buffer.position(HEADER_LENGTH);
+			recordCount = 0;
+		}
+		buffer.force();
+	}
+
+	/**
+	 * Lee los registros del diario, en el orden en que fueron agregados.
+	 * @return Lista con los registros.
+	 */
+	public synchronized List<Record> read() {
+		List<Record> records = new ArrayList<Record>(recordCount);
+		ByteBuffer view = buffer.duplicate();
+		view.limit(buffer.position());
+		view.position(HEADER_LENGTH);
+		Record r;
+		while ((r = nextRecord(view)) != null)
+			records.add(r);
+		return records;
+	}
+
+	/**
+	 * Fuerza los registros a disco y cierra el archivo.
+	 */
+	public void close() throws IOException {
+		synchronized (journals) {
+			journals.remove(file);
+		}
+		synchronized (this) {
+			buffer.force();
+			raf.close();
+		}
+	}
+
+	/**
+	 * @return El archivo del diario.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return Tamaño (bytes) a partir del cual el diario se vacía en un checkpoint.
+	 */
+	public int getCompactSize() {
+		return compactSize;
+	}
+
+	/**
+	 * @param compactSize Tamaño (bytes) a partir del cual el diario se vacía en
+	 * un checkpoint.
+	 */
+	public void setCompactSize(int compactSize) {
+		this.compactSize = compactSize;
+	}
+
+	/**
+	 * Lee el registro ubicado en la posición actual del buffer y avanza la
+	 * posición. Retorna <code>null</code> (sin avanzar) si no hay un registro
+	 * completo y válido.
+	 */
+	private Record nextRecord(ByteBuffer in) {
+		int start = in.position();
+		if (in.limit() - start < 4)
+			return null;
+		int bodyLength = in.getInt(start);
+		if (bodyLength < BODY_HEADER_LENGTH || bodyLength > in.limit() - start - 8)
+			return null;
+		byte[] body = new byte[bodyLength];
+		in.position(start + 4);
+		in.get(body);
+		crc.reset();
+		crc.update(body, 0, bodyLength);
+		if (in.getInt() != (int) crc.getValue()) {
+			in.position(start);
+			return null;
+		}
+		return new Record(body);
+	}
+
+	/**
+	 * Escribe una longitud nula luego del último registro para que los datos
+	 * que pudieran seguir (de un registro incompleto o de antes de vaciar el
+	 * diario) no se lean como registros.
+	 */
+	private void clearNextLength() {
+		if (buffer.limit() - buffer.position() >= 4)
+			buffer.putInt(buffer.position(), 0);
+	}
+
+	/**
+	 * Amplía el mapeo (al doble) si no hay lugar para la cantidad de bytes
+	 * indicada.
+	 */
+	private void ensureCapacity(int length) throws IOException {
+		if (buffer.remaining() >= length)
+			return;
+		int position = buffer.position();
+		long capacity = buffer.capacity();
+		while (capacity - position < length)
+			capacity *= 2;
+		buffer.force();
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		buffer.position(position);
+	}
+
+	/**
+	 * Registro del diario.
+	 */
+	public static class Record {
+
+		private final byte[] body;
+
+		private Record(byte[] body) {
+			this.body = body;
+		}
+
+		/**
+		 * @return Tipo de registro.
+		 */
+		public byte getType() {
+			return body[0];
+		}
+
+		/**
+		 * @return Fecha (mls) en que se agregó el registro.
+		 */
+		public long getTime() {
+			return ByteBuffer.wrap(body, 1, 8).getLong();
+		}
+
+		/**
+		 * @return Verdadero si el registro contiene un paquete.
+		 */
+		public boolean hasPacket() {
+			return body.length > BODY_HEADER_LENGTH;
+		}
+
+		/**
+		 * @return Código del comando del paquete registrado, o -1 si no
+		 * contiene un paquete.
+		 */
+		public int getCommandCode() {
+			return hasPacket() ? body[BODY_HEADER_LENGTH] & 0xFF : -1;
+		}
+
+		/**
+		 * Decodifica el paquete registrado.
+		 * @param packet Paquete donde se decodifican los campos.
+		 * @return El mismo paquete.
+		 */
+		public FiscalPacket decode(FiscalPacket packet) {
+			packet.decode(ByteBuffer.wrap(body, BODY_HEADER_LENGTH, body.length - BODY_HEADER_LENGTH));
+			return packet;
+		}
+	}
+}
@@ -56,6 +56,10 @@ public class DefaultMsgSource implements MsgSource {
 		msgs.put("Location","Domicilio comercial");
 		msgs.put("IdentificationNumber","Número de identificación");
 		msgs.put("ResponseFormatError","La respuesta recibida tiene un formato no válido. Faltan datos del estado fiscal o general del controlador.");
+		msgs.put("ProtocolRetriesExceededError","El impresor fiscal no respondió correctamente luego de reenviar el comando.");
+		msgs.put("ProtocolTimeoutError","Se agotó el tiempo de espera de la respuesta del impresor fiscal.");
+		msgs.put("JournalFormatError","El archivo no es un diario de comandos fiscales válido.");
+		msgs.put("CaptureFormatError","El archivo no es una captura de comandos fiscales válida.");
 		
 		// Mensajes de validaciones de documentos.
 		msgs.put("InvalidCustomerCUIT","El número de CUIT/CUIL del cliente es inválido.");
@@ -75,6 +79,8 @@ public class DefaultMsgSource implements MsgSource {
 		msgs.put("InvalidDocumentTotalAmount","El monto total del documento debe ser distinto de cero.");
 		msgs.put("InvalidCFInvoiceAmount","La factura a Consumidor Final sin identificación del cliente supera el monto máximo permitido.");
 		msgs.put("CompleteCustomerFields","Se deben completar los datos del cliente");
+		msgs.put("DocumentAssemblyFailed","No fue posible obtener las líneas del documento.");
+		msgs.put("EpsonPerceptionNotSupported","Las impresoras fiscales Epson no permiten emitir comprobantes con percepciones.");
 		
 		// Mensajes de estado fiscal de la impresora.
 		msgs.put("FstFiscalMemoryCrcErrorTitle","Error en chequeo de memoria fiscal");
@@ -105,6 +111,12 @@ public class DefaultMsgSource implements MsgSource {
 		msgs.put("FstDocumentOpenDesc","La impresora contiene un documento abierto (fiscal, no fiscal o no fiscal homologado).");
 		msgs.put("FstSTATPRNActiveTitle","STATPRN activado");
 		msgs.put("FstSTATPRNActiveDesc","El comando enviado fue rechazado porque el STATPRN se encuentra activo.");
+		msgs.put("FstBatteryLowTitle","Batería baja");
+		msgs.put("FstBatteryLowDesc","La carga de la batería de la memoria de trabajo es baja. Se debe solicitar el servicio técnico.");
+		msgs.put("FstDailyCloseRequiredTitle","Cierre de jornada requerido");
+		msgs.put("FstDailyCloseRequiredDesc","Es necesario emitir el cierre diario (Z) antes de abrir un nuevo comprobante.");
+		msgs.put("FstNonFiscalDocumentOpenTitle","Documento no fiscal abierto");
+		msgs.put("FstNonFiscalDocumentOpenDesc","La impresora contiene un documento no fiscal abierto.");
 		
 		// Mensajes de estado general de la impresora.
 		msgs.put("PstPrinterBusyTitle","Impresora ocupada");
@@ -125,6 +137,8 @@ public class DefaultMsgSource implements MsgSource {
 		msgs.put("PstPrinterCoverOpenDesc","No es posible continuar hasta que la tapa sea cerrada.");
 		msgs.put("PstMoneyDrawerClosedTitle","Cajón de dinero cerrado o ausente");
 		msgs.put("PstMoneyDrawerClosedDesc","");
+		msgs.put("PstMoneyDrawerOpenTitle","Cajón de dinero abierto");
+		msgs.put("PstMoneyDrawerOpenDesc","");
 	}
 	
 	public String get(String key) {
@@ -17,6 +17,7 @@
 package ar.com.ergio.print.fiscal.msg;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -28,6 +29,8 @@ import java.util.List;
 public class FiscalMessages {
 
 	private List<FiscalMessage> msgs;
+	/** Indica si algún mensaje es un error; solo en colecciones inmodificables */
+	private Boolean errors;
 
 	public static FiscalMessages create(FiscalMessage msg) {
 		FiscalMessages msgs = new FiscalMessages();
@@ -43,6 +46,19 @@ public class FiscalMessages {
 		this.msgs = new ArrayList<FiscalMessage>();
 	}
 
+	/**
+	 * Crea una colección inmodificable, que puede compartirse entre varios
+	 * impresores e hilos. Las operaciones de modificación lanzan
+	 * <code>UnsupportedOperationException</code>.
+	 * @param msgs Mensajes de la colección.
+	 */
+	public static FiscalMessages unmodifiable(List<FiscalMessage> msgs) {
+		FiscalMessages result = new FiscalMessages();
+		result.msgs = Collections.unmodifiableList(new ArrayList<FiscalMessage>(msgs));
+		result.errors = result.findErrors();
+		return result;
+	}
+
 	/**
 	 * @return Returns the fiscalMsgs.
 	 */
@@ -90,6 +106,12 @@ public class FiscalMessages {
 	 * en la lista de mensajes fiscales es un error.
 	 */
 	public boolean hasErrors() {
+		if (errors != null)
+			return errors;
+		return findErrors();
+	}
+
+	private boolean findErrors() {
 		boolean hasError = false;
 		for (Iterator<FiscalMessage> msgs = getMsgs().iterator(); msgs.hasNext() && !hasError;) {
 			FiscalMessage msg = (FiscalMessage) msgs.next();
@@ -0,0 +1,131 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.comm.AbstractFiscalComm;
+import ar.com.ergio.print.fiscal.comm.SpoolerNIOComm;
+import ar.com.ergio.print.fiscal.comm.SpoolerTCPComm;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterStatusError;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+
+/**
+ * Reproduce una captura de tráfico (ver {@link RecordingFiscalComm}) a través
+ * del driver Hasar y de la interfaz de comunicación actuales contra un
+ * {@link ScriptedSpooler}, que responde con los bytes y las demoras
+ * originales. Informa la diferencia de latencia por comando y por documento,
+ * para medir el efecto de un cambio en la capa de comunicación sobre el
+ * tráfico real antes de instalarlo en los locales.
+ * <br>
+ * Los comandos se reproducen uno detrás de otro, sin las pausas entre
+ * comandos de la captura.
+ * <br>
+ * Uso: <code>CaptureReplayer &lt;captura&gt; [TCP|NIO] [clase del driver Hasar]</code>
+ */
+public class CaptureReplayer {
+
+	/** Interfaz de comunicación {@link SpoolerTCPComm} */
+	public static final String COMM_TCP = "TCP";
+	/** Interfaz de comunicación {@link SpoolerNIOComm} */
+	public static final String COMM_NIO = "NIO";
+
+	private final List<CommCapture.Exchange> exchanges;
+	/** Interfaz de comunicación a utilizar */
+	private String commType = COMM_TCP;
+	/** Driver que ejecuta los comandos */
+	private HasarFiscalPrinter printer = new HasarPrinterP320F();
+
+	public CaptureReplayer(List<CommCapture.Exchange> exchanges) {
+		super();
+		this.exchanges = exchanges;
+	}
+
+	/**
+	 * Reproduce la captura.
+	 * @return La comparación de latencias.
+	 * @throws IOException si no es posible conectarse al spooler falso.
+	 */
+	public ReplayReport replay() throws IOException {
+		ScriptedSpooler spooler = new ScriptedSpooler(exchanges);
+		int port = spooler.start();
+		AbstractFiscalComm comm = COMM_NIO.equals(commType) ? new SpoolerNIOComm("127.0.0.1", port)
+				: new SpoolerTCPComm("127.0.0.1", port);
+		printer.setFiscalComm(comm);
+		ReplayReport report = new ReplayReport();
+		try {
+			printer.connect();
+			FiscalPacket request = new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+			for (CommCapture.Exchange exchange : exchanges) {
+				request.decode(exchange.getRequest());
+				boolean failed = false;
+				long start = System.nanoTime();
+				try {
+					printer.executeAsync(request).complete();
+				} catch (FiscalPrinterIOException e) {
+					// Los errores de estado capturados se reproducen igual
+					failed = !exchange.isFailed() && !(e instanceof FiscalPrinterStatusError);
+				}
+				long replayed = (System.nanoTime() - start) / 1000;
+				report.add(exchange.getCommandCode(), exchange.getElapsed(), replayed, failed);
+			}
+		} finally {
+			printer.close();
+			spooler.stop();
+		}
+		report.setMismatches(spooler.getMismatches());
+		return report;
+	}
+
+	public String getCommType() {
+		return commType;
+	}
+
+	/**
+	 * @param commType {@link #COMM_TCP} o {@link #COMM_NIO}.
+	 */
+	public void setCommType(String commType) {
+		this.commType = commType;
+	}
+
+	public HasarFiscalPrinter getPrinter() {
+		return printer;
+	}
+
+	public void setPrinter(HasarFiscalPrinter printer) {
+		this.printer = printer;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: CaptureReplayer <capture file> [TCP|NIO] [Hasar driver class]");
+			System.exit(1);
+		}
+		CaptureReplayer replayer = new CaptureReplayer(CommCapture.read(new File(args[0])));
+		if (args.length > 1)
+			replayer.setCommType(args[1].toUpperCase());
+		if (args.length > 2)
+			replayer.setPrinter((HasarFiscalPrinter) Class.forName(args[2]).newInstance());
+		System.out.print(replayer.replay());
+	}
+}
@@ -0,0 +1,249 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ar.com.ergio.print.fiscal.msg.MsgRepository;
+
+/**
+ * Formato de las capturas de tráfico con el spooler que genera
+ * {@link RecordingFiscalComm} y que reproduce {@link CaptureReplayer}.
+ * <br>
+ * El archivo comienza con {@link #MAGIC} y la versión, seguidos de un
+ * intercambio por cada comando: fecha, bytes enviados, bytes recibidos en
+ * tramos con su demora (microsegundos) desde el envío, duración total del
+ * comando y si terminó con error de comunicación. Un intercambio incompleto
+ * al final del archivo (captura interrumpida) se ignora.
+ */
+public class CommCapture {
+
+	/** Identificador del formato: "LARC" */
+	public static final int MAGIC = 0x4C415243;
+	/** Versión del formato */
+	public static final int VERSION = 1;
+
+	/**
+	 * Crea un archivo de captura y escribe su encabezado.
+	 * @param file Archivo a crear; si existe se reemplaza.
+	 * @return El stream donde escribir los intercambios.
+	 */
+	public static DataOutputStream create(File file) throws IOException {
+		if (file.getParentFile() != null)
+			file.getParentFile().mkdirs();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.flush();
+		return out;
+	}
+
+	/**
+	 * Escribe un intercambio y lo baja al archivo.
+	 */
+	public static void write(DataOutputStream out, Exchange exchange) throws IOException {
+		out.writeLong(exchange.getTime());
+		out.writeInt(exchange.getRequest().length);
+		out.write(exchange.getRequest());
+		out.writeInt(exchange.getChunks().size());
+		for (Chunk chunk : exchange.getChunks()) {
+			out.writeInt(chunk.getOffset());
+			out.writeInt(chunk.getLength());
+			out.write(chunk.getData(), 0, chunk.getLength());
+		}
+		out.writeInt(exchange.getElapsed());
+		out.writeBoolean(exchange.isFailed());
+		out.flush();
+	}
+
+	/**
+	 * Lee los intercambios de un archivo de captura.
+	 * @throws IOException si el archivo no es una captura válida.
+	 */
+	public static List<Exchange> read(File file) throws IOException {
+		List<Exchange> exchanges = new ArrayList<Exchange>();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException(MsgRepository.get("CaptureFormatError") + " " + file);
+			while (true) {
+				Exchange exchange;
+				try {
+					exchange = new Exchange(in.readLong());
+					byte[] request = readBytes(in);
+					exchange.appendRequest(request, 0, request.length);
+					for (int i = in.readInt(); i > 0; i--) {
+						int offset = in.readInt();
+						byte[] data = readBytes(in);
+						exchange.getChunks().add(new Chunk(offset, data, data.length));
+					}
+					exchange.setElapsed(in.readInt());
+					exchange.setFailed(in.readBoolean());
+				} catch (EOFException e) {
+					break;
+				}
+				exchanges.add(exchange);
+			}
+		} finally {
+			in.close();
+		}
+		return exchanges;
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		byte[] data = new byte[in.readInt()];
+		in.readFully(data);
+		return data;
+	}
+
+	/**
+	 * Un comando enviado al spooler y los bytes recibidos hasta que la
+	 * interfaz de comunicación dio por terminada la respuesta.
+	 */
+	public static class Exchange {
+
+		/** Tramos recibidos con una separación menor (microsegundos) se unen */
+		private static final int COALESCE_MICROS = 100;
+
+		/** Fecha (mls) del envío */
+		private final long time;
+		/** Bytes enviados */
+		private byte[] request = new byte[0];
+		/** Bytes recibidos */
+		private final List<Chunk> chunks = new ArrayList<Chunk>();
+		/** Duración (microsegundos) del comando */
+		private int elapsed;
+		/** Si el comando terminó con error de comunicación */
+		private boolean failed;
+
+		public Exchange(long time) {
+			this.time = time;
+		}
+
+		/**
+		 * Agrega bytes a los enviados.
+		 */
+		public void appendRequest(byte[] data, int offset, int length) {
+			byte[] r = new byte[request.length + length];
+			System.arraycopy(request, 0, r, 0, request.length);
+			System.arraycopy(data, offset, r, request.length, length);
+			request = r;
+		}
+
+		/**
+		 * Agrega bytes recibidos a la demora indicada desde el envío. Se unen
+		 * al tramo anterior si llegaron prácticamente juntos.
+		 */
+		public void addReceived(int offset, byte[] data, int from, int length) {
+			Chunk last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+			if (last != null && offset - last.getOffset() < COALESCE_MICROS) {
+				last.append(data, from, length);
+			} else {
+				byte[] copy = new byte[Math.max(16, length)];
+				System.arraycopy(data, from, copy, 0, length);
+				chunks.add(new Chunk(offset, copy, length));
+			}
+		}
+
+		/**
+		 * @return Código del comando enviado, o -1.
+		 */
+		public int getCommandCode() {
+			return request.length > 0 ? request[0] & 0xFF : -1;
+		}
+
+		public long getTime() {
+			return time;
+		}
+
+		public byte[] getRequest() {
+			return request;
+		}
+
+		public List<Chunk> getChunks() {
+			return chunks;
+		}
+
+		public int getElapsed() {
+			return elapsed;
+		}
+
+		public void setElapsed(int elapsed) {
+			this.elapsed = elapsed;
+		}
+
+		public boolean isFailed() {
+			return failed;
+		}
+
+		public void setFailed(boolean failed) {
+			this.failed = failed;
+		}
+	}
+
+	/**
+	 * Bytes recibidos juntos, con su demora (microsegundos) desde el envío.
+	 */
+	public static class Chunk {
+
+		private final int offset;
+		private byte[] data;
+		private int length;
+
+		Chunk(int offset, byte[] data, int length) {
+			this.offset = offset;
+			this.data = data;
+			this.length = length;
+		}
+
+		private void append(byte[] src, int from, int len) {
+			if (data.length < length + len) {
+				byte[] d = new byte[Math.max(length + len, data.length * 2)];
+				System.arraycopy(data, 0, d, 0, length);
+				data = d;
+			}
+			System.arraycopy(src, from, data, length, len);
+			length += len;
+		}
+
+		public int getOffset() {
+			return offset;
+		}
+
+		/**
+		 * @return Buffer de los bytes; sólo los primeros {@link #getLength()}
+		 * son válidos.
+		 */
+		public byte[] getData() {
+			return data;
+		}
+
+		public int getLength() {
+			return length;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.replay;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.comm.AbstractFiscalComm;
+import ar.com.ergio.print.fiscal.comm.CommTraceListener;
+import ar.com.ergio.print.fiscal.comm.FiscalComm;
+import ar.com.ergio.print.fiscal.comm.ResponseTimeProfile;
+
+/**
+ * Interfaz de comunicación que delega en otra y guarda en un archivo de
+ * captura (ver {@link CommCapture}) cada comando ejecutado: los bytes tal
+ * como se enviaron y se recibieron del spooler, con la demora de cada tramo,
+ * y la duración total del comando. Las capturas tomadas en los locales se
+ * reproducen con {@link CaptureReplayer}.
+ * <br>
+ * Si la interfaz delegada no informa los bytes (ver
+ * {@link AbstractFiscalComm#setTraceListener(CommTraceListener)}) se guarda
+ * el comando codificado y la respuesta en el formato del spooler, recibida
+ * de una sola vez al terminar el comando.
+ * <br>
+ * Los comandos se ejecutan de a uno: mientras se captura no se encadenan
+ * comandos (pipelining). Un error al escribir la captura no interrumpe la
+ * impresión; sólo se deja de capturar.
+ */
+public class RecordingFiscalComm extends AbstractFiscalComm implements CommTraceListener {
+
+	private static CLogger log = CLogger.getCLogger(RecordingFiscalComm.class);
+
+	/** Interfaz que ejecuta los comandos */
+	private final FiscalComm delegate;
+	/** Archivo de captura */
+	private final File file;
+	/** Stream de la captura; null si aún no se abrió o si se dejó de capturar */
+	private DataOutputStream out;
+	/** Si se produjo un error escribiendo la captura */
+	private boolean disabled = false;
+	/** Intercambio en curso */
+	private CommCapture.Exchange current;
+	/** Instante (nanosegundos) en que comenzó el intercambio en curso */
+	private long start;
+
+	/**
+	 * @param delegate Interfaz que ejecuta los comandos.
+	 * @param file Archivo de captura; se crea con el primer comando.
+	 */
+	public RecordingFiscalComm(FiscalComm delegate, File file) {
+		super();
+		this.delegate = delegate;
+		this.file = file;
+		if (delegate instanceof AbstractFiscalComm)
+			((AbstractFiscalComm) delegate).setTraceListener(this);
+	}
+
+	public void connect() throws IOException {
+		delegate.connect();
+	}
+
+	public boolean isConnected() {
+		return delegate.isConnected();
+	}
+
+	public boolean isAlive() {
+		return delegate.isAlive();
+	}
+
+	public synchronized void close() throws IOException {
+		delegate.close();
+		if (out != null) {
+			out.close();
+			out = null;
+		}
+	}
+
+	public synchronized void execute(FiscalPacket request, FiscalPacket response) throws IOException {
+		CommCapture.Exchange exchange = new CommCapture.Exchange(System.currentTimeMillis());
+		current = exchange;
+		start = System.nanoTime();
+		boolean failed = true;
+		try {
+			delegate.execute(request, response);
+			failed = false;
+		} finally {
+			current = null;
+			exchange.setElapsed(micros(System.nanoTime() - start));
+			exchange.setFailed(failed);
+			if (exchange.getRequest().length == 0) {
+				byte[] req = request.encodeBytes();
+				exchange.appendRequest(req, 0, req.length);
+			}
+			if (!failed && exchange.getChunks().isEmpty()) {
+				// El spooler no envía el código de comando, el primer FS ni el fin de línea
+				byte[] rsp = response.encodeBytes();
+				if (rsp.length > 3)
+					exchange.addReceived(exchange.getElapsed(), rsp, 2, rsp.length - 3);
+			}
+			record(exchange);
+		}
+	}
+
+	public void bytesSent(byte[] data, int offset, int length) {
+		CommCapture.Exchange exchange = current;
+		if (exchange != null)
+			exchange.appendRequest(data, offset, length);
+	}
+
+	public void bytesReceived(byte[] data, int offset, int length) {
+		// Los bytes que llegan fuera de un comando se descartan, como lo hace la interfaz
+		CommCapture.Exchange exchange = current;
+		if (exchange != null)
+			exchange.addReceived(micros(System.nanoTime() - start), data, offset, length);
+	}
+
+	private void record(CommCapture.Exchange exchange) {
+		if (disabled)
+			return;
+		try {
+			if (out == null)
+				out = CommCapture.create(file);
+			CommCapture.write(out, exchange);
+		} catch (IOException e) {
+			log.log(Level.WARNING, "Error writing fiscal capture " + file + ", capture stopped", e);
+			disabled = true;
+		}
+	}
+
+	private static int micros(long nanos) {
+		return (int) Math.min(Integer.MAX_VALUE, nanos / 1000);
+	}
+
+	/**
+	 * El perfil de tiempos de respuesta es el de la interfaz delegada.
+	 */
+	public ResponseTimeProfile getResponseTimeProfile() {
+		return delegate instanceof AbstractFiscalComm ? ((AbstractFiscalComm) delegate).getResponseTimeProfile() : null;
+	}
+
+	public void setResponseTimeProfile(ResponseTimeProfile responseTimeProfile) {
+		if (delegate instanceof AbstractFiscalComm)
+			((AbstractFiscalComm) delegate).setResponseTimeProfile(responseTimeProfile);
+	}
+
+	/**
+	 * @return La interfaz que ejecuta los comandos.
+	 */
+	public FiscalComm getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * @return El archivo de captura.
+	 */
+	public File getFile() {
+		return file;
+	}
+}
@@ -0,0 +1,193 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ar.com.ergio.print.fiscal.hasar.HasarCommands;
+
+/**
+ * Comparación de las latencias capturadas contra las de una reproducción,
+ * por código de comando y por documento. Un documento va desde el comando
+ * que lo abre hasta el que lo cierra o lo cancela.
+ */
+public class ReplayReport {
+
+	/** Estadísticas por código de comando: cantidad, capturado y reproducido (microsegundos) */
+	private final Map<Integer, long[]> commands = new TreeMap<Integer, long[]>();
+	/** Documentos completos */
+	private final List<DocumentStats> documents = new ArrayList<DocumentStats>();
+	/** Documento en curso */
+	private DocumentStats document;
+	/** Comandos que fallaron en la reproducción */
+	private int failures;
+	/** Comandos que no coincidieron con la captura */
+	private int mismatches;
+
+	/**
+	 * Agrega un comando reproducido.
+	 * @param commandCode Código del comando.
+	 * @param recorded Latencia capturada (microsegundos).
+	 * @param replayed Latencia de la reproducción (microsegundos).
+	 * @param failed Si el comando falló en la reproducción.
+	 */
+	public void add(int commandCode, long recorded, long replayed, boolean failed) {
+		long[] stats = commands.get(commandCode);
+		if (stats == null) {
+			stats = new long[3];
+			commands.put(commandCode, stats);
+		}
+		stats[0]++;
+		stats[1] += recorded;
+		stats[2] += replayed;
+		if (failed)
+			failures++;
+
+		if (isOpenCommand(commandCode))
+			document = new DocumentStats(commandCode);
+		if (document != null) {
+			document.commands++;
+			document.recorded += recorded;
+			document.replayed += replayed;
+			if (isEndCommand(commandCode)) {
+				documents.add(document);
+				document = null;
+			}
+		}
+	}
+
+	private static boolean isOpenCommand(int cmd) {
+		return cmd == HasarCommands.CMD_OPEN_FISCAL_RECEIPT || cmd == HasarCommands.CMD_OPEN_DNFH
+				|| cmd == HasarCommands.CMD_OPEN_NON_FISCAL_RECEIPT || cmd == HasarCommands.CMD_OPEN_NFD_SLIP;
+	}
+
+	private static boolean isEndCommand(int cmd) {
+		return cmd == HasarCommands.CMD_CLOSE_FISCAL_RECEIPT || cmd == HasarCommands.CMD_CLOSE_DNFH
+				|| cmd == HasarCommands.CMD_CLOSE_NON_FISCAL_RECEIPT || cmd == HasarCommands.CMD_CANCEL_DOCUMENT;
+	}
+
+	/**
+	 * @return Estadísticas por código de comando: cantidad, latencia capturada y
+	 * reproducida (suma, microsegundos).
+	 */
+	public Map<Integer, long[]> getCommandStats() {
+		return commands;
+	}
+
+	/**
+	 * @return Los documentos reproducidos completos.
+	 */
+	public List<DocumentStats> getDocuments() {
+		return documents;
+	}
+
+	/**
+	 * @return Total de latencia capturada (microsegundos).
+	 */
+	public long getRecordedTotal() {
+		long total = 0;
+		for (long[] stats : commands.values())
+			total += stats[1];
+		return total;
+	}
+
+	/**
+	 * @return Total de latencia de la reproducción (microsegundos).
+	 */
+	public long getReplayedTotal() {
+		long total = 0;
+		for (long[] stats : commands.values())
+			total += stats[2];
+		return total;
+	}
+
+	public int getFailures() {
+		return failures;
+	}
+
+	public int getMismatches() {
+		return mismatches;
+	}
+
+	public void setMismatches(int mismatches) {
+		this.mismatches = mismatches;
+	}
+
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		sb.append(String.format("%-8s %7s %14s %14s %12s %8s%n", "Command", "Count", "Recorded(ms)", "Replayed(ms)", "Delta(ms)", "Delta%"));
+		for (Map.Entry<Integer, long[]> e : commands.entrySet()) {
+			long[] s = e.getValue();
+			appendRow(sb, String.format("0x%02X", e.getKey()), s[0], s[1] / s[0], s[2] / s[0]);
+		}
+		sb.append(String.format("%n%-8s %7s %14s %14s %12s %8s%n", "Document", "Cmds", "Recorded(ms)", "Replayed(ms)", "Delta(ms)", "Delta%"));
+		long recorded = 0;
+		long replayed = 0;
+		for (int i = 0; i < documents.size(); i++) {
+			DocumentStats d = documents.get(i);
+			appendRow(sb, String.format("%d/0x%02X", i + 1, d.openCommand), d.commands, d.recorded, d.replayed);
+			recorded += d.recorded;
+			replayed += d.replayed;
+		}
+		if (!documents.isEmpty())
+			appendRow(sb, "Average", documents.size(), recorded / documents.size(), replayed / documents.size());
+		sb.append(String.format("%nTotal: recorded %.1f ms, replayed %.1f ms, delta %.1f ms. Failures: %d, mismatches: %d%n",
+				getRecordedTotal() / 1000.0, getReplayedTotal() / 1000.0, (getReplayedTotal() - getRecordedTotal()) / 1000.0,
+				failures, mismatches));
+		return sb.toString();
+	}
+
+	private static void appendRow(StringBuffer sb, String name, long count, long recorded, long replayed) {
+		sb.append(String.format("%-8s %7d %14.1f %14.1f %12.1f %7.1f%%%n", name, count, recorded / 1000.0,
+				replayed / 1000.0, (replayed - recorded) / 1000.0,
+				recorded == 0 ? 0.0 : (replayed - recorded) * 100.0 / recorded));
+	}
+
+	/**
+	 * Latencias de un documento (microsegundos).
+	 */
+	public static class DocumentStats {
+
+		private final int openCommand;
+		private int commands;
+		private long recorded;
+		private long replayed;
+
+		DocumentStats(int openCommand) {
+			this.openCommand = openCommand;
+		}
+
+		public int getOpenCommand() {
+			return openCommand;
+		}
+
+		public int getCommands() {
+			return commands;
+		}
+
+		public long getRecorded() {
+			return recorded;
+		}
+
+		public long getReplayed() {
+			return replayed;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+import org.compiere.util.CLogger;
+
+/**
+ * Spooler falso que responde según una captura. Atiende una conexión por vez
+ * en un puerto TCP local; por cada comando recibido toma el siguiente
+ * intercambio de la captura y envía sus bytes recibidos respetando la demora
+ * original de cada tramo desde la llegada del comando.
+ * <br>
+ * Los comandos que no coinciden con los de la captura se cuentan (ver
+ * {@link #getMismatches()}) y se responden de todos modos, para que la
+ * reproducción no se detenga.
+ */
+public class ScriptedSpooler {
+
+	private static final byte NL = 0x0D;
+
+	private static CLogger log = CLogger.getCLogger(ScriptedSpooler.class);
+
+	private final List<CommCapture.Exchange> script;
+	private ServerSocket serverSocket;
+	private volatile boolean running;
+	/** Próximo intercambio a reproducir */
+	private int next = 0;
+	/** Comandos recibidos que no coinciden con la captura */
+	private int mismatches = 0;
+
+	public ScriptedSpooler(List<CommCapture.Exchange> script) {
+		super();
+		this.script = script;
+	}
+
+	/**
+	 * Abre un puerto local libre y comienza a atender conexiones.
+	 * @return El puerto.
+	 */
+	public synchronized int start() throws IOException {
+		serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+		running = true;
+		Thread t = new Thread("ScriptedSpooler-" + serverSocket.getLocalPort()) {
+			@Override
+			public void run() {
+				acceptLoop();
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Cierra el puerto.
+	 */
+	public synchronized void stop() {
+		running = false;
+		try {
+			if (serverSocket != null)
+				serverSocket.close();
+		} catch (IOException e) {
+			log.log(Level.WARNING, "Error closing scripted spooler", e);
+		}
+	}
+
+	private void acceptLoop() {
+		while (running) {
+			Socket client = null;
+			try {
+				client = serverSocket.accept();
+				client.setTcpNoDelay(true);
+				serve(client);
+			} catch (SocketException e) {
+				// Puerto o conexión cerrados
+			} catch (IOException e) {
+				if (running)
+					log.log(Level.WARNING, "Error serving scripted spooler connection", e);
+			} finally {
+				try {
+					if (client != null)
+						client.close();
+				} catch (IOException e) {
+					// Se ignora
+				}
+			}
+		}
+	}
+
+	private void serve(Socket client) throws IOException {
+		InputStream in = client.getInputStream();
+		OutputStream out = client.getOutputStream();
+		ByteArrayOutputStream command = new ByteArrayOutputStream(128);
+		int b;
+		while ((b = in.read()) != -1) {
+			if (b != NL) {
+				command.write(b);
+				continue;
+			}
+			long received = System.nanoTime();
+			CommCapture.Exchange exchange = nextExchange(command.toByteArray());
+			command.reset();
+			if (exchange != null)
+				play(exchange, received, out);
+		}
+	}
+
+	private synchronized CommCapture.Exchange nextExchange(byte[] command) {
+		if (next >= script.size()) {
+			mismatches++;
+			return null;
+		}
+		CommCapture.Exchange exchange = script.get(next++);
+		byte[] request = exchange.getRequest();
+		int length = request.length;
+		while (length > 0 && request[length - 1] == NL)
+			length--;
+		if (!Arrays.equals(command, Arrays.copyOf(request, length)))
+			mismatches++;
+		return exchange;
+	}
+
+	/**
+	 * Envía los tramos del intercambio a la demora capturada.
+	 */
+	private void play(CommCapture.Exchange exchange, long received, OutputStream out) throws IOException {
+		for (CommCapture.Chunk chunk : exchange.getChunks()) {
+			long deadline = received + chunk.getOffset() * 1000L;
+			long wait;
+			while ((wait = deadline - System.nanoTime()) > 0)
+				LockSupport.parkNanos(wait);
+			out.write(chunk.getData(), 0, chunk.getLength());
+			out.flush();
+		}
+	}
+
+	/**
+	 * @return La cantidad de intercambios reproducidos.
+	 */
+	public synchronized int getPlayed() {
+		return next;
+	}
+
+	/**
+	 * @return La cantidad de comandos recibidos que no coinciden con la
+	 * captura (o que llegaron luego de agotarla).
+	 */
+	public synchronized int getMismatches() {
+		return mismatches;
+	}
+}
@@ -0,0 +1,246 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.print.fiscal.util;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codificación mínima de JSON para los protocolos HTTP de las impresoras
+ * fiscales. El análisis retorna <code>Map</code> (conserva el orden de las
+ * claves), <code>List</code>, <code>String</code>, <code>BigDecimal</code>,
+ * <code>Boolean</code> o <code>null</code>.
+ */
+public final class JsonCodec {
+
+	private JsonCodec() {}
+
+	/**
+	 * Agrega un texto como string JSON, entre comillas y con los caracteres
+	 * de control escapados.
+	 */
+	public static StringBuilder appendString(StringBuilder sb, String value) {
+		if (value == null)
+			return sb.append("null");
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':  sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			case '\n': sb.append("\\n"); break;
+			case '\r': sb.append("\\r"); break;
+			case '\t': sb.append("\\t"); break;
+			default:
+				if (c < 0x20) {
+					sb.append("\\u00");
+					sb.append(Character.forDigit(c >> 4, 16));
+					sb.append(Character.forDigit(c & 0xF, 16));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"');
+	}
+
+	/**
+	 * Agrega un valor: <code>Map</code>, <code>List</code>, <code>Number</code>,
+	 * <code>Boolean</code>, <code>null</code> o su representación como texto.
+	 */
+	public static StringBuilder append(StringBuilder sb, Object value) {
+		if (value instanceof Map<?, ?>) {
+			sb.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (!first)
+					sb.append(',');
+				first = false;
+				appendString(sb, String.valueOf(entry.getKey())).append(':');
+				append(sb, entry.getValue());
+			}
+			return sb.append('}');
+		}
+		if (value instanceof List<?>) {
+			sb.append('[');
+			boolean first = true;
+			for (Object item : (List<?>) value) {
+				if (!first)
+					sb.append(',');
+				first = false;
+				append(sb, item);
+			}
+			return sb.append(']');
+		}
+		if (value instanceof BigDecimal)
+			return sb.append(((BigDecimal) value).toPlainString());
+		if (value instanceof Number || value instanceof Boolean)
+			return sb.append(value);
+		return appendString(sb, value == null ? null : value.toString());
+	}
+
+	/**
+	 * @return El valor JSON contenido en <code>text</code>.
+	 * @throws IllegalArgumentException si el texto no es JSON válido.
+	 */
+	public static Object parse(String text) {
+		Parser parser = new Parser(text);
+		Object value = parser.value();
+		parser.skipSpaces();
+		if (parser.pos != text.length())
+			throw parser.error();
+		return value;
+	}
+
+	private static class Parser {
+
+		private final String text;
+		private int pos;
+
+		Parser(String text) {
+			this.text = text;
+		}
+
+		Object value() {
+			skipSpaces();
+			if (pos >= text.length())
+				throw error();
+			char c = text.charAt(pos);
+			switch (c) {
+			case '{': return object();
+			case '[': return array();
+			case '"': return string();
+			case 't': return literal("true", Boolean.TRUE);
+			case 'f': return literal("false", Boolean.FALSE);
+			case 'n': return literal("null", null);
+			default:  return number();
+			}
+		}
+
+		private Map<String, Object> object() {
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			pos++;
+			skipSpaces();
+			if (consume('}'))
+				return map;
+			do {
+				skipSpaces();
+				if (pos >= text.length() || text.charAt(pos) != '"')
+					throw error();
+				String key = string();
+				skipSpaces();
+				if (!consume(':'))
+					throw error();
+				map.put(key, value());
+				skipSpaces();
+			} while (consume(','));
+			if (!consume('}'))
+				throw error();
+			return map;
+		}
+
+		private List<Object> array() {
+			List<Object> list = new ArrayList<Object>();
+			pos++;
+			skipSpaces();
+			if (consume(']'))
+				return list;
+			do {
+				list.add(value());
+				skipSpaces();
+			} while (consume(','));
+			if (!consume(']'))
+				throw error();
+			return list;
+		}
+
+		private String string() {
+			StringBuilder sb = new StringBuilder();
+			pos++;
+			while (pos < text.length()) {
+				char c = text.charAt(pos++);
+				if (c == '"')
+					return sb.toString();
+				if (c != '\\') {
+					sb.append(c);
+					continue;
+				}
+				if (pos >= text.length())
+					break;
+				c = text.charAt(pos++);
+				switch (c) {
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 't': sb.append('\t'); break;
+				case 'b': sb.append('\b'); break;
+				case 'f': sb.append('\f'); break;
+				case 'u':
+					if (pos + 4 > text.length())
+						throw error();
+					try {
+						sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+					} catch (NumberFormatException e) {
+						throw error();
+					}
+					pos += 4;
+					break;
+				default: sb.append(c);
+				}
+			}
+			throw error();
+		}
+
+		private BigDecimal number() {
+			int start = pos;
+			while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0)
+				pos++;
+			try {
+				return new BigDecimal(text.substring(start, pos));
+			} catch (NumberFormatException e) {
+				pos = start;
+				throw error();
+			}
+		}
+
+		private Object literal(String literal, Object value) {
+			if (!text.startsWith(literal, pos))
+				throw error();
+			pos += literal.length();
+			return value;
+		}
+
+		private boolean consume(char c) {
+			if (pos < text.length() && text.charAt(pos) == c) {
+				pos++;
+				return true;
+			}
+			return false;
+		}
+
+		void skipSpaces() {
+			while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+				pos++;
+		}
+
+		IllegalArgumentException error() {
+			return new IllegalArgumentException("JSON inválido en la posición " + pos);
+		}
+	}
+}
@@ -571,6 +571,9 @@ public class AInfoFiscalPrinter extends CDialog implements ActionListener, Fisca
                 } else if (action == FiscalDocumentListener.AC_EXECUTING_ACTION) {
                     msg = createActionMessage("ExecutingAction");
                     setInfoIcon(i_busy);
+                } else if (action == FiscalDocumentListener.AC_QUEUED) {
+                    msg = createActionMessage("WaitingFiscalPrintQueue");
+                    setInfoIcon(i_busy);
                 }
 
                 setInfoMessage(msg);
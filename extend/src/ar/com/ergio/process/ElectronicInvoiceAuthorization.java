@@ -0,0 +1,87 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.process;
+
+import java.util.List;
+import java.util.logging.Level;
+
+import org.compiere.process.ProcessInfoParameter;
+import org.compiere.process.SvrProcess;
+import org.compiere.util.Msg;
+
+import ar.com.ergio.afip.CAEServiceException;
+import ar.com.ergio.afip.Voucher;
+import ar.com.ergio.model.ElectronicInvoiceAuthorizer;
+
+/**
+ * Requests to AFIP the CAE of the completed electronic invoices of the
+ * client, or of one organization, that were not authorized yet. It needs no
+ * user interaction, so it can be run by the scheduler every few minutes.
+ * The invoices are authorized in batches by {@link ElectronicInvoiceAuthorizer}.
+ */
+public class ElectronicInvoiceAuthorization extends SvrProcess
+{
+    /** Organization of the invoices, or 0 for all */
+    private int p_AD_Org_ID = 0;
+
+    @Override
+    protected void prepare()
+    {
+        ProcessInfoParameter[] para = getParameter();
+        for (int i = 0; i < para.length; i++) {
+            String name = para[i].getParameterName();
+            if (para[i].getParameter() == null)
+                ;
+            else if (name.equals("AD_Org_ID"))
+                p_AD_Org_ID = para[i].getParameterAsInt();
+            else
+                log.log(Level.SEVERE, "Unknown Parameter: " + name);
+        }
+    }
+
+    @Override
+    protected String doIt() throws Exception
+    {
+        log.info(String.format("AD_Org_ID=%d", p_AD_Org_ID));
+
+        int approved = 0;
+        int errors = 0;
+        for (int AD_Org_ID : ElectronicInvoiceAuthorizer.getOrgIDs(getAD_Client_ID(), p_AD_Org_ID)) {
+            final List<Voucher> vouchers;
+            try {
+                final ElectronicInvoiceAuthorizer authorizer = new ElectronicInvoiceAuthorizer(getCtx(),
+                        getAD_Client_ID(), AD_Org_ID,
+                        ElectronicInvoiceAuthorizer.getService(getAD_Client_ID(), AD_Org_ID));
+                vouchers = authorizer.authorizePending();
+            } catch (CAEServiceException e) {
+                log.log(Level.WARNING, "AD_Org_ID=" + AD_Org_ID, e);
+                addLog(AD_Org_ID, null, null, Msg.parseTranslation(getCtx(), e.getLocalizedMessage()));
+                errors++;
+                continue;
+            }
+            for (Voucher v : vouchers) {
+                if (v.isApproved()) {
+                    approved++;
+                } else {
+                    addLog(v.getId(), null, null, Msg.parseTranslation(getCtx(), v.getErrorMsg()));
+                    errors++;
+                }
+            }
+        }
+        return "@Processed@ = " + approved + " - @Errors@ = " + errors;
+    }
+}
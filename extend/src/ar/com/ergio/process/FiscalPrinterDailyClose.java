@@ -0,0 +1,83 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2007 ComPiere, Inc. All Rights Reserved.                *
+ * This program is free software, you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY, without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program, if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ * For the text or an alternative of this public license, you may reach us    *
+ * ComPiere, Inc., 2620 Augustine Dr. #245, Santa Clara, CA 95054, USA        *
+ * or via info@compiere.org or http://www.compiere.org/license.html           *
+ *****************************************************************************/
+package ar.com.ergio.process;
+
+import java.util.List;
+import java.util.logging.Level;
+
+import org.compiere.process.ProcessInfoParameter;
+import org.compiere.process.SvrProcess;
+
+import ar.com.ergio.model.FiscalCloseOrchestrator;
+import ar.com.ergio.model.MFiscalClosing;
+import ar.com.ergio.model.X_LAR_Fiscal_Closing;
+
+/**
+ * Daily close of all the active fiscal printers of the client, or of one
+ * organization, without user interaction, so it can be run by the scheduler
+ * at the end of the day. The printers are closed concurrently by
+ * {@link FiscalCloseOrchestrator} and the counters of each close are saved
+ * in <code>LAR_Fiscal_Closing</code>.
+ *
+ * @see FiscalPrinterClosing
+ */
+public class FiscalPrinterDailyClose extends SvrProcess
+{
+    /** Close type */
+    private String p_CloseType = X_LAR_Fiscal_Closing.CLOSETYPE_CierreZ;
+    /** Organization of the printers, or 0 for all */
+    private int p_AD_Org_ID = 0;
+
+    @Override
+    protected void prepare()
+    {
+        ProcessInfoParameter[] para = getParameter();
+        for (int i = 0; i < para.length; i++) {
+            String name = para[i].getParameterName();
+            if (para[i].getParameter() == null)
+                ;
+            else if (name.equals("CloseType"))
+                p_CloseType = para[i].getParameter().toString();
+            else if (name.equals("AD_Org_ID"))
+                p_AD_Org_ID = para[i].getParameterAsInt();
+            else
+                log.log(Level.SEVERE, "Unknown Parameter: " + name);
+        }
+    }
+
+    @Override
+    protected String doIt() throws Exception
+    {
+        log.info(String.format("CloseType=%s AD_Org_ID=%d", p_CloseType, p_AD_Org_ID));
+
+        final int[] printers = FiscalCloseOrchestrator.getFiscalPrinterIDs(getAD_Client_ID(), p_AD_Org_ID);
+        final FiscalCloseOrchestrator orchestrator = new FiscalCloseOrchestrator(getCtx(), getAD_Client_ID(),
+                p_CloseType);
+        final List<MFiscalClosing> closings = orchestrator.close(printers);
+
+        int closed = 0;
+        for (MFiscalClosing closing : closings) {
+            if (closing.isClosed()) {
+                closed++;
+            } else {
+                addLog(closing.getLAR_Fiscal_Printer_ID(), closing.getDateTrx(), null,
+                        closing.getCloseErrorMsg());
+            }
+        }
+        return "@Processed@ = " + closed + " - @Errors@ = " + (closings.size() - closed);
+    }
+}
@@ -16,11 +16,11 @@
  *****************************************************************************/
 package ar.com.ergio.process;
 
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 import javax.swing.JOptionPane;
 
-import org.compiere.apps.SwingWorker;
 import org.compiere.model.MDocType;
 import org.compiere.model.MInvoice;
 import org.compiere.process.SvrProcess;
@@ -28,6 +28,7 @@ import org.compiere.util.Env;
 import org.compiere.util.Msg;
 
 import ar.com.ergio.model.FiscalDocumentPrint;
+import ar.com.ergio.model.FiscalPrintQueue;
 import ar.com.ergio.print.fiscal.view.AInfoFiscalPrinter;
 import ar.com.ergio.print.fiscal.view.AInfoFiscalPrinter.DialogActionListener;
 import ar.com.ergio.util.LAR_Utils;
@@ -82,41 +83,36 @@ public class InvoiceFiscalPrinting extends SvrProcess
      */
     private boolean printFiscalTicket() {
 
-        final SwingWorker worker = new SwingWorker() {
-            @Override
-            public Object construct()
-            {
-                boolean success = false;
-                {
-                    try {
-                        final MDocType docType = new MDocType(getCtx(), invoice.getC_DocType_ID(), get_TrxName());
-                        int lar_Fiscal_Printer_ID = docType.get_ValueAsInt("LAR_Fiscal_Printer_ID");
-                        log.info("doc type asociated " + docType);
-
-                        final FiscalDocumentPrint fdp = new FiscalDocumentPrint(lar_Fiscal_Printer_ID,
-                                infoFiscalPrinter, infoFiscalPrinter);
-                        log.info("fiscal document print created: " + fdp);
-
-                        infoFiscalPrinter.setFiscalDocumentPrint(fdp);
-                        success = fdp.printDocument(invoice);
-                    } catch (Exception e) {
-                        log.log(Level.SEVERE, "Fiscal printing error", e);
-                        success = false;
-                    }
-                }
-                return Boolean.valueOf(success);
-            }
-            @Override
-            public void finished() {
-                boolean result = (Boolean) getValue();
-                log.info("Finish fiscal printing thread. Printed Ok?: " + result);
-                m_ResultMsg = result ? "@Printed@ OK" : "@Printed@ Fail";
-            }
-        };
-        worker.start();
-        infoFiscalPrinter.setVisible(true); // Thread stops here until fiscal printing finished
-
-        return (Boolean) worker.get();
+        Future<Boolean> printing;
+        try {
+            final MDocType docType = new MDocType(getCtx(), invoice.getC_DocType_ID(), get_TrxName());
+            int lar_Fiscal_Printer_ID = docType.get_ValueAsInt("LAR_Fiscal_Printer_ID");
+            log.info("doc type asociated " + docType);
+
+            final FiscalDocumentPrint fdp = new FiscalDocumentPrint(lar_Fiscal_Printer_ID,
+                    infoFiscalPrinter, infoFiscalPrinter);
+            log.info("fiscal document print created: " + fdp);
+
+            infoFiscalPrinter.setFiscalDocumentPrint(fdp);
+            printing = fdp.printDocumentAsync(invoice, FiscalPrintQueue.LANE_BACK_OFFICE);
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Fiscal printing error", e);
+            m_ResultMsg = "@Printed@ Fail";
+            return false;
+        }
+        // The dialog shows printing progress and lets the user void or reprint
+        infoFiscalPrinter.setVisible(true); // Thread stops here until the dialog is closed
+
+        boolean result;
+        try {
+            result = printing.get();
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Fiscal printing error", e);
+            result = false;
+        }
+        log.info("Finish fiscal printing thread. Printed Ok?: " + result);
+        m_ResultMsg = result ? "@Printed@ OK" : "@Printed@ Fail";
+        return result;
     } // printFiscalTicket
 
     /**
@@ -30,10 +30,30 @@ public interface EpsonCommands {
 	public int CMD_SUBTOTAL = 0x43;
 	
 	//Pagos / Descuentos / Recargos / Cancelar en Tique (hoja 27)
+	public int CMD_TICKET_PAYMENT = 0x44;
 	
 	//Cerrar comprobante fiscal tique (hoja 29)
 	public int CMD_CLOSE_FISCAL_RECEIPT = 0x45;
 	
+	//Abrir tique-factura / nota de debito / nota de credito
+	//El tipo de comprobante, la letra y los datos del comprador viajan en el mismo comando
+	public int CMD_OPEN_INVOICE = 0x60;
+	
+	//Imprimir texto fiscal en tique-factura
+	public int CMD_PRINT_INVOICE_TEXT = 0x61;
+	
+	//Imprimir item de linea en tique-factura (tambien bonificaciones por alicuota)
+	public int CMD_PRINT_INVOICE_ITEM = 0x62;
+	
+	//Subtotal de tique-factura
+	public int CMD_INVOICE_SUBTOTAL = 0x63;
+	
+	//Pagos / Descuentos / Recargos / Cancelar en tique-factura
+	public int CMD_INVOICE_PAYMENT = 0x64;
+	
+	//Cerrar tique-factura; la respuesta informa el numero de comprobante
+	public int CMD_CLOSE_INVOICE = 0x65;
+	
 	//Abrir documento no fiscal (hoja 30)
 	public int CMD_OPEN_NON_FISCAL_RECEIPT = 0x48;
 	
@@ -80,11 +100,5 @@ public interface EpsonCommands {
 	
 	//Obtener fecha y hora (hoja 43)
 	public int CMD_GET_DATE_TIME = 0x59;
-	
-	
-	
-	
-	
-	
 
 }
@@ -1,5 +1,120 @@
 package ar.edu.ifes.print.fiscal.epson;
 
+/** Conjunto de constantes utilizadas para comunicarse con impresoras
+ * fiscales Epson */
 public interface EpsonConstants {
 
+	///////////////////////////////////////////////////////////////////////
+	// ESTADO DE IMPRESORA
+	///////////////////////////////////////////////////////////////////////
+
+	/** Error de impresora. (Bit 2 del estado de impresora) */
+	public int PST_PRINTER_ERROR              = 0x0004;
+	/** Impresora fuera de línea. (Bit 3 del estado de impresora) */
+	public int PST_PRINTER_OFFLINE            = 0x0008;
+	/** Falta papel de la cinta de auditoría. (Bit 4 del estado de impresora) */
+	public int PST_JOURNAL_PAPER_OUT          = 0x0010;
+	/** Falta papel de tiques. (Bit 5 del estado de impresora) */
+	public int PST_TICKET_PAPER_OUT           = 0x0020;
+	/** Buffer de impresión lleno. (Bit 6 del estado de impresora) */
+	public int PST_PRINT_BUFFER_FULL          = 0x0040;
+	/** Buffer de impresión vacío. (Bit 7 del estado de impresora) */
+	public int PST_PRINT_BUFFER_EMPTY         = 0x0080;
+	/** Tapa de impresora abierta. (Bit 8 del estado de impresora) */
+	public int PST_PRINTER_COVER_OPEN         = 0x0100;
+	/** Cajón de dinero abierto. (Bit 14 del estado de impresora) */
+	public int PST_MONEY_DRAWER_OPEN          = 0x4000;
+	/** Suma lógica (OR) de los bits 2 a 5 y 8. (Bit 15 del estado de impresora) */
+	public int PST_BITWISE_OR                 = 0x8000;
+
+	///////////////////////////////////////////////////////////////////////
+	// ESTADO FISCAL
+	///////////////////////////////////////////////////////////////////////
+
+	/** Error en chequeo de memoria fiscal. (Bit 0 de estado fiscal) */
+	public int FST_FISCAL_MEMORY_CRC_ERROR    = 0x0001;
+	/** Error en chequeo de memoria de trabajo. (Bit 1 de estado fiscal) */
+	public int FST_WORKING_MEMORY_CRC_ERROR   = 0x0002;
+	/** Carga de batería baja. (Bit 2 de estado fiscal) */
+	public int FST_BATTERY_LOW                = 0x0004;
+	/** Comando desconocido. (Bit 3 de estado fiscal) */
+	public int FST_UNKNOWN_COMMAND            = 0x0008;
+	/** Datos inválidos en un campo. (Bit 4 de estado fiscal) */
+	public int FST_INVALID_DATA_FIELD         = 0x0010;
+	/** Comando inválido para el estado fiscal actual. (Bit 5 de estado fiscal) */
+	public int FST_INVALID_COMMAND            = 0x0020;
+	/** Desborde de acumulador. El comando no es ejecutado. (Bit 6 de estado fiscal) */
+	public int FST_ACCUMULATOR_OVERFLOW       = 0x0040;
+	/** Memoria fiscal llena, bloqueada o dada de baja. (Bit 7 de estado fiscal) */
+	public int FST_FISCAL_MEMORY_FULL         = 0x0080;
+	/** Memoria fiscal a punto de llenarse. (Bit 8 de estado fiscal) */
+	public int FST_FISCAL_MEMORY_ALMOST_FULL  = 0x0100;
+	/** Terminal fiscal certificada. (Bit 9 de estado fiscal) */
+	public int FST_DEVICE_CERTIFIED           = 0x0200;
+	/** Terminal fiscal fiscalizada. (Bit 10 de estado fiscal) */
+	public int FST_DEVICE_FISCALIZED          = 0x0400;
+	/** Es necesario hacer un cierre de jornada fiscal (Z) antes de abrir
+	 * un nuevo comprobante. (Bit 11 de estado fiscal) */
+	public int FST_DAILY_CLOSE_REQUIRED       = 0x0800;
+	/** Documento fiscal abierto. (Bit 12 de estado fiscal) */
+	public int FST_FISCAL_DOCUMENT_OPEN       = 0x1000;
+	/** Documento no fiscal abierto. (Bit 13 de estado fiscal) */
+	public int FST_NON_FISCAL_DOCUMENT_OPEN   = 0x2000;
+	/** Suma lógica (OR) de los bits 0 a 8. (Bit 15 de estado fiscal) */
+	public int FST_BITWISE_OR                 = 0x8000;
+
+	///////////////////////////////////////////////////////////////////////
+	// VALORES DE CAMPOS
+	///////////////////////////////////////////////////////////////////////
+
+	/** Tipo de comprobante de CMD_OPEN_INVOICE: tique-factura */
+	public String INVOICE                     = "T";
+	/** Tipo de comprobante de CMD_OPEN_INVOICE: nota de débito */
+	public String DEBIT_NOTE                  = "D";
+	/** Tipo de comprobante de CMD_OPEN_INVOICE: nota de crédito */
+	public String CREDIT_NOTE                 = "M";
+
+	/** Calificador de item: suma */
+	public String ITEM_ADD                    = "M";
+	/** Calificador de item: resta (anulación de un item) */
+	public String ITEM_SUBSTRACT              = "m";
+	/** Calificador de item: bonificación */
+	public String ITEM_DISCOUNT               = "R";
+	/** Calificador de item: recargo */
+	public String ITEM_RECHARGE               = "r";
+
+	/** Precio con IVA incluido */
+	public String PRICE_TOTAL                 = "T";
+	/** Precio sin IVA (base imponible) */
+	public String PRICE_BASE                  = "B";
+
+	/** Calificador de CMD_INVOICE_PAYMENT: pago */
+	public String PAYMENT_TENDER              = "T";
+	/** Calificador de CMD_INVOICE_PAYMENT: descuento general */
+	public String PAYMENT_DISCOUNT            = "D";
+	/** Calificador de CMD_INVOICE_PAYMENT: recargo general */
+	public String PAYMENT_RECHARGE            = "R";
+	/** Calificador de CMD_INVOICE_PAYMENT: cancelación del comprobante */
+	public String PAYMENT_CANCEL              = "C";
+
+	/** Cierre diario Z */
+	public String CLOSE_Z                     = "Z";
+	/** Informe diario X */
+	public String CLOSE_X                     = "X";
+
+	/** Decimales implícitos de las cantidades */
+	public int QUANTITY_SCALE                 = 3;
+	/** Decimales implícitos de los importes */
+	public int AMOUNT_SCALE                   = 2;
+	/** Decimales implícitos de las alícuotas de IVA */
+	public int IVA_SCALE                      = 2;
+
+	/** Longitud de la descripción de un item */
+	public int ITEM_DESCRIPTION_LENGTH        = 20;
+	/** Longitud de un texto fiscal o de la descripción de un pago */
+	public int FISCAL_TEXT_LENGTH             = 28;
+	/** Longitud de un texto no fiscal */
+	public int NON_FISCAL_TEXT_LENGTH         = 40;
+	/** Longitud del nombre y del domicilio del comprador */
+	public int CUSTOMER_TEXT_LENGTH           = 40;
 }
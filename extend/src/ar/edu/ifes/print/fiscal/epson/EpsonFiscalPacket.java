@@ -0,0 +1,68 @@
+package ar.edu.ifes.print.fiscal.epson;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+
+/**
+ * Paquete del protocolo de las impresoras fiscales Epson. Los campos se separan
+ * con FS igual que en Hasar (código de comando; en la respuesta, estado de
+ * impresora y estado fiscal en hexadecimal y luego los datos), pero:
+ * <ul>
+ * <li> No se agrega NL al final: el protocolo no pasa por un spooler y el fin
+ * del comando lo determina la trama (ETX + BCC).
+ * <li> Cantidades, importes y alícuotas viajan sin punto decimal, con una
+ * cantidad fija de decimales implícitos (ver <code>EpsonConstants</code>).
+ * </ul>
+ */
+public class EpsonFiscalPacket extends HasarFiscalPacket {
+
+	private static final long serialVersionUID = -2395165870381427342L;
+
+	private static final byte FS = 0x1C;
+
+	public EpsonFiscalPacket(String encoding, int baseRolloverYear, FiscalPrinterDevice fiscalPrinter) {
+		super(encoding, baseRolloverYear, fiscalPrinter);
+	}
+
+	/**
+	 * Asigna un número con <code>scale</code> decimales implícitos. Se
+	 * redondea a esa cantidad de decimales y se envía su valor absoluto; el
+	 * signo lo indica el calificador de cada comando.
+	 */
+	public void setImpliedDecimal(int field, BigDecimal value, int scale) {
+		setString(field, toImpliedDecimal(value, scale));
+	}
+
+	/**
+	 * @return El número del campo, que tiene <code>scale</code> decimales
+	 * implícitos.
+	 */
+	public BigDecimal getImpliedDecimal(int field, int scale) {
+		return new BigDecimal(new BigInteger(getString(field).trim()), scale);
+	}
+
+	/**
+	 * @return El valor absoluto de <code>value</code> con <code>scale</code>
+	 * decimales implícitos.
+	 */
+	public static String toImpliedDecimal(BigDecimal value, int scale) {
+		return value.abs().setScale(scale, BigDecimal.ROUND_HALF_UP).unscaledValue().toString();
+	}
+
+	public int getEncodedLength() {
+		return super.getEncodedLength() - 1;
+	}
+
+	public void encode(ByteBuffer dst) {
+		byte[] data = getData();
+		for (int i = 0, s = getSize(); i < s; i++) {
+			if (i > 0)
+				dst.put(FS);
+			dst.put(data, getOffset(i), getLength(i));
+		}
+	}
+}
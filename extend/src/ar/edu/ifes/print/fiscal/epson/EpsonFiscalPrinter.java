@@ -0,0 +1,674 @@
+package ar.edu.ifes.print.fiscal.epson;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ar.com.ergio.print.fiscal.BasicFiscalPrinter;
+import ar.com.ergio.print.fiscal.FiscalCloseReport;
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.FiscalPrinterHealth;
+import ar.com.ergio.print.fiscal.comm.FiscalComm;
+import ar.com.ergio.print.fiscal.document.CreditNote;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DebitNote;
+import ar.com.ergio.print.fiscal.document.DiscountLine;
+import ar.com.ergio.print.fiscal.document.Document;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.NonFiscalDocument;
+import ar.com.ergio.print.fiscal.document.Payment;
+import ar.com.ergio.print.fiscal.exception.DocumentException;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterStatusError;
+import ar.com.ergio.print.fiscal.hasar.HasarStatusDecoder;
+import ar.com.ergio.print.fiscal.journal.DocumentRecovery;
+import ar.com.ergio.print.fiscal.msg.FiscalMessage;
+import ar.com.ergio.print.fiscal.msg.MsgRepository;
+
+/**
+ * Impresora Fiscal Epson (línea TM). Implementa la interfaz
+ * <code>EpsonCommands</code>.
+ * <br>
+ * Facturas, notas de débito y notas de crédito se emiten como tique-factura
+ * (comandos 0x60 a 0x65): el comando de apertura lleva el tipo de comprobante,
+ * la letra y los datos del comprador, y el de cierre informa el número emitido.
+ * Los documentos no fiscales usan los comandos 0x48 a 0x4A.
+ * <br>
+ * Los comandos viajan en tramas con secuencia y BCC (la misma trama que el
+ * protocolo nativo Hasar, ver <code>HasarProtocolComm</code>), por lo que el fin
+ * de cada respuesta lo determina ETX + BCC y no un timeout. Cantidades, importes
+ * y alícuotas se envían sin punto decimal (ver <code>EpsonFiscalPacket</code>).
+ * <br>
+ * Las líneas de un documento que se obtienen durante la impresión se completan
+ * antes de abrir el comprobante. Las percepciones no se soportan.
+ */
+public class EpsonFiscalPrinter extends BasicFiscalPrinter implements EpsonCommands, EpsonConstants {
+
+	// Responsabilidades frente al IVA
+	/** Responsable inscripto */
+	protected static final String RESPONSABLE_INSCRIPTO = "I";
+	/** Responsable no inscripto */
+	protected static final String RESPONSABLE_NO_INSCRIPTO = "N";
+	/** Exento */
+	protected static final String EXENTO = "E";
+	/** No responsable */
+	protected static final String NO_RESPONSABLE = "A";
+	/** Consumidor final */
+	protected static final String CONSUMIDOR_FINAL = "C";
+	/** Responsable no inscripto, venta de bienes de uso */
+	protected static final String RESPONSABLE_NO_INSCRIPTO_BIENES_DE_USO = "B";
+	/** Responsable monotributo */
+	protected static final String RESPONSABLE_MONOTRIBUTO = "M";
+	/** Monotributista social y pequeño contribuyente eventual */
+	protected static final String MONOTRIBUTISTA_SOCIAL = "S";
+	/** No categorizado */
+	protected static final String NO_CATEGORIZADO = "T";
+
+	// Tipos de identificación
+	protected static final String CUIT = "C";
+	protected static final String CUIL = "L";
+	protected static final String LIBRETA_DE_ENROLAMIENTO = "0";
+	protected static final String LIBRETA_CIVICA = "1";
+	protected static final String DNI = "2";
+	protected static final String PASAPORTE = "3";
+	protected static final String CEDULA = "4";
+	protected static final String SIN_CALIFICADOR = " ";
+
+	/** Cantidad máxima de pagos de un comprobante */
+	private static final int ALLOWED_PAYMENTS = 4;
+
+	/** Codificación de caracteres para los comandos */
+	private String encoding = "ISO8859_1";	// ISO 8859-1, Latin alphabet No. 1.
+	/** Año base para las fechas de los comandos */
+	private int baseRolloverYear = 1997;
+	/** Último estado de impresora informado */
+	private int printerStatus;
+	/** Último estado fiscal informado */
+	private int fiscalStatus;
+	/** Decodificador de estados, compartido por todas las impresoras Epson */
+	private static HasarStatusDecoder statusDecoder;
+	/** Último estado decodificado */
+	private HasarStatusDecoder.Status decodedStatus;
+	/** Tipo y letra del tique-factura abierto, o null */
+	private String[] openInvoice;
+
+	private static final int[] printerStatusCodes = { PST_PRINTER_ERROR, PST_PRINTER_OFFLINE,
+		PST_JOURNAL_PAPER_OUT, PST_TICKET_PAPER_OUT, PST_PRINT_BUFFER_FULL, PST_PRINT_BUFFER_EMPTY,
+		PST_PRINTER_COVER_OPEN, PST_MONEY_DRAWER_OPEN };
+
+	private static final int[] fiscalStatusCodes = { FST_FISCAL_MEMORY_CRC_ERROR, FST_WORKING_MEMORY_CRC_ERROR,
+		FST_BATTERY_LOW, FST_UNKNOWN_COMMAND, FST_INVALID_DATA_FIELD, FST_INVALID_COMMAND,
+		FST_ACCUMULATOR_OVERFLOW, FST_FISCAL_MEMORY_FULL, FST_FISCAL_MEMORY_ALMOST_FULL,
+		FST_DEVICE_CERTIFIED, FST_DEVICE_FISCALIZED, FST_DAILY_CLOSE_REQUIRED,
+		FST_FISCAL_DOCUMENT_OPEN, FST_NON_FISCAL_DOCUMENT_OPEN };
+
+	/** Mapeo de las responsabilidades frente al IVA */
+	private Map<Integer, String> ivaResponsabilities;
+	/** Mapeo de los tipos de identificación */
+	private Map<Integer, String> identificationTypes;
+
+	public EpsonFiscalPrinter() {
+		super();
+	}
+
+	public EpsonFiscalPrinter(FiscalComm fiscalComm) {
+		super(fiscalComm);
+	}
+
+	public FiscalPacket cmdStatusRequest() {
+		return createFiscalPacket(CMD_STATUS_REQUEST);
+	}
+
+	public FiscalPacket cmdOpenInvoice(String docType, String letter, String name, String ivaResponsibility,
+			String identificationType, String identificationNumber, String location, String reference) {
+		FiscalPacket cmd = createFiscalPacket(CMD_OPEN_INVOICE);
+		int i = 1;
+		cmd.setText(i++, docType, false);
+		cmd.setText(i++, letter, false);
+		cmd.setNumber(i++, 1, false); // Copias
+		cmd.setText(i++, name, CUSTOMER_TEXT_LENGTH, true);
+		cmd.setText(i++, ivaResponsibility, false);
+		cmd.setText(i++, identificationType, false);
+		cmd.setText(i++, identificationNumber, true);
+		cmd.setText(i++, location, CUSTOMER_TEXT_LENGTH, true);
+		cmd.setText(i++, reference, CUSTOMER_TEXT_LENGTH, true);
+		return cmd;
+	}
+
+	public FiscalPacket cmdPrintInvoiceText(String text) {
+		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_INVOICE_TEXT);
+		cmd.setText(1, text, FISCAL_TEXT_LENGTH, false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdPrintInvoiceItem(String description, BigDecimal quantity, BigDecimal price,
+			BigDecimal ivaPercent, String qualifier, boolean basePrice) {
+		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_INVOICE_ITEM);
+		int i = 1;
+		cmd.setText(i++, description, ITEM_DESCRIPTION_LENGTH, false);
+		cmd.setQuantity(i++, quantity, false);
+		cmd.setAmount(i++, price, false);
+		cmd.setText(i++, EpsonFiscalPacket.toImpliedDecimal(ivaPercent == null ? BigDecimal.ZERO : ivaPercent, IVA_SCALE), false);
+		cmd.setText(i++, qualifier, false);
+		cmd.setNumber(i++, 0, false); // Bultos
+		cmd.setAmount(i++, BigDecimal.ZERO, false); // Impuestos internos
+		cmd.setBoolean(i++, basePrice, PRICE_BASE, PRICE_TOTAL);
+		return cmd;
+	}
+
+	public FiscalPacket cmdInvoiceSubtotal(boolean print) {
+		FiscalPacket cmd = createFiscalPacket(CMD_INVOICE_SUBTOTAL);
+		cmd.setBoolean(1, print, "P", "N");
+		return cmd;
+	}
+
+	public FiscalPacket cmdInvoicePayment(String description, BigDecimal amount, String qualifier) {
+		FiscalPacket cmd = createFiscalPacket(CMD_INVOICE_PAYMENT);
+		cmd.setText(1, description, FISCAL_TEXT_LENGTH, false);
+		cmd.setAmount(2, amount, false);
+		cmd.setText(3, qualifier, false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdCloseInvoice(String docType, String letter) {
+		FiscalPacket cmd = createFiscalPacket(CMD_CLOSE_INVOICE);
+		cmd.setText(1, docType, false);
+		cmd.setText(2, letter, false);
+		cmd.setText(3, "FINAL", false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdOpenNonFiscalReceipt() {
+		return createFiscalPacket(CMD_OPEN_NON_FISCAL_RECEIPT);
+	}
+
+	public FiscalPacket cmdPrintNonFiscalText(String text) {
+		FiscalPacket cmd = createFiscalPacket(CMD_PRINT_NON_FISCAL_TEXT);
+		cmd.setText(1, text, NON_FISCAL_TEXT_LENGTH, false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdCloseNonFiscalReceipt() {
+		FiscalPacket cmd = createFiscalPacket(CMD_CLOSE_NON_FISCAL_RECEIPT);
+		cmd.setText(1, "T", false);
+		return cmd;
+	}
+
+	public FiscalPacket cmdDailyClose(String closeType) {
+		FiscalPacket cmd = createFiscalPacket(CMD_DAILY_CLOSE);
+		cmd.setText(1, closeType, false);
+		cmd.setText(2, "P", false); // Imprime el informe
+		return cmd;
+	}
+
+	@Override
+	protected FiscalPacket createFiscalPacket() {
+		return new EpsonFiscalPacket(getEncoding(), getBaseRolloverYear(), this);
+	}
+
+	public String formatAmount(BigDecimal amount) {
+		return EpsonFiscalPacket.toImpliedDecimal(amount, AMOUNT_SCALE);
+	}
+
+	public String formatQuantity(BigDecimal quantity) {
+		return EpsonFiscalPacket.toImpliedDecimal(quantity, QUANTITY_SCALE);
+	}
+
+	public String formatPerceptionAmount(BigDecimal amount) {
+		return formatAmount(amount);
+	}
+
+	public int getAllowedPaymentQty() {
+		return ALLOWED_PAYMENTS;
+	}
+
+	public String getEncoding() {
+		return encoding;
+	}
+
+	public void setEncoding(String encoding) {
+		this.encoding = encoding;
+	}
+
+	public int getBaseRolloverYear() {
+		return baseRolloverYear;
+	}
+
+	public void setBaseRolloverYear(int baseRolloverYear) {
+		this.baseRolloverYear = baseRolloverYear;
+	}
+
+	/**
+	 * Ejecuta un comando fiscal en la impresora y analiza la existencia
+	 * de errores en la respuesta. En caso de que se produzca algún error
+	 * se propagan mediante excepciones.
+	 * @param command Comando a ejecutar.
+	 * @return La respuesta de la impresora.
+	 * @throws FiscalPrinterIOException cuando se produce algún error de
+	 * comunicación con el dispositivo.
+	 * @throws FiscalPrinterStatusError cuando la impresora responde con un
+	 * código de estado de error.
+	 */
+	protected FiscalPacket execute(FiscalPacket command) throws FiscalPrinterIOException, FiscalPrinterStatusError {
+		FiscalPacket response = createFiscalPacket();
+		setLastRequest(command);
+		setLastResponse(null);
+		try {
+			getFiscalComm().execute(command, response);
+		} catch (IOException e) {
+			throw new FiscalPrinterIOException(e.getMessage(), command, response);
+		}
+		setLastResponse(response);
+
+		// Se chequea el status devuelto por la impresora.
+		if (checkStatus(command, response))
+			fireStatusChanged(command, response);
+
+		// Si la impresora quedó en estado de error entonces se lanza una
+		// excepción.
+		if (getMessages().hasErrors())
+			throw new FiscalPrinterStatusError(command, response, getMessages());
+
+		fireCommandExecuted(command, response);
+		return response;
+	}
+
+	/**
+	 * Actualiza los estados de la impresora y los mensajes a partir de la
+	 * respuesta de un comando.
+	 * @return Verdadero si cambió alguno de los estados.
+	 * @throws FiscalPrinterIOException si la respuesta no corresponde al
+	 * comando o no contiene los estados.
+	 */
+	protected boolean checkStatus(FiscalPacket command, FiscalPacket response) throws FiscalPrinterIOException {
+		int newPrinterStatus;
+		int newFiscalStatus;
+		try {
+			if (response.getCommandCode() != command.getCommandCode())
+				throw new IllegalStateException();
+			newPrinterStatus = response.getPrinterStatus();
+			newFiscalStatus = response.getFiscalStatus();
+		} catch (Exception e) {
+			throw new FiscalPrinterIOException(MsgRepository.get("ResponseFormatError"), command, response);
+		}
+
+		boolean stsChanged = printerStatus != newPrinterStatus || fiscalStatus != newFiscalStatus;
+		if (!stsChanged && decodedStatus != null)
+			return false;
+
+		printerStatus = newPrinterStatus;
+		fiscalStatus = newFiscalStatus;
+		decodedStatus = getStatusDecoder().decode(newPrinterStatus, newFiscalStatus);
+		setWithoutPaper(decodedStatus.isWithoutPaper());
+		setMessages(decodedStatus.getMessages());
+		return stsChanged;
+	}
+
+	/**
+	 * @return El decodificador de estados de las impresoras Epson.
+	 */
+	protected HasarStatusDecoder getStatusDecoder() {
+		synchronized (EpsonFiscalPrinter.class) {
+			if (statusDecoder == null)
+				statusDecoder = new HasarStatusDecoder(printerStatusCodes, getPrinterStatusMsgs(),
+						fiscalStatusCodes, getFiscalStatusMsgs());
+			return statusDecoder;
+		}
+	}
+
+	/**
+	 * @return Returns the printerStatus.
+	 */
+	public int getPrinterStatus() {
+		return printerStatus;
+	}
+
+	/**
+	 * @return Returns the fiscalStatus.
+	 */
+	public int getFiscalStatus() {
+		return fiscalStatus;
+	}
+
+	private static Map<Integer, FiscalMessage> getPrinterStatusMsgs() {
+		Map<Integer, FiscalMessage> st = new HashMap<Integer, FiscalMessage>();
+		st.put(PST_PRINTER_ERROR,       MsgRepository.getFiscalMsg(PST_PRINTER_ERROR, "PstPrinterErrorTitle", "PstPrinterErrorDesc", true));
+		st.put(PST_PRINTER_OFFLINE,     MsgRepository.getFiscalMsg(PST_PRINTER_OFFLINE, "PstPrinterOfflineTitle", "PstPrinterOfflineDesc", true));
+		st.put(PST_JOURNAL_PAPER_OUT,   MsgRepository.getFiscalMsg(PST_JOURNAL_PAPER_OUT, "PstJournalPaperOutTitle", "PstJournalPaperOutDesc", true));
+		st.put(PST_TICKET_PAPER_OUT,    MsgRepository.getFiscalMsg(PST_TICKET_PAPER_OUT, "PstTicketPaperOutTitle", "PstTicketPaperOutDesc", true));
+		st.put(PST_PRINT_BUFFER_FULL,   MsgRepository.getFiscalMsg(PST_PRINT_BUFFER_FULL, "PstPrintBufferFullTitle", "PstPrintBufferFullDesc", false));
+		st.put(PST_PRINT_BUFFER_EMPTY,  MsgRepository.getFiscalMsg(PST_PRINT_BUFFER_EMPTY, "PstPrintBufferEmptyTitle", "PstPrintBufferEmptyDesc", false));
+		st.put(PST_PRINTER_COVER_OPEN,  MsgRepository.getFiscalMsg(PST_PRINTER_COVER_OPEN, "PstPrinterCoverOpenTitle", "PstPrinterCoverOpenDesc", true));
+		st.put(PST_MONEY_DRAWER_OPEN,   MsgRepository.getFiscalMsg(PST_MONEY_DRAWER_OPEN, "PstMoneyDrawerOpenTitle", "PstMoneyDrawerOpenDesc", false));
+		return st;
+	}
+
+	private static Map<Integer, FiscalMessage> getFiscalStatusMsgs() {
+		Map<Integer, FiscalMessage> st = new HashMap<Integer, FiscalMessage>();
+		st.put(FST_FISCAL_MEMORY_CRC_ERROR,   MsgRepository.getFiscalMsg(FST_FISCAL_MEMORY_CRC_ERROR, "FstFiscalMemoryCrcErrorTitle", "FstFiscalMemoryCrcErrorDesc", true));
+		st.put(FST_WORKING_MEMORY_CRC_ERROR,  MsgRepository.getFiscalMsg(FST_WORKING_MEMORY_CRC_ERROR, "FstWorkingMemoryCrcErrorTitle", "FstWorkingMemoryCrcErrorDesc", true));
+		st.put(FST_BATTERY_LOW,               MsgRepository.getFiscalMsg(FST_BATTERY_LOW, "FstBatteryLowTitle", "FstBatteryLowDesc", false));
+		st.put(FST_UNKNOWN_COMMAND,           MsgRepository.getFiscalMsg(FST_UNKNOWN_COMMAND, "FstUnknownCommandTitle", "FstUnknownCommandDesc", true));
+		st.put(FST_INVALID_DATA_FIELD,        MsgRepository.getFiscalMsg(FST_INVALID_DATA_FIELD, "FstInvalidDataFieldTitle", "FstInvalidDataFieldDesc", true));
+		st.put(FST_INVALID_COMMAND,           MsgRepository.getFiscalMsg(FST_INVALID_COMMAND, "FstInvalidCommandTitle", "FstInvalidCommandDesc", true));
+		st.put(FST_ACCUMULATOR_OVERFLOW,      MsgRepository.getFiscalMsg(FST_ACCUMULATOR_OVERFLOW, "FstAccumulatorOverflowTitle", "FstAccumulatorOverflowDesc", true));
+		st.put(FST_FISCAL_MEMORY_FULL,        MsgRepository.getFiscalMsg(FST_FISCAL_MEMORY_FULL, "FstFiscalMemoryFullTitle", "FstFiscalMemoryFullDesc", true));
+		st.put(FST_FISCAL_MEMORY_ALMOST_FULL, MsgRepository.getFiscalMsg(FST_FISCAL_MEMORY_ALMOST_FULL, "FstFiscalMemoryAlmostFullTitle", "FstFiscalMemoryAlmostFullDesc", false));
+		st.put(FST_DEVICE_CERTIFIED,          MsgRepository.getFiscalMsg(FST_DEVICE_CERTIFIED, "FstDeviceCertifiedTitle", "FstDeviceCertifiedDesc", false));
+		st.put(FST_DEVICE_FISCALIZED,         MsgRepository.getFiscalMsg(FST_DEVICE_FISCALIZED, "FstDeviceFiscalizedTitle", "FstDeviceFiscalizedDesc", false));
+		st.put(FST_DAILY_CLOSE_REQUIRED,      MsgRepository.getFiscalMsg(FST_DAILY_CLOSE_REQUIRED, "FstDailyCloseRequiredTitle", "FstDailyCloseRequiredDesc", false));
+		st.put(FST_FISCAL_DOCUMENT_OPEN,      MsgRepository.getFiscalMsg(FST_FISCAL_DOCUMENT_OPEN, "FstFiscalDocumentOpenTitle", "FstFiscalDocumentOpenDesc", false));
+		st.put(FST_NON_FISCAL_DOCUMENT_OPEN,  MsgRepository.getFiscalMsg(FST_NON_FISCAL_DOCUMENT_OPEN, "FstNonFiscalDocumentOpenTitle", "FstNonFiscalDocumentOpenDesc", false));
+		return st;
+	}
+
+	public void printDocument(Invoice invoice) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		invoice.validate();
+		String docNo = printFiscalDocument(invoice, INVOICE,
+				invoice.hasPackingSlipNumber() ? invoice.getPackingSlipNumber() : null, invoice.getPayments());
+		invoice.setDocumentNo(docNo);
+		firePrintEnded();
+	}
+
+	public void printDocument(DebitNote debitNote) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		debitNote.validate();
+		String docNo = printFiscalDocument(debitNote, DEBIT_NOTE,
+				debitNote.hasPackingSlipNumber() ? debitNote.getPackingSlipNumber() : null, debitNote.getPayments());
+		debitNote.setDocumentNo(docNo);
+		firePrintEnded();
+	}
+
+	public void printDocument(CreditNote creditNote) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		creditNote.validate();
+		String docNo = printFiscalDocument(creditNote, CREDIT_NOTE,
+				creditNote.getOriginalDocumentNo(), Collections.<Payment>emptyList());
+		creditNote.setDocumentNo(docNo);
+		firePrintEnded();
+	}
+
+	/**
+	 * Emite un tique-factura: apertura con los datos del comprador, textos
+	 * fiscales, ítems, bonificaciones, descuento general, pagos y cierre.
+	 * @param reference Remito (facturas y notas de débito) o comprobante
+	 * original (notas de crédito).
+	 * @return El número del comprobante emitido.
+	 */
+	private String printFiscalDocument(Document document, String docType, String reference, List<Payment> payments)
+			throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		document.completeLines();
+		if (document.getPerceptionLine() != null)
+			throw new DocumentException(MsgRepository.get("EpsonPerceptionNotSupported"), document);
+		String letter = document.getLetter();
+		try {
+			setCancelAllowed(false);
+			//////////////////////////////////////////////////////////////
+			// Se abre el comprobante con los datos del comprador.
+			// Comando: @OpenInvoice
+			Customer customer = document.getCustomer();
+			String identificationType = traduceIdentificationType(customer.getIdentificationType());
+			execute(cmdOpenInvoice(docType, letter, customer.getName(),
+					traduceIvaResponsibility(customer.getIvaResponsibility()), identificationType,
+					formatDocNumber(identificationType, customer.getIdentificationNumber()),
+					customer.getLocation(), reference));
+			setLastDocumentNo("");
+			openInvoice = new String[] { docType, letter };
+			setCancelAllowed(true);
+			setDocumentOpened(true);
+
+			//////////////////////////////////////////////////////////////
+			// Se cargan las observaciones como texto fiscal.
+			// Comando: @PrintInvoiceText
+			for (String observation : document.getObservations())
+				execute(cmdPrintInvoiceText(observation));
+
+			//////////////////////////////////////////////////////////////
+			// Se cargan los ítems y sus bonificaciones.
+			// Comando: @PrintInvoiceItem
+			for (DocumentLine item : document.getLines()) {
+				execute(cmdPrintInvoiceItem(item.getDescription(), item.getQuantity(), item.getAbsUnitPrice(),
+						item.getIvaRate(), item.isSubstract() ? ITEM_SUBSTRACT : ITEM_ADD, !item.isPriceIncludeIva()));
+				if (item.hasDiscount())
+					execute(cmdAdjustment(item.getDiscount(), item.getIvaRate()));
+			}
+			for (DiscountLine discount : document.getDocumentDiscounts())
+				execute(cmdAdjustment(discount, discount.getTaxRate()));
+
+			//////////////////////////////////////////////////////////////
+			// Se aplica el descuento general en caso de existir.
+			// Comando: @InvoicePayment
+			if (document.hasGeneralDiscount()) {
+				DiscountLine generalDiscount = document.getGeneralDiscount();
+				execute(cmdInvoicePayment(generalDiscount.getDescription(), generalDiscount.getAbsAmount(),
+						generalDiscount.isDiscount() ? PAYMENT_DISCOUNT : PAYMENT_RECHARGE));
+			}
+
+			//////////////////////////////////////////////////////////////
+			// Se ingresan los pagos. A partir del primero ya no es posible
+			// cancelar el comprobante.
+			// Comando: @InvoicePayment
+			for (Payment payment : payments) {
+				execute(cmdInvoicePayment(payment.getDescription(), payment.getAmount(), PAYMENT_TENDER));
+				setCancelAllowed(false);
+			}
+
+			//////////////////////////////////////////////////////////////
+			// Se cierra el comprobante.
+			// Comando: @CloseInvoice
+			FiscalPacket response = execute(cmdCloseInvoice(docType, letter));
+			setDocumentOpened(false);
+			setCancelAllowed(false);
+			openInvoice = null;
+			setLastDocumentNo(response.getString(3));
+			return getLastDocumentNo();
+		} catch (FiscalPrinterIOException e) {
+			// Si ocurrió algún error se intenta cancelar el documento
+			// actual y se relanza la excepción.
+			cancelCurrentDocument();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return El comando que carga una bonificación (o recargo) de ítem o de
+	 * documento, con la alícuota de IVA a la que se imputa.
+	 */
+	private FiscalPacket cmdAdjustment(DiscountLine discount, BigDecimal ivaPercent) {
+		return cmdPrintInvoiceItem(discount.getDescription(), BigDecimal.ONE, discount.getAbsAmount(),
+				ivaPercent, discount.isDiscount() ? ITEM_DISCOUNT : ITEM_RECHARGE, !discount.isAmountIncludeIva());
+	}
+
+	public void printDocument(NonFiscalDocument nonFiscalDocument) throws FiscalPrinterStatusError, FiscalPrinterIOException, DocumentException {
+		nonFiscalDocument.validate();
+		try {
+			setCancelAllowed(false);
+			execute(cmdOpenNonFiscalReceipt());
+			setLastDocumentNo("");
+			setCancelAllowed(true);
+			setDocumentOpened(true);
+
+			for (String line : nonFiscalDocument.getLines())
+				execute(cmdPrintNonFiscalText(line));
+
+			execute(cmdCloseNonFiscalReceipt());
+			setDocumentOpened(false);
+			setCancelAllowed(false);
+
+			firePrintEnded();
+		} catch (FiscalPrinterIOException e) {
+			cancelCurrentDocument();
+			throw e;
+		}
+	}
+
+	public FiscalCloseReport fiscalClose(String closeType) throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		FiscalPacket response = execute(cmdDailyClose(closeType));
+		FiscalCloseReport report = new FiscalCloseReport(closeType);
+		report.setNumber(getCloseInt(response, 3));
+		report.setCancelledDocuments(getCloseInt(response, 4));
+		report.setHomologatedDocuments(getCloseInt(response, 5));
+		report.setNonFiscalDocuments(getCloseInt(response, 6));
+		report.setFiscalDocuments(getCloseInt(response, 7));
+		report.setLastInvoiceNoBC(getCloseInt(response, 8));
+		report.setLastInvoiceNoA(getCloseInt(response, 9));
+		report.setSalesAmt(getCloseAmount(response, 10));
+		report.setTaxAmt(getCloseAmount(response, 11));
+		report.setLastCreditNoteNoBC(getCloseInt(response, 12));
+		report.setLastCreditNoteNoA(getCloseInt(response, 13));
+		report.setCreditAmt(getCloseAmount(response, 14));
+		return report;
+	}
+
+	/**
+	 * @return Valor entero del campo de la respuesta de cierre, o cero si la
+	 * impresora no lo informó.
+	 */
+	private int getCloseInt(FiscalPacket response, int field) {
+		if (field >= response.getSize() || response.getLength(field) == 0)
+			return 0;
+		return response.getInt(field);
+	}
+
+	/**
+	 * @return Importe del campo de la respuesta de cierre, o cero si la
+	 * impresora no lo informó.
+	 */
+	private BigDecimal getCloseAmount(FiscalPacket response, int field) {
+		if (field >= response.getSize() || response.getLength(field) == 0)
+			return BigDecimal.ZERO;
+		return ((EpsonFiscalPacket) response).getImpliedDecimal(field, AMOUNT_SCALE);
+	}
+
+	/**
+	 * Cancela el documento actualmente abierto en la impresora. Los
+	 * documentos no fiscales no se pueden cancelar: se cierran.
+	 */
+	protected void cancelCurrentDocument() {
+		if (!isCancelAllowed())
+			return;
+		try {
+			if (openInvoice != null)
+				execute(cmdInvoicePayment("Cancelar", BigDecimal.ZERO, PAYMENT_CANCEL));
+			else
+				execute(cmdCloseNonFiscalReceipt());
+			setDocumentOpened(false);
+			openInvoice = null;
+		} catch (FiscalPrinterIOException e) {
+			// Do nothing
+		}
+	}
+
+	/**
+	 * El estado fiscal indica si quedó un documento abierto: un
+	 * tique-factura se cancela y un documento no fiscal se cierra.
+	 */
+	public DocumentRecovery recoverDocument() throws FiscalPrinterStatusError, FiscalPrinterIOException {
+		execute(cmdStatusRequest());
+		if ((fiscalStatus & FST_FISCAL_DOCUMENT_OPEN) != 0) {
+			setDocumentOpened(true);
+			execute(cmdInvoicePayment("Cancelar", BigDecimal.ZERO, PAYMENT_CANCEL));
+			setDocumentOpened(false);
+			openInvoice = null;
+			return new DocumentRecovery(DocumentRecovery.CANCELLED, CMD_OPEN_INVOICE, null);
+		}
+		if ((fiscalStatus & FST_NON_FISCAL_DOCUMENT_OPEN) != 0) {
+			setDocumentOpened(true);
+			execute(cmdCloseNonFiscalReceipt());
+			setDocumentOpened(false);
+			return new DocumentRecovery(DocumentRecovery.COMPLETED, CMD_OPEN_NON_FISCAL_RECEIPT, null);
+		}
+		return DocumentRecovery.NOTHING;
+	}
+
+	/**
+	 * Consulta el estado mediante un <code>StatusRequest</code>.
+	 */
+	public FiscalPrinterHealth checkHealth() throws FiscalPrinterIOException {
+		try {
+			execute(cmdStatusRequest());
+		} catch (FiscalPrinterStatusError e) {
+			// El error forma parte del estado consultado.
+		}
+		return new FiscalPrinterHealth(isWithoutPaper(),
+				(printerStatus & PST_PRINTER_COVER_OPEN) != 0,
+				(fiscalStatus & (FST_FISCAL_DOCUMENT_OPEN | FST_NON_FISCAL_DOCUMENT_OPEN)) != 0,
+				(fiscalStatus & FST_FISCAL_MEMORY_ALMOST_FULL) != 0,
+				getMessages());
+	}
+
+	/**
+	 * @return La responsabilidad frente al IVA que espera la impresora.
+	 */
+	protected String traduceIvaResponsibility(Integer ivaResponsibility) {
+		String result = getIvaResponsabilities().get(ivaResponsibility);
+		if (result == null)
+			result = NO_CATEGORIZADO;
+		return result;
+	}
+
+	/**
+	 * @return El tipo de identificación que espera la impresora.
+	 */
+	protected String traduceIdentificationType(Integer identificationType) {
+		String result = getIdentificationTypes().get(identificationType);
+		if (result == null)
+			result = SIN_CALIFICADOR;
+		return result;
+	}
+
+	/**
+	 * @return Returns the ivaResponsabilities.
+	 */
+	protected Map<Integer, String> getIvaResponsabilities() {
+		if (ivaResponsabilities == null) {
+			ivaResponsabilities = new HashMap<Integer, String>();
+			ivaResponsabilities.put(Customer.CONSUMIDOR_FINAL, CONSUMIDOR_FINAL);
+			ivaResponsabilities.put(Customer.EXENTO, EXENTO);
+			ivaResponsabilities.put(Customer.MONOTRIBUTISTA_SOCIAL, MONOTRIBUTISTA_SOCIAL);
+			ivaResponsabilities.put(Customer.NO_CATEGORIZADO, NO_CATEGORIZADO);
+			ivaResponsabilities.put(Customer.NO_RESPONSABLE, NO_RESPONSABLE);
+			ivaResponsabilities.put(Customer.PEQUENO_CONTRIBUYENTE_EVENTUAL, MONOTRIBUTISTA_SOCIAL);
+			ivaResponsabilities.put(Customer.PEQUENO_CONTRIBUYENTE_EVENTUAL_SOCIAL, MONOTRIBUTISTA_SOCIAL);
+			ivaResponsabilities.put(Customer.RESPONSABLE_INSCRIPTO, RESPONSABLE_INSCRIPTO);
+			ivaResponsabilities.put(Customer.RESPONSABLE_MONOTRIBUTO, RESPONSABLE_MONOTRIBUTO);
+			ivaResponsabilities.put(Customer.RESPONSABLE_NO_INSCRIPTO, RESPONSABLE_NO_INSCRIPTO);
+			ivaResponsabilities.put(Customer.RESPONSABLE_NO_INSCRIPTO_BIENES_DE_USO, RESPONSABLE_NO_INSCRIPTO_BIENES_DE_USO);
+		}
+		return ivaResponsabilities;
+	}
+
+	/**
+	 * @return Returns the identificationTypes.
+	 */
+	protected Map<Integer, String> getIdentificationTypes() {
+		if (identificationTypes == null) {
+			identificationTypes = new HashMap<Integer, String>();
+			identificationTypes.put(Customer.CEDULA, CEDULA);
+			identificationTypes.put(Customer.CUIL, CUIL);
+			identificationTypes.put(Customer.CUIT, CUIT);
+			identificationTypes.put(Customer.DNI, DNI);
+			identificationTypes.put(Customer.LIBRETA_CIVICA, LIBRETA_CIVICA);
+			identificationTypes.put(Customer.LIBRETA_DE_ENROLAMIENTO, LIBRETA_DE_ENROLAMIENTO);
+			identificationTypes.put(Customer.PASAPORTE, PASAPORTE);
+			identificationTypes.put(Customer.SIN_CALIFICADOR, SIN_CALIFICADOR);
+		}
+		return identificationTypes;
+	}
+
+	/**
+	 * Formatea un número de identificación para que sea aceptado por la
+	 * impresora: sin puntos los documentos y sin guiones los CUIT/CUIL.
+	 */
+	protected String formatDocNumber(String docType, String docNumber) {
+		if (docNumber == null)
+			return null;
+		if (docType.equals(DNI))
+			return docNumber.replace(".", "").trim();
+		if (docType.equals(CUIT) || docType.equals(CUIL))
+			return docNumber.replace("-", "").trim();
+		return docNumber.trim();
+	}
+}
@@ -0,0 +1,456 @@
+package ar.edu.ifes.print.fiscal.epson.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ar.edu.ifes.print.fiscal.epson.EpsonCommands;
+import ar.edu.ifes.print.fiscal.epson.EpsonConstants;
+
+/**
+ * Simulador del comportamiento lógico de una impresora fiscal Epson: palabras
+ * de estado, tique-factura (facturas, notas de débito y de crédito), documentos
+ * no fiscales, numeración, acumuladores de la jornada fiscal y cierre diario.
+ * <br>
+ * Igual que <code>HasarSimulator</code>, no sabe nada del medio de transporte:
+ * recibe el contenido de un comando (código + campos separados por FS) y retorna
+ * el contenido de la respuesta (código + FS + status impresora + FS + status
+ * fiscal [+ FS campo]...). <code>EpsonSimulatorDevice</code> le agrega las tramas.
+ * <br>
+ * Los comandos en un estado inválido responden con FST_INVALID_COMMAND, los
+ * campos mal formados con FST_INVALID_DATA_FIELD y los códigos desconocidos con
+ * FST_UNKNOWN_COMMAND.
+ */
+public class EpsonSimulator implements EpsonCommands, EpsonConstants {
+
+	private static final byte FS = 0x1C;
+	private static final String ENCODING = "ISO8859_1";
+	private static final BigDecimal HUNDRED = new BigDecimal(100);
+	/** Cantidad máxima de pagos de un comprobante */
+	private static final int MAX_PAYMENTS = 4;
+
+	/** Errores de la impresora que activan PST_BITWISE_OR */
+	private static final int PST_ERRORS = PST_PRINTER_ERROR | PST_PRINTER_OFFLINE
+			| PST_JOURNAL_PAPER_OUT | PST_TICKET_PAPER_OUT | PST_PRINTER_COVER_OPEN;
+	/** Errores fiscales que activan FST_BITWISE_OR */
+	private static final int FST_ERRORS = FST_FISCAL_MEMORY_CRC_ERROR | FST_WORKING_MEMORY_CRC_ERROR
+			| FST_UNKNOWN_COMMAND | FST_INVALID_DATA_FIELD | FST_INVALID_COMMAND
+			| FST_ACCUMULATOR_OVERFLOW | FST_FISCAL_MEMORY_FULL;
+
+	// Estado de la impresora (configurable para simular fallas)
+	private boolean paperOut;
+	private boolean coverOpen;
+
+	// Comprobante actual
+	/** Tipo (T, D, M) del tique-factura abierto o null */
+	private String openType;
+	/** Letra del tique-factura abierto */
+	private String openLetter;
+	/** Hay un documento no fiscal abierto */
+	private boolean nonFiscalOpen;
+	private int items;
+	private int payments;
+	private BigDecimal total = BigDecimal.ZERO;
+	private BigDecimal tax = BigDecimal.ZERO;
+	private BigDecimal paid = BigDecimal.ZERO;
+
+	// Jornada fiscal
+	/** Último número por tipo de comprobante y letra ("TA", "TB", "MA", ...) */
+	private final Map<String, Integer> lastNumbers = new HashMap<String, Integer>();
+	private int zNumber;
+	private int fiscalDocuments;
+	private int cancelledDocuments;
+	private int nonFiscalDocuments;
+	private BigDecimal dailySales = BigDecimal.ZERO;
+	private BigDecimal dailyTax = BigDecimal.ZERO;
+	private BigDecimal dailyCredits = BigDecimal.ZERO;
+
+	/** Cantidad de comandos procesados */
+	private long commandCount;
+
+	/**
+	 * Procesa un comando.
+	 * @param command Código del comando seguido de sus campos separados por FS
+	 * (sin delimitadores de transporte).
+	 * @return La respuesta: código, status y campos de datos separados por FS.
+	 */
+	public synchronized byte[] process(byte[] command) {
+		commandCount++;
+		List<String> fields = split(command);
+		int cmd = command.length > 0 ? command[0] & 0xFF : 0;
+		Response rsp = new Response();
+		try {
+			execute(cmd, fields, rsp);
+		} catch (NumberFormatException e) {
+			rsp.fiscalError = FST_INVALID_DATA_FIELD;
+		} catch (IndexOutOfBoundsException e) {
+			rsp.fiscalError = FST_INVALID_DATA_FIELD;
+		}
+		if (rsp.fiscalError != 0)
+			rsp.data.clear();
+		return encode(cmd, rsp);
+	}
+
+	private void execute(int cmd, List<String> f, Response rsp) {
+		switch (cmd) {
+		case CMD_STATUS_REQUEST:
+			break;
+		case CMD_OPEN_INVOICE:
+			// Tipo, letra, copias, nombre, IVA, tipo doc, nro doc, domicilio, referencia
+			if (openType != null || nonFiscalOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			String type = f.get(1);
+			String letter = f.get(2);
+			Integer.parseInt(f.get(3));
+			if (!(INVOICE.equals(type) || DEBIT_NOTE.equals(type) || CREDIT_NOTE.equals(type))
+					|| !"ABC".contains(letter) || letter.length() != 1
+					|| ("A".equals(letter) && (!"C".equals(f.get(6)) || f.get(7).length() != 11))) {
+				rsp.fiscalError = FST_INVALID_DATA_FIELD;
+				break;
+			}
+			resetDocument();
+			openType = type;
+			openLetter = letter;
+			break;
+		case CMD_PRINT_INVOICE_TEXT:
+			if (openType == null || payments > 0)
+				rsp.fiscalError = FST_INVALID_COMMAND;
+			else if (f.get(1).length() > FISCAL_TEXT_LENGTH)
+				rsp.fiscalError = FST_INVALID_DATA_FIELD;
+			break;
+		case CMD_PRINT_INVOICE_ITEM:
+			// Descripción, cantidad, precio, IVA, calificador, bultos, imp. internos, B/T
+			if (openType == null || payments > 0) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			String qualifier = f.get(5);
+			if (f.get(1).length() == 0 || f.get(1).length() > ITEM_DESCRIPTION_LENGTH
+					|| qualifier.length() != 1 || !"MmRr".contains(qualifier)) {
+				rsp.fiscalError = FST_INVALID_DATA_FIELD;
+				break;
+			}
+			if (ITEM_ADD.equals(qualifier) || ITEM_SUBSTRACT.equals(qualifier))
+				items++;
+			BigDecimal amount = implied(f.get(2), QUANTITY_SCALE).multiply(implied(f.get(3), AMOUNT_SCALE));
+			addAmount(amount, implied(f.get(4), IVA_SCALE),
+					ITEM_SUBSTRACT.equals(qualifier) || ITEM_DISCOUNT.equals(qualifier), PRICE_BASE.equals(f.get(8)));
+			break;
+		case CMD_INVOICE_SUBTOTAL:
+			if (openType == null) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			rsp.add(String.valueOf(items)).add(implied(total)).add(implied(tax));
+			break;
+		case CMD_INVOICE_PAYMENT:
+			// Descripción, monto, calificador
+			if (openType == null) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			payment(f.get(3), implied(f.get(2), AMOUNT_SCALE), rsp);
+			break;
+		case CMD_CLOSE_INVOICE:
+			if (openType == null || !openType.equals(f.get(1)) || !openLetter.equals(f.get(2))) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			rsp.add(format(closeDocument()));
+			break;
+		case CMD_OPEN_NON_FISCAL_RECEIPT:
+			if (openType != null || nonFiscalOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			nonFiscalOpen = true;
+			break;
+		case CMD_PRINT_NON_FISCAL_TEXT:
+			if (!nonFiscalOpen)
+				rsp.fiscalError = FST_INVALID_COMMAND;
+			else if (f.get(1).length() > NON_FISCAL_TEXT_LENGTH)
+				rsp.fiscalError = FST_INVALID_DATA_FIELD;
+			break;
+		case CMD_CLOSE_NON_FISCAL_RECEIPT:
+			if (!nonFiscalOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			nonFiscalOpen = false;
+			nonFiscalDocuments++;
+			break;
+		case CMD_DAILY_CLOSE:
+			if (openType != null || nonFiscalOpen) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				break;
+			}
+			if (!CLOSE_Z.equals(f.get(1)) && !CLOSE_X.equals(f.get(1))) {
+				rsp.fiscalError = FST_INVALID_DATA_FIELD;
+				break;
+			}
+			dailyClose(CLOSE_Z.equals(f.get(1)), rsp);
+			break;
+		default:
+			rsp.fiscalError = FST_UNKNOWN_COMMAND;
+		}
+	}
+
+	/**
+	 * Pagos, descuentos y recargos generales y cancelación del tique-factura.
+	 */
+	private void payment(String qualifier, BigDecimal amount, Response rsp) {
+		if (PAYMENT_CANCEL.equals(qualifier)) {
+			cancelledDocuments++;
+			resetDocument();
+		} else if (PAYMENT_TENDER.equals(qualifier)) {
+			if (payments == MAX_PAYMENTS) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				return;
+			}
+			payments++;
+			paid = paid.add(amount);
+			rsp.add(implied(total.subtract(paid).max(BigDecimal.ZERO)));
+		} else if (PAYMENT_DISCOUNT.equals(qualifier) || PAYMENT_RECHARGE.equals(qualifier)) {
+			if (payments > 0 || items == 0) {
+				rsp.fiscalError = FST_INVALID_COMMAND;
+				return;
+			}
+			total = PAYMENT_DISCOUNT.equals(qualifier) ? total.subtract(amount) : total.add(amount);
+		} else {
+			rsp.fiscalError = FST_INVALID_DATA_FIELD;
+		}
+	}
+
+	/**
+	 * Acumula un importe en el comprobante.
+	 * @param amount Importe (precio x cantidad, bonificación, etc.)
+	 * @param rate Alícuota de IVA.
+	 * @param subtract Si el importe resta.
+	 * @param baseAmount Si el importe no incluye el IVA.
+	 */
+	private void addAmount(BigDecimal amount, BigDecimal rate, boolean subtract, boolean baseAmount) {
+		BigDecimal base;
+		BigDecimal iva;
+		if (baseAmount) {
+			base = amount;
+			iva = amount.multiply(rate).divide(HUNDRED, 2, BigDecimal.ROUND_HALF_UP);
+		} else {
+			base = amount.multiply(HUNDRED).divide(HUNDRED.add(rate), 2, BigDecimal.ROUND_HALF_UP);
+			iva = amount.subtract(base);
+		}
+		if (subtract) {
+			base = base.negate();
+			iva = iva.negate();
+		}
+		total = total.add(base).add(iva);
+		tax = tax.add(iva);
+	}
+
+	private int closeDocument() {
+		String key = numberKey(openType, openLetter);
+		int number = lastNumber(key) + 1;
+		lastNumbers.put(key, number);
+		fiscalDocuments++;
+		if (CREDIT_NOTE.equals(openType)) {
+			dailyCredits = dailyCredits.add(total);
+		} else {
+			dailySales = dailySales.add(total);
+			dailyTax = dailyTax.add(tax);
+		}
+		resetDocument();
+		return number;
+	}
+
+	private void resetDocument() {
+		openType = null;
+		openLetter = null;
+		items = 0;
+		payments = 0;
+		total = BigDecimal.ZERO;
+		tax = BigDecimal.ZERO;
+		paid = BigDecimal.ZERO;
+	}
+
+	private void dailyClose(boolean z, Response rsp) {
+		int number = z ? zNumber + 1 : zNumber;
+		// Nro Z, DF cancelados, DNFH, DNF, DF, último B/C, último A, ventas,
+		// IVA, última NC B/C, última NC A, créditos NC
+		rsp.add(format(number)).add(String.valueOf(cancelledDocuments)).add("0")
+				.add(String.valueOf(nonFiscalDocuments)).add(String.valueOf(fiscalDocuments))
+				.add(format(lastNumber(numberKey(INVOICE, "B")))).add(format(lastNumber(numberKey(INVOICE, "A"))))
+				.add(implied(dailySales)).add(implied(dailyTax))
+				.add(format(lastNumber(numberKey(CREDIT_NOTE, "B")))).add(format(lastNumber(numberKey(CREDIT_NOTE, "A"))))
+				.add(implied(dailyCredits));
+		if (z) {
+			zNumber = number;
+			fiscalDocuments = 0;
+			cancelledDocuments = 0;
+			nonFiscalDocuments = 0;
+			dailySales = BigDecimal.ZERO;
+			dailyTax = BigDecimal.ZERO;
+			dailyCredits = BigDecimal.ZERO;
+		}
+	}
+
+	/**
+	 * @return La clave de numeración: las letras B y C comparten numeración.
+	 */
+	private static String numberKey(String type, String letter) {
+		return type + ("A".equals(letter) ? "A" : "B");
+	}
+
+	private int lastNumber(String key) {
+		Integer n = lastNumbers.get(key);
+		return n == null ? 0 : n;
+	}
+
+	/**
+	 * @return La palabra de estado de la impresora.
+	 */
+	public synchronized int getPrinterStatus() {
+		int status = PST_PRINT_BUFFER_EMPTY;
+		if (paperOut)
+			status |= PST_TICKET_PAPER_OUT;
+		if (coverOpen)
+			status |= PST_PRINTER_COVER_OPEN;
+		if ((status & PST_ERRORS) != 0)
+			status |= PST_BITWISE_OR;
+		return status;
+	}
+
+	/**
+	 * @return La palabra de estado fiscal, sin errores del último comando.
+	 */
+	public synchronized int getFiscalStatus() {
+		int status = FST_DEVICE_CERTIFIED | FST_DEVICE_FISCALIZED;
+		if (openType != null)
+			status |= FST_FISCAL_DOCUMENT_OPEN;
+		if (nonFiscalOpen)
+			status |= FST_NON_FISCAL_DOCUMENT_OPEN;
+		return status;
+	}
+
+	private byte[] encode(int cmd, Response rsp) {
+		int fiscalStatus = getFiscalStatus() | rsp.fiscalError;
+		if ((fiscalStatus & FST_ERRORS) != 0)
+			fiscalStatus |= FST_BITWISE_OR;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+		out.write(cmd);
+		out.write(FS);
+		write(out, hex16(getPrinterStatus()));
+		out.write(FS);
+		write(out, hex16(fiscalStatus));
+		for (String data : rsp.data) {
+			out.write(FS);
+			write(out, data);
+		}
+		return out.toByteArray();
+	}
+
+	private static void write(ByteArrayOutputStream out, String s) {
+		try {
+			byte[] b = s.getBytes(ENCODING);
+			out.write(b, 0, b.length);
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static List<String> split(byte[] command) {
+		List<String> fields = new ArrayList<String>();
+		int start = 0;
+		for (int i = 0; i <= command.length; i++) {
+			if (i == command.length || command[i] == FS) {
+				try {
+					fields.add(new String(command, start, i - start, ENCODING));
+				} catch (UnsupportedEncodingException e) {
+					throw new RuntimeException(e);
+				}
+				start = i + 1;
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * @return El número del campo, con <code>scale</code> decimales implícitos.
+	 */
+	private static BigDecimal implied(String value, int scale) {
+		return new BigDecimal(new BigInteger(value.trim()), scale);
+	}
+
+	/**
+	 * @return El importe con los decimales implícitos de los importes.
+	 */
+	private static String implied(BigDecimal amount) {
+		return amount.setScale(AMOUNT_SCALE, BigDecimal.ROUND_HALF_UP).unscaledValue().toString();
+	}
+
+	private static String format(int number) {
+		String s = "0000000" + number;
+		return s.substring(s.length() - 8);
+	}
+
+	private static String hex16(int value) {
+		String s = "000" + Integer.toHexString(value & 0xFFFF).toUpperCase();
+		return s.substring(s.length() - 4);
+	}
+
+	/**
+	 * Respuesta en construcción: error del comando y campos de datos.
+	 */
+	private static class Response {
+		int fiscalError;
+		final List<String> data = new ArrayList<String>();
+
+		Response add(String value) {
+			data.add(value);
+			return this;
+		}
+	}
+
+	// Fallas simuladas y consultas
+
+	public synchronized void setPaperOut(boolean paperOut) {
+		this.paperOut = paperOut;
+	}
+
+	public synchronized void setCoverOpen(boolean coverOpen) {
+		this.coverOpen = coverOpen;
+	}
+
+	/**
+	 * @return Verdadero si hay un comprobante abierto.
+	 */
+	public synchronized boolean isDocumentOpen() {
+		return openType != null || nonFiscalOpen;
+	}
+
+	/**
+	 * @return El último número emitido para el tipo de comprobante (T, D, M) y la letra.
+	 */
+	public synchronized int getLastNumber(String type, String letter) {
+		return lastNumber(numberKey(type, letter));
+	}
+
+	/**
+	 * @return El número del último cierre Z.
+	 */
+	public synchronized int getZNumber() {
+		return zNumber;
+	}
+
+	/**
+	 * @return Cantidad de comandos procesados.
+	 */
+	public synchronized long getCommandCount() {
+		return commandCount;
+	}
+}
@@ -0,0 +1,153 @@
+package ar.edu.ifes.print.fiscal.epson.simulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+import ar.com.ergio.print.fiscal.comm.HasarProtocolComm;
+import ar.com.ergio.print.fiscal.comm.HasarProtocolFrame;
+
+/**
+ * Impresora Epson en memoria que habla el protocolo de tramas del puerto serie
+ * (STX SEQ comando ETX BCC) sobre un par de streams, atendida por un
+ * <code>EpsonSimulator</code>:
+ * <ul>
+ * <li> Cada trama válida se procesa y se responde con la misma secuencia,
+ * precedida por <code>keepAlives</code> DC2 (impresor procesando).
+ * <li> Una trama repetida (misma secuencia que la anterior) no se vuelve a
+ * ejecutar: se reenvía la última respuesta.
+ * <li> Una trama con BCC incorrecto se responde con NAK.
+ * </ul>
+ * Los bytes escritos por el host se procesan en el mismo thread que los
+ * escribe, por lo que no hay threads propios que liberar.
+ */
+public class EpsonSimulatorDevice {
+
+	/** Simulador que atiende los comandos */
+	private final EpsonSimulator simulator;
+	/** Decodificador de los comandos del host */
+	private final HasarProtocolFrame decoder = new HasarProtocolFrame();
+	/** Stream del que lee el host */
+	private final DeviceInputStream hostIn = new DeviceInputStream();
+	/** Stream en el que escribe el host */
+	private final OutputStream hostOut = new OutputStream() {
+		public void write(int b) throws IOException {
+			receive((byte) b);
+		}
+	};
+	/** Secuencia y trama de la última respuesta */
+	private int lastSequence = -1;
+	private byte[] lastResponse;
+	/** Cantidad de DC2 que preceden a cada respuesta */
+	private int keepAlives;
+
+	public EpsonSimulatorDevice(EpsonSimulator simulator) {
+		this.simulator = simulator;
+	}
+
+	/**
+	 * @return Una interfaz de comunicación con el protocolo de tramas (sin
+	 * conectar) contra esta impresora.
+	 */
+	public HasarProtocolComm createComm() {
+		return new HasarProtocolComm(getInputStream(), getOutputStream());
+	}
+
+	private synchronized void receive(byte b) {
+		switch (decoder.feed(b)) {
+		case HasarProtocolFrame.EVENT_FRAME:
+			int sequence = decoder.getSequence();
+			if (sequence != lastSequence) {
+				byte[] payload = simulator.process(decoder.getPayload());
+				lastResponse = HasarProtocolFrame.encode(sequence, payload, 0, payload.length);
+				lastSequence = sequence;
+			}
+			for (int i = 0; i < keepAlives; i++)
+				hostIn.append(new byte[] { HasarProtocolFrame.DC2 });
+			hostIn.append(lastResponse);
+			break;
+		case HasarProtocolFrame.EVENT_BAD_FRAME:
+			hostIn.append(new byte[] { HasarProtocolFrame.NAK });
+			break;
+		default:
+			// ACK del host, bytes fuera de trama
+		}
+	}
+
+	/**
+	 * @return Stream del que se leen las respuestas de la impresora.
+	 */
+	public InputStream getInputStream() {
+		return hostIn;
+	}
+
+	/**
+	 * @return Stream en el que se escriben los comandos a la impresora.
+	 */
+	public OutputStream getOutputStream() {
+		return hostOut;
+	}
+
+	/**
+	 * @return Returns the simulator.
+	 */
+	public EpsonSimulator getSimulator() {
+		return simulator;
+	}
+
+	/**
+	 * @param keepAlives Cantidad de DC2 que preceden a cada respuesta.
+	 */
+	public void setKeepAlives(int keepAlives) {
+		this.keepAlives = keepAlives;
+	}
+
+	/**
+	 * Bytes pendientes de lectura por el host. La lectura espera hasta que
+	 * haya datos.
+	 */
+	private static class DeviceInputStream extends InputStream {
+
+		private byte[] buffer = new byte[256];
+		private int count;
+
+		synchronized void append(byte[] data) {
+			if (count + data.length > buffer.length) {
+				byte[] newBuffer = new byte[Math.max(buffer.length * 2, count + data.length)];
+				System.arraycopy(buffer, 0, newBuffer, 0, count);
+				buffer = newBuffer;
+			}
+			System.arraycopy(data, 0, buffer, count, data.length);
+			count += data.length;
+			notifyAll();
+		}
+
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+		}
+
+		public synchronized int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			while (count == 0) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				}
+			}
+			int n = Math.min(len, count);
+			System.arraycopy(buffer, 0, b, off, n);
+			System.arraycopy(buffer, n, buffer, 0, count - n);
+			count -= n;
+			return n;
+		}
+
+		public synchronized int available() {
+			return count;
+		}
+	}
+}
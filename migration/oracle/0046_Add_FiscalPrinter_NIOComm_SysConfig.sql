@@ -0,0 +1,5 @@
+-- 17/10/2026 10:12:40 ART
+-- Fiscal printer spooler communication based on NIO (response framing without timeouts)
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000004,'LAR','C','LAR_FiscalPrinter_UseNIOComm','Y','Use the NIO spooler communication (Y) or the legacy timeout based SpoolerTCPComm (N) for fiscal printers.',0,0,TO_DATE('2026-10-17 10:12:40','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 10:12:40','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
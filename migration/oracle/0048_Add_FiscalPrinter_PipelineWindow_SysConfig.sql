@@ -0,0 +1,5 @@
+-- 17/10/2026 13:10:22 ART
+-- Line item commands sent to the fiscal printer without waiting for their response; 1 disables pipelining
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000006,'LAR','C','LAR_FiscalPrinter_PipelineWindow','1','Maximum line item commands in flight on the fiscal printer spooler connection (1 = wait for every response).',0,0,TO_DATE('2026-10-17 13:10:22','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 13:10:22','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
@@ -0,0 +1,5 @@
+-- 17/10/2026 14:20:05 ART
+-- Journal of fiscal printer commands used to recover documents left open by a crash
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000007,'LAR','C','LAR_FiscalPrinter_Journal','Y','Keep a local journal of fiscal printer commands to cancel or complete documents left open by a crash (Y/N).',0,0,TO_DATE('2026-10-17 14:20:05','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 14:20:05','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
@@ -0,0 +1,56 @@
+ALTER TABLE LAR_Fiscal_Printer ADD LeaseExpires DATE;
+ALTER TABLE LAR_Fiscal_Printer ADD LockToken NUMBER(10) DEFAULT 0;
+
+-- 17/10/2026 16:31:27 ART
+-- Lease and fencing token of the fiscal printer lock
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000127,'LeaseExpires','LAR','Lease Expires','Lease Expires',0,TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 16:31:27 ART
+-- Lease and fencing token of the fiscal printer lock
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000127 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 16:31:27 ART
+-- Lease and fencing token of the fiscal printer lock
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000822,3000001,'LAR',0,'N','N','N','N',7,'N',16,'N',3000127,'N','Y','N','Lease Expires','LeaseExpires',100,TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 16:31:27 ART
+-- Lease and fencing token of the fiscal printer lock
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000822 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 16:31:27 ART
+-- Lease and fencing token of the fiscal printer lock
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000128,'LockToken','LAR','Lock Token','Lock Token',0,TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 16:31:27 ART
+-- Lease and fencing token of the fiscal printer lock
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000128 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 16:31:27 ART
+-- Lease and fencing token of the fiscal printer lock
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000823,3000001,'LAR',0,'N','N','N','N',10,'N',11,'N',3000128,'N','Y','N','Lock Token','LockToken',100,TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 16:31:27 ART
+-- Lease and fencing token of the fiscal printer lock
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000823 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 16:31:27 ART
+-- Lease time of the fiscal printer lock
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000009,'LAR','C','LAR_FiscalPrinter_LockLease','120','Seconds after which the lease of a client that stopped renewing it (for example, because it crashed) expires and the fiscal printer is released.',0,0,TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 16:31:27','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
+-- FiscalPrinterLeaseLost
+INSERT INTO ad_message(ad_message_id, ad_client_id, ad_org_id, isactive, created, createdby, updated, updatedby, value, msgtext, msgtip, msgtype, entitytype)
+    VALUES ((SELECT CurrentNext FROM AD_Sequence WHERE AD_Sequence_ID=9), 1000000, 0, 'Y', getdate(), 100, getdate(), 100, 'FiscalPrinterLeaseLost', 'The fiscal printer lease expired. Try again', null, 'I', 'LAR');
+
+INSERT INTO ad_message_trl(ad_message_id, ad_language, ad_client_id, ad_org_id, isactive, created, createdby, updated, updatedby, msgtext, msgtip, istranslated)
+    VALUES ((SELECT CurrentNext FROM AD_Sequence WHERE AD_Sequence_ID=9), 'es_AR', 1000000, 0, 'Y', getdate(), 100, getdate(), 100, 'Expiró la concesión de la impresora fiscal. Intente nuevamente', null, 'Y');
+
+UPDATE AD_Sequence SET CurrentNext = CurrentNext + 1 WHERE AD_Sequence_ID=9; -- AD_Message
@@ -0,0 +1,557 @@
+CREATE TABLE LAR_Fiscal_Closing
+(
+  LAR_Fiscal_Closing_ID NUMBER(10) NOT NULL,
+  AD_Client_ID          NUMBER(10) NOT NULL,
+  AD_Org_ID             NUMBER(10) NOT NULL,
+  Created               DATE DEFAULT SYSDATE NOT NULL,
+  CreatedBy             NUMBER(10) NOT NULL,
+  Updated               DATE DEFAULT SYSDATE NOT NULL,
+  UpdatedBy             NUMBER(10) NOT NULL,
+  IsActive              CHAR(1) DEFAULT 'Y' NOT NULL,
+  LAR_Fiscal_Printer_ID NUMBER(10) NOT NULL,
+  CloseType             CHAR(1) NOT NULL,
+  DateTrx               DATE NOT NULL,
+  ZNumber               NUMBER(10) DEFAULT 0,
+  CancelledDocuments    NUMBER(10) DEFAULT 0,
+  HomologatedDocuments  NUMBER(10) DEFAULT 0,
+  NonFiscalDocuments    NUMBER(10) DEFAULT 0,
+  FiscalDocuments       NUMBER(10) DEFAULT 0,
+  LastInvoiceNoA        NUMBER(10) DEFAULT 0,
+  LastInvoiceNoBC       NUMBER(10) DEFAULT 0,
+  LastCreditNoteNoA     NUMBER(10) DEFAULT 0,
+  LastCreditNoteNoBC    NUMBER(10) DEFAULT 0,
+  DailySalesAmt         NUMBER DEFAULT 0,
+  TaxAmt                NUMBER DEFAULT 0,
+  InternalTaxAmt        NUMBER DEFAULT 0,
+  PerceptionAmt         NUMBER DEFAULT 0,
+  NonInscriptTaxAmt     NUMBER DEFAULT 0,
+  CreditNoteAmt         NUMBER DEFAULT 0,
+  Attempts              NUMBER(10) DEFAULT 0,
+  CloseErrorMsg         NVARCHAR2(2000),
+  CONSTRAINT LAR_Fiscal_Closing_Key PRIMARY KEY (LAR_Fiscal_Closing_ID),
+  CONSTRAINT LARFiscalPrinter_LARFiscalClos FOREIGN KEY (LAR_Fiscal_Printer_ID) REFERENCES LAR_Fiscal_Printer (LAR_Fiscal_Printer_ID),
+  CONSTRAINT LAR_Fiscal_Closing_IsActive CHECK (IsActive IN ('Y','N'))
+);
+
+CREATE INDEX LAR_Fiscal_Closing_Printer ON LAR_Fiscal_Closing (LAR_Fiscal_Printer_ID, DateTrx);
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Table (LoadSeq,IsSecurityEnabled,AccessLevel,AD_Table_ID,ImportTable,IsHighVolume,IsView,IsChangeLog,CopyColumnsFromTable,EntityType,IsCentrallyMaintained,IsDeleteable,ReplicationType,TableName,Description,Name,AD_Client_ID,IsActive,AD_Org_ID,CreatedBy,Updated,UpdatedBy,Created) VALUES (0,'N','3',3000011,'N','N','N','N','N','LAR','Y','Y','L','LAR_Fiscal_Closing','Counters reported by a fiscal printer on each daily close','LAR_Fiscal_Closing',0,'Y',0,100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'))
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Table_Trl (AD_Language,AD_Table_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Table_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Table t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Table_ID=3000011 AND NOT EXISTS (SELECT * FROM AD_Table_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Table_ID=t.AD_Table_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Sequence (IncrementNo,StartNewYear,CurrentNextSys,IsTableID,StartNo,CurrentNext,IsAudited,IsAutoSequence,AD_Sequence_ID,Description,Name,AD_Org_ID,AD_Client_ID,Updated,UpdatedBy,Created,CreatedBy,IsActive) VALUES (1,'N',50000,'Y',1000000,1000000,'N','Y',3000013,'Table LAR_Fiscal_Closing','LAR_Fiscal_Closing',0,0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100,'Y')
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000129,'LAR_Fiscal_Closing_ID','LAR','Fiscal Closing','Fiscal Closing',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000129 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000824,3000011,'LAR',0,'Y','N','N','N',10,'N',13,'Y',3000129,'N','N','N','Fiscal Closing','LAR_Fiscal_Closing_ID',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000824 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000825,3000011,'LAR',0,'Y','N','N','N',10,'N',19,'N',102,'N','N','N','Client','AD_Client_ID',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000825 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000826,3000011,'LAR',0,'Y','N','N','N',10,'N',19,'N',113,'N','Y','N','Organization','AD_Org_ID',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000826 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000827,3000011,'LAR',0,'Y','N','N','N',29,'N',16,'N',245,'N','N','N','Created','Created',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000827 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000828,3000011,'LAR',0,'Y','N','N','N',10,'N',18,'N',246,'N','N','N','Created By','CreatedBy',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000828 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000829,3000011,'LAR',0,'Y','N','N','N',29,'N',16,'N',607,'N','N','N','Updated','Updated',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000829 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000830,3000011,'LAR',0,'Y','N','N','N',10,'N',18,'N',608,'N','N','N','Updated By','UpdatedBy',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000830 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000831,3000011,'LAR',0,'Y','N','N','N',1,'N',20,'N',348,'N','Y','N','Active','IsActive',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000831 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000832,3000011,'LAR',0,'Y','N','Y','N',10,'N',19,'N',3000003,'N','Y','N','LAR_Fiscal_Printer','LAR_Fiscal_Printer_ID',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000832 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000130,'CloseType','LAR','Close Type','Close Type',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000130 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,AD_Reference_Value_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000833,3000011,'LAR',0,'Y','N','N','N',1,'N',17,3000011,'N',3000130,'N','Y','N','Close Type','CloseType',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000833 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000834,3000011,'LAR',0,'Y','N','Y','N',29,'N',16,'N',1297,'N','Y','N','Transaction Date','DateTrx',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000834 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000131,'ZNumber','LAR','Z Number','Z Number',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000131 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000835,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000131,'N','Y','N','Z Number','ZNumber',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000835 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000132,'CancelledDocuments','LAR','Cancelled Documents','Cancelled Documents',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000132 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000836,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000132,'N','Y','N','Cancelled Documents','CancelledDocuments',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000836 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000133,'HomologatedDocuments','LAR','Homologated Documents','Homologated Documents',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000133 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000837,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000133,'N','Y','N','Homologated Documents','HomologatedDocuments',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000837 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000134,'NonFiscalDocuments','LAR','Non Fiscal Documents','Non Fiscal Documents',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000134 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000838,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000134,'N','Y','N','Non Fiscal Documents','NonFiscalDocuments',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000838 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000135,'FiscalDocuments','LAR','Fiscal Documents','Fiscal Documents',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000135 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000839,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000135,'N','Y','N','Fiscal Documents','FiscalDocuments',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000839 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000136,'LastInvoiceNoA','LAR','Last Invoice No A','Last Invoice No A',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000136 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000840,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000136,'N','Y','N','Last Invoice No A','LastInvoiceNoA',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000840 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000137,'LastInvoiceNoBC','LAR','Last Invoice No B/C','Last Invoice No B/C',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000137 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000841,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000137,'N','Y','N','Last Invoice No B/C','LastInvoiceNoBC',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000841 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000138,'LastCreditNoteNoA','LAR','Last Credit Note No A','Last Credit Note No A',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000138 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000842,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000138,'N','Y','N','Last Credit Note No A','LastCreditNoteNoA',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000842 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000139,'LastCreditNoteNoBC','LAR','Last Credit Note No B/C','Last Credit Note No B/C',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000139 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000843,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000139,'N','Y','N','Last Credit Note No B/C','LastCreditNoteNoBC',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000843 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000140,'DailySalesAmt','LAR','Daily Sales Amount','Daily Sales Amount',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000140 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000844,3000011,'LAR',0,'N','N','N','N',22,'N',12,'N',3000140,'N','Y','N','Daily Sales Amount','DailySalesAmt',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000844 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000845,3000011,'LAR',0,'N','N','N','N',22,'N',12,'N',1133,'N','Y','N','Tax Amount','TaxAmt',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000845 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000141,'InternalTaxAmt','LAR','Internal Tax Amount','Internal Tax Amount',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000141 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000846,3000011,'LAR',0,'N','N','N','N',22,'N',12,'N',3000141,'N','Y','N','Internal Tax Amount','InternalTaxAmt',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000846 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000142,'PerceptionAmt','LAR','Perception Amount','Perception Amount',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000142 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000847,3000011,'LAR',0,'N','N','N','N',22,'N',12,'N',3000142,'N','Y','N','Perception Amount','PerceptionAmt',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000847 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000143,'NonInscriptTaxAmt','LAR','Non Inscript Tax Amount','Non Inscript Tax Amount',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000143 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000848,3000011,'LAR',0,'N','N','N','N',22,'N',12,'N',3000143,'N','Y','N','Non Inscript Tax Amount','NonInscriptTaxAmt',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000848 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000144,'CreditNoteAmt','LAR','Credit Note Amount','Credit Note Amount',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000144 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000849,3000011,'LAR',0,'N','N','N','N',22,'N',12,'N',3000144,'N','Y','N','Credit Note Amount','CreditNoteAmt',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000849 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000145,'Attempts','LAR','Attempts','Attempts',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000145 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000850,3000011,'LAR',0,'N','N','N','N',10,'N',11,'N',3000145,'N','Y','N','Attempts','Attempts',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000850 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000146,'CloseErrorMsg','LAR','Close Error Message','Close Error Message',0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000146 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000851,3000011,'LAR',0,'N','N','N','N',2000,'N',14,'N',3000146,'N','Y','N','Close Error Message','CloseErrorMsg',100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Fiscal printer daily closes
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000851 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Scheduled daily close of all the fiscal printers
+INSERT INTO AD_Process (AD_Process_ID,IsDirectPrint,IsReport,AccessLevel,IsBetaFunctionality,IsServerProcess,ShowHelp,EntityType,Statistic_Seconds,Statistic_Count,Classname,CopyFromProcess,Value,Name,Description,AD_Org_ID,AD_Client_ID,Updated,UpdatedBy,CreatedBy,Created,IsActive) VALUES (3000014,'N','N','3','N','Y','Y','LAR',0,0,'ar.com.ergio.process.FiscalPrinterDailyClose','N','LAR_FiscalPrinterDailyClose','LAR_FiscalPrinterDailyClose','Closes every active fiscal printer of the client (or organization) concurrently and records the counters of each close',0,0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100,100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),'Y')
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Scheduled daily close of all the fiscal printers
+INSERT INTO AD_Process_Trl (AD_Language,AD_Process_ID, Help,Description,Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Process_ID, t.Help,t.Description,t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Process t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Process_ID=3000014 AND NOT EXISTS (SELECT * FROM AD_Process_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Process_ID=t.AD_Process_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Scheduled daily close of all the fiscal printers
+INSERT INTO AD_Process_Para (IsRange,AD_Process_Para_ID,FieldLength,AD_Process_ID,CreatedBy,IsCentrallyMaintained,AD_Reference_ID,SeqNo,IsMandatory,AD_Reference_Value_ID,EntityType,Name,ColumnName,DefaultValue,IsActive,AD_Client_ID,UpdatedBy,Updated,Created,AD_Org_ID) VALUES ('N',3000015,0,3000014,100,'Y',17,10,'Y',3000011,'LAR','CloseType','CloseType','Z','Y',0,100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Scheduled daily close of all the fiscal printers
+INSERT INTO AD_Process_Para (IsRange,AD_Process_Para_ID,FieldLength,AD_Process_ID,CreatedBy,IsCentrallyMaintained,AD_Reference_ID,SeqNo,IsMandatory,AD_Element_ID,EntityType,Name,ColumnName,IsActive,AD_Client_ID,UpdatedBy,Updated,Created,AD_Org_ID) VALUES ('N',3000016,0,3000014,100,'Y',19,20,'N',113,'LAR','Organization','AD_Org_ID','Y',0,100,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),0)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Scheduled daily close of all the fiscal printers
+INSERT INTO AD_Process_Para_Trl (AD_Language,AD_Process_Para_ID, Help,Name,Description, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Process_Para_ID, t.Help,t.Name,t.Description, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Process_Para t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Process_Para_ID=3000015 AND NOT EXISTS (SELECT * FROM AD_Process_Para_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Process_Para_ID=t.AD_Process_Para_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Scheduled daily close of all the fiscal printers
+INSERT INTO AD_Process_Para_Trl (AD_Language,AD_Process_Para_ID, Help,Name,Description, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Process_Para_ID, t.Help,t.Name,t.Description, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Process_Para t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Process_Para_ID=3000016 AND NOT EXISTS (SELECT * FROM AD_Process_Para_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Process_Para_ID=t.AD_Process_Para_ID)
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Concurrent fiscal printer closes
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000012,'LAR','C','LAR_FiscalPrinter_CloseThreads','4','Maximum number of fiscal printers closed at the same time by the scheduled daily close.',0,0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Attempts to close a busy fiscal printer
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000013,'LAR','C','LAR_FiscalPrinter_CloseRetries','5','Attempts to close a fiscal printer that is busy (for example, finishing a ticket) before the scheduled daily close gives up on it.',0,0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
+-- 17/10/2026 19:05:12 ART
+-- Delay before closing a busy fiscal printer again
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000014,'LAR','C','LAR_FiscalPrinter_CloseRetryDelay','30','Seconds the scheduled daily close waits before closing again a fiscal printer that was busy.',0,0,TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 19:05:12','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
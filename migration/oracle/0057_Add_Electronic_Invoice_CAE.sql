@@ -0,0 +1,94 @@
+ALTER TABLE C_Invoice ADD COLUMN CAE Varchar2(14);
+ALTER TABLE C_Invoice ADD COLUMN CAEDueDate DATE;
+ALTER TABLE C_Invoice ADD COLUMN CAEErrorMsg Varchar2(2000);
+
+-- 17/10/2026 20:14:36 ART
+-- CAE of the electronic invoice
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000147,'CAE','LAR','CAE','CAE',0,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- CAE of the electronic invoice
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000147 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- CAE of the electronic invoice
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000852,318,'LAR',0,'N','N','N','N',14,'N',10,'N',3000147,'N','Y','N','CAE','CAE',100,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- CAE of the electronic invoice
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000852 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Due date of the CAE of the electronic invoice
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000148,'CAEDueDate','LAR','CAE Due Date','CAE Due Date',0,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Due date of the CAE of the electronic invoice
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000148 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Due date of the CAE of the electronic invoice
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000853,318,'LAR',0,'N','N','N','N',7,'N',15,'N',3000148,'N','Y','N','CAE Due Date','CAEDueDate',100,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Due date of the CAE of the electronic invoice
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000853 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Reason why the electronic invoice has no CAE
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000149,'CAEErrorMsg','LAR','CAE Error Message','CAE Error Message',0,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Reason why the electronic invoice has no CAE
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000149 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Reason why the electronic invoice has no CAE
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000854,318,'LAR',0,'N','N','N','N',2000,'N',14,'N',3000149,'N','Y','N','CAE Error Message','CAEErrorMsg',100,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Reason why the electronic invoice has no CAE
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000854 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Scheduled AFIP authorization of electronic invoices
+INSERT INTO AD_Process (AD_Process_ID,IsDirectPrint,IsReport,AccessLevel,IsBetaFunctionality,IsServerProcess,ShowHelp,EntityType,Statistic_Seconds,Statistic_Count,Classname,CopyFromProcess,Value,Name,Description,AD_Org_ID,AD_Client_ID,Updated,UpdatedBy,CreatedBy,Created,IsActive) VALUES (3000015,'N','N','3','N','Y','Y','LAR',0,0,'ar.com.ergio.process.ElectronicInvoiceAuthorization','N','LAR_ElectronicInvoiceAuthorization','LAR_ElectronicInvoiceAuthorization','Requests to AFIP, in batches, the CAE of the completed electronic invoices of the client (or organization) that do not have one',0,0,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),100,100,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),'Y')
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Scheduled AFIP authorization of electronic invoices
+INSERT INTO AD_Process_Trl (AD_Language,AD_Process_ID, Help,Description,Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Process_ID, t.Help,t.Description,t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Process t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Process_ID=3000015 AND NOT EXISTS (SELECT * FROM AD_Process_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Process_ID=t.AD_Process_ID)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Scheduled AFIP authorization of electronic invoices
+INSERT INTO AD_Process_Para (IsRange,AD_Process_Para_ID,FieldLength,AD_Process_ID,CreatedBy,IsCentrallyMaintained,AD_Reference_ID,SeqNo,IsMandatory,AD_Element_ID,EntityType,Name,ColumnName,IsActive,AD_Client_ID,UpdatedBy,Updated,Created,AD_Org_ID) VALUES ('N',3000017,0,3000015,100,'Y',19,10,'N',113,'LAR','Organization','AD_Org_ID','Y',0,100,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),0)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Scheduled AFIP authorization of electronic invoices
+INSERT INTO AD_Process_Para_Trl (AD_Language,AD_Process_Para_ID, Help,Name,Description, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Process_Para_ID, t.Help,t.Name,t.Description, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Process_Para t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Process_Para_ID=3000017 AND NOT EXISTS (SELECT * FROM AD_Process_Para_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Process_Para_ID=t.AD_Process_Para_ID)
+;
+
+-- 17/10/2026 20:14:36 ART
+-- AFIP electronic invoice service endpoint
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000015,'LAR','O','LAR_AFIP_WSFE_URL','https://wswhomo.afip.gov.ar/wsfev1/service.asmx','WSFEv1 endpoint used to authorize electronic invoices (testing or production), or simulator to use an in-memory stand-in of AFIP.',0,0,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
+-- 17/10/2026 20:14:36 ART
+-- Electronic invoices per AFIP request
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000016,'LAR','C','LAR_AFIP_WSFE_RecordsPerRequest','0','Maximum number of electronic invoices sent in one authorization request, or 0 for the maximum accepted by AFIP.',0,0,TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),TO_DATE('2026-10-17 20:14:36','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
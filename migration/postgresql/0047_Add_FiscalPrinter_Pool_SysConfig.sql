@@ -0,0 +1,5 @@
+-- 17/10/2026 11:40:05 ART
+-- Idle timeout (seconds) of pooled fiscal printer connections; 0 closes the connection after every action
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000005,'LAR','C','LAR_FiscalPrinter_PoolIdleTimeout','300','Seconds a pooled fiscal printer connection is kept open without use (0 = close after every action).',0,0,TO_TIMESTAMP('2026-10-17 11:40:05','YYYY-MM-DD HH24:MI:SS'),TO_TIMESTAMP('2026-10-17 11:40:05','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
@@ -0,0 +1,22 @@
+ALTER TABLE LAR_Fiscal_Printer ADD COLUMN ResponseTimeProfile Varchar(4000);
+
+-- 17/10/2026 15:42:10 ART
+-- Learned per-command response times of the fiscal printer
+INSERT INTO AD_Element (AD_Element_ID,ColumnName,EntityType,Name,PrintName,AD_Client_ID,Created,Updated,IsActive,CreatedBy,UpdatedBy,AD_Org_ID) VALUES (3000126,'ResponseTimeProfile','LAR','Response Time Profile','Response Time Profile',0,TO_TIMESTAMP('2026-10-17 15:42:10','YYYY-MM-DD HH24:MI:SS'),TO_TIMESTAMP('2026-10-17 15:42:10','YYYY-MM-DD HH24:MI:SS'),'Y',100,100,0)
+;
+
+-- 17/10/2026 15:42:10 ART
+-- Learned per-command response times of the fiscal printer
+INSERT INTO AD_Element_Trl (AD_Language,AD_Element_ID, Help,PO_Description,PO_Help,Name,Description,PrintName,PO_PrintName,PO_Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Element_ID, t.Help,t.PO_Description,t.PO_Help,t.Name,t.Description,t.PrintName,t.PO_PrintName,t.PO_Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Element t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Element_ID=3000126 AND NOT EXISTS (SELECT * FROM AD_Element_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Element_ID=t.AD_Element_ID)
+;
+
+-- 17/10/2026 15:42:10 ART
+-- Learned per-command response times of the fiscal printer
+INSERT INTO AD_Column (AD_Column_ID,AD_Table_ID,EntityType,Version,IsMandatory,IsTranslated,IsIdentifier,IsParent,FieldLength,IsSelectionColumn,AD_Reference_ID,IsKey,AD_Element_ID,IsEncrypted,IsUpdateable,IsAlwaysUpdateable,Name,ColumnName,CreatedBy,Updated,AD_Client_ID,AD_Org_ID,IsActive,Created,UpdatedBy) VALUES (3000821,3000001,'LAR',0,'N','N','N','N',4000,'N',14,'N',3000126,'N','Y','N','Response Time Profile','ResponseTimeProfile',100,TO_TIMESTAMP('2026-10-17 15:42:10','YYYY-MM-DD HH24:MI:SS'),0,0,'Y',TO_TIMESTAMP('2026-10-17 15:42:10','YYYY-MM-DD HH24:MI:SS'),100)
+;
+
+-- 17/10/2026 15:42:10 ART
+-- Learned per-command response times of the fiscal printer
+INSERT INTO AD_Column_Trl (AD_Language,AD_Column_ID, Name, IsTranslated,AD_Client_ID,AD_Org_ID,Created,Createdby,Updated,UpdatedBy) SELECT l.AD_Language,t.AD_Column_ID, t.Name, 'N',t.AD_Client_ID,t.AD_Org_ID,t.Created,t.Createdby,t.Updated,t.UpdatedBy FROM AD_Language l, AD_Column t WHERE l.IsActive='Y' AND l.IsSystemLanguage='Y' AND l.IsBaseLanguage='N' AND t.AD_Column_ID=3000821 AND NOT EXISTS (SELECT * FROM AD_Column_Trl tt WHERE tt.AD_Language=l.AD_Language AND tt.AD_Column_ID=t.AD_Column_ID)
+;
+
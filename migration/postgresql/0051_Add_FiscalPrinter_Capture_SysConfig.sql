@@ -0,0 +1,5 @@
+-- 17/10/2026 15:05:41 ART
+-- Capture of the fiscal printer spooler traffic, replayed to measure communication changes
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000008,'LAR','C','LAR_FiscalPrinter_Capture','N','Record the fiscal printer spooler traffic to capture files for replay benchmarks (Y/N).',0,0,TO_TIMESTAMP('2026-10-17 15:05:41','YYYY-MM-DD HH24:MI:SS'),TO_TIMESTAMP('2026-10-17 15:05:41','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
@@ -0,0 +1,5 @@
+-- 17/10/2026 18:12:06 ART
+-- Send the document lines to the fiscal printer while they are read from the database
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000010,'LAR','C','LAR_FiscalPrinter_StreamLines','Y','Read the invoice lines while the customer data, the header and the first lines are sent to the fiscal printer (Y/N).',0,0,TO_TIMESTAMP('2026-10-17 18:12:06','YYYY-MM-DD HH24:MI:SS'),TO_TIMESTAMP('2026-10-17 18:12:06','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
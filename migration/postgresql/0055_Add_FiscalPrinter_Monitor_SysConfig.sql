@@ -0,0 +1,5 @@
+-- 17/10/2026 18:41:27 ART
+-- Seconds between status requests of the fiscal printer health monitor
+INSERT INTO AD_SysConfig (AD_SysConfig_ID,EntityType,ConfigurationLevel,Name,Value,Description,AD_Client_ID,AD_Org_ID,Created,Updated,CreatedBy,UpdatedBy,IsActive) VALUES (1000011,'LAR','C','LAR_FiscalPrinter_MonitorInterval','60','Seconds between status requests sent to an idle pooled fiscal printer connection, to detect paper out or cover open before printing (0 disables the monitor).',0,0,TO_TIMESTAMP('2026-10-17 18:41:27','YYYY-MM-DD HH24:MI:SS'),TO_TIMESTAMP('2026-10-17 18:41:27','YYYY-MM-DD HH24:MI:SS'),100,100,'Y')
+;
+
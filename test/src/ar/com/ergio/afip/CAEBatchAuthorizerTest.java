@@ -0,0 +1,266 @@
+package ar.com.ergio.afip;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import ar.com.ergio.afip.simulator.CAEServiceSimulator;
+
+public class CAEBatchAuthorizerTest extends TestCase
+{
+    private static final int FACTURA_A = 1;
+    private static final int FACTURA_B = 6;
+    private static final int FACTURA_C = 11;
+
+    private CAEServiceSimulator service;
+    private RecordingAuthorizer authorizer;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        service = new CAEServiceSimulator();
+        authorizer = new RecordingAuthorizer(service);
+    }
+
+    public void testBatchesRespectServiceLimit() throws Exception
+    {
+        service.setMaxRecordsPerRequest(10);
+        List<Voucher> vouchers = createVouchers(1, FACTURA_B, 25);
+        authorizer.authorize(vouchers);
+
+        assertEquals(3, authorizer.getRequestCount());
+        assertEquals(3, service.getRequestCount());
+        assertEquals(25, authorizer.getApprovedCount());
+        assertEquals(25, service.getLastAuthorized(1, FACTURA_B));
+        for (int i = 0; i < vouchers.size(); i++)
+            assertEquals(i + 1, vouchers.get(i).getNumber());
+        assertEquals(25, authorizer.completed.size());
+    }
+
+    public void testConfiguredLimit() throws Exception
+    {
+        authorizer.setMaxRecordsPerRequest(4);
+        authorizer.authorize(createVouchers(1, FACTURA_B, 10));
+
+        assertEquals(3, service.getRequestCount());
+        assertEquals(10, authorizer.getApprovedCount());
+    }
+
+    public void testGroupsByPointOfSaleAndType() throws Exception
+    {
+        List<Voucher> vouchers = new ArrayList<Voucher>();
+        vouchers.addAll(createVouchers(1, FACTURA_B, 3));
+        vouchers.addAll(createVouchers(2, FACTURA_B, 2));
+        vouchers.addAll(createVouchers(1, FACTURA_C, 4));
+        authorizer.authorize(vouchers);
+
+        assertEquals(3, service.getRequestCount());
+        assertEquals(3, service.getLastAuthorized(1, FACTURA_B));
+        assertEquals(2, service.getLastAuthorized(2, FACTURA_B));
+        assertEquals(4, service.getLastAuthorized(1, FACTURA_C));
+        assertEquals(9, authorizer.getApprovedCount());
+    }
+
+    public void testClassAOnePerRequest() throws Exception
+    {
+        List<Voucher> vouchers = createVouchers(1, FACTURA_A, 3);
+        for (Voucher v : vouchers)
+            v.setCustomer(Voucher.DOC_CUIT, 20123456786L);
+        authorizer.authorize(vouchers);
+
+        assertEquals(3, service.getRequestCount());
+        assertEquals(3, authorizer.getApprovedCount());
+    }
+
+    public void testRejectedVoucherRenumbersTheNextOnes() throws Exception
+    {
+        List<Voucher> vouchers = createVouchers(1, FACTURA_B, 5);
+        Voucher bad = vouchers.get(1);
+        bad.setTotalAmt(bad.getTotalAmt().add(BigDecimal.ONE));
+        authorizer.authorize(vouchers);
+
+        assertTrue(bad.isRejected());
+        assertEquals(CAEServiceSimulator.ERROR_TOTAL, bad.getErrorCode());
+        assertEquals(4, authorizer.getApprovedCount());
+        assertEquals(1, authorizer.getRejectedCount());
+        assertEquals(1, vouchers.get(0).getNumber());
+        assertEquals(2, vouchers.get(2).getNumber());
+        assertEquals(4, vouchers.get(4).getNumber());
+        assertEquals(4, service.getLastAuthorized(1, FACTURA_B));
+        assertEquals(2, service.getRequestCount());
+        assertEquals(5, authorizer.completed.size());
+    }
+
+    public void testLostResponseIsRecovered() throws Exception
+    {
+        service.injectFailure(0, true);
+        List<Voucher> vouchers = createVouchers(1, FACTURA_B, 3);
+        authorizer.authorize(vouchers);
+
+        assertEquals(3, authorizer.getApprovedCount());
+        assertEquals(1, service.getRequestCount());
+        assertEquals(3, service.getLastAuthorized(1, FACTURA_B));
+        Set<String> caes = new HashSet<String>();
+        for (Voucher v : vouchers) {
+            assertEquals(service.getAuthorized(1, FACTURA_B, v.getNumber()).getCAE(), v.getCAE());
+            caes.add(v.getCAE());
+        }
+        assertEquals(3, caes.size());
+    }
+
+    public void testLostResponseOfOtherVoucherIsNotRecovered() throws Exception
+    {
+        // Another system authorizes the same numbers and totals for another
+        // customer, and the response to the request is lost
+        service = new CAEServiceSimulator()
+        {
+            private boolean used;
+
+            @Override
+            public synchronized void authorize(int pointOfSale, int voucherType, List<Voucher> vouchers)
+                    throws CAEServiceException
+            {
+                if (!used) {
+                    used = true;
+                    List<Voucher> others = createVouchers(pointOfSale, voucherType, vouchers.size());
+                    for (Voucher v : others) {
+                        v.setNumber(vouchers.get(others.indexOf(v)).getNumber());
+                        v.setCustomer(Voucher.DOC_DNI, 30111222L);
+                    }
+                    super.authorize(pointOfSale, voucherType, others);
+                    throw new CAEServiceException("Read timed out");
+                }
+                super.authorize(pointOfSale, voucherType, vouchers);
+            }
+        };
+        authorizer = new RecordingAuthorizer(service);
+        List<Voucher> vouchers = createVouchers(1, FACTURA_B, 3);
+        authorizer.authorize(vouchers);
+
+        assertEquals(3, authorizer.getApprovedCount());
+        assertEquals(6, service.getLastAuthorized(1, FACTURA_B));
+        for (int i = 0; i < vouchers.size(); i++) {
+            Voucher v = vouchers.get(i);
+            assertEquals(i + 4, v.getNumber());
+            assertEquals(service.getAuthorized(1, FACTURA_B, v.getNumber()).getCAE(), v.getCAE());
+        }
+    }
+
+    public void testFailureBeforeProcessingIsRetried() throws Exception
+    {
+        service.injectFailure(0, false);
+        List<Voucher> vouchers = createVouchers(1, FACTURA_B, 3);
+        authorizer.authorize(vouchers);
+
+        assertEquals(3, authorizer.getApprovedCount());
+        assertEquals(2, service.getRequestCount());
+        assertEquals(3, vouchers.get(2).getNumber());
+        assertEquals(2, vouchers.get(0).getAttempts());
+    }
+
+    public void testNumbersUsedByAnotherSystem() throws Exception
+    {
+        // Another system takes two numbers between the query of the last one and the request
+        service = new CAEServiceSimulator()
+        {
+            private boolean used;
+
+            @Override
+            public synchronized void authorize(int pointOfSale, int voucherType, List<Voucher> vouchers)
+                    throws CAEServiceException
+            {
+                if (!used) {
+                    used = true;
+                    useNumbers(pointOfSale, voucherType, 2);
+                }
+                super.authorize(pointOfSale, voucherType, vouchers);
+            }
+        };
+        authorizer = new RecordingAuthorizer(service);
+        List<Voucher> vouchers = createVouchers(1, FACTURA_B, 3);
+        authorizer.authorize(vouchers);
+
+        assertEquals(3, authorizer.getApprovedCount());
+        assertEquals(2, service.getRequestCount());
+        assertEquals(5, service.getLastAuthorized(1, FACTURA_B));
+        // The last one follows the numbers taken and is approved in the first request
+        Set<Long> numbers = new HashSet<Long>();
+        for (Voucher v : vouchers)
+            numbers.add(v.getNumber());
+        assertEquals(new HashSet<Long>(Arrays.asList(3L, 4L, 5L)), numbers);
+    }
+
+    public void testGivesUpAfterRetries() throws Exception
+    {
+        service = new CAEServiceSimulator()
+        {
+            @Override
+            public synchronized void authorize(int pointOfSale, int voucherType, List<Voucher> vouchers)
+                    throws CAEServiceException
+            {
+                injectFailure(0, false);
+                super.authorize(pointOfSale, voucherType, vouchers);
+            }
+        };
+        authorizer = new RecordingAuthorizer(service);
+        authorizer.setMaxRetries(2);
+        List<Voucher> vouchers = createVouchers(1, FACTURA_B, 3);
+        authorizer.authorize(vouchers);
+
+        assertEquals(3, service.getRequestCount());
+        assertEquals(3, authorizer.getPendingCount());
+        assertEquals("Connection reset", vouchers.get(0).getErrorMsg());
+        assertEquals(0, authorizer.completed.size());
+    }
+
+    private static List<Voucher> createVouchers(int pointOfSale, int voucherType, int count)
+    {
+        List<Voucher> vouchers = new ArrayList<Voucher>(count);
+        Calendar date = Calendar.getInstance();
+        date.set(2026, Calendar.OCTOBER, 1, 0, 0, 0);
+        date.set(Calendar.MILLISECOND, 0);
+        for (int i = 0; i < count; i++) {
+            Voucher v = new Voucher(pointOfSale * 1000 + voucherType * 100 + i, pointOfSale, voucherType);
+            v.setDate(date.getTime());
+            BigDecimal net = BigDecimal.valueOf(100 + i);
+            if (voucherType == FACTURA_C) {
+                v.setNetAmt(net);
+                v.setTotalAmt(net);
+            } else {
+                BigDecimal vat = net.multiply(new BigDecimal("0.21"));
+                v.addVat(Voucher.VAT_21, net, vat);
+                v.setNetAmt(net);
+                v.setVatAmt(vat);
+                v.setTotalAmt(net.add(vat));
+            }
+            vouchers.add(v);
+            if (i % 10 == 9)
+                date.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return vouchers;
+    }
+
+    private static class RecordingAuthorizer extends CAEBatchAuthorizer
+    {
+        final List<Voucher> completed = new ArrayList<Voucher>();
+
+        RecordingAuthorizer(CAEService service)
+        {
+            super(service);
+        }
+
+        @Override
+        protected void completed(List<Voucher> vouchers)
+        {
+            for (Voucher v : vouchers)
+                assertFalse(v.isPending());
+            completed.addAll(vouchers);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2006 Adempiere, Inc. All Rights Reserved.               *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.compiere.model.MInvoice;
+import org.compiere.util.Env;
+
+import test.AdempiereTestCase;
+import ar.com.ergio.model.FiscalDocumentAssembler.Header;
+import ar.com.ergio.model.FiscalDocumentAssembler.Line;
+import ar.com.ergio.print.fiscal.document.CreditNote;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DiscountLine;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.DocumentLineFeed;
+import ar.com.ergio.print.fiscal.document.Invoice;
+
+public class FiscalDocumentAssemblerTest extends AdempiereTestCase
+{
+    private X_LAR_Fiscal_Printer_Type fiscalPrinterType;
+    private MFiscalPrinter fiscalPrinter;
+    private FiscalDocumentPrint fdp;
+    private FixtureAssembler assembler;
+    private MInvoice invoice;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        fiscalPrinterType = new X_LAR_Fiscal_Printer_Type(getCtx(), 0, getTrxName());
+        fiscalPrinterType.setClazz("ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F");
+        fiscalPrinterType.setIsActive(true);
+        fiscalPrinterType.setName("Test Printer Type");
+        fiscalPrinterType.save();
+        fiscalPrinter = new MFiscalPrinter(getCtx(), 0, getTrxName());
+        fiscalPrinter.setLAR_Fiscal_Printer_Type_ID(fiscalPrinterType.getLAR_Fiscal_Printer_Type_ID());
+        fiscalPrinter.setName("Test Printer");
+        fiscalPrinter.setHost("localhost");
+        fiscalPrinter.setPort(9911);
+        fiscalPrinter.setStatus(MFiscalPrinter.STATUS_IDLE);
+        fiscalPrinter.setOnPrintUseProductReference(false);
+        fiscalPrinter.setOnPrintProductFormat(MFiscalPrinter.ONPRINTPRODUCTFORMAT_ValueName);
+        fiscalPrinter.save();
+        commit();
+
+        fdp = new FiscalDocumentPrint(fiscalPrinter.getLAR_Fiscal_Printer_ID());
+        assembler = new FixtureAssembler(fdp, fiscalPrinter);
+        invoice = new MInvoice(getCtx(), 0, getTrxName());
+        invoice.set_ValueOfColumn("WithHoldingAmt", Env.ZERO);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        FiscalPrinterPool.getInstance().invalidate(fiscalPrinter.getLAR_Fiscal_Printer_ID());
+        fiscalPrinter.delete(true, getTrxName());
+        fiscalPrinterType.delete(true, getTrxName());
+        commit();
+        super.tearDown();
+    }
+
+    public void testInvoiceLines() throws Exception
+    {
+        assembler.lines.add(createProductLine(10, "2", "121.00", null, "R-0001"));
+        assembler.lines.add(createProductLine(20, "1", "50.00", null, "R-0001"));
+
+        Invoice document = assembler.createInvoice(invoice);
+
+        assertEquals("B", document.getLetter());
+        assertEquals(2, document.getLines().size());
+        DocumentLine line = document.getLines().get(0);
+        assertEquals(10, line.getLineNumber());
+        assertEquals("P10 Producto 10", line.getDescription());
+        assertEquals(0, new BigDecimal("121.00").compareTo(line.getUnitPrice()));
+        assertEquals(0, new BigDecimal("2").compareTo(line.getQuantity()));
+        assertEquals(0, new BigDecimal("21").compareTo(line.getIvaRate()));
+        assertTrue(line.isPriceIncludeIva());
+        assertNull(line.getDiscount());
+        // Order and shipment numbers, each shipment once
+        assertEquals(2, document.getObservations().size());
+        assertTrue(document.getObservations().get(0).endsWith(": 1000123"));
+        assertTrue(document.getObservations().get(1).endsWith(": R-0001"));
+        assertNull(document.getPerceptionLine());
+    }
+
+    public void testDiscountIsPrintedOverTheListPrice() throws Exception
+    {
+        // 10% off a unit price of 100.00
+        assembler.lines.add(createProductLine(10, "2", "90.00", "10", null));
+
+        Invoice document = assembler.createInvoice(invoice);
+
+        DocumentLine line = document.getLines().get(0);
+        assertEquals(0, new BigDecimal("100.00").compareTo(line.getUnitPrice()));
+        DiscountLine discount = line.getDiscount();
+        assertNotNull(discount);
+        assertTrue(discount.isDiscount());
+        assertEquals(0, new BigDecimal("20.00").compareTo(discount.getAmount()));
+        assertFalse(discount.isAmountIncludeIva());
+    }
+
+    public void testLinesWithoutQuantityAreSkipped() throws Exception
+    {
+        Line comment = createProductLine(10, "0", "0", null, null);
+        comment.M_Product_ID = 0;
+        comment.description = "Remito R-0001";
+        assembler.lines.add(comment);
+        assembler.lines.add(createProductLine(20, "1", "10.00", null, null));
+        assembler.lines.add(createProductLine(30, "-1", "10.00", null, null));
+
+        Invoice document = assembler.createInvoice(invoice);
+
+        assertEquals(1, document.getLines().size());
+        assertEquals(20, document.getLines().get(0).getLineNumber());
+    }
+
+    public void testStreamedLinesAreReadOnTheCallingThread() throws Exception
+    {
+        assembler.setStreamLines(true);
+        assembler.lines.add(createProductLine(10, "1", "121.00", null, "R-0001"));
+        assembler.lines.add(createProductLine(20, "0", "0", null, null));
+        assembler.lines.add(createProductLine(30, "2", "50.00", null, null));
+
+        Invoice document = assembler.createInvoice(invoice);
+
+        // The invoice transaction is only used by the thread that prints
+        assertSame(Thread.currentThread(), assembler.loadThread);
+        assertEquals(getTrxName(), assembler.loadTrxName);
+        assertTrue(document.isStreamed());
+        assertTrue(document.getObservations().get(1).endsWith(": R-0001"));
+        DocumentLineFeed feed = document.getLineFeed();
+        assertEquals(10, feed.take().getLineNumber());
+        assertEquals(30, feed.take().getLineNumber());
+        assertNull(feed.take());
+    }
+
+    public void testConsumidorFinalIsNotIdentified() throws Exception
+    {
+        Invoice document = assembler.createInvoice(invoice);
+
+        Customer customer = document.getCustomer();
+        assertEquals("Cliente de prueba", customer.getName());
+        assertEquals(Customer.CONSUMIDOR_FINAL, customer.getIvaResponsibility());
+        assertTrue(customer.getIdentificationType() != Customer.CUIT);
+        assertNull(customer.getIdentificationNumber());
+    }
+
+    public void testCustomerWithTaxIDIsIdentifiedByCUIT() throws Exception
+    {
+        assembler.taxPayerType = LAR_TaxPayerType.RESPONSABLE_INSCRIPTO.getName();
+        assembler.taxID = "30711353123";
+        assembler.letter = "A";
+
+        Invoice document = assembler.createInvoice(invoice);
+
+        Customer customer = document.getCustomer();
+        assertEquals(Customer.RESPONSABLE_INSCRIPTO, customer.getIvaResponsibility());
+        assertEquals(Customer.CUIT, customer.getIdentificationType());
+        assertEquals("30711353123", customer.getIdentificationNumber());
+        assertEquals("A", document.getLetter());
+    }
+
+    public void testCreditNoteOfSourceInvoice() throws Exception
+    {
+        assembler.sourceInvoiceNo = "B000100000023";
+        assembler.lines.add(createProductLine(10, "1", "121.00", null, null));
+
+        CreditNote creditNote = assembler.createCreditNote(invoice, null);
+
+        assertEquals("0001-00000023", creditNote.getOriginalDocumentNo());
+        assertEquals(Customer.CONSUMIDOR_FINAL, creditNote.getCustomer().getIvaResponsibility());
+        assertEquals(1, creditNote.getLines().size());
+        // No order or shipment observations on credit notes
+        assertTrue(creditNote.getObservations().isEmpty());
+    }
+
+    public void testCreditNoteOfGivenInvoice() throws Exception
+    {
+        MInvoice original = new MInvoice(getCtx(), 0, getTrxName());
+        original.setDocumentNo("B000200000045");
+        assembler.sourceInvoiceNo = "B000100000023";
+
+        CreditNote creditNote = assembler.createCreditNote(invoice, original);
+
+        assertEquals("0002-00000045", creditNote.getOriginalDocumentNo());
+        assertTrue(creditNote.getLines().isEmpty());
+    }
+
+    private static Line createProductLine(int lineNo, String qty, String price, String discount, String inOutNo)
+    {
+        Line line = new Line();
+        line.line = lineNo;
+        line.qtyEntered = new BigDecimal(qty);
+        line.priceActual = new BigDecimal(price);
+        line.M_Product_ID = 1000000 + lineNo;
+        line.discount = discount == null ? Env.ZERO : new BigDecimal(discount);
+        line.taxRate = new BigDecimal("21");
+        line.inOutNo = inOutNo;
+        line.productValue = "P" + lineNo;
+        line.productName = "Producto " + lineNo;
+        return line;
+    }
+
+    /**
+     * Assembler that reads a fixture invoice instead of the database.
+     */
+    private static class FixtureAssembler extends FiscalDocumentAssembler
+    {
+        String taxPayerType = LAR_TaxPayerType.CONSUMIDOR_FINAL.getName();
+        String taxID;
+        String letter = "B";
+        String sourceInvoiceNo;
+        final List<Line> lines = new ArrayList<Line>();
+        Thread loadThread;
+        String loadTrxName;
+
+        FixtureAssembler(FiscalDocumentPrint fdp, MFiscalPrinter fiscalPrinter)
+        {
+            super(fdp, fiscalPrinter);
+        }
+
+        @Override
+        Header loadHeader(int C_BPartner_ID, int C_BPartner_Location_ID, int C_Order_ID, int M_PriceList_ID,
+                int LAR_DocumentLetter_ID, int Source_Invoice_ID, String trxName)
+        {
+            Header header = new Header();
+            setCustomer(header.customer, "Cliente de prueba", taxID, taxPayerType, 0, trxName);
+            header.orderNo = "1000123";
+            header.taxIncluded = true;
+            header.letter = letter;
+            header.sourceInvoiceNo = sourceInvoiceNo;
+            return header;
+        }
+
+        @Override
+        List<Line> loadLines(MInvoice mInvoice)
+        {
+            loadThread = Thread.currentThread();
+            loadTrxName = mInvoice.get_TrxName();
+            return lines;
+        }
+    }
+}
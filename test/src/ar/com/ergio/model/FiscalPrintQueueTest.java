@@ -0,0 +1,197 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2006 Adempiere, Inc. All Rights Reserved.               *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.List;
+import java.util.Properties;
+
+import org.compiere.model.MInvoice;
+import org.compiere.process.DocAction;
+
+import test.AdempiereTestCase;
+import ar.com.ergio.model.FiscalDocumentPrint.Actions;
+import ar.com.ergio.model.FiscalPrintQueue.JobStore;
+import ar.com.ergio.model.FiscalPrintQueue.Request;
+
+public class FiscalPrintQueueTest extends AdempiereTestCase
+{
+    private static final int PRINTER_ID = 1000099;
+    private static final int INVOICE_ID = 1000100;
+
+    private File file;
+    private JobStore store;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        file = File.createTempFile("printer-" + PRINTER_ID, ".queue");
+        store = new JobStore(PRINTER_ID, file);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testQueuedJobIsLoaded() throws Exception
+    {
+        store.queued(createRequest(1, FiscalPrintQueue.LANE_BACK_OFFICE, Actions.ACTION_PRINT_DOCUMENT, 10));
+        store.queued(createRequest(2, FiscalPrintQueue.LANE_POS, Actions.ACTION_PRINT_DOCUMENT, 20));
+
+        List<Request> pending = new JobStore(PRINTER_ID, file).load();
+        assertEquals(2, pending.size());
+        Request first = pending.get(0);
+        assertEquals(1, first.id);
+        assertEquals(FiscalPrintQueue.LANE_BACK_OFFICE, first.lane);
+        assertEquals(Actions.ACTION_PRINT_DOCUMENT, first.action);
+        assertEquals(MInvoice.Table_ID, first.AD_Table_ID);
+        assertEquals(10, first.Record_ID);
+        assertTrue(first.restored);
+        assertNull(first.fdp);
+        assertEquals(FiscalPrintQueue.LANE_POS, pending.get(1).lane);
+    }
+
+    public void testFinishedJobIsNotLoaded() throws Exception
+    {
+        Request request = createRequest(1, FiscalPrintQueue.LANE_POS, Actions.ACTION_PRINT_DOCUMENT, 10);
+        store.queued(request);
+        store.finished(request);
+
+        assertTrue(new JobStore(PRINTER_ID, file).load().isEmpty());
+    }
+
+    public void testStartedJobIsNotLoaded() throws Exception
+    {
+        Request request = createRequest(1, FiscalPrintQueue.LANE_POS, Actions.ACTION_PRINT_DOCUMENT, 10);
+        store.queued(request);
+        store.started(request);
+
+        assertTrue(new JobStore(PRINTER_ID, file).load().isEmpty());
+    }
+
+    public void testFiscalCloseIsNotSaved() throws Exception
+    {
+        store.queued(createRequest(1, FiscalPrintQueue.LANE_BACK_OFFICE, Actions.ACTION_FISCAL_CLOSE, 0));
+
+        assertEquals(0, file.length());
+        assertTrue(store.load().isEmpty());
+    }
+
+    public void testClearRemovesJobs() throws Exception
+    {
+        store.queued(createRequest(1, FiscalPrintQueue.LANE_POS, Actions.ACTION_PRINT_DOCUMENT, 10));
+        store.clear();
+
+        assertEquals(0, file.length());
+        assertTrue(store.load().isEmpty());
+    }
+
+    public void testLoadKeepsPendingJobs() throws Exception
+    {
+        store.queued(createRequest(1, FiscalPrintQueue.LANE_POS, Actions.ACTION_PRINT_DOCUMENT, 10));
+        store.queued(createRequest(2, FiscalPrintQueue.LANE_POS, Actions.ACTION_PRINT_DOCUMENT, 20));
+        store.started(createRequest(2, FiscalPrintQueue.LANE_POS, Actions.ACTION_PRINT_DOCUMENT, 20));
+
+        assertEquals(1, store.load().size());
+        // Rewritten with the pending job only, so a second crash restores it again
+        List<Request> pending = new JobStore(PRINTER_ID, file).load();
+        assertEquals(1, pending.size());
+        assertEquals(10, pending.get(0).Record_ID);
+    }
+
+    public void testInvalidLinesAreIgnored() throws Exception
+    {
+        FileWriter writer = new FileWriter(file);
+        writer.write("Q 1 0 ACTION_PRINT_DOCUMENT " + MInvoice.Table_ID + " 10\n");
+        writer.write("Q 2 0 UNKNOWN_ACTION 1 1\n");
+        writer.write("Q 3 0 ACTION_PRINT_DOC");
+        writer.close();
+
+        List<Request> pending = store.load();
+        assertEquals(1, pending.size());
+        assertEquals(1, pending.get(0).id);
+    }
+
+    public void testPendingInvoiceIsPrinted() throws Exception
+    {
+        assertTrue(Request.isPrintPending(createInvoice(DocAction.STATUS_Completed, false)));
+    }
+
+    public void testPrintedInvoiceIsSkipped() throws Exception
+    {
+        assertFalse(Request.isPrintPending(createInvoice(DocAction.STATUS_Completed, true)));
+    }
+
+    public void testVoidedInvoiceIsSkipped() throws Exception
+    {
+        assertFalse(Request.isPrintPending(createInvoice(DocAction.STATUS_Voided, false)));
+        assertFalse(Request.isPrintPending(createInvoice(DocAction.STATUS_Reversed, false)));
+    }
+
+    public void testDeletedInvoiceIsSkipped() throws Exception
+    {
+        assertFalse(Request.isPrintPending(null));
+    }
+
+    public void testRestoredJobSkipsPrintedInvoice() throws Exception
+    {
+        Request request = createRequest(1, FiscalPrintQueue.LANE_POS, Actions.ACTION_PRINT_DOCUMENT, INVOICE_ID);
+        request.restored = true;
+        request.document = createInvoice(DocAction.STATUS_Completed, true);
+
+        assertEquals(Boolean.TRUE, request.call());
+        // Ended before creating the document print, so nothing reached the printer
+        assertNull(request.fdp);
+    }
+
+    private static Request createRequest(long id, int lane, Actions action, int Record_ID)
+    {
+        Request request = new Request(PRINTER_ID, action, Record_ID > 0 ? MInvoice.Table_ID : 0, Record_ID, null);
+        request.id = id;
+        request.lane = lane;
+        return request;
+    }
+
+    private MInvoice createInvoice(String docStatus, boolean fiscalPrinted)
+    {
+        MInvoice invoice = new TestInvoice(getCtx(), getTrxName());
+        invoice.setDocStatus(docStatus);
+        invoice.set_ValueOfColumn("IsFiscalPrinted", Boolean.valueOf(fiscalPrinted));
+        return invoice;
+    }
+
+    /**
+     * Invoice read back from the database, without saving it.
+     */
+    private static class TestInvoice extends MInvoice
+    {
+        private static final long serialVersionUID = 1L;
+
+        TestInvoice(Properties ctx, String trxName)
+        {
+            super(ctx, 0, trxName);
+        }
+
+        @Override
+        public int get_ID()
+        {
+            return INVOICE_ID;
+        }
+    }
+}
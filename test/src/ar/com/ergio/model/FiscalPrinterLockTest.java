@@ -0,0 +1,63 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2006 Adempiere, Inc. All Rights Reserved.               *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.sql.Timestamp;
+
+import junit.framework.TestCase;
+
+public class FiscalPrinterLockTest extends TestCase
+{
+    private static final long LEASE_TIME = 120000;
+    private static final long NOW = 1790000000000L;
+
+    public void testLeaseExpiry()
+    {
+        assertEquals(NOW + 5000,
+                FiscalPrinterLock.getLeaseExpiry(new Timestamp(NOW + 5000), new Timestamp(NOW - 1000), LEASE_TIME));
+    }
+
+    public void testBusyWithoutLeaseExpiresAfterLeaseTime()
+    {
+        assertEquals(NOW - 1000 + LEASE_TIME,
+                FiscalPrinterLock.getLeaseExpiry(null, new Timestamp(NOW - 1000), LEASE_TIME));
+    }
+
+    public void testBusyWithoutDates()
+    {
+        assertEquals(0, FiscalPrinterLock.getLeaseExpiry(null, null, LEASE_TIME));
+    }
+
+    public void testWaitsUntilLeaseExpires()
+    {
+        assertEquals(3000, FiscalPrinterLock.getExpiryWait(5000, NOW + 3000, NOW));
+    }
+
+    public void testWaitIsLimited()
+    {
+        assertEquals(5000, FiscalPrinterLock.getExpiryWait(5000, NOW + LEASE_TIME, NOW));
+    }
+
+    public void testExpiredLeaseDoesNotSpin()
+    {
+        // A NULL LeaseExpires used to give expiry 0 and a negative wait
+        assertEquals(FiscalPrinterLock.MIN_WAIT_SLICE, FiscalPrinterLock.getExpiryWait(5000, 0, NOW));
+        assertEquals(FiscalPrinterLock.MIN_WAIT_SLICE, FiscalPrinterLock.getExpiryWait(5000, NOW - 1, NOW));
+    }
+
+    public void testWaitNotBeyondDeadline()
+    {
+        assertEquals(50, FiscalPrinterLock.getExpiryWait(50, 0, NOW));
+    }
+}
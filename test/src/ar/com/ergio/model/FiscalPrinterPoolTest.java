@@ -0,0 +1,245 @@
+/******************************************************************************
+ * Product: Adempiere ERP & CRM Smart Business Solution                       *
+ * Copyright (C) 1999-2006 Adempiere, Inc. All Rights Reserved.               *
+ * This program is free software; you can redistribute it and/or modify it    *
+ * under the terms version 2 of the GNU General Public License as published   *
+ * by the Free Software Foundation. This program is distributed in the hope   *
+ * that it will be useful, but WITHOUT ANY WARRANTY; without even the implied *
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.           *
+ * See the GNU General Public License for more details.                       *
+ * You should have received a copy of the GNU General Public License along    *
+ * with this program; if not, write to the Free Software Foundation, Inc.,    *
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.                     *
+ *****************************************************************************/
+package ar.com.ergio.model;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import test.AdempiereTestCase;
+import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulator;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulatorComm;
+
+public class FiscalPrinterPoolTest extends AdempiereTestCase
+{
+    private FiscalPrinterPool pool;
+    private HasarSimulator simulator;
+    private CountingComm comm;
+    private TestPrinter fiscalPrinter;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        pool = new FiscalPrinterPool();
+        simulator = new HasarSimulator();
+        comm = new CountingComm(simulator);
+        fiscalPrinter = new TestPrinter(getCtx(), getTrxName(), "localhost");
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        pool.invalidate(fiscalPrinter.getLAR_Fiscal_Printer_ID());
+        super.tearDown();
+    }
+
+    public void testAcquireConnectsAndReleaseKeepsConnection() throws Exception
+    {
+        FiscalPrinterDevice device = pool.acquire(fiscalPrinter);
+        assertTrue(device.isConnected());
+        pool.release(fiscalPrinter, false);
+
+        assertTrue(device.isConnected());
+        assertTrue(pool.hasIdleConnection(fiscalPrinter));
+        assertEquals(1, comm.connects);
+    }
+
+    public void testDeviceIsReused() throws Exception
+    {
+        FiscalPrinterDevice first = pool.acquire(fiscalPrinter);
+        pool.release(fiscalPrinter, false);
+        FiscalPrinterDevice second = pool.acquire(fiscalPrinter);
+        pool.release(fiscalPrinter, false);
+
+        assertSame(first, second);
+        assertSame(first, pool.getDevice(fiscalPrinter));
+        assertEquals(1, comm.connects);
+    }
+
+    public void testDiscardClosesConnection() throws Exception
+    {
+        FiscalPrinterDevice device = pool.acquire(fiscalPrinter);
+        pool.release(fiscalPrinter, true);
+
+        assertFalse(device.isConnected());
+        assertFalse(pool.hasIdleConnection(fiscalPrinter));
+        assertSame(device, pool.acquire(fiscalPrinter));
+        assertTrue(device.isConnected());
+        assertEquals(2, comm.connects);
+        pool.release(fiscalPrinter, false);
+    }
+
+    public void testReconnectsWhenConnectionIsNotAlive() throws Exception
+    {
+        FiscalPrinterDevice device = pool.acquire(fiscalPrinter);
+        pool.release(fiscalPrinter, false);
+        comm.alive = false;
+
+        pool.acquire(fiscalPrinter);
+        pool.release(fiscalPrinter, false);
+        assertTrue(device.isConnected());
+        assertEquals(2, comm.connects);
+    }
+
+    public void testAcquireIsExclusive() throws Exception
+    {
+        pool.acquire(fiscalPrinter);
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread other = new Thread() {
+            @Override
+            public void run()
+            {
+                try {
+                    pool.acquire(fiscalPrinter);
+                    acquired.countDown();
+                    pool.release(fiscalPrinter, false);
+                } catch (Exception e) {
+                    fail(e.getMessage());
+                }
+            }
+        };
+        other.start();
+
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        assertFalse(pool.hasIdleConnection(fiscalPrinter));
+        pool.release(fiscalPrinter, false);
+        assertTrue(acquired.await(2, TimeUnit.SECONDS));
+        other.join(2000);
+    }
+
+    public void testReleaseFromOtherThreadIsIgnored() throws Exception
+    {
+        pool.acquire(fiscalPrinter);
+        Thread other = new Thread() {
+            @Override
+            public void run()
+            {
+                pool.release(fiscalPrinter, true);
+            }
+        };
+        other.start();
+        other.join(2000);
+
+        assertTrue(pool.getDevice(fiscalPrinter).isConnected());
+        pool.release(fiscalPrinter, false);
+    }
+
+    public void testConfigurationChangeCreatesNewDevice() throws Exception
+    {
+        FiscalPrinterDevice first = pool.acquire(fiscalPrinter);
+        pool.release(fiscalPrinter, false);
+
+        fiscalPrinter.host = "otherhost";
+        FiscalPrinterDevice second = pool.acquire(fiscalPrinter);
+        pool.release(fiscalPrinter, false);
+
+        assertNotSame(first, second);
+        assertFalse(first.isConnected());
+    }
+
+    public void testConfigurationChangeWhileHeldClosesOldDevice() throws Exception
+    {
+        final FiscalPrinterDevice first = pool.acquire(fiscalPrinter);
+        fiscalPrinter.host = "otherhost";
+        final FiscalPrinterDevice[] second = new FiscalPrinterDevice[1];
+        Thread other = new Thread() {
+            @Override
+            public void run()
+            {
+                try {
+                    second[0] = pool.acquire(fiscalPrinter);
+                    pool.release(fiscalPrinter, false);
+                } catch (Exception e) {
+                    fail(e.getMessage());
+                }
+            }
+        };
+        other.start();
+        other.join(2000);
+
+        assertNotNull(second[0]);
+        assertNotSame(first, second[0]);
+        // The holder releases the replaced device: it is closed, not leaked
+        pool.release(fiscalPrinter, false);
+        assertFalse(first.isConnected());
+        assertTrue(second[0].isConnected());
+        assertTrue(pool.hasIdleConnection(fiscalPrinter));
+        assertSame(second[0], pool.acquire(fiscalPrinter));
+        pool.release(fiscalPrinter, false);
+    }
+
+    /**
+     * Printer configuration that is not saved, whose device talks to the
+     * in-process simulator.
+     */
+    private class TestPrinter extends MFiscalPrinter
+    {
+        private static final long serialVersionUID = 1L;
+        String host;
+
+        TestPrinter(Properties ctx, String trxName, String host)
+        {
+            super(ctx, 0, trxName);
+            this.host = host;
+        }
+
+        @Override
+        public int getLAR_Fiscal_Printer_ID()
+        {
+            return 1000099;
+        }
+
+        @Override
+        public String getHost()
+        {
+            return host;
+        }
+
+        @Override
+        public FiscalPrinterDevice getFiscalPrinter() throws Exception
+        {
+            comm = new CountingComm(simulator);
+            return new HasarPrinterP320F(comm);
+        }
+    }
+
+    private static class CountingComm extends HasarSimulatorComm
+    {
+        int connects = 0;
+        boolean alive = true;
+
+        CountingComm(HasarSimulator simulator)
+        {
+            super(simulator);
+        }
+
+        @Override
+        public void connect() throws IOException
+        {
+            connects++;
+            alive = true;
+            super.connect();
+        }
+
+        @Override
+        public boolean isAlive()
+        {
+            return alive && super.isAlive();
+        }
+    }
+}
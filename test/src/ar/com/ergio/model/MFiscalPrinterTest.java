@@ -13,12 +13,19 @@
  *****************************************************************************/
 package ar.com.ergio.model;
 
+import java.io.IOException;
+import java.util.Properties;
+
 import org.compiere.util.CLogger;
 import org.compiere.util.CPreparedStatement;
 import org.compiere.util.DB;
 
 import test.AdempiereTestCase;
 import ar.com.ergio.print.fiscal.FiscalPrinterDevice;
+import ar.com.ergio.print.fiscal.comm.FiscalComm;
+import ar.edu.ifes.print.fiscal.epson.EpsonFiscalPrinter;
+import ar.edu.ifes.print.fiscal.epson.simulator.EpsonSimulator;
+import ar.edu.ifes.print.fiscal.epson.simulator.EpsonSimulatorDevice;
 
 public class MFiscalPrinterTest extends AdempiereTestCase
 {
@@ -87,4 +94,48 @@ public class MFiscalPrinterTest extends AdempiereTestCase
         assertNotNull(mFiscalPrinter);
         assertNotNull(printer);
     }
+
+    public void testEpsonHostIsNeverSimulated() throws Exception
+    {
+        MFiscalPrinter mFiscalPrinter = new MFiscalPrinter(getCtx(), 0, getTrxName());
+        FiscalComm comm = mFiscalPrinter.createEpsonComm("simulator", 9100);
+        try {
+            comm.connect();
+            fail("Connected to host \"simulator\"");
+        } catch (IOException e) {
+            // Production looks up the host like any other converter
+        }
+    }
+
+    public void testEpsonSimulatorIsInjected() throws Exception
+    {
+        EpsonSimulator simulator = new EpsonSimulator();
+        MFiscalPrinter mFiscalPrinter = new SimulatedEpsonPrinter(getCtx(), getTrxName(), simulator);
+        EpsonFiscalPrinter printer = new EpsonFiscalPrinter(mFiscalPrinter.createEpsonComm("localhost", 9100));
+        printer.connect();
+
+        assertTrue(printer.isConnected());
+        printer.close();
+    }
+
+    /**
+     * Printer configuration whose Epson comm talks to the in-memory simulator.
+     */
+    private static class SimulatedEpsonPrinter extends MFiscalPrinter
+    {
+        private static final long serialVersionUID = 1L;
+        private final EpsonSimulator simulator;
+
+        SimulatedEpsonPrinter(Properties ctx, String trxName, EpsonSimulator simulator)
+        {
+            super(ctx, 0, trxName);
+            this.simulator = simulator;
+        }
+
+        @Override
+        protected FiscalComm createEpsonComm(String host, int port)
+        {
+            return new EpsonSimulatorDevice(simulator).createComm();
+        }
+    }
 }
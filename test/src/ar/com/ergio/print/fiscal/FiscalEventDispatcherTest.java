@@ -0,0 +1,92 @@
+package ar.com.ergio.print.fiscal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class FiscalEventDispatcherTest extends TestCase
+{
+    private FiscalEventDispatcher dispatcher;
+    private List<String> delivered;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        dispatcher = new FiscalEventDispatcher();
+        dispatcher.setProgressInterval(50);
+        delivered = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    public void testProgressIsCoalescedAndDoesNotBlockTheCaller() throws Exception
+    {
+        final Object source = new Object();
+        // A slow listener
+        dispatcher.post(source, event("slow", 200));
+        long start = System.currentTimeMillis();
+        for (int i = 1; i <= 1000; i++) {
+            dispatcher.postProgress(source, event("progress " + i, 0));
+        }
+        assertTrue("Posting must not wait for listeners", System.currentTimeMillis() - start < 150);
+        dispatcher.flush(source);
+
+        assertEquals("slow", delivered.get(0));
+        assertEquals("progress 1000", delivered.get(delivered.size() - 1));
+        assertTrue("Progress must be coalesced: " + delivered.size(), delivered.size() <= 3);
+    }
+
+    public void testEventsKeepTheirOrder() throws Exception
+    {
+        final Object source = new Object();
+        dispatcher.postProgress(source, event("progress 1", 0));
+        dispatcher.flush(source);
+        // The next progress is not due yet, but the status event must come after it
+        dispatcher.postProgress(source, event("progress 2", 0));
+        dispatcher.post(source, event("status", 0));
+        dispatcher.postProgress(source, event("progress 3", 0));
+        dispatcher.post(source, event("ended", 0));
+        dispatcher.flush(source);
+
+        assertEquals("[progress 1, progress 2, status, progress 3, ended]", delivered.toString());
+    }
+
+    public void testSourcesAreIndependent() throws Exception
+    {
+        Object first = new Object();
+        Object second = new Object();
+        dispatcher.postProgress(first, event("first 1", 0));
+        dispatcher.flush(first);
+        // Not due for 50 ms
+        dispatcher.postProgress(first, event("first 2", 0));
+        dispatcher.post(second, event("second", 0));
+        dispatcher.flush(second);
+
+        assertEquals("[first 1, second]", delivered.toString());
+        dispatcher.flush(first);
+        assertEquals("[first 1, second, first 2]", delivered.toString());
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    //  Support Test Behavior
+    //////////////////////////////////////////////////////////////////////////
+
+    private Runnable event(final String name, final long delay)
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                if (delay > 0) {
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException e) {
+                        // Ignored
+                    }
+                }
+                delivered.add(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package ar.com.ergio.print.fiscal.comm;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+
+public class HasarProtocolCommTest extends TestCase
+{
+    private HasarFiscalPrinter printer;
+    private PipedInputStream hostIn;
+    private PipedOutputStream hostOut;
+    private PipedInputStream deviceIn;
+    private PipedOutputStream deviceOut;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        printer = new HasarPrinterP320F();
+        hostIn = new PipedInputStream(4096);
+        deviceOut = new PipedOutputStream(hostIn);
+        deviceIn = new PipedInputStream(4096);
+        hostOut = new PipedOutputStream(deviceIn);
+    }
+
+    public void testFrameRoundTrip()
+    {
+        byte[] payload = "*".getBytes();
+        byte[] frame = HasarProtocolFrame.encode(0x21, payload, 0, payload.length);
+        assertEquals("\u0002!*\u00030050", new String(frame));
+
+        HasarProtocolFrame decoder = new HasarProtocolFrame();
+        int event = HasarProtocolFrame.EVENT_NONE;
+        for (byte b : frame) {
+            event = decoder.feed(b);
+        }
+        assertEquals(HasarProtocolFrame.EVENT_FRAME, event);
+        assertEquals(0x21, decoder.getSequence());
+        assertEquals("*", new String(decoder.getPayload()));
+
+        frame[frame.length - 1] = '1';
+        for (byte b : frame) {
+            event = decoder.feed(b);
+        }
+        assertEquals("Wrong BCC was accepted", HasarProtocolFrame.EVENT_BAD_FRAME, event);
+    }
+
+    public void testRetransmitsAfterNakAndSkipsKeepAlives() throws Exception
+    {
+        final int[] framesReceived = new int[1];
+        final byte[] ack = new byte[1];
+        Thread device = new Thread() {
+            @Override
+            public void run()
+            {
+                try {
+                    HasarProtocolFrame decoder = new HasarProtocolFrame();
+                    int b;
+                    while ((b = deviceIn.read()) != -1) {
+                        if (decoder.feed((byte) b) != HasarProtocolFrame.EVENT_FRAME) {
+                            continue;
+                        }
+                        if (++framesReceived[0] == 1) {
+                            deviceOut.write(HasarProtocolFrame.NAK);
+                            deviceOut.flush();
+                            continue;
+                        }
+                        deviceOut.write(new byte[] { HasarProtocolFrame.DC2, HasarProtocolFrame.DC2 });
+                        byte[] rsp = "*\u001C0080\u001C0600\u001C0".getBytes();
+                        deviceOut.write(HasarProtocolFrame.encode(decoder.getSequence(), rsp, 0, rsp.length));
+                        deviceOut.flush();
+                        ack[0] = (byte) deviceIn.read();
+                        return;
+                    }
+                } catch (IOException e) {
+                    // Fin del test
+                }
+            }
+        };
+        device.setDaemon(true);
+        device.start();
+
+        HasarProtocolComm comm = new HasarProtocolComm(hostIn, hostOut);
+        comm.setResponseTimeout(1000);
+        comm.connect();
+        try {
+            FiscalPacket response = new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+            comm.execute(printer.cmdStatusRequest(), response);
+            device.join(1000);
+
+            assertEquals(2, framesReceived[0]);
+            assertEquals(HasarProtocolFrame.ACK, ack[0]);
+            assertEquals(0x2A, response.getCommandCode());
+            assertEquals(0x0080, response.getPrinterStatus());
+            assertEquals(0x0600, response.getFiscalStatus());
+            assertEquals("0", response.getString(3));
+        } finally {
+            comm.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ar.com.ergio.print.fiscal.comm;
+
+import junit.framework.TestCase;
+
+public class ResponseTimeProfileTest extends TestCase
+{
+    private static final int CMD_STATUS = 0x2A;
+    private static final int CMD_CLOSE_JOURNAL = 0x39;
+
+    public void testDefaultsUntilEnoughSamples()
+    {
+        ResponseTimeProfile profile = new ResponseTimeProfile();
+        for (int i = 0; i < ResponseTimeProfile.MIN_SAMPLES - 1; i++)
+            profile.record(CMD_STATUS, 10, 5);
+
+        assertEquals(500, profile.getQuietPeriod(CMD_STATUS, 500));
+        assertEquals(2000, profile.getFirstByteTimeout(CMD_STATUS, 2000));
+        assertTrue(profile.isModified());
+    }
+
+    public void testFastCommandShortensQuietPeriod()
+    {
+        ResponseTimeProfile profile = new ResponseTimeProfile();
+        for (int i = 0; i < ResponseTimeProfile.MIN_SAMPLES; i++)
+            profile.record(CMD_STATUS, 10, 5);
+
+        assertEquals(60, profile.getQuietPeriod(CMD_STATUS, 500));
+        // La espera del primer byte nunca baja de la configurada
+        assertEquals(2000, profile.getFirstByteTimeout(CMD_STATUS, 2000));
+    }
+
+    public void testSlowCommandExtendsFirstByteTimeout()
+    {
+        ResponseTimeProfile profile = new ResponseTimeProfile();
+        for (int i = 0; i < 100; i++)
+            profile.record(CMD_CLOSE_JOURNAL, i == 0 ? 30000 : 3000, 40);
+
+        // El percentil 99 descarta la muestra aislada de 30 segundos
+        assertEquals(6800, profile.getFirstByteTimeout(CMD_CLOSE_JOURNAL, 2000));
+        assertEquals(80, profile.getQuietPeriod(CMD_CLOSE_JOURNAL, 500));
+        // Los demás comandos conservan los valores configurados
+        assertEquals(2000, profile.getFirstByteTimeout(CMD_STATUS, 2000));
+    }
+
+    public void testSerializationRoundTrip()
+    {
+        ResponseTimeProfile profile = new ResponseTimeProfile();
+        for (int i = 0; i < 30; i++) {
+            profile.record(CMD_STATUS, 10, 5);
+            profile.record(CMD_CLOSE_JOURNAL, 3000, 40);
+        }
+
+        ResponseTimeProfile parsed = ResponseTimeProfile.parse(profile.toString());
+        assertEquals(profile.toString(), parsed.toString());
+        assertEquals(30, parsed.getSamples(CMD_CLOSE_JOURNAL));
+        assertEquals(6800, parsed.getFirstByteTimeout(CMD_CLOSE_JOURNAL, 2000));
+        assertFalse(parsed.isModified());
+    }
+
+    public void testInvalidProfileIsIgnored()
+    {
+        assertEquals("1", ResponseTimeProfile.parse(null).toString());
+        assertEquals("1", ResponseTimeProfile.parse("0;2a:f=1*3").toString());
+        assertEquals("1", ResponseTimeProfile.parse("1;2a:f=zz/g=1*3").toString());
+    }
+}
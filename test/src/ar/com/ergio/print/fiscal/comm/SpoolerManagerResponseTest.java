@@ -0,0 +1,68 @@
+package ar.com.ergio.print.fiscal.comm;
+
+import java.math.BigDecimal;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterPL8F;
+
+public class SpoolerManagerResponseTest extends TestCase
+{
+    private static final String FS = "\u001C";
+    private static final String STATUS = "0080" + FS + "0600";
+
+    private SpoolerManagerResponse manager;
+    private HasarFiscalPrinter p320f;
+    private HasarFiscalPrinter pl8f;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        manager = new SpoolerManagerResponse();
+        p320f = new HasarPrinterP320F();
+        pl8f = new HasarPrinterPL8F();
+    }
+
+    public void testStatusOnlyCommands()
+    {
+        FiscalPacket text = p320f.cmdPrintFiscalText("OBS", 0);
+        assertFalse(completed(text, "0080" + FS + "060"));
+        assertTrue(completed(text, STATUS));
+        assertFalse("Unexpected extra field accepted", completed(text, STATUS + FS));
+
+        FiscalPacket discount = p320f.cmdLastItemDiscount("DESC", BigDecimal.ONE, true, false, 0);
+        assertTrue(completed(discount, STATUS));
+    }
+
+    public void testSubtotalCompletesOnLastAmount()
+    {
+        FiscalPacket subtotal = p320f.cmdSubtotal(true, 0);
+        String data = STATUS + FS + "3" + FS + "121.00" + FS + "21.00" + FS + "0.00" + FS + "0.00" + FS;
+        assertFalse(completed(subtotal, data + "0.0"));
+        assertTrue(completed(subtotal, data + "0.00"));
+    }
+
+    public void testCloseFiscalReceiptDependsOnModel()
+    {
+        String closed = STATUS + FS + "00001234";
+        assertTrue(completed(p320f.cmdCloseFiscalReceipt(1), closed));
+
+        FiscalPacket withCAI = pl8f.cmdCloseFiscalReceipt(1);
+        assertFalse("Response was cut before the CAI", completed(withCAI, closed));
+        assertTrue(completed(withCAI, closed + FS + "1" + FS + "12345678901234"));
+    }
+
+    public void testUnknownCommandIsNeverCompleted()
+    {
+        assertNull(manager.getShape(p320f.cmdStatusRequest()));
+        assertFalse(completed(p320f.cmdStatusRequest(), STATUS));
+    }
+
+    private boolean completed(FiscalPacket request, String response)
+    {
+        return manager.isResponseCompleted(request, response.getBytes());
+    }
+}
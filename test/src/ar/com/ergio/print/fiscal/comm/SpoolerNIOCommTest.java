@@ -0,0 +1,148 @@
+package ar.com.ergio.print.fiscal.comm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+
+public class SpoolerNIOCommTest extends TestCase
+{
+    private static final byte FS = 0x1C;
+
+    private HasarFiscalPrinter printer;
+    private ServerSocket serverSocket;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        printer = new HasarPrinterP320F();
+        serverSocket = new ServerSocket(0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        serverSocket.close();
+        super.tearDown();
+    }
+
+    public void testFramerSkipsFragmentedKeepAlives()
+    {
+        SpoolerResponseFramer framer = new SpoolerResponseFramer();
+        framer.reset(printLineItem());
+
+        assertEquals(SpoolerResponseFramer.STATE_CONTROL, feed(framer, "D"));
+        assertEquals(SpoolerResponseFramer.STATE_CONTROL, feed(framer, "C2D"));
+        assertEquals(SpoolerResponseFramer.STATE_WAITING, feed(framer, "C4"));
+        assertTrue("Keep alive was not reported", framer.isLastWasKeepAlive());
+        assertEquals(SpoolerResponseFramer.STATE_RESPONSE, feed(framer, "0080"));
+        assertEquals(SpoolerResponseFramer.STATE_COMPLETE, feed(framer, "\u001C0600"));
+
+        assertEquals(1, framer.getDC2Count());
+        assertEquals(1, framer.getDC4Count());
+        assertEquals("0080\u001C0600", new String(framer.getResponse()));
+    }
+
+    public void testFramerWithoutRuleNeverCompletes()
+    {
+        SpoolerResponseFramer framer = new SpoolerResponseFramer();
+        framer.reset(printer.cmdStatusRequest());
+        assertEquals(SpoolerResponseFramer.STATE_RESPONSE, feed(framer, "0080\u001C0600\u001C0000"));
+    }
+
+    public void testExecuteReturnsWithoutWaitingTimeouts() throws Exception
+    {
+        startSpooler("DC2DC2".getBytes(), "0080\u001C0600".getBytes());
+        SpoolerNIOComm comm = new SpoolerNIOComm("localhost", serverSocket.getLocalPort());
+        comm.setQuietPeriod(5000);
+        comm.connect();
+        try {
+            FiscalPacket response = new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+            long start = System.currentTimeMillis();
+            comm.execute(printLineItem(), response);
+            long elapsed = System.currentTimeMillis() - start;
+
+            assertTrue("Response waited for the quiet period: " + elapsed + " ms", elapsed < 2000);
+            assertEquals(0x0080, response.getPrinterStatus());
+            assertEquals(0x0600, response.getFiscalStatus());
+        } finally {
+            comm.close();
+        }
+        assertFalse(comm.isConnected());
+    }
+
+    public void testExecuteEndsByQuietPeriodWhenNoRule() throws Exception
+    {
+        startSpooler(new byte[0], "0080\u001C0600\u001C0000".getBytes());
+        SpoolerNIOComm comm = new SpoolerNIOComm("localhost", serverSocket.getLocalPort());
+        comm.setQuietPeriod(100);
+        comm.connect();
+        try {
+            FiscalPacket response = new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+            comm.execute(printer.cmdStatusRequest(), response);
+            assertEquals(0x0080, response.getPrinterStatus());
+            assertEquals("0000", response.getString(3));
+        } finally {
+            comm.close();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+    //  Support Test Behavior
+    ////////////////////////////////////////////////////////////////////////////////////////////////
+
+    private FiscalPacket printLineItem()
+    {
+        return printer.cmdPrintLineItem("ITEM", BigDecimal.ONE, BigDecimal.TEN, new BigDecimal("21"), false, BigDecimal.ZERO, false, 0);
+    }
+
+    private static int feed(SpoolerResponseFramer framer, String bytes)
+    {
+        byte[] b = bytes.getBytes();
+        return framer.feed(b, 0, b.length);
+    }
+
+    /**
+     * Spooler de una sola conexión y un solo comando: lee el comando hasta el
+     * terminador y responde primero los avisos y luego la respuesta.
+     */
+    private void startSpooler(final byte[] keepAlives, final byte[] response)
+    {
+        Thread spooler = new Thread() {
+            @Override
+            public void run()
+            {
+                try {
+                    Socket socket = serverSocket.accept();
+                    InputStream in = socket.getInputStream();
+                    int b;
+                    while ((b = in.read()) != -1 && b != 0x0D);
+                    OutputStream out = socket.getOutputStream();
+                    out.write(keepAlives);
+                    out.flush();
+                    Thread.sleep(50);
+                    out.write(response);
+                    out.flush();
+                    // Se mantiene abierto para que el fin no sea por cierre del socket
+                    while (in.read() != -1);
+                    socket.close();
+                } catch (IOException e) {
+                    // Fin del test
+                } catch (InterruptedException e) {
+                    // Fin del test
+                }
+            }
+        };
+        spooler.setDaemon(true);
+        spooler.start();
+    }
+}
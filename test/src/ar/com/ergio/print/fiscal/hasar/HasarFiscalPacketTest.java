@@ -0,0 +1,118 @@
+package ar.com.ergio.print.fiscal.hasar;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalPacket;
+
+public class HasarFiscalPacketTest extends TestCase
+{
+    private static final byte FS = 0x1C;
+
+    private HasarFiscalPrinter printer;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        printer = new HasarPrinterP320F();
+    }
+
+    public void testEncodeSeparatesFieldsAndEndsWithNewLine()
+    {
+        FiscalPacket packet = printer.createFiscalPacket();
+        packet.setCommandCode(0x42);
+        packet.setString(1, "Item");
+        packet.setString(3, "10.00");
+
+        byte[] expected = "BxItemxx10.00\r".replace('x', (char) FS).getBytes();
+        assertTrue(Arrays.equals(expected, packet.encodeBytes()));
+        assertEquals(expected.length, packet.getEncodedLength());
+
+        ByteBuffer dst = ByteBuffer.allocate(64);
+        dst.put((byte) 0x02);
+        packet.encode(dst);
+        assertEquals(expected.length + 1, dst.position());
+    }
+
+    public void testRewrittenFieldsKeepOtherValues()
+    {
+        FiscalPacket packet = printer.createFiscalPacket();
+        packet.setString(0, "abc");
+        packet.setString(1, "def");
+        packet.setString(0, "a");
+        packet.setString(1, "a much longer value that no longer fits");
+        packet.setHex16(2, 0xC080);
+
+        assertEquals("a", packet.getString(0));
+        assertEquals("a much longer value that no longer fits", packet.getString(1));
+        assertEquals(0xC080, packet.getHex16(2));
+        assertEquals(3, packet.getSize());
+
+        packet.setSize(1);
+        packet.setString(2, "x");
+        assertEquals(0, packet.getLength(1));
+        assertEquals("a", packet.getString(0));
+    }
+
+    public void testManyFieldsGrowTheBuffer()
+    {
+        FiscalPacket packet = printer.createFiscalPacket();
+        for (int i = 0; i < 200; i++)
+            packet.setString(i, "value " + i);
+        for (int i = 0; i < 200; i += 2)
+            packet.setString(i, "rewritten value " + i);
+
+        for (int i = 0; i < 200; i++)
+            assertEquals((i % 2 == 0 ? "rewritten value " : "value ") + i, packet.getString(i));
+    }
+
+    public void testDecodeResponseFromBuffer()
+    {
+        FiscalPacket packet = printer.createFiscalPacket();
+        byte[] bytes = "0080x0600x123\n".replace('x', (char) FS).getBytes();
+        ByteBuffer src = ByteBuffer.wrap(bytes);
+        packet.decode(0x2A, src);
+
+        assertFalse(src.hasRemaining());
+        assertEquals(4, packet.getSize());
+        assertEquals(0x2A, packet.getCommandCode());
+        assertEquals(0x0080, packet.getPrinterStatus());
+        assertEquals(0x0600, packet.getFiscalStatus());
+        assertEquals(123, packet.getInt(3));
+
+        FiscalPacket legacy = printer.createFiscalPacket();
+        legacy.decode(0x2A, bytes);
+        assertEquals(legacy, packet);
+    }
+
+    public void testDecodeIsTheInverseOfEncode()
+    {
+        FiscalPacket packet = printer.createFiscalPacket();
+        packet.setCommandCode(0x40);
+        packet.setString(1, "Nombre", FiscalPacket.STYLE_DOUBLE_WIDTH);
+        packet.setString(2, "");
+        packet.setString(3, "20267565393");
+
+        FiscalPacket decoded = printer.createFiscalPacket();
+        decoded.decode(packet.encodeBytes());
+        assertEquals(packet, decoded);
+        assertEquals("Nombre", decoded.getString(1));
+        assertEquals(FiscalPacket.STYLE_DOUBLE_WIDTH, decoded.getStringStyle(1));
+    }
+
+    public void testCloneAndCopiesAreIndependent()
+    {
+        FiscalPacket packet = printer.createFiscalPacket();
+        byte[] value = "abc".getBytes();
+        packet.set(0, value);
+        value[0] = 'x';
+        FiscalPacket clone = (FiscalPacket) packet.clone();
+        packet.get(0)[1] = 'x';
+        packet.setString(0, "def");
+
+        assertEquals("abc", clone.getString(0));
+        assertEquals("def", packet.getString(0));
+    }
+}
@@ -0,0 +1,265 @@
+package ar.com.ergio.print.fiscal.hasar;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalCloseReport;
+import ar.com.ergio.print.fiscal.FiscalPrinterHealth;
+import ar.com.ergio.print.fiscal.comm.SpoolerNIOComm;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.DocumentLineFeed;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.Payment;
+import ar.com.ergio.print.fiscal.exception.DocumentException;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterStatusError;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulator;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSpoolerSimulator;
+
+public class HasarFiscalPrinterTest extends TestCase
+{
+    private HasarSimulator simulator;
+    private HasarSpoolerSimulator spooler;
+    private HasarFiscalPrinter printer;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        simulator = new HasarSimulator();
+        simulator.setDefaultLatency(5);
+        spooler = new HasarSpoolerSimulator(simulator);
+        int port = spooler.start(0);
+        printer = new HasarPrinterP320F(new SpoolerNIOComm("127.0.0.1", port));
+        printer.connect();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        printer.close();
+        spooler.stop();
+        super.tearDown();
+    }
+
+    public void testPipelinedLineItems() throws Exception
+    {
+        printer.setPipelineWindow(4);
+        Invoice invoice = createInvoice(20);
+        printer.printDocument(invoice);
+
+        assertEquals("00000001", invoice.getDocumentNo());
+        assertFalse(simulator.isDocumentOpen());
+    }
+
+    public void testPipelineCancelsDocumentOnFirstError() throws Exception
+    {
+        printer.setPipelineWindow(4);
+        simulator.injectFailure(HasarCommands.CMD_PRINT_LINE_ITEM, 3);
+        try {
+            printer.printDocument(createInvoice(10));
+            fail("Failed line item was not reported");
+        } catch (FiscalPrinterStatusError e) {
+            // Expected
+        }
+        assertFalse("Document must be cancelled", simulator.isDocumentOpen());
+        assertEquals(0, simulator.getLastNumber("B"));
+
+        // Responses of the commands in flight must not leak into the next document
+        Invoice invoice = createInvoice(3);
+        printer.printDocument(invoice);
+        assertEquals("00000001", invoice.getDocumentNo());
+    }
+
+    public void testStreamedLineItems() throws Exception
+    {
+        printer.setPipelineWindow(4);
+        Invoice invoice = createStreamedInvoice(20, -1);
+        printer.printDocument(invoice);
+
+        assertEquals("00000001", invoice.getDocumentNo());
+        assertEquals(20, invoice.getLines().size());
+        assertFalse(invoice.isStreamed());
+        assertFalse(simulator.isDocumentOpen());
+    }
+
+    public void testStreamedDocumentCancelledOnAssemblyFailure() throws Exception
+    {
+        try {
+            printer.printDocument(createStreamedInvoice(10, 6));
+            fail("Assembly failure was not reported");
+        } catch (DocumentException e) {
+            // Expected
+        }
+        assertFalse("Document must be cancelled", simulator.isDocumentOpen());
+        assertEquals(0, simulator.getLastNumber("B"));
+
+        Invoice invoice = createInvoice(3);
+        printer.printDocument(invoice);
+        assertEquals("00000001", invoice.getDocumentNo());
+    }
+
+    public void testCheckHealthReportsDeviceStatus() throws Exception
+    {
+        FiscalPrinterHealth health = printer.checkHealth();
+        assertFalse(health.isBlocking());
+        assertFalse(health.isDocumentOpen());
+
+        simulator.setPaperOut(true);
+        simulator.setFiscalMemoryAlmostFull(true);
+        health = printer.checkHealth();
+        assertTrue(health.isWithoutPaper());
+        assertTrue(health.isFiscalMemoryAlmostFull());
+        assertTrue(health.isBlocking());
+        assertTrue(health.getMessages().hasErrors());
+
+        simulator.setPaperOut(false);
+        simulator.setFiscalMemoryAlmostFull(false);
+        simulator.setCoverOpen(true);
+        health = printer.checkHealth();
+        assertFalse(health.isWithoutPaper());
+        assertTrue(health.isCoverOpen());
+        assertTrue(health.isBlocking());
+
+        simulator.setCoverOpen(false);
+        assertFalse(printer.checkHealth().isBlocking());
+    }
+
+    public void testAnonymousInvoiceCommandPlan() throws Exception
+    {
+        printer.printDocument(createAnonymousInvoice());
+        long before = simulator.getCommandCount();
+        Invoice invoice = createAnonymousInvoice();
+        printer.printDocument(invoice);
+
+        // OpenFiscalReceipt, one packed PrintFiscalText, two PrintLineItem,
+        // TotalTender and CloseFiscalReceipt
+        assertEquals(6, simulator.getCommandCount() - before);
+        assertEquals("00000002", invoice.getDocumentNo());
+    }
+
+    public void testCustomerDataSentAfterReconnect() throws Exception
+    {
+        printer.printDocument(createAnonymousInvoice());
+        printer.close();
+        printer.connect();
+        long before = simulator.getCommandCount();
+        printer.printDocument(createAnonymousInvoice());
+
+        // Another client may have left customer data: SetCustomerData is sent
+        assertEquals(7, simulator.getCommandCount() - before);
+    }
+
+    public void testCustomerDataSentAfterSharedStateDiscarded() throws Exception
+    {
+        printer.printDocument(createAnonymousInvoice());
+        printer.discardSharedState();
+        long before = simulator.getCommandCount();
+        printer.printDocument(createAnonymousInvoice());
+
+        assertEquals(7, simulator.getCommandCount() - before);
+    }
+
+    public void testCustomerDataSentAfterCancelledDocument() throws Exception
+    {
+        printer.printDocument(createAnonymousInvoice());
+        simulator.injectFailure(HasarCommands.CMD_PRINT_LINE_ITEM, 1);
+        try {
+            printer.printDocument(createAnonymousInvoice());
+            fail("Failed line item was not reported");
+        } catch (FiscalPrinterStatusError e) {
+            // Expected
+        }
+        long before = simulator.getCommandCount();
+        printer.printDocument(createAnonymousInvoice());
+
+        assertEquals(7, simulator.getCommandCount() - before);
+    }
+
+    public void testFiscalCloseReport() throws Exception
+    {
+        printer.printDocument(createAnonymousInvoice());
+        printer.printDocument(createAnonymousInvoice());
+
+        FiscalCloseReport x = printer.fiscalClose("X");
+        assertEquals("X", x.getCloseType());
+        assertEquals(0, x.getNumber());
+        assertEquals(2, x.getFiscalDocuments());
+        assertEquals(2, x.getLastInvoiceNoBC());
+        assertTrue(x.getSalesAmt().signum() > 0);
+
+        FiscalCloseReport z = printer.fiscalClose("Z");
+        assertEquals(1, z.getNumber());
+        assertEquals(2, z.getFiscalDocuments());
+        assertEquals(0, x.getSalesAmt().compareTo(z.getSalesAmt()));
+
+        // The Z close resets the counters of the day
+        x = printer.fiscalClose("X");
+        assertEquals(1, x.getNumber());
+        assertEquals(0, x.getFiscalDocuments());
+        assertEquals(0, x.getSalesAmt().signum());
+    }
+
+    public void testPackFiscalTexts() throws Exception
+    {
+        List<String> lines = printer.packFiscalTexts(Arrays.asList("Pedido: 1000023",
+                "Remito: 0001-00000012", "Remito: 0001-00000013", " ",
+                "Una observación que no entra en una línea de texto fiscal"));
+        assertEquals(3, lines.size());
+        assertEquals("Pedido: 1000023 - Remito: 0001-00000012", lines.get(0));
+        assertEquals("Remito: 0001-00000013", lines.get(1));
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    //  Support Test Behavior
+    //////////////////////////////////////////////////////////////////////////
+
+    private Invoice createInvoice(int lines)
+    {
+        Invoice invoice = new Invoice();
+        invoice.setLetter("B");
+        invoice.setCustomer(new Customer("Consumidor Final", Customer.DNI, "20111222",
+                Customer.CONSUMIDOR_FINAL, "Neuquen"));
+        for (int i = 1; i <= lines; i++) {
+            invoice.addLine(new DocumentLine(i, "Producto " + i, BigDecimal.ONE, new BigDecimal("12.10"),
+                    new BigDecimal(21), true));
+        }
+        invoice.addPayment(new Payment(new BigDecimal("12.10").multiply(new BigDecimal(lines)), "Efectivo"));
+        return invoice;
+    }
+
+    private Invoice createAnonymousInvoice()
+    {
+        Invoice invoice = createInvoice(2);
+        invoice.setCustomer(new Customer(null, Customer.SIN_CALIFICADOR, null, Customer.CONSUMIDOR_FINAL, null));
+        invoice.addObservation("Pedido: 1000023");
+        invoice.addObservation("Remito: 0001-00000012");
+        return invoice;
+    }
+
+    /**
+     * @param failAt line whose assembly fails, or -1
+     */
+    private Invoice createStreamedInvoice(final int lines, final int failAt)
+    {
+        Invoice invoice = createInvoice(lines);
+        final Object[] pending = invoice.getLines().toArray();
+        invoice.getLines().clear();
+        invoice.setLineFeed(new DocumentLineFeed(2) {
+            @Override
+            protected void produce() throws Exception
+            {
+                for (int i = 0; i < pending.length; i++) {
+                    if (i + 1 == failAt)
+                        throw new IllegalStateException("Line " + failAt);
+                    Thread.sleep(2);
+                    if (!put((DocumentLine) pending[i]))
+                        return;
+                }
+            }
+        });
+        return invoice;
+    }
+}
@@ -0,0 +1,82 @@
+package ar.com.ergio.print.fiscal.hasar;
+
+import java.math.BigDecimal;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.comm.SpoolerManagerResponse;
+
+public class HasarPrinterProfileTest extends TestCase
+{
+    private static final String DESCRIPTION = "Descripcion de un articulo bastante larga";
+
+    public void testCommandsFollowTheModelProfile()
+    {
+        FiscalPacket item = new HasarPrinterP715F().cmdPrintLineItem(DESCRIPTION, BigDecimal.ONE,
+                BigDecimal.TEN, null, false, BigDecimal.ZERO, false, 3);
+        assertEquals(DESCRIPTION.substring(0, 15), item.getString(1));
+        assertEquals("0", item.getString(7));
+        assertEquals("10.00", new HasarPrinterP715F().formatAmount(BigDecimal.TEN));
+
+        item = new HasarPrinterGeneric().cmdPrintLineItem(DESCRIPTION, BigDecimal.ONE,
+                BigDecimal.TEN, null, false, BigDecimal.ZERO, false, 3);
+        assertEquals(DESCRIPTION, item.getString(1));
+        assertEquals("3", item.getString(7));
+
+        assertEquals(1, new HasarPrinterP320F().cmdCloseFiscalReceipt(2).getSize());
+        assertEquals(1, new HasarPrinterP320F().cmdCloseNonFiscalReceipt(2).getSize());
+        assertEquals(2, new HasarPrinterP321F().cmdCloseNonFiscalReceipt(2).getSize());
+        assertEquals(2, new HasarPrinterP330F().cmdCloseFiscalReceipt(2).getSize());
+    }
+
+    public void testParametersOverrideTheModelProfile()
+    {
+        HasarPrinterProfile profile = HasarPrinterProfile.parse(HasarPrinterProfile.P320F,
+                " lineItemLength=30 ; pipeline=N;");
+        assertEquals("P320F", profile.getName());
+        assertEquals(30, profile.getLineItemLength());
+        assertFalse(profile.isPipelineSafe());
+        assertFalse(profile.isCloseCopiesSupported());
+        assertEquals(profile.toString(), HasarPrinterProfile.parse(null, profile.toString()).toString());
+
+        HasarPrinterGeneric printer = new HasarPrinterGeneric();
+        printer.setPipelineWindow(8);
+        assertEquals(8, printer.getPipelineWindow());
+        printer.setProfile(HasarPrinterProfile.parse(printer.getProfile(), "profile=PL9F;pipeline=N"));
+        assertEquals("PL9F", printer.getProfile().getName());
+        assertEquals(1, printer.getPipelineWindow());
+        assertSame(HasarPrinterProfile.P330F, HasarPrinterProfile.parse(HasarPrinterProfile.P330F, null));
+    }
+
+    public void testInvalidParametersAreRejected()
+    {
+        String[] invalid = { "unknown=1", "display=yes", "payments=-1", "profile=P999F", "display" };
+        for (String description : invalid)
+        {
+            try
+            {
+                HasarPrinterProfile.parse(HasarPrinterProfile.DEFAULT, description);
+                fail(description);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // ok
+            }
+        }
+    }
+
+    public void testCloseResponseShapeFollowsTheProfile()
+    {
+        SpoolerManagerResponse responses = new SpoolerManagerResponse();
+        HasarFiscalPrinter withoutCAI = new HasarPrinterP320F();
+        HasarFiscalPrinter withCAI = new HasarPrinterGeneric();
+        withCAI.setProfile(HasarPrinterProfile.parse(null, "caiField=5"));
+
+        assertNotSame(responses.getShape(withoutCAI.cmdCloseFiscalReceipt(null)),
+                responses.getShape(withCAI.cmdCloseFiscalReceipt(null)));
+        assertSame(responses.getShape(new HasarPrinterPL8F().cmdCloseFiscalReceipt(null)),
+                responses.getShape(withCAI.cmdCloseFiscalReceipt(null)));
+        assertSame(responses.getShape(withoutCAI.cmdSubtotal(true, 0)),
+                responses.getShape(withCAI.cmdSubtotal(true, 0)));
+    }
+}
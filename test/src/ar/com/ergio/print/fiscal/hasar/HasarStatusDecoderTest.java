@@ -0,0 +1,72 @@
+package ar.com.ergio.print.fiscal.hasar;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.msg.FiscalMessage;
+import ar.com.ergio.print.fiscal.msg.FiscalMessages;
+
+public class HasarStatusDecoderTest extends TestCase implements HasarConstants
+{
+    private HasarPrinterP320F printer;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        printer = new HasarPrinterP320F();
+    }
+
+    public void testDecodedStatusIsSharedByModel()
+    {
+        HasarStatusDecoder.Status status = printer.getStatusDecoder().decode(PST_PRINTER_ERROR, FST_DOCUMENT_OPEN);
+        // Bits without message do not create new entries
+        assertSame(status, printer.getStatusDecoder().decode(PST_PRINTER_ERROR | 0x0002, FST_DOCUMENT_OPEN | 0x8000));
+        assertSame(status, new HasarPrinterP320F().getStatusDecoder().decode(PST_PRINTER_ERROR, FST_DOCUMENT_OPEN));
+
+        FiscalMessages msgs = status.getMessages();
+        assertEquals(2, msgs.size());
+        assertEquals(FST_DOCUMENT_OPEN, msgs.getMsgs().get(0).getCode());
+        assertEquals(PST_PRINTER_ERROR, msgs.getMsgs().get(1).getCode());
+        assertTrue(msgs.hasErrors());
+        try {
+            msgs.add(new FiscalMessage(0, "", "", false));
+            fail("Shared messages must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
+    public void testWithoutPaperFollowsTicketPaper()
+    {
+        HasarStatusDecoder decoder = printer.getStatusDecoder();
+        assertTrue(decoder.decode(PST_TICKET_PAPER_OUT, 0).isWithoutPaper());
+        assertFalse(decoder.decode(PST_JOURNAL_PAPER_OUT, 0).isWithoutPaper());
+        assertFalse(decoder.decode(0, 0).getMessages().hasErrors());
+    }
+
+    public void testCheckStatusReusesMessagesWhenStatusIsUnchanged() throws Exception
+    {
+        assertTrue(printer.checkStatus(response(PST_PRINTER_OFFLINE, FST_DEVICE_FISCALIZED)));
+        FiscalMessages msgs = printer.getMessages();
+        assertTrue(msgs.hasErrors());
+
+        assertFalse(printer.checkStatus(response(PST_PRINTER_OFFLINE, FST_DEVICE_FISCALIZED)));
+        assertSame(msgs, printer.getMessages());
+
+        assertTrue(printer.checkStatus(response(0, FST_DEVICE_FISCALIZED)));
+        assertFalse(printer.getMessages().hasErrors());
+        assertEquals(0, printer.getPrinterStatus());
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    //  Support Test Behavior
+    //////////////////////////////////////////////////////////////////////////
+
+    private HasarFiscalPacket response(int printerStatus, int fiscalStatus)
+    {
+        HasarFiscalPacket response = (HasarFiscalPacket) printer.createFiscalPacket();
+        response.setCommandCode(HasarCommands.CMD_STATUS_REQUEST);
+        response.setPrinterStatus(printerStatus);
+        response.setFiscalStatus(fiscalStatus);
+        return response;
+    }
+}
@@ -0,0 +1,149 @@
+package ar.com.ergio.print.fiscal.hasar.simulator;
+
+import java.math.BigDecimal;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.comm.FiscalComm;
+import ar.com.ergio.print.fiscal.comm.SpoolerNIOComm;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.Payment;
+import ar.com.ergio.print.fiscal.hasar.HasarCommands;
+import ar.com.ergio.print.fiscal.hasar.HasarConstants;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+
+public class HasarSimulatorTest extends TestCase
+{
+    private HasarSimulator simulator;
+    private HasarSpoolerSimulator spooler;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        simulator = new HasarSimulator();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        if (spooler != null) {
+            spooler.stop();
+        }
+        super.tearDown();
+    }
+
+    public void testPrintInvoiceInMemory() throws Exception
+    {
+        HasarSimulatorComm comm = new HasarSimulatorComm(simulator);
+        HasarFiscalPrinter printer = new HasarPrinterP320F(comm);
+        printer.connect();
+
+        Invoice first = createInvoice();
+        printer.printDocument(first);
+        Invoice second = createInvoice();
+        printer.printDocument(second);
+
+        assertEquals("00000001", first.getDocumentNo());
+        assertEquals("00000002", second.getDocumentNo());
+        assertEquals(2, simulator.getLastNumber("B"));
+        assertFalse(simulator.isDocumentOpen());
+
+        FiscalPacket z = execute(printer, comm, printer.cmdDailyClose("Z"));
+        assertEquals(1, z.getInt(3));
+        assertEquals("363.00", z.getString(11));
+        assertEquals("63.00", z.getString(12));
+        assertEquals(1, simulator.getZNumber());
+    }
+
+    public void testInvalidCommandSetsErrorBits() throws Exception
+    {
+        HasarSimulatorComm comm = new HasarSimulatorComm(simulator);
+        HasarFiscalPrinter printer = new HasarPrinterP320F(comm);
+        printer.connect();
+
+        FiscalPacket rsp = execute(printer, comm, printer.cmdPrintLineItem("Item", BigDecimal.ONE,
+                BigDecimal.TEN, new BigDecimal(21), false, BigDecimal.ZERO, false, null));
+        int fiscalStatus = Integer.parseInt(rsp.getString(2), 16);
+        assertTrue((fiscalStatus & HasarConstants.FST_INVALID_COMMAND) != 0);
+        assertTrue((fiscalStatus & HasarConstants.FST_BITWISE_OR) != 0);
+
+        simulator.setPaperOut(true);
+        rsp = execute(printer, comm, printer.cmdStatusRequest());
+        int printerStatus = Integer.parseInt(rsp.getString(1), 16);
+        assertTrue((printerStatus & HasarConstants.PST_TICKET_PAPER_OUT) != 0);
+    }
+
+    public void testExecuteAsyncKeepsCommandOrder() throws Exception
+    {
+        HasarSimulatorComm comm = new HasarSimulatorComm(simulator);
+        comm.setSimulateLatency(true);
+        simulator.setDefaultLatency(20);
+        HasarFiscalPrinter printer = new HasarPrinterP320F(comm);
+        printer.connect();
+
+        HasarFiscalPrinter.PendingCommand open = printer.executeAsync(printer.cmdOpenFiscalReceipt("B"));
+        HasarFiscalPrinter.PendingCommand item = printer.executeAsync(printer.cmdPrintLineItem("Item",
+                BigDecimal.ONE, new BigDecimal("12.10"), new BigDecimal(21), false, BigDecimal.ZERO, false, null));
+        HasarFiscalPrinter.PendingCommand subtotal = printer.executeAsync(printer.cmdSubtotal(true, null));
+        assertFalse("Commands must not wait for the previous response", subtotal.isDone());
+
+        open.complete();
+        item.complete();
+        assertEquals("12.10", subtotal.get().getString(4));
+        assertTrue(simulator.isDocumentOpen());
+    }
+
+    public void testSpoolerKeepAlivesAndFragments() throws Exception
+    {
+        spooler = new HasarSpoolerSimulator(simulator);
+        spooler.setKeepAliveInterval(50);
+        spooler.setFragmentSize(3);
+        spooler.setFragmentDelay(5);
+        simulator.setLatency(HasarCommands.CMD_DAILY_CLOSE, 300);
+        int port = spooler.start(0);
+
+        SpoolerNIOComm comm = new SpoolerNIOComm("127.0.0.1", port);
+        HasarFiscalPrinter printer = new HasarPrinterP320F(comm);
+        printer.connect();
+        try {
+            printer.printDocument(createInvoice());
+            assertEquals(1, simulator.getLastNumber("B"));
+
+            FiscalPacket z = execute(printer, comm, printer.cmdDailyClose("Z"));
+            assertEquals(1, z.getInt(3));
+            assertEquals(1, z.getInt(7));
+        } finally {
+            printer.close();
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    //  Support Test Behavior
+    //////////////////////////////////////////////////////////////////////////
+
+    private Invoice createInvoice()
+    {
+        Invoice invoice = new Invoice();
+        invoice.setLetter("B");
+        invoice.setCustomer(new Customer("Consumidor Final", Customer.DNI, "20111222",
+                Customer.CONSUMIDOR_FINAL, "Neuquen"));
+        invoice.addLine(new DocumentLine(1, "Producto 1", new BigDecimal(2), new BigDecimal("60.50"),
+                new BigDecimal(21), true));
+        invoice.addLine(new DocumentLine(2, "Producto 2", BigDecimal.ONE, new BigDecimal("60.50"),
+                new BigDecimal(21), true));
+        invoice.addPayment(new Payment(new BigDecimal("181.50"), "Efectivo"));
+        return invoice;
+    }
+
+    private FiscalPacket execute(HasarFiscalPrinter printer, FiscalComm comm, FiscalPacket request) throws Exception
+    {
+        FiscalPacket response = new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+        comm.execute(request, response);
+        return response;
+    }
+}
@@ -0,0 +1,175 @@
+package ar.com.ergio.print.fiscal.hasar2g;
+
+import java.math.BigDecimal;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalCloseReport;
+import ar.com.ergio.print.fiscal.FiscalPrinterHealth;
+import ar.com.ergio.print.fiscal.document.CreditNote;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.NonFiscalDocument;
+import ar.com.ergio.print.fiscal.document.Payment;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterStatusError;
+import ar.com.ergio.print.fiscal.hasar2g.simulator.Hasar2GHttpSimulator;
+import ar.com.ergio.print.fiscal.hasar2g.simulator.Hasar2GSimulator;
+import ar.com.ergio.print.fiscal.util.JsonCodec;
+
+public class Hasar2GFiscalPrinterTest extends TestCase
+{
+    private Hasar2GSimulator simulator;
+    private Hasar2GHttpSimulator server;
+    private Hasar2GFiscalPrinter printer;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        simulator = new Hasar2GSimulator();
+        server = new Hasar2GHttpSimulator(simulator);
+        int port = server.start(0);
+        printer = new Hasar2GFiscalPrinter(new Hasar2GHttpComm("127.0.0.1", port));
+        printer.connect();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        printer.close();
+        server.stop();
+        super.tearDown();
+    }
+
+    public void testInvoiceInOneRequest() throws Exception
+    {
+        Invoice invoice = createInvoice(3);
+        printer.printDocument(invoice);
+
+        assertEquals("00000001", invoice.getDocumentNo());
+        assertEquals(1, simulator.getLastNumber("TiqueFacturaB"));
+        assertFalse(simulator.isDocumentOpen());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    public void testConnectionReuse() throws Exception
+    {
+        for (int i = 0; i < 5; i++)
+            printer.printDocument(createInvoice(2));
+
+        assertEquals(5, simulator.getLastNumber("TiqueFacturaB"));
+        assertEquals(5, server.getRequestCount());
+        assertEquals(1, server.getConnectionCount());
+    }
+
+    public void testFailureCancelsDocument() throws Exception
+    {
+        simulator.injectFailure(Hasar2GCommands.CMD_PRINT_ITEM, 2);
+        try {
+            printer.printDocument(createInvoice(3));
+            fail("Se esperaba un error de la impresora");
+        } catch (FiscalPrinterStatusError e) {
+            // El lote se interrumpe en el segundo ítem
+        }
+        assertFalse(simulator.isDocumentOpen());
+        assertEquals(0, simulator.getLastNumber("TiqueFacturaB"));
+        // El comprobante y su cancelación
+        assertEquals(2, server.getRequestCount());
+
+        Invoice invoice = createInvoice(1);
+        printer.printDocument(invoice);
+        assertEquals("00000001", invoice.getDocumentNo());
+    }
+
+    public void testCreditNote() throws Exception
+    {
+        CreditNote creditNote = new CreditNote();
+        creditNote.setLetter("B");
+        creditNote.setOriginalDocumentNo("0001-00000001");
+        creditNote.setCustomer(createCustomer());
+        creditNote.addLine(new DocumentLine(1, "Devolución", BigDecimal.ONE, new BigDecimal("12.10"),
+                new BigDecimal(21), true));
+        printer.printDocument(creditNote);
+
+        assertEquals("00000001", creditNote.getDocumentNo());
+        assertEquals(1, simulator.getLastNumber("TiqueNotaCreditoB"));
+        assertEquals(0, simulator.getLastNumber("TiqueFacturaB"));
+    }
+
+    public void testNonFiscalDocument() throws Exception
+    {
+        NonFiscalDocument document = new NonFiscalDocument();
+        document.addLine("Comprobante no fiscal");
+        document.addLine("Segunda línea");
+        printer.printDocument(document);
+
+        assertFalse(simulator.isDocumentOpen());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    public void testFiscalCloseReport() throws Exception
+    {
+        printer.printDocument(createInvoice(2));
+        printer.printDocument(createInvoice(1));
+
+        FiscalCloseReport x = printer.fiscalClose(Hasar2GConstants.CLOSE_X);
+        assertEquals(2, x.getFiscalDocuments());
+        assertEquals(2, x.getLastInvoiceNoBC());
+        assertEquals(0, new BigDecimal("36.30").compareTo(x.getSalesAmt()));
+
+        FiscalCloseReport z = printer.fiscalClose(Hasar2GConstants.CLOSE_Z);
+        assertEquals(1, z.getNumber());
+        assertEquals(1, simulator.getZNumber());
+
+        x = printer.fiscalClose(Hasar2GConstants.CLOSE_X);
+        assertEquals(0, x.getFiscalDocuments());
+        assertEquals(0, x.getSalesAmt().signum());
+    }
+
+    public void testCheckHealth() throws Exception
+    {
+        assertFalse(printer.checkHealth().isBlocking());
+
+        simulator.setPaperOut(true);
+        FiscalPrinterHealth health = printer.checkHealth();
+        assertTrue(health.isWithoutPaper());
+        assertTrue(health.isBlocking());
+    }
+
+    public void testPacketRoundTrip() throws Exception
+    {
+        Hasar2GFiscalPacket request = (Hasar2GFiscalPacket) printer.cmdPrintItem("Producto \"1\"",
+                BigDecimal.ONE, new BigDecimal("12.1"), new BigDecimal(21), false, false);
+        StringBuilder sb = new StringBuilder();
+        request.appendRequest(sb);
+
+        Hasar2GFiscalPacket decoded = new Hasar2GFiscalPacket("ISO8859_1", 1997, null);
+        decoded.decodeRequest(JsonCodec.parse(sb.toString()));
+        assertEquals(Hasar2GCommands.CMD_PRINT_ITEM, decoded.getCommandCode());
+        assertEquals("Producto \"1\"", decoded.getString(1));
+        assertEquals("12.10", decoded.getString(3));
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    //  Support Test Behavior
+    //////////////////////////////////////////////////////////////////////////
+
+    private Customer createCustomer()
+    {
+        return new Customer("Consumidor Final", Customer.DNI, "20111222", Customer.CONSUMIDOR_FINAL, "Neuquen");
+    }
+
+    private Invoice createInvoice(int lines)
+    {
+        Invoice invoice = new Invoice();
+        invoice.setLetter("B");
+        invoice.setCustomer(createCustomer());
+        invoice.addObservation("Pedido: 1000023");
+        for (int i = 1; i <= lines; i++) {
+            invoice.addLine(new DocumentLine(i, "Producto " + i, BigDecimal.ONE, new BigDecimal("12.10"),
+                    new BigDecimal(21), true));
+        }
+        invoice.addPayment(new Payment(new BigDecimal("12.10").multiply(new BigDecimal(lines)), "Efectivo"));
+        return invoice;
+    }
+}
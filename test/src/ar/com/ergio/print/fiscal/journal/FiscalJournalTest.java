@@ -0,0 +1,219 @@
+package ar.com.ergio.print.fiscal.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.util.List;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalPacket;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.Payment;
+import ar.com.ergio.print.fiscal.exception.FiscalPrinterIOException;
+import ar.com.ergio.print.fiscal.hasar.HasarCommands;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPacket;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulator;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulatorComm;
+
+public class FiscalJournalTest extends TestCase
+{
+    private File file;
+    private HasarSimulator simulator;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        file = File.createTempFile("fiscal", ".journal");
+        file.delete();
+        simulator = new HasarSimulator();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        FiscalJournal.getInstance(file).close();
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testRecordsSurviveReopen() throws Exception
+    {
+        FiscalJournal journal = FiscalJournal.getInstance(file);
+        assertSame(journal, FiscalJournal.getInstance(file));
+        HasarFiscalPrinter printer = new HasarPrinterP320F(new HasarSimulatorComm(simulator));
+        journal.append(FiscalJournal.REQUEST, printer.cmdOpenFiscalReceipt("B"));
+        journal.append(FiscalJournal.RECOVERED, null);
+        journal.close();
+
+        List<FiscalJournal.Record> records = FiscalJournal.getInstance(file).read();
+        assertEquals(2, records.size());
+        assertEquals(FiscalJournal.REQUEST, records.get(0).getType());
+        assertEquals(HasarCommands.CMD_OPEN_FISCAL_RECEIPT, records.get(0).getCommandCode());
+        FiscalPacket packet = records.get(0).decode(createPacket(printer));
+        assertEquals("B", packet.getString(1));
+        assertEquals(FiscalJournal.RECOVERED, records.get(1).getType());
+        assertEquals(-1, records.get(1).getCommandCode());
+    }
+
+    public void testTornRecordEndsJournal() throws Exception
+    {
+        FiscalJournal journal = FiscalJournal.getInstance(file);
+        HasarFiscalPrinter printer = new HasarPrinterP320F(new HasarSimulatorComm(simulator));
+        journal.append(FiscalJournal.REQUEST, printer.cmdStatusRequest());
+        journal.append(FiscalJournal.REQUEST, printer.cmdOpenFiscalReceipt("B"));
+        journal.close();
+
+        // Se corrompe el último byte del segundo registro (su CRC).
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(8);
+        int first = raf.readInt();
+        raf.seek(8 + 4 + first + 4);
+        int second = raf.readInt();
+        long crcPosition = 8 + 4 + first + 4 + 4 + second + 3;
+        raf.seek(crcPosition);
+        byte b = raf.readByte();
+        raf.seek(crcPosition);
+        raf.writeByte(b ^ 0xFF);
+        raf.close();
+
+        journal = FiscalJournal.getInstance(file);
+        assertEquals(1, journal.read().size());
+        // El registro siguiente reemplaza al incompleto.
+        journal.append(FiscalJournal.RECOVERED, null);
+        List<FiscalJournal.Record> records = journal.read();
+        assertEquals(2, records.size());
+        assertEquals(FiscalJournal.RECOVERED, records.get(1).getType());
+    }
+
+    public void testCheckpointCompactsJournal() throws Exception
+    {
+        FiscalJournal journal = FiscalJournal.getInstance(file);
+        journal.setCompactSize(1024);
+        HasarFiscalPrinter printer = new HasarPrinterP320F(new HasarSimulatorComm(simulator));
+        printer.setJournal(journal);
+        printer.connect();
+        printer.printDocument(createInvoice(20));
+
+        // El cierre del documento vació el diario; sólo pueden quedar los
+        // comandos posteriores al cierre (consulta de impuestos).
+        List<FiscalJournal.Record> records = journal.read();
+        assertTrue(records.size() < 20);
+        for (FiscalJournal.Record record : records) {
+            assertTrue(record.getCommandCode() != HasarCommands.CMD_OPEN_FISCAL_RECEIPT);
+        }
+        assertEquals(DocumentRecovery.NONE, printer.recoverDocument().getAction());
+    }
+
+    public void testRecoveryCancelsUnpaidDocument() throws Exception
+    {
+        crash(HasarCommands.CMD_PRINT_LINE_ITEM);
+        assertTrue(simulator.isDocumentOpen());
+
+        DocumentRecovery recovery = restart().recoverDocument();
+        assertEquals(DocumentRecovery.CANCELLED, recovery.getAction());
+        assertEquals(HasarCommands.CMD_OPEN_FISCAL_RECEIPT, recovery.getOpenCommand());
+        assertFalse(simulator.isDocumentOpen());
+        assertEquals(0, simulator.getLastNumber("B"));
+
+        // La recuperación no se repite.
+        assertEquals(DocumentRecovery.NONE, restart().recoverDocument().getAction());
+    }
+
+    public void testRecoveryCompletesPaidDocument() throws Exception
+    {
+        crash(HasarCommands.CMD_CLOSE_FISCAL_RECEIPT);
+        assertTrue(simulator.isDocumentOpen());
+
+        HasarFiscalPrinter printer = restart();
+        DocumentRecovery recovery = printer.recoverDocument();
+        assertEquals(DocumentRecovery.COMPLETED, recovery.getAction());
+        assertEquals("00000001", recovery.getDocumentNo());
+        assertEquals(1, simulator.getLastNumber("B"));
+        assertFalse(simulator.isDocumentOpen());
+
+        printer.printDocument(createInvoice(2));
+        assertEquals(2, simulator.getLastNumber("B"));
+    }
+
+    public void testRecoveryIgnoresClosedDocument() throws Exception
+    {
+        HasarFiscalPrinter printer = new HasarPrinterP320F(new HasarSimulatorComm(simulator));
+        printer.setJournal(FiscalJournal.getInstance(file));
+        printer.connect();
+        printer.printDocument(createInvoice(2));
+
+        assertEquals(DocumentRecovery.NONE, restart().recoverDocument().getAction());
+        assertEquals(1, simulator.getLastNumber("B"));
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    //  Support Test Behavior
+    //////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Imprime una factura que se interrumpe al enviar el comando indicado,
+     * como si la terminal se hubiera caído.
+     */
+    private void crash(final int commandCode) throws Exception
+    {
+        HasarSimulatorComm comm = new HasarSimulatorComm(simulator) {
+            private boolean crashed = false;
+
+            @Override
+            public void execute(FiscalPacket request, FiscalPacket response) throws IOException
+            {
+                crashed |= request.getCommandCode() == commandCode;
+                if (crashed)
+                    throw new IOException("crash");
+                super.execute(request, response);
+            }
+        };
+        HasarFiscalPrinter printer = new HasarPrinterP320F(comm);
+        printer.setJournal(FiscalJournal.getInstance(file));
+        printer.connect();
+        try {
+            printer.printDocument(createInvoice(3));
+            fail("The printing must be interrupted");
+        } catch (FiscalPrinterIOException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Simula el reinicio de la terminal: reabre el diario desde el archivo y
+     * crea una nueva impresora.
+     */
+    private HasarFiscalPrinter restart() throws Exception
+    {
+        FiscalJournal.getInstance(file).close();
+        HasarFiscalPrinter printer = new HasarPrinterP320F(new HasarSimulatorComm(simulator));
+        printer.setJournal(FiscalJournal.getInstance(file));
+        printer.connect();
+        return printer;
+    }
+
+    private Invoice createInvoice(int lines)
+    {
+        Invoice invoice = new Invoice();
+        invoice.setLetter("B");
+        invoice.setCustomer(new Customer("Consumidor Final", Customer.DNI, "20111222",
+                Customer.CONSUMIDOR_FINAL, "Neuquen"));
+        for (int i = 1; i <= lines; i++) {
+            invoice.addLine(new DocumentLine(i, "Producto " + i, BigDecimal.ONE, new BigDecimal("60.50"),
+                    new BigDecimal(21), true));
+        }
+        invoice.addPayment(new Payment(new BigDecimal("60.50").multiply(new BigDecimal(lines)), "Efectivo"));
+        return invoice;
+    }
+
+    private FiscalPacket createPacket(HasarFiscalPrinter printer)
+    {
+        return new HasarFiscalPacket(printer.getEncoding(), printer.getBaseRolloverYear(), printer);
+    }
+}
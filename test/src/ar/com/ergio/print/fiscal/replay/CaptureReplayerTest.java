@@ -0,0 +1,122 @@
+package ar.com.ergio.print.fiscal.replay;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.List;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.comm.SpoolerNIOComm;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.Payment;
+import ar.com.ergio.print.fiscal.hasar.HasarCommands;
+import ar.com.ergio.print.fiscal.hasar.HasarFiscalPrinter;
+import ar.com.ergio.print.fiscal.hasar.HasarPrinterP320F;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulator;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSimulatorComm;
+import ar.com.ergio.print.fiscal.hasar.simulator.HasarSpoolerSimulator;
+
+public class CaptureReplayerTest extends TestCase
+{
+    private File file;
+    private HasarSimulator simulator;
+    private HasarSpoolerSimulator spooler;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        file = File.createTempFile("fiscal", ".capture");
+        simulator = new HasarSimulator();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        if (spooler != null) {
+            spooler.stop();
+        }
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testReplayReproducesSpoolerTimings() throws Exception
+    {
+        spooler = new HasarSpoolerSimulator(simulator);
+        spooler.setKeepAliveInterval(40);
+        simulator.setLatency(HasarCommands.CMD_CLOSE_FISCAL_RECEIPT, 150);
+        int port = spooler.start(0);
+
+        RecordingFiscalComm comm = new RecordingFiscalComm(new SpoolerNIOComm("127.0.0.1", port), file);
+        HasarFiscalPrinter printer = new HasarPrinterP320F(comm);
+        printer.connect();
+        printer.printDocument(createInvoice());
+        printer.close();
+
+        List<CommCapture.Exchange> exchanges = CommCapture.read(file);
+        assertEquals(simulator.getCommandCount(), exchanges.size());
+        CommCapture.Exchange close = null;
+        for (CommCapture.Exchange exchange : exchanges) {
+            if (exchange.getCommandCode() == HasarCommands.CMD_CLOSE_FISCAL_RECEIPT)
+                close = exchange;
+        }
+        assertNotNull(close);
+        // Los avisos DC2 del spooler se capturan como tramos separados
+        assertTrue(close.getChunks().size() > 1);
+        assertEquals("DC2", new String(close.getChunks().get(0).getData(), 0, 3));
+        assertTrue(close.getElapsed() >= 150000);
+
+        CaptureReplayer replayer = new CaptureReplayer(exchanges);
+        replayer.setCommType(CaptureReplayer.COMM_NIO);
+        ReplayReport report = replayer.replay();
+        assertEquals(0, report.getMismatches());
+        assertEquals(0, report.getFailures());
+        assertEquals(1, report.getDocuments().size());
+        assertEquals(HasarCommands.CMD_OPEN_FISCAL_RECEIPT, report.getDocuments().get(0).getOpenCommand());
+        long[] closeStats = report.getCommandStats().get(HasarCommands.CMD_CLOSE_FISCAL_RECEIPT);
+        assertEquals(1, closeStats[0]);
+        assertTrue("The replay must wait the recorded latency", closeStats[2] >= 150000);
+        assertTrue(report.toString().contains("0x45"));
+    }
+
+    public void testCommWithoutTraceRecordsSpoolerResponses() throws Exception
+    {
+        RecordingFiscalComm comm = new RecordingFiscalComm(new HasarSimulatorComm(simulator), file);
+        HasarFiscalPrinter printer = new HasarPrinterP320F(comm);
+        printer.connect();
+        printer.printDocument(createInvoice());
+        printer.close();
+
+        List<CommCapture.Exchange> exchanges = CommCapture.read(file);
+        assertEquals(simulator.getCommandCount(), exchanges.size());
+        for (CommCapture.Exchange exchange : exchanges) {
+            assertEquals(1, exchange.getChunks().size());
+        }
+
+        CaptureReplayer replayer = new CaptureReplayer(exchanges);
+        replayer.setCommType(CaptureReplayer.COMM_NIO);
+        ReplayReport report = replayer.replay();
+        assertEquals(0, report.getMismatches());
+        assertEquals(0, report.getFailures());
+        assertEquals(1, report.getDocuments().size());
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    //  Support Test Behavior
+    //////////////////////////////////////////////////////////////////////////
+
+    private Invoice createInvoice()
+    {
+        Invoice invoice = new Invoice();
+        invoice.setLetter("B");
+        invoice.setCustomer(new Customer("Consumidor Final", Customer.DNI, "20111222",
+                Customer.CONSUMIDOR_FINAL, "Neuquen"));
+        invoice.addLine(new DocumentLine(1, "Producto 1", new BigDecimal(2), new BigDecimal("60.50"),
+                new BigDecimal(21), true));
+        invoice.addLine(new DocumentLine(2, "Producto 2", BigDecimal.ONE, new BigDecimal("60.50"),
+                new BigDecimal(21), true));
+        invoice.addPayment(new Payment(new BigDecimal("181.50"), "Efectivo"));
+        return invoice;
+    }
+}
@@ -0,0 +1,136 @@
+package ar.edu.ifes.print.fiscal.epson;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+import ar.com.ergio.print.fiscal.FiscalCloseReport;
+import ar.com.ergio.print.fiscal.document.CreditNote;
+import ar.com.ergio.print.fiscal.document.Customer;
+import ar.com.ergio.print.fiscal.document.DocumentLine;
+import ar.com.ergio.print.fiscal.document.Invoice;
+import ar.com.ergio.print.fiscal.document.NonFiscalDocument;
+import ar.com.ergio.print.fiscal.document.Payment;
+import ar.edu.ifes.print.fiscal.epson.simulator.EpsonSimulator;
+import ar.edu.ifes.print.fiscal.epson.simulator.EpsonSimulatorDevice;
+
+public class EpsonFiscalPrinterTest extends TestCase
+{
+    private EpsonSimulator simulator;
+    private EpsonSimulatorDevice device;
+    private EpsonFiscalPrinter printer;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        simulator = new EpsonSimulator();
+        device = new EpsonSimulatorDevice(simulator);
+        device.setKeepAlives(2);
+        printer = new EpsonFiscalPrinter(device.createComm());
+        printer.connect();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        printer.close();
+        super.tearDown();
+    }
+
+    public void testInvoice() throws Exception
+    {
+        Invoice invoice = createInvoice(3);
+        printer.printDocument(invoice);
+
+        assertEquals("00000001", invoice.getDocumentNo());
+        assertEquals(1, simulator.getLastNumber(EpsonConstants.INVOICE, "B"));
+        assertFalse(simulator.isDocumentOpen());
+
+        printer.printDocument(createInvoice(1));
+        assertEquals(2, simulator.getLastNumber(EpsonConstants.INVOICE, "B"));
+    }
+
+    public void testCreditNote() throws Exception
+    {
+        CreditNote creditNote = new CreditNote();
+        creditNote.setLetter("B");
+        creditNote.setOriginalDocumentNo("0001-00000001");
+        creditNote.setCustomer(createCustomer());
+        creditNote.addLine(new DocumentLine(1, "Devolución", BigDecimal.ONE, new BigDecimal("12.10"),
+                new BigDecimal(21), true));
+        printer.printDocument(creditNote);
+
+        assertEquals("00000001", creditNote.getDocumentNo());
+        assertEquals(1, simulator.getLastNumber(EpsonConstants.CREDIT_NOTE, "B"));
+        assertEquals(0, simulator.getLastNumber(EpsonConstants.INVOICE, "B"));
+    }
+
+    public void testNonFiscalDocument() throws Exception
+    {
+        NonFiscalDocument document = new NonFiscalDocument();
+        document.addLine("Comprobante no fiscal");
+        document.addLine("Segunda línea");
+        printer.printDocument(document);
+
+        assertFalse(simulator.isDocumentOpen());
+    }
+
+    public void testFiscalCloseReport() throws Exception
+    {
+        printer.printDocument(createInvoice(2));
+        printer.printDocument(createInvoice(1));
+
+        FiscalCloseReport x = printer.fiscalClose(EpsonConstants.CLOSE_X);
+        assertEquals(0, x.getNumber());
+        assertEquals(2, x.getFiscalDocuments());
+        assertEquals(2, x.getLastInvoiceNoBC());
+        assertEquals(0, new BigDecimal("36.30").compareTo(x.getSalesAmt()));
+
+        FiscalCloseReport z = printer.fiscalClose(EpsonConstants.CLOSE_Z);
+        assertEquals(1, z.getNumber());
+        assertEquals(1, simulator.getZNumber());
+
+        x = printer.fiscalClose(EpsonConstants.CLOSE_X);
+        assertEquals(0, x.getFiscalDocuments());
+        assertEquals(0, x.getSalesAmt().signum());
+    }
+
+    public void testImpliedDecimals() throws Exception
+    {
+        assertEquals("1210", EpsonFiscalPacket.toImpliedDecimal(new BigDecimal("12.1"), 2));
+        assertEquals("1500", EpsonFiscalPacket.toImpliedDecimal(new BigDecimal("-1.5"), 3));
+        assertEquals("13", EpsonFiscalPacket.toImpliedDecimal(new BigDecimal("0.125"), 2));
+
+        EpsonFiscalPacket packet = (EpsonFiscalPacket) printer.cmdInvoicePayment("Efectivo",
+                new BigDecimal("10.5"), EpsonConstants.PAYMENT_TENDER);
+        ByteBuffer buffer = ByteBuffer.allocate(packet.getEncodedLength());
+        packet.encode(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals("d\u001cEfectivo\u001c1050\u001cT", new String(buffer.array(), "ISO-8859-1"));
+        assertEquals(0, new BigDecimal("10.50").compareTo(packet.getImpliedDecimal(2, 2)));
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    //  Support Test Behavior
+    //////////////////////////////////////////////////////////////////////////
+
+    private Customer createCustomer()
+    {
+        return new Customer("Consumidor Final", Customer.DNI, "20111222", Customer.CONSUMIDOR_FINAL, "Neuquen");
+    }
+
+    private Invoice createInvoice(int lines)
+    {
+        Invoice invoice = new Invoice();
+        invoice.setLetter("B");
+        invoice.setCustomer(createCustomer());
+        invoice.addObservation("Pedido: 1000023");
+        for (int i = 1; i <= lines; i++) {
+            invoice.addLine(new DocumentLine(i, "Producto " + i, BigDecimal.ONE, new BigDecimal("12.10"),
+                    new BigDecimal(21), true));
+        }
+        invoice.addPayment(new Payment(new BigDecimal("12.10").multiply(new BigDecimal(lines)), "Efectivo"));
+        return invoice;
+    }
+}
@@ -0,0 +1,63 @@
+#	This script runs the fiscal printing benchmarks (see benchmark/README.md)
+#
+#	Usage: RUN_benchmarks.sh [regexp...]
+#
+
+SAVED_DIR=`pwd`			#save current dir
+cd `dirname $0`			#change dir to place where script resides - does not work with sym links
+UTILS_DEV=`pwd`			#this is adempiere patches source
+cd $SAVED_DIR			#back to the saved directory
+
+.  $UTILS_DEV/myDevEnv.sh	#call environment
+
+
+if [ ! $ADEMPIERE_ENV==Y ] ; then
+    echo "Can't set development environemnt - check myDevEnv.sh"
+    exit 1
+fi
+
+BENCHMARK_DIR=$PATCHES_SOURCE/benchmark
+BENCHMARK_BUILD_DIR=$BUILD_DIR/benchmark
+
+# JMH and its dependencies
+JMH_CLASSPATH=""
+for JAR in jmh-core-1.21.jar jmh-generator-annprocess-1.21.jar jopt-simple-4.6.jar commons-math3-3.2.jar
+do
+    if [ ! -f $BENCHMARK_DIR/lib/$JAR ] ; then
+        echo "** Missing $BENCHMARK_DIR/lib/$JAR (see benchmark/README.md) **"
+        exit 1
+    fi
+    JMH_CLASSPATH=$JMH_CLASSPATH:$BENCHMARK_DIR/lib/$JAR
+done
+
+# Version of the report: LAR version from version.properties unless given
+if [ ! $BENCHMARK_VERSION ] ; then
+    BENCHMARK_VERSION=`grep MAIN_VERSION $PATCHES_SOURCE/base/src/org/adempiere/version.properties |awk '{print $4}'`
+fi
+
+# Clean up the build directory
+rm -rf $BENCHMARK_BUILD_DIR
+mkdir -p $BENCHMARK_BUILD_DIR
+
+export CLASSPATH=$CLASSPATH:$ADEMPIERE_BASE_DIR/lib/Adempiere.jar$JMH_CLASSPATH
+
+echo Compiling ...
+cd $PATCHES_SOURCE/extend/src
+JAVAFILES=`find ar/com/ergio/print/fiscal ar/edu -name "*.java" | grep -v "/view/\|/action/"`
+javac -g -encoding $ENCODING -processorpath $JMH_CLASSPATH -d $BENCHMARK_BUILD_DIR \
+    $JAVAFILES `find $BENCHMARK_DIR/src -name "*.java"`
+if [ $? -ne 0 ] ; then
+    cd $SAVED_DIR
+    echo "** Compilation failed **"
+    exit 1
+fi
+cd $SAVED_DIR
+
+echo Running benchmarks for version $BENCHMARK_VERSION ...
+java -cp $CLASSPATH:$BENCHMARK_BUILD_DIR ar.com.ergio.print.fiscal.benchmark.BenchmarkRunner \
+    $BENCHMARK_DIR/results $BENCHMARK_VERSION "$@"
+RESULT=$?
+
+echo Done ...
+
+exit $RESULT